@@ -0,0 +1,113 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.analyze;
+
+import io.crate.action.sql.SessionContext;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.metadata.TransactionContext;
+import io.crate.planner.Plan;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import io.crate.testing.SQLExecutor;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.crate.testing.DiscoveryNodes.newNode;
+import static org.elasticsearch.test.ClusterServiceUtils.createClusterService;
+
+/**
+ * Measures the analysis and planning of a bulk INSERT as it is issued by the postgres extended protocol
+ * if a client executes a prepared INSERT statement in a batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(value = Scope.Benchmark)
+public class BulkInsertBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int numRows;
+
+    private TestThreadPool threadPool;
+    private ClusterService clusterService;
+    private SQLExecutor e;
+    private Statement insertStatement;
+    private List<Row> bulkArgs;
+
+    @Setup
+    public void setup() throws Exception {
+        threadPool = new TestThreadPool("testing");
+        DiscoveryNode localNode = newNode("benchmarkNode", "n1");
+        clusterService = createClusterService(threadPool, localNode);
+        e = SQLExecutor.builder(clusterService, 1, new Random(10))
+            .addTable("create table users (id int primary key, name string, date timestamp, text string index using fulltext)")
+            .build();
+        insertStatement = SqlParser.createStatement("insert into users (id, name, text, date) values (?, ?, ?, ?)");
+        bulkArgs = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            bulkArgs.add(new RowN(new Object[]{i, "Arthur", "So long and thanks for all the fish", 1489363200000L}));
+        }
+    }
+
+    @TearDown
+    public void cleanup() throws InterruptedException {
+        threadPool.shutdown();
+        threadPool.awaitTermination(20, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public Plan measureAnalyzeAndPlanBulkInsert() {
+        Analysis analysis = e.analyzer.boundAnalyze(
+            insertStatement,
+            new TransactionContext(SessionContext.create()),
+            new ParameterContext(Row.EMPTY, bulkArgs));
+        return e.planner.plan(analysis.analyzedStatement(), e.getPlannerContext(clusterService.state()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(BulkInsertBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.execution.engine.aggregation.AggregateCollector;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.impl.SumAggregation;
+import io.crate.execution.engine.collect.InputCollectExpression;
+import io.crate.execution.engine.pipeline.ColumnBatchFilter;
+import io.crate.expression.InputFactory;
+import io.crate.expression.RowFilter;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.metadata.Functions;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.util.BigArrays;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static io.crate.data.SentinelRow.SENTINEL;
+import static io.crate.testing.TestingHelpers.getFunctions;
+
+/**
+ * Compares a scan-filter-aggregate pipeline ({@code select sum(x) from t where x < 5_000_000}) processed row by row
+ * with the same pipeline processing {@link ColumnBatch}es.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ColumnarBatchIteratorBenchmark {
+
+    private static final int NUM_ROWS = 10_000_000;
+
+    private final RamAccountingContext ramAccountingContext =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker("dummy"));
+
+    private List<Row> rows;
+    private List<ColumnBatch> batches;
+    private Function query;
+    private Predicate<Row> rowFilter;
+    private AggregateCollector collector;
+
+    @Setup
+    public void setup() {
+        rows = LongStream.range(0, NUM_ROWS).mapToObj(Row1::new).collect(Collectors.toList());
+        batches = new ArrayList<>();
+        for (int i = 0; i < NUM_ROWS; i += ColumnBatch.DEFAULT_CAPACITY) {
+            ColumnVector.Longs column = ColumnVector.longs(ColumnBatch.DEFAULT_CAPACITY);
+            ColumnBatch batch = new ColumnBatch(new ColumnVector[] { column }, ColumnBatch.DEFAULT_CAPACITY);
+            int size = Math.min(ColumnBatch.DEFAULT_CAPACITY, NUM_ROWS - i);
+            for (int j = 0; j < size; j++) {
+                column.values[j] = i + j;
+            }
+            batch.setSize(size);
+            batches.add(batch);
+        }
+
+        Functions functions = getFunctions();
+        query = new Function(
+            functions.getBuiltin(LtOperator.NAME, ImmutableList.of(DataTypes.LONG, DataTypes.LONG)).info(),
+            Arrays.asList(new InputColumn(0, DataTypes.LONG), Literal.of(NUM_ROWS / 2L)));
+        rowFilter = RowFilter.create(new InputFactory(functions), query);
+
+        InputCollectExpression inExpr0 = new InputCollectExpression(0);
+        AggregationFunction sumAggregation = (AggregationFunction) functions.getBuiltin(
+            SumAggregation.NAME, Collections.singletonList(DataTypes.LONG));
+        collector = new AggregateCollector(
+            Collections.singletonList(inExpr0),
+            ramAccountingContext,
+            AggregateMode.ITER_FINAL,
+            new AggregationFunction[] { sumAggregation },
+            Version.CURRENT,
+            BigArrays.NON_RECYCLING_INSTANCE,
+            new Input[] { inExpr0 }
+        );
+    }
+
+    @Benchmark
+    public Object[] measureRowWise() {
+        BatchIterator<Row> it = new FilteringBatchIterator<>(new InMemoryBatchIterator<>(rows, SENTINEL), rowFilter);
+        return BatchIterators.collect(it, collector).join();
+    }
+
+    @Benchmark
+    public Object[] measureBatchWise() {
+        ColumnarBatchIterator source = new InMemoryColumnarBatchIterator(batches);
+        ColumnarBatchIterator it = new MappedColumnarBatchIterator(
+            source,
+            new FilteringBatchIterator<>(source, rowFilter),
+            ColumnBatchFilter.create(rowFilter, query)
+        );
+        return ColumnarBatchIterators.collect(
+            it,
+            collector.supplier().get(),
+            collector.batchAccumulator(),
+            collector.finisher(),
+            new CompletableFuture<>()
+        ).join();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import io.crate.Streamer;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sending a page of rows using the row-wise {@link StreamBucket} with the {@link ColumnarStreamBucket}:
+ * building, serializing and reading all rows on the receiving side.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class StreamBucketBenchmark {
+
+    private static final int NUM_ROWS = 100_000;
+
+    private final Streamer<?>[] streamers = new Streamer[]{
+        DataTypes.LONG.streamer(),
+        DataTypes.INTEGER.streamer(),
+        DataTypes.DOUBLE.streamer(),
+        DataTypes.STRING.streamer()
+    };
+
+    private List<Row> rows;
+
+    @Setup
+    public void createRows() {
+        rows = new ArrayList<>(NUM_ROWS);
+        for (int i = 0; i < NUM_ROWS; i++) {
+            rows.add(new RowN(new Object[]{(long) i, i % 100, i * 0.5d, new BytesRef("value-" + (i % 1000))}));
+        }
+    }
+
+    @Benchmark
+    public void measureRowStreamBucket(Blackhole blackhole) throws IOException {
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, null);
+        for (Row row : rows) {
+            builder.add(row);
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.build().writeTo(out);
+
+        StreamBucket received = new StreamBucket(streamers);
+        received.readFrom(out.bytes().streamInput());
+        for (Row row : received) {
+            blackhole.consume(row.get(0));
+            blackhole.consume(row.get(3));
+        }
+    }
+
+    @Benchmark
+    public void measureColumnarStreamBucket(Blackhole blackhole) throws IOException {
+        ColumnarStreamBucket.Builder builder = new ColumnarStreamBucket.Builder(streamers);
+        for (Row row : rows) {
+            builder.add(row);
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.build().writeTo(out);
+
+        ColumnarStreamBucket received = new ColumnarStreamBucket(streamers);
+        received.readFrom(out.bytes().streamInput());
+        for (Row row : received) {
+            blackhole.consume(row.get(0));
+            blackhole.consume(row.get(3));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution.merge;
+
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.execution.engine.sort.OrderingByPosition;
+import io.crate.execution.engine.sort.SortKeyEncoder;
+import io.crate.types.DataTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the sorted rows of many upstreams, like the handler of a distributed ORDER BY does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class SortedPagingIteratorManyInputsBenchmark {
+
+    private static final int NUM_ROWS = 1_000_000;
+
+    @Param({"10", "100", "1000"})
+    public int numInputs;
+
+    @Param({"true", "false"})
+    public boolean overlapping;
+
+    private Comparator<Row> compareOnFirstColumn;
+    private SortKeyEncoder sortKeyEncoder;
+    private List<KeyIterable<Integer, Row>> inputs;
+
+    @Setup
+    public void prepareData() {
+        Random rnd = new Random(42);
+        compareOnFirstColumn = OrderingByPosition.rowOrdering(0, false, null);
+        sortKeyEncoder = SortKeyEncoder.create(
+            new int[] { 0 }, Collections.singletonList(DataTypes.LONG), new boolean[] { false }, new Boolean[] { null });
+
+        int rowsPerInput = NUM_ROWS / numInputs;
+        inputs = new ArrayList<>(numInputs);
+        for (int i = 0; i < numInputs; i++) {
+            List<Row> rows = new ArrayList<>(rowsPerInput);
+            for (int j = 0; j < rowsPerInput; j++) {
+                long value = overlapping ? rnd.nextInt(NUM_ROWS) : (long) i * rowsPerInput + j;
+                rows.add(new Row1(value));
+            }
+            rows.sort(compareOnFirstColumn);
+            inputs.add(new KeyIterable<>(i, rows));
+        }
+    }
+
+    @Benchmark
+    public void measureMergeWithComparator(Blackhole blackhole) {
+        SortedPagingIterator<Integer, Row> pagingIterator = new SortedPagingIterator<>(compareOnFirstColumn, false);
+        consume(pagingIterator, blackhole);
+    }
+
+    @Benchmark
+    public void measureMergeWithSortKeys(Blackhole blackhole) {
+        SortedPagingIterator<Integer, Row> pagingIterator =
+            new SortedPagingIterator<>(compareOnFirstColumn, sortKeyEncoder::encode, false);
+        consume(pagingIterator, blackhole);
+    }
+
+    private void consume(SortedPagingIterator<Integer, Row> pagingIterator, Blackhole blackhole) {
+        pagingIterator.merge(inputs);
+        pagingIterator.finish();
+        while (pagingIterator.hasNext()) {
+            blackhole.consume(pagingIterator.next());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compiler;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.dsl.projection.builder.InputColumns;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.expression.InputFactory;
+import io.crate.expression.RowFilter;
+import io.crate.expression.symbol.Symbol;
+import io.crate.testing.SqlExpressions;
+import io.crate.testing.T3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the interpreted evaluation of scalars and filters (Input trees created by the {@link InputFactory}) with
+ * the evaluation of the {@link CompiledExpression}s.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ExpressionCompilerBenchmark {
+
+    private static final String SCALAR = "case when x > 10 then x * 2 + i else coalesce(i, 0) - x end";
+    private static final String FILTER = "x > 10 and i * 2 < 1000";
+
+    private final List<Row> rows = IntStream.range(0, 10_000)
+        .mapToObj(i -> new RowN(new Object[] { "foo", i % 100, i % 7 == 0 ? null : i }))
+        .collect(Collectors.toList());
+
+    private Input<?> interpretedScalar;
+    private List<CollectExpression<Row, ?>> interpretedExpressions;
+    private CompiledExpression compiledScalar;
+    private Predicate<Row> interpretedFilter;
+    private CompiledExpression compiledFilter;
+
+    @Setup
+    public void setup() {
+        SqlExpressions expressions = new SqlExpressions(ImmutableMap.of(T3.T1, T3.TR_1), T3.TR_1);
+        List<Symbol> columns = Arrays.asList(
+            expressions.asSymbol("a"), expressions.asSymbol("x"), expressions.asSymbol("i"));
+        Symbol scalar = InputColumns.create(expressions.normalize(expressions.asSymbol(SCALAR)), columns);
+        Symbol filter = InputColumns.create(expressions.normalize(expressions.asSymbol(FILTER)), columns);
+
+        InputFactory inputFactory = new InputFactory(expressions.functions());
+        InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns();
+        interpretedScalar = ctx.add(scalar);
+        interpretedExpressions = ctx.expressions();
+        interpretedFilter = RowFilter.create(inputFactory, filter);
+
+        compiledScalar = inputFactory.compile(scalar);
+        compiledFilter = inputFactory.compile(filter);
+    }
+
+    @Benchmark
+    public void measureInterpretedScalar(Blackhole blackhole) {
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            for (int j = 0; j < interpretedExpressions.size(); j++) {
+                interpretedExpressions.get(j).setNextRow(row);
+            }
+            blackhole.consume(interpretedScalar.value());
+        }
+    }
+
+    @Benchmark
+    public void measureCompiledScalar(Blackhole blackhole) {
+        for (int i = 0; i < rows.size(); i++) {
+            compiledScalar.setNextRow(rows.get(i));
+            blackhole.consume(compiledScalar.value());
+        }
+    }
+
+    @Benchmark
+    public int measureInterpretedFilter() {
+        int matches = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (interpretedFilter.test(rows.get(i))) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int measureCompiledFilter() {
+        int matches = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (compiledFilter.matches(rows.get(i))) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
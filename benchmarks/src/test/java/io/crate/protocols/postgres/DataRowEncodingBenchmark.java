@@ -0,0 +1,120 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.protocols.postgres.types.PGType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encoding of a wide numeric result set into data row messages,
+ * using the text format compared to the binary format.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(value = Scope.Benchmark)
+public class DataRowEncodingBenchmark {
+
+    private static final int NUM_ROWS = 1000;
+
+    @Param({"TEXT", "BINARY"})
+    public FormatCodes.FormatCode formatCode;
+
+    @Param({"10", "100"})
+    public int numColumns;
+
+    private List<Row> rows;
+    private PGType[] pgTypes;
+    private FormatCodes.FormatCode[] formatCodes;
+    private ByteBuf buffer;
+
+    @Setup
+    public void setup() {
+        List<DataType> columnTypes = new ArrayList<>(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            columnTypes.add(i % 2 == 0 ? DataTypes.LONG : DataTypes.DOUBLE);
+        }
+        Random random = new Random(42);
+        rows = new ArrayList<>(NUM_ROWS);
+        for (int i = 0; i < NUM_ROWS; i++) {
+            Object[] cells = new Object[numColumns];
+            for (int c = 0; c < numColumns; c++) {
+                cells[c] = c % 2 == 0 ? random.nextLong() : random.nextDouble();
+            }
+            rows.add(new RowN(cells));
+        }
+        pgTypes = Messages.pgTypes(columnTypes);
+        FormatCodes.FormatCode[] allColumns = new FormatCodes.FormatCode[numColumns];
+        Arrays.fill(allColumns, formatCode);
+        formatCodes = FormatCodes.forColumns(allColumns, numColumns);
+        buffer = Unpooled.directBuffer(ResultSetReceiver.FLUSH_THRESHOLD);
+    }
+
+    @TearDown
+    public void cleanup() {
+        buffer.release();
+    }
+
+    @Benchmark
+    public int measureWriteDataRows() {
+        int bytes = 0;
+        for (Row row : rows) {
+            Messages.writeDataRow(buffer, row, pgTypes, formatCodes);
+            bytes += buffer.readableBytes();
+            buffer.clear();
+        }
+        return bytes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(DataRowEncodingBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(opt).run();
+    }
+}
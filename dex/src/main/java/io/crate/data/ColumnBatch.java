@@ -0,0 +1,160 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data;
+
+/**
+ * A batch of rows stored column-wise in {@link ColumnVector}s.
+ *
+ * <p>
+ * Rows are filled into positions {@code 0..size-1}. Filters don't move any data but narrow down the rows of the batch
+ * using a selection vector: after a filter has been applied only the positions {@code position(0)} to
+ * {@code position(numSelected() - 1)} are part of the batch. Consumers therefore iterate over a batch like this:
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *     for (int i = 0; i < batch.numSelected(); i++) {
+ *         int position = batch.position(i);
+ *         // do something with column.values[position]
+ *     }
+ * }
+ * </pre>
+ *
+ * Batches are re-used by their producer; a consumer must not hold on to a batch after it moved on to the next one.
+ */
+public final class ColumnBatch {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final ColumnVector[] columns;
+    private final int capacity;
+    private final int[] selection;
+
+    private int size = 0;
+    private int numSelected = 0;
+    private boolean selectionInUse = false;
+
+    public ColumnBatch(ColumnVector[] columns, int capacity) {
+        this(columns, capacity, new int[capacity]);
+    }
+
+    private ColumnBatch(ColumnVector[] columns, int capacity, int[] selection) {
+        this.columns = columns;
+        this.capacity = capacity;
+        this.selection = selection;
+    }
+
+    public int numColumns() {
+        return columns.length;
+    }
+
+    public ColumnVector column(int index) {
+        return columns[index];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of rows which have been filled into the batch, including rows which are not selected.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Marks the first {@code size} positions of the columns as filled; all of them are selected.
+     */
+    public void setSize(int size) {
+        assert size <= capacity : "size must not exceed the capacity of the batch";
+        this.size = size;
+        this.selectionInUse = false;
+    }
+
+    /**
+     * Empties the batch so that it can be filled again.
+     */
+    public void reset() {
+        size = 0;
+        selectionInUse = false;
+        for (ColumnVector column : columns) {
+            column.reset();
+        }
+    }
+
+    /**
+     * @return the number of rows of the batch which are selected
+     */
+    public int numSelected() {
+        return selectionInUse ? numSelected : size;
+    }
+
+    /**
+     * @return the position within the columns of the {@code index}'th selected row
+     */
+    public int position(int index) {
+        return selectionInUse ? selection[index] : index;
+    }
+
+    public boolean selectionInUse() {
+        return selectionInUse;
+    }
+
+    /**
+     * The selection vector; filters write the positions of the rows they keep into it (in ascending order) and then
+     * call {@link #select(int)}. Because the kept positions are a subset of the current positions the selection can
+     * be updated in place.
+     */
+    public int[] selection() {
+        return selection;
+    }
+
+    public void select(int numSelected) {
+        this.numSelected = numSelected;
+        this.selectionInUse = true;
+    }
+
+    /**
+     * Creates a view of the batch which contains the given columns. The view shares the vectors and the selection
+     * with this batch, {@link #syncSelection(ColumnBatch)} must be used to update it once the batch changed.
+     */
+    public ColumnBatch project(int[] columnIndices) {
+        ColumnVector[] projected = new ColumnVector[columnIndices.length];
+        for (int i = 0; i < columnIndices.length; i++) {
+            projected[i] = columns[columnIndices[i]];
+        }
+        return new ColumnBatch(projected, capacity, selection);
+    }
+
+    public void syncSelection(ColumnBatch source) {
+        assert source.selection == selection : "Can only sync the selection of a view with the batch it was created of";
+        size = source.size;
+        numSelected = source.numSelected;
+        selectionInUse = source.selectionInUse;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data;
+
+/**
+ * A {@link Row} view on a single position of a {@link ColumnBatch}.
+ * Used to pass rows of a batch to components which process data row by row.
+ */
+public final class ColumnBatchRow implements Row {
+
+    private ColumnBatch batch;
+    private int position;
+
+    public void position(ColumnBatch batch, int position) {
+        this.batch = batch;
+        this.position = position;
+    }
+
+    @Override
+    public int numColumns() {
+        return batch.numColumns();
+    }
+
+    @Override
+    public Object get(int index) {
+        return batch.column(index).get(position);
+    }
+
+    @Override
+    public Object[] materialize() {
+        Object[] cells = new Object[batch.numColumns()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = get(i);
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A column of a {@link ColumnBatch}: the values of a single column for all rows of the batch, stored in a plain array
+ * plus a bitmap which marks the positions where the value is null.
+ *
+ * The implementations for primitive values ({@link Longs}, {@link Ints}, {@link Doubles}) expose their value array
+ * so that consumers can process a batch in tight loops without boxing. The values at null positions are undefined.
+ */
+public abstract class ColumnVector {
+
+    private final long[] nulls;
+    private boolean hasNulls = false;
+
+    private ColumnVector(int capacity) {
+        nulls = new long[(capacity + 63) >>> 6];
+    }
+
+    public static Longs longs(int capacity) {
+        return new Longs(capacity);
+    }
+
+    public static Ints ints(int capacity) {
+        return new Ints(capacity);
+    }
+
+    public static Doubles doubles(int capacity) {
+        return new Doubles(capacity);
+    }
+
+    public static Objects objects(int capacity) {
+        return new Objects(capacity);
+    }
+
+    /**
+     * @return true if any position of the vector may be null.
+     *         If false {@link #isNull(int)} can be skipped for all positions.
+     */
+    public final boolean hasNulls() {
+        return hasNulls;
+    }
+
+    public final boolean isNull(int position) {
+        return hasNulls && (nulls[position >>> 6] & (1L << position)) != 0;
+    }
+
+    final void setNull(int position) {
+        nulls[position >>> 6] |= 1L << position;
+        hasNulls = true;
+    }
+
+    /**
+     * Clears the null bitmap; called before the vector is re-filled.
+     */
+    public void reset() {
+        if (hasNulls) {
+            Arrays.fill(nulls, 0L);
+            hasNulls = false;
+        }
+    }
+
+    /**
+     * Sets the value at the given position. The value must be null or match the type of the vector.
+     */
+    public abstract void set(int position, @Nullable Object value);
+
+    /**
+     * @return the (boxed) value at the given position
+     */
+    @Nullable
+    public abstract Object get(int position);
+
+
+    public static final class Longs extends ColumnVector {
+
+        public final long[] values;
+
+        private Longs(int capacity) {
+            super(capacity);
+            values = new long[capacity];
+        }
+
+        @Override
+        public void set(int position, @Nullable Object value) {
+            if (value == null) {
+                setNull(position);
+            } else {
+                values[position] = ((Number) value).longValue();
+            }
+        }
+
+        @Override
+        public Object get(int position) {
+            return isNull(position) ? null : values[position];
+        }
+    }
+
+    public static final class Ints extends ColumnVector {
+
+        public final int[] values;
+
+        private Ints(int capacity) {
+            super(capacity);
+            values = new int[capacity];
+        }
+
+        @Override
+        public void set(int position, @Nullable Object value) {
+            if (value == null) {
+                setNull(position);
+            } else {
+                values[position] = ((Number) value).intValue();
+            }
+        }
+
+        @Override
+        public Object get(int position) {
+            return isNull(position) ? null : values[position];
+        }
+    }
+
+    public static final class Doubles extends ColumnVector {
+
+        public final double[] values;
+
+        private Doubles(int capacity) {
+            super(capacity);
+            values = new double[capacity];
+        }
+
+        @Override
+        public void set(int position, @Nullable Object value) {
+            if (value == null) {
+                setNull(position);
+            } else {
+                values[position] = ((Number) value).doubleValue();
+            }
+        }
+
+        @Override
+        public Object get(int position) {
+            return isNull(position) ? null : values[position];
+        }
+    }
+
+    public static final class Objects extends ColumnVector {
+
+        public final Object[] values;
+
+        private Objects(int capacity) {
+            super(capacity);
+            values = new Object[capacity];
+        }
+
+        @Override
+        public void set(int position, @Nullable Object value) {
+            if (value == null) {
+                setNull(position);
+            }
+            values[position] = value;
+        }
+
+        @Override
+        public Object get(int position) {
+            return values[position];
+        }
+    }
+}
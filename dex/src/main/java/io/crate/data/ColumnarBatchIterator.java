@@ -0,0 +1,68 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data;
+
+/**
+ * A {@link BatchIterator} which can also provide its data as {@link ColumnBatch}es.
+ *
+ * <p>
+ * Consumers which process all rows of the iterator (e.g. aggregations) can use {@link #moveNextBatch()} instead of
+ * {@link #moveNext()} to process the rows a batch at a time in tight loops over primitive arrays, instead of
+ * calling {@link Row#get(int)} for each row:
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *     while (it.moveNextBatch()) {
+ *         // do something with it.currentBatch()
+ *     }
+ *     if (it.allLoaded()) {
+ *          // iterator is exhausted
+ *     } else {
+ *         it.loadNextBatch().whenComplete((r, t) -> {
+ *             // continue consumption
+ *         }
+ *     }
+ * }
+ * </pre>
+ *
+ * A consumer must stick to one of the two modes until the iterator is exhausted or moved to the start again.
+ * Mixing {@link #moveNext()} and {@link #moveNextBatch()} is not supported.
+ *
+ * Producers may fill batches eagerly, so the batch mode should only be used by consumers which consume all rows anyway.
+ */
+public interface ColumnarBatchIterator extends BatchIterator<Row> {
+
+    /**
+     * Advances the iterator to the next batch of rows.
+     *
+     * @return true if the iterator moved to a batch which contains at least one selected row.
+     *         false if the loaded data is exhausted, see {@link #moveNext()}
+     */
+    boolean moveNextBatch();
+
+    /**
+     * The batch the iterator is positioned on. Only valid after {@link #moveNextBatch()} returned true.
+     */
+    ColumnBatch currentBatch();
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+public class ColumnarBatchIterators {
+
+    /**
+     * Use {@code collector} to consume all rows from {@code it}, fetching the rows batch wise.
+     * The collector still receives single rows, but these are read directly from the batches.
+     *
+     * This does *not* automatically close the BatchIterator when the end is reached.
+     */
+    public static <A, R> CompletableFuture<R> collect(ColumnarBatchIterator it, Collector<Row, A, R> collector) {
+        return collect(
+            it,
+            collector.supplier().get(),
+            rowWise(collector.accumulator()),
+            collector.finisher(),
+            new CompletableFuture<>()
+        );
+    }
+
+    /**
+     * Use {@code accumulator} to consume all batches from {@code it}
+     *
+     * This does *not* automatically close the BatchIterator when the end is reached.
+     *
+     * @param <A> state type
+     * @param <R> result type
+     * @return future containing the result, this is the future that has been provided as argument.
+     */
+    public static <A, R> CompletableFuture<R> collect(ColumnarBatchIterator it,
+                                                      A state,
+                                                      BiConsumer<A, ColumnBatch> accumulator,
+                                                      Function<A, R> finisher,
+                                                      CompletableFuture<R> resultFuture) {
+        boolean allLoaded;
+        try {
+            while (it.moveNextBatch()) {
+                accumulator.accept(state, it.currentBatch());
+            }
+            allLoaded = it.allLoaded();
+        } catch (Throwable t) {
+            resultFuture.completeExceptionally(t);
+            return resultFuture;
+        }
+
+        if (allLoaded) {
+            resultFuture.complete(finisher.apply(state));
+        } else {
+            it.loadNextBatch().whenComplete((r, t) -> {
+                if (t == null) {
+                    collect(it, state, accumulator, finisher, resultFuture);
+                } else {
+                    resultFuture.completeExceptionally(t);
+                }
+            });
+        }
+        return resultFuture;
+    }
+
+    /**
+     * Creates a batch accumulator which passes each selected row of a batch to {@code rowAccumulator}.
+     */
+    public static <A> BiConsumer<A, ColumnBatch> rowWise(BiConsumer<A, ? super Row> rowAccumulator) {
+        ColumnBatchRow row = new ColumnBatchRow();
+        return (state, batch) -> {
+            for (int i = 0, numSelected = batch.numSelected(); i < numSelected; i++) {
+                row.position(batch, batch.position(i));
+                rowAccumulator.accept(state, row);
+            }
+        };
+    }
+}
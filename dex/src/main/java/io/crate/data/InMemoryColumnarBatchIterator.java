@@ -0,0 +1,118 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data;
+
+import io.crate.concurrent.CompletableFutures;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * ColumnarBatchIterator implementation that is backed by a list of filled {@link ColumnBatch}es.
+ */
+public class InMemoryColumnarBatchIterator implements ColumnarBatchIterator {
+
+    private final List<ColumnBatch> batches;
+    private final ColumnBatchRow row = new ColumnBatchRow();
+
+    private int batchIdx = -1;
+    private int rowIdx = -1;
+    private ColumnBatch currentBatch;
+
+    public InMemoryColumnarBatchIterator(List<ColumnBatch> batches) {
+        this.batches = batches;
+    }
+
+    @Override
+    public Row currentElement() {
+        return row;
+    }
+
+    @Override
+    public void moveToStart() {
+        batchIdx = -1;
+        rowIdx = -1;
+        currentBatch = null;
+    }
+
+    @Override
+    public boolean moveNext() {
+        while (true) {
+            if (currentBatch != null && rowIdx + 1 < currentBatch.size()) {
+                rowIdx++;
+                row.position(currentBatch, rowIdx);
+                return true;
+            }
+            if (nextBatch() == false) {
+                return false;
+            }
+            rowIdx = -1;
+        }
+    }
+
+    @Override
+    public boolean moveNextBatch() {
+        while (nextBatch()) {
+            if (currentBatch.size() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean nextBatch() {
+        if (batchIdx + 1 < batches.size()) {
+            batchIdx++;
+            currentBatch = batches.get(batchIdx);
+            // a previous consumer may have applied filters
+            currentBatch.setSize(currentBatch.size());
+            return true;
+        }
+        currentBatch = null;
+        return false;
+    }
+
+    @Override
+    public ColumnBatch currentBatch() {
+        return currentBatch;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() {
+        return CompletableFutures.failedFuture(new IllegalStateException("All batches already loaded"));
+    }
+
+    @Override
+    public boolean allLoaded() {
+        return true;
+    }
+
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A {@link ColumnarBatchIterator} which transforms the data of a columnar source.
+ *
+ * Rows are processed by {@code rowIterator}, which must be a BatchIterator wrapping {@code source} that applies the
+ * same transformation row by row. Batches are processed by {@code batchMapper}, which can either narrow down the
+ * selection of the source batch in place (filter) or return a different view of it (projection).
+ * Batches without any selected row are skipped.
+ */
+public class MappedColumnarBatchIterator extends ForwardingBatchIterator<Row> implements ColumnarBatchIterator {
+
+    private final ColumnarBatchIterator source;
+    private final BatchIterator<Row> rowIterator;
+    private final UnaryOperator<ColumnBatch> batchMapper;
+
+    private ColumnBatch currentBatch;
+
+    public MappedColumnarBatchIterator(ColumnarBatchIterator source,
+                                       BatchIterator<Row> rowIterator,
+                                       UnaryOperator<ColumnBatch> batchMapper) {
+        this.source = source;
+        this.rowIterator = rowIterator;
+        this.batchMapper = batchMapper;
+    }
+
+    @Override
+    protected BatchIterator<Row> delegate() {
+        return rowIterator;
+    }
+
+    @Override
+    public void moveToStart() {
+        currentBatch = null;
+        super.moveToStart();
+    }
+
+    @Override
+    public boolean moveNextBatch() {
+        while (source.moveNextBatch()) {
+            ColumnBatch batch = batchMapper.apply(source.currentBatch());
+            if (batch.numSelected() > 0) {
+                currentBatch = batch;
+                return true;
+            }
+        }
+        currentBatch = null;
+        return false;
+    }
+
+    @Override
+    public ColumnBatch currentBatch() {
+        return currentBatch;
+    }
+}
@@ -50,6 +50,11 @@
  *      Examples include the fetch-operation.
  *      See {@link io.crate.data.AsyncOperationBatchIterator}
  *
+ * BatchIterators can optionally provide their data column-wise, see {@link io.crate.data.ColumnarBatchIterator}.
+ * Projecting BatchIterators which can process {@link io.crate.data.ColumnBatch}es pass them on (e.g. filters, see
+ * {@link io.crate.data.MappedColumnarBatchIterator}); consumers can then process a batch of rows at once instead of
+ * going through the rows one by one.
+ *
  *
  */
 package io.crate.data;
@@ -0,0 +1,139 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data;
+
+import io.crate.testing.BatchIteratorTester;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ColumnarBatchIteratorsTest {
+
+    /**
+     * Creates batches with a single long column containing the values {@code 0..numRows-1};
+     * every 10th value is null
+     */
+    private static List<ColumnBatch> batches(int numRows, int batchCapacity) {
+        List<ColumnBatch> batches = new ArrayList<>();
+        ColumnBatch batch = null;
+        for (int i = 0; i < numRows; i++) {
+            if (batch == null || batch.isFull()) {
+                batch = new ColumnBatch(new ColumnVector[] { ColumnVector.longs(batchCapacity) }, batchCapacity);
+                batches.add(batch);
+            }
+            batch.column(0).set(batch.size(), i % 10 == 0 ? null : (long) i);
+            batch.setSize(batch.size() + 1);
+        }
+        return batches;
+    }
+
+    private static final UnaryOperator<ColumnBatch> EVEN_FILTER = batch -> {
+        ColumnVector.Longs column = (ColumnVector.Longs) batch.column(0);
+        int[] selection = batch.selection();
+        int numMatches = 0;
+        for (int i = 0; i < batch.numSelected(); i++) {
+            int position = batch.position(i);
+            if (!column.isNull(position) && column.values[position] % 2 == 0) {
+                selection[numMatches++] = position;
+            }
+        }
+        batch.select(numMatches);
+        return batch;
+    };
+
+    private static long sumBatchWise(ColumnarBatchIterator it) throws Exception {
+        CompletableFuture<Long> result = ColumnarBatchIterators.collect(
+            it,
+            new long[1],
+            (state, batch) -> {
+                ColumnVector.Longs column = (ColumnVector.Longs) batch.column(0);
+                for (int i = 0; i < batch.numSelected(); i++) {
+                    int position = batch.position(i);
+                    if (!column.isNull(position)) {
+                        state[0] += column.values[position];
+                    }
+                }
+            },
+            state -> state[0],
+            new CompletableFuture<>()
+        );
+        return result.get();
+    }
+
+    @Test
+    public void testInMemoryColumnarBatchIteratorRowMode() throws Exception {
+        List<Object[]> expectedResult = IntStream.range(0, 25)
+            .mapToObj(i -> new Object[] { i % 10 == 0 ? null : (long) i })
+            .collect(Collectors.toList());
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> new InMemoryColumnarBatchIterator(batches(25, 8)));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testCollectBatchWise() throws Exception {
+        long expected = IntStream.range(0, 25).filter(i -> i % 10 != 0).sum();
+        assertThat(sumBatchWise(new InMemoryColumnarBatchIterator(batches(25, 8))), is(expected));
+    }
+
+    @Test
+    public void testMappedColumnarBatchIteratorFiltersBatches() throws Exception {
+        List<ColumnBatch> batches = batches(25, 8);
+        ColumnarBatchIterator source = new InMemoryColumnarBatchIterator(batches);
+        ColumnarBatchIterator filtered = new MappedColumnarBatchIterator(
+            source,
+            new FilteringBatchIterator<>(source, row -> row.get(0) != null && (long) row.get(0) % 2 == 0),
+            EVEN_FILTER
+        );
+        long expected = IntStream.range(0, 25).filter(i -> i % 10 != 0 && i % 2 == 0).sum();
+        assertThat(sumBatchWise(filtered), is(expected));
+
+        filtered.moveToStart();
+        List<Object[]> rows = BatchIterators.collect(
+            filtered, Collectors.mapping(Row::materialize, Collectors.toList())).get();
+        assertThat(rows.size(), is(10));
+    }
+
+    @Test
+    public void testCollectRowWiseReadsOnlySelectedRows() throws Exception {
+        ColumnarBatchIterator source = new InMemoryColumnarBatchIterator(batches(25, 8));
+        ColumnarBatchIterator filtered = new MappedColumnarBatchIterator(
+            source,
+            new FilteringBatchIterator<>(source, row -> row.get(0) != null && (long) row.get(0) % 2 == 0),
+            EVEN_FILTER
+        );
+        List<Object> values = ColumnarBatchIterators.collect(
+            filtered, Collectors.mapping(row -> row.get(0), Collectors.toList())).get();
+        assertThat(values.size(), is(10));
+        assertThat(values.get(0), is(2L));
+        assertThat(values.get(9), is(24L));
+    }
+}
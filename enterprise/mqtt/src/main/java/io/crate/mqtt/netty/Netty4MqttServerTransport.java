@@ -26,6 +26,7 @@ import io.crate.auth.user.UserManager;
 import io.crate.ingestion.IngestionService;
 import io.crate.metadata.Functions;
 import io.crate.mqtt.operations.MqttIngestService;
+import io.crate.mqtt.operations.MqttIngestStats;
 import io.crate.mqtt.protocol.MqttProcessor;
 import io.crate.netty.CrateChannelBootstrapFactory;
 import io.crate.protocols.postgres.BindPostgresException;
@@ -57,9 +58,18 @@ import org.elasticsearch.common.transport.PortsRange;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.http.BindHttpException;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BindTransportException;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -88,6 +98,13 @@ public class Netty4MqttServerTransport extends AbstractLifecycleComponent {
         "ingestion.mqtt.timeout", TimeValue.timeValueSeconds(10L), TimeValue.timeValueSeconds(1L),
         Setting.Property.NodeScope), DataTypes.STRING);
 
+    public static final CrateSetting<Integer> MQTT_BATCH_SIZE_SETTING = CrateSetting.of(Setting.intSetting(
+        "ingestion.mqtt.batch_size", 500, 1, Setting.Property.NodeScope), DataTypes.INTEGER);
+
+    public static final CrateSetting<TimeValue> MQTT_BATCH_FLUSH_INTERVAL_SETTING = CrateSetting.of(Setting.timeSetting(
+        "ingestion.mqtt.batch_flush_interval", TimeValue.timeValueMillis(10L), TimeValue.timeValueMillis(0L),
+        Setting.Property.NodeScope), DataTypes.STRING);
+
     static boolean isMQTTSslEnabled(Settings settings) {
         return SharedSettings.ENTERPRISE_LICENSE_SETTING.setting().get(settings) &&
                SSL_MQTT_ENABLED.setting().get(settings);
@@ -107,6 +124,8 @@ public class Netty4MqttServerTransport extends AbstractLifecycleComponent {
     private final SslContextProvider sslContextProvider;
     private ServerBootstrap serverBootstrap;
     private final MqttIngestService mqttIngestService;
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    private ObjectName statsMBeanName;
 
     private BoundTransportAddress boundAddress;
 
@@ -117,7 +136,8 @@ public class Netty4MqttServerTransport extends AbstractLifecycleComponent {
                                      SQLOperations sqlOperations,
                                      UserManager userManager,
                                      IngestionService ingestionService,
-                                     SslContextProvider sslContextProvider) {
+                                     SslContextProvider sslContextProvider,
+                                     ThreadPool threadPool) {
         super(settings);
         this.networkService = networkService;
         logger = Loggers.getLogger("mqtt", settings);
@@ -128,7 +148,14 @@ public class Netty4MqttServerTransport extends AbstractLifecycleComponent {
         port = MQTT_PORT_SETTING.setting().get(settings);
         defaultIdleTimeout = MQTT_TIMEOUT_SETTING.setting().get(settings);
         mqttMessageLogger = new MqttMessageLogger(settings);
-        mqttIngestService = new MqttIngestService(functions, sqlOperations, userManager, ingestionService);
+        mqttIngestService = new MqttIngestService(
+            functions,
+            sqlOperations,
+            userManager,
+            ingestionService,
+            threadPool,
+            MQTT_BATCH_SIZE_SETTING.setting().get(settings),
+            MQTT_BATCH_FLUSH_INTERVAL_SETTING.setting().get(settings));
         this.sslContextProvider = sslContextProvider;
     }
 
@@ -139,6 +166,7 @@ public class Netty4MqttServerTransport extends AbstractLifecycleComponent {
         }
 
         mqttIngestService.initialize();
+        registerStatsMBean();
         serverBootstrap = CrateChannelBootstrapFactory.newChannelBootstrap("mqtt", settings);
         serverBootstrap.childHandler(new ChannelInitializer<Channel>() {
             @Override
@@ -177,6 +205,29 @@ public class Netty4MqttServerTransport extends AbstractLifecycleComponent {
         }
     }
 
+    private void registerStatsMBean() {
+        try {
+            ObjectName name = new ObjectName(MqttIngestStats.NAME);
+            mbeanServer.registerMBean(mqttIngestService.stats(), name);
+            statsMBeanName = name;
+        } catch (InstanceAlreadyExistsException | NotCompliantMBeanException |
+            MBeanRegistrationException | MalformedObjectNameException e) {
+            logger.error("The MBean: {} cannot be registered: {}", MqttIngestStats.NAME, e);
+        }
+    }
+
+    private void unregisterStatsMBean() {
+        if (statsMBeanName == null) {
+            return;
+        }
+        try {
+            mbeanServer.unregisterMBean(statsMBeanName);
+        } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+            logger.error("The MBean: {} cannot be unregistered: {}", MqttIngestStats.NAME, e);
+        }
+        statsMBeanName = null;
+    }
+
     public BoundTransportAddress getBoundAddress() {
         return boundAddress;
     }
@@ -270,6 +321,8 @@ public class Netty4MqttServerTransport extends AbstractLifecycleComponent {
             config.childGroup().shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
             serverBootstrap = null;
         }
+        mqttIngestService.flush();
+        unregisterStatsMBean();
     }
 
     @Override
@@ -0,0 +1,211 @@
+/*
+ * This file is part of a module with proprietary Enterprise Features.
+ *
+ * Licensed to Crate.io Inc. ("Crate.io") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited.
+ *
+ * To use this file, Crate.io must have given you permission to enable and
+ * use such Enterprise Features and you must have a valid Enterprise or
+ * Subscription Agreement with Crate.io.  If you enable or use the Enterprise
+ * Features, you represent and warrant that you have a valid Enterprise or
+ * Subscription Agreement with Crate.io.  Your use of the Enterprise Features
+ * if governed by the terms and conditions of your Enterprise or Subscription
+ * Agreement with Crate.io.
+ */
+
+package io.crate.mqtt.operations;
+
+import io.crate.data.Row;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.LikeOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.rule.ingest.IngestRule;
+import org.elasticsearch.common.lucene.BytesRefs;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Routes messages to the {@link IngestRule}s whose condition they match.
+ *
+ * Rules which require the topic to be equal to a literal ({@code topic = 'a/b'}) or to start with a literal followed by
+ * a topic level separator ({@code topic like 'a/b/%'}), possibly combined with other conditions using {@code AND}, are
+ * indexed in a trie over the topic levels. Only these rules and the rules which can't be indexed are evaluated
+ * for a message, so the routing costs don't grow with the number of rules on other topics.
+ *
+ * The dispatcher is immutable and built once the rules change.
+ */
+final class IngestRuleDispatcher {
+
+    static final IngestRuleDispatcher EMPTY = new IngestRuleDispatcher(new Node(), Collections.emptyList());
+
+    private static final String TOPIC_LEVEL_SEPARATOR = "/";
+
+    static final class CompiledRule {
+
+        private final IngestRule rule;
+        @Nullable
+        private final Symbol conditionSymbol;
+        private final Predicate<Row> condition;
+
+        /**
+         * @param conditionSymbol the analyzed condition of the rule, null if the rule matches all messages
+         * @param condition the compiled condition
+         */
+        CompiledRule(IngestRule rule, @Nullable Symbol conditionSymbol, Predicate<Row> condition) {
+            this.rule = rule;
+            this.conditionSymbol = conditionSymbol;
+            this.condition = condition;
+        }
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<CompiledRule> exactTopicRules = new ArrayList<>();
+        private final List<CompiledRule> topicPrefixRules = new ArrayList<>();
+
+        Node child(String level) {
+            return children.computeIfAbsent(level, k -> new Node());
+        }
+    }
+
+    private final Node root;
+    private final List<CompiledRule> unindexedRules;
+
+    private IngestRuleDispatcher(Node root, List<CompiledRule> unindexedRules) {
+        this.root = root;
+        this.unindexedRules = unindexedRules;
+    }
+
+    /**
+     * @param topicIndex the index of the topic in the rows the conditions are evaluated against
+     */
+    static IngestRuleDispatcher build(Collection<CompiledRule> rules, int topicIndex) {
+        Node root = new Node();
+        List<CompiledRule> unindexedRules = new ArrayList<>();
+        for (CompiledRule rule : rules) {
+            if (rule.conditionSymbol == null || index(root, rule, rule.conditionSymbol, topicIndex) == false) {
+                unindexedRules.add(rule);
+            }
+        }
+        return new IngestRuleDispatcher(root, unindexedRules);
+    }
+
+    private static boolean index(Node root, CompiledRule rule, Symbol condition, int topicIndex) {
+        if (condition instanceof Function == false) {
+            return false;
+        }
+        Function function = (Function) condition;
+        List<Symbol> args = function.arguments();
+        switch (function.info().ident().name()) {
+            case AndOperator.NAME:
+                // a conjunction can only match if both arguments match, so it's enough to index one of them
+                return index(root, rule, args.get(0), topicIndex) || index(root, rule, args.get(1), topicIndex);
+
+            case EqOperator.NAME:
+                String topic = topicLiteral(args.get(0), args.get(1), topicIndex);
+                if (topic == null) {
+                    topic = topicLiteral(args.get(1), args.get(0), topicIndex);
+                }
+                if (topic == null) {
+                    return false;
+                }
+                nodeFor(root, topic).exactTopicRules.add(rule);
+                return true;
+
+            case LikeOperator.NAME:
+                String pattern = topicLiteral(args.get(0), args.get(1), topicIndex);
+                String prefix = pattern == null ? null : topicLevelsPrefix(pattern);
+                if (prefix == null) {
+                    return false;
+                }
+                nodeFor(root, prefix).topicPrefixRules.add(rule);
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    @Nullable
+    private static String topicLiteral(Symbol column, Symbol value, int topicIndex) {
+        if (column instanceof InputColumn && ((InputColumn) column).index() == topicIndex && value instanceof Literal) {
+            Object literalValue = ((Literal) value).value();
+            return literalValue == null ? null : BytesRefs.toString(literalValue);
+        }
+        return null;
+    }
+
+    /**
+     * @return the topic levels of a {@code 'a/b/%'} pattern without the trailing separator,
+     *         or null if the pattern contains any other wildcards.
+     */
+    @Nullable
+    private static String topicLevelsPrefix(String pattern) {
+        String suffix = TOPIC_LEVEL_SEPARATOR + "%";
+        if (pattern.endsWith(suffix) == false) {
+            return null;
+        }
+        String prefix = pattern.substring(0, pattern.length() - suffix.length());
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '%' || c == '_' || c == LikeOperator.DEFAULT_ESCAPE) {
+                return null;
+            }
+        }
+        return prefix;
+    }
+
+    private static Node nodeFor(Node root, String topic) {
+        Node node = root;
+        for (String level : topic.split(TOPIC_LEVEL_SEPARATOR, -1)) {
+            node = node.child(level);
+        }
+        return node;
+    }
+
+    /**
+     * @param topic the topic of the message
+     * @param row the values the conditions are evaluated against
+     * @return the rules whose condition matches the message
+     */
+    List<IngestRule> matchingRules(String topic, Row row) {
+        List<IngestRule> matches = new ArrayList<>();
+        addMatches(unindexedRules, row, matches);
+        Node node = root;
+        String[] levels = topic.split(TOPIC_LEVEL_SEPARATOR, -1);
+        for (String level : levels) {
+            // prefix rules of a node match all topics with at least one more level
+            addMatches(node.topicPrefixRules, row, matches);
+            node = node.children.get(level);
+            if (node == null) {
+                return matches;
+            }
+        }
+        addMatches(node.exactTopicRules, row, matches);
+        return matches;
+    }
+
+    private static void addMatches(List<CompiledRule> rules, Row row, List<IngestRule> matches) {
+        for (int i = 0; i < rules.size(); i++) {
+            CompiledRule rule = rules.get(i);
+            if (rule.condition.test(row)) {
+                matches.add(rule.rule);
+            }
+        }
+    }
+}
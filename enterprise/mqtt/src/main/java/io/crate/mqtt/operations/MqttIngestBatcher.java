@@ -0,0 +1,183 @@
+/*
+ * This file is part of a module with proprietary Enterprise Features.
+ *
+ * Licensed to Crate.io Inc. ("Crate.io") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited.
+ *
+ * To use this file, Crate.io must have given you permission to enable and
+ * use such Enterprise Features and you must have a valid Enterprise or
+ * Subscription Agreement with Crate.io.  If you enable or use the Enterprise
+ * Features, you represent and warrant that you have a valid Enterprise or
+ * Subscription Agreement with Crate.io.  Your use of the Enterprise Features
+ * if governed by the terms and conditions of your Enterprise or Subscription
+ * Agreement with Crate.io.
+ */
+
+package io.crate.mqtt.operations;
+
+import io.crate.data.Row1;
+import io.crate.metadata.rule.ingest.IngestRule;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Accumulates the rows to insert for each {@link IngestRule} into micro-batches.
+ *
+ * A batch is flushed once it contains {@code maxBatchSize} rows or once {@code flushInterval} elapsed since its first
+ * row was added, whichever comes first. The rows of a batch are written using a single bulk insert, which is analyzed
+ * and planned once and results in one request per target shard.
+ *
+ * The future returned by {@link #add(IngestRule, List)} is completed once the row is written, so messages can be
+ * acknowledged only after their batch succeeded.
+ */
+class MqttIngestBatcher {
+
+    private static final Logger LOGGER = Loggers.getLogger(MqttIngestBatcher.class);
+
+    private final BiFunction<IngestRule, List<List<Object>>, List<CompletableFuture<Long>>> bulkInsert;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final int maxBatchSize;
+    private final TimeValue flushInterval;
+    private final MqttIngestStats stats;
+    private final Map<IngestRule, Batch> batches = new HashMap<>();
+
+    /**
+     * @param bulkInsert inserts the given rows into the target table of the rule and returns the row count of each row.
+     */
+    MqttIngestBatcher(BiFunction<IngestRule, List<List<Object>>, List<CompletableFuture<Long>>> bulkInsert,
+                      ScheduledExecutorService scheduler,
+                      Executor executor,
+                      int maxBatchSize,
+                      TimeValue flushInterval,
+                      MqttIngestStats stats) {
+        this.bulkInsert = bulkInsert;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+        this.flushInterval = flushInterval;
+        this.stats = stats;
+    }
+
+    /**
+     * Adds the row to the batch of the rule.
+     *
+     * @return a future which is completed once the row is written or failed if writing the row failed.
+     */
+    CompletableFuture<Long> add(IngestRule rule, List<Object> row) {
+        Batch fullBatch = null;
+        Batch newBatch = null;
+        CompletableFuture<Long> result;
+        synchronized (batches) {
+            Batch batch = batches.get(rule);
+            if (batch == null) {
+                batch = new Batch(rule);
+                batches.put(rule, batch);
+                newBatch = batch;
+            }
+            result = batch.add(row);
+            if (batch.rows.size() >= maxBatchSize) {
+                batches.remove(rule);
+                fullBatch = batch;
+            }
+        }
+        if (fullBatch != null) {
+            flush(fullBatch);
+        } else if (newBatch != null) {
+            Batch batch = newBatch;
+            scheduler.schedule(() -> executor.execute(() -> flushIfPending(batch)), flushInterval.millis(), TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * Flushes all pending batches
+     */
+    void flushAll() {
+        List<Batch> pendingBatches;
+        synchronized (batches) {
+            pendingBatches = new ArrayList<>(batches.values());
+            batches.clear();
+        }
+        for (Batch batch : pendingBatches) {
+            flush(batch);
+        }
+    }
+
+    private void flushIfPending(Batch batch) {
+        synchronized (batches) {
+            if (batches.remove(batch.rule, batch) == false) {
+                // already flushed because it became full
+                return;
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(Batch batch) {
+        int batchSize = batch.rows.size();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Flushing batch of {} rows for ingest rule {}", batchSize, batch.rule.getName());
+        }
+        List<CompletableFuture<Long>> rowCounts;
+        try {
+            rowCounts = bulkInsert.apply(batch.rule, batch.rows);
+        } catch (Throwable t) {
+            for (CompletableFuture<Long> result : batch.results) {
+                result.completeExceptionally(t);
+            }
+            return;
+        }
+        assert rowCounts.size() == batchSize : "must have a row count for each row";
+        for (int i = 0; i < batchSize; i++) {
+            CompletableFuture<Long> result = batch.results.get(i);
+            rowCounts.get(i).whenComplete((rowCount, t) -> {
+                if (t != null) {
+                    result.completeExceptionally(t);
+                } else if (rowCount == null || rowCount == Row1.ERROR) {
+                    result.completeExceptionally(new IllegalStateException(String.format(Locale.ENGLISH,
+                        "Failed to insert message into table '%s' of ingest rule '%s'",
+                        batch.rule.getTargetTable(), batch.rule.getName())));
+                } else {
+                    result.complete(rowCount);
+                }
+            });
+        }
+        CompletableFuture.allOf(batch.results.toArray(new CompletableFuture[0])).whenComplete(
+            (r, t) -> stats.onBatchWritten(batchSize, System.nanoTime() - batch.startedNanos));
+    }
+
+    private static class Batch {
+
+        private final IngestRule rule;
+        private final long startedNanos = System.nanoTime();
+        private final List<List<Object>> rows = new ArrayList<>();
+        private final List<CompletableFuture<Long>> results = new ArrayList<>();
+
+        Batch(IngestRule rule) {
+            this.rule = rule;
+        }
+
+        CompletableFuture<Long> add(List<Object> row) {
+            CompletableFuture<Long> result = new CompletableFuture<>();
+            rows.add(row);
+            results.add(result);
+            return result;
+        }
+    }
+}
@@ -52,18 +52,18 @@ import io.crate.types.DataTypes;
 import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.mqtt.MqttPublishMessage;
 import org.apache.logging.log4j.Logger;
-import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.netty4.Netty4Utils;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -77,6 +77,8 @@ import java.util.function.Predicate;
  * fields, matching the existing {@link IngestRule}s against the fields and ultimately executing the rule command
  * against the configured target table. The target table structure needs to contain the {@link MqttIngestService#MQTT_FIELDS_ORDER}
  * fields with the appropriate data types (see {@link MqttIngestService#FIELD_TYPES}.
+ * <p>
+ * The rows are accumulated per rule and written in micro-batches by the {@link MqttIngestBatcher}.
  */
 public class MqttIngestService implements IngestRuleListener {
 
@@ -87,7 +89,9 @@ public class MqttIngestService implements IngestRuleListener {
         new QualifiedName("topic"), 2,
         new QualifiedName("ts"), 3,
         new QualifiedName("payload"), 4);
-    private static final List<DataType> FIELD_TYPES = Arrays.asList(DataTypes.STRING, DataTypes.INTEGER, DataTypes.STRING, DataTypes.OBJECT);
+    private static final List<DataType> FIELD_TYPES =
+        Arrays.asList(DataTypes.STRING, DataTypes.INTEGER, DataTypes.STRING, DataTypes.TIMESTAMP, DataTypes.OBJECT);
+    private static final int TOPIC_INDEX = MQTT_FIELDS_ORDER.get(new QualifiedName("topic"));
     private static final Predicate<Row> ALWAYS_TRUE = (r) -> true;
 
     private final ExpressionAnalyzer expressionAnalyzer;
@@ -95,15 +99,20 @@ public class MqttIngestService implements IngestRuleListener {
     private final SQLOperations sqlOperations;
     private final IngestionService ingestionService;
     private final User crateUser;
-    private final AtomicReference<Set<Tuple<Predicate<Row>, IngestRule>>> predicateAndIngestRulesReference =
-        new AtomicReference<>(new HashSet<>());
+    private final AtomicReference<IngestRuleDispatcher> ingestRuleDispatcherReference =
+        new AtomicReference<>(IngestRuleDispatcher.EMPTY);
     private final ExpressionAnalysisContext expressionAnalysisContext;
+    private final MqttIngestStats stats = new MqttIngestStats();
+    private final MqttIngestBatcher batcher;
     private boolean isInitialized;
 
     public MqttIngestService(Functions functions,
                              SQLOperations sqlOperations,
                              UserLookup userLookup,
-                             IngestionService ingestionService) {
+                             IngestionService ingestionService,
+                             ThreadPool threadPool,
+                             int maxBatchSize,
+                             TimeValue flushInterval) {
         this.sqlOperations = sqlOperations;
         this.inputFactory = new InputFactory(functions);
         this.expressionAnalysisContext = new ExpressionAnalysisContext();
@@ -121,6 +130,24 @@ public class MqttIngestService implements IngestRuleListener {
             null);
         this.ingestionService = ingestionService;
         this.crateUser = userLookup.findUser("crate");
+        this.batcher = new MqttIngestBatcher(
+            this::bulkInsert,
+            threadPool.scheduler(),
+            threadPool.generic(),
+            maxBatchSize,
+            flushInterval,
+            stats);
+    }
+
+    public MqttIngestStats stats() {
+        return stats;
+    }
+
+    /**
+     * Writes the pending batches
+     */
+    public void flush() {
+        batcher.flushAll();
     }
 
     /**
@@ -147,85 +174,74 @@ public class MqttIngestService implements IngestRuleListener {
         return null;
     }
 
+    private static String insertStatement(IngestRule ingestRule) {
+        return "insert into " + TableIdent.fromIndexName(ingestRule.getTargetTable()).fqn() +
+               " (\"client_id\", \"packet_id\", \"topic\", \"ts\", \"payload\") " +
+               "values (?, ?, ?, ?, ?)";
+    }
+
     /**
      * Parse the payload of the provided mqtt message and find which {@link IngestRule}s match the message properties.
-     * For every matched rule, execute the insert into the rule's target table.
+     * For every matched rule, add the message to the batch of the rule which is inserted into the rule's target table.
      * If we encounter exceptions whilst executing the rules we try to send the ackCallback that failure that's not a
      * "row already exists" (because, in case of messages with the isDup flag set to true, we will send the PUBACK reply
      * to the message).
      * We do not want to acknowledge the message until all message rules are successfully applied (if
      * the only detected failure(s) is "row already exists", namely {@link VersionConflictEngineException}, we trigger
      * the ackCallback, as for QoS 1 (at least once) we expect message redeliveries)
+     * <p>
+     * Redelivered messages are inserted right away instead of being batched, as the failure of a single row of a
+     * bulk insert doesn't tell whether the row already exists.
+     * <p>
+     * The {@code ts} column is set to the time the message has been received, not the time its batch is written.
      */
     public void doInsert(String clientId, MqttPublishMessage msg, BiConsumer<Object, Throwable> ackCallback) {
         if (isInitialized == false) {
             throw new IllegalStateException("Service was not initialized");
         }
+        long receivedAt = System.currentTimeMillis();
 
         Map<String, Object> payload = parsePayloadToMap(msg.content());
         if (payload == null) {
             return;
         }
 
-        Set<Tuple<Predicate<Row>, IngestRule>> predicateAndIngestRules = predicateAndIngestRulesReference.get();
         int packetId = msg.variableHeader().packetId();
+        String topic = msg.variableHeader().topicName();
         Object[] args = new Object[]{clientId,
             packetId,
-            msg.variableHeader().topicName(),
+            topic,
             payload};
-        List<Object> argsAsList = Arrays.asList(args);
-
-        boolean messageMatchedRule = false;
-        boolean callbackNotified = false;
-        Session session = sqlOperations.createSession(Schemas.DOC_SCHEMA_NAME, crateUser, Option.NONE, 1);
-        List<CompletableFuture<?>> insertOperationsFuture = new ArrayList<>(predicateAndIngestRules.size());
-        for (Tuple<Predicate<Row>, IngestRule> entry : predicateAndIngestRules) {
-            if (entry.v1().test(new RowN(args))) {
-                messageMatchedRule = true;
-                IngestRule ingestRule = entry.v2();
+        List<Object> argsAsList = Arrays.asList(clientId, packetId, topic, receivedAt, payload);
 
+        List<IngestRule> matchingRules = ingestRuleDispatcherReference.get().matchingRules(topic, new RowN(args));
+        boolean messageMatchedRule = matchingRules.isEmpty() == false;
+        boolean isDup = msg.fixedHeader().isDup();
+        List<CompletableFuture<?>> insertOperationsFuture = new ArrayList<>(matchingRules.size());
+        for (IngestRule ingestRule : matchingRules) {
+            if (isDup) {
                 try {
-                    session.parse(ingestRule.getName(), "insert into " + TableIdent.fromIndexName(ingestRule.getTargetTable()).fqn() +
-                                                  " (\"client_id\", \"packet_id\", \"topic\", \"ts\", \"payload\") " +
-                                                  "values (?, ?, ?, CURRENT_TIMESTAMP, ?)", FIELD_TYPES);
-                    session.bind(Session.UNNAMED, ingestRule.getName(), argsAsList, null);
-                    BaseResultReceiver resultReceiver = new BaseResultReceiver();
-                    insertOperationsFuture.add(resultReceiver.completionFuture().exceptionally(t -> {
-                        if (SQLExceptions.isDocumentAlreadyExistsException(t)) {
-                            if (msg.fixedHeader().isDup()) {
-                                // we are dealing with QoS1, so redeliveries and duplicate insert exceptions are
-                                // normal in case of a duplicate message - indicated by the isDup flag
-                                return null;
-                            }
-                        }
-
-                        Exceptions.rethrowUnchecked(t);
-                        return null;
-                    }));
-                    session.execute(Session.UNNAMED, 0, resultReceiver);
-                    session.sync();
+                    insertOperationsFuture.add(insertRedelivery(ingestRule, argsAsList));
                 } catch (SQLActionException e) {
                     ackCallback.accept(null, e);
-                    callbackNotified = true;
-                    break;
+                    return;
                 }
+            } else {
+                insertOperationsFuture.add(batcher.add(ingestRule, argsAsList));
             }
         }
-        session.close();
-
-        if (callbackNotified == false) {
-            CompletableFuture<Void> allResultsComplete =
-                CompletableFuture.allOf(insertOperationsFuture.toArray(new CompletableFuture[0]));
-
-            allResultsComplete.whenComplete((r, t) -> {
-                if (t != null) {
-                    // the actual cause is wrapped in a CompletionException by CompletableFuture#allOf
-                    ackCallback.accept(null, t.getCause());
-                } else {
-                    ackCallback.accept(r, null);
-                }
-            });
-        }
+
+        CompletableFuture<Void> allResultsComplete =
+            CompletableFuture.allOf(insertOperationsFuture.toArray(new CompletableFuture[0]));
+
+        allResultsComplete.whenComplete((r, t) -> {
+            if (t != null) {
+                // the actual cause is wrapped in a CompletionException by CompletableFuture#allOf
+                ackCallback.accept(null, t.getCause());
+            } else {
+                ackCallback.accept(r, null);
+            }
+        });
 
         if (messageMatchedRule == false) {
             LOGGER.warn("Message with client_id {} and packet_id {} did not match any rule. The message will not be " +
@@ -236,19 +252,82 @@ public class MqttIngestService implements IngestRuleListener {
         }
     }
 
+    /**
+     * Inserts a redelivered message. A "row already exists" failure is expected in that case and not treated as error.
+     */
+    private CompletableFuture<?> insertRedelivery(IngestRule ingestRule, List<Object> args) {
+        Session session = sqlOperations.createSession(Schemas.DOC_SCHEMA_NAME, crateUser, Option.NONE, 1);
+        try {
+            session.parse(ingestRule.getName(), insertStatement(ingestRule), FIELD_TYPES);
+            session.bind(Session.UNNAMED, ingestRule.getName(), args, null);
+            BaseResultReceiver resultReceiver = new BaseResultReceiver();
+            CompletableFuture<?> result = resultReceiver.completionFuture().exceptionally(t -> {
+                if (SQLExceptions.isDocumentAlreadyExistsException(t)) {
+                    // we are dealing with QoS1, so redeliveries and duplicate insert exceptions are
+                    // normal in case of a duplicate message - indicated by the isDup flag
+                    return null;
+                }
+                Exceptions.rethrowUnchecked(t);
+                return null;
+            });
+            session.execute(Session.UNNAMED, 0, resultReceiver);
+            session.sync();
+            return result;
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Inserts the rows into the target table of the rule. Binding the same statement multiple times results in a
+     * bulk operation, see {@link Session}.
+     *
+     * @return the row count of each row, which is {@link io.crate.data.Row1#ERROR} if inserting the row failed.
+     */
+    private List<CompletableFuture<Long>> bulkInsert(IngestRule ingestRule, List<List<Object>> rows) {
+        Session session = sqlOperations.createSession(Schemas.DOC_SCHEMA_NAME, crateUser, Option.NONE, 1);
+        try {
+            session.parse(ingestRule.getName(), insertStatement(ingestRule), FIELD_TYPES);
+            List<CompletableFuture<Long>> rowCounts = new ArrayList<>(rows.size());
+            for (List<Object> row : rows) {
+                session.bind(Session.UNNAMED, ingestRule.getName(), row, null);
+                RowCountReceiver resultReceiver = new RowCountReceiver();
+                rowCounts.add(resultReceiver.completionFuture().thenApply(ignored -> resultReceiver.rowCount));
+                session.execute(Session.UNNAMED, 0, resultReceiver);
+            }
+            session.sync();
+            return rowCounts;
+        } finally {
+            session.close();
+        }
+    }
+
+    private static class RowCountReceiver extends BaseResultReceiver {
+
+        private long rowCount;
+
+        @Override
+        public void setNextRow(Row row) {
+            rowCount = ((Number) row.get(0)).longValue();
+        }
+    }
+
+    /**
+     * Compiles the conditions of the rules and indexes the rules by the topics they match, see {@link IngestRuleDispatcher}.
+     */
     @Override
     public void applyRules(Set<IngestRule> rules) {
-        Set<Tuple<Predicate<Row>, IngestRule>> newRules = new HashSet<>(rules.size());
+        List<IngestRuleDispatcher.CompiledRule> newRules = new ArrayList<>(rules.size());
         for (IngestRule rule : rules) {
             if (rule.getCondition().trim().isEmpty() == false) {
                 Symbol conditionSymbol = expressionAnalyzer.convert(SqlParser.createExpression(rule.getCondition()),
                     expressionAnalysisContext);
                 Predicate<Row> conditionPredicate = RowFilter.create(inputFactory, conditionSymbol);
-                newRules.add(new Tuple<>(conditionPredicate, rule));
+                newRules.add(new IngestRuleDispatcher.CompiledRule(rule, conditionSymbol, conditionPredicate));
             } else {
-                newRules.add(new Tuple<>(ALWAYS_TRUE, rule));
+                newRules.add(new IngestRuleDispatcher.CompiledRule(rule, null, ALWAYS_TRUE));
             }
         }
-        predicateAndIngestRulesReference.set(newRules);
+        ingestRuleDispatcherReference.set(IngestRuleDispatcher.build(newRules, TOPIC_INDEX));
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * This file is part of a module with proprietary Enterprise Features.
+ *
+ * Licensed to Crate.io Inc. ("Crate.io") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited.
+ *
+ * To use this file, Crate.io must have given you permission to enable and
+ * use such Enterprise Features and you must have a valid Enterprise or
+ * Subscription Agreement with Crate.io.  If you enable or use the Enterprise
+ * Features, you represent and warrant that you have a valid Enterprise or
+ * Subscription Agreement with Crate.io.  Your use of the Enterprise Features
+ * if governed by the terms and conditions of your Enterprise or Subscription
+ * Agreement with Crate.io.
+ */
+
+package io.crate.mqtt.operations;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the micro-batches written by the {@link MqttIngestBatcher}.
+ *
+ * The flush latency is the time in milliseconds from the first message of a batch being received until all
+ * rows of the batch are written.
+ */
+public class MqttIngestStats implements MqttIngestStatsMBean {
+
+    public static final String NAME = "io.crate.monitoring:type=MqttIngestStats";
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAccumulator maxBatchSize = new LongAccumulator(Math::max, 0L);
+    private final LongAdder flushLatencySumInNanos = new LongAdder();
+    private final LongAccumulator maxFlushLatencyInNanos = new LongAccumulator(Math::max, 0L);
+
+    void onBatchWritten(int batchSize, long flushLatencyInNanos) {
+        batches.increment();
+        messages.add(batchSize);
+        maxBatchSize.accumulate(batchSize);
+        flushLatencySumInNanos.add(flushLatencyInNanos);
+        maxFlushLatencyInNanos.accumulate(flushLatencyInNanos);
+    }
+
+    @Override
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    @Override
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    @Override
+    public double getAverageBatchSize() {
+        long numBatches = batches.sum();
+        return numBatches == 0 ? 0.0 : (double) messages.sum() / numBatches;
+    }
+
+    @Override
+    public long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    @Override
+    public double getAverageFlushLatency() {
+        long numBatches = batches.sum();
+        if (numBatches == 0) {
+            return 0.0;
+        }
+        return (double) flushLatencySumInNanos.sum() / numBatches / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public long getMaxFlushLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxFlushLatencyInNanos.get());
+    }
+}
@@ -30,6 +30,7 @@ import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.http.BindHttpException;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BindTransportException;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -85,7 +86,7 @@ public class MqttNettyNetworkConfigTest extends CrateUnitTest {
         NetworkService networkService = new NetworkService(Collections.emptyList());
         Netty4MqttServerTransport mqtt = new Netty4MqttServerTransport(createBaseSettings().build(), networkService,
             Mockito.mock(Functions.class), Mockito.mock(SQLOperations.class), new StubUserManager(),
-            Mockito.mock(IngestionService.class), Mockito.mock(SslContextProvider.class));
+            Mockito.mock(IngestionService.class), Mockito.mock(SslContextProvider.class), Mockito.mock(ThreadPool.class));
         try {
             mqtt.doStart();
         } finally {
@@ -100,7 +101,7 @@ public class MqttNettyNetworkConfigTest extends CrateUnitTest {
         NetworkService networkService = new NetworkService(Collections.emptyList());
         Netty4MqttServerTransport mqtt = new Netty4MqttServerTransport(settingsWithCustomHost, networkService,
             Mockito.mock(Functions.class), Mockito.mock(SQLOperations.class), new StubUserManager(),
-            Mockito.mock(IngestionService.class), Mockito.mock(SslContextProvider.class));
+            Mockito.mock(IngestionService.class), Mockito.mock(SslContextProvider.class), Mockito.mock(ThreadPool.class));
         try {
             mqtt.doStart();
             fail("Should have failed due to custom hostname");
@@ -119,7 +120,7 @@ public class MqttNettyNetworkConfigTest extends CrateUnitTest {
         NetworkService networkService = new NetworkService(Collections.emptyList());
         Netty4MqttServerTransport mqtt = new Netty4MqttServerTransport(settingsWithCustomBind, networkService,
             Mockito.mock(Functions.class), Mockito.mock(SQLOperations.class), new StubUserManager(),
-            Mockito.mock(IngestionService.class), Mockito.mock(SslContextProvider.class));
+            Mockito.mock(IngestionService.class), Mockito.mock(SslContextProvider.class), Mockito.mock(ThreadPool.class));
         try {
             mqtt.doStart();
             fail("Should have failed due to custom hostname");
@@ -138,7 +139,7 @@ public class MqttNettyNetworkConfigTest extends CrateUnitTest {
         NetworkService networkService = new NetworkService(Collections.emptyList());
         Netty4MqttServerTransport mqtt = new Netty4MqttServerTransport(settingsWithCustomPublish, networkService,
             Mockito.mock(Functions.class), Mockito.mock(SQLOperations.class), new StubUserManager(),
-            Mockito.mock(IngestionService.class), Mockito.mock(SslContextProvider.class));
+            Mockito.mock(IngestionService.class), Mockito.mock(SslContextProvider.class), Mockito.mock(ThreadPool.class));
         try {
             mqtt.doStart();
             fail("Should have failed due to custom hostname");
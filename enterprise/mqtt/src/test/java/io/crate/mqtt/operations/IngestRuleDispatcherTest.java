@@ -0,0 +1,140 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.mqtt.operations;
+
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.LikeOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.rule.ingest.IngestRule;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class IngestRuleDispatcherTest extends CrateUnitTest {
+
+    private static final int TOPIC_INDEX = 0;
+
+    private final AtomicInteger numEvaluations = new AtomicInteger(0);
+    private final List<IngestRuleDispatcher.CompiledRule> rules = new ArrayList<>();
+
+    private static Function function(String name, Symbol left, Symbol right) {
+        return new Function(
+            new FunctionInfo(new FunctionIdent(name, Arrays.asList(left.valueType(), right.valueType())), DataTypes.BOOLEAN),
+            Arrays.asList(left, right));
+    }
+
+    private static Symbol topic() {
+        return new InputColumn(TOPIC_INDEX, DataTypes.STRING);
+    }
+
+    private IngestRule addRule(String name, Symbol condition, Predicate<Row> predicate) {
+        IngestRule rule = new IngestRule(name, "doc.t", "");
+        rules.add(new IngestRuleDispatcher.CompiledRule(rule, condition, row -> {
+            numEvaluations.incrementAndGet();
+            return predicate.test(row);
+        }));
+        return rule;
+    }
+
+    private IngestRule addTopicEqRule(String name, String topic) {
+        return addRule(name, function(EqOperator.NAME, topic(), Literal.of(topic)), row -> topic.equals(row.get(TOPIC_INDEX)));
+    }
+
+    private IngestRule addTopicLikeRule(String name, String prefix) {
+        return addRule(name, function(LikeOperator.NAME, topic(), Literal.of(prefix + "/%")),
+            row -> ((String) row.get(TOPIC_INDEX)).startsWith(prefix + "/"));
+    }
+
+    private List<IngestRule> route(IngestRuleDispatcher dispatcher, String topic) {
+        return dispatcher.matchingRules(topic, new RowN(new Object[]{topic}));
+    }
+
+    @Test
+    public void testOnlyRulesOfTheTopicAreEvaluated() {
+        IngestRule sensor1 = addTopicEqRule("r1", "sensors/1");
+        addTopicEqRule("r2", "sensors/2");
+        addTopicEqRule("r3", "sensors");
+        IngestRuleDispatcher dispatcher = IngestRuleDispatcher.build(rules, TOPIC_INDEX);
+
+        assertThat(route(dispatcher, "sensors/1"), containsInAnyOrder(sensor1));
+        assertThat(numEvaluations.get(), is(1));
+
+        assertThat(route(dispatcher, "sensors/3"), empty());
+        assertThat(numEvaluations.get(), is(1));
+    }
+
+    @Test
+    public void testTopicPrefixRulesMatchAllSubTopics() {
+        IngestRule sensors = addTopicLikeRule("r1", "sensors");
+        IngestRule building = addTopicLikeRule("r2", "sensors/building");
+        addTopicLikeRule("r3", "actors");
+        IngestRuleDispatcher dispatcher = IngestRuleDispatcher.build(rules, TOPIC_INDEX);
+
+        assertThat(route(dispatcher, "sensors/building/1"), containsInAnyOrder(sensors, building));
+        assertThat(route(dispatcher, "sensors/1"), containsInAnyOrder(sensors));
+        assertThat(route(dispatcher, "sensors"), empty());
+        assertThat(numEvaluations.get(), is(3));
+    }
+
+    @Test
+    public void testConjunctionIsIndexedByTopic() {
+        Symbol condition = function(AndOperator.NAME,
+            function(EqOperator.NAME, new InputColumn(1, DataTypes.STRING), Literal.of("c1")),
+            function(EqOperator.NAME, Literal.of("sensors/1"), topic()));
+        IngestRule rule = addRule("r1", condition, row -> "sensors/1".equals(row.get(TOPIC_INDEX)));
+        IngestRuleDispatcher dispatcher = IngestRuleDispatcher.build(rules, TOPIC_INDEX);
+
+        assertThat(route(dispatcher, "sensors/2"), empty());
+        assertThat(numEvaluations.get(), is(0));
+        assertThat(route(dispatcher, "sensors/1"), containsInAnyOrder(rule));
+    }
+
+    @Test
+    public void testRulesWhichCannotBeIndexedAreEvaluatedForAllTopics() {
+        IngestRule all = addRule("r1", null, row -> true);
+        IngestRule wildcard = addRule("r2", function(LikeOperator.NAME, topic(), Literal.of("sensors/%/temp")),
+            row -> ((String) row.get(TOPIC_INDEX)).endsWith("/temp"));
+        IngestRuleDispatcher dispatcher = IngestRuleDispatcher.build(rules, TOPIC_INDEX);
+
+        assertThat(route(dispatcher, "sensors/1/temp"), containsInAnyOrder(all, wildcard));
+        assertThat(route(dispatcher, "actors/1"), containsInAnyOrder(all));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of a module with proprietary Enterprise Features.
+ *
+ * Licensed to Crate.io Inc. ("Crate.io") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited.
+ *
+ * To use this file, Crate.io must have given you permission to enable and
+ * use such Enterprise Features and you must have a valid Enterprise or
+ * Subscription Agreement with Crate.io.  If you enable or use the Enterprise
+ * Features, you represent and warrant that you have a valid Enterprise or
+ * Subscription Agreement with Crate.io.  Your use of the Enterprise Features
+ * if governed by the terms and conditions of your Enterprise or Subscription
+ * Agreement with Crate.io.
+ */
+
+package io.crate.mqtt.operations;
+
+import io.crate.mqtt.netty.MqttMessages;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.Test;
+
+import static io.crate.mqtt.netty.Netty4MqttServerTransport.MQTT_BATCH_FLUSH_INTERVAL_SETTING;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+public class MqttBatchIntegrationTest extends MqttIntegrationTest {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return Settings.builder()
+            .put(super.nodeSettings(nodeOrdinal))
+            .put(MQTT_BATCH_FLUSH_INTERVAL_SETTING.getKey(), "2s")
+            .build();
+    }
+
+    @Test
+    public void testMessagesOfABatchAreInsertedWithTheirArrivalTime() throws Exception {
+        execute("CREATE TABLE mqtt.raw (\n" +
+                "  client_id STRING,\n" +
+                "  packet_id INTEGER,\n" +
+                "  topic STRING,\n" +
+                "  ts TIMESTAMP,\n" +
+                "  payload OBJECT(IGNORED),\n" +
+                "  PRIMARY KEY (\"client_id\", \"packet_id\")\n" +
+                ") WITH (column_policy = 'strict', number_of_replicas = '0')");
+        execute("CREATE INGEST RULE ingest_all ON " + MqttIngestService.SOURCE_IDENT +
+                " WHERE topic = ? INTO mqtt.raw", new Object[]{"t1"});
+        mqttClient.sendMessage(MqttMessages.connectBuilder().clientId(mqttClient.clientId()).build());
+        mqttClient.lastReceivedMessage();
+
+        for (int packetId = 1; packetId <= 2; packetId++) {
+            mqttClient.sendMessage(MqttMessages.publishBuilder()
+                .topicName("t1")
+                .qos(MqttQoS.AT_LEAST_ONCE)
+                .payload(Unpooled.copiedBuffer("{}".getBytes()))
+                .messageId(packetId)
+                .build());
+            // both messages arrive well within the flush interval, so they're written with the same bulk request
+            Thread.sleep(500);
+        }
+
+        assertBusy(() -> {
+            execute("REFRESH TABLE mqtt.raw");
+            execute("SELECT ts FROM mqtt.raw ORDER BY packet_id");
+            assertThat(response.rowCount(), is(2L));
+        });
+        long firstTs = (long) response.rows()[0][0];
+        long secondTs = (long) response.rows()[1][0];
+        assertThat(secondTs - firstTs, greaterThanOrEqualTo(500L));
+
+        execute("DROP INGEST RULE ingest_all");
+    }
+}
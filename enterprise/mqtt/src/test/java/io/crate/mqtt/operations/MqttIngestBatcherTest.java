@@ -0,0 +1,135 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.mqtt.operations;
+
+import io.crate.data.Row1;
+import io.crate.metadata.rule.ingest.IngestRule;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+public class MqttIngestBatcherTest extends CrateUnitTest {
+
+    private final IngestRule rule = new IngestRule("r1", "doc.t1", "");
+    private final List<List<List<Object>>> flushedBatches = Collections.synchronizedList(new ArrayList<>());
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final MqttIngestStats stats = new MqttIngestStats();
+
+    @After
+    public void shutdownScheduler() throws Exception {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private List<CompletableFuture<Long>> bulkInsert(IngestRule rule, List<List<Object>> rows) {
+        flushedBatches.add(rows);
+        List<CompletableFuture<Long>> rowCounts = new ArrayList<>(rows.size());
+        for (List<Object> row : rows) {
+            rowCounts.add(CompletableFuture.completedFuture("fail".equals(row.get(0)) ? Row1.ERROR : 1L));
+        }
+        return rowCounts;
+    }
+
+    private MqttIngestBatcher newBatcher(int maxBatchSize, TimeValue flushInterval) {
+        return new MqttIngestBatcher(this::bulkInsert, scheduler, Runnable::run, maxBatchSize, flushInterval, stats);
+    }
+
+    @Test
+    public void testBatchIsFlushedOnceFull() {
+        MqttIngestBatcher batcher = newBatcher(2, TimeValue.timeValueHours(1L));
+
+        CompletableFuture<Long> first = batcher.add(rule, Arrays.asList("c1", 1));
+        assertThat(first.isDone(), is(false));
+        assertThat(flushedBatches.size(), is(0));
+
+        CompletableFuture<Long> second = batcher.add(rule, Arrays.asList("c1", 2));
+        assertThat(flushedBatches.size(), is(1));
+        assertThat(flushedBatches.get(0).size(), is(2));
+        assertThat(first.join(), is(1L));
+        assertThat(second.join(), is(1L));
+
+        assertThat(stats.getBatches(), is(1L));
+        assertThat(stats.getMessages(), is(2L));
+        assertThat(stats.getMaxBatchSize(), is(2L));
+    }
+
+    @Test
+    public void testBatchIsFlushedAfterFlushInterval() throws Exception {
+        MqttIngestBatcher batcher = newBatcher(100, TimeValue.timeValueMillis(10L));
+
+        CompletableFuture<Long> result = batcher.add(rule, Arrays.asList("c1", 1));
+        assertBusy(() -> assertThat(result.isDone(), is(true)));
+        assertThat(flushedBatches.size(), is(1));
+        assertThat(result.join(), is(1L));
+    }
+
+    @Test
+    public void testBatchesArePerRule() {
+        MqttIngestBatcher batcher = newBatcher(2, TimeValue.timeValueHours(1L));
+
+        batcher.add(rule, Arrays.asList("c1", 1));
+        batcher.add(new IngestRule("r2", "doc.t2", ""), Arrays.asList("c1", 1));
+        assertThat(flushedBatches.size(), is(0));
+
+        batcher.flushAll();
+        assertThat(flushedBatches.size(), is(2));
+    }
+
+    @Test
+    public void testOnlyFailedRowsAreFailed() {
+        MqttIngestBatcher batcher = newBatcher(2, TimeValue.timeValueHours(1L));
+
+        CompletableFuture<Long> failed = batcher.add(rule, Arrays.asList("fail", 1));
+        CompletableFuture<Long> succeeded = batcher.add(rule, Arrays.asList("c1", 2));
+        assertThat(failed.isCompletedExceptionally(), is(true));
+        assertThat(succeeded.join(), is(1L));
+    }
+
+    @Test
+    public void testAllRowsAreFailedIfBulkInsertFails() {
+        MqttIngestBatcher batcher = new MqttIngestBatcher(
+            (rule, rows) -> {
+                throw new IllegalStateException("dummy");
+            },
+            scheduler,
+            Runnable::run,
+            1,
+            TimeValue.timeValueHours(1L),
+            stats);
+
+        CompletableFuture<Long> result = batcher.add(rule, Arrays.asList("c1", 1));
+        assertThat(result.isCompletedExceptionally(), is(true));
+    }
+}
@@ -25,6 +25,7 @@ import io.crate.analyze.AlterTableAnalyzedStatement;
 import io.crate.analyze.AlterTableOpenCloseAnalyzedStatement;
 import io.crate.analyze.AlterTableRenameAnalyzedStatement;
 import io.crate.analyze.AlterUserAnalyzedStatement;
+import io.crate.analyze.AnalyzeTableAnalyzedStatement;
 import io.crate.analyze.AnalyzedBegin;
 import io.crate.analyze.AnalyzedDeleteStatement;
 import io.crate.analyze.AnalyzedStatement;
@@ -77,6 +78,7 @@ import io.crate.exceptions.UnauthorizedException;
 import io.crate.metadata.IndexParts;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
 import io.crate.sql.tree.SetStatement;
 
 import java.util.Locale;
@@ -329,6 +331,18 @@ class StatementPrivilegeValidator implements StatementAuthorizedValidator {
             return null;
         }
 
+        @Override
+        public Void visitAnalyzeTableStatement(AnalyzeTableAnalyzedStatement analysis, User user) {
+            for (DocTableInfo table : analysis.tables()) {
+                Privileges.ensureUserHasPrivilege(
+                    Privilege.Type.DQL,
+                    Privilege.Clazz.TABLE,
+                    table.ident().toString(),
+                    user);
+            }
+            return null;
+        }
+
         @Override
         public Void visitAlterTableRenameStatement(AlterTableRenameAnalyzedStatement analysis, User user) {
             Privileges.ensureUserHasPrivilege(
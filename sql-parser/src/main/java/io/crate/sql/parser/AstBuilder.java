@@ -39,6 +39,7 @@ import io.crate.sql.tree.AlterTableOpenClose;
 import io.crate.sql.tree.AlterTableRename;
 import io.crate.sql.tree.AlterTableReroute;
 import io.crate.sql.tree.AlterUser;
+import io.crate.sql.tree.Analyze;
 import io.crate.sql.tree.AnalyzerElement;
 import io.crate.sql.tree.ArithmeticExpression;
 import io.crate.sql.tree.ArrayComparisonExpression;
@@ -576,6 +577,14 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
             getUnquotedText(context.pattern));
     }
 
+    @Override
+    public Node visitAnalyze(SqlBaseParser.AnalyzeContext context) {
+        if (context.qnames() == null) {
+            return new Analyze(Collections.emptyList());
+        }
+        return new Analyze(getQualifiedNames(context.qnames()));
+    }
+
     @Override
     public Node visitRefreshTable(SqlBaseParser.RefreshTableContext context) {
         return new RefreshStatement(visitCollection(context.tableWithPartitions().tableWithPartition(), Table.class));
@@ -572,4 +572,8 @@ public abstract class AstVisitor<R, C> {
     public R visitDropView(DropView dropView, C context) {
         return visitStatement(dropView, context);
     }
+
+    public R visitAnalyze(Analyze analyze, C context) {
+        return visitStatement(analyze, context);
+    }
 }
@@ -1280,6 +1280,13 @@ public class TestStatementBuilder {
         printStatement("DROP VIEW IF EXISTS v1, x.v2, y.v3");
     }
 
+    @Test
+    public void testAnalyzeParsing() {
+        printStatement("ANALYZE");
+        printStatement("ANALYZE t1");
+        printStatement("ANALYZE t1, x.t2");
+    }
+
     private static void printStatement(String sql) {
         println(sql.trim());
         println("");
@@ -0,0 +1,86 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.analyze.AnalyzedStatement;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexEventListener;
+import org.elasticsearch.index.shard.IndexingOperationListener;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the write operations on the shards of each index which are allocated to this node.
+ * Writes and refreshes on the shards of other nodes are counted if the statement has been handled by this node,
+ * see {@link QueryResultCache#invalidate(AnalyzedStatement)}.
+ *
+ * Used by the {@link QueryResultCache} to invalidate the results of queries on indices which have been written to.
+ * The listener must be registered on the {@code IndexModule} during plugin initialization, so it is created by the
+ * plugin and bound as instance.
+ */
+public class IndexWriteGenerations implements IndexingOperationListener, IndexEventListener {
+
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicLong allIndicesGeneration = new AtomicLong();
+
+    public long generation(String indexName) {
+        AtomicLong generation = generations.get(indexName);
+        return allIndicesGeneration.get() + (generation == null ? 0L : generation.get());
+    }
+
+    @Override
+    public void postIndex(ShardId shardId, Engine.Index index, Engine.IndexResult result) {
+        increment(shardId);
+    }
+
+    @Override
+    public void postDelete(ShardId shardId, Engine.Delete delete, Engine.DeleteResult result) {
+        increment(shardId);
+    }
+
+    @Override
+    public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
+        // keep the generation if only the shards of this node are removed, otherwise it could go back to a
+        // value a cached result has been computed with
+        if (reason == IndexRemovalReason.DELETED) {
+            generations.remove(index.getName());
+        }
+    }
+
+    private void increment(ShardId shardId) {
+        increment(shardId.getIndexName());
+    }
+
+    void increment(String indexName) {
+        generations.computeIfAbsent(indexName, name -> new AtomicLong()).incrementAndGet();
+    }
+
+    void incrementAll() {
+        allIndicesGeneration.incrementAndGet();
+    }
+}
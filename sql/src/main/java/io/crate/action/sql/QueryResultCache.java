@@ -0,0 +1,743 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.analyze.AnalyzedDeleteStatement;
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.analyze.AnalyzedStatementVisitor;
+import io.crate.analyze.AnalyzedUpdateStatement;
+import io.crate.analyze.CopyFromAnalyzedStatement;
+import io.crate.analyze.InsertFromSubQueryAnalyzedStatement;
+import io.crate.analyze.InsertFromValuesAnalyzedStatement;
+import io.crate.analyze.MultiSourceSelect;
+import io.crate.analyze.QueriedSelectRelation;
+import io.crate.analyze.RefreshTableAnalyzedStatement;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.AnalyzedRelationVisitor;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.analyze.relations.JoinPair;
+import io.crate.analyze.relations.OrderedLimitedRelation;
+import io.crate.analyze.relations.QueriedDocTable;
+import io.crate.analyze.relations.QueriedRelation;
+import io.crate.analyze.relations.UnionSelect;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.expression.symbol.DefaultTraversalSymbolVisitor;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.TableInfo;
+import io.crate.sql.tree.CurrentTime;
+import io.crate.sql.tree.DefaultTraversalVisitor;
+import io.crate.sql.tree.Statement;
+import io.crate.types.DataType;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Node local cache for the results of read-only SELECT statements.
+ *
+ * Entries are keyed by the parsed statement, the bound parameters and the session properties which affect the
+ * analysis (user, default schema and default limit). Only statements on user tables without non-deterministic
+ * functions are cached.
+ *
+ * An entry is invalidated if
+ *
+ * <ul>
+ *     <li>the cluster metadata changed, e.g. because a table, partition or view has been created or altered</li>
+ *     <li>any of the shards of the involved tables which are allocated to this node has been written to</li>
+ *     <li>it's older than {@link #EXPIRE_AFTER_SETTING}. Writes to shards on other nodes aren't observable here,
+ *     so this bounds the staleness in that case. With the default of 1s this is in line with the default
+ *     refresh interval, after which writes become visible to queries.</li>
+ * </ul>
+ *
+ * The memory used by the entries is accounted in the query circuit breaker and bounded by {@link #SIZE_SETTING};
+ * the least recently used entries are evicted if the limit is reached. The cache is disabled if the size is 0.
+ */
+@Singleton
+public class QueryResultCache extends AbstractComponent {
+
+    public static final Setting<ByteSizeValue> SIZE_SETTING = Setting.memorySizeSetting(
+        "node.sql.query_result_cache.size",
+        "0b",
+        Setting.Property.NodeScope);
+
+    public static final Setting<TimeValue> EXPIRE_AFTER_SETTING = Setting.positiveTimeSetting(
+        "node.sql.query_result_cache.expire_after",
+        TimeValue.timeValueSeconds(1),
+        Setting.Property.NodeScope);
+
+    private static final String BREAKER_LABEL = "query_result_cache";
+
+    private final CircuitBreaker breaker;
+    private final IndexWriteGenerations writeGenerations;
+    private final long maxSizeInBytes;
+    private final long expireAfterNanos;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes = 0L;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Inject
+    public QueryResultCache(Settings settings,
+                            CircuitBreakerService breakerService,
+                            IndexWriteGenerations writeGenerations) {
+        this(settings, breakerService.getBreaker(CrateCircuitBreakerService.QUERY), writeGenerations);
+    }
+
+    QueryResultCache(Settings settings, CircuitBreaker breaker, IndexWriteGenerations writeGenerations) {
+        super(settings);
+        this.breaker = breaker;
+        this.writeGenerations = writeGenerations;
+        this.maxSizeInBytes = SIZE_SETTING.get(settings).getBytes();
+        this.expireAfterNanos = EXPIRE_AFTER_SETTING.get(settings).nanos();
+    }
+
+    public boolean isEnabled() {
+        return maxSizeInBytes > 0;
+    }
+
+    /**
+     * @return the key to look up and store the result of the statement or null if its result must not be cached.
+     */
+    @Nullable
+    public Key key(Statement statement,
+                   AnalyzedStatement analyzedStatement,
+                   List<Object> params,
+                   SessionContext sessionContext,
+                   ClusterState clusterState) {
+        if (isEnabled() == false
+            || sessionContext.isQueryResultCacheEnabled() == false
+            || analyzedStatement.isWriteOperation()
+            || analyzedStatement instanceof QueriedRelation == false
+            || NonDeterministicAstVisitor.containsCurrentTime(statement)) {
+            return null;
+        }
+        Set<String> indices = new HashSet<>();
+        if (CacheableRelationVisitor.INSTANCE.process((QueriedRelation) analyzedStatement, indices) == false) {
+            return null;
+        }
+        long[] versions = new long[indices.size() + 1];
+        versions[0] = clusterState.metaData().version();
+        int i = 1;
+        for (String index : indices) {
+            versions[i++] = writeGenerations.generation(index);
+        }
+        return new Key(
+            statement,
+            params.toArray(),
+            sessionContext.user() == null ? null : sessionContext.user().name(),
+            sessionContext.defaultSchema(),
+            sessionContext.defaultLimit(),
+            indices.toArray(new String[0]),
+            versions
+        );
+    }
+
+    /**
+     * @return the cached rows or null if there is no valid entry for the key.
+     */
+    @Nullable
+    public List<Object[]> get(Key key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (Arrays.equals(entry.versions, currentVersions(key)) &&
+                    System.nanoTime() - entry.createdAtNanos < expireAfterNanos) {
+                    hits.increment();
+                    return entry.rows;
+                }
+                remove(key, entry);
+                invalidations.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Invalidates the cached results of queries on the tables which are written or refreshed by the statement.
+     *
+     * Must be called once a write statement handled by this node has completed: writes and refreshes on the shards
+     * of other nodes aren't observed by the {@link IndexWriteGenerations} of this node.
+     */
+    public void invalidate(AnalyzedStatement analyzedStatement) {
+        if (isEnabled() == false || analyzedStatement.isWriteOperation() == false) {
+            return;
+        }
+        Collection<String> indices = WrittenIndicesVisitor.INSTANCE.process(analyzedStatement, null);
+        if (indices == null) {
+            writeGenerations.incrementAll();
+        } else {
+            for (String index : indices) {
+                writeGenerations.increment(index);
+            }
+        }
+    }
+
+    /**
+     * Wraps the receiver of a write statement so that the cache is invalidated before the delegate is notified about
+     * the completion of the statement. See {@link #invalidate(AnalyzedStatement)}.
+     */
+    public ResultReceiver invalidatingReceiver(AnalyzedStatement analyzedStatement, ResultReceiver delegate) {
+        if (isEnabled() == false || analyzedStatement.isWriteOperation() == false) {
+            return delegate;
+        }
+        return new InvalidatingResultReceiver(this, analyzedStatement, delegate);
+    }
+
+    /**
+     * Wraps the receiver so that the rows it receives are put into the cache once all rows have been received.
+     * The versions of the key are those at the time the key has been created, so writes which happen while the
+     * statement is executed invalidate the entry.
+     */
+    public ResultReceiver cachingReceiver(Key key, List<? extends DataType> outputTypes, ResultReceiver delegate) {
+        return new CachingResultReceiver(this, key, outputTypes, delegate);
+    }
+
+    /**
+     * Replays the cached rows into the receiver.
+     */
+    public static void replay(List<Object[]> rows, ResultReceiver receiver) {
+        for (Object[] cells : rows) {
+            receiver.setNextRow(new RowN(cells));
+        }
+        receiver.allFinished(false);
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(
+                sizeInBytes, entries.size(), hits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+        }
+    }
+
+    long maxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    void put(Key key, List<Object[]> rows, long rowsSizeInBytes) {
+        if (rowsSizeInBytes > maxSizeInBytes) {
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.get(key);
+            if (previous != null) {
+                remove(key, previous);
+            }
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (sizeInBytes + rowsSizeInBytes > maxSizeInBytes && it.hasNext()) {
+                Entry eldest = it.next().getValue();
+                it.remove();
+                release(eldest);
+                evictions.increment();
+            }
+            try {
+                breaker.addEstimateBytesAndMaybeBreak(rowsSizeInBytes, BREAKER_LABEL);
+            } catch (CircuitBreakingException e) {
+                return;
+            }
+            entries.put(key, new Entry(rows, key.versions, rowsSizeInBytes, System.nanoTime()));
+            sizeInBytes += rowsSizeInBytes;
+        }
+    }
+
+    private long[] currentVersions(Key key) {
+        long[] versions = new long[key.indices.length + 1];
+        versions[0] = key.versions[0];
+        for (int i = 0; i < key.indices.length; i++) {
+            versions[i + 1] = writeGenerations.generation(key.indices[i]);
+        }
+        return versions;
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        release(entry);
+    }
+
+    private void release(Entry entry) {
+        sizeInBytes -= entry.sizeInBytes;
+        breaker.addWithoutBreaking(-entry.sizeInBytes);
+    }
+
+    /**
+     * Identifies a cached result. The versions of the cluster metadata and the involved indices at the time the key
+     * has been created are not part of the identity, they're compared on lookup to detect stale entries.
+     */
+    public static final class Key {
+
+        private final Statement statement;
+        private final Object[] params;
+        @Nullable
+        private final String user;
+        private final String defaultSchema;
+        private final int defaultLimit;
+        private final String[] indices;
+        private final long[] versions;
+        private final int hashCode;
+
+        Key(Statement statement,
+            Object[] params,
+            @Nullable String user,
+            String defaultSchema,
+            int defaultLimit,
+            String[] indices,
+            long[] versions) {
+            this.statement = statement;
+            this.params = params;
+            this.user = user;
+            this.defaultSchema = defaultSchema;
+            this.defaultLimit = defaultLimit;
+            this.indices = indices;
+            this.versions = versions;
+            this.hashCode = Objects.hash(statement, Arrays.deepHashCode(params), user, defaultSchema, defaultLimit);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return defaultLimit == key.defaultLimit &&
+                   statement.equals(key.statement) &&
+                   Arrays.deepEquals(params, key.params) &&
+                   Objects.equals(user, key.user) &&
+                   defaultSchema.equals(key.defaultSchema);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<Object[]> rows;
+        private final long[] versions;
+        private final long sizeInBytes;
+        private final long createdAtNanos;
+
+        private Entry(List<Object[]> rows, long[] versions, long sizeInBytes, long createdAtNanos) {
+            this.rows = rows;
+            this.versions = versions;
+            this.sizeInBytes = sizeInBytes;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+
+    public static class Stats implements Writeable {
+
+        private final long sizeInBytes;
+        private final int entries;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+
+        public Stats(long sizeInBytes, int entries, long hits, long misses, long evictions, long invalidations) {
+            this.sizeInBytes = sizeInBytes;
+            this.entries = entries;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            sizeInBytes = in.readVLong();
+            entries = in.readVInt();
+            hits = in.readVLong();
+            misses = in.readVLong();
+            evictions = in.readVLong();
+            invalidations = in.readVLong();
+        }
+
+        public long sizeInBytes() {
+            return sizeInBytes;
+        }
+
+        public int entries() {
+            return entries;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        /**
+         * @return the number of entries which were removed because the cache was full
+         */
+        public long evictions() {
+            return evictions;
+        }
+
+        /**
+         * @return the number of entries which were removed because they were stale or expired
+         */
+        public long invalidations() {
+            return invalidations;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(sizeInBytes);
+            out.writeVInt(entries);
+            out.writeVLong(hits);
+            out.writeVLong(misses);
+            out.writeVLong(evictions);
+            out.writeVLong(invalidations);
+        }
+    }
+
+    private static class InvalidatingResultReceiver implements ResultReceiver {
+
+        private final QueryResultCache cache;
+        private final AnalyzedStatement analyzedStatement;
+        private final ResultReceiver delegate;
+
+        InvalidatingResultReceiver(QueryResultCache cache,
+                                   AnalyzedStatement analyzedStatement,
+                                   ResultReceiver delegate) {
+            this.cache = cache;
+            this.analyzedStatement = analyzedStatement;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void setNextRow(Row row) {
+            delegate.setNextRow(row);
+        }
+
+        @Override
+        public void batchFinished() {
+            delegate.batchFinished();
+        }
+
+        @Override
+        public CompletableFuture<?> backpressure() {
+            return delegate.backpressure();
+        }
+
+        @Override
+        public void allFinished(boolean interrupted) {
+            cache.invalidate(analyzedStatement);
+            delegate.allFinished(interrupted);
+        }
+
+        @Override
+        public void fail(@Nonnull Throwable t) {
+            // the statement may have been applied partially
+            cache.invalidate(analyzedStatement);
+            delegate.fail(t);
+        }
+
+        @Override
+        public CompletableFuture<?> completionFuture() {
+            return delegate.completionFuture();
+        }
+    }
+
+    /**
+     * Collects the rows for the cache while passing them on to the delegate.
+     * Stops collecting if the rows don't fit into the cache.
+     */
+    private static class CachingResultReceiver implements ResultReceiver {
+
+        private final QueryResultCache cache;
+        private final Key key;
+        private final ResultReceiver delegate;
+        private final List<SizeEstimator<Object>> estimators;
+        private List<Object[]> rows = new ArrayList<>();
+        private long rowsSizeInBytes = 0L;
+
+        CachingResultReceiver(QueryResultCache cache,
+                              Key key,
+                              List<? extends DataType> outputTypes,
+                              ResultReceiver delegate) {
+            this.cache = cache;
+            this.key = key;
+            this.delegate = delegate;
+            this.estimators = new ArrayList<>(outputTypes.size());
+            for (DataType type : outputTypes) {
+                estimators.add(SizeEstimatorFactory.create(type));
+            }
+        }
+
+        @Override
+        public void setNextRow(Row row) {
+            if (rows != null) {
+                Object[] cells = row.materialize();
+                for (int i = 0; i < cells.length; i++) {
+                    rowsSizeInBytes += estimators.get(i).estimateSize(cells[i]);
+                }
+                if (rowsSizeInBytes > cache.maxSizeInBytes()) {
+                    rows = null;
+                } else {
+                    rows.add(cells);
+                }
+            }
+            delegate.setNextRow(row);
+        }
+
+        @Override
+        public void batchFinished() {
+            delegate.batchFinished();
+        }
+
+        @Override
+        public CompletableFuture<?> backpressure() {
+            return delegate.backpressure();
+        }
+
+        @Override
+        public void allFinished(boolean interrupted) {
+            if (rows != null && interrupted == false) {
+                cache.put(key, Collections.unmodifiableList(rows), rowsSizeInBytes);
+            }
+            rows = null;
+            delegate.allFinished(interrupted);
+        }
+
+        @Override
+        public void fail(@Nonnull Throwable t) {
+            rows = null;
+            delegate.fail(t);
+        }
+
+        @Override
+        public CompletableFuture<?> completionFuture() {
+            return delegate.completionFuture();
+        }
+    }
+
+    /**
+     * Returns the indices a write statement modifies or refreshes, or null if they're not known.
+     */
+    private static class WrittenIndicesVisitor extends AnalyzedStatementVisitor<Void, Collection<String>> {
+
+        private static final WrittenIndicesVisitor INSTANCE = new WrittenIndicesVisitor();
+
+        @Override
+        protected Collection<String> visitInsertFromValuesStatement(InsertFromValuesAnalyzedStatement analysis,
+                                                                    Void context) {
+            return Arrays.asList(analysis.tableInfo().concreteIndices());
+        }
+
+        @Override
+        protected Collection<String> visitInsertFromSubQueryStatement(InsertFromSubQueryAnalyzedStatement analysis,
+                                                                      Void context) {
+            return Arrays.asList(analysis.tableInfo().concreteIndices());
+        }
+
+        @Override
+        protected Collection<String> visitCopyFromStatement(CopyFromAnalyzedStatement analysis, Void context) {
+            return Arrays.asList(analysis.table().concreteIndices());
+        }
+
+        @Override
+        protected Collection<String> visitAnalyzedDeleteStatement(AnalyzedDeleteStatement statement, Void context) {
+            return Arrays.asList(statement.relation().tableInfo().concreteIndices());
+        }
+
+        @Override
+        public Collection<String> visitAnalyzedUpdateStatement(AnalyzedUpdateStatement statement, Void context) {
+            TableInfo tableInfo = statement.table().tableInfo();
+            if (tableInfo instanceof DocTableInfo) {
+                return Arrays.asList(((DocTableInfo) tableInfo).concreteIndices());
+            }
+            return null;
+        }
+
+        @Override
+        public Collection<String> visitRefreshTableStatement(RefreshTableAnalyzedStatement analysis, Void context) {
+            return analysis.indexNames();
+        }
+    }
+
+    /**
+     * Collects the concrete indices of the relation and returns false if it contains anything that prevents caching:
+     * system tables, table functions, blob tables or non-deterministic functions.
+     */
+    private static class CacheableRelationVisitor extends AnalyzedRelationVisitor<Set<String>, Boolean> {
+
+        private static final CacheableRelationVisitor INSTANCE = new CacheableRelationVisitor();
+
+        @Override
+        protected Boolean visitAnalyzedRelation(AnalyzedRelation relation, Set<String> indices) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitQueriedDocTable(QueriedDocTable table, Set<String> indices) {
+            return symbolsAreCacheable(table, indices) && process(table.tableRelation(), indices);
+        }
+
+        @Override
+        public Boolean visitDocTableRelation(DocTableRelation relation, Set<String> indices) {
+            Collections.addAll(indices, relation.tableInfo().concreteIndices());
+            return true;
+        }
+
+        @Override
+        public Boolean visitMultiSourceSelect(MultiSourceSelect multiSourceSelect, Set<String> indices) {
+            if (symbolsAreCacheable(multiSourceSelect, indices) == false) {
+                return false;
+            }
+            for (JoinPair joinPair : multiSourceSelect.joinPairs()) {
+                if (joinPair.condition() != null && CacheableSymbolVisitor.isCacheable(joinPair.condition(), indices) == false) {
+                    return false;
+                }
+            }
+            for (AnalyzedRelation relation : multiSourceSelect.sources().values()) {
+                if (process(relation, indices) == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Boolean visitUnionSelect(UnionSelect unionSelect, Set<String> indices) {
+            return process(unionSelect.left(), indices) && process(unionSelect.right(), indices);
+        }
+
+        @Override
+        public Boolean visitQueriedSelectRelation(QueriedSelectRelation relation, Set<String> indices) {
+            return symbolsAreCacheable(relation, indices) && process(relation.subRelation(), indices);
+        }
+
+        @Override
+        public Boolean visitOrderedLimitedRelation(OrderedLimitedRelation relation, Set<String> indices) {
+            return symbolsAreCacheable(relation, indices) && process(relation.childRelation(), indices);
+        }
+
+        private static boolean symbolsAreCacheable(QueriedRelation relation, Set<String> indices) {
+            boolean[] cacheable = new boolean[]{true};
+            relation.visitSymbols(symbol -> {
+                if (cacheable[0]) {
+                    cacheable[0] = CacheableSymbolVisitor.isCacheable(symbol, indices);
+                }
+            });
+            return cacheable[0];
+        }
+    }
+
+    /**
+     * Traverses a symbol, including the relations of sub-queries, and returns false if it
+     * contains a non-deterministic function or a relation which can't be cached.
+     */
+    private static class CacheableSymbolVisitor extends DefaultTraversalSymbolVisitor<Set<String>, Boolean> {
+
+        private boolean cacheable = true;
+
+        static boolean isCacheable(Symbol symbol, Set<String> indices) {
+            CacheableSymbolVisitor visitor = new CacheableSymbolVisitor();
+            visitor.process(symbol, indices);
+            return visitor.cacheable;
+        }
+
+        @Override
+        public Boolean visitFunction(Function function, Set<String> indices) {
+            if (function.info().isDeterministic() == false) {
+                cacheable = false;
+                return null;
+            }
+            return super.visitFunction(function, indices);
+        }
+
+        @Override
+        public Boolean visitSelectSymbol(SelectSymbol selectSymbol, Set<String> indices) {
+            if (CacheableRelationVisitor.INSTANCE.process(selectSymbol.relation(), indices) == false) {
+                cacheable = false;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * {@code CURRENT_TIMESTAMP} is evaluated during the analysis, so it has to be detected on the parsed statement.
+     */
+    static class NonDeterministicAstVisitor extends DefaultTraversalVisitor<Void, Void> {
+
+        private boolean containsCurrentTime = false;
+
+        static boolean containsCurrentTime(Statement statement) {
+            NonDeterministicAstVisitor visitor = new NonDeterministicAstVisitor();
+            visitor.process(statement, null);
+            return visitor.containsCurrentTime;
+        }
+
+        @Override
+        protected Void visitCurrentTime(CurrentTime node, Void context) {
+            containsCurrentTime = true;
+            return null;
+        }
+    }
+}
@@ -26,6 +26,8 @@ import io.crate.concurrent.CompletionListenable;
 import io.crate.data.Row;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Used via {@link RowConsumerToResultReceiver} to receive results from the execution of a plan
@@ -36,6 +38,18 @@ public interface ResultReceiver extends CompletionListenable {
 
     void batchFinished();
 
+    /**
+     * Called before each row to let a receiver which can't keep up (or isn't ready yet) pause the consumption of the
+     * results.
+     *
+     * @return a future which is completed once the receiver is ready to receive more rows
+     *         or null if further rows can be pushed right away.
+     */
+    @Nullable
+    default CompletableFuture<?> backpressure() {
+        return null;
+    }
+
     /**
      * Called when receiver finished.
      * @param interrupted indicates whether the receiver finished because all results were pushed (false)
@@ -22,12 +22,15 @@
 
 package io.crate.action.sql;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import io.crate.data.RowConsumer;
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
 import io.crate.exceptions.SQLExceptions;
 
 import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class RowConsumerToResultReceiver implements RowConsumer {
 
@@ -35,10 +38,22 @@ public class RowConsumerToResultReceiver implements RowConsumer {
     private int maxRows;
     private long rowCount = 0;
     private BatchIterator<Row> activeIt;
+    private final Executor resumeExecutor;
 
     public RowConsumerToResultReceiver(ResultReceiver resultReceiver, int maxRows) {
+        this(resultReceiver, maxRows, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * @param resumeExecutor executor used to continue consuming the rows once the
+     *                       {@link ResultReceiver#backpressure()} of the receiver is released.
+     *                       The backpressure is usually released by a network thread which must not be blocked by
+     *                       producing and serializing rows.
+     */
+    public RowConsumerToResultReceiver(ResultReceiver resultReceiver, int maxRows, Executor resumeExecutor) {
         this.resultReceiver = resultReceiver;
         this.maxRows = maxRows;
+        this.resumeExecutor = resumeExecutor;
     }
 
     @Override
@@ -56,7 +71,15 @@ public class RowConsumerToResultReceiver implements RowConsumer {
     private void consumeIt(BatchIterator<Row> iterator) {
         boolean allLoaded;
         try {
-            while (iterator.moveNext()) {
+            while (true) {
+                CompletableFuture<?> backpressure = resultReceiver.backpressure();
+                if (backpressure != null && (backpressure.isDone() == false || backpressure.isCompletedExceptionally())) {
+                    backpressure.whenComplete((r, f) -> resumeAfterBackpressure(iterator, f));
+                    return;
+                }
+                if (iterator.moveNext() == false) {
+                    break;
+                }
                 rowCount++;
                 resultReceiver.setNextRow(iterator.currentElement());
 
@@ -87,6 +110,20 @@ public class RowConsumerToResultReceiver implements RowConsumer {
         }
     }
 
+    private void resumeAfterBackpressure(BatchIterator<Row> iterator, @Nullable Throwable failure) {
+        if (failure != null) {
+            iterator.close();
+            resultReceiver.fail(SQLExceptions.unwrap(failure));
+            return;
+        }
+        try {
+            resumeExecutor.execute(() -> consumeIt(iterator));
+        } catch (Exception e) {
+            iterator.close();
+            resultReceiver.fail(e);
+        }
+    }
+
     /**
      * If this consumer suspended itself (due to {@code maxRows} being > 0, it will close the BatchIterator
      * and finish the ResultReceiver with interrupted=true.
@@ -46,11 +46,15 @@ import io.crate.planner.Planner;
 import io.crate.planner.PlannerContext;
 import io.crate.protocols.postgres.FormatCodes;
 import io.crate.protocols.postgres.JobsLogsUpdateListener;
+import io.crate.protocols.postgres.OrderedResultReceiver;
 import io.crate.protocols.postgres.Portal;
 import io.crate.protocols.postgres.RetryOnFailureResultReceiver;
 import io.crate.protocols.postgres.SimplePortal;
 import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Delete;
+import io.crate.sql.tree.Insert;
 import io.crate.sql.tree.Statement;
+import io.crate.sql.tree.Update;
 import io.crate.types.DataType;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.cluster.ClusterState;
@@ -59,13 +63,13 @@ import org.elasticsearch.common.logging.Loggers;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
@@ -99,6 +103,10 @@ import java.util.function.Function;
  * </pre>
  * <p>
  * (https://www.postgresql.org/docs/9.2/static/protocol-flow.html#PROTOCOL-FLOW-EXT-QUERY)
+ * <p>
+ * The execution of the portals is delayed until sync. Independent queries are then executed concurrently, up to
+ * {@link #MAX_CONCURRENT_EXECUTIONS} at once; write operations and other statements wait for the executions before
+ * them. In either case the results are delivered in the order of the execute calls, see {@link OrderedResultReceiver}.
  */
 public class Session implements AutoCloseable {
 
@@ -110,6 +118,12 @@ public class Session implements AutoCloseable {
     private static final Statement EMPTY_STMT = SqlParser.createStatement("select '' from sys.cluster limit 0");
 
     public static final String UNNAMED = "";
+
+    /**
+     * Maximum number of queries which are executed concurrently for one session
+     */
+    static final int MAX_CONCURRENT_EXECUTIONS = 8;
+
     private final DependencyCarrier executor;
     private final SessionContext sessionContext;
 
@@ -117,14 +131,26 @@ public class Session implements AutoCloseable {
     final Map<String, PreparedStmt> preparedStatements = new HashMap<>();
     @VisibleForTesting
     final Map<String, Portal> portals = new HashMap<>();
+    /**
+     * The portals to execute on sync, in the order of their first execute call, with the receivers of their results
+     */
     @VisibleForTesting
-    final Set<Portal> pendingExecutions = Collections.newSetFromMap(new IdentityHashMap<Portal, Boolean>());
+    final Map<Portal, List<OrderedResultReceiver>> pendingExecutions = new LinkedHashMap<>();
 
     private final Analyzer analyzer;
     private final Planner planner;
     private final JobsLogs jobsLogs;
     private final boolean isReadOnly;
     private final ParameterTypeExtractor parameterTypeExtractor;
+    @Nullable
+    private final StatementCache statementCache;
+    private final List<StatementCache.Entry> acquiredStatements = new ArrayList<>();
+
+    /**
+     * Completed once the results of all executions and the responses queued via {@link #afterPendingResults(Runnable)}
+     * have been delivered
+     */
+    private CompletableFuture<?> pendingResults = CompletableFuture.completedFuture(null);
 
     public Session(Analyzer analyzer,
                    Planner planner,
@@ -139,6 +165,8 @@ public class Session implements AutoCloseable {
         this.executor = executor;
         this.sessionContext = sessionContext;
         this.parameterTypeExtractor = new Session.ParameterTypeExtractor();
+        StatementCache statementCache = executor.statementCache();
+        this.statementCache = statementCache != null && statementCache.isEnabled() ? statementCache : null;
     }
 
     /**
@@ -185,6 +213,10 @@ public class Session implements AutoCloseable {
         jobsLogs.logExecutionStart(jobId, statement, sessionContext.user());
         resultReceiver.completionFuture().whenComplete(new JobsLogsUpdateListener(jobId, jobsLogs));
 
+        QueryResultCache queryResultCache = executor.queryResultCache();
+        if (queryResultCache != null) {
+            resultReceiver = queryResultCache.invalidatingReceiver(analyzedStatement, resultReceiver);
+        }
         if (!analyzedStatement.isWriteOperation()) {
             resultReceiver = new RetryOnFailureResultReceiver(
                 executor.clusterService(),
@@ -262,7 +294,7 @@ public class Session implements AutoCloseable {
 
         Statement statement;
         try {
-            statement = SqlParser.createStatement(query);
+            statement = statementCache == null ? SqlParser.createStatement(query) : statementCache.parse(query);
         } catch (Throwable t) {
             if ("".equals(query)) {
                 statement = EMPTY_STMT;
@@ -282,14 +314,25 @@ public class Session implements AutoCloseable {
             LOGGER.debug("method=bind portalName={} statementName={} params={}", portalName, statementName, params);
         }
 
+        detachIfPendingAndIndependent(portalName, statementName);
         Portal portal = getOrCreatePortal(portalName);
         try {
             PreparedStmt preparedStmt = getSafeStmt(statementName);
+            AnalyzedStatement analyzedStatement = preparedStmt.analyzedStatement();
+            if (preparedStmt.isRelationInitialized() == false
+                && UNNAMED.equals(portalName)
+                && portal.getLastQuery() == null) {
+                analyzedStatement = acquireCachedStatement(preparedStmt, params);
+            }
             Portal newPortal = portal.bind(
-                statementName, preparedStmt.query(), preparedStmt.statement(), preparedStmt.analyzedStatement(), params, resultFormatCodes);
+                statementName, preparedStmt.query(), preparedStmt.statement(), analyzedStatement, params, resultFormatCodes);
             if (portal != newPortal) {
                 portals.put(portalName, newPortal);
-                pendingExecutions.remove(portal);
+                // the new portal takes over the pending execution including its result receivers
+                List<OrderedResultReceiver> receivers = pendingExecutions.remove(portal);
+                if (receivers != null) {
+                    pendingExecutions.put(newPortal, receivers);
+                }
             } else if (portal.synced()) {
                 // Make sure existing portal stops receiving results!
                 portal.close();
@@ -300,6 +343,84 @@ public class Session implements AutoCloseable {
         }
     }
 
+    /**
+     * Binding a portal which is pending execution turns it into a bulk or batch portal, so that the write operations
+     * can be executed together. If the pending execution is independent of the new binding, e.g. because both are
+     * queries, the pending portal is detached instead and a new portal is bound, which allows to execute both
+     * concurrently.
+     */
+    private void detachIfPendingAndIndependent(String portalName, String statementName) {
+        Portal portal = portals.get(portalName);
+        if (portal == null || pendingExecutions.containsKey(portal) == false) {
+            return;
+        }
+        AnalyzedStatement pendingStatement = portal.getLastAnalyzedStatement();
+        PreparedStmt preparedStmt = preparedStatements.get(statementName);
+        if (preparedStmt == null) {
+            return;
+        }
+        if (pendingStatement == null
+            || pendingStatement.isWriteOperation() == false
+            || isBatchableWrite(preparedStmt.statement()) == false) {
+            portals.remove(portalName);
+        }
+    }
+
+    private static boolean isBatchableWrite(Statement statement) {
+        return statement instanceof Insert || statement instanceof Update || statement instanceof Delete;
+    }
+
+    /**
+     * Queries can be executed concurrently to other queries as they don't have any side effects
+     */
+    private static boolean isQuery(@Nullable AnalyzedStatement analyzedStatement) {
+        return analyzedStatement instanceof AnalyzedRelation && analyzedStatement.isWriteOperation() == false;
+    }
+
+    /**
+     * Takes the unbound analyzed statement out of the {@link StatementCache} or analyzes it if it isn't cached.
+     * The statement is released back into the cache once its execution finished, see {@link #sync()}.
+     *
+     * Only used for the unnamed portal, which is removed on sync, so that the analyzed statement isn't used by the
+     * portal after it has been released.
+     *
+     * @return the analyzed statement or null if the statement must be analyzed bound.
+     */
+    @Nullable
+    private AnalyzedStatement acquireCachedStatement(PreparedStmt preparedStmt, List<Object> params) {
+        if (statementCache == null) {
+            return null;
+        }
+        StatementCache.Key key = statementCache.key(preparedStmt.query(), preparedStmt.statement(), params, sessionContext);
+        if (key == null) {
+            return null;
+        }
+        StatementCache.Entry entry = statementCache.acquire(key);
+        if (entry.analyzedStatement() == null) {
+            AnalyzedStatement analyzedStatement;
+            try {
+                analyzedStatement = analyzer.unboundAnalyze(preparedStmt.statement(), sessionContext, key.paramTypeHints());
+            } catch (Throwable t) {
+                // the bound analysis reports the error, using the actual parameter values
+                return null;
+            }
+            if (analyzedStatement == null || analyzedStatement.isUnboundPlanningSupported() == false) {
+                return null;
+            }
+            entry.analyzedStatement(analyzedStatement);
+        }
+        acquiredStatements.add(entry);
+        // the unbound analysis doesn't check the privileges and the cached statement might be analyzed by another user
+        sessionContext.ensureStatementAuthorized(entry.analyzedStatement());
+        return entry.analyzedStatement();
+    }
+
+    private void releaseCachedStatements(List<StatementCache.Entry> entries) {
+        for (StatementCache.Entry entry : entries) {
+            statementCache.release(entry);
+        }
+    }
+
     public DescribeResult describe(char type, String portalOrStatement) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("method=describe type={} portalOrStatement={}", type, portalOrStatement);
@@ -368,7 +489,9 @@ public class Session implements AutoCloseable {
         }
 
         Portal portal = getSafePortal(portalName);
-        portal.execute(resultReceiver, maxRows);
+        OrderedResultReceiver orderedResultReceiver = new OrderedResultReceiver(resultReceiver, pendingResults);
+        portal.execute(orderedResultReceiver, maxRows);
+        pendingResults = orderedResultReceiver.delivered();
 
         AnalyzedStatement analyzedStatement = portal.getLastAnalyzedStatement();
         if (analyzedStatement instanceof AnalyzedBegin) {
@@ -387,27 +510,122 @@ public class Session implements AutoCloseable {
             portal.sync(planner, jobsLogs);
         } else {
             // delay execution to be able to bundle bulk operations
-            pendingExecutions.add(portal);
+            pendingExecutions.computeIfAbsent(portal, p -> new ArrayList<>()).add(orderedResultReceiver);
+        }
+    }
+
+    /**
+     * Runs the action once the results of all executions so far have been delivered.
+     * <p>
+     * The execution is delayed until sync, so this must be used for all responses to the messages following an
+     * execute call to keep them in protocol order. The action is skipped if one of the executions failed, as postgres
+     * ignores all messages after an error until the next sync.
+     */
+    public void afterPendingResults(Runnable action) {
+        CompletableFuture<?> previous = pendingResults;
+        if (previous.isDone() && previous.isCompletedExceptionally() == false) {
+            action.run();
+        } else {
+            pendingResults = previous.thenRun(action);
         }
     }
 
+    /**
+     * Triggers the pending executions.
+     *
+     * @return a future which is completed once all results have been delivered to the result receivers.
+     */
     public CompletableFuture<?> sync() {
+        CompletableFuture<?> results = pendingResults;
+        // responses to the following messages must still wait for the results, but not depend on their outcome
+        pendingResults = results.handle((result, failure) -> null);
         switch (pendingExecutions.size()) {
             case 0:
                 LOGGER.debug("method=sync pendingExecutions=0");
-                return CompletableFuture.completedFuture(null);
+                releaseCachedStatements(acquiredStatements);
+                acquiredStatements.clear();
+                return results;
             case 1:
-                Portal portal = pendingExecutions.iterator().next();
+                Map.Entry<Portal, List<OrderedResultReceiver>> execution = pendingExecutions.entrySet().iterator().next();
+                Portal portal = execution.getKey();
                 LOGGER.debug("method=sync portal={}", portal);
                 pendingExecutions.clear();
                 clearState();
-                return portal.sync(planner, jobsLogs);
+                List<StatementCache.Entry> entries = new ArrayList<>(acquiredStatements);
+                acquiredStatements.clear();
+                CompletableFuture<?> future;
+                try {
+                    future = portal.sync(planner, jobsLogs);
+                } catch (Throwable t) {
+                    releaseCachedStatements(entries);
+                    // the failure is thrown to the caller, the receivers must not report it again
+                    for (OrderedResultReceiver receiver : execution.getValue()) {
+                        receiver.discard(t);
+                    }
+                    throw t;
+                }
+                if (entries.isEmpty()) {
+                    return results;
+                }
+                future.whenComplete((result, failure) -> releaseCachedStatements(entries));
+                return results;
             default:
-                throw new IllegalStateException(
-                    "Shouldn't have more than 1 pending execution. Got: " + pendingExecutions);
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("method=sync pendingExecutions={}", pendingExecutions.keySet());
+                }
+                List<Map.Entry<Portal, List<OrderedResultReceiver>>> executions = new ArrayList<>(pendingExecutions.entrySet());
+                pendingExecutions.clear();
+                clearState();
+                syncConcurrently(executions);
+                if (acquiredStatements.isEmpty() == false) {
+                    List<StatementCache.Entry> acquired = new ArrayList<>(acquiredStatements);
+                    acquiredStatements.clear();
+                    results.whenComplete((result, failure) -> releaseCachedStatements(acquired));
+                }
+                return results;
         }
     }
 
+    /**
+     * Executes queries right away, up to {@link #MAX_CONCURRENT_EXECUTIONS} at once. All other statements are executed
+     * once the results of the executions before them are delivered, and the executions following them wait for them.
+     */
+    private void syncConcurrently(List<Map.Entry<Portal, List<OrderedResultReceiver>>> executions) {
+        CompletableFuture<?> barrier = CompletableFuture.completedFuture(null);
+        CompletableFuture<?> previousDelivered = barrier;
+        List<CompletableFuture<?>> delivered = new ArrayList<>(executions.size());
+        for (Map.Entry<Portal, List<OrderedResultReceiver>> execution : executions) {
+            Portal portal = execution.getKey();
+            List<OrderedResultReceiver> receivers = execution.getValue();
+            if (isQuery(portal.getLastAnalyzedStatement())) {
+                int numDelivered = delivered.size();
+                if (numDelivered >= MAX_CONCURRENT_EXECUTIONS) {
+                    syncAfter(CompletableFuture.allOf(barrier, delivered.get(numDelivered - MAX_CONCURRENT_EXECUTIONS)), portal, receivers);
+                } else {
+                    syncAfter(barrier, portal, receivers);
+                }
+            } else {
+                syncAfter(previousDelivered, portal, receivers);
+                barrier = receivers.get(receivers.size() - 1).delivered();
+            }
+            previousDelivered = receivers.get(receivers.size() - 1).delivered();
+            delivered.add(previousDelivered);
+        }
+    }
+
+    private void syncAfter(CompletableFuture<?> before, Portal portal, List<OrderedResultReceiver> receivers) {
+        // if before fails, the receivers are failed as well because they wait for the results before them
+        before.thenRun(() -> {
+            try {
+                portal.sync(planner, jobsLogs);
+            } catch (Throwable t) {
+                for (OrderedResultReceiver receiver : receivers) {
+                    receiver.fail(t);
+                }
+            }
+        });
+    }
+
     public void clearState() {
         Portal portal = portals.remove(UNNAMED);
         if (portal != null) {
@@ -485,6 +703,11 @@ public class Session implements AutoCloseable {
         portals.clear();
         preparedStatements.clear();
         pendingExecutions.clear();
+        pendingResults = CompletableFuture.completedFuture(null);
+        if (statementCache != null) {
+            releaseCachedStatements(acquiredStatements);
+            acquiredStatements.clear();
+        }
     }
 
     static class ParameterTypeExtractor extends DefaultTraversalSymbolVisitor<Void, Void> implements Consumer<Symbol> {
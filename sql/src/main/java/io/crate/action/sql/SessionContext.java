@@ -45,6 +45,7 @@ public class SessionContext implements StatementAuthorizedValidator, ExceptionAu
     private String defaultSchema;
     private boolean semiJoinsRewriteEnabled;
     private boolean hashJoinEnabled = true;
+    private boolean queryResultCacheEnabled = true;
 
     public SessionContext(@Nullable String defaultSchema,
                           @Nullable User user,
@@ -106,6 +107,14 @@ public class SessionContext implements StatementAuthorizedValidator, ExceptionAu
         this.hashJoinEnabled = hashJoinEnabled;
     }
 
+    public boolean isQueryResultCacheEnabled() {
+        return queryResultCacheEnabled;
+    }
+
+    public void setQueryResultCacheEnabled(boolean queryResultCacheEnabled) {
+        this.queryResultCacheEnabled = queryResultCacheEnabled;
+    }
+
     @Nullable
     public User user() {
         return user;
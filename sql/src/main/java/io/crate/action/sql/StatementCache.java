@@ -0,0 +1,523 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.action.sql;
+
+import io.crate.analyze.AnalyzedDeleteStatement;
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.analyze.AnalyzedUpdateStatement;
+import io.crate.analyze.MultiSourceSelect;
+import io.crate.analyze.ParamTypeHints;
+import io.crate.analyze.QueriedSelectRelation;
+import io.crate.analyze.QueriedTable;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.AnalyzedRelationVisitor;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.analyze.relations.JoinPair;
+import io.crate.analyze.relations.OrderedLimitedRelation;
+import io.crate.analyze.relations.QueriedDocTable;
+import io.crate.analyze.relations.QueriedRelation;
+import io.crate.analyze.relations.TableFunctionRelation;
+import io.crate.analyze.relations.TableRelation;
+import io.crate.analyze.relations.UnionSelect;
+import io.crate.exceptions.ResourceUnknownException;
+import io.crate.expression.symbol.DefaultTraversalSymbolVisitor;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.udf.UserDefinedFunctionsMetaData;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.table.TableInfo;
+import io.crate.metadata.view.ViewsMetaData;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Delete;
+import io.crate.sql.tree.Query;
+import io.crate.sql.tree.Statement;
+import io.crate.sql.tree.Update;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Node local cache for parsed statements and their parameter-agnostic (unbound) analysis.
+ *
+ * Parsed statements are keyed by the statement text. Analyzed statements are keyed by the statement text, the types
+ * of the parameters and the session properties which affect the analysis (user, default schema and default limit).
+ * Only {@code SELECT}, {@code UPDATE} and {@code DELETE} statements without {@code CURRENT_TIMESTAMP} are analyzed
+ * without parameters and cached.
+ *
+ * Analyzed statements are mutated during planning, so an analyzed statement is never shared: it's taken out of the
+ * cache using {@link #acquire(Key)} and put back using {@link #release(Entry)} once its execution has finished.
+ * Concurrent executions of the same statement analyze it separately and the cache keeps up to
+ * {@link #MAX_IDLE_PER_KEY} analyzed statements per key.
+ *
+ * An analyzed statement is invalidated if any of the involved tables, the views or the user defined functions changed.
+ * Tables are compared with those currently returned by {@link Schemas}, which creates new table infos for changed
+ * tables.
+ *
+ * The cache holds at most {@link #SIZE_SETTING} keys and evicts the least recently used ones if the limit is reached.
+ * The cache is disabled if the size is 0.
+ */
+@Singleton
+public class StatementCache extends AbstractComponent {
+
+    public static final Setting<Integer> SIZE_SETTING = Setting.intSetting(
+        "node.sql.statement_cache.size",
+        0,
+        0,
+        Setting.Property.NodeScope);
+
+    static final int MAX_IDLE_PER_KEY = 16;
+
+    private final Schemas schemas;
+    private final ClusterService clusterService;
+    private final int maxEntries;
+
+    private final LinkedHashMap<String, Statement> parsedStatements;
+    private final LinkedHashMap<Key, ArrayDeque<Entry>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Inject
+    public StatementCache(Settings settings, Schemas schemas, ClusterService clusterService) {
+        super(settings);
+        this.schemas = schemas;
+        this.clusterService = clusterService;
+        this.maxEntries = SIZE_SETTING.get(settings);
+        this.parsedStatements = new LinkedHashMap<String, Statement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Statement> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.entries = new LinkedHashMap<Key, ArrayDeque<Entry>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ArrayDeque<Entry>> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * Parses the statement or returns the cached parsed statement for the given statement text.
+     */
+    public Statement parse(String query) {
+        if (isEnabled() == false) {
+            return SqlParser.createStatement(query);
+        }
+        Statement statement;
+        synchronized (parsedStatements) {
+            statement = parsedStatements.get(query);
+        }
+        if (statement == null) {
+            statement = SqlParser.createStatement(query);
+            synchronized (parsedStatements) {
+                parsedStatements.put(query, statement);
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * @return the key to look up the analyzed statement or null if the statement must not be analyzed unbound.
+     */
+    @Nullable
+    public Key key(String query, Statement statement, List<Object> params, SessionContext sessionContext) {
+        if (isEnabled() == false
+            || (statement instanceof Query || statement instanceof Update || statement instanceof Delete) == false
+            || QueryResultCache.NonDeterministicAstVisitor.containsCurrentTime(statement)) {
+            return null;
+        }
+        DataType[] paramTypes = new DataType[params.size()];
+        for (int i = 0; i < paramTypes.length; i++) {
+            DataType type;
+            try {
+                type = DataTypes.guessType(params.get(i));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            if (type == null) {
+                return null;
+            }
+            paramTypes[i] = type;
+        }
+        return new Key(
+            query,
+            paramTypes,
+            sessionContext.user() == null ? null : sessionContext.user().name(),
+            sessionContext.defaultSchema(),
+            sessionContext.defaultLimit()
+        );
+    }
+
+    /**
+     * Takes a valid analyzed statement out of the cache. If there is none, an entry without analyzed statement is
+     * returned; the analyzed statement must be set using {@link Entry#analyzedStatement(AnalyzedStatement)}.
+     */
+    public Entry acquire(Key key) {
+        MetaData metaData = clusterService.state().metaData();
+        Entry entry;
+        while ((entry = poll(key)) != null) {
+            if (isValid(entry, metaData)) {
+                hits.increment();
+                return entry;
+            }
+            evictions.increment();
+        }
+        misses.increment();
+        return new Entry(key, metaData.custom(UserDefinedFunctionsMetaData.TYPE), metaData.custom(ViewsMetaData.TYPE));
+    }
+
+    /**
+     * Puts the analyzed statement of the entry back into the cache, it must not be used by the caller afterwards.
+     */
+    public void release(Entry entry) {
+        if (entry.analyzedStatement == null) {
+            return;
+        }
+        if (entry.tables == null) {
+            List<TableInfo> tables = new ArrayList<>();
+            if (TableCollector.collect(entry.analyzedStatement, tables) == false) {
+                return;
+            }
+            entry.tables = tables;
+        }
+        synchronized (entries) {
+            ArrayDeque<Entry> idle = entries.get(entry.key);
+            if (idle == null) {
+                idle = new ArrayDeque<>();
+                entries.put(entry.key, idle);
+            }
+            if (idle.size() < MAX_IDLE_PER_KEY) {
+                idle.push(entry);
+            }
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(entries.size(), hits.sum(), misses.sum(), evictions.sum());
+        }
+    }
+
+    @Nullable
+    private Entry poll(Key key) {
+        synchronized (entries) {
+            ArrayDeque<Entry> idle = entries.get(key);
+            return idle == null ? null : idle.poll();
+        }
+    }
+
+    private boolean isValid(Entry entry, MetaData metaData) {
+        if (Objects.equals(entry.functions, metaData.custom(UserDefinedFunctionsMetaData.TYPE)) == false
+            || Objects.equals(entry.views, metaData.custom(ViewsMetaData.TYPE)) == false) {
+            return false;
+        }
+        for (TableInfo table : entry.tables) {
+            try {
+                if (schemas.getTableInfo(table.ident()) != table) {
+                    return false;
+                }
+            } catch (ResourceUnknownException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Identifies cached analyzed statements.
+     */
+    public static final class Key {
+
+        private final String query;
+        private final DataType[] paramTypes;
+        @Nullable
+        private final String user;
+        private final String defaultSchema;
+        private final int defaultLimit;
+        private final int hashCode;
+
+        Key(String query, DataType[] paramTypes, @Nullable String user, String defaultSchema, int defaultLimit) {
+            this.query = query;
+            this.paramTypes = paramTypes;
+            this.user = user;
+            this.defaultSchema = defaultSchema;
+            this.defaultLimit = defaultLimit;
+            this.hashCode = Objects.hash(query, Arrays.hashCode(paramTypes), user, defaultSchema, defaultLimit);
+        }
+
+        public ParamTypeHints paramTypeHints() {
+            return new ParamTypeHints(Arrays.asList(paramTypes));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return defaultLimit == key.defaultLimit &&
+                   query.equals(key.query) &&
+                   Arrays.equals(paramTypes, key.paramTypes) &&
+                   Objects.equals(user, key.user) &&
+                   defaultSchema.equals(key.defaultSchema);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * An analyzed statement which is exclusively used by the caller of {@link #acquire(Key)} until it's released.
+     * The user defined functions and views are those at the time the entry has been created, before the analysis.
+     */
+    public static final class Entry {
+
+        private final Key key;
+        @Nullable
+        private final MetaData.Custom functions;
+        @Nullable
+        private final MetaData.Custom views;
+        @Nullable
+        private AnalyzedStatement analyzedStatement;
+        @Nullable
+        private List<TableInfo> tables;
+
+        private Entry(Key key, @Nullable MetaData.Custom functions, @Nullable MetaData.Custom views) {
+            this.key = key;
+            this.functions = functions;
+            this.views = views;
+        }
+
+        @Nullable
+        public AnalyzedStatement analyzedStatement() {
+            return analyzedStatement;
+        }
+
+        public void analyzedStatement(AnalyzedStatement analyzedStatement) {
+            this.analyzedStatement = analyzedStatement;
+        }
+    }
+
+    public static class Stats implements Writeable {
+
+        private final int entries;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        public Stats(int entries, long hits, long misses, long evictions) {
+            this.entries = entries;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            entries = in.readVInt();
+            hits = in.readVLong();
+            misses = in.readVLong();
+            evictions = in.readVLong();
+        }
+
+        public int entries() {
+            return entries;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        public long evictions() {
+            return evictions;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(entries);
+            out.writeVLong(hits);
+            out.writeVLong(misses);
+            out.writeVLong(evictions);
+        }
+    }
+
+    /**
+     * Collects the tables of the statement, including those of sub-queries, and returns false if it contains
+     * anything which can't be validated on lookup.
+     */
+    private static class TableCollector extends AnalyzedRelationVisitor<List<TableInfo>, Boolean> {
+
+        private static final TableCollector INSTANCE = new TableCollector();
+
+        static boolean collect(AnalyzedStatement statement, List<TableInfo> tables) {
+            if (statement instanceof QueriedRelation) {
+                return INSTANCE.process((QueriedRelation) statement, tables);
+            }
+            if (statement instanceof AnalyzedUpdateStatement) {
+                tables.add(((AnalyzedUpdateStatement) statement).table().tableInfo());
+            } else if (statement instanceof AnalyzedDeleteStatement) {
+                tables.add(((AnalyzedDeleteStatement) statement).relation().tableInfo());
+            } else {
+                return false;
+            }
+            boolean[] collected = new boolean[]{true};
+            statement.visitSymbols(symbol -> {
+                if (collected[0]) {
+                    collected[0] = SubQueryTableCollector.collect(symbol, tables);
+                }
+            });
+            return collected[0];
+        }
+
+        @Override
+        protected Boolean visitAnalyzedRelation(AnalyzedRelation relation, List<TableInfo> tables) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitQueriedTable(QueriedTable table, List<TableInfo> tables) {
+            return collectFromSymbols(table, tables) && process(table.tableRelation(), tables);
+        }
+
+        @Override
+        public Boolean visitQueriedDocTable(QueriedDocTable table, List<TableInfo> tables) {
+            return collectFromSymbols(table, tables) && process(table.tableRelation(), tables);
+        }
+
+        @Override
+        public Boolean visitTableRelation(TableRelation tableRelation, List<TableInfo> tables) {
+            tables.add(tableRelation.tableInfo());
+            return true;
+        }
+
+        @Override
+        public Boolean visitDocTableRelation(DocTableRelation relation, List<TableInfo> tables) {
+            tables.add(relation.tableInfo());
+            return true;
+        }
+
+        @Override
+        public Boolean visitTableFunctionRelation(TableFunctionRelation tableFunctionRelation, List<TableInfo> tables) {
+            return true;
+        }
+
+        @Override
+        public Boolean visitMultiSourceSelect(MultiSourceSelect multiSourceSelect, List<TableInfo> tables) {
+            if (collectFromSymbols(multiSourceSelect, tables) == false) {
+                return false;
+            }
+            for (JoinPair joinPair : multiSourceSelect.joinPairs()) {
+                if (joinPair.condition() != null && SubQueryTableCollector.collect(joinPair.condition(), tables) == false) {
+                    return false;
+                }
+            }
+            for (AnalyzedRelation relation : multiSourceSelect.sources().values()) {
+                if (process(relation, tables) == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Boolean visitUnionSelect(UnionSelect unionSelect, List<TableInfo> tables) {
+            return process(unionSelect.left(), tables) && process(unionSelect.right(), tables);
+        }
+
+        @Override
+        public Boolean visitQueriedSelectRelation(QueriedSelectRelation relation, List<TableInfo> tables) {
+            return collectFromSymbols(relation, tables) && process(relation.subRelation(), tables);
+        }
+
+        @Override
+        public Boolean visitOrderedLimitedRelation(OrderedLimitedRelation relation, List<TableInfo> tables) {
+            return collectFromSymbols(relation, tables) && process(relation.childRelation(), tables);
+        }
+
+        private static boolean collectFromSymbols(QueriedRelation relation, List<TableInfo> tables) {
+            boolean[] collected = new boolean[]{true};
+            relation.visitSymbols(symbol -> {
+                if (collected[0]) {
+                    collected[0] = SubQueryTableCollector.collect(symbol, tables);
+                }
+            });
+            return collected[0];
+        }
+    }
+
+    private static class SubQueryTableCollector extends DefaultTraversalSymbolVisitor<List<TableInfo>, Void> {
+
+        private boolean collected = true;
+
+        static boolean collect(Symbol symbol, List<TableInfo> tables) {
+            SubQueryTableCollector collector = new SubQueryTableCollector();
+            collector.process(symbol, tables);
+            return collector.collected;
+        }
+
+        @Override
+        public Void visitSelectSymbol(SelectSymbol selectSymbol, List<TableInfo> tables) {
+            if (TableCollector.INSTANCE.process(selectSymbol.relation(), tables) == false) {
+                collected = false;
+            }
+            return null;
+        }
+    }
+}
@@ -51,12 +51,14 @@ import io.crate.metadata.TableIdent;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.settings.ByteSizeSetting;
 import io.crate.metadata.settings.SettingsApplier;
 import io.crate.metadata.settings.SettingsAppliers;
 import io.crate.metadata.settings.StringSetting;
 import io.crate.metadata.table.Operation;
 import io.crate.metadata.table.TableInfo;
 import io.crate.execution.dsl.projection.WriterProjection;
+import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.sql.tree.ArrayLiteral;
 import io.crate.sql.tree.CopyFrom;
 import io.crate.sql.tree.CopyTo;
@@ -84,12 +86,18 @@ class CopyAnalyzer {
         new StringSetting("compression", ImmutableSet.of("gzip"));
 
     private static final StringSetting OUTPUT_FORMAT_SETTINGS =
-        new StringSetting("format", ImmutableSet.of("json_object", "json_array"));
+        new StringSetting("format", ImmutableSet.of("json_object", "json_array", "parquet"));
+
+    private static final ByteSizeSetting MAX_FILE_SIZE_SETTINGS = new ByteSizeSetting("max_file_size", null);
+
+    private static final StringSetting INPUT_FORMAT_SETTINGS =
+        new StringSetting("format", ImmutableSet.of("json", "csv"), "json");
 
     private static final ImmutableMap<String, SettingsApplier> SETTINGS_APPLIERS =
         ImmutableMap.<String, SettingsApplier>builder()
             .put(COMPRESSION_SETTINGS.name(), new SettingsAppliers.StringSettingsApplier(COMPRESSION_SETTINGS))
             .put(OUTPUT_FORMAT_SETTINGS.name(), new SettingsAppliers.StringSettingsApplier(OUTPUT_FORMAT_SETTINGS))
+            .put(MAX_FILE_SIZE_SETTINGS.name(), new SettingsAppliers.ByteSizeSettingsApplier(MAX_FILE_SIZE_SETTINGS))
             .build();
     private final Schemas schemas;
     private final Functions functions;
@@ -137,7 +145,19 @@ class CopyAnalyzer {
             throw CopyFromAnalyzedStatement.raiseInvalidType(uri.valueType());
         }
 
-        return new CopyFromAnalyzedStatement(tableInfo, settings, uri, partitionIdent, nodeFilters);
+        String inputFormat = INPUT_FORMAT_SETTINGS.extract(settings).toLowerCase(Locale.ENGLISH);
+        String invalidInputFormat = INPUT_FORMAT_SETTINGS.validate(inputFormat);
+        if (invalidInputFormat != null) {
+            throw new IllegalArgumentException(invalidInputFormat);
+        }
+
+        return new CopyFromAnalyzedStatement(
+            tableInfo,
+            settings,
+            uri,
+            partitionIdent,
+            nodeFilters,
+            settingAsEnum(FileUriCollectPhase.InputFormat.class, inputFormat));
     }
 
 
@@ -243,12 +263,21 @@ class CopyAnalyzer {
         WriterProjection.OutputFormat outputFormat =
             settingAsEnum(WriterProjection.OutputFormat.class, settings.get(OUTPUT_FORMAT_SETTINGS.name()));
 
-        if (!columnsDefined && outputFormat == WriterProjection.OutputFormat.JSON_ARRAY) {
+        if (!columnsDefined && (outputFormat == WriterProjection.OutputFormat.JSON_ARRAY ||
+                                outputFormat == WriterProjection.OutputFormat.PARQUET)) {
             throw new UnsupportedFeatureException("Output format not supported without specifying columns.");
         }
+        Long maxFileSize = null;
+        if (settings.get(MAX_FILE_SIZE_SETTINGS.name()) != null) {
+            maxFileSize = MAX_FILE_SIZE_SETTINGS.extractBytes(settings);
+            if (maxFileSize <= 0) {
+                throw new IllegalArgumentException("Setting 'max_file_size' must be greater than 0");
+            }
+        }
 
         QueriedDocTable subRelation = new QueriedDocTable(tableRelation, querySpec);
-        return new CopyToAnalyzedStatement(subRelation, settings, uri, compressionType, outputFormat, outputNames, columnsDefined, overwrites);
+        return new CopyToAnalyzedStatement(
+            subRelation, settings, uri, compressionType, outputFormat, outputNames, columnsDefined, overwrites, maxFileSize);
     }
 
     private static <E extends Enum<E>> E settingAsEnum(Class<E> settingsEnum, String settingValue) {
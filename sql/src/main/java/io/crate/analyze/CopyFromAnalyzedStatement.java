@@ -22,6 +22,7 @@
 
 package io.crate.analyze;
 
+import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.types.DataType;
@@ -37,16 +38,19 @@ public class CopyFromAnalyzedStatement extends AbstractCopyAnalyzedStatement {
     @Nullable
     private final String partitionIdent;
     private final Predicate<DiscoveryNode> nodePredicate;
+    private final FileUriCollectPhase.InputFormat inputFormat;
 
     public CopyFromAnalyzedStatement(DocTableInfo table,
                                      Settings settings,
                                      Symbol uri,
                                      @Nullable String partitionIdent,
-                                     Predicate<DiscoveryNode> nodePredicate) {
+                                     Predicate<DiscoveryNode> nodePredicate,
+                                     FileUriCollectPhase.InputFormat inputFormat) {
         super(settings, uri);
         this.table = table;
         this.partitionIdent = partitionIdent;
         this.nodePredicate = nodePredicate;
+        this.inputFormat = inputFormat;
     }
 
     public DocTableInfo table() {
@@ -71,6 +75,10 @@ public class CopyFromAnalyzedStatement extends AbstractCopyAnalyzedStatement {
         return nodePredicate;
     }
 
+    public FileUriCollectPhase.InputFormat inputFormat() {
+        return inputFormat;
+    }
+
     @Override
     public boolean isWriteOperation() {
         return true;
@@ -44,6 +44,8 @@ public class CopyToAnalyzedStatement extends AbstractCopyAnalyzedStatement {
     private final WriterProjection.OutputFormat outputFormat;
     @Nullable
     private final List<String> outputNames;
+    @Nullable
+    private final Long maxFileSize;
 
     /*
      * add values that should be added or overwritten
@@ -58,7 +60,8 @@ public class CopyToAnalyzedStatement extends AbstractCopyAnalyzedStatement {
                                    @Nullable WriterProjection.OutputFormat outputFormat,
                                    @Nullable List<String> outputNames,
                                    boolean columnsDefined,
-                                   @Nullable Map<ColumnIdent, Symbol> overwrites) {
+                                   @Nullable Map<ColumnIdent, Symbol> overwrites,
+                                   @Nullable Long maxFileSize) {
         super(settings, uri);
         this.subQueryRelation = subQueryRelation;
         this.columnsDefined = columnsDefined;
@@ -66,6 +69,7 @@ public class CopyToAnalyzedStatement extends AbstractCopyAnalyzedStatement {
         this.outputNames = outputNames;
         this.outputFormat = outputFormat;
         this.overwrites = MoreObjects.firstNonNull(overwrites, ImmutableMap.<ColumnIdent, Symbol>of());
+        this.maxFileSize = maxFileSize;
     }
 
     public QueriedDocTable subQueryRelation() {
@@ -95,6 +99,11 @@ public class CopyToAnalyzedStatement extends AbstractCopyAnalyzedStatement {
         return this.overwrites;
     }
 
+    @Nullable
+    public Long maxFileSize() {
+        return maxFileSize;
+    }
+
     @Override
     public <C, R> R accept(AnalyzedStatementVisitor<C, R> analyzedStatementVisitor, C context) {
         return analyzedStatementVisitor.visitCopyToStatement(this, context);
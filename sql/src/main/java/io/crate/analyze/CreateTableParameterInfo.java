@@ -0,0 +1,49 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.analyze;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Table parameters supported by CREATE TABLE.
+ * In addition to the parameters which can be changed using ALTER TABLE, this includes the index sort settings,
+ * which can't be changed once the table has been created.
+ */
+class CreateTableParameterInfo extends TableParameterInfo {
+
+    static final CreateTableParameterInfo INSTANCE = new CreateTableParameterInfo();
+
+    private static final ImmutableList<String> SUPPORTED_SETTINGS =
+        ImmutableList.<String>builder()
+            .addAll(TableParameterInfo.INSTANCE.supportedSettings())
+            .addAll(INDEX_SORT_SETTINGS)
+            .build();
+
+    @Override
+    public ImmutableList<String> supportedSettings() {
+        return SUPPORTED_SETTINGS;
+    }
+
+    private CreateTableParameterInfo() {
+    }
+}
@@ -103,7 +103,7 @@ public class CreateTableStatementAnalyzer extends DefaultTraversalVisitor<Create
         // if it is it will get overwritten afterwards.
         TablePropertiesAnalyzer.analyze(
             statement.tableParameter(),
-            new TableParameterInfo(),
+            CreateTableParameterInfo.INSTANCE,
             createTable.properties(),
             parameters,
             true
@@ -59,6 +59,7 @@ import io.crate.sql.tree.InsertFromValues;
 import io.crate.sql.tree.ParameterExpression;
 import io.crate.sql.tree.ValuesList;
 import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lucene.BytesRefs;
@@ -73,6 +74,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static io.crate.analyze.InsertFromSubQueryAnalyzer.getUpdateAssignments;
 import static io.crate.analyze.InsertFromSubQueryAnalyzer.resolveTargetColumns;
@@ -284,6 +286,8 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
             int numPks = tableInfo.primaryKey().size();
             Function<List<BytesRef>, String> idFunction =
                 Id.compileWithNullValidation(tableInfo.primaryKey(), tableInfo.clusteredBy());
+            List<Supplier<Symbol>> values = compileValues(
+                node.values(), normalizer, expressionAnalyzer, expressionAnalysisContext, transactionContext, parameterContext);
             if (parameterContext.numBulkParams() > 0) {
                 for (int i = 0; i < parameterContext.numBulkParams(); i++) {
                     parameterContext.setBulkIdx(i);
@@ -295,7 +299,7 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                         transactionContext,
                         valuesResolver,
                         valuesAwareExpressionAnalyzer,
-                        node,
+                        values,
                         assignments,
                         statement,
                         refToLiteral,
@@ -313,7 +317,7 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                     transactionContext,
                     valuesResolver,
                     valuesAwareExpressionAnalyzer,
-                    node,
+                    values,
                     assignments,
                     statement,
                     refToLiteral,
@@ -327,6 +331,44 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         }
     }
 
+    /**
+     * Compiles the value expressions of a VALUES list into suppliers of the normalized value symbols of the
+     * current (bulk) row. This avoids having to analyze each value expression again for every bulk row:
+     *
+     * <ul>
+     *     <li>parameters are read directly from the current bulk row</li>
+     *     <li>literals of primitive types are analyzed and normalized only once</li>
+     *     <li>other expressions may contain parameters and are analyzed for every row</li>
+     * </ul>
+     */
+    private static List<Supplier<Symbol>> compileValues(List<Expression> expressions,
+                                                        EvaluatingNormalizer normalizer,
+                                                        ExpressionAnalyzer expressionAnalyzer,
+                                                        ExpressionAnalysisContext expressionAnalysisContext,
+                                                        TransactionContext transactionContext,
+                                                        ParameterContext parameterContext) {
+        List<Supplier<Symbol>> values = new ArrayList<>(expressions.size());
+        for (Expression expression : expressions) {
+            if (expression instanceof ParameterExpression) {
+                int index = ((ParameterExpression) expression).index();
+                values.add(() -> parameterContext.getAsSymbol(index));
+                continue;
+            }
+            Supplier<Symbol> analyzeValue = () -> normalizer.normalize(
+                expressionAnalyzer.convert(expression, expressionAnalysisContext),
+                transactionContext);
+            if (expression instanceof io.crate.sql.tree.Literal) {
+                Symbol literal = analyzeValue.get();
+                if (DataTypes.isPrimitive(literal.valueType())) {
+                    values.add(() -> literal);
+                    continue;
+                }
+            }
+            values.add(analyzeValue);
+        }
+        return values;
+    }
+
     private void addValues(DocTableRelation tableRelation,
                            EvaluatingNormalizer normalizer,
                            ExpressionAnalyzer expressionAnalyzer,
@@ -334,7 +376,7 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                            TransactionContext transactionContext,
                            ValuesResolver valuesResolver,
                            ExpressionAnalyzer valuesAwareExpressionAnalyzer,
-                           ValuesList node,
+                           List<Supplier<Symbol>> values,
                            List<Assignment> assignments,
                            InsertFromValuesAnalyzedStatement context,
                            ReferenceToLiteralConverter refToLiteral,
@@ -348,15 +390,12 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         BytesRef[] primaryKeyValues = new BytesRef[numPrimaryKeys];
         String routingValue = null;
         List<ColumnIdent> primaryKey = tableInfo.primaryKey();
-        Object[] insertValues = new Object[node.values().size()];
+        Object[] insertValues = new Object[values.size()];
 
-        for (int i = 0, valuesSize = node.values().size(); i < valuesSize; i++) {
+        for (int i = 0, valuesSize = values.size(); i < valuesSize; i++) {
             Reference column = context.columns().get(i);
             final ColumnIdent columnIdent = column.column();
-            Expression expression = node.values().get(i);
-            Symbol valuesSymbol = normalizer.normalize(
-                expressionAnalyzer.convert(expression, expressionAnalysisContext),
-                transactionContext);
+            Symbol valuesSymbol = values.get(i).get();
 
             // implicit type conversion
             Object value;
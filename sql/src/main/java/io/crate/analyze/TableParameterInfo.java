@@ -33,10 +33,12 @@ import org.elasticsearch.cluster.routing.allocation.decider.MaxRetryAllocationDe
 import org.elasticsearch.cluster.routing.allocation.decider.ShardsLimitAllocationDecider;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.mapper.MapperService;
 
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
 
 @Immutable
 @ThreadSafe
@@ -65,6 +67,9 @@ public class TableParameterInfo {
     public static final String ALLOCATION_MAX_RETRIES = MaxRetryAllocationDecider.SETTING_ALLOCATION_MAX_RETRY.getKey();
     public static final String MAX_NGRAM_DIFF = IndexSettings.MAX_NGRAM_DIFF_SETTING.getKey();
     public static final String MAX_SHINGLE_DIFF = IndexSettings.MAX_SHINGLE_DIFF_SETTING.getKey();
+    public static final String SORT_FIELD = IndexSortConfig.INDEX_SORT_FIELD_SETTING.getKey();
+    public static final String SORT_ORDER = IndexSortConfig.INDEX_SORT_ORDER_SETTING.getKey();
+    public static final String SORT_MISSING = IndexSortConfig.INDEX_SORT_MISSING_SETTING.getKey();
 
     public static final String WARMER_ENABLED = IndexSettings.INDEX_WARMER_ENABLED_SETTING.getKey();
     public static final String UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT = UnassignedInfo.INDEX_DELAYED_NODE_LEFT_TIMEOUT_SETTING.getKey();
@@ -95,6 +100,12 @@ public class TableParameterInfo {
             .add(MAX_SHINGLE_DIFF)
             .build();
 
+    /**
+     * Settings which define the sort order of the documents within the segments of the table.
+     * They can only be set on table creation.
+     */
+    static final ImmutableList<String> INDEX_SORT_SETTINGS = ImmutableList.of(SORT_FIELD, SORT_ORDER, SORT_MISSING);
+
     private static final ImmutableList<String> SUPPORTED_INTERNAL_SETTINGS =
         ImmutableList.<String>builder()
             .addAll(SUPPORTED_SETTINGS)
@@ -129,7 +140,7 @@ public class TableParameterInfo {
 
     public static ImmutableMap<String, Object> tableParametersFromIndexMetaData(IndexMetaData metaData) {
         Settings settings = metaData.getSettings();
-        return ImmutableMap.<String, Object>builder()
+        ImmutableMap.Builder<String, Object> builder = ImmutableMap.<String, Object>builder()
             .put(TableParameterInfo.READ_ONLY, CrateTableSettings.READ_ONLY.extract(settings))
             .put(TableParameterInfo.READ_ONLY_ALLOW_DELETE, CrateTableSettings.READ_ONLY_ALLOW_DELETE.extract(settings))
             .put(TableParameterInfo.BLOCKS_READ, CrateTableSettings.BLOCKS_READ.extract(settings))
@@ -145,8 +156,15 @@ public class TableParameterInfo {
             .put(TableParameterInfo.REFRESH_INTERVAL, CrateTableSettings.REFRESH_INTERVAL.extractMillis(settings))
             .put(TableParameterInfo.SETTING_WAIT_FOR_ACTIVE_SHARDS, CrateTableSettings.SETTING_WAIT_FOR_ACTIVE_SHARDS.extract(settings))
             .put(TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT, CrateTableSettings.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT.extractMillis(settings))
-            .put(TableParameterInfo.ALLOCATION_MAX_RETRIES, CrateTableSettings.ALLOCATION_MAX_RETRIES.extract(settings))
-            .build();
+            .put(TableParameterInfo.ALLOCATION_MAX_RETRIES, CrateTableSettings.ALLOCATION_MAX_RETRIES.extract(settings));
+        // the index sort settings have no sensible default value, they're only listed if the table is sorted
+        for (String sortSetting : INDEX_SORT_SETTINGS) {
+            List<String> values = settings.getAsList(sortSetting);
+            if (values.isEmpty() == false) {
+                builder.put(sortSetting, values.toArray(new String[0]));
+            }
+        }
+        return builder.build();
     }
 
     protected TableParameterInfo() {
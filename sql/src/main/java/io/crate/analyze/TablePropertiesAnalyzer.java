@@ -71,6 +71,9 @@ public final class TablePropertiesAnalyzer {
             .put(stripIndexPrefix(TableParameterInfo.ALLOCATION_MAX_RETRIES), TableParameterInfo.ALLOCATION_MAX_RETRIES)
             .put(stripIndexPrefix(TableParameterInfo.MAX_NGRAM_DIFF), TableParameterInfo.MAX_NGRAM_DIFF)
             .put(stripIndexPrefix(TableParameterInfo.MAX_SHINGLE_DIFF), TableParameterInfo.MAX_SHINGLE_DIFF)
+            .put(stripIndexPrefix(TableParameterInfo.SORT_FIELD), TableParameterInfo.SORT_FIELD)
+            .put(stripIndexPrefix(TableParameterInfo.SORT_ORDER), TableParameterInfo.SORT_ORDER)
+            .put(stripIndexPrefix(TableParameterInfo.SORT_MISSING), TableParameterInfo.SORT_MISSING)
             .put("blobs_path", TableParameterInfo.BLOBS_PATH)
             .build();
 
@@ -109,6 +112,9 @@ public final class TablePropertiesAnalyzer {
             .put(TableParameterInfo.MAX_NGRAM_DIFF, new SettingsAppliers.IntSettingsApplier(CrateTableSettings.MAX_NGRAM_DIFF))
             .put(TableParameterInfo.MAX_SHINGLE_DIFF, new SettingsAppliers.IntSettingsApplier(CrateTableSettings.MAX_SHINGLE_DIFF))
             .put(TableParameterInfo.BLOBS_PATH, new BlobPathSettingApplier())
+            .put(TableParameterInfo.SORT_FIELD, new IndexSortSettingApplier(TableParameterInfo.SORT_FIELD))
+            .put(TableParameterInfo.SORT_ORDER, new IndexSortSettingApplier(TableParameterInfo.SORT_ORDER))
+            .put(TableParameterInfo.SORT_MISSING, new IndexSortSettingApplier(TableParameterInfo.SORT_MISSING))
             .build();
 
     private static final ImmutableMap<String, MappingsApplier> MAPPINGS_APPLIER =
@@ -347,6 +353,36 @@ public final class TablePropertiesAnalyzer {
         }
     }
 
+    /**
+     * Applies one of the index sort settings, which accept either a single value or an array of values
+     * (one per sort column). The values are validated by Elasticsearch once the index is created.
+     */
+    private static class IndexSortSettingApplier extends SettingsAppliers.AbstractSettingsApplier {
+
+        private final String esSettingName;
+
+        private IndexSortSettingApplier(String esSettingName) {
+            super(ES_TO_CRATE_SETTINGS_MAP.get(esSettingName), Settings.EMPTY);
+            this.esSettingName = esSettingName;
+        }
+
+        @Override
+        public void apply(Settings.Builder settingsBuilder,
+                          Row parameters,
+                          Expression expression) {
+            try {
+                GenericPropertiesConverter.genericPropertyToSetting(settingsBuilder, esSettingName, expression, parameters);
+            } catch (IllegalArgumentException e) {
+                throw invalidException(e);
+            }
+        }
+
+        @Override
+        public void applyValue(Settings.Builder settingsBuilder, Object value) {
+            throw new UnsupportedOperationException("Not supported");
+        }
+    }
+
     private static class ColumnPolicyMappingApplier extends MappingsApplier {
 
         private ColumnPolicyMappingApplier() {
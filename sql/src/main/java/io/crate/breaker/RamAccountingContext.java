@@ -92,6 +92,25 @@ public class RamAccountingContext {
         }
     }
 
+    /**
+     * Release bytes which have been added to the context before,
+     * e.g. because the data they accounted for has been spilled to disk.
+     *
+     * @param bytes bytes to be released
+     */
+    public void releaseBytes(long bytes) {
+        if (closed || bytes <= 0) {
+            return;
+        }
+        long remainingBuffer = flushBuffer.addAndGet(-bytes);
+        if (remainingBuffer < 0) {
+            // part of the bytes have already been flushed to the breaker
+            flushBuffer.addAndGet(-remainingBuffer);
+            totalBytes.addAndGet(remainingBuffer);
+            breaker.addWithoutBreaking(remainingBuffer);
+        }
+    }
+
     /**
      * Flush the {@code bytes} to the breaker, incrementing the total
      * bytes and adjusting the buffer.
@@ -25,6 +25,7 @@ package io.crate.execution;
 import io.crate.execution.ddl.TransportDropTableAction;
 import io.crate.execution.ddl.TransportOpenCloseTableOrPartitionAction;
 import io.crate.execution.ddl.TransportRenameTableAction;
+import io.crate.execution.ddl.stats.TransportPublishColumnStatsAction;
 import io.crate.execution.ddl.views.TransportCreateViewAction;
 import io.crate.execution.ddl.views.TransportDropViewAction;
 import io.crate.execution.dml.delete.TransportShardDeleteAction;
@@ -60,5 +61,6 @@ public class TransportExecutorModule extends AbstractModule {
         bind(TransportDropTableAction.class).asEagerSingleton();
         bind(TransportCreateViewAction.class).asEagerSingleton();
         bind(TransportDropViewAction.class).asEagerSingleton();
+        bind(TransportPublishColumnStatsAction.class).asEagerSingleton();
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.ddl.stats;
+
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import io.crate.metadata.IndexParts;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.stats.ColumnStatsMetaData;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.master.TransportMasterNodeAction;
+import org.elasticsearch.cluster.AckedClusterStateUpdateTask;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Stores the column statistics collected by ANALYZE in the {@link ColumnStatsMetaData} of the cluster state.
+ * Statistics of tables which no longer exist are removed on the way.
+ */
+public final class TransportPublishColumnStatsAction
+    extends TransportMasterNodeAction<PublishColumnStatsRequest, PublishColumnStatsResponse> {
+
+    @Inject
+    public TransportPublishColumnStatsAction(Settings settings,
+                                             TransportService transportService,
+                                             ClusterService clusterService,
+                                             ThreadPool threadPool,
+                                             ActionFilters actionFilters,
+                                             IndexNameExpressionResolver indexNameExpressionResolver) {
+        super(settings,
+            "crate/sql/stats/publish",
+            transportService,
+            clusterService,
+            threadPool,
+            actionFilters,
+            indexNameExpressionResolver,
+            PublishColumnStatsRequest::new);
+    }
+
+    @Override
+    protected String executor() {
+        return ThreadPool.Names.GENERIC;
+    }
+
+    @Override
+    protected PublishColumnStatsResponse newResponse() {
+        return new PublishColumnStatsResponse();
+    }
+
+    @Override
+    protected void masterOperation(PublishColumnStatsRequest request,
+                                   ClusterState state,
+                                   ActionListener<PublishColumnStatsResponse> listener) {
+        clusterService.submitStateUpdateTask("stats/publish",
+            new AckedClusterStateUpdateTask<PublishColumnStatsResponse>(Priority.NORMAL, request, listener) {
+
+                @Override
+                public ClusterState execute(ClusterState currentState) {
+                    MetaData metaData = currentState.metaData();
+                    ColumnStatsMetaData columnStats = metaData.custom(ColumnStatsMetaData.TYPE);
+                    return ClusterState.builder(currentState)
+                        .metaData(
+                            MetaData.builder(metaData)
+                                .putCustom(
+                                    ColumnStatsMetaData.TYPE,
+                                    ColumnStatsMetaData.update(
+                                        columnStats, request.statsByTable(), existingTables(metaData)))
+                                .build()
+                        ).build();
+                }
+
+                @Override
+                protected PublishColumnStatsResponse newResponse(boolean acknowledged) {
+                    return new PublishColumnStatsResponse(acknowledged);
+                }
+            });
+    }
+
+    private static Set<TableIdent> existingTables(MetaData metaData) {
+        Set<TableIdent> tables = new HashSet<>();
+        for (String index : metaData.getConcreteAllIndices()) {
+            tables.add(TableIdent.fromIndexName(index));
+        }
+        for (ObjectCursor<String> template : metaData.templates().keys()) {
+            if (IndexParts.isPartitioned(template.value)) {
+                tables.add(PartitionName.fromIndexOrTemplate(template.value).tableIdent());
+            }
+        }
+        return tables;
+    }
+
+    @Override
+    protected ClusterBlockException checkBlock(PublishColumnStatsRequest request, ClusterState state) {
+        return state.blocks().globalBlockedException(ClusterBlockLevel.METADATA_WRITE);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.execution.dml.upsert;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Applies changes to a document source without converting the whole source into nested maps.
+ *
+ * The source is streamed token by token into a new builder: unchanged fields are copied as they are,
+ * changed fields are replaced and objects are only descended into if one of their children is changed.
+ * Changes for fields which don't exist yet are appended at the end of the object they belong to.
+ *
+ * The semantics are the same as {@link TransportShardUpsertAction#updateSourceByPaths(Map, Map)}: the keys
+ * of the changes are paths into the source tree and values which are maps overwrite instead of being merged.
+ */
+final class SourcePatcher {
+
+    private SourcePatcher() {
+    }
+
+    static BytesReference patch(BytesReference source, Map<String, Object> changes) throws IOException {
+        XContentType contentType = XContentFactory.xContentType(source);
+        XContentBuilder builder = XContentFactory.contentBuilder(contentType);
+        try (XContentParser parser = contentType.xContent().createParser(NamedXContentRegistry.EMPTY, source)) {
+            if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                throw new IllegalArgumentException("Source must be an object");
+            }
+            builder.startObject();
+            patchObject(parser, builder, groupByFirstPathElement(changes));
+            builder.endObject();
+        }
+        return builder.bytes();
+    }
+
+    /**
+     * Copies the object the parser is positioned in into the builder, applying the changes on the way.
+     *
+     * @param parser positioned on the START_OBJECT token of the object, or null if the object is new.
+     */
+    private static void patchObject(@Nullable XContentParser parser,
+                                    XContentBuilder builder,
+                                    Map<String, Object> changes) throws IOException {
+        if (parser != null) {
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                String fieldName = parser.currentName();
+                token = parser.nextToken();
+                Object change = changes.remove(fieldName);
+                if (change == null) {
+                    builder.field(fieldName);
+                    builder.copyCurrentStructure(parser);
+                } else if (change instanceof NewValue) {
+                    builder.field(fieldName, ((NewValue) change).value);
+                    parser.skipChildren();
+                } else {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> subChanges = (Map<String, Object>) change;
+                    if (token == XContentParser.Token.START_OBJECT) {
+                        builder.startObject(fieldName);
+                        patchObject(parser, builder, groupByFirstPathElement(subChanges));
+                        builder.endObject();
+                    } else if (token == XContentParser.Token.VALUE_NULL) {
+                        throw new NullPointerException(String.format(Locale.ENGLISH,
+                            "Object %s is null, cannot write %s onto it", fieldName, firstChange(subChanges)));
+                    } else {
+                        throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                            "Field %s is not an object, cannot write %s onto it", fieldName, firstChange(subChanges)));
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            Object change = entry.getValue();
+            if (change instanceof NewValue) {
+                builder.field(entry.getKey(), ((NewValue) change).value);
+            } else {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> subChanges = (Map<String, Object>) change;
+                builder.startObject(entry.getKey());
+                patchObject(null, builder, groupByFirstPathElement(subChanges));
+                builder.endObject();
+            }
+        }
+    }
+
+    /**
+     * Groups the changes by the first element of their path.
+     * The values of the result are either a {@link NewValue} or the changes for the child object keyed by the
+     * remaining path.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> groupByFirstPathElement(Map<String, Object> changes) {
+        Map<String, Object> grouped = new LinkedHashMap<>(changes.size());
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            String path = entry.getKey();
+            int dotIndex = path.indexOf('.');
+            if (dotIndex == -1) {
+                grouped.put(path, new NewValue(entry.getValue()));
+                continue;
+            }
+            String key = path.substring(0, dotIndex);
+            String subPath = path.substring(dotIndex + 1);
+            Object existing = grouped.get(key);
+            if (existing instanceof NewValue) {
+                // the object itself was changed before, write the sub change onto the new object
+                Map<String, Object> newObject = (Map<String, Object>) ((NewValue) existing).value;
+                if (newObject == null) {
+                    throw new NullPointerException(String.format(Locale.ENGLISH,
+                        "Object %s is null, cannot write %s onto it", key,
+                        Collections.singletonMap(subPath, entry.getValue())));
+                }
+                TransportShardUpsertAction.updateSourceByPaths(
+                    newObject, Collections.singletonMap(subPath, entry.getValue()));
+            } else {
+                Map<String, Object> subChanges = (Map<String, Object>) existing;
+                if (subChanges == null) {
+                    subChanges = new LinkedHashMap<>();
+                    grouped.put(key, subChanges);
+                }
+                subChanges.put(subPath, entry.getValue());
+            }
+        }
+        return grouped;
+    }
+
+    private static Map<String, Object> firstChange(Map<String, Object> changes) {
+        Map.Entry<String, Object> first = changes.entrySet().iterator().next();
+        return Collections.singletonMap(first.getKey(), first.getValue());
+    }
+
+    private static final class NewValue {
+
+        @Nullable
+        private final Object value;
+
+        NewValue(@Nullable Object value) {
+            this.value = value;
+        }
+    }
+}
@@ -58,7 +58,6 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.lucene.uid.Versions;
@@ -90,6 +89,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -388,19 +388,11 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         // Currently the validation is done only for generated columns.
         processGeneratedColumns(tableInfo, pathsToUpdate, updatedGeneratedColumns, true, getResult);
 
-        Tuple<XContentType, Map<String, Object>> sourceAndContent =
-            XContentHelper.convertToMap(getResult.internalSourceRef(), false, XContentType.JSON);
-        final XContentType updateSourceContentType = sourceAndContent.v1();
-        final Map<String, Object> updatedSourceAsMap = sourceAndContent.v2();
-
-        updateSourceByPaths(updatedSourceAsMap, pathsToUpdate);
-
         try {
-            XContentBuilder builder = XContentFactory.contentBuilder(updateSourceContentType);
-            builder.map(updatedSourceAsMap);
-            return new SourceAndVersion(builder.bytes(), getResult.getVersion());
+            BytesReference updatedSource = SourcePatcher.patch(getResult.internalSourceRef(), pathsToUpdate);
+            return new SourceAndVersion(updatedSource, getResult.getVersion());
         } catch (IOException e) {
-            throw new ElasticsearchGenerationException("Failed to generate [" + updatedSourceAsMap + "]", e);
+            throw new ElasticsearchGenerationException("Failed to apply " + pathsToUpdate + " to the source", e);
         }
     }
 
@@ -409,37 +401,26 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                                          ShardUpsertRequest request,
                                          ShardUpsertRequest.Item item) throws IOException {
 
-        List<GeneratedReference> generatedReferencesWithValue = new ArrayList<>();
-        BytesReference source;
-        if (request.isRawSourceInsert()) {
-            assert item.insertValues().length > 0 : "empty insert values array";
-            source = new BytesArray((BytesRef) item.insertValues()[0]);
-        } else {
-            XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        Reference[] insertColumns = request.insertColumns();
+        Object[] insertValues = item.insertValues();
+        boolean isRawSourceInsert = request.isRawSourceInsert();
 
+        int numGeneratedColumnsWithValue = 0;
+        if (isRawSourceInsert) {
+            assert insertValues.length > 0 : "empty insert values array";
+        } else {
             // For direct inserts it is enough to have constraints validation on a handler.
             // validateConstraints() of ShardUpsertRequest should result in false in this case.
             if (request.validateConstraints()) {
                 ConstraintsValidator.validateConstraintsForNotUsedColumns(notUsedNonGeneratedColumns, tableInfo);
             }
-
-            for (int i = 0; i < item.insertValues().length; i++) {
-                Object value = item.insertValues()[i];
-                Reference ref = request.insertColumns()[i];
-
-                ConstraintsValidator.validate(value, ref, tableInfo.notNullColumns());
-
-                if (ref.granularity() == RowGranularity.DOC) {
-                    // don't include values for partitions in the _source
-                    // ideally columns with partition granularity shouldn't be part of the request
-                    builder.field(ref.column().fqn(), value);
-                    if (ref instanceof GeneratedReference) {
-                        generatedReferencesWithValue.add((GeneratedReference) ref);
-                    }
+            for (int i = 0; i < insertValues.length; i++) {
+                Reference ref = insertColumns[i];
+                ConstraintsValidator.validate(insertValues[i], ref, tableInfo.notNullColumns());
+                if (ref.granularity() == RowGranularity.DOC && ref instanceof GeneratedReference) {
+                    numGeneratedColumnsWithValue++;
                 }
             }
-            builder.endObject();
-            source = builder.bytes();
         }
 
         int generatedColumnSize = 0;
@@ -449,26 +430,40 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
             }
         }
 
-        int numMissingGeneratedColumns = generatedColumnSize - generatedReferencesWithValue.size();
+        Map<String, Object> generatedValues = Collections.emptyMap();
+        int numMissingGeneratedColumns = generatedColumnSize - numGeneratedColumnsWithValue;
         if (numMissingGeneratedColumns > 0 ||
-            (generatedReferencesWithValue.size() > 0 && request.validateConstraints())) {
+            (numGeneratedColumnsWithValue > 0 && request.validateConstraints())) {
             // we need to evaluate some generated column expressions
-            Map<String, Object> sourceMap = processGeneratedColumnsOnInsert(tableInfo, request.insertColumns(),
-                item.insertValues(), request.isRawSourceInsert(), request.validateConstraints());
-            source = XContentFactory.jsonBuilder().map(sourceMap).bytes();
+            Map<String, Object> sourceMap = buildMapFromSource(insertColumns, insertValues, isRawSourceInsert);
+            generatedValues = new LinkedHashMap<>();
+            processGeneratedColumns(
+                tableInfo, sourceMap, sourceMap, generatedValues, request.validateConstraints(), null);
         }
 
-        return source;
-    }
+        if (isRawSourceInsert) {
+            BytesReference source = new BytesArray((BytesRef) insertValues[0]);
+            if (generatedValues.isEmpty()) {
+                return source;
+            }
+            return SourcePatcher.patch(source, generatedValues);
+        }
 
-    private Map<String, Object> processGeneratedColumnsOnInsert(DocTableInfo tableInfo,
-                                                                Reference[] insertColumns,
-                                                                Object[] insertValues,
-                                                                boolean isRawSourceInsert,
-                                                                boolean validateExpressionValue) {
-        Map<String, Object> sourceAsMap = buildMapFromSource(insertColumns, insertValues, isRawSourceInsert);
-        processGeneratedColumns(tableInfo, sourceAsMap, sourceAsMap, validateExpressionValue, null);
-        return sourceAsMap;
+        // the values are written straight into the source, the generated values are appended.
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        for (int i = 0; i < insertValues.length; i++) {
+            Reference ref = insertColumns[i];
+            if (ref.granularity() == RowGranularity.DOC) {
+                // don't include values for partitions in the _source
+                // ideally columns with partition granularity shouldn't be part of the request
+                builder.field(ref.column().fqn(), insertValues[i]);
+            }
+        }
+        for (Map.Entry<String, Object> entry : generatedValues.entrySet()) {
+            builder.field(entry.getKey(), entry.getValue());
+        }
+        builder.endObject();
+        return builder.bytes();
     }
 
     @VisibleForTesting
@@ -494,6 +489,21 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                                  Map<String, Object> updatedGeneratedColumns,
                                  boolean validateConstraints,
                                  @Nullable GetResult getResult) {
+        processGeneratedColumns(
+            tableInfo, updatedColumns, updatedGeneratedColumns, updatedColumns, validateConstraints, getResult);
+    }
+
+    /**
+     * Evaluates the generated columns affected by the updated columns.
+     *
+     * @param generatedValues receives the values of generated columns which weren't supplied by the user
+     */
+    private void processGeneratedColumns(DocTableInfo tableInfo,
+                                         Map<String, Object> updatedColumns,
+                                         Map<String, Object> updatedGeneratedColumns,
+                                         Map<String, Object> generatedValues,
+                                         boolean validateConstraints,
+                                         @Nullable GetResult getResult) {
 
         List<GeneratedReference> generatedReferences = tableInfo.generatedColumns();
 
@@ -519,7 +529,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
 
                     if (userSuppliedValue == null) {
                         // add column & value
-                        updatedColumns.put(reference.column().fqn(), generatedValue);
+                        generatedValues.put(reference.column().fqn(), generatedValue);
                     } else if (validateConstraints &&
                                reference.valueType().compareValueTo(generatedValue, userSuppliedValue) != 0) {
                         throw new IllegalArgumentException(String.format(Locale.ENGLISH,
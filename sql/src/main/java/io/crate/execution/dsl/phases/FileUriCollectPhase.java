@@ -39,11 +39,20 @@ import java.util.UUID;
 
 public class FileUriCollectPhase extends AbstractProjectionsPhase implements CollectPhase {
 
+    /**
+     * The format of the files: one JSON object per line or comma separated values with a header line.
+     */
+    public enum InputFormat {
+        JSON,
+        CSV
+    }
+
     private final Collection<String> executionNodes;
     private final Symbol targetUri;
     private final List<Symbol> toCollect;
     private final String compression;
     private final Boolean sharedStorage;
+    private final InputFormat inputFormat;
     private DistributionInfo distributionInfo = DistributionInfo.DEFAULT_BROADCAST;
 
     public FileUriCollectPhase(UUID jobId,
@@ -54,13 +63,15 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
                                List<Symbol> toCollect,
                                List<Projection> projections,
                                String compression,
-                               Boolean sharedStorage) {
+                               Boolean sharedStorage,
+                               InputFormat inputFormat) {
         super(jobId, phaseId, name, projections);
         this.executionNodes = executionNodes;
         this.targetUri = targetUri;
         this.toCollect = toCollect;
         this.compression = compression;
         this.sharedStorage = sharedStorage;
+        this.inputFormat = inputFormat;
         outputTypes = extractOutputTypes(toCollect, projections);
     }
 
@@ -96,6 +107,7 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
         super(in);
         compression = in.readOptionalString();
         sharedStorage = in.readOptionalBoolean();
+        inputFormat = InputFormat.values()[in.readVInt()];
         targetUri = Symbols.fromStream(in);
 
         int numNodes = in.readVInt();
@@ -112,6 +124,7 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
         super.writeTo(out);
         out.writeOptionalString(compression);
         out.writeOptionalBoolean(sharedStorage);
+        out.writeVInt(inputFormat.ordinal());
         Symbols.toStream(targetUri, out);
         out.writeVInt(executionNodes.size());
         for (String node : executionNodes) {
@@ -129,6 +142,7 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
             .add("outputTypes", outputTypes)
             .add("compression", compression)
             .add("sharedStorageDefault", sharedStorage)
+            .add("inputFormat", inputFormat)
             .toString();
     }
 
@@ -137,6 +151,10 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
         return sharedStorage;
     }
 
+    public InputFormat inputFormat() {
+        return inputFormat;
+    }
+
     @Override
     public DistributionInfo distributionInfo() {
         return distributionInfo;
@@ -43,6 +43,7 @@ public class HashJoinPhase extends JoinPhase {
     private final List<Symbol> rightJoinConditionInputs;
 
     private final Collection<DataType> leftOutputTypes;
+    private final Collection<DataType> rightOutputTypes;
     private final long estimatedRowSizeForLeft;
     private final long numberOfRowsForLeft;
 
@@ -59,6 +60,7 @@ public class HashJoinPhase extends JoinPhase {
                          List<Symbol> leftJoinConditionInputs,
                          List<Symbol> rightJoinConditionInputs,
                          Collection<DataType> leftOutputTypes,
+                         Collection<DataType> rightOutputTypes,
                          long estimatedRowSizeForLeft,
                          long numberOfRowsForLeft) {
         super(
@@ -77,6 +79,7 @@ public class HashJoinPhase extends JoinPhase {
         this.leftJoinConditionInputs = leftJoinConditionInputs;
         this.rightJoinConditionInputs = rightJoinConditionInputs;
         this.leftOutputTypes = leftOutputTypes;
+        this.rightOutputTypes = rightOutputTypes;
         this.estimatedRowSizeForLeft = estimatedRowSizeForLeft;
         this.numberOfRowsForLeft = numberOfRowsForLeft;
     }
@@ -87,6 +90,7 @@ public class HashJoinPhase extends JoinPhase {
         leftJoinConditionInputs = Symbols.listFromStream(in);
         rightJoinConditionInputs = Symbols.listFromStream(in);
         leftOutputTypes = DataTypes.listFromStream(in);
+        rightOutputTypes = DataTypes.listFromStream(in);
 
         estimatedRowSizeForLeft = in.readVLong();
         numberOfRowsForLeft = in.readVLong();
@@ -99,6 +103,7 @@ public class HashJoinPhase extends JoinPhase {
         Symbols.toStream(leftJoinConditionInputs, out);
         Symbols.toStream(rightJoinConditionInputs, out);
         DataTypes.toStream(leftOutputTypes, out);
+        DataTypes.toStream(rightOutputTypes, out);
 
         out.writeVLong(estimatedRowSizeForLeft);
         out.writeVLong(numberOfRowsForLeft);
@@ -126,6 +131,10 @@ public class HashJoinPhase extends JoinPhase {
         return leftOutputTypes;
     }
 
+    public Collection<DataType> rightOutputTypes() {
+        return rightOutputTypes;
+    }
+
     public long estimatedRowSizeForLeft() {
         return estimatedRowSizeForLeft;
     }
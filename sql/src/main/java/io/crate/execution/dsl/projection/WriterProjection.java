@@ -67,7 +67,7 @@ public class WriterProjection extends Projection {
         new FunctionIdent(FormatFunction.NAME, Arrays.<DataType>asList(StringType.INSTANCE,
             StringType.INSTANCE, StringType.INSTANCE, StringType.INSTANCE)),
         StringType.INSTANCE),
-        Arrays.<Symbol>asList(Literal.of("%s_%s_%s.json"), TABLE_NAME_REF, SHARD_ID_REF, PARTITION_IDENT_REF)
+        Arrays.<Symbol>asList(Literal.of("%s_%s_%s"), TABLE_NAME_REF, SHARD_ID_REF, PARTITION_IDENT_REF)
     );
 
     private Symbol uri;
@@ -86,7 +86,8 @@ public class WriterProjection extends Projection {
 
     public enum OutputFormat {
         JSON_OBJECT,
-        JSON_ARRAY
+        JSON_ARRAY,
+        PARQUET
     }
 
     private CompressionType compressionType;
@@ -95,6 +96,11 @@ public class WriterProjection extends Projection {
         GZIP
     }
 
+    /**
+     * Size in bytes after which the output is rolled over to a new file; null if the output is written to a single file
+     */
+    @Nullable
+    private Long maxFileSize;
 
 
     public WriterProjection(List<Symbol> inputs,
@@ -102,13 +108,15 @@ public class WriterProjection extends Projection {
                             @Nullable CompressionType compressionType,
                             Map<ColumnIdent, Symbol> overwrites,
                             @Nullable List<String> outputNames,
-                            OutputFormat outputFormat) {
+                            OutputFormat outputFormat,
+                            @Nullable Long maxFileSize) {
         this.inputs = inputs;
         this.uri = uri;
         this.overwrites = overwrites;
         this.outputNames = outputNames;
         this.outputFormat = outputFormat;
         this.compressionType = compressionType;
+        this.maxFileSize = maxFileSize;
     }
 
     public WriterProjection(StreamInput in) throws IOException {
@@ -129,6 +137,9 @@ public class WriterProjection extends Projection {
         int compressionTypeOrdinal = in.readInt();
         compressionType = compressionTypeOrdinal >= 0 ? CompressionType.values()[compressionTypeOrdinal] : null;
         outputFormat = OutputFormat.values()[in.readInt()];
+        if (in.readBoolean()) {
+            maxFileSize = in.readVLong();
+        }
     }
 
     @Override
@@ -178,6 +189,11 @@ public class WriterProjection extends Projection {
         return compressionType;
     }
 
+    @Nullable
+    public Long maxFileSize() {
+        return maxFileSize;
+    }
+
     @Override
     public <C, R> R accept(ProjectionVisitor<C, R> visitor, C context) {
         return visitor.visitWriterProjection(this, context);
@@ -204,6 +220,10 @@ public class WriterProjection extends Projection {
         }
         out.writeInt(compressionType != null ? compressionType.ordinal() : -1);
         out.writeInt(outputFormat.ordinal());
+        out.writeBoolean(maxFileSize != null);
+        if (maxFileSize != null) {
+            out.writeVLong(maxFileSize);
+        }
     }
 
     @Override
@@ -220,6 +240,8 @@ public class WriterProjection extends Projection {
         if (compressionType != null ? !compressionType.equals(that.compressionType) : that.compressionType != null)
             return false;
         if (!outputFormat.equals(that.outputFormat)) return false;
+        if (maxFileSize != null ? !maxFileSize.equals(that.maxFileSize) : that.maxFileSize != null)
+            return false;
 
         return true;
     }
@@ -232,6 +254,7 @@ public class WriterProjection extends Projection {
         result = 31 * result + overwrites.hashCode();
         result = 31 * result + (compressionType != null ? compressionType.hashCode() : 0);
         result = 31 * result + outputFormat.hashCode();
+        result = 31 * result + (maxFileSize != null ? maxFileSize.hashCode() : 0);
         return result;
     }
 
@@ -242,6 +265,7 @@ public class WriterProjection extends Projection {
                ", outputNames=" + outputNames +
                ", compressionType=" + compressionType +
                ", outputFormat=" + outputFormat +
+               ", maxFileSize=" + maxFileSize +
                '}';
     }
 
@@ -254,7 +278,8 @@ public class WriterProjection extends Projection {
                 compressionType,
                 overwrites,
                 outputNames,
-                outputFormat
+                outputFormat,
+                maxFileSize
             );
         }
         return this;
@@ -151,8 +151,9 @@ public class ProjectionBuilder {
                                                     @Nullable WriterProjection.CompressionType compressionType,
                                                     Map<ColumnIdent, Symbol> overwrites,
                                                     @Nullable List<String> outputNames,
-                                                    WriterProjection.OutputFormat outputFormat) {
+                                                    WriterProjection.OutputFormat outputFormat,
+                                                    @Nullable Long maxFileSize) {
         return new WriterProjection(
-            InputColumn.fromSymbols(inputs), uri, compressionType, overwrites, outputNames, outputFormat);
+            InputColumn.fromSymbols(inputs), uri, compressionType, overwrites, outputNames, outputFormat, maxFileSize);
     }
 }
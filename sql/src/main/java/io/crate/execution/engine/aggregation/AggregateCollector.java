@@ -24,13 +24,17 @@ package io.crate.execution.engine.aggregation;
 
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.data.ColumnBatch;
+import io.crate.data.ColumnVector;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.execution.engine.aggregation.AggregationFunction;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.InputCollectExpression;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.util.BigArrays;
 
+import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -51,6 +55,7 @@ public class AggregateCollector implements Collector<Row, Object[], Object[]> {
     private final Version indexVersionCreated;
     private final BigArrays bigArrays;
     private final Input[][] inputs;
+    private final AggregateMode mode;
     private final BiConsumer<Object[], Row> accumulator;
     private final Function<Object[], Object[]> finisher;
 
@@ -67,6 +72,7 @@ public class AggregateCollector implements Collector<Row, Object[], Object[]> {
         this.indexVersionCreated = indexVersionCreated;
         this.bigArrays = bigArrays;
         this.inputs = inputs;
+        this.mode = mode;
         switch (mode) {
             case ITER_PARTIAL:
                 accumulator = this::iterate;
@@ -98,6 +104,42 @@ public class AggregateCollector implements Collector<Row, Object[], Object[]> {
         return accumulator;
     }
 
+    /**
+     * Creates an accumulator which aggregates whole {@link ColumnBatch}es using
+     * {@link AggregationFunction#iterateBatch(RamAccountingContext, Object, ColumnBatch, ColumnVector...)}.
+     *
+     * @return the accumulator or null if batches can't be aggregated directly because an argument isn't a plain
+     *         column reference or the states are being reduced.
+     */
+    @Nullable
+    public BiConsumer<Object[], ColumnBatch> batchAccumulator() {
+        if (mode == AggregateMode.PARTIAL_FINAL) {
+            return null;
+        }
+        int[][] argColumns = new int[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            Input[] aggInputs = inputs[i];
+            argColumns[i] = new int[aggInputs.length];
+            for (int j = 0; j < aggInputs.length; j++) {
+                if (aggInputs[j] instanceof InputCollectExpression) {
+                    argColumns[i][j] = ((InputCollectExpression) aggInputs[j]).position();
+                } else {
+                    return null;
+                }
+            }
+        }
+        return (state, batch) -> {
+            for (int i = 0; i < aggregations.length; i++) {
+                int[] columns = argColumns[i];
+                ColumnVector[] args = new ColumnVector[columns.length];
+                for (int j = 0; j < columns.length; j++) {
+                    args[j] = batch.column(columns[j]);
+                }
+                state[i] = aggregations[i].iterateBatch(ramAccounting, state[i], batch, args);
+            }
+        };
+    }
+
     @Override
     public BinaryOperator<Object[]> combiner() {
         return (state1, state2) -> {
@@ -23,6 +23,8 @@
 package io.crate.execution.engine.aggregation;
 
 import io.crate.breaker.RamAccountingContext;
+import io.crate.data.ColumnBatch;
+import io.crate.data.ColumnVector;
 import io.crate.data.Input;
 import io.crate.metadata.FunctionImplementation;
 import io.crate.types.DataType;
@@ -66,6 +68,33 @@ public abstract class AggregationFunction<TPartial, TFinal> implements FunctionI
     public abstract TPartial iterate(RamAccountingContext ramAccountingContext, TPartial state, Input... args)
         throws CircuitBreakingException;
 
+    /**
+     * Aggregates all selected rows of a {@link ColumnBatch}.
+     *
+     * The default implementation calls {@link #iterate(RamAccountingContext, Object, Input[])} for each selected row.
+     * Implementations can override it to aggregate the values of the vectors in a tight loop.
+     *
+     * @param args the vectors of the arguments, matching the types of FunctionInfo.argumentTypes
+     * @return The new/changed state, see {@link #iterate(RamAccountingContext, Object, Input[])}
+     */
+    public TPartial iterateBatch(RamAccountingContext ramAccountingContext,
+                                 TPartial state,
+                                 ColumnBatch batch,
+                                 ColumnVector... args) throws CircuitBreakingException {
+        VectorInput[] inputs = new VectorInput[args.length];
+        for (int i = 0; i < args.length; i++) {
+            inputs[i] = new VectorInput(args[i]);
+        }
+        for (int i = 0, numSelected = batch.numSelected(); i < numSelected; i++) {
+            int position = batch.position(i);
+            for (VectorInput input : inputs) {
+                input.position = position;
+            }
+            state = iterate(ramAccountingContext, state, inputs);
+        }
+        return state;
+    }
+
     /**
      * This function merges two aggregation states together and returns that merged state.
      * <p>
@@ -82,4 +111,19 @@ public abstract class AggregationFunction<TPartial, TFinal> implements FunctionI
     public abstract TFinal terminatePartial(RamAccountingContext ramAccountingContext, TPartial state);
 
     public abstract DataType partialType();
+
+    private static class VectorInput implements Input<Object> {
+
+        private final ColumnVector vector;
+        private int position;
+
+        VectorInput(ColumnVector vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public Object value() {
+            return vector.get(position);
+        }
+    }
 }
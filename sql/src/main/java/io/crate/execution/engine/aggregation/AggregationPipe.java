@@ -26,6 +26,9 @@ import io.crate.expression.symbol.AggregateMode;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.data.BatchIterator;
 import io.crate.data.CollectingBatchIterator;
+import io.crate.data.ColumnBatch;
+import io.crate.data.ColumnarBatchIterator;
+import io.crate.data.ColumnarBatchIterators;
 import io.crate.data.Input;
 import io.crate.data.Projector;
 import io.crate.data.Row;
@@ -36,6 +39,8 @@ import org.elasticsearch.common.util.BigArrays;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
@@ -75,6 +80,24 @@ public class AggregationPipe implements Projector {
                 Row row = new RowN(cells);
                 return Collections.singletonList(row);
             });
+        if (batchIterator instanceof ColumnarBatchIterator) {
+            ColumnarBatchIterator columnarIt = (ColumnarBatchIterator) batchIterator;
+            BiConsumer<Object[], ColumnBatch> batchAccumulator = collector.batchAccumulator();
+            if (batchAccumulator == null) {
+                return CollectingBatchIterator.newInstance(
+                    batchIterator,
+                    bi -> ColumnarBatchIterators.collect(columnarIt, collectAndConvertToRows));
+            }
+            return CollectingBatchIterator.newInstance(
+                batchIterator,
+                bi -> ColumnarBatchIterators.collect(
+                    columnarIt,
+                    collector.supplier().get(),
+                    batchAccumulator,
+                    collector.finisher().andThen(cells -> Collections.singletonList(new RowN(cells))),
+                    new CompletableFuture<>()
+                ));
+        }
         return CollectingBatchIterator.newInstance(batchIterator, collectAndConvertToRows);
     }
 
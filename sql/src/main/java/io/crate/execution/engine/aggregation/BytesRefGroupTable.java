@@ -0,0 +1,169 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.data.Input;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * {@link GroupTable} for a single key of type string.
+ *
+ * The bytes of all keys are copied into a single byte array (arena), a group only keeps the offset and
+ * length of its key within that arena.
+ */
+final class BytesRefGroupTable extends GroupTable {
+
+    private static final int BYTES_PER_SLOT = Integer.BYTES + Integer.BYTES;
+    private static final int BYTES_PER_GROUP = Integer.BYTES + Integer.BYTES;
+    private static final int INITIAL_ARENA_SIZE = 1024;
+
+    private final Input<?> keyInput;
+
+    private int[] slotHashes;
+    // group id + 1 per slot; 0 marks an empty slot
+    private int[] slotIds;
+    private int mask;
+    private int resizeAt;
+    private int assigned = 0;
+
+    private byte[] arena;
+    private int arenaSize = 0;
+    private int[] offsets;
+    private int[] lengths;
+    private int nullKeyId = -1;
+
+    BytesRefGroupTable(Input<?> keyInput, RamAccountingContext ramAccountingContext) {
+        super(ramAccountingContext);
+        this.keyInput = keyInput;
+        ramAccountingContext.addBytes(
+            INITIAL_CAPACITY * (long) (BYTES_PER_SLOT + BYTES_PER_GROUP) + INITIAL_ARENA_SIZE);
+        slotHashes = new int[INITIAL_CAPACITY];
+        slotIds = new int[INITIAL_CAPACITY];
+        offsets = new int[INITIAL_CAPACITY];
+        lengths = new int[INITIAL_CAPACITY];
+        arena = new byte[INITIAL_ARENA_SIZE];
+        mask = INITIAL_CAPACITY - 1;
+        resizeAt = resizeThreshold(INITIAL_CAPACITY);
+    }
+
+    @Override
+    int addCurrentKey() {
+        BytesRef key = (BytesRef) keyInput.value();
+        if (key == null) {
+            if (nullKeyId == -1) {
+                nullKeyId = newGroupWithOffsets();
+                return -1 - nullKeyId;
+            }
+            return nullKeyId;
+        }
+        int hash = key.hashCode();
+        int slot = mix(hash) & mask;
+        int idPlusOne;
+        while ((idPlusOne = slotIds[slot]) != 0) {
+            if (slotHashes[slot] == hash && keyEquals(idPlusOne - 1, key)) {
+                return idPlusOne - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = newKey(key);
+        slotHashes[slot] = hash;
+        slotIds[slot] = id + 1;
+        if (++assigned > resizeAt) {
+            rehash();
+        }
+        return -1 - id;
+    }
+
+    private boolean keyEquals(int id, BytesRef key) {
+        int length = lengths[id];
+        if (length != key.length) {
+            return false;
+        }
+        int offset = offsets[id];
+        byte[] bytes = key.bytes;
+        int keyOffset = key.offset;
+        for (int i = 0; i < length; i++) {
+            if (arena[offset + i] != bytes[keyOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int newGroupWithOffsets() {
+        int id = newGroup();
+        if (id == offsets.length) {
+            int[] newOffsets = ArrayUtil.grow(offsets, id + 1);
+            ramAccountingContext.addBytes((newOffsets.length - offsets.length) * (long) BYTES_PER_GROUP);
+            offsets = newOffsets;
+            lengths = ArrayUtil.grow(lengths, newOffsets.length);
+        }
+        return id;
+    }
+
+    private int newKey(BytesRef key) {
+        int id = newGroupWithOffsets();
+        int requiredSize = arenaSize + key.length;
+        if (requiredSize > arena.length) {
+            byte[] newArena = ArrayUtil.grow(arena, requiredSize);
+            ramAccountingContext.addBytes(newArena.length - arena.length);
+            arena = newArena;
+        }
+        System.arraycopy(key.bytes, key.offset, arena, arenaSize, key.length);
+        offsets[id] = arenaSize;
+        lengths[id] = key.length;
+        arenaSize = requiredSize;
+        return id;
+    }
+
+    private void rehash() {
+        int newCapacity = nextCapacity(slotIds.length);
+        ramAccountingContext.addBytes((newCapacity - slotIds.length) * (long) BYTES_PER_SLOT);
+        int[] oldHashes = slotHashes;
+        int[] oldIds = slotIds;
+        slotHashes = new int[newCapacity];
+        slotIds = new int[newCapacity];
+        mask = newCapacity - 1;
+        resizeAt = resizeThreshold(newCapacity);
+        for (int i = 0; i < oldIds.length; i++) {
+            int idPlusOne = oldIds[i];
+            if (idPlusOne != 0) {
+                int hash = oldHashes[i];
+                int slot = mix(hash) & mask;
+                while (slotIds[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slotHashes[slot] = hash;
+                slotIds[slot] = idPlusOne;
+            }
+        }
+    }
+
+    @Override
+    void applyKey(int id, Object[] cells) {
+        // the arena isn't modified anymore once the rows are emitted, so it's safe to reference it
+        cells[0] = id == nullKeyId ? null : new BytesRef(arena, offsets[id], lengths[id]);
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import com.google.common.io.CountingInputStream;
+import io.crate.Streamer;
+import io.crate.execution.engine.spill.SpillContext;
+import io.crate.types.DataType;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes the groups of a {@link GroupTable} to spill files.
+ *
+ * The groups are partitioned by the hash of their keys, so all states of a key end up in the same partition
+ * no matter how often the table has been spilled. This allows to re-aggregate the partitions one after another.
+ *
+ * A spilled group is written as the key cells followed by the aggregation states,
+ * using the streamers of the key types and the partial types of the aggregations.
+ *
+ * A partition which doesn't fit into memory can be spilled again into a {@link #subSpill()} which partitions the
+ * groups by the next bits of the hash of their keys.
+ */
+final class GroupSpill implements Closeable {
+
+    private static final int PARTITION_BITS = 4;
+    static final int NUM_PARTITIONS = 1 << PARTITION_BITS;
+    private static final int MAX_LEVEL = Integer.SIZE / PARTITION_BITS - 1;
+
+    private final SpillContext spillContext;
+    private final int level;
+    private final Path directory;
+    private final Streamer[] keyStreamers;
+    private final Streamer[] stateStreamers;
+    private final Path[] files = new Path[NUM_PARTITIONS];
+    private final StreamOutput[] outputs = new StreamOutput[NUM_PARTITIONS];
+    private final int[] numGroups = new int[NUM_PARTITIONS];
+    private final Object[] keyCells;
+    private long reportedBytes = 0L;
+    private int reportedPartitions = 0;
+
+    GroupSpill(SpillContext spillContext,
+               List<? extends DataType> keyTypes,
+               AggregationFunction[] aggregations) throws IOException {
+        this(spillContext, keyStreamers(keyTypes), stateStreamers(aggregations), 0);
+    }
+
+    private GroupSpill(SpillContext spillContext,
+                       Streamer[] keyStreamers,
+                       Streamer[] stateStreamers,
+                       int level) throws IOException {
+        this.spillContext = spillContext;
+        this.keyStreamers = keyStreamers;
+        this.stateStreamers = stateStreamers;
+        this.level = level;
+        keyCells = new Object[keyStreamers.length];
+        directory = spillContext.createTempDirectory("group-by");
+    }
+
+    private static Streamer[] keyStreamers(List<? extends DataType> keyTypes) {
+        Streamer[] keyStreamers = new Streamer[keyTypes.size()];
+        for (int i = 0; i < keyStreamers.length; i++) {
+            keyStreamers[i] = keyTypes.get(i).streamer();
+        }
+        return keyStreamers;
+    }
+
+    private static Streamer[] stateStreamers(AggregationFunction[] aggregations) {
+        Streamer[] stateStreamers = new Streamer[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            stateStreamers[i] = aggregations[i].partialType().streamer();
+        }
+        return stateStreamers;
+    }
+
+    /**
+     * @return true if a partition of this spill can be spilled again; false once all bits of the hash have been used
+     */
+    boolean canSubSpill() {
+        return level < MAX_LEVEL;
+    }
+
+    /**
+     * Creates a spill for the groups of a single partition of this spill.
+     */
+    GroupSpill subSpill() throws IOException {
+        assert canSubSpill() : "all bits of the hash are used by the partitions";
+        return new GroupSpill(spillContext, keyStreamers, stateStreamers, level + 1);
+    }
+
+    /**
+     * Appends all groups of the table to the partitions.
+     */
+    void spill(GroupTable groups) throws IOException {
+        for (int id = 0; id < groups.size(); id++) {
+            groups.applyKey(id, keyCells);
+            int partition = partition(keyCells);
+            StreamOutput out = output(partition);
+            for (int i = 0; i < keyStreamers.length; i++) {
+                keyStreamers[i].writeValueTo(out, keyCells[i]);
+            }
+            Object[] states = groups.states(id);
+            for (int i = 0; i < stateStreamers.length; i++) {
+                stateStreamers[i].writeValueTo(out, states[i]);
+            }
+            numGroups[partition]++;
+        }
+        long bytes = 0L;
+        int numPartitions = 0;
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (outputs[i] != null) {
+                outputs[i].flush();
+                bytes += Files.size(files[i]);
+                numPartitions++;
+            }
+        }
+        spillContext.onSpilled(bytes - reportedBytes, numPartitions - reportedPartitions);
+        reportedBytes = bytes;
+        reportedPartitions = numPartitions;
+    }
+
+    private int partition(Object[] keyCells) {
+        int hash = 1;
+        for (Object keyCell : keyCells) {
+            int cellHash = keyCell instanceof Object[] ? Arrays.deepHashCode((Object[]) keyCell) : Objects.hashCode(keyCell);
+            hash = 31 * hash + cellHash;
+        }
+        return (GroupTable.mix(hash) >>> (level * PARTITION_BITS)) & (NUM_PARTITIONS - 1);
+    }
+
+    private StreamOutput output(int partition) throws IOException {
+        StreamOutput out = outputs[partition];
+        if (out == null) {
+            Path file = directory.resolve("partition-" + partition);
+            out = new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(file)));
+            files[partition] = file;
+            outputs[partition] = out;
+        }
+        return out;
+    }
+
+    /**
+     * Closes the outputs, must be called before the partitions are read.
+     */
+    void finishWriting() throws IOException {
+        IOUtils.close(outputs);
+    }
+
+    int numGroups(int partition) {
+        return numGroups[partition];
+    }
+
+    PartitionReader openPartition(int partition) throws IOException {
+        assert files[partition] != null : "partition must have been written";
+        return new PartitionReader(new BufferedInputStream(Files.newInputStream(files[partition])));
+    }
+
+    /**
+     * Reads the groups of a partition and keeps track of the number of bytes read,
+     * which is used as estimate of the memory required by the states that are read.
+     */
+    final class PartitionReader implements Closeable {
+
+        private final CountingInputStream countingInputStream;
+        private final StreamInput in;
+
+        private PartitionReader(BufferedInputStream inputStream) {
+            countingInputStream = new CountingInputStream(inputStream);
+            in = new InputStreamStreamInput(countingInputStream);
+        }
+
+        void readKey(Object[] cells) throws IOException {
+            for (int i = 0; i < keyStreamers.length; i++) {
+                cells[i] = keyStreamers[i].readValueFrom(in);
+            }
+        }
+
+        Object[] readStates() throws IOException {
+            Object[] states = new Object[stateStreamers.length];
+            for (int i = 0; i < stateStreamers.length; i++) {
+                states[i] = stateStreamers[i].readValueFrom(in);
+            }
+            return states;
+        }
+
+        long bytesRead() {
+            return countingInputStream.getCount();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            IOUtils.close(outputs);
+        } finally {
+            IOUtils.rm(directory);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.data.Input;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash table used by the {@link GroupingCollector} to map the group keys of incoming rows to the
+ * aggregation states of the group.
+ *
+ * Groups are identified by a dense id which is assigned in insertion order; the states are stored in a plain
+ * array indexed by that id. The way keys are stored and looked up is up to the implementations, which are
+ * specialized per key type to avoid boxing keys and allocating an entry object per group:
+ *
+ * <ul>
+ *     <li>{@link LongGroupTable}: long and timestamp keys</li>
+ *     <li>{@link IntGroupTable}: integer, short and byte keys</li>
+ *     <li>{@link BytesRefGroupTable}: string keys, with the key bytes copied into an arena</li>
+ *     <li>{@link PackedGroupTable}: multiple fixed width keys, packed into fixed width slots</li>
+ *     <li>{@link ObjectGroupTable}: fallback for all other keys</li>
+ * </ul>
+ *
+ * The specialized implementations use open addressing with linear probing.
+ * All memory used by the table is accounted in the given {@link RamAccountingContext}.
+ */
+abstract class GroupTable {
+
+    static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    final RamAccountingContext ramAccountingContext;
+    private Object[][] states = new Object[INITIAL_CAPACITY][];
+    private int size = 0;
+
+    GroupTable(RamAccountingContext ramAccountingContext) {
+        this.ramAccountingContext = ramAccountingContext;
+        ramAccountingContext.addBytes(shallowSizeOfRefs(INITIAL_CAPACITY));
+    }
+
+    static GroupTable forKey(Input<?> keyInput, DataType keyType, RamAccountingContext ramAccountingContext) {
+        switch (keyType.id()) {
+            case LongType.ID:
+            case TimestampType.ID:
+                return new LongGroupTable(keyInput, ramAccountingContext);
+
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+                return new IntGroupTable(keyInput, keyType, ramAccountingContext);
+
+            case StringType.ID:
+                return new BytesRefGroupTable(keyInput, ramAccountingContext);
+
+            default:
+                return ObjectGroupTable.singleKey(keyInput, keyType, ramAccountingContext);
+        }
+    }
+
+    static GroupTable forKeys(List<Input<?>> keyInputs,
+                              List<? extends DataType> keyTypes,
+                              RamAccountingContext ramAccountingContext) {
+        if (PackedGroupTable.supports(keyTypes)) {
+            return new PackedGroupTable(keyInputs, keyTypes, ramAccountingContext);
+        }
+        return ObjectGroupTable.manyKeys(keyInputs, keyTypes, ramAccountingContext);
+    }
+
+    /**
+     * Reads the key(s) of the current row from the key inputs and looks up the group.
+     *
+     * @return the id of the group if it already existed, otherwise {@code -1 - id} of the newly created group.
+     *         The states of a newly created group must be set using {@link #states(int, Object[])}.
+     */
+    abstract int addCurrentKey();
+
+    /**
+     * Writes the key(s) of the group with the given id into the first cells.
+     */
+    abstract void applyKey(int id, Object[] cells);
+
+    final int size() {
+        return size;
+    }
+
+    final Object[] states(int id) {
+        return states[id];
+    }
+
+    final void states(int id, Object[] groupStates) {
+        states[id] = groupStates;
+    }
+
+    /**
+     * Assigns the id for a new group
+     */
+    final int newGroup() {
+        int id = size;
+        if (id == states.length) {
+            int newLength = ArrayUtil.oversize(id + 1, RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+            ramAccountingContext.addBytes(shallowSizeOfRefs(newLength - states.length));
+            states = Arrays.copyOf(states, newLength);
+        }
+        size++;
+        return id;
+    }
+
+    static long shallowSizeOfRefs(int numRefs) {
+        return (long) numRefs * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+    }
+
+    static int resizeThreshold(int capacity) {
+        return capacity == MAX_CAPACITY ? MAX_CAPACITY - 1 : (int) (capacity * LOAD_FACTOR);
+    }
+
+    static int nextCapacity(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Maximum number of groups reached: " + resizeThreshold(capacity));
+        }
+        return capacity << 1;
+    }
+
+    /**
+     * Finalization step of murmur3 to spread the bits of the key before masking it to the slot index.
+     */
+    static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -25,22 +25,24 @@ package io.crate.execution.engine.aggregation;
 import com.google.common.collect.Iterables;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.breaker.RamAccountingContext;
-import io.crate.breaker.SizeEstimator;
-import io.crate.breaker.SizeEstimatorFactory;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.data.RowN;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillContext;
 import io.crate.types.DataType;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.util.BigArrays;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
@@ -52,82 +54,103 @@ import java.util.stream.Collector;
  * Collector implementation which uses {@link AggregateMode}s and {@code keyInputs}
  * to group rows by key and aggregate the grouped values.
  *
- * @param <K> type of the key
+ * The groups are kept in a {@link GroupTable} which is specialized depending on the types of the keys.
+ *
+ * If a {@link SpillContext} is given and the memory accounted for the groups reaches the spill threshold,
+ * the groups are written to disk using a {@link GroupSpill} and collecting continues with an empty table.
+ * On finish the spilled partitions are read back and re-aggregated one after another,
+ * so only the groups of a single partition must fit into memory at once; partitions which don't are spilled again.
+ * The spill files are deleted on {@link #close()}.
  */
-public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, Iterable<Row>> {
+public class GroupingCollector implements Collector<Row, GroupingCollector.Groups, Iterable<Row>> {
 
     private final CollectExpression<Row, ?>[] expressions;
     private final AggregationFunction[] aggregations;
     private final AggregateMode mode;
     private final Input[][] inputs;
     private final RamAccountingContext ramAccountingContext;
-    private final BiConsumer<K, Object[]> applyKeyToCells;
-    private final int numKeyColumns;
-    private final SizeEstimator<K> keySizeEstimator;
-    private final Function<Row, K> keyExtractor;
+    private final List<Input<?>> keyInputs;
+    private final List<? extends DataType> keyTypes;
+    private final Function<List<Input<?>>, GroupTable> groupTableFactory;
     private final Version indexVersionCreated;
     private final BigArrays bigArrays;
 
-    static GroupingCollector<Object> singleKey(CollectExpression<Row, ?>[] expressions,
-                                               AggregateMode mode,
-                                               AggregationFunction[] aggregations,
-                                               Input[][] inputs,
-                                               RamAccountingContext ramAccountingContext,
-                                               Input<?> keyInput,
-                                               DataType keyType,
-                                               Version indexVersionCreated,
-                                               BigArrays bigArrays) {
-        return new GroupingCollector<>(
+    @Nullable
+    private final SpillContext spillContext;
+    private final long spillThreshold;
+    private final List<GroupSpill> spills = new ArrayList<>();
+
+    static GroupingCollector singleKey(CollectExpression<Row, ?>[] expressions,
+                                       AggregateMode mode,
+                                       AggregationFunction[] aggregations,
+                                       Input[][] inputs,
+                                       RamAccountingContext ramAccountingContext,
+                                       Input<?> keyInput,
+                                       DataType keyType,
+                                       Version indexVersionCreated,
+                                       BigArrays bigArrays) {
+        return singleKey(
             expressions,
-            aggregations,
             mode,
+            aggregations,
             inputs,
             ramAccountingContext,
-            (key, cells) -> cells[0] = key,
-            1,
-            SizeEstimatorFactory.create(keyType),
-            row -> keyInput.value(),
+            keyInput,
+            keyType,
             indexVersionCreated,
-            bigArrays
+            bigArrays,
+            null
         );
     }
 
-    static GroupingCollector<List<Object>> manyKeys(CollectExpression<Row, ?>[] expressions,
-                                                    AggregateMode mode,
-                                                    AggregationFunction[] aggregations,
-                                                    Input[][] inputs,
-                                                    RamAccountingContext ramAccountingContext,
-                                                    List<Input<?>> keyInputs,
-                                                    List<? extends DataType> keyTypes,
-                                                    Version indexVersionCreated,
-                                                    BigArrays bigArrays) {
-        return new GroupingCollector<>(
+    static GroupingCollector singleKey(CollectExpression<Row, ?>[] expressions,
+                                       AggregateMode mode,
+                                       AggregationFunction[] aggregations,
+                                       Input[][] inputs,
+                                       RamAccountingContext ramAccountingContext,
+                                       Input<?> keyInput,
+                                       DataType keyType,
+                                       Version indexVersionCreated,
+                                       BigArrays bigArrays,
+                                       @Nullable SpillContext spillContext) {
+        return new GroupingCollector(
             expressions,
             aggregations,
             mode,
             inputs,
             ramAccountingContext,
-            GroupingCollector::applyKeysToCells,
-            keyInputs.size(),
-            new MultiSizeEstimator(keyTypes),
-            row -> evalKeyInputs(keyInputs),
+            Collections.singletonList(keyInput),
+            Collections.singletonList(keyType),
+            keys -> GroupTable.forKey(keys.get(0), keyType, ramAccountingContext),
             indexVersionCreated,
-            bigArrays
+            bigArrays,
+            spillContext
         );
     }
 
-    private static List<Object> evalKeyInputs(List<Input<?>> keyInputs) {
-        List<Object> key = new ArrayList<>(keyInputs.size());
-        for (Input<?> keyInput : keyInputs) {
-            key.add(keyInput.value());
-        }
-        return key;
-    }
-
-    private static void applyKeysToCells(List<Object> keys, Object[] cells) {
-        for (int i = 0; i < keys.size(); i++) {
-            cells[i] = keys.get(i);
-        }
+    static GroupingCollector manyKeys(CollectExpression<Row, ?>[] expressions,
+                                      AggregateMode mode,
+                                      AggregationFunction[] aggregations,
+                                      Input[][] inputs,
+                                      RamAccountingContext ramAccountingContext,
+                                      List<Input<?>> keyInputs,
+                                      List<? extends DataType> keyTypes,
+                                      Version indexVersionCreated,
+                                      BigArrays bigArrays,
+                                      @Nullable SpillContext spillContext) {
+        return new GroupingCollector(
+            expressions,
+            aggregations,
+            mode,
+            inputs,
+            ramAccountingContext,
+            keyInputs,
+            keyTypes,
+            keys -> GroupTable.forKeys(keys, keyTypes, ramAccountingContext),
+            indexVersionCreated,
+            bigArrays,
+            spillContext
+        );
     }
 
     private GroupingCollector(CollectExpression<Row, ?>[] expressions,
@@ -135,45 +158,67 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                               AggregateMode mode,
                               Input[][] inputs,
                               RamAccountingContext ramAccountingContext,
-                              BiConsumer<K, Object[]> applyKeyToCells,
-                              int numKeyColumns,
-                              SizeEstimator<K> keySizeEstimator,
-                              Function<Row, K> keyExtractor,
+                              List<Input<?>> keyInputs,
+                              List<? extends DataType> keyTypes,
+                              Function<List<Input<?>>, GroupTable> groupTableFactory,
                               Version indexVersionCreated,
-                              BigArrays bigArrays) {
+                              BigArrays bigArrays,
+                              @Nullable SpillContext spillContext) {
         this.expressions = expressions;
         this.aggregations = aggregations;
         this.mode = mode;
         this.inputs = inputs;
         this.ramAccountingContext = ramAccountingContext;
-        this.applyKeyToCells = applyKeyToCells;
-        this.numKeyColumns = numKeyColumns;
-        this.keySizeEstimator = keySizeEstimator;
-        this.keyExtractor = keyExtractor;
+        this.keyInputs = keyInputs;
+        this.keyTypes = keyTypes;
+        this.groupTableFactory = groupTableFactory;
         this.indexVersionCreated = indexVersionCreated;
         this.bigArrays = bigArrays;
+        this.spillContext = spillContext;
+        this.spillThreshold = spillContext == null ? Long.MAX_VALUE : spillContext.thresholdBytes(ramAccountingContext);
+    }
+
+    /**
+     * State of the collector: the groups in memory and the groups which have been spilled to disk.
+     */
+    static final class Groups {
+
+        private GroupTable table;
+        private long bytesBeforeTable;
+
+        @Nullable
+        private GroupSpill spill;
     }
 
     @Override
-    public Supplier<Map<K, Object[]>> supplier() {
-        return HashMap::new;
+    public Supplier<Groups> supplier() {
+        return () -> {
+            Groups groups = new Groups();
+            newTable(groups, keyInputs);
+            return groups;
+        };
+    }
+
+    private void newTable(Groups groups, List<Input<?>> keys) {
+        groups.bytesBeforeTable = ramAccountingContext.totalBytes();
+        groups.table = groupTableFactory.apply(keys);
     }
 
     @Override
-    public BiConsumer<Map<K, Object[]>, Row> accumulator() {
+    public BiConsumer<Groups, Row> accumulator() {
         return this::onNextRow;
     }
 
     @Override
-    public BinaryOperator<Map<K, Object[]>> combiner() {
+    public BinaryOperator<Groups> combiner() {
         return (state1, state2) -> {
             throw new UnsupportedOperationException("combine not supported");
         };
     }
 
     @Override
-    public Function<Map<K, Object[]>, Iterable<Row>> finisher() {
-        return this::mapToRows;
+    public Function<Groups, Iterable<Row>> finisher() {
+        return this::finish;
     }
 
     @Override
@@ -181,22 +226,26 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         return Collections.emptySet();
     }
 
-    private void onNextRow(Map<K, Object[]> statesByKey, Row row) {
+    private void onNextRow(Groups groups, Row row) {
         for (CollectExpression<Row, ?> expression : expressions) {
             expression.setNextRow(row);
         }
-        K key = keyExtractor.apply(row);
-        Object[] states = statesByKey.get(key);
-        if (states == null) {
-            addNewEntry(statesByKey, key);
+        GroupTable table = groups.table;
+        int id = table.addCurrentKey();
+        if (id < 0) {
+            addNewEntry(table, -1 - id);
         } else {
+            Object[] states = table.states(id);
             for (int i = 0; i < aggregations.length; i++) {
                 states[i] = mode.onRow(ramAccountingContext, aggregations[i], states[i], inputs[i]);
             }
         }
+        if (ramAccountingContext.totalBytes() - groups.bytesBeforeTable >= spillThreshold) {
+            spill(groups);
+        }
     }
 
-    private void addNewEntry(Map<K, Object[]> statesByKey, K key) {
+    private void addNewEntry(GroupTable groups, int id) {
         Object[] states;
         states = new Object[aggregations.length];
         for (int i = 0; i < aggregations.length; i++) {
@@ -205,61 +254,179 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                 ramAccountingContext, aggregation,
                 aggregation.newState(ramAccountingContext, indexVersionCreated, bigArrays), inputs[i]);
         }
-        // key size + 32 bytes for entry + 4 bytes for increased capacity
-        ramAccountingContext.addBytes(
-            RamAccountingContext.roundUp(keySizeEstimator.estimateSize(key) + 36L));
-        statesByKey.put(key, states);
+        groups.states(id, states);
     }
 
-    private Iterable<Row> mapToRows(Map<K, Object[]> statesByKey) {
-        return Iterables.transform(statesByKey.entrySet(), new com.google.common.base.Function<Map.Entry<K, Object[]>, Row>() {
+    private void spill(Groups groups) {
+        assert spillContext != null : "spillContext must not be null if groups are spilled";
+        try {
+            if (groups.spill == null) {
+                groups.spill = new GroupSpill(spillContext, keyTypes, aggregations);
+                spills.add(groups.spill);
+            }
+            groups.spill.spill(groups.table);
+        } catch (IOException e) {
+            closeQuietly(groups.spill);
+            throw new UncheckedIOException(e);
+        }
+        releaseTable(groups);
+        newTable(groups, keyInputs);
+    }
 
-            RowN row = new RowN(numKeyColumns + aggregations.length);
-            Object[] cells = new Object[row.numColumns()];
+    private void releaseTable(Groups groups) {
+        groups.table = null;
+        ramAccountingContext.releaseBytes(ramAccountingContext.totalBytes() - groups.bytesBeforeTable);
+    }
 
-            {
-                row.cells(cells);
+    private Iterable<Row> finish(Groups groups) {
+        GroupSpill spill = groups.spill;
+        if (spill == null) {
+            return groupsToRows(groups.table);
+        }
+        try {
+            if (groups.table.size() > 0) {
+                spill.spill(groups.table);
             }
+            spill.finishWriting();
+        } catch (IOException e) {
+            closeQuietly(spill);
+            throw new UncheckedIOException(e);
+        }
+        releaseTable(groups);
+        return readPartitions(groups, spill);
+    }
 
-            @Nullable
-            @Override
-            public Row apply(@Nullable Map.Entry<K, Object[]> input) {
-                assert input != null : "input must not be null";
+    private Iterable<Row> readPartitions(Groups groups, GroupSpill spill) {
+        List<Integer> partitions = new ArrayList<>(GroupSpill.NUM_PARTITIONS);
+        for (int i = 0; i < GroupSpill.NUM_PARTITIONS; i++) {
+            if (spill.numGroups(i) > 0) {
+                partitions.add(i);
+            }
+        }
+        return Iterables.concat(Iterables.transform(partitions, partition -> {
+            // the groups of the previous partition have been consumed at this point
+            if (groups.table != null) {
+                releaseTable(groups);
+            }
+            try {
+                return readPartition(groups, spill, partition);
+            } catch (IOException e) {
+                closeQuietly(spill);
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
 
-                applyKeyToCells.accept(input.getKey(), cells);
-                int c = numKeyColumns;
-                Object[] states = input.getValue();
-                for (int i = 0; i < states.length; i++) {
-                    cells[c] = mode.finishCollect(ramAccountingContext, aggregations[i], states[i]);
-                    c++;
+    /**
+     * Deletes the spill files, if any. Must be called once the result of the collector is no longer used.
+     */
+    void close() {
+        for (GroupSpill spill : spills) {
+            closeQuietly(spill);
+        }
+        spills.clear();
+    }
+
+    /**
+     * Re-aggregates the groups of a spilled partition into a new table of {@code groups}.
+     *
+     * The states read back are accounted like the states of newly collected groups. If the groups of the partition
+     * reach the spill threshold again, they're spilled into sub-partitions which are re-aggregated one after another.
+     * If the circuit breaker trips anyway, the memory of the table is released and the exception is propagated.
+     */
+    private Iterable<Row> readPartition(Groups groups, GroupSpill spill, int partition) throws IOException {
+        Object[] keyCells = new Object[keyTypes.size()];
+        List<Input<?>> spilledKeyInputs = new ArrayList<>(keyCells.length);
+        for (int i = 0; i < keyCells.length; i++) {
+            int keyIdx = i;
+            spilledKeyInputs.add(() -> keyCells[keyIdx]);
+        }
+        newTable(groups, spilledKeyInputs);
+
+        GroupSpill subSpill = null;
+        int numGroups = spill.numGroups(partition);
+        try (GroupSpill.PartitionReader reader = spill.openPartition(partition)) {
+            for (int n = 0; n < numGroups; n++) {
+                reader.readKey(keyCells);
+                long bytesBeforeStates = reader.bytesRead();
+                Object[] spilledStates = reader.readStates();
+                GroupTable table = groups.table;
+                int id = table.addCurrentKey();
+                if (id < 0) {
+                    ramAccountingContext.addBytes(reader.bytesRead() - bytesBeforeStates);
+                    table.states(-1 - id, spilledStates);
+                } else {
+                    Object[] states = table.states(id);
+                    for (int i = 0; i < aggregations.length; i++) {
+                        states[i] = aggregations[i].reduce(ramAccountingContext, states[i], spilledStates[i]);
+                    }
+                }
+                if (ramAccountingContext.totalBytes() - groups.bytesBeforeTable >= spillThreshold && spill.canSubSpill()) {
+                    if (subSpill == null) {
+                        subSpill = spill.subSpill();
+                        spills.add(subSpill);
+                    }
+                    subSpill.spill(table);
+                    releaseTable(groups);
+                    newTable(groups, spilledKeyInputs);
                 }
-                return row;
             }
-        });
+        } catch (CircuitBreakingException e) {
+            releaseTable(groups);
+            throw e;
+        }
+        if (subSpill == null) {
+            return groupsToRows(groups.table);
+        }
+        if (groups.table.size() > 0) {
+            subSpill.spill(groups.table);
+        }
+        subSpill.finishWriting();
+        releaseTable(groups);
+        return readPartitions(groups, subSpill);
     }
 
+    private static void closeQuietly(@Nullable GroupSpill spill) {
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException ignored) {
+                // the spill directory is removed on the next node start in any case
+            }
+        }
+    }
 
-    private static class MultiSizeEstimator extends SizeEstimator<List<Object>> {
+    private Iterable<Row> groupsToRows(GroupTable groups) {
+        return () -> new Iterator<Row>() {
 
-        private final List<SizeEstimator<Object>> subEstimators;
+            final RowN row = new RowN(keyTypes.size() + aggregations.length);
+            final Object[] cells = new Object[row.numColumns()];
+            int id = 0;
 
-        MultiSizeEstimator(List<? extends DataType> keyTypes) {
-            subEstimators = new ArrayList<>(keyTypes.size());
-            for (DataType keyType : keyTypes) {
-                subEstimators.add(SizeEstimatorFactory.create(keyType));
+            {
+                row.cells(cells);
             }
-        }
 
-        @Override
-        public long estimateSize(@Nullable List<Object> value) {
-            assert value != null && value.size() == subEstimators.size()
-                : "value must have the same number of items as there are keyTypes/sizeEstimators";
+            @Override
+            public boolean hasNext() {
+                return id < groups.size();
+            }
 
-            long size = 0;
-            for (int i = 0; i < value.size(); i++) {
-                size += subEstimators.get(i).estimateSize(value.get(i));
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Iterator is exhausted");
+                }
+                groups.applyKey(id, cells);
+                int c = keyTypes.size();
+                Object[] states = groups.states(id);
+                for (int i = 0; i < states.length; i++) {
+                    cells[c] = mode.finishCollect(ramAccountingContext, aggregations[i], states[i]);
+                    c++;
+                }
+                id++;
+                return row;
             }
-            return size;
-        }
+        };
     }
 }
@@ -26,20 +26,26 @@ import io.crate.expression.symbol.AggregateMode;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.data.BatchIterator;
 import io.crate.data.CollectingBatchIterator;
+import io.crate.data.ColumnarBatchIterator;
+import io.crate.data.ColumnarBatchIterators;
+import io.crate.data.ForwardingBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillContext;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.util.BigArrays;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.List;
 
 public class GroupingProjector implements Projector {
 
-    private final GroupingCollector<Object> collector;
+    private final GroupingCollector collector;
 
 
     public GroupingProjector(List<? extends DataType> keyTypes,
@@ -49,7 +55,8 @@ public class GroupingProjector implements Projector {
                              AggregationContext[] aggregations,
                              RamAccountingContext ramAccountingContext,
                              Version indexVersionCreated,
-                             BigArrays bigArrays) {
+                             BigArrays bigArrays,
+                             @Nullable SpillContext spillContext) {
         assert keyTypes.size() == keyInputs.size() : "number of key types must match with number of key inputs";
         assert allTypesKnown(keyTypes) : "must have a known type for each key input";
 
@@ -71,11 +78,11 @@ public class GroupingProjector implements Projector {
                 keyInputs.get(0),
                 keyTypes.get(0),
                 indexVersionCreated,
-                bigArrays
+                bigArrays,
+                spillContext
             );
         } else {
-            //noinspection unchecked
-            collector = (GroupingCollector<Object>) (GroupingCollector) GroupingCollector.manyKeys(
+            collector = GroupingCollector.manyKeys(
                 collectExpressions,
                 mode,
                 functions,
@@ -84,7 +91,8 @@ public class GroupingProjector implements Projector {
                 keyInputs,
                 keyTypes,
                 indexVersionCreated,
-                bigArrays
+                bigArrays,
+                spillContext
             );
         }
     }
@@ -95,7 +103,39 @@ public class GroupingProjector implements Projector {
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
-        return CollectingBatchIterator.newInstance(batchIterator, collector);
+        BatchIterator<Row> collectingIterator;
+        if (batchIterator instanceof ColumnarBatchIterator) {
+            collectingIterator = CollectingBatchIterator.newInstance(
+                batchIterator,
+                bi -> ColumnarBatchIterators.collect((ColumnarBatchIterator) batchIterator, collector));
+        } else {
+            collectingIterator = CollectingBatchIterator.newInstance(batchIterator, collector);
+        }
+        return new ForwardingBatchIterator<Row>() {
+
+            @Override
+            protected BatchIterator<Row> delegate() {
+                return collectingIterator;
+            }
+
+            @Override
+            public void close() {
+                try {
+                    super.close();
+                } finally {
+                    collector.close();
+                }
+            }
+
+            @Override
+            public void kill(@Nonnull Throwable throwable) {
+                try {
+                    super.kill(throwable);
+                } finally {
+                    collector.close();
+                }
+            }
+        };
     }
 
     @Override
@@ -0,0 +1,129 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.data.Input;
+import io.crate.types.DataType;
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * {@link GroupTable} for a single key of type integer, short or byte.
+ */
+final class IntGroupTable extends GroupTable {
+
+    private static final int BYTES_PER_SLOT = Integer.BYTES + Integer.BYTES;
+
+    private final Input<?> keyInput;
+    private final DataType keyType;
+
+    private int[] slotKeys;
+    // group id + 1 per slot; 0 marks an empty slot
+    private int[] slotIds;
+    private int mask;
+    private int resizeAt;
+    private int assigned = 0;
+
+    private int[] keys;
+    private int nullKeyId = -1;
+
+    IntGroupTable(Input<?> keyInput, DataType keyType, RamAccountingContext ramAccountingContext) {
+        super(ramAccountingContext);
+        this.keyInput = keyInput;
+        this.keyType = keyType;
+        ramAccountingContext.addBytes(INITIAL_CAPACITY * (long) (BYTES_PER_SLOT + Integer.BYTES));
+        slotKeys = new int[INITIAL_CAPACITY];
+        slotIds = new int[INITIAL_CAPACITY];
+        keys = new int[INITIAL_CAPACITY];
+        mask = INITIAL_CAPACITY - 1;
+        resizeAt = resizeThreshold(INITIAL_CAPACITY);
+    }
+
+    @Override
+    int addCurrentKey() {
+        Object value = keyInput.value();
+        if (value == null) {
+            if (nullKeyId == -1) {
+                nullKeyId = newKey(0);
+                return -1 - nullKeyId;
+            }
+            return nullKeyId;
+        }
+        int key = ((Number) value).intValue();
+        int slot = mix(key) & mask;
+        int idPlusOne;
+        while ((idPlusOne = slotIds[slot]) != 0) {
+            if (slotKeys[slot] == key) {
+                return idPlusOne - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = newKey(key);
+        slotKeys[slot] = key;
+        slotIds[slot] = id + 1;
+        if (++assigned > resizeAt) {
+            rehash();
+        }
+        return -1 - id;
+    }
+
+    private int newKey(int key) {
+        int id = newGroup();
+        if (id == keys.length) {
+            int[] newKeys = ArrayUtil.grow(keys, id + 1);
+            ramAccountingContext.addBytes((newKeys.length - keys.length) * (long) Integer.BYTES);
+            keys = newKeys;
+        }
+        keys[id] = key;
+        return id;
+    }
+
+    private void rehash() {
+        int newCapacity = nextCapacity(slotIds.length);
+        ramAccountingContext.addBytes((newCapacity - slotIds.length) * (long) BYTES_PER_SLOT);
+        int[] oldKeys = slotKeys;
+        int[] oldIds = slotIds;
+        slotKeys = new int[newCapacity];
+        slotIds = new int[newCapacity];
+        mask = newCapacity - 1;
+        resizeAt = resizeThreshold(newCapacity);
+        for (int i = 0; i < oldIds.length; i++) {
+            int idPlusOne = oldIds[i];
+            if (idPlusOne != 0) {
+                int key = oldKeys[i];
+                int slot = mix(key) & mask;
+                while (slotIds[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slotKeys[slot] = key;
+                slotIds[slot] = idPlusOne;
+            }
+        }
+    }
+
+    @Override
+    void applyKey(int id, Object[] cells) {
+        // convert back to short or byte if necessary
+        cells[0] = id == nullKeyId ? null : keyType.value(keys[id]);
+    }
+}
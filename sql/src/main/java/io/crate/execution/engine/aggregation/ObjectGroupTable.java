@@ -0,0 +1,152 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.data.Input;
+import io.crate.types.DataType;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link GroupTable} for keys which don't have a specialized implementation.
+ * The keys are kept as objects; multiple keys are combined into a {@code List<Object>}.
+ *
+ * @param <K> type of the key
+ */
+final class ObjectGroupTable<K> extends GroupTable {
+
+    private final Supplier<K> keyExtractor;
+    private final BiConsumer<K, Object[]> applyKeyToCells;
+    private final SizeEstimator<K> keySizeEstimator;
+    private final ObjectIntHashMap<K> idsByKey = new ObjectIntHashMap<>();
+    private Object[] keys = new Object[INITIAL_CAPACITY];
+
+    static ObjectGroupTable<Object> singleKey(Input<?> keyInput,
+                                              DataType keyType,
+                                              RamAccountingContext ramAccountingContext) {
+        return new ObjectGroupTable<>(
+            keyInput::value,
+            (key, cells) -> cells[0] = key,
+            SizeEstimatorFactory.create(keyType),
+            ramAccountingContext
+        );
+    }
+
+    static ObjectGroupTable<List<Object>> manyKeys(List<Input<?>> keyInputs,
+                                                   List<? extends DataType> keyTypes,
+                                                   RamAccountingContext ramAccountingContext) {
+        return new ObjectGroupTable<>(
+            () -> evalKeyInputs(keyInputs),
+            ObjectGroupTable::applyKeysToCells,
+            new MultiSizeEstimator(keyTypes),
+            ramAccountingContext
+        );
+    }
+
+    private static List<Object> evalKeyInputs(List<Input<?>> keyInputs) {
+        List<Object> key = new ArrayList<>(keyInputs.size());
+        for (Input<?> keyInput : keyInputs) {
+            key.add(keyInput.value());
+        }
+        return key;
+    }
+
+    private static void applyKeysToCells(List<Object> keys, Object[] cells) {
+        for (int i = 0; i < keys.size(); i++) {
+            cells[i] = keys.get(i);
+        }
+    }
+
+    private ObjectGroupTable(Supplier<K> keyExtractor,
+                             BiConsumer<K, Object[]> applyKeyToCells,
+                             SizeEstimator<K> keySizeEstimator,
+                             RamAccountingContext ramAccountingContext) {
+        super(ramAccountingContext);
+        this.keyExtractor = keyExtractor;
+        this.applyKeyToCells = applyKeyToCells;
+        this.keySizeEstimator = keySizeEstimator;
+        ramAccountingContext.addBytes(shallowSizeOfRefs(INITIAL_CAPACITY));
+    }
+
+    @Override
+    int addCurrentKey() {
+        K key = keyExtractor.get();
+        int index = idsByKey.indexOf(key);
+        if (index >= 0) {
+            return idsByKey.indexGet(index);
+        }
+        int id = newGroup();
+        if (id == keys.length) {
+            int newLength = ArrayUtil.oversize(id + 1, RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+            ramAccountingContext.addBytes(shallowSizeOfRefs(newLength - keys.length));
+            keys = Arrays.copyOf(keys, newLength);
+        }
+        keys[id] = key;
+        // key size + 32 bytes for entry + 4 bytes for increased capacity
+        ramAccountingContext.addBytes(
+            RamAccountingContext.roundUp(keySizeEstimator.estimateSize(key) + 36L));
+        idsByKey.indexInsert(index, key, id);
+        return -1 - id;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void applyKey(int id, Object[] cells) {
+        applyKeyToCells.accept((K) keys[id], cells);
+    }
+
+    private static class MultiSizeEstimator extends SizeEstimator<List<Object>> {
+
+        private final List<SizeEstimator<Object>> subEstimators;
+
+        MultiSizeEstimator(List<? extends DataType> keyTypes) {
+            subEstimators = new ArrayList<>(keyTypes.size());
+            for (DataType keyType : keyTypes) {
+                subEstimators.add(SizeEstimatorFactory.create(keyType));
+            }
+        }
+
+        @Override
+        public long estimateSize(@Nullable List<Object> value) {
+            assert value != null && value.size() == subEstimators.size()
+                : "value must have the same number of items as there are keyTypes/sizeEstimators";
+
+            long size = 0;
+            for (int i = 0; i < value.size(); i++) {
+                size += subEstimators.get(i).estimateSize(value.get(i));
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.data.Input;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.util.ArrayUtil;
+
+import java.util.List;
+
+/**
+ * {@link GroupTable} for multiple keys which all have a fixed width type.
+ *
+ * Each key is encoded into a long; the keys of a group are stored as a fixed width slot of
+ * {@code numKeys + 1} longs in a single long array, the last long of a slot is a bitmap marking the null keys.
+ */
+final class PackedGroupTable extends GroupTable {
+
+    private static final int BYTES_PER_SLOT = Integer.BYTES + Integer.BYTES;
+
+    private final Input<?>[] keyInputs;
+    private final DataType[] keyTypes;
+    private final int width;
+    private final long[] currentKey;
+
+    private int[] slotHashes;
+    // group id + 1 per slot; 0 marks an empty slot
+    private int[] slotIds;
+    private int mask;
+    private int resizeAt;
+
+    private long[] keys;
+
+    static boolean supports(List<? extends DataType> keyTypes) {
+        if (keyTypes.size() >= Long.SIZE) {
+            return false;
+        }
+        for (DataType keyType : keyTypes) {
+            switch (keyType.id()) {
+                case BooleanType.ID:
+                case ByteType.ID:
+                case ShortType.ID:
+                case IntegerType.ID:
+                case LongType.ID:
+                case TimestampType.ID:
+                case FloatType.ID:
+                case DoubleType.ID:
+                    break;
+
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    PackedGroupTable(List<Input<?>> keyInputs,
+                     List<? extends DataType> keyTypes,
+                     RamAccountingContext ramAccountingContext) {
+        super(ramAccountingContext);
+        assert supports(keyTypes) : "all key types must have a fixed width";
+        this.keyInputs = keyInputs.toArray(new Input[0]);
+        this.keyTypes = keyTypes.toArray(new DataType[0]);
+        width = keyInputs.size() + 1;
+        currentKey = new long[width];
+        ramAccountingContext.addBytes(INITIAL_CAPACITY * (BYTES_PER_SLOT + width * (long) Long.BYTES));
+        slotHashes = new int[INITIAL_CAPACITY];
+        slotIds = new int[INITIAL_CAPACITY];
+        keys = new long[INITIAL_CAPACITY * width];
+        mask = INITIAL_CAPACITY - 1;
+        resizeAt = resizeThreshold(INITIAL_CAPACITY);
+    }
+
+    @Override
+    int addCurrentKey() {
+        int numKeys = keyInputs.length;
+        long nulls = 0L;
+        long hash = 1L;
+        for (int i = 0; i < numKeys; i++) {
+            Object value = keyInputs[i].value();
+            long encoded;
+            if (value == null) {
+                nulls |= 1L << i;
+                encoded = 0L;
+            } else {
+                encoded = encode(keyTypes[i], value);
+            }
+            currentKey[i] = encoded;
+            hash = 31 * hash + encoded;
+        }
+        currentKey[numKeys] = nulls;
+        int keyHash = mix(31 * hash + nulls);
+
+        int slot = keyHash & mask;
+        int idPlusOne;
+        while ((idPlusOne = slotIds[slot]) != 0) {
+            if (slotHashes[slot] == keyHash && keyEquals(idPlusOne - 1)) {
+                return idPlusOne - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = newKey();
+        slotHashes[slot] = keyHash;
+        slotIds[slot] = id + 1;
+        if (size() > resizeAt) {
+            rehash();
+        }
+        return -1 - id;
+    }
+
+    private boolean keyEquals(int id) {
+        int offset = id * width;
+        for (int i = 0; i < width; i++) {
+            if (keys[offset + i] != currentKey[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int newKey() {
+        int id = newGroup();
+        int requiredSize = (id + 1) * width;
+        if (requiredSize > keys.length) {
+            long[] newKeys = ArrayUtil.grow(keys, requiredSize);
+            ramAccountingContext.addBytes((newKeys.length - keys.length) * (long) Long.BYTES);
+            keys = newKeys;
+        }
+        System.arraycopy(currentKey, 0, keys, id * width, width);
+        return id;
+    }
+
+    private void rehash() {
+        int newCapacity = nextCapacity(slotIds.length);
+        ramAccountingContext.addBytes((newCapacity - slotIds.length) * (long) BYTES_PER_SLOT);
+        int[] oldHashes = slotHashes;
+        int[] oldIds = slotIds;
+        slotHashes = new int[newCapacity];
+        slotIds = new int[newCapacity];
+        mask = newCapacity - 1;
+        resizeAt = resizeThreshold(newCapacity);
+        for (int i = 0; i < oldIds.length; i++) {
+            int idPlusOne = oldIds[i];
+            if (idPlusOne != 0) {
+                int hash = oldHashes[i];
+                int slot = hash & mask;
+                while (slotIds[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slotHashes[slot] = hash;
+                slotIds[slot] = idPlusOne;
+            }
+        }
+    }
+
+    @Override
+    void applyKey(int id, Object[] cells) {
+        int offset = id * width;
+        long nulls = keys[offset + keyInputs.length];
+        for (int i = 0; i < keyInputs.length; i++) {
+            if ((nulls & (1L << i)) != 0) {
+                cells[i] = null;
+            } else {
+                cells[i] = decode(keyTypes[i], keys[offset + i]);
+            }
+        }
+    }
+
+    private static long encode(DataType type, Object value) {
+        switch (type.id()) {
+            case BooleanType.ID:
+                return (Boolean) value ? 1L : 0L;
+            case FloatType.ID:
+                return Float.floatToIntBits(((Number) value).floatValue());
+            case DoubleType.ID:
+                return Double.doubleToLongBits(((Number) value).doubleValue());
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
+    private static Object decode(DataType type, long encoded) {
+        switch (type.id()) {
+            case BooleanType.ID:
+                return encoded == 1L;
+            case ByteType.ID:
+                return (byte) encoded;
+            case ShortType.ID:
+                return (short) encoded;
+            case IntegerType.ID:
+                return (int) encoded;
+            case FloatType.ID:
+                return Float.intBitsToFloat((int) encoded);
+            case DoubleType.ID:
+                return Double.longBitsToDouble(encoded);
+            default:
+                return encoded;
+        }
+    }
+}
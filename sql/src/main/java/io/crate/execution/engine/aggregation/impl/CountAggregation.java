@@ -24,6 +24,8 @@ package io.crate.execution.engine.aggregation.impl;
 import com.google.common.collect.ImmutableList;
 import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.data.ColumnBatch;
+import io.crate.data.ColumnVector;
 import io.crate.data.Input;
 import io.crate.execution.engine.aggregation.AggregationFunction;
 import io.crate.expression.symbol.Function;
@@ -117,6 +119,25 @@ public class CountAggregation extends AggregationFunction<CountAggregation.LongS
         return state;
     }
 
+    @Override
+    public LongState iterateBatch(RamAccountingContext ramAccountingContext,
+                                  LongState state,
+                                  ColumnBatch batch,
+                                  ColumnVector... args) {
+        int numSelected = batch.numSelected();
+        if (!hasArgs || !args[0].hasNulls()) {
+            return state.add(numSelected);
+        }
+        ColumnVector vector = args[0];
+        long count = 0;
+        for (int i = 0; i < numSelected; i++) {
+            if (!vector.isNull(batch.position(i))) {
+                count++;
+            }
+        }
+        return state.add(count);
+    }
+
     @Nullable
     @Override
     public LongState newState(RamAccountingContext ramAccountingContext,
@@ -23,6 +23,8 @@ package io.crate.execution.engine.aggregation.impl;
 
 import com.google.common.annotations.VisibleForTesting;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.data.ColumnBatch;
+import io.crate.data.ColumnVector;
 import io.crate.data.Input;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
@@ -101,6 +103,56 @@ public class SumAggregation<T extends Number> extends AggregationFunction<T, T>
         return reduce(ramAccountingContext, state, returnType.value(args[0].value()));
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public T iterateBatch(RamAccountingContext ramAccountingContext,
+                          T state,
+                          ColumnBatch batch,
+                          ColumnVector... args) throws CircuitBreakingException {
+        ColumnVector vector = args[0];
+        if (returnType == DataTypes.LONG && (vector instanceof ColumnVector.Longs || vector instanceof ColumnVector.Ints)) {
+            return reduce(ramAccountingContext, state, (T) sumLongs(batch, vector));
+        }
+        if (returnType == DataTypes.DOUBLE && vector instanceof ColumnVector.Doubles) {
+            return reduce(ramAccountingContext, state, (T) sumDoubles(batch, (ColumnVector.Doubles) vector));
+        }
+        return super.iterateBatch(ramAccountingContext, state, batch, args);
+    }
+
+    /**
+     * @return the sum of the non-null values of the selected rows or null if there are none
+     */
+    @Nullable
+    private static Long sumLongs(ColumnBatch batch, ColumnVector vector) {
+        long[] longs = vector instanceof ColumnVector.Longs ? ((ColumnVector.Longs) vector).values : null;
+        int[] ints = vector instanceof ColumnVector.Ints ? ((ColumnVector.Ints) vector).values : null;
+        boolean hasValues = false;
+        long sum = 0L;
+        for (int i = 0, numSelected = batch.numSelected(); i < numSelected; i++) {
+            int position = batch.position(i);
+            if (!vector.isNull(position)) {
+                sum = Math.addExact(sum, longs == null ? ints[position] : longs[position]);
+                hasValues = true;
+            }
+        }
+        return hasValues ? sum : null;
+    }
+
+    @Nullable
+    private static Double sumDoubles(ColumnBatch batch, ColumnVector.Doubles vector) {
+        double[] values = vector.values;
+        boolean hasValues = false;
+        double sum = 0d;
+        for (int i = 0, numSelected = batch.numSelected(); i < numSelected; i++) {
+            int position = batch.position(i);
+            if (!vector.isNull(position)) {
+                sum += values[position];
+                hasValues = true;
+            }
+        }
+        return hasValues ? sum : null;
+    }
+
     @Override
     public T reduce(RamAccountingContext ramAccountingContext, T state1, T state2) {
         if (state1 == null) {
@@ -119,7 +119,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                 getCollectorContext(sharedShardContext.readerId(), docCtx, queryShardContext::getForField),
                 jobCollectContext.queryPhaseRamAccountingContext(),
                 docCtx.topLevelInputs(),
-                docCtx.expressions()
+                docCtx.expressions(),
+                Symbols.typeView(collectPhase.toCollect())
             );
         } catch (Throwable t) {
             searcher.close();
@@ -150,6 +150,7 @@ public abstract class ShardCollectorProvider {
                         consumer,
                         shardProjections,
                         normalizedCollectNode.jobId(),
+                        normalizedCollectNode.phaseId(),
                         jobCollectContext.queryPhaseRamAccountingContext(),
                         projectorFactory
                     );
@@ -29,6 +29,7 @@ import io.crate.execution.engine.collect.BatchIteratorCollectorBridge;
 import io.crate.execution.engine.collect.CrateCollector;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.types.DataType;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 
@@ -45,6 +46,7 @@ public class CrateDocCollectorBuilder implements CrateCollector.Builder {
     private final RamAccountingContext ramAccountingContext;
     private final List<Input<?>> inputs;
     private final Collection<? extends LuceneCollectorExpression<?>> expressions;
+    private final List<? extends DataType> columnTypes;
 
     public CrateDocCollectorBuilder(IndexSearcher indexSearcher,
                                     Query query,
@@ -53,7 +55,8 @@ public class CrateDocCollectorBuilder implements CrateCollector.Builder {
                                     CollectorContext collectorContext,
                                     RamAccountingContext ramAccountingContext,
                                     List<Input<?>> inputs,
-                                    Collection<? extends LuceneCollectorExpression<?>> expressions) {
+                                    Collection<? extends LuceneCollectorExpression<?>> expressions,
+                                    List<? extends DataType> columnTypes) {
         this.indexSearcher = indexSearcher;
         this.query = query;
         this.minScore = minScore;
@@ -62,6 +65,7 @@ public class CrateDocCollectorBuilder implements CrateCollector.Builder {
         this.ramAccountingContext = ramAccountingContext;
         this.inputs = inputs;
         this.expressions = expressions;
+        this.columnTypes = columnTypes;
     }
 
     @Override
@@ -74,7 +78,8 @@ public class CrateDocCollectorBuilder implements CrateCollector.Builder {
             collectorContext,
             ramAccountingContext,
             inputs,
-            expressions
+            expressions,
+            columnTypes
         );
         return BatchIteratorCollectorBridge.newInstance(batchIterator, consumer);
     }
@@ -25,13 +25,20 @@ package io.crate.execution.engine.collect.collectors;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.concurrent.CompletableFutures;
-import io.crate.data.BatchIterator;
+import io.crate.data.ColumnBatch;
+import io.crate.data.ColumnVector;
+import io.crate.data.ColumnarBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.exceptions.Exceptions;
 import io.crate.expression.InputRow;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.TimestampType;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -55,8 +62,12 @@ import java.util.concurrent.CompletionStage;
  * It supports filtering the data using a lucene {@link Query} or via {@code minScore}.
  * <p>
  * Row data depends on {@code inputs} and {@code expressions}. The data is unordered.
+ * <p>
+ * In batch mode ({@link #moveNextBatch()}) the values of up to {@link ColumnBatch#DEFAULT_CAPACITY} documents are
+ * read into a {@link ColumnBatch}. Columns of long, timestamp, integer and double type are stored in primitive vectors
+ * if the {@code columnTypes} are known.
  */
-public class LuceneBatchIterator implements BatchIterator<Row> {
+public class LuceneBatchIterator implements ColumnarBatchIterator {
 
     private final IndexSearcher indexSearcher;
     private final Query query;
@@ -66,7 +77,11 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
     private final LuceneCollectorExpression[] expressions;
     private final List<LeafReaderContext> leaves;
     private final InputRow row;
+    private final Input<?>[] inputs;
+    @Nullable
+    private final List<? extends DataType> columnTypes;
     private Weight weight;
+    private ColumnBatch batch;
     private final CollectorFieldsVisitor visitor;
     private final Float minScore;
 
@@ -85,6 +100,19 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
                         RamAccountingContext ramAccountingContext,
                         List<? extends Input<?>> inputs,
                         Collection<? extends LuceneCollectorExpression<?>> expressions) {
+        this(indexSearcher, query, minScore, doScores, collectorContext, ramAccountingContext, inputs, expressions, null);
+    }
+
+    LuceneBatchIterator(IndexSearcher indexSearcher,
+                        Query query,
+                        @Nullable Float minScore,
+                        boolean doScores,
+                        CollectorContext collectorContext,
+                        RamAccountingContext ramAccountingContext,
+                        List<? extends Input<?>> inputs,
+                        Collection<? extends LuceneCollectorExpression<?>> expressions,
+                        @Nullable List<? extends DataType> columnTypes) {
+        assert columnTypes == null || columnTypes.size() == inputs.size() : "There must be a type for each input";
         this.indexSearcher = indexSearcher;
         this.query = query;
         this.doScores = doScores || minScore != null;
@@ -93,6 +121,8 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
         this.visitor = collectorContext.visitor();
         this.ramAccountingContext = ramAccountingContext;
         this.row = new InputRow(inputs);
+        this.inputs = inputs.toArray(new Input[0]);
+        this.columnTypes = columnTypes;
         this.expressions = expressions.toArray(new LuceneCollectorExpression[0]);
         leaves = indexSearcher.getTopReaderContext().leaves();
         leavesIt = leaves.iterator();
@@ -112,6 +142,71 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
     @Override
     public boolean moveNext() {
         raiseIfClosedOrKilled();
+        ensureWeight();
+        try {
+            return innerMoveNext();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean moveNextBatch() {
+        raiseIfClosedOrKilled();
+        ensureWeight();
+        if (batch == null) {
+            batch = newBatch();
+        }
+        batch.reset();
+        int capacity = batch.capacity();
+        int numColumns = inputs.length;
+        int size = 0;
+        try {
+            while (size < capacity && innerMoveNext()) {
+                for (int i = 0; i < numColumns; i++) {
+                    batch.column(i).set(size, inputs[i].value());
+                }
+                size++;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        batch.setSize(size);
+        return size > 0;
+    }
+
+    @Override
+    public ColumnBatch currentBatch() {
+        return batch;
+    }
+
+    private ColumnBatch newBatch() {
+        int capacity = ColumnBatch.DEFAULT_CAPACITY;
+        ColumnVector[] columns = new ColumnVector[inputs.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columnTypes == null ? ColumnVector.objects(capacity) : newVector(columnTypes.get(i), capacity);
+        }
+        return new ColumnBatch(columns, capacity);
+    }
+
+    private static ColumnVector newVector(DataType type, int capacity) {
+        switch (type.id()) {
+            case LongType.ID:
+            case TimestampType.ID:
+                return ColumnVector.longs(capacity);
+
+            case IntegerType.ID:
+                return ColumnVector.ints(capacity);
+
+            case DoubleType.ID:
+                return ColumnVector.doubles(capacity);
+
+            default:
+                return ColumnVector.objects(capacity);
+        }
+    }
+
+    private void ensureWeight() {
         if (weight == null) {
             try {
                 weight = createWeight();
@@ -119,12 +214,6 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
                 Exceptions.rethrowUnchecked(e);
             }
         }
-
-        try {
-            return innerMoveNext();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
     }
 
     private boolean innerMoveNext() throws IOException {
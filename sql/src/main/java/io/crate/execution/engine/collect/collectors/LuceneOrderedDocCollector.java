@@ -29,9 +29,12 @@ import io.crate.execution.engine.distribution.merge.KeyIterable;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.EarlyTerminatingSortingCollector;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -64,7 +67,7 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
     private final ScoreDocRowFunction rowFunction;
     private final DummyScorer scorer;
     private final IndexSearcher searcher;
-
+    private final boolean canEarlyTerminate;
 
     @Nullable
     private volatile FieldDoc lastDoc = null;
@@ -89,6 +92,7 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         this.collectorContext = collectorContext;
         this.searchAfterQueryOptimize = searchAfterQueryOptimize;
         this.sort = sort;
+        this.canEarlyTerminate = canEarlyTerminate(searcher.getIndexReader(), sort);
         this.scorer = new DummyScorer();
         this.expressions = expressions;
         this.rowFunction = new ScoreDocRowFunction(
@@ -130,7 +134,15 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
             expression.setScorer(scorer);
         }
         TopFieldCollector topFieldCollector = TopFieldCollector.create(sort, batchSize, true, doDocsScores, doDocsScores);
-        return doSearch(topFieldCollector, minScore, query);
+        Collector collector = topFieldCollector;
+        if (canEarlyTerminate) {
+            // segments are sorted by the index sort, so no document after the first batchSize matches of a segment
+            // can be competitive.
+            // This is only done for the initial search: on searchMore, the documents which were already returned are
+            // collected again unless the searchAfterQueryOptimize excludes them, and they'd count towards the limit.
+            collector = new EarlyTerminatingSortingCollector(topFieldCollector, sort, batchSize);
+        }
+        return doSearch(topFieldCollector, collector, minScore, query);
     }
 
     private KeyIterable<ShardId, Row> searchMore() throws IOException {
@@ -143,13 +155,13 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         }
         TopFieldCollector topFieldCollector = TopFieldCollector.create(
             sort, batchSize, lastDoc, true, doDocsScores, doDocsScores);
-        return doSearch(topFieldCollector, minScore, query(lastDoc));
+        return doSearch(topFieldCollector, topFieldCollector, minScore, query(lastDoc));
     }
 
     private KeyIterable<ShardId, Row> doSearch(TopFieldCollector topFieldCollector,
+                                               Collector collector,
                                                Float minScore,
                                                Query query) throws IOException {
-        Collector collector = topFieldCollector;
         if (minScore != null) {
             collector = new MinimumScoreCollector(collector, minScore);
         }
@@ -165,6 +177,19 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         return new KeyIterable<>(shardId(), Iterables.transform(Arrays.asList(scoreDocs), rowFunction));
     }
 
+    /**
+     * Returns true if all segments are sorted by an index sort of which the given sort is a prefix.
+     */
+    static boolean canEarlyTerminate(IndexReader reader, Sort sort) {
+        for (LeafReaderContext leaf : reader.leaves()) {
+            Sort indexSort = leaf.reader().getMetaData().getSort();
+            if (indexSort == null || EarlyTerminatingSortingCollector.canEarlyTerminate(sort, indexSort) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private Query query(FieldDoc lastDoc) {
         Query optimizedQuery = searchAfterQueryOptimize.apply(lastDoc);
         if (optimizedQuery == null) {
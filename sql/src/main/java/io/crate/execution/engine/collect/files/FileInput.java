@@ -43,5 +43,14 @@ public interface FileInput {
 
     InputStream getStream(URI uri) throws IOException;
 
+    /**
+     * @return the size of the file in bytes if the file can be read in byte ranges, i.e. the stream returned by
+     *         {@link #getStream(URI)} supports skipping to a position without reading the bytes in between,
+     *         otherwise -1.
+     */
+    default long splittableSize(URI uri) throws IOException {
+        return -1;
+    }
+
     boolean sharedStorageDefault();
 }
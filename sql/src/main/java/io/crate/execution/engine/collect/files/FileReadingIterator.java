@@ -28,7 +28,8 @@ import io.crate.data.BatchIterator;
 import io.crate.data.CloseAssertingBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Row;
-import io.crate.expression.InputRow;
+import io.crate.data.RowN;
+import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.expression.reference.file.LineContext;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.ElasticsearchParseException;
@@ -37,13 +38,10 @@ import org.elasticsearch.common.logging.Loggers;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.SocketTimeoutException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -54,6 +52,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -61,29 +60,51 @@ import java.util.zip.GZIPInputStream;
 
 import static io.crate.exceptions.Exceptions.rethrowUnchecked;
 
+/**
+ * BatchIterator which reads the lines of files and emits a row per line.
+ *
+ * Multiple instances can read the files of a node concurrently; which files or byte ranges of files an instance reads
+ * is determined by the {@link FileSplits} shared between them. The lines are read in batches within
+ * {@link #loadNextBatch()}, which also evaluates the inputs, so that the parsing is done by the thread loading the
+ * batch. Combined with {@link io.crate.data.AsyncCompositeBatchIterator} this allows to read and parse the splits of
+ * a node in parallel.
+ */
 public class FileReadingIterator implements BatchIterator<Row> {
 
     private static final Logger LOGGER = Loggers.getLogger(FileReadingIterator.class);
     public static final int MAX_SOCKET_TIMEOUT_RETRIES = 5;
+    static final int BATCH_SIZE = 1000;
+
     private final Map<String, FileInputFactory> fileInputFactories;
     private final Boolean shared;
     private final int numReaders;
     private final int readerNumber;
     private final boolean compressed;
+    private final FileUriCollectPhase.InputFormat inputFormat;
+    private final FileSplits fileSplits;
+    private final int split;
 
     private static final Pattern HAS_GLOBS_PATTERN = Pattern.compile("(.*)[^\\\\]\\*.*");
     private static final Predicate<URI> MATCH_ALL_PREDICATE = (URI input) -> true;
 
     private final List<UriWithGlob> urisWithGlob;
+    private final List<? extends Input<?>> inputs;
     private final Iterable<LineCollectorExpression<?>> collectorExpressions;
     private Iterator<Tuple<FileInput, UriWithGlob>> fileInputsIterator = null;
     private Tuple<FileInput, UriWithGlob> currentInput = null;
     private Iterator<URI> currentInputIterator = null;
     private URI currentUri;
-    private BufferedReader currentReader = null;
+    private LineReader currentReader = null;
+    private long currentEnd;
     private long currentLineNumber;
+    private long currentLinePosition;
     private LineContext lineContext;
-    private final Row row;
+
+    private final RowN row;
+    private Object[][] batch = new Object[BATCH_SIZE][];
+    private int batchSize = 0;
+    private int batchIdx = -1;
+    private boolean allLoaded = false;
 
     private FileReadingIterator(Collection<String> fileUris,
                                 List<? extends Input<?>> inputs,
@@ -92,24 +113,20 @@ public class FileReadingIterator implements BatchIterator<Row> {
                                 Map<String, FileInputFactory> fileInputFactories,
                                 Boolean shared,
                                 int numReaders,
-                                int readerNumber) {
+                                int readerNumber,
+                                FileUriCollectPhase.InputFormat inputFormat,
+                                FileSplits fileSplits,
+                                int split) {
         this.compressed = compression != null && compression.equalsIgnoreCase("gzip");
-        this.row = new InputRow(inputs) {
-            @Override
-            public Object get(int index) {
-                try {
-                    return inputs.get(index).value();
-                } catch (ElasticsearchParseException e) {
-                    throw new ElasticsearchParseException(String.format(Locale.ENGLISH,
-                        "Failed to parse JSON in line: %d in file: \"%s\"%n" +
-                        "Original error message: %s", currentLineNumber, currentUri, e.getMessage()), e);
-                }
-            }
-        };
+        this.inputs = inputs;
+        this.row = new RowN(inputs.size());
         this.fileInputFactories = fileInputFactories;
         this.shared = shared;
         this.numReaders = numReaders;
         this.readerNumber = readerNumber;
+        this.inputFormat = inputFormat;
+        this.fileSplits = fileSplits;
+        this.split = split;
         this.urisWithGlob = getUrisWithGlob(fileUris);
         this.collectorExpressions = collectorExpressions;
         initCollectorState();
@@ -133,12 +150,33 @@ public class FileReadingIterator implements BatchIterator<Row> {
                                                  Boolean shared,
                                                  int numReaders,
                                                  int readerNumber) {
+        return newInstance(fileUris, inputs, collectorExpressions, compression, fileInputFactories, shared,
+            numReaders, readerNumber, FileUriCollectPhase.InputFormat.JSON, new FileSplits(1), 0);
+    }
+
+    /**
+     * @param numReaders number of nodes which read the files
+     * @param readerNumber number of the reading node
+     * @param fileSplits assignment of the files of the node to the iterators which read them concurrently
+     * @param split the number of the split the iterator reads
+     */
+    public static BatchIterator<Row> newInstance(Collection<String> fileUris,
+                                                 List<Input<?>> inputs,
+                                                 Iterable<LineCollectorExpression<?>> collectorExpressions,
+                                                 String compression,
+                                                 Map<String, FileInputFactory> fileInputFactories,
+                                                 Boolean shared,
+                                                 int numReaders,
+                                                 int readerNumber,
+                                                 FileUriCollectPhase.InputFormat inputFormat,
+                                                 FileSplits fileSplits,
+                                                 int split) {
         return new CloseAssertingBatchIterator<>(new FileReadingIterator(fileUris, inputs, collectorExpressions,
-            compression, fileInputFactories, shared, numReaders, readerNumber));
+            compression, fileInputFactories, shared, numReaders, readerNumber, inputFormat, fileSplits, split));
     }
 
     private void initCollectorState() {
-        lineContext = new LineContext();
+        lineContext = new LineContext(inputFormat);
         for (LineCollectorExpression<?> collectorExpression : collectorExpressions) {
             collectorExpression.startCollect(lineContext);
         }
@@ -152,44 +190,110 @@ public class FileReadingIterator implements BatchIterator<Row> {
             }
         }
         fileInputsIterator = fileInputs.iterator();
+        batchSize = 0;
+        batchIdx = -1;
+        allLoaded = false;
     }
 
     @Override
     public void moveToStart() {
+        closeCurrentReader();
         initCollectorState();
     }
 
     @Override
     public boolean moveNext() {
+        if (batchIdx + 1 < batchSize) {
+            batchIdx++;
+            row.cells(batch[batchIdx]);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() {
+        if (allLoaded) {
+            return CompletableFutures.failedFuture(new IllegalStateException("All batches already loaded"));
+        }
+        try {
+            loadBatch();
+        } catch (Throwable t) {
+            return CompletableFutures.failedFuture(t);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void loadBatch() throws IOException {
+        batchSize = 0;
+        batchIdx = -1;
+        while (batchSize < BATCH_SIZE) {
+            if (readNextLine() == false) {
+                allLoaded = true;
+                releaseBatchIteratorState();
+                return;
+            }
+            Object[] cells = batch[batchSize];
+            if (cells == null) {
+                cells = new Object[inputs.size()];
+                batch[batchSize] = cells;
+            }
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = value(inputs.get(i));
+            }
+            batchSize++;
+        }
+    }
+
+    private Object value(Input<?> input) {
         try {
+            return input.value();
+        } catch (ElasticsearchParseException e) {
+            if (currentLineNumber > 0) {
+                throw new ElasticsearchParseException(String.format(Locale.ENGLISH,
+                    "Failed to parse %s in line: %d in file: \"%s\"%n" +
+                    "Original error message: %s", inputFormat, currentLineNumber, currentUri, e.getMessage()), e);
+            }
+            throw new ElasticsearchParseException(String.format(Locale.ENGLISH,
+                "Failed to parse %s in line starting at byte: %d in file: \"%s\"%n" +
+                "Original error message: %s", inputFormat, currentLinePosition, currentUri, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Advances to the next non-empty line, which is set as source of the {@link #lineContext}.
+     *
+     * @return false if there are no more lines
+     */
+    private boolean readNextLine() throws IOException {
+        while (true) {
             if (currentReader != null) {
-                String line = getLine(currentReader, currentLineNumber, 0);
+                byte[] line = getLine(currentReader, currentLineNumber, 0);
                 if (line == null) {
                     closeCurrentReader();
-                    return moveNext();
                 } else {
-                    lineContext.rawSource(line.getBytes(StandardCharsets.UTF_8));
+                    lineContext.rawSource(line);
                     return true;
                 }
             } else if (currentInputIterator != null && currentInputIterator.hasNext()) {
                 advanceToNextUri(currentInput.v1());
-                return moveNext();
             } else if (fileInputsIterator != null && fileInputsIterator.hasNext()) {
                 advanceToNextFileInput();
-                return moveNext();
             } else {
-                releaseBatchIteratorState();
                 return false;
             }
-        } catch (IOException e) {
-            rethrowUnchecked(e);
         }
-        return false;
     }
 
     private void advanceToNextUri(FileInput fileInput) throws IOException {
         currentUri = currentInputIterator.next();
-        initCurrentReader(fileInput, currentUri);
+        long[] range = fileSplits.range(
+            currentUri,
+            () -> compressed ? -1L : fileInput.splittableSize(currentUri),
+            split);
+        if (range != null) {
+            initCurrentReader(fileInput, currentUri, range[0], range[1]);
+        }
     }
 
     private void advanceToNextFileInput() throws IOException {
@@ -197,18 +301,56 @@ public class FileReadingIterator implements BatchIterator<Row> {
         FileInput fileInput = currentInput.v1();
         UriWithGlob fileUri = currentInput.v2();
         Predicate<URI> uriPredicate = generateUriPredicate(fileInput, fileUri.globPredicate);
-        List<URI> uris = getUris(fileInput, fileUri.uri, fileUri.preGlobUri, uriPredicate);
-        if (uris.size() > 0) {
-            currentInputIterator = uris.iterator();
-            advanceToNextUri(fileInput);
-        }
+        List<URI> uris = fileSplits.listUris(
+            fileUri.uri,
+            () -> getUris(fileInput, fileUri.uri, fileUri.preGlobUri, uriPredicate));
+        currentInputIterator = uris.iterator();
     }
 
-    private void initCurrentReader(FileInput fileInput, URI uri) throws IOException {
+    private void initCurrentReader(FileInput fileInput, URI uri, long start, long end) throws IOException {
         InputStream stream = fileInput.getStream(uri);
-        if (stream != null) {
-            currentReader = createBufferedReader(stream);
+        if (stream == null) {
+            return;
+        }
+        currentEnd = end;
+        if (start == 0) {
+            currentReader = createLineReader(stream, 0L);
             currentLineNumber = 0;
+            if (lineContext.requiresHeader()) {
+                readHeader(currentReader);
+            }
+            return;
+        }
+        if (lineContext.requiresHeader()) {
+            try (LineReader headerReader = createLineReader(fileInput.getStream(uri), 0L)) {
+                readHeader(headerReader);
+            }
+        }
+        // the line which contains the start position belongs to the previous range, unless it starts exactly
+        // at the start position. Line numbers are unknown within the range.
+        long skip = start - 1;
+        while (skip > 0) {
+            long skipped = stream.skip(skip);
+            if (skipped <= 0) {
+                break;
+            }
+            skip -= skipped;
+        }
+        currentReader = createLineReader(stream, start - 1 - skip);
+        currentReader.skipLine();
+        currentLineNumber = -1;
+    }
+
+    private void readHeader(LineReader reader) throws IOException {
+        byte[] line;
+        while ((line = reader.readLine()) != null) {
+            if (reader == currentReader) {
+                currentLineNumber++;
+            }
+            if (line.length > 0) {
+                lineContext.header(line);
+                return;
+            }
         }
     }
 
@@ -223,28 +365,38 @@ public class FileReadingIterator implements BatchIterator<Row> {
         }
     }
 
-    private String getLine(BufferedReader reader, long startFrom, int retry) throws IOException {
-        String line = null;
+    private byte[] getLine(LineReader reader, long startFrom, int retry) throws IOException {
+        byte[] line = null;
         try {
-            while ((line = reader.readLine()) != null) {
-                currentLineNumber++;
-                if (currentLineNumber < startFrom) {
-                    continue;
+            while (true) {
+                currentLinePosition = reader.position();
+                if (currentLinePosition >= currentEnd) {
+                    return null;
+                }
+                line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                if (currentLineNumber >= 0) {
+                    currentLineNumber++;
+                    if (currentLineNumber < startFrom) {
+                        continue;
+                    }
                 }
-                if (line.length() == 0) {
+                if (line.length == 0) {
                     continue;
                 }
                 break;
             }
         } catch (SocketTimeoutException e) {
-            if (retry > MAX_SOCKET_TIMEOUT_RETRIES) {
+            if (retry > MAX_SOCKET_TIMEOUT_RETRIES || currentLineNumber < 0) {
                 URI uri = currentInput.v2().uri;
                 LOGGER.info("Timeout during COPY FROM '{}' after {} retries", e, uri.toString(), retry);
                 throw e;
             } else {
                 long startLine = currentLineNumber + 1;
                 closeCurrentReader();
-                initCurrentReader(currentInput.v1(), currentUri);
+                initCurrentReader(currentInput.v1(), currentUri, 0L, Long.MAX_VALUE);
                 return getLine(currentReader, startLine, retry + 1);
             }
         } catch (Exception e) {
@@ -261,6 +413,7 @@ public class FileReadingIterator implements BatchIterator<Row> {
     public void close() {
         closeCurrentReader();
         releaseBatchIteratorState();
+        batch = null;
     }
 
     private void releaseBatchIteratorState() {
@@ -270,14 +423,9 @@ public class FileReadingIterator implements BatchIterator<Row> {
         currentUri = null;
     }
 
-    @Override
-    public CompletableFuture<?> loadNextBatch() {
-        return CompletableFutures.failedFuture(new IllegalStateException("All batches already loaded"));
-    }
-
     @Override
     public boolean allLoaded() {
-        return true;
+        return allLoaded;
     }
 
     private static class UriWithGlob {
@@ -362,15 +510,11 @@ public class FileReadingIterator implements BatchIterator<Row> {
         return new URLFileInput(fileUri);
     }
 
-    private BufferedReader createBufferedReader(InputStream inputStream) throws IOException {
-        BufferedReader reader;
+    private LineReader createLineReader(InputStream inputStream, long position) throws IOException {
         if (compressed) {
-            reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream),
-                StandardCharsets.UTF_8));
-        } else {
-            reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            return new LineReader(new GZIPInputStream(inputStream), position);
         }
-        return reader;
+        return new LineReader(inputStream, position);
     }
 
     private static List<URI> getUris(FileInput fileInput, URI fileUri, URI preGlobUri, Predicate<URI> uriPredicate) throws IOException {
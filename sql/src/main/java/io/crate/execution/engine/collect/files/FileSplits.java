@@ -0,0 +1,112 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns the files a node has to read to the {@link FileReadingIterator}s which read them concurrently.
+ *
+ * Large files which can be read in byte ranges are split into ranges of at least {@link #MIN_SPLIT_SIZE} bytes,
+ * one per iterator. Other files are read as a whole by one of the iterators.
+ *
+ * One instance is shared by all iterators of a node, so that they all work on the same listing and file sizes,
+ * even if the files change while they're read.
+ */
+public final class FileSplits {
+
+    static final long MIN_SPLIT_SIZE = 32 * 1024 * 1024;
+
+    private final int numSplits;
+    private final long minSplitSize;
+    private final ConcurrentMap<URI, List<URI>> listings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<URI, Long> sizes = new ConcurrentHashMap<>();
+
+    public FileSplits(int numSplits) {
+        this(numSplits, MIN_SPLIT_SIZE);
+    }
+
+    FileSplits(int numSplits, long minSplitSize) {
+        assert numSplits > 0 : "numSplits must be greater than 0";
+        this.numSplits = numSplits;
+        this.minSplitSize = minSplitSize;
+    }
+
+    public int numSplits() {
+        return numSplits;
+    }
+
+    List<URI> listUris(URI uri, Callable<List<URI>> listUris) throws IOException {
+        try {
+            return listings.computeIfAbsent(uri, k -> {
+                try {
+                    return listUris.call();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @param splittableSize the size of the file if it can be split, otherwise -1
+     * @return the byte range of the file as [start, end) the given split has to read or null if it must not read
+     *         the file. Lines are read by the split in which they start.
+     */
+    long[] range(URI uri, Callable<Long> splittableSize, int split) throws IOException {
+        long size;
+        try {
+            size = sizes.computeIfAbsent(uri, k -> {
+                try {
+                    return splittableSize.call();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int numRanges = size < 0 ? 1 : (int) Math.min(numSplits, Math.max(1L, size / minSplitSize));
+        if (numRanges == 1) {
+            return Math.floorMod(uri.hashCode(), numSplits) == split ? new long[] { 0L, Long.MAX_VALUE } : null;
+        }
+        if (split >= numRanges) {
+            return null;
+        }
+        long start = size * split / numRanges;
+        long end = split == numRanges - 1 ? Long.MAX_VALUE : size * (split + 1) / numRanges;
+        return new long[] { start, end };
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads lines as raw bytes from an {@link InputStream}.
+ *
+ * Lines are terminated by {@code \n} or {@code \r\n}; the terminators are not part of the returned lines.
+ * Unlike {@link java.io.BufferedReader#readLine()} this doesn't decode the bytes into a String, and it keeps track
+ * of the position of the next line in the stream, which is required to read a byte range of a file line by line.
+ */
+final class LineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+    private long position;
+
+    /**
+     * @param position the position of the first byte of the stream within the file
+     */
+    LineReader(InputStream in, long position) {
+        this.in = in;
+        this.position = position;
+    }
+
+    /**
+     * @return the position of the next line within the file
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * @return the next line or null if the end of the stream has been reached
+     */
+    @Nullable
+    byte[] readLine() throws IOException {
+        byte[] line = null;
+        int lineLength = 0;
+        while (true) {
+            if (pos == limit && fill() == false) {
+                if (line == null) {
+                    return null;
+                }
+                return stripCarriageReturn(line, lineLength);
+            }
+            int start = pos;
+            int end = indexOfNewLine(start);
+            int chunkEnd = end == -1 ? limit : end;
+            int chunkLength = chunkEnd - start;
+            if (line == null && end != -1) {
+                // common case: the whole line is within the buffer
+                pos = end + 1;
+                position += chunkLength + 1;
+                return stripCarriageReturn(Arrays.copyOfRange(buffer, start, chunkEnd), chunkLength);
+            }
+            if (line == null) {
+                line = new byte[Math.max(chunkLength * 2, 128)];
+            } else if (lineLength + chunkLength > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + chunkLength));
+            }
+            System.arraycopy(buffer, start, line, lineLength, chunkLength);
+            lineLength += chunkLength;
+            position += chunkLength;
+            pos = chunkEnd;
+            if (end != -1) {
+                pos++;
+                position++;
+                return stripCarriageReturn(line, lineLength);
+            }
+        }
+    }
+
+    /**
+     * Skips the bytes up to and including the next line terminator.
+     */
+    void skipLine() throws IOException {
+        while (pos < limit || fill()) {
+            int end = indexOfNewLine(pos);
+            if (end == -1) {
+                position += limit - pos;
+                pos = limit;
+            } else {
+                position += end + 1 - pos;
+                pos = end + 1;
+                return;
+            }
+        }
+    }
+
+    private int indexOfNewLine(int from) {
+        for (int i = from; i < limit; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    private static byte[] stripCarriageReturn(byte[] line, int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return line.length == length ? line : Arrays.copyOf(line, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
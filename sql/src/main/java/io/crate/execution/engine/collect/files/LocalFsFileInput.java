@@ -90,6 +90,12 @@ public class LocalFsFileInput implements FileInput {
         }
     }
 
+    @Override
+    public long splittableSize(URI uri) throws IOException {
+        Path path = Paths.get(uri);
+        return Files.isRegularFile(path) ? Files.size(path) : -1;
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return false;
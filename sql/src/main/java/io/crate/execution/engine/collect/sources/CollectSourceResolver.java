@@ -40,6 +40,7 @@ import io.crate.execution.jobs.NodeJobsCounter;
 import io.crate.execution.engine.collect.CrateCollector;
 import io.crate.execution.engine.collect.JobCollectContext;
 import io.crate.execution.engine.collect.RowsCollector;
+import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
 import io.crate.execution.engine.pipeline.ProjectorFactory;
 import io.crate.execution.dsl.phases.ExecutionPhaseVisitor;
@@ -86,7 +87,8 @@ public class CollectSourceResolver {
                                  SingleRowSource singleRowSource,
                                  SystemCollectSource systemCollectSource,
                                  NodeStatsCollectSource nodeStatsCollectSource,
-                                 BigArrays bigArrays) {
+                                 BigArrays bigArrays,
+                                 JobsLogs jobsLogs) {
         this.clusterService = clusterService;
 
         EvaluatingNormalizer normalizer = EvaluatingNormalizer.functionOnlyNormalizer(functions);
@@ -101,7 +103,9 @@ public class CollectSourceResolver {
             normalizer,
             systemCollectSource::getRowUpdater,
             systemCollectSource::tableDefinition,
-            bigArrays
+            bigArrays,
+            null,
+            jobsLogs
         );
         this.shardCollectSource = shardCollectSource;
         this.fileCollectSource = new ProjectorSetupCollectSource(fileCollectSource, projectorFactory);
@@ -25,7 +25,9 @@ import io.crate.analyze.CopyFromAnalyzedStatement;
 import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.ValueSymbolVisitor;
 import io.crate.data.RowConsumer;
+import io.crate.data.AsyncCompositeBatchIterator;
 import io.crate.data.BatchIterator;
+import io.crate.data.Row;
 import io.crate.metadata.Functions;
 import io.crate.expression.InputFactory;
 import io.crate.execution.engine.collect.BatchIteratorCollectorBridge;
@@ -33,6 +35,7 @@ import io.crate.execution.engine.collect.CrateCollector;
 import io.crate.execution.engine.collect.JobCollectContext;
 import io.crate.execution.engine.collect.files.FileInputFactory;
 import io.crate.execution.engine.collect.files.FileReadingIterator;
+import io.crate.execution.engine.collect.files.FileSplits;
 import io.crate.execution.engine.collect.files.LineCollectorExpression;
 import io.crate.expression.reference.file.FileLineReferenceResolver;
 import io.crate.execution.dsl.phases.CollectPhase;
@@ -42,11 +45,15 @@ import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 @Singleton
 public class FileCollectSource implements CollectSource {
@@ -54,38 +61,58 @@ public class FileCollectSource implements CollectSource {
     private final ClusterService clusterService;
     private final Map<String, FileInputFactory> fileInputFactoryMap;
     private final InputFactory inputFactory;
+    private final Executor executor;
+    private final int numSplits;
 
     @Inject
-    public FileCollectSource(Functions functions, ClusterService clusterService, Map<String, FileInputFactory> fileInputFactoryMap) {
+    public FileCollectSource(Settings settings,
+                             Functions functions,
+                             ClusterService clusterService,
+                             Map<String, FileInputFactory> fileInputFactoryMap,
+                             ThreadPool threadPool) {
         this.fileInputFactoryMap = fileInputFactoryMap;
         inputFactory = new InputFactory(functions);
         this.clusterService = clusterService;
+        this.executor = new ShardCollectSource.DirectFallbackExecutor(threadPool.executor(ThreadPool.Names.SEARCH));
+        this.numSplits = EsExecutors.numberOfProcessors(settings);
     }
 
     @Override
     public CrateCollector getCollector(CollectPhase collectPhase, RowConsumer consumer, JobCollectContext jobCollectContext) {
         FileUriCollectPhase fileUriCollectPhase = (FileUriCollectPhase) collectPhase;
-        InputFactory.Context<LineCollectorExpression<?>> ctx =
-            inputFactory.ctxForRefs(FileLineReferenceResolver::getImplementation);
-        ctx.add(collectPhase.toCollect());
-
         String[] readers = fileUriCollectPhase.nodeIds().toArray(
             new String[fileUriCollectPhase.nodeIds().size()]);
         Arrays.sort(readers);
 
         List<String> fileUris;
         fileUris = targetUriToStringList(fileUriCollectPhase.targetUri());
-        BatchIterator fileReadingIterator = FileReadingIterator.newInstance(
-            fileUris,
-            ctx.topLevelInputs(),
-            ctx.expressions(),
-            fileUriCollectPhase.compression(),
-            fileInputFactoryMap,
-            fileUriCollectPhase.sharedStorage(),
-            readers.length,
-            Arrays.binarySearch(readers, clusterService.state().nodes().getLocalNodeId())
-        );
 
+        // the files of this node are read by one iterator per processor; large uncompressed local files are split
+        // into byte ranges, so that they're read and parsed concurrently as well
+        FileSplits fileSplits = new FileSplits(numSplits);
+        @SuppressWarnings("unchecked")
+        BatchIterator<Row>[] iterators = new BatchIterator[numSplits];
+        for (int split = 0; split < numSplits; split++) {
+            InputFactory.Context<LineCollectorExpression<?>> ctx =
+                inputFactory.ctxForRefs(FileLineReferenceResolver::getImplementation);
+            ctx.add(collectPhase.toCollect());
+            iterators[split] = FileReadingIterator.newInstance(
+                fileUris,
+                ctx.topLevelInputs(),
+                ctx.expressions(),
+                fileUriCollectPhase.compression(),
+                fileInputFactoryMap,
+                fileUriCollectPhase.sharedStorage(),
+                readers.length,
+                Arrays.binarySearch(readers, clusterService.state().nodes().getLocalNodeId()),
+                fileUriCollectPhase.inputFormat(),
+                fileSplits,
+                split
+            );
+        }
+        BatchIterator<Row> fileReadingIterator = numSplits == 1
+            ? iterators[0]
+            : new AsyncCompositeBatchIterator<>(executor, iterators);
         return BatchIteratorCollectorBridge.newInstance(fileReadingIterator, consumer);
     }
 
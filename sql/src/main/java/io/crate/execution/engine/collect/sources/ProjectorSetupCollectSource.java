@@ -46,6 +46,7 @@ public class ProjectorSetupCollectSource implements CollectSource {
                 consumer,
                 collectPhase.projections(),
                 collectPhase.jobId(),
+                collectPhase.phaseId(),
                 jobCollectContext.queryPhaseRamAccountingContext(),
                 projectorFactory),
             jobCollectContext
@@ -47,6 +47,7 @@ import io.crate.execution.engine.collect.ShardCollectorProvider;
 import io.crate.execution.engine.collect.collectors.CompositeCollector;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
 import io.crate.execution.engine.collect.collectors.OrderedLuceneBatchIteratorFactory;
+import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.execution.engine.pipeline.ProjectingRowConsumer;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
 import io.crate.execution.engine.pipeline.ProjectorFactory;
@@ -180,7 +181,8 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
                               SystemCollectSource systemCollectSource,
                               IndexEventListenerProxy indexEventListenerProxy,
                               BlobIndicesService blobIndicesService,
-                              BigArrays bigArrays) {
+                              BigArrays bigArrays,
+                              JobsLogs jobsLogs) {
         super(settings);
         this.unassignedShardReferenceResolver = new StaticTableReferenceResolver<>(
             SysShardsTableInfo.unassignedShardsExpressions());
@@ -217,7 +219,9 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
             nodeNormalizer,
             systemCollectSource::getRowUpdater,
             systemCollectSource::tableDefinition,
-            bigArrays
+            bigArrays,
+            null,
+            jobsLogs
         );
 
         indexEventListenerProxy.addLast(new LifecycleListener());
@@ -298,6 +302,7 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
             lastConsumer,
             Projections.nodeProjections(normalizedPhase.projections()),
             collectPhase.jobId(),
+            collectPhase.phaseId(),
             jobCollectContext.queryPhaseRamAccountingContext(),
             sharedProjectorFactory
         );
@@ -151,6 +151,44 @@ public class JobsLogs {
         operationContextLogs.add(new OperationContextLog(operationContext, errorMessage));
     }
 
+    /**
+     * Adds to the spill statistics of an active operation.
+     * An operation may spill several times, possibly from different threads, so the values are increments
+     * which are added to the totals shown in sys.operations.
+     *
+     * @param bytes number of bytes the operation has spilled to disk since its last report
+     * @param partitions number of new files the operation has spilled to since its last report
+     */
+    public void operationSpilled(int operationId, UUID jobId, long bytes, int partitions) {
+        if (!isEnabled()) {
+            return;
+        }
+        OperationContext operationContext = operationsTable.get(uniqueOperationId(operationId, jobId));
+        if (operationContext != null) {
+            synchronized (operationContext) {
+                operationContext.spilledBytes += bytes;
+                operationContext.spilledPartitions += partitions;
+            }
+        }
+    }
+
+    /**
+     * Updates the bulk statistics of an active operation which writes into shards
+     *
+     * @param bulkSize the current number of items per shard request, averaged over all target shards
+     * @param inFlightRequests the number of shard requests which are currently in-flight
+     */
+    public void operationBulkStats(int operationId, UUID jobId, int bulkSize, int inFlightRequests) {
+        if (!isEnabled()) {
+            return;
+        }
+        OperationContext operationContext = operationsTable.get(uniqueOperationId(operationId, jobId));
+        if (operationContext != null) {
+            operationContext.bulkSize = bulkSize;
+            operationContext.bulkRequestsInFlight = inFlightRequests;
+        }
+    }
+
     public Iterable<JobContext> activeJobs() {
         return jobsTable.values();
     }
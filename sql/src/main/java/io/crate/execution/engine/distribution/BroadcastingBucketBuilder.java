@@ -35,12 +35,12 @@ import java.io.IOException;
 public class BroadcastingBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
-    private final StreamBucket.Builder bucketBuilder;
+    private final ColumnarStreamBucket.Builder bucketBuilder;
     private volatile int size = 0;
 
     public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets) {
         this.numBuckets = numBuckets;
-        this.bucketBuilder = new StreamBucket.Builder(streamers, null);
+        this.bucketBuilder = new ColumnarStreamBucket.Builder(streamers);
     }
 
     @Override
@@ -0,0 +1,640 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import io.crate.Streamer;
+import io.crate.data.Bucket;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.types.DoubleType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.StringType;
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Bucket which is used to ship rows between nodes as part of a {@link DistributedResultRequest}.
+ *
+ * In contrast to the {@link StreamBucket}, which writes the rows one after another, the rows are transposed into
+ * a page of column blocks:
+ *
+ * <pre>
+ *     page:    byte flags | int numColumns | int[numColumns] blockLengths | [int uncompressedLength] | blocks
+ *     block:   byte encoding | values
+ * </pre>
+ *
+ * The encoding of a block depends on the streamer of the column:
+ *
+ * <ul>
+ *     <li>long, timestamp, integer and double columns are written as a null bitmap followed by the
+ *     fixed width values</li>
+ *     <li>string columns are written as a null bitmap, the lengths of the values and the concatenated value bytes</li>
+ *     <li>all other columns are written value by value using their streamer</li>
+ * </ul>
+ *
+ * If the blocks of a page exceed {@link #COMPRESSION_THRESHOLD} bytes they're compressed with LZ4, as long as
+ * this saves a meaningful amount of bytes.
+ *
+ * Uncompressed pages are read in place, without copying the blocks out of the buffer they've been received in.
+ */
+public class ColumnarStreamBucket implements Bucket, Streamable {
+
+    static final int COMPRESSION_THRESHOLD = 64 * 1024;
+    private static final byte FLAG_COMPRESSED = 1;
+
+    private static final byte ENCODING_LONG = 0;
+    private static final byte ENCODING_INT = 1;
+    private static final byte ENCODING_DOUBLE = 2;
+    private static final byte ENCODING_BYTES_REF = 3;
+    private static final byte ENCODING_STREAMED = 4;
+
+    private Streamer<?>[] streamers;
+    private int size = -1;
+    private BytesReference page;
+
+    public static class Builder {
+
+        private final Streamer<?>[] streamers;
+        private final ColumnWriter[] writers;
+        private int size = 0;
+
+        public Builder(Streamer<?>[] streamers) {
+            assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
+            this.streamers = streamers;
+            this.writers = new ColumnWriter[streamers.length];
+            for (int i = 0; i < streamers.length; i++) {
+                writers[i] = ColumnWriter.forStreamer(streamers[i]);
+            }
+        }
+
+        public void add(Row row) throws IOException {
+            assert streamers.length == row.numColumns() : "number of streamer must match row size";
+
+            for (int i = 0; i < writers.length; i++) {
+                writers[i].add(size, row.get(i));
+            }
+            size++;
+        }
+
+        public void writeToStream(StreamOutput output) throws IOException {
+            build().writeTo(output);
+        }
+
+        public ColumnarStreamBucket build() throws IOException {
+            ColumnarStreamBucket bucket = new ColumnarStreamBucket(streamers);
+            bucket.size = size;
+            if (size > 0) {
+                bucket.page = encodePage();
+            }
+            return bucket;
+        }
+
+        public void reset() {
+            for (ColumnWriter writer : writers) {
+                writer.reset(size);
+            }
+            size = 0;
+        }
+
+        private BytesReference encodePage() throws IOException {
+            int[] blockLengths = new int[writers.length];
+            BytesStreamOutput blocks = new BytesStreamOutput();
+            for (int i = 0; i < writers.length; i++) {
+                int start = blocks.size();
+                writers[i].writeTo(blocks, size);
+                blockLengths[i] = blocks.size() - start;
+            }
+
+            BytesReference blocksBytes = blocks.bytes();
+            byte[] compressed = null;
+            int compressedLength = 0;
+            if (blocksBytes.length() >= COMPRESSION_THRESHOLD) {
+                byte[] raw = BytesReference.toBytes(blocksBytes);
+                // LZ4 worst case: the input doesn't compress at all and is written as literals
+                compressed = new byte[raw.length + raw.length / 255 + 16];
+                ByteArrayDataOutput compressedOut = new ByteArrayDataOutput(compressed);
+                CompressionMode.FAST.newCompressor().compress(raw, 0, raw.length, compressedOut);
+                compressedLength = compressedOut.getPosition();
+                if (compressedLength > raw.length * 0.9) {
+                    compressed = null;
+                }
+            }
+
+            BytesStreamOutput out = new BytesStreamOutput(
+                9 + 4 * writers.length + (compressed == null ? blocksBytes.length() : compressedLength));
+            out.writeByte(compressed == null ? 0 : FLAG_COMPRESSED);
+            out.writeInt(writers.length);
+            for (int blockLength : blockLengths) {
+                out.writeInt(blockLength);
+            }
+            if (compressed == null) {
+                blocksBytes.writeTo(out);
+            } else {
+                out.writeInt(blocksBytes.length());
+                out.writeBytes(compressed, 0, compressedLength);
+            }
+            return out.bytes();
+        }
+    }
+
+    public ColumnarStreamBucket(@Nullable Streamer<?>[] streamers) {
+        assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
+        this.streamers = streamers;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void streamers(Streamer<?>[] streamers) {
+        assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
+        this.streamers = streamers;
+    }
+
+    private static boolean validStreamers(Streamer<?>[] streamers) {
+        if (streamers == null) {
+            return true;
+        }
+        for (Streamer<?> streamer : streamers) {
+            if (streamer == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void writeBucket(StreamOutput out, @Nullable Streamer<?>[] streamers, @Nullable Bucket bucket) throws IOException {
+        if (bucket == null || bucket.size() == 0) {
+            out.writeVInt(0);
+        } else if (bucket instanceof ColumnarStreamBucket) {
+            ((ColumnarStreamBucket) bucket).writeTo(out);
+        } else {
+            assert streamers != null : "Need streamers for non-columnar bucket implementation";
+            Builder builder = new Builder(streamers);
+            for (Row row : bucket) {
+                builder.add(row);
+            }
+            builder.writeToStream(out);
+        }
+    }
+
+    @Override
+    public Iterator<Row> iterator() {
+        if (size < 1) {
+            return Collections.emptyIterator();
+        }
+        assert streamers != null : "streamers must not be null";
+        try {
+            return new RowIterator(decodeColumns(), size);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private ColumnReader[] decodeColumns() throws IOException {
+        StreamInput header = page.streamInput();
+        boolean compressed = (header.readByte() & FLAG_COMPRESSED) != 0;
+        int numColumns = header.readInt();
+        assert numColumns == streamers.length : "number of streamers must match the number of columns";
+        int[] blockLengths = new int[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            blockLengths[i] = header.readInt();
+        }
+        int headerLength = 5 + 4 * numColumns;
+        BytesReference blocks;
+        if (compressed) {
+            int uncompressedLength = header.readInt();
+            headerLength += 4;
+            byte[] compressedBytes = BytesReference.toBytes(page.slice(headerLength, page.length() - headerLength));
+            BytesRef uncompressed = new BytesRef();
+            CompressionMode.FAST.newDecompressor().decompress(
+                new ByteArrayDataInput(compressedBytes), uncompressedLength, 0, uncompressedLength, uncompressed);
+            blocks = new BytesArray(uncompressed.bytes, uncompressed.offset, uncompressed.length);
+        } else {
+            blocks = page.slice(headerLength, page.length() - headerLength);
+        }
+
+        ColumnReader[] readers = new ColumnReader[numColumns];
+        int offset = 0;
+        for (int i = 0; i < numColumns; i++) {
+            readers[i] = ColumnReader.forBlock(blocks.slice(offset, blockLengths[i]), streamers[i], size);
+            offset += blockLengths[i];
+        }
+        return readers;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        size = in.readVInt();
+        if (size > 0) {
+            page = in.readBytesReference();
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        assert size > -1 : "size must be > -1";
+        out.writeVInt(size);
+        if (size > 0) {
+            out.writeBytesReference(page);
+        }
+    }
+
+    private static class RowIterator implements Iterator<Row> {
+
+        private final ColumnReader[] readers;
+        private final int size;
+        private final Object[] current;
+        private final RowN row;
+        private int pos = 0;
+
+        private RowIterator(ColumnReader[] readers, int size) {
+            this.readers = readers;
+            this.size = size;
+            current = new Object[readers.length];
+            row = new RowN(current);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < size;
+        }
+
+        @Override
+        public Row next() {
+            for (int c = 0; c < readers.length; c++) {
+                try {
+                    current[c] = readers[c].read(pos);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            pos++;
+            return row;
+        }
+
+        @Override
+        public void remove() {
+        }
+    }
+
+    private static int bitmapLength(int numRows) {
+        return (numRows + 7) >>> 3;
+    }
+
+    private static boolean isNull(byte[] nulls, int pos) {
+        return (nulls[pos >>> 3] & (1 << (pos & 7))) != 0;
+    }
+
+    private abstract static class ColumnWriter {
+
+        static ColumnWriter forStreamer(Streamer<?> streamer) {
+            if (streamer instanceof LongType) {
+                return new LongWriter();
+            }
+            if (streamer instanceof IntegerType) {
+                return new IntWriter();
+            }
+            if (streamer instanceof DoubleType) {
+                return new DoubleWriter();
+            }
+            if (streamer instanceof StringType) {
+                return new BytesRefWriter();
+            }
+            return new StreamedWriter(streamer);
+        }
+
+        abstract void add(int pos, Object value) throws IOException;
+
+        abstract void writeTo(StreamOutput out, int numRows) throws IOException;
+
+        abstract void reset(int numRows);
+    }
+
+    private abstract static class FixedWidthWriter extends ColumnWriter {
+
+        byte[] nulls = new byte[8];
+
+        /**
+         * @return true if the value is null, in which case it's marked in the null bitmap
+         */
+        final boolean addNull(int pos, Object value) {
+            if (pos >>> 3 == nulls.length) {
+                nulls = ArrayUtil.grow(nulls, nulls.length + 1);
+            }
+            if (value == null) {
+                nulls[pos >>> 3] |= (byte) (1 << (pos & 7));
+                return true;
+            }
+            return false;
+        }
+
+        final void writeNulls(StreamOutput out, int numRows) throws IOException {
+            out.writeBytes(nulls, 0, bitmapLength(numRows));
+        }
+
+        @Override
+        void reset(int numRows) {
+            Arrays.fill(nulls, 0, bitmapLength(numRows), (byte) 0);
+        }
+    }
+
+    private static class LongWriter extends FixedWidthWriter {
+
+        private long[] values = new long[64];
+
+        @Override
+        void add(int pos, Object value) {
+            if (pos == values.length) {
+                values = ArrayUtil.grow(values, pos + 1);
+            }
+            values[pos] = addNull(pos, value) ? 0L : ((Number) value).longValue();
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int numRows) throws IOException {
+            out.writeByte(ENCODING_LONG);
+            writeNulls(out, numRows);
+            for (int i = 0; i < numRows; i++) {
+                out.writeLong(values[i]);
+            }
+        }
+    }
+
+    private static class IntWriter extends FixedWidthWriter {
+
+        private int[] values = new int[64];
+
+        @Override
+        void add(int pos, Object value) {
+            if (pos == values.length) {
+                values = ArrayUtil.grow(values, pos + 1);
+            }
+            values[pos] = addNull(pos, value) ? 0 : ((Number) value).intValue();
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int numRows) throws IOException {
+            out.writeByte(ENCODING_INT);
+            writeNulls(out, numRows);
+            for (int i = 0; i < numRows; i++) {
+                out.writeInt(values[i]);
+            }
+        }
+    }
+
+    private static class DoubleWriter extends FixedWidthWriter {
+
+        private double[] values = new double[64];
+
+        @Override
+        void add(int pos, Object value) {
+            if (pos == values.length) {
+                values = ArrayUtil.grow(values, pos + 1);
+            }
+            values[pos] = addNull(pos, value) ? 0.0d : ((Number) value).doubleValue();
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int numRows) throws IOException {
+            out.writeByte(ENCODING_DOUBLE);
+            writeNulls(out, numRows);
+            for (int i = 0; i < numRows; i++) {
+                out.writeDouble(values[i]);
+            }
+        }
+    }
+
+    private static class BytesRefWriter extends FixedWidthWriter {
+
+        private int[] lengths = new int[64];
+        private byte[] data = new byte[256];
+        private int dataLength = 0;
+
+        @Override
+        void add(int pos, Object value) {
+            if (pos == lengths.length) {
+                lengths = ArrayUtil.grow(lengths, pos + 1);
+            }
+            if (addNull(pos, value)) {
+                lengths[pos] = 0;
+                return;
+            }
+            BytesRef bytesRef = (BytesRef) value;
+            data = ArrayUtil.grow(data, dataLength + bytesRef.length);
+            System.arraycopy(bytesRef.bytes, bytesRef.offset, data, dataLength, bytesRef.length);
+            dataLength += bytesRef.length;
+            lengths[pos] = bytesRef.length;
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int numRows) throws IOException {
+            out.writeByte(ENCODING_BYTES_REF);
+            writeNulls(out, numRows);
+            for (int i = 0; i < numRows; i++) {
+                out.writeInt(lengths[i]);
+            }
+            out.writeBytes(data, 0, dataLength);
+        }
+
+        @Override
+        void reset(int numRows) {
+            super.reset(numRows);
+            dataLength = 0;
+        }
+    }
+
+    private static class StreamedWriter extends ColumnWriter {
+
+        private final Streamer<?> streamer;
+        private BytesStreamOutput values = new BytesStreamOutput();
+
+        StreamedWriter(Streamer<?> streamer) {
+            this.streamer = streamer;
+        }
+
+        @Override
+        void add(int pos, Object value) throws IOException {
+            streamer.writeValueTo(values, value);
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int numRows) throws IOException {
+            out.writeByte(ENCODING_STREAMED);
+            values.bytes().writeTo(out);
+        }
+
+        @Override
+        void reset(int numRows) {
+            // next bucket is probably going to have the same size
+            values = new BytesStreamOutput(values.size());
+        }
+    }
+
+    /**
+     * Reads the values of a column block. Values must be read in order.
+     */
+    private abstract static class ColumnReader {
+
+        static ColumnReader forBlock(BytesReference block, Streamer<?> streamer, int numRows) throws IOException {
+            StreamInput in = block.streamInput();
+            byte encoding = in.readByte();
+            if (encoding == ENCODING_STREAMED) {
+                return new StreamedReader(in, streamer);
+            }
+            byte[] nulls = new byte[bitmapLength(numRows)];
+            in.readBytes(nulls, 0, nulls.length);
+            switch (encoding) {
+                case ENCODING_LONG:
+                    return new LongReader(nulls, in);
+
+                case ENCODING_INT:
+                    return new IntReader(nulls, in);
+
+                case ENCODING_DOUBLE:
+                    return new DoubleReader(nulls, in);
+
+                case ENCODING_BYTES_REF:
+                    int dataOffset = 1 + nulls.length + 4 * numRows;
+                    BytesRef data = block.slice(dataOffset, block.length() - dataOffset).toBytesRef();
+                    return new BytesRefReader(nulls, in, data);
+
+                default:
+                    throw new IllegalStateException("Invalid column encoding: " + encoding);
+            }
+        }
+
+        @Nullable
+        abstract Object read(int pos) throws IOException;
+    }
+
+    private static class LongReader extends ColumnReader {
+
+        private final byte[] nulls;
+        private final StreamInput values;
+
+        LongReader(byte[] nulls, StreamInput values) {
+            this.nulls = nulls;
+            this.values = values;
+        }
+
+        @Override
+        Object read(int pos) throws IOException {
+            long value = values.readLong();
+            return isNull(nulls, pos) ? null : value;
+        }
+    }
+
+    private static class IntReader extends ColumnReader {
+
+        private final byte[] nulls;
+        private final StreamInput values;
+
+        IntReader(byte[] nulls, StreamInput values) {
+            this.nulls = nulls;
+            this.values = values;
+        }
+
+        @Override
+        Object read(int pos) throws IOException {
+            int value = values.readInt();
+            return isNull(nulls, pos) ? null : value;
+        }
+    }
+
+    private static class DoubleReader extends ColumnReader {
+
+        private final byte[] nulls;
+        private final StreamInput values;
+
+        DoubleReader(byte[] nulls, StreamInput values) {
+            this.nulls = nulls;
+            this.values = values;
+        }
+
+        @Override
+        Object read(int pos) throws IOException {
+            double value = values.readDouble();
+            return isNull(nulls, pos) ? null : value;
+        }
+    }
+
+    private static class BytesRefReader extends ColumnReader {
+
+        private final byte[] nulls;
+        private final StreamInput lengths;
+        private final BytesRef data;
+        private int offset;
+
+        BytesRefReader(byte[] nulls, StreamInput lengths, BytesRef data) {
+            this.nulls = nulls;
+            this.lengths = lengths;
+            this.data = data;
+            this.offset = data.offset;
+        }
+
+        @Override
+        Object read(int pos) throws IOException {
+            int length = lengths.readInt();
+            if (isNull(nulls, pos)) {
+                return null;
+            }
+            BytesRef value = new BytesRef(data.bytes, offset, length);
+            offset += length;
+            return value;
+        }
+    }
+
+    private static class StreamedReader extends ColumnReader {
+
+        private final StreamInput values;
+        private final Streamer<?> streamer;
+
+        StreamedReader(StreamInput values, Streamer<?> streamer) {
+            this.values = values;
+            this.streamer = streamer;
+        }
+
+        @Override
+        Object read(int pos) throws IOException {
+            return streamer.readValueFrom(values);
+        }
+    }
+}
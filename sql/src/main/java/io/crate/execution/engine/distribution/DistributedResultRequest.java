@@ -97,15 +97,15 @@ public class DistributedResultRequest extends TransportRequest {
     }
 
     public void streamers(Streamer<?>[] streamers) {
-        if (rows instanceof StreamBucket) {
+        if (rows instanceof ColumnarStreamBucket) {
             assert streamers != null : "streamers must not be null";
-            ((StreamBucket) rows).streamers(streamers);
+            ((ColumnarStreamBucket) rows).streamers(streamers);
         }
         this.streamers = streamers;
     }
 
     public boolean rowsCanBeRead() {
-        if (rows instanceof StreamBucket) {
+        if (rows instanceof ColumnarStreamBucket) {
             return streamers != null;
         }
         return true;
@@ -142,7 +142,7 @@ public class DistributedResultRequest extends TransportRequest {
             throwable = in.readException();
             isKilled = in.readBoolean();
         } else {
-            StreamBucket bucket = new StreamBucket(streamers);
+            ColumnarStreamBucket bucket = new ColumnarStreamBucket(streamers);
             bucket.readFrom(in);
             rows = bucket;
         }
@@ -164,8 +164,7 @@ public class DistributedResultRequest extends TransportRequest {
             out.writeException(throwable);
             out.writeBoolean(isKilled);
         } else {
-            // TODO: we should not rely on another bucket in this class and instead write to the stream directly
-            StreamBucket.writeBucket(out, streamers, rows);
+            ColumnarStreamBucket.writeBucket(out, streamers, rows);
         }
     }
 }
@@ -40,7 +40,7 @@ import java.util.List;
 public class ModuloBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
-    private final List<StreamBucket.Builder> bucketBuilders;
+    private final List<ColumnarStreamBucket.Builder> bucketBuilders;
     private final int distributedByColumnIdx;
     private volatile int size = 0;
 
@@ -49,13 +49,13 @@ public class ModuloBucketBuilder implements MultiBucketBuilder {
         this.distributedByColumnIdx = distributedByColumnIdx;
         this.bucketBuilders = new ArrayList<>(numBuckets);
         for (int i = 0; i < numBuckets; i++) {
-            bucketBuilders.add(new StreamBucket.Builder(streamers, null));
+            bucketBuilders.add(new ColumnarStreamBucket.Builder(streamers));
         }
     }
 
     @Override
     public void add(Row row) {
-        final StreamBucket.Builder builder = bucketBuilders.get(getBucket(row));
+        final ColumnarStreamBucket.Builder builder = bucketBuilders.get(getBucket(row));
         try {
             synchronized (this) {
                 builder.add(row);
@@ -76,7 +76,7 @@ public class ModuloBucketBuilder implements MultiBucketBuilder {
         assert buckets.length == numBuckets : "length of the provided array must match numBuckets";
         for (int i = 0; i < numBuckets; i++) {
             try {
-                final StreamBucket.Builder builder = bucketBuilders.get(i);
+                final ColumnarStreamBucket.Builder builder = bucketBuilders.get(i);
                 buckets[i] = builder.build();
                 builder.reset();
             } catch (IOException e) {
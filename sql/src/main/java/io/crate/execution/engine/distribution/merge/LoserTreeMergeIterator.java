@@ -0,0 +1,351 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution.merge;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.UnmodifiableIterator;
+import org.apache.lucene.util.BytesRefBuilder;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * k-way merge of sorted iterables using a tournament tree of losers.
+ * <p>
+ * Each iterable (run) is a leaf of the tree, every inner node stores the run which lost the match at that node,
+ * and the overall winner is stored at index 0. Once the row of the winner has been consumed only the matches
+ * on the path of its leaf have to be replayed, which takes {@code log2(k)} comparisons instead of the
+ * up to {@code 2 * log2(k)} comparisons a binary heap needs.
+ * <p>
+ * If the same run wins twice in a row, the runner-up is determined. As long as the rows of the winner sort before
+ * the row of the runner-up (e.g. the key ranges of the runs don't overlap), they are emitted with a single comparison.
+ * <p>
+ * If a sort key encoder is given, the sort key of the current row of each run is encoded once and the runs are
+ * compared by their keys instead of by the comparator.
+ * <p>
+ * Like the other {@link SortedMergeIterator}s it has (limited) shared object support:
+ * the next row of a run is only read once the previous row of it has been consumed, see {@link #hasNext()}.
+ */
+class LoserTreeMergeIterator<TKey, TRow> extends UnmodifiableIterator<TRow> implements SortedMergeIterator<TKey, TRow> {
+
+    private static final int NONE = -1;
+
+    private final Comparator<? super TRow> comparator;
+    @Nullable
+    private final BiConsumer<? super TRow, BytesRefBuilder> sortKeyEncoder;
+
+    @Nullable
+    private final List<Iterable<TRow>> storedIterables;
+    @Nullable
+    private final IntArrayList sortRecording;
+
+    private List<Run<TKey, TRow>> runs = new ArrayList<>();
+    private int[] tree = new int[0];
+    private int numActive = 0;
+    private int runnerUp = NONE;
+
+    /**
+     * the row of the winner has been emitted but the run has not been advanced yet
+     */
+    private boolean pending = false;
+
+    /**
+     * the winner is exhausted but its path has not been replayed yet, so that a new page can take its place
+     */
+    private boolean exhaustedWinner = false;
+
+    private boolean leastExhausted = false;
+    private TKey exhausted;
+
+    LoserTreeMergeIterator(Comparator<? super TRow> comparator,
+                           @Nullable BiConsumer<? super TRow, BytesRefBuilder> sortKeyEncoder,
+                           boolean recording) {
+        this.comparator = comparator;
+        this.sortKeyEncoder = sortKeyEncoder;
+        if (recording) {
+            storedIterables = new ArrayList<>();
+            sortRecording = new IntArrayList();
+        } else {
+            storedIterables = null;
+            sortRecording = null;
+        }
+    }
+
+    private static final class Run<TKey, TRow> {
+
+        private final TKey key;
+        private final Iterator<TRow> iterator;
+        private final int storedIdx;
+        private final BytesRefBuilder sortKey;
+        @Nullable
+        private TRow current;
+        private boolean exhausted = false;
+
+        Run(TKey key, Iterator<TRow> iterator, int storedIdx, boolean withSortKey) {
+            this.key = key;
+            this.iterator = iterator;
+            this.storedIdx = storedIdx;
+            this.sortKey = withSortKey ? new BytesRefBuilder() : null;
+        }
+    }
+
+    @Override
+    public void merge(Iterable<? extends KeyIterable<TKey, TRow>> iterables) {
+        advancePending();
+        List<Run<TKey, TRow>> newRuns = new ArrayList<>();
+        for (KeyIterable<TKey, TRow> iterable : iterables) {
+            Iterator<TRow> iterator = iterable.iterator();
+            if (!iterator.hasNext()) {
+                continue;
+            }
+            int storedIdx = NONE;
+            if (storedIterables != null) {
+                storedIdx = storedIterables.size();
+                storedIterables.add(iterable);
+            }
+            Run<TKey, TRow> run = new Run<>(iterable.key(), iterator, storedIdx, sortKeyEncoder != null);
+            advance(run);
+            numActive++;
+            if (exhaustedWinner) {
+                // the leaf of the winner is the only one which can be replaced without rebuilding the tree
+                int leaf = tree[0];
+                runs.set(leaf, run);
+                replay(leaf);
+                exhaustedWinner = false;
+            } else {
+                newRuns.add(run);
+            }
+        }
+        if (!newRuns.isEmpty()) {
+            rebuild(newRuns);
+        }
+        leastExhausted = false;
+    }
+
+    /**
+     * Removes the exhausted runs and builds a new tree out of the remaining and the given runs.
+     */
+    private void rebuild(List<Run<TKey, TRow>> newRuns) {
+        List<Run<TKey, TRow>> activeRuns = new ArrayList<>(numActive);
+        for (Run<TKey, TRow> run : runs) {
+            if (!run.exhausted) {
+                activeRuns.add(run);
+            }
+        }
+        activeRuns.addAll(newRuns);
+        runs = activeRuns;
+        exhaustedWinner = false;
+        runnerUp = NONE;
+
+        int k = runs.size();
+        tree = new int[k];
+        if (k == 0) {
+            return;
+        }
+        // winners[k + i] is leaf i, winners[1 .. k - 1] are the winners of the inner nodes
+        int[] winners = new int[2 * k];
+        for (int i = 0; i < k; i++) {
+            winners[k + i] = i;
+        }
+        for (int node = k - 1; node > 0; node--) {
+            int left = winners[2 * node];
+            int right = winners[2 * node + 1];
+            if (beats(left, right)) {
+                winners[node] = left;
+                tree[node] = right;
+            } else {
+                winners[node] = right;
+                tree[node] = left;
+            }
+        }
+        tree[0] = winners[1];
+    }
+
+    /**
+     * Replays the matches on the path of the given leaf, which must be the leaf of the last winner.
+     */
+    private void replay(int leaf) {
+        int k = tree.length;
+        int winner = leaf;
+        for (int node = (leaf + k) >>> 1; node > 0; node >>>= 1) {
+            int loser = tree[node];
+            if (beats(loser, winner)) {
+                tree[node] = winner;
+                winner = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    /**
+     * @return the best run out of the runs which lost directly against the winner
+     */
+    private int runnerUp(int winner) {
+        int k = tree.length;
+        int best = NONE;
+        for (int node = (winner + k) >>> 1; node > 0; node >>>= 1) {
+            int loser = tree[node];
+            if (best == NONE || beats(loser, best)) {
+                best = loser;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return true if the current row of run {@code a} has to be emitted before the current row of run {@code b}.
+     *         Exhausted runs lose against all other runs, ties are resolved by the leaf index.
+     */
+    private boolean beats(int a, int b) {
+        Run<TKey, TRow> runA = runs.get(a);
+        Run<TKey, TRow> runB = runs.get(b);
+        if (runA.exhausted || runB.exhausted) {
+            return runB.exhausted && (!runA.exhausted || a < b);
+        }
+        int cmp;
+        if (sortKeyEncoder == null) {
+            cmp = comparator.compare(runA.current, runB.current);
+        } else {
+            cmp = runA.sortKey.get().compareTo(runB.sortKey.get());
+        }
+        return cmp < 0 || (cmp == 0 && a < b);
+    }
+
+    private void advance(Run<TKey, TRow> run) {
+        if (run.iterator.hasNext()) {
+            run.current = run.iterator.next();
+            if (sortKeyEncoder != null) {
+                sortKeyEncoder.accept(run.current, run.sortKey);
+            }
+        } else {
+            run.current = null;
+            run.exhausted = true;
+        }
+    }
+
+    /**
+     * Moves the run of the last emitted row to its next row.
+     */
+    private void advancePending() {
+        if (!pending) {
+            return;
+        }
+        pending = false;
+        int winner = tree[0];
+        Run<TKey, TRow> run = runs.get(winner);
+        advance(run);
+        if (run.exhausted) {
+            numActive--;
+            leastExhausted = true;
+            exhausted = run.key;
+            exhaustedWinner = true;
+            runnerUp = NONE;
+        } else if (runnerUp != NONE && beats(winner, runnerUp)) {
+            // the matches on the path of the winner don't change
+            return;
+        } else {
+            replay(winner);
+            runnerUp = tree[0] == winner ? runnerUp(winner) : NONE;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        advancePending();
+        return numActive > 0;
+    }
+
+    @Override
+    public TRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("no more rows should exist");
+        }
+        if (exhaustedWinner) {
+            replay(tree[0]);
+            exhaustedWinner = false;
+        }
+        Run<TKey, TRow> run = runs.get(tree[0]);
+        if (sortRecording != null) {
+            sortRecording.add(run.storedIdx);
+        }
+        pending = true;
+        return run.current;
+    }
+
+    @Override
+    public boolean isLeastExhausted() {
+        return leastExhausted;
+    }
+
+    @Override
+    public TKey exhaustedIterable() {
+        return exhausted;
+    }
+
+    @Override
+    public Iterable<TRow> repeat() {
+        if (sortRecording == null) {
+            throw new UnsupportedOperationException("cannot repeat without recording the sort order");
+        }
+        return () -> new ReplayingIterator<>(
+            sortRecording.buffer, sortRecording.size(), Iterables.transform(storedIterables, Iterable::iterator));
+    }
+
+    static class ReplayingIterator<T> extends AbstractIterator<T> {
+        private final int[] sorting;
+        private final int numRows;
+        private int index = 0;
+        private final List<Iterator<T>> iters;
+        private final int itersSize;
+
+        ReplayingIterator(int[] sorting, int numRows, Iterable<? extends Iterator<T>> iterators) {
+            this.sorting = sorting;
+            this.numRows = numRows;
+            this.iters = ImmutableList.<Iterator<T>>builder().addAll(iterators).build();
+            this.itersSize = this.iters.size();
+        }
+
+        @Override
+        protected T computeNext() {
+            if (index >= numRows) {
+                return endOfData();
+            }
+            int iterIdx = sorting[index++];
+            assert iterIdx < itersSize : "invalid iters index";
+
+            Iterator<T> iter = iters.get(iterIdx);
+            if (!iter.hasNext()) {
+                return endOfData();
+            }
+            return iter.next();
+        }
+    }
+}
@@ -24,10 +24,17 @@ package io.crate.execution.engine.distribution.merge;
 import io.crate.breaker.RowAccounting;
 import io.crate.data.Row;
 import io.crate.execution.engine.sort.OrderingByPosition;
+import io.crate.execution.engine.sort.SortKeyEncoder;
 import io.crate.planner.PositionalOrderBy;
+import io.crate.types.DataType;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.elasticsearch.common.inject.internal.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 public interface PagingIterator<TKey, TRow> extends Iterator<TRow> {
@@ -57,10 +64,13 @@ public interface PagingIterator<TKey, TRow> extends Iterator<TRow> {
      * Returns the suitable {@link PagingIterator} according to the use case.
      * If requiresRepeat is true or we're looking to create and ordered iterator then the PagingIterator is wrapped with
      * {@link RamAccountingPageIterator} which calculates the memory usage and applies CircuitBreaker logic.
+     * Ordered iterators compare the rows by their {@link SortKeyEncoder binary sort keys} if the types of the
+     * order by columns are supported.
      */
     static <TKey> PagingIterator<TKey, Row> create(int numUpstreams,
                                                    boolean requiresRepeat,
                                                    @Nullable PositionalOrderBy orderBy,
+                                                   Collection<? extends DataType> inputTypes,
                                                    Supplier<RowAccounting> rowAccountingSupplier) {
         PagingIterator<TKey, Row> pagingIterator;
         if (numUpstreams == 1 || orderBy == null) {
@@ -73,8 +83,18 @@ public interface PagingIterator<TKey, TRow> extends Iterator<TRow> {
                 pagingIterator = PassThroughPagingIterator.oneShot();
             }
         } else {
+            List<DataType> types = new ArrayList<>(inputTypes);
+            int[] indices = orderBy.indices();
+            List<DataType> orderByTypes = new ArrayList<>(indices.length);
+            for (int index : indices) {
+                orderByTypes.add(types.get(index));
+            }
+            SortKeyEncoder sortKeyEncoder = SortKeyEncoder.create(
+                indices, orderByTypes, orderBy.reverseFlags(), orderBy.nullsFirst());
+            BiConsumer<Row, BytesRefBuilder> keyEncoder = sortKeyEncoder == null ? null : sortKeyEncoder::encode;
             pagingIterator = new RamAccountingPageIterator<>(
-                new SortedPagingIterator<>(OrderingByPosition.rowOrdering(orderBy), requiresRepeat), rowAccountingSupplier.get()
+                new SortedPagingIterator<>(OrderingByPosition.rowOrdering(orderBy), keyEncoder, requiresRepeat),
+                rowAccountingSupplier.get()
             );
         }
 
@@ -21,7 +21,11 @@
 
 package io.crate.execution.engine.distribution.merge;
 
+import org.apache.lucene.util.BytesRefBuilder;
+
+import javax.annotation.Nullable;
 import java.util.Comparator;
+import java.util.function.BiConsumer;
 
 /**
  * A pagingIterator that sorts on consumption
@@ -40,12 +44,20 @@ public class SortedPagingIterator<TKey, TRow> implements PagingIterator<TKey, TR
      *                    If this is false a call to {@link #repeat()} might result in an excaption, at best the behaviour is undefined.
      */
     public SortedPagingIterator(Comparator<TRow> comparator, boolean needsRepeat) {
-        if (needsRepeat) {
-            mergingIterator = new RecordingSortedMergeIterator<>(comparator);
-        } else {
-            // does not support repeat !!!
-            mergingIterator = new PlainSortedMergeIterator<>(comparator);
-        }
+        this(comparator, null, needsRepeat);
+    }
+
+    /**
+     * @param comparator     determining how the items are sorted
+     * @param sortKeyEncoder if not null the items are compared by the binary sort keys created with it,
+     *                       which must result in the same order as the comparator
+     * @param needsRepeat    see {@link #SortedPagingIterator(Comparator, boolean)}
+     */
+    public SortedPagingIterator(Comparator<TRow> comparator,
+                                @Nullable BiConsumer<? super TRow, BytesRefBuilder> sortKeyEncoder,
+                                boolean needsRepeat) {
+        // without needsRepeat repeat is not supported !!!
+        mergingIterator = new LoserTreeMergeIterator<>(comparator, sortKeyEncoder, needsRepeat);
     }
 
     @Override
@@ -23,6 +23,7 @@
 package io.crate.execution.engine.export;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.CountingOutputStream;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.data.Row1;
@@ -31,10 +32,9 @@ import io.crate.exceptions.UnhandledServerException;
 import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.metadata.ColumnIdent;
 import io.crate.execution.engine.collect.CollectExpression;
-import io.crate.execution.engine.export.Output;
-import io.crate.execution.engine.export.OutputFile;
-import io.crate.execution.engine.export.OutputS3;
+import io.crate.execution.engine.export.parquet.ParquetWriter;
 import io.crate.execution.dsl.projection.WriterProjection;
+import io.crate.types.DataType;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
@@ -58,26 +58,40 @@ import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Collector implementation which writes the rows to the configured {@link Output}
- * and returns a count representing the number of written rows
+ * and returns a count representing the number of written rows.
+ *
+ * If a maximum file size is given, the output is rolled over to a new file once the size is reached.
+ * The files are numbered, the number is inserted in front of the file extension.
+ * For compressed files the size is the compressed size, which lags behind the written rows by the data
+ * buffered in the compressor.
  */
 public class FileWriterCountCollector implements Collector<Row, long[], Iterable<Row>> {
 
     private static final byte NEW_LINE = (byte) '\n';
 
+    private final ExecutorService executorService;
     private final URI uri;
     private final Iterable<CollectExpression<Row, ?>> collectExpressions;
     private final List<Input<?>> inputs;
+    @Nullable
+    private final List<? extends DataType> inputTypes;
     private final Map<String, Object> overwrites;
     @Nullable
     private final List<String> outputNames;
     private final WriterProjection.OutputFormat outputFormat;
     private final WriterProjection.CompressionType compressionType;
-    private Output output;
+    @Nullable
+    private final Long maxFileSize;
 
-    private final RowWriter rowWriter;
+    private int part = 0;
+    // counts the bytes written to the output, after compression
+    private CountingOutputStream outputStream;
+    @Nullable
+    private RowWriter rowWriter;
 
     FileWriterCountCollector(ExecutorService executorService,
                              String uri,
@@ -87,25 +101,69 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
                              Map<ColumnIdent, Object> overwrites,
                              @Nullable List<String> outputNames,
                              WriterProjection.OutputFormat outputFormat) {
+        this(executorService, uri, compressionType, inputs, null, collectExpressions, overwrites, outputNames,
+            outputFormat, null);
+    }
+
+    /**
+     * @param inputTypes the types of the inputs, required for {@link WriterProjection.OutputFormat#PARQUET}
+     * @param maxFileSize the size in bytes after which the output is rolled over to a new file, null to write a
+     *                    single file.
+     */
+    FileWriterCountCollector(ExecutorService executorService,
+                             String uri,
+                             @Nullable WriterProjection.CompressionType compressionType,
+                             @Nullable List<Input<?>> inputs,
+                             @Nullable List<? extends DataType> inputTypes,
+                             Iterable<CollectExpression<Row, ?>> collectExpressions,
+                             Map<ColumnIdent, Object> overwrites,
+                             @Nullable List<String> outputNames,
+                             WriterProjection.OutputFormat outputFormat,
+                             @Nullable Long maxFileSize) {
+        this.executorService = executorService;
         this.collectExpressions = collectExpressions;
         this.inputs = inputs;
+        this.inputTypes = inputTypes;
         this.overwrites = toNestedStringObjectMap(overwrites);
         this.outputNames = outputNames;
         this.outputFormat = outputFormat;
         this.compressionType = compressionType;
+        this.maxFileSize = maxFileSize;
         try {
             this.uri = new URI(uri);
         } catch (URISyntaxException e) {
             throw new SQLParseException(String.format(Locale.ENGLISH, "Invalid uri '%s'", uri), e);
         }
-        if (this.uri.getScheme() == null || this.uri.getScheme().equals("file")) {
-            this.output = new OutputFile(this.uri, this.compressionType);
-        } else if (this.uri.getScheme().equalsIgnoreCase("s3")) {
-            this.output = new OutputS3(executorService, this.uri, this.compressionType);
+        this.rowWriter = initWriter(output(maxFileSize == null ? this.uri : partUri(this.uri, part)));
+    }
+
+    /**
+     * The output is always created uncompressed; files are compressed in {@link #initWriter(Output)} so that the
+     * size of a file, which is checked against the maximum file size, is the compressed size.
+     */
+    private Output output(URI uri) {
+        if (uri.getScheme() == null || uri.getScheme().equals("file")) {
+            return new OutputFile(uri, null);
+        } else if (uri.getScheme().equalsIgnoreCase("s3")) {
+            return new OutputS3(executorService, uri, null);
         } else {
-            throw new UnsupportedFeatureException(String.format(Locale.ENGLISH, "Unknown scheme '%s'", this.uri.getScheme()));
+            throw new UnsupportedFeatureException(String.format(Locale.ENGLISH, "Unknown scheme '%s'", uri.getScheme()));
         }
-        this.rowWriter = initWriter();
+    }
+
+    /**
+     * Inserts the part number in front of the extension of the file name: {@code dir/t_0_.json -> dir/t_0__1.json}
+     */
+    @VisibleForTesting
+    static URI partUri(URI uri, int part) {
+        String uriString = uri.toString();
+        int fileNameStart = uriString.lastIndexOf('/') + 1;
+        int extensionStart = uriString.indexOf('.', fileNameStart);
+        if (extensionStart < 0) {
+            extensionStart = uriString.length();
+        }
+        return URI.create(
+            uriString.substring(0, extensionStart) + '_' + part + uriString.substring(extensionStart));
     }
 
     @VisibleForTesting
@@ -146,17 +204,26 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
         return nestedMap;
     }
 
-    private RowWriter initWriter() {
+    private RowWriter initWriter(Output output) {
         try {
+            outputStream = new CountingOutputStream(output.acquireOutputStream());
+            // parquet compresses the pages of the file instead of the whole file
+            boolean parquet = outputFormat.equals(WriterProjection.OutputFormat.PARQUET);
+            OutputStream out = compressionType == null || parquet ? outputStream : new GZIPOutputStream(outputStream);
             if (!overwrites.isEmpty()) {
-                return new DocWriter(
-                    output.acquireOutputStream(), collectExpressions, overwrites);
+                return new DocWriter(out, collectExpressions, overwrites);
+            } else if (parquet) {
+                assert outputNames != null && inputTypes != null : "parquet output requires output names and types";
+                ParquetWriter.Codec codec = compressionType == WriterProjection.CompressionType.GZIP
+                    ? ParquetWriter.Codec.GZIP : ParquetWriter.Codec.UNCOMPRESSED;
+                return new ParquetRowWriter(
+                    new ParquetWriter(outputStream, outputNames, inputTypes, codec), collectExpressions, inputs);
             } else if (outputFormat.equals(WriterProjection.OutputFormat.JSON_ARRAY)) {
-                return new ColumnRowWriter(output.acquireOutputStream(), collectExpressions, inputs);
+                return new ColumnRowWriter(out, collectExpressions, inputs);
             } else if (outputNames != null && outputFormat.equals(WriterProjection.OutputFormat.JSON_OBJECT)) {
-                return new ColumnRowObjectWriter(output.acquireOutputStream(), collectExpressions, inputs, outputNames);
+                return new ColumnRowObjectWriter(out, collectExpressions, inputs, outputNames);
             } else {
-                return new RawRowWriter(output.acquireOutputStream());
+                return new RawRowWriter(out);
             }
         } catch (IOException e) {
             throw new UnhandledServerException(String.format(Locale.ENGLISH, "Failed to open output: '%s'", e.getMessage()), e);
@@ -184,8 +251,20 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
     }
 
     private void onNextRow(long[] container, Row row) {
+        if (rowWriter == null) {
+            part++;
+            rowWriter = initWriter(output(partUri(uri, part)));
+        }
         rowWriter.write(row);
         container[0] += 1;
+        if (maxFileSize != null && outputStream.getCount() + rowWriter.bufferedBytes() >= maxFileSize) {
+            try {
+                rowWriter.close();
+            } catch (IOException e) {
+                throw new UnhandledServerException("Failed to close output", e);
+            }
+            rowWriter = null;
+        }
     }
 
     @Override
@@ -212,6 +291,13 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
 
         void write(Row row);
 
+        /**
+         * @return the number of bytes which are buffered by the writer and not yet written to the output stream
+         */
+        default long bufferedBytes() {
+            return 0L;
+        }
+
         void close() throws IOException;
     }
 
@@ -348,4 +434,41 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
             }
         }
     }
+
+    static class ParquetRowWriter implements RowWriter {
+
+        private final ParquetWriter writer;
+        private final Iterable<CollectExpression<Row, ?>> collectExpressions;
+        private final List<Input<?>> inputs;
+
+        ParquetRowWriter(ParquetWriter writer,
+                         Iterable<CollectExpression<Row, ?>> collectExpressions,
+                         List<Input<?>> inputs) {
+            this.writer = writer;
+            this.collectExpressions = collectExpressions;
+            this.inputs = inputs;
+        }
+
+        @Override
+        public void write(Row row) {
+            for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            try {
+                writer.write(inputs);
+            } catch (IOException e) {
+                throw new UnhandledServerException("Failed to write row to output", e);
+            }
+        }
+
+        @Override
+        public long bufferedBytes() {
+            return writer.bufferedBytes();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
 }
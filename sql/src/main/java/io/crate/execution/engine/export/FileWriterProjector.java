@@ -30,6 +30,7 @@ import io.crate.data.Row;
 import io.crate.metadata.ColumnIdent;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.dsl.projection.WriterProjection;
+import io.crate.types.DataType;
 
 import javax.annotation.Nullable;
 import java.util.List;
@@ -41,12 +42,16 @@ public class FileWriterProjector implements Projector {
     private final String uri;
     private final Iterable<CollectExpression<Row, ?>> collectExpressions;
     private final List<Input<?>> inputs;
+    @Nullable
+    private final List<? extends DataType> inputTypes;
     private final Map<ColumnIdent, Object> overwrites;
     @Nullable
     private final List<String> outputNames;
     private final WriterProjection.OutputFormat outputFormat;
     private final WriterProjection.CompressionType compressionType;
     private final ExecutorService executorService;
+    @Nullable
+    private final Long maxFileSize;
 
     /**
      * @param inputs a list of {@link Input}.
@@ -64,9 +69,29 @@ public class FileWriterProjector implements Projector {
                                Map<ColumnIdent, Object> overwrites,
                                @Nullable List<String> outputNames,
                                WriterProjection.OutputFormat outputFormat) {
+        this(executorService, uri, compressionType, inputs, null, collectExpressions, overwrites, outputNames,
+            outputFormat, null);
+    }
+
+    /**
+     * @param inputTypes the types of the inputs, required for {@link WriterProjection.OutputFormat#PARQUET}
+     * @param maxFileSize if not null, the output is rolled over to a new file once it reaches this size in bytes
+     */
+    public FileWriterProjector(ExecutorService executorService,
+                               String uri,
+                               @Nullable WriterProjection.CompressionType compressionType,
+                               @Nullable List<Input<?>> inputs,
+                               @Nullable List<? extends DataType> inputTypes,
+                               Iterable<CollectExpression<Row, ?>> collectExpressions,
+                               Map<ColumnIdent, Object> overwrites,
+                               @Nullable List<String> outputNames,
+                               WriterProjection.OutputFormat outputFormat,
+                               @Nullable Long maxFileSize) {
         this.collectExpressions = collectExpressions;
         this.executorService = executorService;
         this.inputs = inputs;
+        this.inputTypes = inputTypes;
+        this.maxFileSize = maxFileSize;
         this.overwrites = overwrites;
         this.outputNames = outputNames;
         this.outputFormat = outputFormat;
@@ -83,10 +108,12 @@ public class FileWriterProjector implements Projector {
                 uri.toString(),
                 compressionType,
                 inputs,
+                inputTypes,
                 collectExpressions,
                 overwrites,
                 outputNames,
-                outputFormat
+                outputFormat,
+                maxFileSize
             )
         );
     }
@@ -29,6 +29,7 @@ import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.amazonaws.services.s3.model.UploadPartResult;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -55,16 +56,26 @@ public class OutputS3 extends Output {
     private final ExecutorService executorService;
     private final URI uri;
     private final boolean compression;
+    private final S3ClientHelper s3ClientHelper;
 
     public OutputS3(ExecutorService executorService, URI uri, WriterProjection.CompressionType compressionType) {
+        this(executorService, uri, compressionType, new S3ClientHelper());
+    }
+
+    @VisibleForTesting
+    OutputS3(ExecutorService executorService,
+             URI uri,
+             WriterProjection.CompressionType compressionType,
+             S3ClientHelper s3ClientHelper) {
         this.executorService = executorService;
         this.uri = uri;
+        this.s3ClientHelper = s3ClientHelper;
         compression = compressionType != null;
     }
 
     @Override
     public OutputStream acquireOutputStream() throws IOException {
-        OutputStream outputStream = new S3OutputStream(executorService, uri, new S3ClientHelper());
+        OutputStream outputStream = new S3OutputStream(executorService, uri, s3ClientHelper);
         if (compression) {
             outputStream = new GZIPOutputStream(outputStream);
         }
@@ -0,0 +1,332 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export.parquet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Buffers the values of one column of the current row group and encodes them into parquet data pages.
+ *
+ * All columns are optional; nulls are recorded in the definition levels of the page.
+ * Once the values of a page exceed {@link #PAGE_SIZE} bytes the page is encoded, compressed and buffered until
+ * the row group is written using {@link #writeChunk(ParquetWriter.PositionOutputStream)}.
+ */
+abstract class ColumnChunkWriter {
+
+    static final int PAGE_SIZE = 1024 * 1024;
+
+    static final int TYPE_BOOLEAN = 0;
+    static final int TYPE_INT32 = 1;
+    static final int TYPE_INT64 = 2;
+    static final int TYPE_FLOAT = 4;
+    static final int TYPE_DOUBLE = 5;
+    static final int TYPE_BYTE_ARRAY = 6;
+
+    static final int ENCODING_PLAIN = 0;
+    static final int ENCODING_RLE = 3;
+    static final int ENCODING_RLE_DICTIONARY = 8;
+
+    private static final int PAGE_TYPE_DATA = 0;
+    private static final int PAGE_TYPE_DICTIONARY = 2;
+
+    final String name;
+    final int physicalType;
+    final int convertedType;
+    private final ParquetWriter.Codec codec;
+
+    private final LittleEndianOutput pages = new LittleEndianOutput(PAGE_SIZE);
+    private final LittleEndianOutput page = new LittleEndianOutput(PAGE_SIZE);
+    private final LittleEndianOutput scratch = new LittleEndianOutput(1024);
+
+    private int[] definitionLevels = new int[1024];
+    private int numPageValues = 0;
+
+    private long numChunkValues = 0;
+    private long uncompressedChunkSize = 0;
+    private int encodings = 1 << ENCODING_RLE;
+
+    /**
+     * @param convertedType the parquet converted type (logical type annotation) or -1 if none.
+     */
+    ColumnChunkWriter(String name, int physicalType, int convertedType, ParquetWriter.Codec codec) {
+        this.name = name;
+        this.physicalType = physicalType;
+        this.convertedType = convertedType;
+        this.codec = codec;
+    }
+
+    final void add(Object value) throws IOException {
+        if (numPageValues == definitionLevels.length) {
+            definitionLevels = Arrays.copyOf(definitionLevels, numPageValues << 1);
+        }
+        if (value == null) {
+            definitionLevels[numPageValues] = 0;
+        } else {
+            // may flush the current page, so the value must be added before its definition level
+            addValue(value);
+            definitionLevels[numPageValues] = 1;
+        }
+        numPageValues++;
+        if (pageValueBytes() >= PAGE_SIZE) {
+            flushPage();
+        }
+    }
+
+    /**
+     * Buffers a non-null value for the current page
+     */
+    abstract void addValue(Object value) throws IOException;
+
+    /**
+     * @return the estimated size of the values buffered for the current page
+     */
+    abstract long pageValueBytes();
+
+    /**
+     * Writes the values of the current page into {@code out} and resets the value buffers.
+     *
+     * @return the encoding of the values
+     */
+    abstract int writePageValues(LittleEndianOutput out);
+
+    /**
+     * @return the number of dictionary entries which have been used by the pages of the current chunk, 0 if none.
+     */
+    int dictionarySize() {
+        return 0;
+    }
+
+    /**
+     * Writes the PLAIN encoded dictionary of the current chunk into {@code out}
+     */
+    void writeDictionary(LittleEndianOutput out) {
+        throw new UnsupportedOperationException("Column " + name + " has no dictionary");
+    }
+
+    /**
+     * Clears the dictionary once the chunk has been written; dictionaries are not shared between row groups.
+     */
+    void resetDictionary() {
+    }
+
+    long dictionaryBytes() {
+        return 0L;
+    }
+
+    /**
+     * @return the estimated size of the buffered data of the current row group
+     */
+    final long bufferedBytes() {
+        return pages.size() + dictionaryBytes() + pageValueBytes() + (numPageValues >> 3);
+    }
+
+    final void flushPage() throws IOException {
+        if (numPageValues == 0) {
+            return;
+        }
+        page.reset();
+        scratch.reset();
+        RleBitPackedEncoder.encode(definitionLevels, numPageValues, 1, scratch);
+        page.writeInt(scratch.size());
+        scratch.writeTo(page);
+        int encoding = writePageValues(page);
+        encodings |= 1 << encoding;
+        writePage(pages, PAGE_TYPE_DATA, page, numPageValues, encoding);
+        numChunkValues += numPageValues;
+        numPageValues = 0;
+    }
+
+    private void writePage(LittleEndianOutput target,
+                           int pageType,
+                           LittleEndianOutput body,
+                           int numValues,
+                           int encoding) throws IOException {
+        LittleEndianOutput compressed = compress(body);
+        int start = target.size();
+        ThriftCompactWriter header = new ThriftCompactWriter(target);
+        header.structBegin();
+        header.i32Field(1, pageType);
+        header.i32Field(2, body.size());
+        header.i32Field(3, compressed.size());
+        if (pageType == PAGE_TYPE_DATA) {
+            header.structField(5);
+            header.i32Field(1, numValues);
+            header.i32Field(2, encoding);
+            header.i32Field(3, ENCODING_RLE);
+            header.i32Field(4, ENCODING_RLE);
+            header.structEnd();
+        } else {
+            header.structField(7);
+            header.i32Field(1, numValues);
+            header.i32Field(2, encoding);
+            header.structEnd();
+        }
+        header.structEnd();
+        uncompressedChunkSize += target.size() - start + body.size();
+        compressed.writeTo(target);
+    }
+
+    private LittleEndianOutput compress(LittleEndianOutput body) throws IOException {
+        if (codec == ParquetWriter.Codec.UNCOMPRESSED) {
+            return body;
+        }
+        scratch.reset();
+        try (OutputStream gzip = new GZIPOutputStream(scratch, 8192)) {
+            body.writeTo(gzip);
+        }
+        return scratch;
+    }
+
+    /**
+     * Writes the dictionary page and the data pages of the current row group and resets the chunk
+     */
+    final ParquetWriter.ColumnChunkMetaData writeChunk(ParquetWriter.PositionOutputStream out) throws IOException {
+        flushPage();
+        long dictionaryPageOffset = -1L;
+        long compressedSize = pages.size();
+        if (dictionarySize() > 0) {
+            int numEntries = dictionarySize();
+            page.reset();
+            writeDictionary(page);
+            LittleEndianOutput dictionaryPage = new LittleEndianOutput(page.size() + 64);
+            writePage(dictionaryPage, PAGE_TYPE_DICTIONARY, page, numEntries, ENCODING_PLAIN);
+            dictionaryPageOffset = out.position();
+            dictionaryPage.writeTo(out);
+            compressedSize += dictionaryPage.size();
+            encodings |= 1 << ENCODING_PLAIN;
+        }
+        long dataPageOffset = out.position();
+        pages.writeTo(out);
+
+        ParquetWriter.ColumnChunkMetaData metaData = new ParquetWriter.ColumnChunkMetaData(
+            this,
+            encodings,
+            numChunkValues,
+            uncompressedChunkSize,
+            compressedSize,
+            dataPageOffset,
+            dictionaryPageOffset
+        );
+        resetDictionary();
+        pages.reset();
+        numChunkValues = 0L;
+        uncompressedChunkSize = 0L;
+        encodings = 1 << ENCODING_RLE;
+        return metaData;
+    }
+
+    static final class BooleanWriter extends ColumnChunkWriter {
+
+        private final LittleEndianOutput values = new LittleEndianOutput(1024);
+        private int currentByte = 0;
+        private int numBits = 0;
+
+        BooleanWriter(String name, ParquetWriter.Codec codec) {
+            super(name, TYPE_BOOLEAN, -1, codec);
+        }
+
+        @Override
+        void addValue(Object value) {
+            if ((Boolean) value) {
+                currentByte |= 1 << numBits;
+            }
+            if (++numBits == 8) {
+                values.write(currentByte);
+                currentByte = 0;
+                numBits = 0;
+            }
+        }
+
+        @Override
+        long pageValueBytes() {
+            return values.size();
+        }
+
+        @Override
+        int writePageValues(LittleEndianOutput out) {
+            if (numBits > 0) {
+                values.write(currentByte);
+                currentByte = 0;
+                numBits = 0;
+            }
+            values.writeTo(out);
+            values.reset();
+            return ENCODING_PLAIN;
+        }
+    }
+
+    static final class FloatWriter extends ColumnChunkWriter {
+
+        private final LittleEndianOutput values = new LittleEndianOutput(1024);
+
+        FloatWriter(String name, ParquetWriter.Codec codec) {
+            super(name, TYPE_FLOAT, -1, codec);
+        }
+
+        @Override
+        void addValue(Object value) {
+            values.writeInt(Float.floatToRawIntBits(((Number) value).floatValue()));
+        }
+
+        @Override
+        long pageValueBytes() {
+            return values.size();
+        }
+
+        @Override
+        int writePageValues(LittleEndianOutput out) {
+            values.writeTo(out);
+            values.reset();
+            return ENCODING_PLAIN;
+        }
+    }
+
+    static final class DoubleWriter extends ColumnChunkWriter {
+
+        private final LittleEndianOutput values = new LittleEndianOutput(1024);
+
+        DoubleWriter(String name, ParquetWriter.Codec codec) {
+            super(name, TYPE_DOUBLE, -1, codec);
+        }
+
+        @Override
+        void addValue(Object value) {
+            values.writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        }
+
+        @Override
+        long pageValueBytes() {
+            return values.size();
+        }
+
+        @Override
+        int writePageValues(LittleEndianOutput out) {
+            values.writeTo(out);
+            values.reset();
+            return ENCODING_PLAIN;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export.parquet;
+
+import com.carrotsearch.hppc.IntIntHashMap;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Column writer which dictionary encodes the values of a column chunk.
+ *
+ * The dictionary is built per chunk. Pages store the dictionary ids using the RLE/bit-packing hybrid encoding.
+ * If the dictionary grows beyond {@link #MAX_DICTIONARY_BYTES} (high cardinality column), the remaining pages of
+ * the chunk are PLAIN encoded.
+ */
+abstract class DictionaryColumnWriter extends ColumnChunkWriter {
+
+    static final int MAX_DICTIONARY_BYTES = 1024 * 1024;
+
+    private final LittleEndianOutput plainValues = new LittleEndianOutput(1024);
+    final LittleEndianOutput dictionary = new LittleEndianOutput(1024);
+    private int dictionarySize = 0;
+    private boolean dictionaryEnabled = true;
+    private boolean dictionaryUsed = false;
+
+    private int[] ids = new int[1024];
+    private int numIds = 0;
+
+    DictionaryColumnWriter(String name, int physicalType, int convertedType, ParquetWriter.Codec codec) {
+        super(name, physicalType, convertedType, codec);
+    }
+
+    /**
+     * Converts a value of the column into the representation used by the dictionary lookup and
+     * {@link #writePlain(Object, LittleEndianOutput)}
+     */
+    Object convert(Object value) {
+        return value;
+    }
+
+    /**
+     * @return the dictionary id of the value or -1 if it is not part of the dictionary
+     */
+    abstract int dictionaryId(Object value);
+
+    /**
+     * Adds the value with the given id to the dictionary lookup; the value itself is written to the dictionary
+     * using {@link #writePlain(Object, LittleEndianOutput)}
+     */
+    abstract void addToDictionary(Object value, int id);
+
+    abstract void clearDictionary();
+
+    abstract void writePlain(Object value, LittleEndianOutput out);
+
+    @Override
+    final void addValue(Object value) throws IOException {
+        value = convert(value);
+        if (dictionaryEnabled) {
+            int id = dictionaryId(value);
+            if (id < 0 && dictionary.size() < MAX_DICTIONARY_BYTES) {
+                id = dictionarySize++;
+                addToDictionary(value, id);
+                writePlain(value, dictionary);
+            }
+            if (id >= 0) {
+                if (numIds == ids.length) {
+                    ids = Arrays.copyOf(ids, numIds << 1);
+                }
+                ids[numIds++] = id;
+                return;
+            }
+            // dictionary is full; pages must be either dictionary or PLAIN encoded
+            flushPage();
+            dictionaryEnabled = false;
+        }
+        writePlain(value, plainValues);
+    }
+
+    @Override
+    final long pageValueBytes() {
+        if (numIds > 0) {
+            return ((long) numIds * RleBitPackedEncoder.bitWidth(dictionarySize - 1)) >> 3;
+        }
+        return plainValues.size();
+    }
+
+    @Override
+    final int writePageValues(LittleEndianOutput out) {
+        if (numIds > 0) {
+            int bitWidth = RleBitPackedEncoder.bitWidth(dictionarySize - 1);
+            out.write(bitWidth);
+            RleBitPackedEncoder.encode(ids, numIds, bitWidth, out);
+            numIds = 0;
+            dictionaryUsed = true;
+            return ENCODING_RLE_DICTIONARY;
+        }
+        plainValues.writeTo(out);
+        plainValues.reset();
+        return ENCODING_PLAIN;
+    }
+
+    @Override
+    final int dictionarySize() {
+        return dictionaryUsed ? dictionarySize : 0;
+    }
+
+    @Override
+    final long dictionaryBytes() {
+        return dictionary.size();
+    }
+
+    @Override
+    final void writeDictionary(LittleEndianOutput out) {
+        dictionary.writeTo(out);
+    }
+
+    @Override
+    final void resetDictionary() {
+        dictionary.reset();
+        clearDictionary();
+        dictionarySize = 0;
+        dictionaryEnabled = true;
+        dictionaryUsed = false;
+    }
+
+    static final class IntWriter extends DictionaryColumnWriter {
+
+        private final IntIntHashMap ids = new IntIntHashMap();
+
+        IntWriter(String name, int convertedType, ParquetWriter.Codec codec) {
+            super(name, TYPE_INT32, convertedType, codec);
+        }
+
+        @Override
+        int dictionaryId(Object value) {
+            return ids.getOrDefault(((Number) value).intValue(), -1);
+        }
+
+        @Override
+        void addToDictionary(Object value, int id) {
+            ids.put(((Number) value).intValue(), id);
+        }
+
+        @Override
+        void clearDictionary() {
+            ids.clear();
+        }
+
+        @Override
+        void writePlain(Object value, LittleEndianOutput out) {
+            out.writeInt(((Number) value).intValue());
+        }
+    }
+
+    static final class LongWriter extends DictionaryColumnWriter {
+
+        private final LongIntHashMap ids = new LongIntHashMap();
+
+        LongWriter(String name, int convertedType, ParquetWriter.Codec codec) {
+            super(name, TYPE_INT64, convertedType, codec);
+        }
+
+        @Override
+        int dictionaryId(Object value) {
+            return ids.getOrDefault(((Number) value).longValue(), -1);
+        }
+
+        @Override
+        void addToDictionary(Object value, int id) {
+            ids.put(((Number) value).longValue(), id);
+        }
+
+        @Override
+        void clearDictionary() {
+            ids.clear();
+        }
+
+        @Override
+        void writePlain(Object value, LittleEndianOutput out) {
+            out.writeLong(((Number) value).longValue());
+        }
+    }
+
+    static final class BinaryWriter extends DictionaryColumnWriter {
+
+        private final ObjectIntHashMap<BytesRef> ids = new ObjectIntHashMap<>();
+        private final Function<Object, BytesRef> toBytes;
+
+        /**
+         * @param toBytes converts the values of the column to their binary representation
+         */
+        BinaryWriter(String name, int convertedType, ParquetWriter.Codec codec, Function<Object, BytesRef> toBytes) {
+            super(name, TYPE_BYTE_ARRAY, convertedType, codec);
+            this.toBytes = toBytes;
+        }
+
+        @Override
+        Object convert(Object value) {
+            return toBytes.apply(value);
+        }
+
+        @Override
+        int dictionaryId(Object value) {
+            return ids.getOrDefault((BytesRef) value, -1);
+        }
+
+        @Override
+        void addToDictionary(Object value, int id) {
+            ids.put(BytesRef.deepCopyOf((BytesRef) value), id);
+        }
+
+        @Override
+        void clearDictionary() {
+            ids.clear();
+        }
+
+        @Override
+        void writePlain(Object value, LittleEndianOutput out) {
+            BytesRef bytes = (BytesRef) value;
+            out.writeInt(bytes.length);
+            out.write(bytes.bytes, bytes.offset, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export.parquet;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.crate.data.Input;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.IpType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes rows into an <a href="https://github.com/apache/parquet-format">Apache Parquet</a> file.
+ *
+ * The rows are buffered in memory and written as a row group once the buffered data exceeds the row group size.
+ * Every column is an optional (nullable) top-level field:
+ *
+ * <ul>
+ *     <li>boolean, float and double columns are PLAIN encoded</li>
+ *     <li>byte, short, integer, long and timestamp columns are dictionary encoded</li>
+ *     <li>string and ip columns are dictionary encoded UTF8 byte arrays</li>
+ *     <li>all other types (objects, arrays, geo types) are written as dictionary encoded JSON byte arrays</li>
+ * </ul>
+ *
+ * Dictionary encoding falls back to PLAIN encoding for high cardinality columns.
+ * Pages are compressed using the given {@link Codec}.
+ */
+public class ParquetWriter implements Closeable {
+
+    private static final byte[] MAGIC = new byte[] {'P', 'A', 'R', '1'};
+    static final long DEFAULT_ROW_GROUP_SIZE = 64 * 1024 * 1024;
+    private static final String CREATED_BY = "crate";
+
+    private static final int CONVERTED_TYPE_UTF8 = 0;
+    private static final int CONVERTED_TYPE_TIMESTAMP_MILLIS = 9;
+    private static final int CONVERTED_TYPE_INT_8 = 15;
+    private static final int CONVERTED_TYPE_INT_16 = 16;
+    private static final int CONVERTED_TYPE_JSON = 19;
+
+    private static final int REPETITION_OPTIONAL = 1;
+
+    public enum Codec {
+        UNCOMPRESSED(0),
+        GZIP(2);
+
+        private final int id;
+
+        Codec(int id) {
+            this.id = id;
+        }
+    }
+
+    private final PositionOutputStream out;
+    private final ColumnChunkWriter[] columns;
+    private final Codec codec;
+    private final long rowGroupSize;
+    private final List<RowGroupMetaData> rowGroups = new ArrayList<>();
+    private long numRows = 0L;
+    private long numRowGroupRows = 0L;
+
+    public ParquetWriter(OutputStream out, List<String> names, List<? extends DataType> types, Codec codec) throws IOException {
+        this(out, names, types, codec, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    @VisibleForTesting
+    ParquetWriter(OutputStream out,
+                  List<String> names,
+                  List<? extends DataType> types,
+                  Codec codec,
+                  long rowGroupSize) throws IOException {
+        assert names.size() == types.size() : "there must be a name for each column type";
+        this.out = new PositionOutputStream(out);
+        this.codec = codec;
+        this.rowGroupSize = rowGroupSize;
+        this.columns = new ColumnChunkWriter[names.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columnWriter(names.get(i), types.get(i), codec);
+        }
+        this.out.write(MAGIC);
+    }
+
+    private static ColumnChunkWriter columnWriter(String name, DataType type, Codec codec) {
+        switch (type.id()) {
+            case BooleanType.ID:
+                return new ColumnChunkWriter.BooleanWriter(name, codec);
+
+            case ByteType.ID:
+                return new DictionaryColumnWriter.IntWriter(name, CONVERTED_TYPE_INT_8, codec);
+
+            case ShortType.ID:
+                return new DictionaryColumnWriter.IntWriter(name, CONVERTED_TYPE_INT_16, codec);
+
+            case IntegerType.ID:
+                return new DictionaryColumnWriter.IntWriter(name, -1, codec);
+
+            case LongType.ID:
+                return new DictionaryColumnWriter.LongWriter(name, -1, codec);
+
+            case TimestampType.ID:
+                return new DictionaryColumnWriter.LongWriter(name, CONVERTED_TYPE_TIMESTAMP_MILLIS, codec);
+
+            case FloatType.ID:
+                return new ColumnChunkWriter.FloatWriter(name, codec);
+
+            case DoubleType.ID:
+                return new ColumnChunkWriter.DoubleWriter(name, codec);
+
+            case StringType.ID:
+            case IpType.ID:
+                return new DictionaryColumnWriter.BinaryWriter(name, CONVERTED_TYPE_UTF8, codec, ParquetWriter::toUTF8);
+
+            default:
+                return new DictionaryColumnWriter.BinaryWriter(name, CONVERTED_TYPE_JSON, codec, ParquetWriter::toJson);
+        }
+    }
+
+    private static BytesRef toUTF8(Object value) {
+        if (value instanceof BytesRef) {
+            return (BytesRef) value;
+        }
+        return new BytesRef(value.toString());
+    }
+
+    private static BytesRef toJson(Object value) {
+        try {
+            XContentBuilder builder = JsonXContent.contentBuilder();
+            builder.value(value);
+            builder.close();
+            return builder.bytes().toBytesRef();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds a row consisting of the current values of the inputs, one input per column.
+     */
+    public void write(List<? extends Input<?>> inputs) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].add(inputs.get(i).value());
+        }
+        numRowGroupRows++;
+        if (numRowGroupRows % 1000 == 0 && bufferedBytes() >= rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    /**
+     * @return the estimated size of the rows which are buffered in memory and haven't been written yet.
+     */
+    public long bufferedBytes() {
+        long bytes = 0L;
+        for (ColumnChunkWriter column : columns) {
+            bytes += column.bufferedBytes();
+        }
+        return bytes;
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (numRowGroupRows == 0) {
+            return;
+        }
+        List<ColumnChunkMetaData> chunks = new ArrayList<>(columns.length);
+        long totalByteSize = 0L;
+        for (ColumnChunkWriter column : columns) {
+            ColumnChunkMetaData chunk = column.writeChunk(out);
+            totalByteSize += chunk.uncompressedSize;
+            chunks.add(chunk);
+        }
+        rowGroups.add(new RowGroupMetaData(chunks, totalByteSize, numRowGroupRows));
+        numRows += numRowGroupRows;
+        numRowGroupRows = 0L;
+    }
+
+    /**
+     * Writes the remaining rows and the file footer and closes the underlying stream
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushRowGroup();
+            LittleEndianOutput footer = new LittleEndianOutput(1024);
+            writeFileMetaData(new ThriftCompactWriter(footer));
+            footer.writeTo(out);
+            LittleEndianOutput trailer = new LittleEndianOutput(8);
+            trailer.writeInt(footer.size());
+            trailer.write(MAGIC, 0, MAGIC.length);
+            trailer.writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeFileMetaData(ThriftCompactWriter thrift) {
+        thrift.structBegin();
+        thrift.i32Field(1, 1);
+
+        thrift.listField(2, ThriftCompactWriter.TYPE_STRUCT, columns.length + 1);
+        thrift.structBegin();
+        thrift.stringField(4, "schema");
+        thrift.i32Field(5, columns.length);
+        thrift.structEnd();
+        for (ColumnChunkWriter column : columns) {
+            thrift.structBegin();
+            thrift.i32Field(1, column.physicalType);
+            thrift.i32Field(3, REPETITION_OPTIONAL);
+            thrift.stringField(4, column.name);
+            if (column.convertedType >= 0) {
+                thrift.i32Field(6, column.convertedType);
+            }
+            thrift.structEnd();
+        }
+
+        thrift.i64Field(3, numRows);
+
+        thrift.listField(4, ThriftCompactWriter.TYPE_STRUCT, rowGroups.size());
+        for (RowGroupMetaData rowGroup : rowGroups) {
+            thrift.structBegin();
+            thrift.listField(1, ThriftCompactWriter.TYPE_STRUCT, rowGroup.chunks.size());
+            for (ColumnChunkMetaData chunk : rowGroup.chunks) {
+                writeColumnChunk(thrift, chunk);
+            }
+            thrift.i64Field(2, rowGroup.totalByteSize);
+            thrift.i64Field(3, rowGroup.numRows);
+            thrift.structEnd();
+        }
+
+        thrift.stringField(6, CREATED_BY);
+        thrift.structEnd();
+    }
+
+    private void writeColumnChunk(ThriftCompactWriter thrift, ColumnChunkMetaData chunk) {
+        thrift.structBegin();
+        thrift.i64Field(2, chunk.fileOffset());
+
+        thrift.structField(3);
+        thrift.i32Field(1, chunk.column.physicalType);
+        thrift.listField(2, ThriftCompactWriter.TYPE_I32, Integer.bitCount(chunk.encodings));
+        for (int encoding = 0; encoding < Integer.SIZE; encoding++) {
+            if ((chunk.encodings & (1 << encoding)) != 0) {
+                thrift.i32(encoding);
+            }
+        }
+        thrift.listField(3, ThriftCompactWriter.TYPE_BINARY, 1);
+        thrift.string(chunk.column.name);
+        thrift.i32Field(4, codec.id);
+        thrift.i64Field(5, chunk.numValues);
+        thrift.i64Field(6, chunk.uncompressedSize);
+        thrift.i64Field(7, chunk.compressedSize);
+        thrift.i64Field(9, chunk.dataPageOffset);
+        if (chunk.dictionaryPageOffset >= 0) {
+            thrift.i64Field(11, chunk.dictionaryPageOffset);
+        }
+        thrift.structEnd();
+
+        thrift.structEnd();
+    }
+
+    static final class ColumnChunkMetaData {
+
+        private final ColumnChunkWriter column;
+        private final int encodings;
+        private final long numValues;
+        private final long uncompressedSize;
+        private final long compressedSize;
+        private final long dataPageOffset;
+        private final long dictionaryPageOffset;
+
+        /**
+         * @param encodings bit set of the encodings used by the pages of the chunk
+         * @param dictionaryPageOffset the offset of the dictionary page or -1 if the chunk has no dictionary page
+         */
+        ColumnChunkMetaData(ColumnChunkWriter column,
+                            int encodings,
+                            long numValues,
+                            long uncompressedSize,
+                            long compressedSize,
+                            long dataPageOffset,
+                            long dictionaryPageOffset) {
+            this.column = column;
+            this.encodings = encodings;
+            this.numValues = numValues;
+            this.uncompressedSize = uncompressedSize;
+            this.compressedSize = compressedSize;
+            this.dataPageOffset = dataPageOffset;
+            this.dictionaryPageOffset = dictionaryPageOffset;
+        }
+
+        long fileOffset() {
+            return dictionaryPageOffset >= 0 ? dictionaryPageOffset : dataPageOffset;
+        }
+    }
+
+    private static final class RowGroupMetaData {
+
+        private final List<ColumnChunkMetaData> chunks;
+        private final long totalByteSize;
+        private final long numRows;
+
+        RowGroupMetaData(List<ColumnChunkMetaData> chunks, long totalByteSize, long numRows) {
+            this.chunks = chunks;
+            this.totalByteSize = totalByteSize;
+            this.numRows = numRows;
+        }
+    }
+
+    /**
+     * Keeps track of the current position in the file, which is required for the page offsets of the footer.
+     */
+    static final class PositionOutputStream extends FilterOutputStream {
+
+        private long position = 0L;
+
+        PositionOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+
+        long position() {
+            return position;
+        }
+    }
+}
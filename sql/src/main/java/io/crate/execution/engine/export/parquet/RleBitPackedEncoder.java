@@ -0,0 +1,95 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export.parquet;
+
+/**
+ * Encoder for the parquet RLE/bit-packing hybrid encoding, which is used for definition levels and dictionary ids.
+ *
+ * Runs of at least 8 repeated values are written as RLE runs, everything else is bit-packed in groups of 8 values.
+ * The last bit-packed group is padded with zeros; readers know the number of values from the page header.
+ */
+final class RleBitPackedEncoder {
+
+    private static final int MIN_RUN_LENGTH = 8;
+
+    private RleBitPackedEncoder() {
+    }
+
+    /**
+     * @return the number of bits required to store values between 0 and maxValue, at least 1.
+     */
+    static int bitWidth(int maxValue) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(maxValue));
+    }
+
+    static void encode(int[] values, int count, int bitWidth, LittleEndianOutput out) {
+        int i = 0;
+        while (i < count) {
+            int runLength = runLength(values, i, count);
+            if (runLength >= MIN_RUN_LENGTH) {
+                writeRleRun(values[i], runLength, bitWidth, out);
+                i += runLength;
+                continue;
+            }
+            int start = i;
+            do {
+                i += 8;
+            } while (i < count && runLength(values, i, count) < MIN_RUN_LENGTH);
+            int numGroups = (i - start) >> 3;
+            out.writeUnsignedVarInt(numGroups << 1 | 1);
+            writeBitPacked(values, start, Math.min(i, count), numGroups << 3, bitWidth, out);
+            i = Math.min(i, count);
+        }
+    }
+
+    private static int runLength(int[] values, int start, int count) {
+        int value = values[start];
+        int end = start + 1;
+        while (end < count && values[end] == value) {
+            end++;
+        }
+        return end - start;
+    }
+
+    private static void writeRleRun(int value, int runLength, int bitWidth, LittleEndianOutput out) {
+        out.writeUnsignedVarInt(runLength << 1);
+        for (int bits = 0; bits < bitWidth; bits += 8) {
+            out.write(value >>> bits);
+        }
+    }
+
+    private static void writeBitPacked(int[] values, int start, int end, int numValues, int bitWidth, LittleEndianOutput out) {
+        long buffer = 0L;
+        int bufferedBits = 0;
+        for (int i = start; i < start + numValues; i++) {
+            long value = i < end ? values[i] & 0xFFFFFFFFL : 0L;
+            buffer |= value << bufferedBits;
+            bufferedBits += bitWidth;
+            while (bufferedBits >= 8) {
+                out.write((int) buffer);
+                buffer >>>= 8;
+                bufferedBits -= 8;
+            }
+        }
+    }
+}
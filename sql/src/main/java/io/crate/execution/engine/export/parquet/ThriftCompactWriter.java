@@ -0,0 +1,135 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export.parquet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal writer for the thrift compact protocol, which parquet uses to serialize page headers and the file footer.
+ *
+ * Structs are written by calling {@link #structBegin()}, the field methods and {@link #structEnd()}.
+ * Field ids must be ascending within a struct.
+ */
+final class ThriftCompactWriter {
+
+    static final byte TYPE_BOOLEAN_TRUE = 1;
+    static final byte TYPE_BOOLEAN_FALSE = 2;
+    static final byte TYPE_I32 = 5;
+    static final byte TYPE_I64 = 6;
+    static final byte TYPE_BINARY = 8;
+    static final byte TYPE_LIST = 9;
+    static final byte TYPE_STRUCT = 12;
+
+    private final LittleEndianOutput out;
+    private int[] lastFieldIds = new int[8];
+    private int depth = 0;
+    private int lastFieldId = 0;
+
+    ThriftCompactWriter(LittleEndianOutput out) {
+        this.out = out;
+    }
+
+    void structBegin() {
+        if (depth == lastFieldIds.length) {
+            lastFieldIds = Arrays.copyOf(lastFieldIds, depth << 1);
+        }
+        lastFieldIds[depth++] = lastFieldId;
+        lastFieldId = 0;
+    }
+
+    void structEnd() {
+        out.write(0);
+        lastFieldId = lastFieldIds[--depth];
+    }
+
+    void i32Field(int id, int value) {
+        fieldHeader(TYPE_I32, id);
+        out.writeUnsignedVarInt(zigZag(value));
+    }
+
+    void i64Field(int id, long value) {
+        fieldHeader(TYPE_I64, id);
+        out.writeUnsignedVarLong(zigZag(value));
+    }
+
+    void boolField(int id, boolean value) {
+        fieldHeader(value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE, id);
+    }
+
+    void stringField(int id, String value) {
+        fieldHeader(TYPE_BINARY, id);
+        string(value);
+    }
+
+    /**
+     * Starts a nested struct field; must be followed by the fields of the struct and {@link #structEnd()}
+     */
+    void structField(int id) {
+        fieldHeader(TYPE_STRUCT, id);
+        structBegin();
+    }
+
+    /**
+     * Starts a list field; must be followed by {@code size} elements of the given type.
+     * Struct elements are written using {@link #structBegin()} and {@link #structEnd()}.
+     */
+    void listField(int id, byte elementType, int size) {
+        fieldHeader(TYPE_LIST, id);
+        if (size < 15) {
+            out.write((size << 4) | elementType);
+        } else {
+            out.write(0xF0 | elementType);
+            out.writeUnsignedVarInt(size);
+        }
+    }
+
+    void i32(int value) {
+        out.writeUnsignedVarInt(zigZag(value));
+    }
+
+    void string(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeUnsignedVarInt(bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private void fieldHeader(byte type, int id) {
+        int delta = id - lastFieldId;
+        if (delta > 0 && delta <= 15) {
+            out.write((delta << 4) | type);
+        } else {
+            out.write(type);
+            out.writeUnsignedVarInt(zigZag(id));
+        }
+        lastFieldId = id;
+    }
+
+    private static int zigZag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    private static long zigZag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+}
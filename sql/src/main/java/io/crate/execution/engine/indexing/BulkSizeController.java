@@ -0,0 +1,176 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.execution.engine.indexing;
+
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls the size and the number of the requests the {@link ShardingUpsertExecutor} sends to each shard.
+ *
+ * Every target shard has its own bulk size, which is adapted using additive increase and multiplicative decrease:
+ * It is halved if a request took longer than {@link #TARGET_LATENCY_NANOS} or got rejected,
+ * otherwise it grows by a tenth of the maximum bulk size.
+ *
+ * Requests are pipelined per shard: at most {@link #MAX_IN_FLIGHT_PER_SHARD} requests are in-flight for a shard,
+ * further requests are queued until one of the in-flight requests finished.
+ * This way a slow shard only holds back its own requests and not the requests of all other shards.
+ */
+final class BulkSizeController {
+
+    static final int MAX_IN_FLIGHT_PER_SHARD = 2;
+    static final int MAX_QUEUED_PER_SHARD = 4;
+    static final int MIN_BULK_SIZE = 10;
+    static final long TARGET_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final int maxBulkSize;
+    private final int minBulkSize;
+    private final int increment;
+    private final Map<ShardId, ShardState> shards = new ConcurrentHashMap<>();
+
+    BulkSizeController(int maxBulkSize) {
+        this.maxBulkSize = maxBulkSize;
+        this.minBulkSize = Math.min(MIN_BULK_SIZE, maxBulkSize);
+        this.increment = Math.max(1, maxBulkSize / 10);
+    }
+
+    /**
+     * The number of items which should be sent to the shard within one request
+     */
+    int bulkSize(ShardId shardId) {
+        ShardState state = shards.get(shardId);
+        if (state == null) {
+            return maxBulkSize;
+        }
+        synchronized (state) {
+            return state.bulkSize;
+        }
+    }
+
+    /**
+     * @return true if the shard has so many queued requests that no further items should be added for it.
+     */
+    boolean isBacklogged(ShardId shardId) {
+        ShardState state = shards.get(shardId);
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            return state.queued.size() >= MAX_QUEUED_PER_SHARD;
+        }
+    }
+
+    /**
+     * Runs {@code request} if the shard has less than {@link #MAX_IN_FLIGHT_PER_SHARD} in-flight requests,
+     * otherwise it is queued until one of them finished.
+     * The request must call {@link #onResponse(ShardId, long)} or {@link #onFailure(ShardId)} once finished.
+     */
+    void execute(ShardId shardId, Runnable request) {
+        ShardState state = shards.computeIfAbsent(shardId, k -> new ShardState(maxBulkSize));
+        synchronized (state) {
+            if (state.inFlight >= MAX_IN_FLIGHT_PER_SHARD) {
+                state.queued.add(request);
+                return;
+            }
+            state.inFlight++;
+        }
+        request.run();
+    }
+
+    void onResponse(ShardId shardId, long tookNanos) {
+        ShardState state = shards.get(shardId);
+        synchronized (state) {
+            if (tookNanos > TARGET_LATENCY_NANOS) {
+                state.bulkSize = Math.max(minBulkSize, state.bulkSize / 2);
+            } else {
+                state.bulkSize = Math.min(maxBulkSize, state.bulkSize + increment);
+            }
+        }
+        runNext(state);
+    }
+
+    void onFailure(ShardId shardId) {
+        runNext(shards.get(shardId));
+    }
+
+    /**
+     * Called if a request got rejected by the shard; the request itself is still in-flight as it will be retried.
+     */
+    void onRejection(ShardId shardId) {
+        ShardState state = shards.get(shardId);
+        synchronized (state) {
+            state.bulkSize = Math.max(minBulkSize, state.bulkSize / 2);
+        }
+    }
+
+    /**
+     * The average of the current bulk sizes of all shards requests have been sent to
+     */
+    int averageBulkSize() {
+        long sum = 0;
+        int numShards = 0;
+        for (ShardState state : shards.values()) {
+            synchronized (state) {
+                sum += state.bulkSize;
+            }
+            numShards++;
+        }
+        return numShards == 0 ? maxBulkSize : (int) (sum / numShards);
+    }
+
+    int inFlightRequests() {
+        int inFlight = 0;
+        for (ShardState state : shards.values()) {
+            synchronized (state) {
+                inFlight += state.inFlight;
+            }
+        }
+        return inFlight;
+    }
+
+    private static void runNext(ShardState state) {
+        Runnable next;
+        synchronized (state) {
+            next = state.queued.poll();
+            if (next == null) {
+                state.inFlight--;
+                return;
+            }
+        }
+        next.run();
+    }
+
+    private static class ShardState {
+
+        private final ArrayDeque<Runnable> queued = new ArrayDeque<>();
+        private int bulkSize;
+        private int inFlight = 0;
+
+        ShardState(int bulkSize) {
+            this.bulkSize = bulkSize;
+        }
+    }
+}
@@ -38,6 +38,7 @@ import io.crate.expression.InputRow;
 import io.crate.execution.jobs.NodeJobsCounter;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.engine.collect.RowShardResolver;
+import io.crate.execution.engine.collect.stats.JobsLogs;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.Settings;
 
@@ -73,7 +74,9 @@ public class ColumnIndexWriterProjector implements Projector {
                                       @Nullable Map<Reference, Symbol> updateAssignments,
                                       int bulkActions,
                                       boolean autoCreateIndices,
-                                      UUID jobId) {
+                                      UUID jobId,
+                                      @Nullable JobsLogs jobsLogs,
+                                      int phaseId) {
         RowShardResolver rowShardResolver = new RowShardResolver(
             functions, primaryKeyIdents, primaryKeySymbols, clusteredByColumn, routingSymbol);
         assert columnReferences.size() == insertInputs.size()
@@ -116,7 +119,9 @@ public class ColumnIndexWriterProjector implements Projector {
             autoCreateIndices,
             transportActionProvider.transportShardUpsertAction()::execute,
             transportActionProvider.transportBulkCreateIndicesAction(),
-            tableSettings
+            tableSettings,
+            jobsLogs,
+            phaseId
         );
     }
 
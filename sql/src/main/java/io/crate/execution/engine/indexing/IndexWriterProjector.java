@@ -31,6 +31,7 @@ import io.crate.data.Row;
 import io.crate.execution.dml.upsert.ShardUpsertRequest;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.engine.collect.RowShardResolver;
+import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.execution.jobs.NodeJobsCounter;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.Functions;
@@ -85,7 +86,9 @@ public class IndexWriterProjector implements Projector {
                                 @Nullable String[] excludes,
                                 boolean autoCreateIndices,
                                 boolean overwriteDuplicates,
-                                UUID jobId) {
+                                UUID jobId,
+                                @Nullable JobsLogs jobsLogs,
+                                int phaseId) {
         Input<BytesRef> source;
         if (includes == null && excludes == null) {
             //noinspection unchecked
@@ -122,7 +125,9 @@ public class IndexWriterProjector implements Projector {
             autoCreateIndices,
             shardUpsertAction,
             transportCreatePartitionsAction,
-            tableSettings
+            tableSettings,
+            jobsLogs,
+            phaseId
         );
     }
 
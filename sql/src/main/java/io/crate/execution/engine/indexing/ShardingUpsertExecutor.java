@@ -33,6 +33,7 @@ import io.crate.execution.dml.ShardResponse;
 import io.crate.execution.jobs.NodeJobsCounter;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.engine.collect.RowShardResolver;
+import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.execution.support.RetryListener;
 import io.crate.settings.CrateSetting;
 import io.crate.types.DataTypes;
@@ -51,6 +52,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -67,8 +69,13 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-import static io.crate.execution.jobs.NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS;
-
+/**
+ * Groups the incoming rows by shard and sends them as bulk requests to the shards.
+ *
+ * The number of items per request and the number of concurrent requests are controlled per shard by a
+ * {@link BulkSizeController}. Consumption of the rows is only paused if partitions are being created or if a shard
+ * targeted by the next batch already has too many queued requests.
+ */
 public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TItem extends ShardRequest.Item>
     implements Function<BatchIterator<Row>, CompletableFuture<? extends Iterable<? extends Row>>> {
 
@@ -89,8 +96,15 @@ public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TIte
     private final BulkRequestExecutor<TReq> requestExecutor;
     private final TransportCreatePartitionsAction createPartitionsAction;
     private final BulkShardCreationLimiter<TReq, TItem> bulkShardCreationLimiter;
+    private final BulkSizeController bulkSizeController;
+    @Nullable
+    private final JobsLogs jobsLogs;
+    private final int phaseId;
     private volatile boolean createPartitionsRequestOngoing = false;
 
+    /**
+     * @param jobsLogs if not null, the bulk sizes and in-flight requests are reported as stats of the given phase.
+     */
     public ShardingUpsertExecutor(ClusterService clusterService,
                                   NodeJobsCounter nodeJobsCounter,
                                   ScheduledExecutorService scheduler,
@@ -105,7 +119,9 @@ public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TIte
                                   boolean autoCreateIndices,
                                   BulkRequestExecutor<TReq> requestExecutor,
                                   TransportCreatePartitionsAction createPartitionsAction,
-                                  Settings tableSettings) {
+                                  Settings tableSettings,
+                                  @Nullable JobsLogs jobsLogs,
+                                  int phaseId) {
         this.nodeJobsCounter = nodeJobsCounter;
         this.scheduler = scheduler;
         this.executor = executor;
@@ -124,6 +140,9 @@ public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TIte
         );
         bulkShardCreationLimiter = new BulkShardCreationLimiter<>(tableSettings,
             clusterService.state().nodes().getDataNodes().size());
+        bulkSizeController = new BulkSizeController(bulkSize);
+        this.jobsLogs = jobsLogs;
+        this.phaseId = phaseId;
     }
 
     public CompletableFuture<Long> execute(ShardedRequests<TReq, TItem> requests) {
@@ -140,35 +159,82 @@ public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TIte
     }
 
     private CompletableFuture<Long> execRequests(Map<ShardLocation, TReq> itemsByShard) {
-        final AtomicInteger numRequests = new AtomicInteger(itemsByShard.size());
-        final AtomicLong rowCount = new AtomicLong(0L);
-        final AtomicReference<Exception> interrupt = new AtomicReference<>(null);
-        final CompletableFuture<Long> rowCountFuture = new CompletableFuture<>();
+        List<ShardLocation> locations = new ArrayList<>(itemsByShard.size());
+        List<TReq> requests = new ArrayList<>(itemsByShard.size());
         Iterator<Map.Entry<ShardLocation, TReq>> it = itemsByShard.entrySet().iterator();
         while (it.hasNext()) {
             Map.Entry<ShardLocation, TReq> entry = it.next();
+            ShardLocation location = entry.getKey();
             TReq request = entry.getValue();
             it.remove();
 
-            String nodeId = entry.getKey().nodeId;
-            nodeJobsCounter.increment(nodeId);
-            ActionListener<ShardResponse> listener =
-                new ShardResponseActionListener(nodeId, rowCount, numRequests, interrupt, rowCountFuture);
+            int shardBulkSize = bulkSizeController.bulkSize(location.shardId);
+            List<TItem> items = request.items();
+            if (items.size() <= shardBulkSize) {
+                locations.add(location);
+                requests.add(request);
+                continue;
+            }
+            for (int start = 0; start < items.size(); start += shardBulkSize) {
+                TReq subRequest = requestFactory.apply(location.shardId, request.routing());
+                int end = Math.min(start + shardBulkSize, items.size());
+                for (TItem item : items.subList(start, end)) {
+                    subRequest.add(item.location(), item);
+                }
+                locations.add(location);
+                requests.add(subRequest);
+            }
+        }
 
-            listener = new RetryListener<>(
-                scheduler,
-                l -> {
-                    LOGGER.debug("Executing retry Listener for nodeId: {} request: {}", nodeId, request);
-                    requestExecutor.execute(request, l);
-                },
-                listener,
-                BACKOFF_POLICY
-            );
-            requestExecutor.execute(request, listener);
+        final AtomicInteger numRequests = new AtomicInteger(requests.size());
+        final AtomicLong rowCount = new AtomicLong(0L);
+        final AtomicReference<Exception> interrupt = new AtomicReference<>(null);
+        final CompletableFuture<Long> rowCountFuture = new CompletableFuture<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ShardLocation location = locations.get(i);
+            TReq request = requests.get(i);
+            bulkSizeController.execute(
+                location.shardId,
+                () -> sendRequest(location, request, rowCount, numRequests, interrupt, rowCountFuture));
         }
+        reportBulkStats();
         return rowCountFuture;
     }
 
+    private void sendRequest(ShardLocation location,
+                             TReq request,
+                             AtomicLong rowCount,
+                             AtomicInteger numRequests,
+                             AtomicReference<Exception> interrupt,
+                             CompletableFuture<Long> rowCountFuture) {
+        String nodeId = location.nodeId;
+        ShardId shardId = location.shardId;
+        nodeJobsCounter.increment(nodeId);
+        ShardResponseActionListener shardListener = new ShardResponseActionListener(
+            nodeId, shardId, rowCount, numRequests, interrupt, rowCountFuture);
+
+        ActionListener<ShardResponse> listener = new RetryListener<>(
+            scheduler,
+            l -> {
+                LOGGER.debug("Executing retry Listener for nodeId: {} request: {}", nodeId, request);
+                bulkSizeController.onRejection(shardId);
+                // the latency is measured per attempt, otherwise the backoff delay would reduce the bulk size again
+                shardListener.onAttempt();
+                requestExecutor.execute(request, l);
+            },
+            shardListener,
+            BACKOFF_POLICY
+        );
+        shardListener.onAttempt();
+        requestExecutor.execute(request, listener);
+    }
+
+    private void reportBulkStats() {
+        if (jobsLogs != null) {
+            jobsLogs.operationBulkStats(
+                phaseId, jobId, bulkSizeController.averageBulkSize(), bulkSizeController.inFlightRequests());
+        }
+    }
 
     private CompletableFuture<CreatePartitionsResponse> createPartitions(Map<String, List<ShardedRequests.ItemAndRouting<TItem>>> itemsByMissingIndex) {
         FutureActionListener<CreatePartitionsResponse, CreatePartitionsResponse> listener = FutureActionListener.newInstance();
@@ -184,9 +250,8 @@ public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TIte
         }
 
         for (ShardLocation shardLocation : requests.itemsByShard.keySet()) {
-            String requestNodeId = shardLocation.nodeId;
-            if (nodeJobsCounter.getInProgressJobsForNode(requestNodeId) >= MAX_NODE_CONCURRENT_OPERATIONS) {
-                LOGGER.debug("reached maximum concurrent operations for node {}", requestNodeId);
+            if (bulkSizeController.isBacklogged(shardLocation.shardId)) {
+                LOGGER.debug("reached maximum queued requests for shard {}", shardLocation.shardId);
                 return true;
             }
         }
@@ -215,34 +280,49 @@ public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TIte
 
     private class ShardResponseActionListener implements ActionListener<ShardResponse> {
         private final String operationNodeId;
+        private final ShardId shardId;
         private final AtomicLong rowCount;
         private final AtomicInteger numRequests;
         private final AtomicReference<Exception> interrupt;
         private final CompletableFuture<Long> rowCountFuture;
+        private volatile long startedNanos;
 
         ShardResponseActionListener(String operationNodeId,
+                                    ShardId shardId,
                                     AtomicLong rowCount,
                                     AtomicInteger numRequests,
                                     AtomicReference<Exception> interrupt,
                                     CompletableFuture<Long> rowCountFuture) {
             this.operationNodeId = operationNodeId;
+            this.shardId = shardId;
             this.rowCount = rowCount;
             this.numRequests = numRequests;
             this.interrupt = interrupt;
             this.rowCountFuture = rowCountFuture;
         }
 
+        /**
+         * Must be called before the request is sent, including retries
+         */
+        void onAttempt() {
+            startedNanos = System.nanoTime();
+        }
+
         @Override
         public void onResponse(ShardResponse shardResponse) {
             nodeJobsCounter.decrement(operationNodeId);
             rowCount.addAndGet(shardResponse.successRowCount());
             maybeSetInterrupt(shardResponse.failure());
+            bulkSizeController.onResponse(shardId, System.nanoTime() - startedNanos);
+            reportBulkStats();
             countdown();
         }
 
         @Override
         public void onFailure(Exception e) {
             nodeJobsCounter.decrement(operationNodeId);
+            bulkSizeController.onFailure(shardId);
+            reportBulkStats();
             countdown();
         }
 
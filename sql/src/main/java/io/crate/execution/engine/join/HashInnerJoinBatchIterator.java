@@ -23,15 +23,24 @@
 package io.crate.execution.engine.join;
 
 import com.carrotsearch.hppc.IntObjectHashMap;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import com.google.common.annotations.VisibleForTesting;
+import io.crate.Streamer;
 import io.crate.data.BatchIterator;
 import io.crate.data.Paging;
 import io.crate.data.Row;
 import io.crate.data.UnsafeArrayRow;
 import io.crate.data.join.ElementCombiner;
 import io.crate.data.join.JoinBatchIterator;
+import io.crate.execution.engine.spill.SpillContext;
+import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.io.stream.StreamInput;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -75,6 +84,38 @@ import java.util.function.Predicate;
  * <p>
  * This information is not available for the {@link HashInnerJoinBatchIterator}, so it's the responsibility of the
  * caller to provide those two functions that operate on the left and right rows accordingly and return the hash values.
+ * <p>
+ * If a {@link SpillContext} is given, the right side is never re-scanned. Instead, once the left side turns out to
+ * not fit into a single block, the join continues as hybrid hash join:
+ *
+ * <pre>
+ *     Partition left:
+ *     for (leftRow in left) {
+ *         partition = partition(hash(leftRow))
+ *         if (partition is in memory) {
+ *             put in Buffer, if the Buffer exceeds the blockSize write it to disk and mark the partition as spilled
+ *         } else {
+ *             write to left partition file
+ *         }
+ *     }
+ *
+ *     Partition right:
+ *     for (rightRow in right) {
+ *         if (partition is in memory) {
+ *             probe Buffer and emit(combinedRow)
+ *         } else if (left partition file is not empty) {
+ *             write to right partition file
+ *         }
+ *     }
+ *
+ *     Join partitions:
+ *     for (partition in spilled partitions) {
+ *         load the left partition file into the Buffer (in chunks of blockSize)
+ *         probe the Buffer with the rows of the right partition file and emit(combinedRow)
+ *     }
+ * </pre>
+ *
+ * The block-size heuristic then only decides how many rows of the left side are kept in memory.
  */
 public class HashInnerJoinBatchIterator<L extends Row, R extends Row, C> extends JoinBatchIterator<L, R, C> {
 
@@ -99,15 +140,63 @@ public class HashInnerJoinBatchIterator<L extends Row, R extends Row, C> extends
     private boolean leftBatchHasItems = false;
     private Iterator<Object[]> leftMatchingRowsIterator;
 
+    @Nullable
+    private final SpillContext spillContext;
+    private final Streamer<?>[] leftStreamers;
+    private final Streamer<?>[] rightStreamers;
+
+    /**
+     * Set once the join continues as hybrid hash join
+     */
+    @Nullable
+    private HashJoinSpill spill;
+    private SpillPhase spillPhase;
+    private boolean memoryPartitionSpilled;
+    private int currentPartition;
+    private StreamInput leftPartitionInput;
+    private int leftPartitionRowsRead;
+    private StreamInput rightPartitionInput;
+    private int rightPartitionRowsRead;
+    private final UnsafeArrayRow spilledRightRow = new UnsafeArrayRow();
+    private Object[] spilledRightCells;
+
+    private enum SpillPhase {
+        PARTITION_LEFT,
+        PARTITION_RIGHT,
+        JOIN_PARTITIONS
+    }
+
     public HashInnerJoinBatchIterator(RamAccountingBatchIterator<L> left,
                                       BatchIterator<R> right,
                                       ElementCombiner<L, R, C> combiner,
                                       Predicate<C> joinCondition,
                                       Function<L, Integer> hashBuilderForLeft,
                                       Function<R, Integer> hashBuilderForRight,
-                                      CircuitBreaker cicuitBreaker,
+                                      CircuitBreaker circuitBreaker,
                                       long estimatedRowSizeForLeft,
                                       long numberOfRowsForLeft) {
+        this(left, right, combiner, joinCondition, hashBuilderForLeft, hashBuilderForRight, circuitBreaker,
+            estimatedRowSizeForLeft, numberOfRowsForLeft, null, new Streamer[0], new Streamer[0]);
+    }
+
+    /**
+     * @param spillContext context used to spill partitions of both sides to disk if the left side doesn't fit into
+     *                     a single block. If null, the right side is re-scanned for each block of the left side.
+     * @param leftStreamers streamers for the cells of the left rows, only used if spilling is enabled
+     * @param rightStreamers streamers for the cells of the right rows, only used if spilling is enabled
+     */
+    public HashInnerJoinBatchIterator(RamAccountingBatchIterator<L> left,
+                                      BatchIterator<R> right,
+                                      ElementCombiner<L, R, C> combiner,
+                                      Predicate<C> joinCondition,
+                                      Function<L, Integer> hashBuilderForLeft,
+                                      Function<R, Integer> hashBuilderForRight,
+                                      CircuitBreaker cicuitBreaker,
+                                      long estimatedRowSizeForLeft,
+                                      long numberOfRowsForLeft,
+                                      @Nullable SpillContext spillContext,
+                                      Streamer<?>[] leftStreamers,
+                                      Streamer<?>[] rightStreamers) {
         super(left, right, combiner);
         this.joinCondition = joinCondition;
         this.hashBuilderForLeft = hashBuilderForLeft;
@@ -115,6 +204,9 @@ public class HashInnerJoinBatchIterator<L extends Row, R extends Row, C> extends
         this.circuitBreaker = cicuitBreaker;
         this.estimatedRowSizeForLeft = estimatedRowSizeForLeft;
         this.numberOfRowsForLeft = numberOfRowsForLeft;
+        this.spillContext = spillContext;
+        this.leftStreamers = leftStreamers;
+        this.rightStreamers = rightStreamers;
         recreateBuffer();
         this.activeIt = left;
     }
@@ -132,11 +224,19 @@ public class HashInnerJoinBatchIterator<L extends Row, R extends Row, C> extends
         recreateBuffer();
         ((RamAccountingBatchIterator) left).releaseAccountedRows();
         leftMatchingRowsIterator = null;
+        closeSpill();
     }
 
     @Override
     public boolean moveNext() {
+        if (spill != null) {
+            return moveNextSpilled();
+        }
         while (buildBufferAndMatchRight() == false) {
+            if (spill != null) {
+                // the left side doesn't fit into a single block, continue as hybrid hash join
+                return moveNextSpilled();
+            }
             if (right.allLoaded() && leftBatchHasItems == false && left.allLoaded()) {
                 // both sides are fully loaded, we're done here
                 return false;
@@ -191,13 +291,20 @@ public class HashInnerJoinBatchIterator<L extends Row, R extends Row, C> extends
             while (leftBatchHasItems = left.moveNext()) {
                 Object[] currentRow = left.currentElement().materialize();
                 int hash = hashBuilderForLeft.apply(left.currentElement());
-                addToBuffer(currentRow, hash);
                 if (numberOfRowsInBuffer == blockSize) {
+                    // only reachable if spilling is enabled, otherwise the loop stops once the block is full
+                    startSpilling(currentRow, hash);
+                    return false;
+                }
+                addToBuffer(currentRow, hash);
+                if (numberOfRowsInBuffer == blockSize && spillContext == null) {
                     break;
                 }
             }
 
-            if (leftBatchHasItems == false && numberOfRowsInBuffer < blockSize && left.allLoaded() == false) {
+            if (leftBatchHasItems == false
+                && (numberOfRowsInBuffer < blockSize || spillContext != null)
+                && left.allLoaded() == false) {
                 // we should load the left side
                 return false;
             }
@@ -249,4 +356,231 @@ public class HashInnerJoinBatchIterator<L extends Row, R extends Row, C> extends
         }
         return false;
     }
+
+    private void startSpilling(Object[] currentRow, int hash) {
+        try {
+            spill = new HashJoinSpill(spillContext, leftStreamers, rightStreamers);
+            IntObjectHashMap<List<Object[]>> rowsInMemory = buffer;
+            recreateBuffer();
+            for (IntObjectCursor<List<Object[]>> cursor : rowsInMemory) {
+                for (Object[] row : cursor.value) {
+                    addToPartition(row, cursor.key);
+                }
+            }
+            addToPartition(currentRow, hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        spillPhase = SpillPhase.PARTITION_LEFT;
+        memoryPartitionSpilled = false;
+    }
+
+    /**
+     * Adds a row of the left side either to the buffer if its partition is kept in memory or to the partition file.
+     */
+    private void addToPartition(Object[] row, int hash) throws IOException {
+        int partition = HashJoinSpill.partition(hash);
+        if (partition == 0 && memoryPartitionSpilled == false) {
+            if (numberOfRowsInBuffer >= blockSize) {
+                spillMemoryPartition();
+                spill.left().write(partition, hash, row);
+            } else {
+                addToBuffer(row, hash);
+            }
+        } else {
+            spill.left().write(partition, hash, row);
+        }
+    }
+
+    private void spillMemoryPartition() throws IOException {
+        for (IntObjectCursor<List<Object[]>> cursor : buffer) {
+            for (Object[] row : cursor.value) {
+                spill.left().write(0, cursor.key, row);
+            }
+        }
+        memoryPartitionSpilled = true;
+        recreateBuffer();
+    }
+
+    private boolean moveNextSpilled() {
+        try {
+            switch (spillPhase) {
+                case PARTITION_LEFT:
+                    if (partitionLeft() == false) {
+                        return false;
+                    }
+                    spillPhase = SpillPhase.PARTITION_RIGHT;
+                    activeIt = right;
+                    // fall through
+
+                case PARTITION_RIGHT:
+                    if (partitionRightAndMatchMemoryPartition()) {
+                        return true;
+                    }
+                    if (right.allLoaded() == false) {
+                        return false;
+                    }
+                    spill.finishWriting();
+                    spillPhase = SpillPhase.JOIN_PARTITIONS;
+                    currentPartition = -1;
+                    leftMatchingRowsIterator = null;
+                    recreateBuffer();
+                    // fall through
+
+                case JOIN_PARTITIONS:
+                    return joinSpilledPartitions();
+
+                default:
+                    throw new AssertionError("Unexpected spill phase: " + spillPhase);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return true once the left side has been consumed completely
+     */
+    private boolean partitionLeft() throws IOException {
+        while (left.moveNext()) {
+            Object[] currentRow = left.currentElement().materialize();
+            addToPartition(currentRow, hashBuilderForLeft.apply(left.currentElement()));
+        }
+        // the rows are either on disk or in the memory partition which is bounded by the blockSize
+        ((RamAccountingBatchIterator) left).releaseAccountedRows();
+        return left.allLoaded();
+    }
+
+    private boolean partitionRightAndMatchMemoryPartition() throws IOException {
+        if (leftMatchingRowsIterator != null && findMatchingRows()) {
+            return true;
+        }
+        leftMatchingRowsIterator = null;
+        HashJoinSpill.Side leftSide = spill.left();
+        HashJoinSpill.Side rightSide = spill.right();
+        while (right.moveNext()) {
+            R rightRow = right.currentElement();
+            int rightHash = hashBuilderForRight.apply(rightRow);
+            int partition = HashJoinSpill.partition(rightHash);
+            if (partition == 0 && memoryPartitionSpilled == false) {
+                List<Object[]> leftMatchingRows = buffer.get(rightHash);
+                if (leftMatchingRows != null) {
+                    leftMatchingRowsIterator = leftMatchingRows.iterator();
+                    combiner.setRight(rightRow);
+                    if (findMatchingRows()) {
+                        return true;
+                    }
+                }
+            } else if (leftSide.numRows(partition) > 0) {
+                rightSide.write(partition, rightHash, rightRow);
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean joinSpilledPartitions() throws IOException {
+        while (true) {
+            if (leftMatchingRowsIterator != null && findMatchingRows()) {
+                return true;
+            }
+            leftMatchingRowsIterator = null;
+
+            if (rightPartitionInput != null) {
+                HashJoinSpill.Side rightSide = spill.right();
+                while (rightPartitionRowsRead < rightSide.numRows(currentPartition)) {
+                    int rightHash = rightSide.read(rightPartitionInput, spilledRightCells);
+                    rightPartitionRowsRead++;
+                    List<Object[]> leftMatchingRows = buffer.get(rightHash);
+                    if (leftMatchingRows != null) {
+                        leftMatchingRowsIterator = leftMatchingRows.iterator();
+                        combiner.setRight((R) spilledRightRow);
+                        if (findMatchingRows()) {
+                            return true;
+                        }
+                    }
+                }
+                rightPartitionInput.close();
+                rightPartitionInput = null;
+            }
+
+            // the right partition is exhausted, continue with the next block of the left partition
+            if (leftPartitionInput != null && leftPartitionRowsRead < spill.left().numRows(currentPartition)) {
+                loadLeftPartitionBlock();
+                continue;
+            }
+            if (leftPartitionInput != null) {
+                leftPartitionInput.close();
+                leftPartitionInput = null;
+            }
+            if (nextSpilledPartition() == false) {
+                return false;
+            }
+        }
+    }
+
+    private boolean nextSpilledPartition() throws IOException {
+        HashJoinSpill.Side leftSide = spill.left();
+        HashJoinSpill.Side rightSide = spill.right();
+        while (++currentPartition < HashJoinSpill.NUM_PARTITIONS) {
+            if (leftSide.numRows(currentPartition) > 0 && rightSide.numRows(currentPartition) > 0) {
+                leftPartitionInput = leftSide.open(currentPartition);
+                leftPartitionRowsRead = 0;
+                loadLeftPartitionBlock();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void loadLeftPartitionBlock() throws IOException {
+        recreateBuffer();
+        HashJoinSpill.Side leftSide = spill.left();
+        int numRows = leftSide.numRows(currentPartition);
+        while (leftPartitionRowsRead < numRows && numberOfRowsInBuffer < blockSize) {
+            Object[] row = new Object[leftStreamers.length];
+            int hash = leftSide.read(leftPartitionInput, row);
+            addToBuffer(row, hash);
+            leftPartitionRowsRead++;
+        }
+        if (spilledRightCells == null) {
+            spilledRightCells = new Object[rightStreamers.length];
+            spilledRightRow.cells(spilledRightCells);
+        }
+        rightPartitionInput = spill.right().open(currentPartition);
+        rightPartitionRowsRead = 0;
+    }
+
+    private void closeSpill() {
+        if (spill == null) {
+            return;
+        }
+        try {
+            IOUtils.close(leftPartitionInput, rightPartitionInput, spill);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            leftPartitionInput = null;
+            rightPartitionInput = null;
+            spill = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            closeSpill();
+        }
+    }
+
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+        try {
+            super.kill(throwable);
+        } finally {
+            closeSpill();
+        }
+    }
 }
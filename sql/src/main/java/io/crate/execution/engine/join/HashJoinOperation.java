@@ -22,6 +22,7 @@
 
 package io.crate.execution.engine.join;
 
+import io.crate.Streamer;
 import io.crate.breaker.RowAccounting;
 import io.crate.concurrent.CompletionListenable;
 import io.crate.data.BatchIterator;
@@ -30,10 +31,12 @@ import io.crate.data.Row;
 import io.crate.data.RowConsumer;
 import io.crate.data.join.CombinedRow;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillContext;
 import io.crate.expression.InputFactory;
 import io.crate.expression.symbol.Symbol;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
@@ -56,7 +59,10 @@ public class HashJoinOperation implements CompletionListenable {
                              InputFactory inputFactory,
                              CircuitBreaker circuitBreaker,
                              long estimatedRowSizeForLeft,
-                             long numberOfRowsForLeft) {
+                             long numberOfRowsForLeft,
+                             @Nullable SpillContext spillContext,
+                             Streamer<?>[] leftStreamers,
+                             Streamer<?>[] rightStreamers) {
 
         CompletableFuture.allOf(leftBatchIterator, rightBatchIterator)
             .whenComplete((result, failure) -> {
@@ -72,7 +78,10 @@ public class HashJoinOperation implements CompletionListenable {
                         rowAccounting,
                         circuitBreaker,
                         estimatedRowSizeForLeft,
-                        numberOfRowsForLeft
+                        numberOfRowsForLeft,
+                        spillContext,
+                        leftStreamers,
+                        rightStreamers
                     ), completionFuture);
                     nlResultConsumer.accept(joinIterator, null);
                 } else {
@@ -119,7 +128,10 @@ public class HashJoinOperation implements CompletionListenable {
                                                              RowAccounting rowAccounting,
                                                              CircuitBreaker circuitBreaker,
                                                              long estimatedRowSizeForLeft,
-                                                             long numberOfRowsForLeft) {
+                                                             long numberOfRowsForLeft,
+                                                             @Nullable SpillContext spillContext,
+                                                             Streamer<?>[] leftStreamers,
+                                                             Streamer<?>[] rightStreamers) {
         CombinedRow combiner = new CombinedRow(leftNumCols, rightNumCols);
         return new HashInnerJoinBatchIterator<>(
             new RamAccountingBatchIterator<>(left, rowAccounting),
@@ -130,6 +142,9 @@ public class HashJoinOperation implements CompletionListenable {
             hashBuilderForRight,
             circuitBreaker,
             estimatedRowSizeForLeft,
-            numberOfRowsForLeft);
+            numberOfRowsForLeft,
+            spillContext,
+            leftStreamers,
+            rightStreamers);
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.Streamer;
+import io.crate.data.Row;
+import io.crate.execution.engine.spill.SpillContext;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Spill files of the {@link HashInnerJoinBatchIterator} if the left side of the join doesn't fit into a single block.
+ *
+ * Both sides are partitioned using the hash of the join condition inputs, so rows which can match
+ * always end up in partitions with the same number.
+ * Every spilled row is written as its hash followed by the cells, using the streamers of the output types of the side.
+ */
+final class HashJoinSpill implements Closeable {
+
+    static final int NUM_PARTITIONS = 16;
+
+    private final SpillContext spillContext;
+    private final Path directory;
+    private final Side left;
+    private final Side right;
+
+    HashJoinSpill(SpillContext spillContext, Streamer<?>[] leftStreamers, Streamer<?>[] rightStreamers) throws IOException {
+        this.spillContext = spillContext;
+        this.directory = spillContext.createTempDirectory("hash-join");
+        this.left = new Side("left", leftStreamers);
+        this.right = new Side("right", rightStreamers);
+    }
+
+    /**
+     * Fibonacci hashing; uses the upper bits of the product as the lower bits of the hash are used for the buffer
+     */
+    static int partition(int hash) {
+        return (hash * 0x9E3779B9) >>> (Integer.SIZE - 4);
+    }
+
+    Side left() {
+        return left;
+    }
+
+    Side right() {
+        return right;
+    }
+
+    /**
+     * Closes the outputs of both sides, must be called before the partitions are read.
+     * The spill files are reported once all rows have been written.
+     */
+    void finishWriting() throws IOException {
+        IOUtils.close(left.outputs);
+        IOUtils.close(right.outputs);
+        long bytes = 0L;
+        int numPartitions = 0;
+        for (Side side : new Side[] { left, right }) {
+            for (Path file : side.files) {
+                if (file != null) {
+                    bytes += Files.size(file);
+                    numPartitions++;
+                }
+            }
+        }
+        spillContext.onSpilled(bytes, numPartitions);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            IOUtils.close(left.outputs);
+            IOUtils.close(right.outputs);
+        } finally {
+            IOUtils.rm(directory);
+        }
+    }
+
+    final class Side {
+
+        private final String name;
+        private final Streamer[] streamers;
+        private final Path[] files = new Path[NUM_PARTITIONS];
+        private final StreamOutput[] outputs = new StreamOutput[NUM_PARTITIONS];
+        private final int[] numRows = new int[NUM_PARTITIONS];
+
+        private Side(String name, Streamer[] streamers) {
+            this.name = name;
+            this.streamers = streamers;
+        }
+
+        @SuppressWarnings("unchecked")
+        void write(int partition, int hash, Object[] cells) throws IOException {
+            StreamOutput out = output(partition);
+            out.writeInt(hash);
+            for (int i = 0; i < streamers.length; i++) {
+                streamers[i].writeValueTo(out, cells[i]);
+            }
+            numRows[partition]++;
+        }
+
+        @SuppressWarnings("unchecked")
+        void write(int partition, int hash, Row row) throws IOException {
+            StreamOutput out = output(partition);
+            out.writeInt(hash);
+            for (int i = 0; i < streamers.length; i++) {
+                streamers[i].writeValueTo(out, row.get(i));
+            }
+            numRows[partition]++;
+        }
+
+        private StreamOutput output(int partition) throws IOException {
+            StreamOutput out = outputs[partition];
+            if (out == null) {
+                Path file = directory.resolve(name + "-" + partition);
+                out = new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(file)));
+                files[partition] = file;
+                outputs[partition] = out;
+            }
+            return out;
+        }
+
+        int numRows(int partition) {
+            return numRows[partition];
+        }
+
+        StreamInput open(int partition) throws IOException {
+            assert files[partition] != null : "partition must have been written";
+            return new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(files[partition])));
+        }
+
+        /**
+         * Reads the next row into {@code cells}
+         *
+         * @return the hash of the row
+         */
+        int read(StreamInput in, Object[] cells) throws IOException {
+            int hash = in.readInt();
+            for (int i = 0; i < streamers.length; i++) {
+                cells[i] = streamers[i].readValueFrom(in);
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.pipeline;
+
+import io.crate.data.ColumnBatch;
+import io.crate.data.ColumnBatchRow;
+import io.crate.data.ColumnVector;
+import io.crate.data.Row;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Filters the selected rows of a {@link ColumnBatch} by narrowing down its selection.
+ *
+ * Comparisons ({@code =, <, <=, >, >=}) of a column with a numeric literal, optionally combined using AND, are
+ * evaluated in tight loops over the primitive vectors of the batch.
+ * Any other condition, or a comparison on a column which isn't stored in a primitive vector, is evaluated row by row
+ * using the row filter.
+ */
+public final class ColumnBatchFilter implements UnaryOperator<ColumnBatch> {
+
+    private final Predicate<Row> rowFilter;
+    @Nullable
+    private final List<Comparison> comparisons;
+    private final ColumnBatchRow row = new ColumnBatchRow();
+
+    public static ColumnBatchFilter create(Predicate<Row> rowFilter, @Nullable Symbol query) {
+        List<Comparison> comparisons = new ArrayList<>();
+        if (query == null || addComparisons(query, comparisons) == false) {
+            comparisons = null;
+        }
+        return new ColumnBatchFilter(rowFilter, comparisons);
+    }
+
+    private ColumnBatchFilter(Predicate<Row> rowFilter, @Nullable List<Comparison> comparisons) {
+        this.rowFilter = rowFilter;
+        this.comparisons = comparisons;
+    }
+
+    @Override
+    public ColumnBatch apply(ColumnBatch batch) {
+        if (canUseComparisons(batch)) {
+            //noinspection ConstantConditions
+            for (int i = 0; i < comparisons.size() && batch.numSelected() > 0; i++) {
+                comparisons.get(i).apply(batch);
+            }
+        } else {
+            filterRows(batch);
+        }
+        return batch;
+    }
+
+    private boolean canUseComparisons(ColumnBatch batch) {
+        if (comparisons == null) {
+            return false;
+        }
+        for (int i = 0; i < comparisons.size(); i++) {
+            ColumnVector column = batch.column(comparisons.get(i).column);
+            if (column instanceof ColumnVector.Objects) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void filterRows(ColumnBatch batch) {
+        int[] selection = batch.selection();
+        int numSelected = batch.numSelected();
+        int numMatches = 0;
+        for (int i = 0; i < numSelected; i++) {
+            int position = batch.position(i);
+            row.position(batch, position);
+            if (rowFilter.test(row)) {
+                selection[numMatches++] = position;
+            }
+        }
+        batch.select(numMatches);
+    }
+
+    /**
+     * @return false if the query contains a condition which can't be evaluated as {@link Comparison}
+     */
+    private static boolean addComparisons(Symbol query, List<Comparison> comparisons) {
+        if ((query instanceof Function) == false) {
+            return false;
+        }
+        Function function = (Function) query;
+        String name = function.info().ident().name();
+        List<Symbol> args = function.arguments();
+        if (name.equals(AndOperator.NAME)) {
+            return addComparisons(args.get(0), comparisons) && addComparisons(args.get(1), comparisons);
+        }
+        Operator operator = Operator.of(name);
+        if (operator == null || args.size() != 2) {
+            return false;
+        }
+        Symbol left = args.get(0);
+        Symbol right = args.get(1);
+        if (left instanceof Literal && right instanceof InputColumn) {
+            operator = operator.flip();
+            Symbol tmp = left;
+            left = right;
+            right = tmp;
+        }
+        if (left instanceof InputColumn && right instanceof Literal) {
+            Object value = ((Literal) right).value();
+            if (value instanceof Number) {
+                comparisons.add(new Comparison(((InputColumn) left).index(), operator, (Number) value));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum Operator {
+        EQ,
+        LT,
+        LTE,
+        GT,
+        GTE;
+
+        @Nullable
+        static Operator of(String functionName) {
+            switch (functionName) {
+                case EqOperator.NAME:
+                    return EQ;
+                case LtOperator.NAME:
+                    return LT;
+                case LteOperator.NAME:
+                    return LTE;
+                case GtOperator.NAME:
+                    return GT;
+                case GteOperator.NAME:
+                    return GTE;
+                default:
+                    return null;
+            }
+        }
+
+        Operator flip() {
+            switch (this) {
+                case LT:
+                    return GT;
+                case LTE:
+                    return GTE;
+                case GT:
+                    return LT;
+                case GTE:
+                    return LTE;
+                default:
+                    return this;
+            }
+        }
+
+        boolean matches(int cmp) {
+            switch (this) {
+                case EQ:
+                    return cmp == 0;
+                case LT:
+                    return cmp < 0;
+                case LTE:
+                    return cmp <= 0;
+                case GT:
+                    return cmp > 0;
+                case GTE:
+                    return cmp >= 0;
+                default:
+                    throw new AssertionError("Invalid operator: " + this);
+            }
+        }
+    }
+
+    private static final class Comparison {
+
+        private final int column;
+        private final Operator operator;
+        private final boolean integral;
+        private final long longValue;
+        private final double doubleValue;
+
+        Comparison(int column, Operator operator, Number value) {
+            this.column = column;
+            this.operator = operator;
+            this.integral = (value instanceof Double || value instanceof Float) == false;
+            this.longValue = value.longValue();
+            this.doubleValue = value.doubleValue();
+        }
+
+        void apply(ColumnBatch batch) {
+            ColumnVector vector = batch.column(column);
+            int[] selection = batch.selection();
+            int numSelected = batch.numSelected();
+            boolean selectionInUse = batch.selectionInUse();
+            boolean hasNulls = vector.hasNulls();
+            int numMatches = 0;
+            if (vector instanceof ColumnVector.Longs && integral) {
+                long[] values = ((ColumnVector.Longs) vector).values;
+                for (int i = 0; i < numSelected; i++) {
+                    int position = selectionInUse ? selection[i] : i;
+                    if ((hasNulls == false || vector.isNull(position) == false)
+                        && operator.matches(Long.compare(values[position], longValue))) {
+                        selection[numMatches++] = position;
+                    }
+                }
+            } else if (vector instanceof ColumnVector.Ints && integral) {
+                int[] values = ((ColumnVector.Ints) vector).values;
+                for (int i = 0; i < numSelected; i++) {
+                    int position = selectionInUse ? selection[i] : i;
+                    if ((hasNulls == false || vector.isNull(position) == false)
+                        && operator.matches(Long.compare(values[position], longValue))) {
+                        selection[numMatches++] = position;
+                    }
+                }
+            } else {
+                for (int i = 0; i < numSelected; i++) {
+                    int position = selectionInUse ? selection[i] : i;
+                    if ((hasNulls == false || vector.isNull(position) == false)
+                        && operator.matches(Double.compare(doubleValue(vector, position), doubleValue))) {
+                        selection[numMatches++] = position;
+                    }
+                }
+            }
+            batch.select(numMatches);
+        }
+
+        private static double doubleValue(ColumnVector vector, int position) {
+            if (vector instanceof ColumnVector.Doubles) {
+                return ((ColumnVector.Doubles) vector).values[position];
+            }
+            if (vector instanceof ColumnVector.Longs) {
+                return ((ColumnVector.Longs) vector).values[position];
+            }
+            return ((ColumnVector.Ints) vector).values[position];
+        }
+    }
+}
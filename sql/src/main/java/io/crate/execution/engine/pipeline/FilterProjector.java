@@ -24,23 +24,46 @@ package io.crate.execution.engine.pipeline;
 
 
 import io.crate.data.BatchIterator;
+import io.crate.data.ColumnarBatchIterator;
 import io.crate.data.FilteringBatchIterator;
+import io.crate.data.MappedColumnarBatchIterator;
 import io.crate.data.Projector;
 import io.crate.data.Row;
+import io.crate.expression.symbol.Symbol;
 
+import javax.annotation.Nullable;
 import java.util.function.Predicate;
 
 class FilterProjector implements Projector {
 
     private final Predicate<Row> rowFilterPredicate;
+    @Nullable
+    private final Symbol query;
 
     FilterProjector(Predicate<Row> rowFilterPredicate) {
+        this(rowFilterPredicate, null);
+    }
+
+    /**
+     * @param query the filter condition; used to evaluate the filter on batches if the source is a
+     *              {@link ColumnarBatchIterator}, see {@link ColumnBatchFilter}
+     */
+    FilterProjector(Predicate<Row> rowFilterPredicate, @Nullable Symbol query) {
         this.rowFilterPredicate = rowFilterPredicate;
+        this.query = query;
     }
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
-        return new FilteringBatchIterator<>(batchIterator, rowFilterPredicate);
+        FilteringBatchIterator<Row> filteringIt = new FilteringBatchIterator<>(batchIterator, rowFilterPredicate);
+        if (batchIterator instanceof ColumnarBatchIterator) {
+            return new MappedColumnarBatchIterator(
+                (ColumnarBatchIterator) batchIterator,
+                filteringIt,
+                ColumnBatchFilter.create(rowFilterPredicate, query)
+            );
+        }
+        return filteringIt;
     }
 
     @Override
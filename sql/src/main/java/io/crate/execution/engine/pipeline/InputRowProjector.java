@@ -23,16 +23,24 @@
 package io.crate.execution.engine.pipeline;
 
 import io.crate.data.BatchIterator;
+import io.crate.data.ColumnBatch;
+import io.crate.data.ColumnarBatchIterator;
 import io.crate.data.Input;
+import io.crate.data.MappedColumnarBatchIterator;
 import io.crate.data.Projector;
 import io.crate.data.Row;
-import io.crate.execution.engine.pipeline.RowTransformingBatchIterator;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.InputCollectExpression;
 
+import javax.annotation.Nullable;
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 /**
  * Projector which evaluates scalars or extends/cuts columns, see {@link RowTransformingBatchIterator}.
+ *
+ * If the source is a {@link ColumnarBatchIterator} and the projector only re-orders or cuts columns, batches are
+ * projected without copying any data.
  */
 public class InputRowProjector implements Projector {
 
@@ -47,7 +55,53 @@ public class InputRowProjector implements Projector {
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
-        return new RowTransformingBatchIterator(batchIterator, inputs, collectExpressions);
+        RowTransformingBatchIterator rowIt = new RowTransformingBatchIterator(batchIterator, inputs, collectExpressions);
+        if (batchIterator instanceof ColumnarBatchIterator) {
+            int[] columnIndices = columnIndices();
+            if (columnIndices != null) {
+                return new MappedColumnarBatchIterator(
+                    (ColumnarBatchIterator) batchIterator, rowIt, new BatchProjection(columnIndices));
+            }
+        }
+        return rowIt;
+    }
+
+    /**
+     * @return the source columns of the inputs or null if any input isn't a plain column reference
+     */
+    @Nullable
+    private int[] columnIndices() {
+        int[] columnIndices = new int[inputs.size()];
+        for (int i = 0; i < columnIndices.length; i++) {
+            Input<?> input = inputs.get(i);
+            if (input instanceof InputCollectExpression) {
+                columnIndices[i] = ((InputCollectExpression) input).position();
+            } else {
+                return null;
+            }
+        }
+        return columnIndices;
+    }
+
+    private static class BatchProjection implements UnaryOperator<ColumnBatch> {
+
+        private final int[] columnIndices;
+        private ColumnBatch source;
+        private ColumnBatch projected;
+
+        BatchProjection(int[] columnIndices) {
+            this.columnIndices = columnIndices;
+        }
+
+        @Override
+        public ColumnBatch apply(ColumnBatch batch) {
+            if (batch != source) {
+                source = batch;
+                projected = batch.project(columnIndices);
+            }
+            projected.syncSelection(batch);
+            return projected;
+        }
     }
 
     @Override
@@ -59,17 +59,19 @@ public class ProjectingRowConsumer implements RowConsumer {
     public static RowConsumer create(RowConsumer lastConsumer,
                                      Collection<? extends Projection> projections,
                                      UUID jobId,
+                                     int phaseId,
                                      RamAccountingContext ramAccountingContext,
                                      ProjectorFactory projectorFactory) {
         if (projections.isEmpty()) {
             return lastConsumer;
         }
-        return new ProjectingRowConsumer(lastConsumer, projections, jobId, ramAccountingContext, projectorFactory);
+        return new ProjectingRowConsumer(lastConsumer, projections, jobId, phaseId, ramAccountingContext, projectorFactory);
     }
 
     private ProjectingRowConsumer(RowConsumer consumer,
                                   Collection<? extends Projection> projections,
                                   UUID jobId,
+                                  int phaseId,
                                   RamAccountingContext ramAccountingContext,
                                   ProjectorFactory projectorFactory) {
         this.consumer = consumer;
@@ -77,7 +79,7 @@ public class ProjectingRowConsumer implements RowConsumer {
 
         boolean projectorsSupportIndependentScrolling = false;
         for (Projection projection : projections) {
-            Projector projector = projectorFactory.create(projection, ramAccountingContext, jobId);
+            Projector projector = projectorFactory.create(projection, ramAccountingContext, jobId, phaseId);
             projectors.add(projector);
 
             if (projector.providesIndependentScroll()) {
@@ -56,6 +56,7 @@ import io.crate.execution.engine.aggregation.AggregationContext;
 import io.crate.execution.engine.aggregation.AggregationPipe;
 import io.crate.execution.engine.aggregation.GroupingProjector;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.execution.engine.export.FileWriterProjector;
 import io.crate.execution.engine.fetch.FetchProjector;
 import io.crate.execution.engine.fetch.FetchProjectorContext;
@@ -67,9 +68,12 @@ import io.crate.execution.engine.indexing.IndexWriterProjector;
 import io.crate.execution.engine.indexing.ShardDMLExecutor;
 import io.crate.execution.engine.indexing.ShardingUpsertExecutor;
 import io.crate.execution.engine.sort.OrderingByPosition;
+import io.crate.execution.engine.sort.SortKeyEncoder;
 import io.crate.execution.engine.sort.SortingProjector;
 import io.crate.execution.engine.sort.SortingTopNProjector;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.expression.InputFactory;
+import io.crate.expression.compiler.CompiledExpression;
 import io.crate.expression.RowFilter;
 import io.crate.expression.reference.StaticTableDefinition;
 import io.crate.expression.reference.sys.SysRowUpdater;
@@ -81,6 +85,7 @@ import io.crate.metadata.Reference;
 import io.crate.metadata.RowCollectExpression;
 import io.crate.metadata.TableIdent;
 import io.crate.metadata.TransactionContext;
+import io.crate.types.DataType;
 import io.crate.types.StringType;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -117,6 +122,10 @@ public class ProjectionToProjectorVisitor
     private final BigArrays bigArrays;
     @Nullable
     private final ShardId shardId;
+    @Nullable
+    private final SpillService spillService;
+    @Nullable
+    private final JobsLogs jobsLogs;
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
                                         NodeJobsCounter nodeJobsCounter,
@@ -131,6 +140,39 @@ public class ProjectionToProjectorVisitor
                                         Version indexVersionCreated,
                                         BigArrays bigArrays,
                                         @Nullable ShardId shardId) {
+        this(clusterService,
+            nodeJobsCounter,
+            functions,
+            threadPool,
+            settings,
+            transportActionProvider,
+            inputFactory,
+            normalizer,
+            sysUpdaterGetter,
+            staticTableDefinitionGetter,
+            indexVersionCreated,
+            bigArrays,
+            shardId,
+            null,
+            null
+        );
+    }
+
+    private ProjectionToProjectorVisitor(ClusterService clusterService,
+                                         NodeJobsCounter nodeJobsCounter,
+                                         Functions functions,
+                                         ThreadPool threadPool,
+                                         Settings settings,
+                                         TransportActionProvider transportActionProvider,
+                                         InputFactory inputFactory,
+                                         EvaluatingNormalizer normalizer,
+                                         Function<TableIdent, SysRowUpdater<?>> sysUpdaterGetter,
+                                         Function<TableIdent, StaticTableDefinition<?>> staticTableDefinitionGetter,
+                                         Version indexVersionCreated,
+                                         BigArrays bigArrays,
+                                         @Nullable ShardId shardId,
+                                         @Nullable SpillService spillService,
+                                         @Nullable JobsLogs jobsLogs) {
         this.clusterService = clusterService;
         this.nodeJobsCounter = nodeJobsCounter;
         this.functions = functions;
@@ -144,6 +186,8 @@ public class ProjectionToProjectorVisitor
         this.indexVersionCreated = indexVersionCreated;
         this.bigArrays = bigArrays;
         this.shardId = shardId;
+        this.spillService = spillService;
+        this.jobsLogs = jobsLogs;
     }
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
@@ -167,12 +211,43 @@ public class ProjectionToProjectorVisitor
             normalizer,
             sysUpdaterGetter,
             staticTableDefinitionGetter,
-            Version.CURRENT,
             bigArrays,
+            null,
             null
         );
     }
 
+    public ProjectionToProjectorVisitor(ClusterService clusterService,
+                                        NodeJobsCounter nodeJobsCounter,
+                                        Functions functions,
+                                        ThreadPool threadPool,
+                                        Settings settings,
+                                        TransportActionProvider transportActionProvider,
+                                        InputFactory inputFactory,
+                                        EvaluatingNormalizer normalizer,
+                                        Function<TableIdent, SysRowUpdater<?>> sysUpdaterGetter,
+                                        Function<TableIdent, StaticTableDefinition<?>> staticTableDefinitionGetter,
+                                        BigArrays bigArrays,
+                                        @Nullable SpillService spillService,
+                                        @Nullable JobsLogs jobsLogs) {
+        this(clusterService,
+            nodeJobsCounter,
+            functions,
+            threadPool,
+            settings,
+            transportActionProvider,
+            inputFactory,
+            normalizer,
+            sysUpdaterGetter,
+            staticTableDefinitionGetter,
+            Version.CURRENT,
+            bigArrays,
+            null,
+            spillService,
+            jobsLogs
+        );
+    }
+
     @Override
     public Projector visitOrderedTopN(OrderedTopNProjection projection, Context context) {
         /* OrderBy symbols are added to the rows to enable sorting on them post-collect. E.g.:
@@ -195,22 +270,36 @@ public class ProjectionToProjectorVisitor
         for (int i = numOutputs; i < inputs.size(); i++) {
             orderByIndices[idx++] = i;
         }
+        SortKeyEncoder sortKeyEncoder = SortKeyEncoder.create(
+            orderByIndices,
+            Symbols.typeView(projection.orderBy()),
+            projection.reverseFlags(),
+            projection.nullsFirst()
+        );
         if (projection.limit() > TopN.NO_LIMIT) {
             return new SortingTopNProjector(
                 inputs,
                 ctx.expressions(),
                 numOutputs,
                 OrderingByPosition.arrayOrdering(orderByIndices, projection.reverseFlags(), projection.nullsFirst()),
+                sortKeyEncoder,
                 projection.limit(),
                 projection.offset()
             );
         }
+        List<DataType> inputTypes = new ArrayList<>(inputs.size());
+        inputTypes.addAll(Symbols.typeView(projection.outputs()));
+        inputTypes.addAll(Symbols.typeView(projection.orderBy()));
         return new SortingProjector(
             inputs,
+            inputTypes,
             ctx.expressions(),
             numOutputs,
             OrderingByPosition.arrayOrdering(orderByIndices, projection.reverseFlags(), projection.nullsFirst()),
-            projection.offset()
+            sortKeyEncoder,
+            projection.offset(),
+            context.ramAccountingContext,
+            spillService == null ? null : spillService.newContext(context.jobId, context.phaseId)
         );
     }
 
@@ -222,8 +311,21 @@ public class ProjectionToProjectorVisitor
 
     @Override
     public Projector visitEvalProjection(EvalProjection projection, Context context) {
-        InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns(projection.outputs());
-        return new InputRowProjector(ctx.topLevelInputs(), ctx.expressions());
+        InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns();
+        List<Input<?>> inputs = new ArrayList<>(projection.outputs().size());
+        List<CollectExpression<Row, ?>> compiledExpressions = new ArrayList<>();
+        for (Symbol output : projection.outputs()) {
+            CompiledExpression compiled = inputFactory.compile(output);
+            if (compiled == null) {
+                inputs.add(ctx.add(output));
+            } else {
+                inputs.add(compiled);
+                compiledExpressions.add(compiled);
+            }
+        }
+        List<CollectExpression<Row, ?>> expressions = new ArrayList<>(ctx.expressions());
+        expressions.addAll(compiledExpressions);
+        return new InputRowProjector(inputs, expressions);
     }
 
     @Override
@@ -242,7 +344,8 @@ public class ProjectionToProjectorVisitor
             ctx.aggregations().toArray(new AggregationContext[0]),
             context.ramAccountingContext,
             indexVersionCreated,
-            bigArrays
+            bigArrays,
+            spillService == null ? null : spillService.newContext(context.jobId, context.phaseId)
         );
     }
 
@@ -288,8 +391,13 @@ public class ProjectionToProjectorVisitor
             sb.append("/");
         }
         sb.append(fileName);
-        if (projection.compressionType() == WriterProjection.CompressionType.GZIP) {
-            sb.append(".gz");
+        if (projection.outputFormat() == WriterProjection.OutputFormat.PARQUET) {
+            sb.append(".parquet");
+        } else {
+            sb.append(".json");
+            if (projection.compressionType() == WriterProjection.CompressionType.GZIP) {
+                sb.append(".gz");
+            }
         }
         uri = sb.toString();
 
@@ -301,10 +409,12 @@ public class ProjectionToProjectorVisitor
             uri,
             projection.compressionType(),
             inputs,
+            Symbols.typeView(projection.inputs()),
             ctx.expressions(),
             overwrites,
             projection.outputNames(),
-            projection.outputFormat()
+            projection.outputFormat(),
+            projection.maxFileSize()
         );
     }
 
@@ -358,7 +468,9 @@ public class ProjectionToProjectorVisitor
             projection.excludes(),
             projection.autoCreateIndices(),
             projection.overwriteDuplicates(),
-            context.jobId
+            context.jobId,
+            jobsLogs,
+            context.phaseId
         );
     }
 
@@ -395,14 +507,19 @@ public class ProjectionToProjectorVisitor
             projection.onDuplicateKeyAssignments(),
             projection.bulkActions(),
             projection.autoCreateIndices(),
-            context.jobId
+            context.jobId,
+            jobsLogs,
+            context.phaseId
         );
     }
 
     @Override
     public Projector visitFilterProjection(FilterProjection projection, Context context) {
-        Predicate<Row> rowFilter = RowFilter.create(inputFactory, projection.query());
-        return new FilterProjector(rowFilter);
+        CompiledExpression compiledQuery = inputFactory.compile(projection.query());
+        Predicate<Row> rowFilter = compiledQuery == null
+            ? RowFilter.create(inputFactory, projection.query())
+            : compiledQuery::matches;
+        return new FilterProjector(rowFilter, projection.query());
     }
 
     @Override
@@ -520,8 +637,8 @@ public class ProjectionToProjectorVisitor
     }
 
     @Override
-    public Projector create(Projection projection, RamAccountingContext ramAccountingContext, UUID jobId) {
-        return process(projection, new Context(ramAccountingContext, jobId));
+    public Projector create(Projection projection, RamAccountingContext ramAccountingContext, UUID jobId, int phaseId) {
+        return process(projection, new Context(ramAccountingContext, jobId, phaseId));
     }
 
     @Override
@@ -533,11 +650,13 @@ public class ProjectionToProjectorVisitor
 
         private final RamAccountingContext ramAccountingContext;
         private final UUID jobId;
+        private final int phaseId;
         private final TransactionContext transactionContext = new TransactionContext(SessionContext.create());
 
-        public Context(RamAccountingContext ramAccountingContext, UUID jobId) {
+        public Context(RamAccountingContext ramAccountingContext, UUID jobId, int phaseId) {
             this.ramAccountingContext = ramAccountingContext;
             this.jobId = jobId;
+            this.phaseId = phaseId;
         }
     }
 }
@@ -30,5 +30,5 @@ import java.util.UUID;
 
 public interface ProjectorFactory {
 
-    Projector create(Projection projection, RamAccountingContext ramAccountingContext, UUID jobId);
+    Projector create(Projection projection, RamAccountingContext ramAccountingContext, UUID jobId, int phaseId);
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.sort;
+
+import org.apache.lucene.util.BytesRefBuilder;
+
+import javax.annotation.Nullable;
+import java.util.Comparator;
+
+/**
+ * A materialized row together with its {@link SortKeyEncoder sort key}.
+ */
+public final class KeyedRow {
+
+    final BytesRefBuilder key = new BytesRefBuilder();
+    Object[] cells;
+
+    KeyedRow() {
+    }
+
+    /**
+     * @param encoder    the encoder used to create the keys of the rows, if null the rows are compared using
+     *                   {@code ordering} instead.
+     * @param ordering   the (reversed) ordering used by the {@link RowPriorityQueue}s of the projectors
+     * @return a comparator which orders the rows in the order they have to be emitted
+     */
+    static Comparator<KeyedRow> comparator(@Nullable SortKeyEncoder encoder, Comparator<Object[]> ordering) {
+        if (encoder == null) {
+            return (row1, row2) -> ordering.compare(row2.cells, row1.cells);
+        }
+        return (row1, row2) -> row1.key.get().compareTo(row2.key.get());
+    }
+}
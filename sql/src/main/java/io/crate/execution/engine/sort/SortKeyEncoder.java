@@ -0,0 +1,198 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.sort;
+
+import io.crate.data.Row;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.IpType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Encodes the ORDER BY values of a row into a normalized binary sort key.
+ *
+ * The keys of two rows compare (unsigned, byte by byte, see {@link BytesRef#compareTo(BytesRef)}) in the order
+ * the rows have to be emitted, so sorting doesn't need to unbox and compare the values column by column.
+ * Each column is encoded as a marker byte which places nulls first or last, followed by the value:
+ *
+ * <ul>
+ *     <li>integral and timestamp values: 8 bytes big endian with the sign bit flipped</li>
+ *     <li>floating point values: the 8 bytes of the double with the sign bit flipped, or all bits if negative</li>
+ *     <li>boolean values: a single byte</li>
+ *     <li>string values: the UTF-8 bytes with 0x00 escaped as 0x00 0xFF, terminated by 0x00 0x00</li>
+ * </ul>
+ *
+ * The value bytes of descending columns are inverted.
+ * The encoding of strings is prefix free, so a shorter string sorts before the longer strings it is a prefix of.
+ *
+ * The order is the same as the one of {@link OrderingByPosition#arrayOrdering(int[], boolean[], Boolean[])}.
+ */
+public final class SortKeyEncoder {
+
+    private static final byte NULL_FIRST = 0x00;
+    private static final byte NOT_NULL = 0x01;
+    private static final byte NULL_LAST = 0x02;
+
+    private final int[] positions;
+    private final int[] typeIds;
+    private final boolean[] reverseFlags;
+    private final byte[] nullMarkers;
+
+    private SortKeyEncoder(int[] positions, int[] typeIds, boolean[] reverseFlags, byte[] nullMarkers) {
+        this.positions = positions;
+        this.typeIds = typeIds;
+        this.reverseFlags = reverseFlags;
+        this.nullMarkers = nullMarkers;
+    }
+
+    /**
+     * @param positions    the positions of the ORDER BY values in the rows
+     * @param types        the types of the ORDER BY values
+     * @return an encoder or null if the values of one of the types can't be encoded.
+     */
+    @Nullable
+    public static SortKeyEncoder create(int[] positions,
+                                        List<? extends DataType> types,
+                                        boolean[] reverseFlags,
+                                        Boolean[] nullsFirst) {
+        assert positions.length == types.size() : "number of positions must match the number of types";
+        int[] typeIds = new int[types.size()];
+        byte[] nullMarkers = new byte[types.size()];
+        for (int i = 0; i < typeIds.length; i++) {
+            int typeId = types.get(i).id();
+            if (!supports(typeId)) {
+                return null;
+            }
+            typeIds[i] = typeId;
+            // nulls are sorted as if they were larger than any value, unless specified otherwise
+            boolean nullFirst = nullsFirst[i] == null ? reverseFlags[i] : nullsFirst[i];
+            nullMarkers[i] = nullFirst ? NULL_FIRST : NULL_LAST;
+        }
+        return new SortKeyEncoder(positions, typeIds, reverseFlags, nullMarkers);
+    }
+
+    private static boolean supports(int typeId) {
+        switch (typeId) {
+            case LongType.ID:
+            case TimestampType.ID:
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+            case DoubleType.ID:
+            case FloatType.ID:
+            case BooleanType.ID:
+            case StringType.ID:
+            case IpType.ID:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Replaces the content of {@code key} with the sort key of the given row.
+     */
+    public void encode(Object[] cells, BytesRefBuilder key) {
+        key.clear();
+        for (int i = 0; i < positions.length; i++) {
+            encodeColumn(i, cells[positions[i]], key);
+        }
+    }
+
+    /**
+     * Replaces the content of {@code key} with the sort key of the given row.
+     */
+    public void encode(Row row, BytesRefBuilder key) {
+        key.clear();
+        for (int i = 0; i < positions.length; i++) {
+            encodeColumn(i, row.get(positions[i]), key);
+        }
+    }
+
+    private void encodeColumn(int i, @Nullable Object value, BytesRefBuilder key) {
+        if (value == null) {
+            key.append(nullMarkers[i]);
+            return;
+        }
+        key.append(NOT_NULL);
+        int start = key.length();
+        switch (typeIds[i]) {
+            case DoubleType.ID:
+            case FloatType.ID:
+                long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+                appendLong(key, bits < 0 ? ~bits : bits ^ Long.MIN_VALUE);
+                break;
+
+            case BooleanType.ID:
+                key.append((Boolean) value ? (byte) 1 : (byte) 0);
+                break;
+
+            case StringType.ID:
+            case IpType.ID:
+                appendString(key, (BytesRef) value);
+                break;
+
+            default:
+                appendLong(key, ((Number) value).longValue() ^ Long.MIN_VALUE);
+                break;
+        }
+        if (reverseFlags[i]) {
+            byte[] bytes = key.bytes();
+            for (int b = start; b < key.length(); b++) {
+                bytes[b] = (byte) ~bytes[b];
+            }
+        }
+    }
+
+    private static void appendLong(BytesRefBuilder key, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            key.append((byte) (value >>> shift));
+        }
+    }
+
+    private static void appendString(BytesRefBuilder key, BytesRef value) {
+        int end = value.offset + value.length;
+        for (int i = value.offset; i < end; i++) {
+            byte b = value.bytes[i];
+            key.append(b);
+            if (b == 0) {
+                key.append((byte) 0xFF);
+            }
+        }
+        key.append((byte) 0);
+        key.append((byte) 0);
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.sort;
+
+import io.crate.Streamer;
+import io.crate.execution.engine.spill.SpillContext;
+import io.crate.types.DataType;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Writes sorted runs of rows to spill files and merges them into a single sorted sequence.
+ *
+ * A row is written as its sort key (if the rows are sorted by {@link SortKeyEncoder keys}) followed by the cells,
+ * using the streamers of the column types.
+ * If there are more than {@link #MAX_MERGE_WIDTH} runs, they are merged into larger runs first,
+ * so that the number of files which are open at the same time is bounded.
+ */
+final class SortSpill implements Closeable {
+
+    static final int MAX_MERGE_WIDTH = 64;
+
+    private final SpillContext spillContext;
+    private final Path directory;
+    private final Streamer[] streamers;
+    private final boolean withKeys;
+    private final List<Run> runs = new ArrayList<>();
+    private final List<StreamInput> openInputs = new ArrayList<>();
+    private int nextRunId = 0;
+
+    private static final class Run {
+
+        private final Path file;
+        private final int numRows;
+
+        private Run(Path file, int numRows) {
+            this.file = file;
+            this.numRows = numRows;
+        }
+    }
+
+    SortSpill(SpillContext spillContext, List<? extends DataType> types, boolean withKeys) throws IOException {
+        this.spillContext = spillContext;
+        this.withKeys = withKeys;
+        streamers = new Streamer[types.size()];
+        for (int i = 0; i < streamers.length; i++) {
+            streamers[i] = types.get(i).streamer();
+        }
+        directory = spillContext.createTempDirectory("order-by");
+    }
+
+    /**
+     * Writes the given rows, which must already be sorted, as a new run.
+     */
+    void writeRun(List<KeyedRow> sortedRows) throws IOException {
+        Run run = writeRun(sortedRows.iterator());
+        runs.add(run);
+        spillContext.onSpilled(Files.size(run.file), 1);
+    }
+
+    private Run writeRun(Iterator<KeyedRow> sortedRows) throws IOException {
+        Path file = directory.resolve("run-" + nextRunId++);
+        int numRows = 0;
+        try (StreamOutput out = new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            while (sortedRows.hasNext()) {
+                KeyedRow row = sortedRows.next();
+                if (withKeys) {
+                    out.writeBytesRef(row.key.get());
+                }
+                for (int i = 0; i < streamers.length; i++) {
+                    streamers[i].writeValueTo(out, row.cells[i]);
+                }
+                numRows++;
+            }
+        }
+        return new Run(file, numRows);
+    }
+
+    /**
+     * Merges all runs. The returned iterable can be iterated multiple times,
+     * the spill files are read again on each iteration.
+     */
+    Iterable<KeyedRow> merge(Comparator<KeyedRow> comparator) throws IOException {
+        while (runs.size() > MAX_MERGE_WIDTH) {
+            List<Run> merged = new ArrayList<>((runs.size() + MAX_MERGE_WIDTH - 1) / MAX_MERGE_WIDTH);
+            for (int start = 0; start < runs.size(); start += MAX_MERGE_WIDTH) {
+                List<Run> group = runs.subList(start, Math.min(start + MAX_MERGE_WIDTH, runs.size()));
+                merged.add(writeRun(new MergeIterator(open(group), comparator)));
+                closeInputs();
+                for (Run run : group) {
+                    Files.delete(run.file);
+                }
+            }
+            runs.clear();
+            runs.addAll(merged);
+        }
+        return () -> {
+            closeInputs();
+            try {
+                return new MergeIterator(open(runs), comparator);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private List<RunCursor> open(List<Run> runsToOpen) throws IOException {
+        List<RunCursor> cursors = new ArrayList<>(runsToOpen.size());
+        for (Run run : runsToOpen) {
+            StreamInput in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(run.file)));
+            openInputs.add(in);
+            cursors.add(new RunCursor(in, run.numRows));
+        }
+        return cursors;
+    }
+
+    private void closeInputs() {
+        try {
+            IOUtils.close(openInputs);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            openInputs.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            IOUtils.close(openInputs);
+        } finally {
+            openInputs.clear();
+            IOUtils.rm(directory);
+        }
+    }
+
+    /**
+     * Reads the rows of a run one by one.
+     */
+    private final class RunCursor {
+
+        private final StreamInput in;
+        private int remaining;
+        private KeyedRow current;
+
+        RunCursor(StreamInput in, int numRows) {
+            this.in = in;
+            this.remaining = numRows;
+        }
+
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                current = null;
+                return false;
+            }
+            remaining--;
+            KeyedRow row = new KeyedRow();
+            if (withKeys) {
+                row.key.copyBytes(in.readBytesRef());
+            }
+            Object[] cells = new Object[streamers.length];
+            for (int i = 0; i < streamers.length; i++) {
+                cells[i] = streamers[i].readValueFrom(in);
+            }
+            row.cells = cells;
+            current = row;
+            return true;
+        }
+    }
+
+    /**
+     * Merges the rows of the cursors using a priority queue which keeps the cursor with the smallest row on top.
+     */
+    private static final class MergeIterator implements Iterator<KeyedRow> {
+
+        private final RowPriorityQueue<RunCursor> queue;
+        private RunCursor emitted;
+
+        MergeIterator(List<RunCursor> cursors, Comparator<KeyedRow> comparator) throws IOException {
+            queue = new RowPriorityQueue<>(cursors.size(), (c1, c2) -> comparator.compare(c1.current, c2.current));
+            for (RunCursor cursor : cursors) {
+                if (cursor.next()) {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (emitted != null) {
+                // the cursor of the last emitted row is still on top of the queue
+                try {
+                    if (emitted.next()) {
+                        queue.updateTop();
+                    } else {
+                        queue.pop();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                emitted = null;
+            }
+            return queue.size() > 0;
+        }
+
+        @Override
+        public KeyedRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Iterator is exhausted");
+            }
+            emitted = queue.top();
+            return emitted.current;
+        }
+    }
+}
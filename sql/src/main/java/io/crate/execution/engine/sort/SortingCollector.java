@@ -0,0 +1,295 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.sort;
+
+import com.google.common.collect.Iterables;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.exceptions.Exceptions;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillContext;
+import io.crate.types.DataType;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Collector which materializes all rows, sorts them and skips the offset.
+ *
+ * The memory used by the rows is accounted in the {@link RamAccountingContext}.
+ * If a {@link SpillContext} is given and the accounted memory reaches the spill threshold, the rows are sorted
+ * and written to disk as a run using a {@link SortSpill}. On finish all runs are merged, so only the rows
+ * which are currently read from the runs are kept in memory.
+ * The spill files are deleted on {@link #close()}; if a run is being written at that time, the files are
+ * deleted once the write has finished. {@link #kill(Throwable)} only prevents further runs from being written.
+ */
+class SortingCollector implements Collector<Row, SortingCollector.Rows, Iterable<Row>> {
+
+    // KeyedRow instance, BytesRefBuilder instance and the reference to the row in the list
+    private static final long ROW_OVERHEAD = 2 * RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+                                             + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                                             + 4 * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+    private final List<? extends Input<?>> inputs;
+    private final List<? extends DataType> inputTypes;
+    private final Iterable<? extends CollectExpression<Row, ?>> expressions;
+    private final int numOutputs;
+    private final Comparator<KeyedRow> comparator;
+    @Nullable
+    private final SortKeyEncoder sortKeyEncoder;
+    private final int offset;
+    private final SizeEstimator<Object>[] estimators;
+    private final RamAccountingContext ramAccountingContext;
+    @Nullable
+    private final SpillContext spillContext;
+    private final long spillThreshold;
+    private final List<SortSpill> spills = new ArrayList<>();
+
+    @Nullable
+    private volatile Throwable killed;
+    private boolean closed = false;
+
+    @SuppressWarnings("unchecked")
+    SortingCollector(Collection<? extends Input<?>> inputs,
+                     List<? extends DataType> inputTypes,
+                     Iterable<? extends CollectExpression<Row, ?>> expressions,
+                     int numOutputs,
+                     Comparator<Object[]> ordering,
+                     @Nullable SortKeyEncoder sortKeyEncoder,
+                     int offset,
+                     RamAccountingContext ramAccountingContext,
+                     @Nullable SpillContext spillContext) {
+        assert inputs.size() == inputTypes.size() : "number of inputs must match the number of input types";
+        this.inputs = new ArrayList<>(inputs);
+        this.inputTypes = inputTypes;
+        this.expressions = expressions;
+        this.numOutputs = numOutputs;
+        this.comparator = KeyedRow.comparator(sortKeyEncoder, ordering);
+        this.sortKeyEncoder = sortKeyEncoder;
+        this.offset = offset;
+        this.ramAccountingContext = ramAccountingContext;
+        this.spillContext = spillContext;
+        this.spillThreshold = spillContext == null ? Long.MAX_VALUE : spillContext.thresholdBytes(ramAccountingContext);
+        estimators = new SizeEstimator[inputTypes.size()];
+        for (int i = 0; i < estimators.length; i++) {
+            estimators[i] = SizeEstimatorFactory.create(inputTypes.get(i));
+        }
+    }
+
+    /**
+     * State of the collector: the rows in memory and the runs which have been spilled to disk.
+     */
+    static final class Rows {
+
+        private final ArrayList<KeyedRow> rows = new ArrayList<>();
+        private long bytesBeforeRows;
+
+        @Nullable
+        private SortSpill spill;
+    }
+
+    @Override
+    public Supplier<Rows> supplier() {
+        return () -> {
+            Rows rows = new Rows();
+            rows.bytesBeforeRows = ramAccountingContext.totalBytes();
+            return rows;
+        };
+    }
+
+    @Override
+    public BiConsumer<Rows, Row> accumulator() {
+        return this::onNextRow;
+    }
+
+    @Override
+    public BinaryOperator<Rows> combiner() {
+        return (rows1, rows2) -> {
+            throw new UnsupportedOperationException("combine not supported");
+        };
+    }
+
+    @Override
+    public Function<Rows, Iterable<Row>> finisher() {
+        return this::finish;
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Collections.emptySet();
+    }
+
+    private void onNextRow(Rows rows, Row row) {
+        for (CollectExpression<Row, ?> expression : expressions) {
+            expression.setNextRow(row);
+        }
+        KeyedRow keyedRow = new KeyedRow();
+        Object[] cells = new Object[inputs.size()];
+        long bytes = ROW_OVERHEAD + RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) cells.length * RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+        for (int i = 0; i < cells.length; i++) {
+            Object value = inputs.get(i).value();
+            cells[i] = value;
+            bytes += estimators[i].estimateSize(value);
+        }
+        keyedRow.cells = cells;
+        if (sortKeyEncoder != null) {
+            sortKeyEncoder.encode(cells, keyedRow.key);
+            bytes += keyedRow.key.bytes().length;
+        }
+        ramAccountingContext.addBytes(bytes);
+        rows.rows.add(keyedRow);
+        if (ramAccountingContext.totalBytes() - rows.bytesBeforeRows >= spillThreshold) {
+            spill(rows);
+        }
+    }
+
+    private void spill(Rows rows) {
+        assert spillContext != null : "spillContext must not be null if rows are spilled";
+        synchronized (spills) {
+            ensureOpen();
+            try {
+                if (rows.spill == null) {
+                    rows.spill = new SortSpill(spillContext, inputTypes, sortKeyEncoder != null);
+                    spills.add(rows.spill);
+                }
+                rows.rows.sort(comparator);
+                rows.spill.writeRun(rows.rows);
+            } catch (IOException e) {
+                closeQuietly(rows.spill);
+                throw new UncheckedIOException(e);
+            }
+        }
+        releaseRows(rows);
+    }
+
+    private void ensureOpen() {
+        Throwable killedBy = killed;
+        if (killedBy != null) {
+            Exceptions.rethrowUnchecked(killedBy);
+        }
+        if (closed) {
+            throw new IllegalStateException("SortingCollector is already closed");
+        }
+    }
+
+    private void releaseRows(Rows rows) {
+        rows.rows.clear();
+        rows.rows.trimToSize();
+        ramAccountingContext.releaseBytes(ramAccountingContext.totalBytes() - rows.bytesBeforeRows);
+    }
+
+    private Iterable<Row> finish(Rows rows) {
+        SortSpill spill = rows.spill;
+        if (spill == null) {
+            rows.rows.sort(comparator);
+            int numRows = rows.rows.size();
+            return toRows(rows.rows.subList(Math.min(offset, numRows), numRows));
+        }
+        Iterable<KeyedRow> merged;
+        synchronized (spills) {
+            ensureOpen();
+            try {
+                if (!rows.rows.isEmpty()) {
+                    rows.rows.sort(comparator);
+                    spill.writeRun(rows.rows);
+                }
+                releaseRows(rows);
+                merged = spill.merge(comparator);
+            } catch (IOException e) {
+                closeQuietly(spill);
+                throw new UncheckedIOException(e);
+            }
+        }
+        return toRows(Iterables.skip(merged, offset));
+    }
+
+    private Iterable<Row> toRows(Iterable<KeyedRow> keyedRows) {
+        return () -> new Iterator<Row>() {
+
+            final Iterator<KeyedRow> it = keyedRows.iterator();
+            final RowN row = new RowN(numOutputs);
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Row next() {
+                row.cells(it.next().cells);
+                return row;
+            }
+        };
+    }
+
+    /**
+     * Stops the collector from writing further runs. The spill files are not deleted, as a run may still be written
+     * by the thread which is consuming the source; {@link #close()} must be called in any case.
+     */
+    void kill(Throwable throwable) {
+        killed = throwable;
+    }
+
+    /**
+     * Deletes the spill files, if any. Must be called once the result of the collector is no longer used.
+     * Waits for a run which is currently being written.
+     */
+    void close() {
+        synchronized (spills) {
+            closed = true;
+            for (SortSpill spill : spills) {
+                closeQuietly(spill);
+            }
+            spills.clear();
+        }
+    }
+
+    private static void closeQuietly(@Nullable SortSpill spill) {
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException ignored) {
+                // the spill directory is removed on the next node start in any case
+            }
+        }
+    }
+}
@@ -23,87 +23,97 @@
 package io.crate.execution.engine.sort;
 
 import com.google.common.base.Preconditions;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.data.BatchIterator;
-import io.crate.data.Bucket;
 import io.crate.data.CollectingBatchIterator;
-import io.crate.data.CollectionBucket;
+import io.crate.data.ForwardingBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillContext;
+import io.crate.types.DataType;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
 
 /**
  * Sort rows by ordering criteria and process given offset before emitting.
  * <p>
  * Compared to {@link SortingTopNProjector} this projector does not support limiting,
  * while the {@link SortingTopNProjector} does not work WITHOUT a limit.
+ * <p>
+ * If a {@link SpillContext} is given, rows which don't fit into memory are sorted on disk, see {@link SortingCollector}.
  */
 public class SortingProjector implements Projector {
 
-    private final Collection<? extends Input<?>> inputs;
-    private final Iterable<? extends CollectExpression<Row, ?>> collectExpressions;
-
-    private final Comparator<Object[]> comparator;
-    private final int offset;
-    private final int numOutputs;
+    private final SortingCollector collector;
 
     /**
      * @param inputs             contains output {@link Input}s and orderBy {@link Input}s
+     * @param inputTypes         the types of the inputs
      * @param collectExpressions gathered from outputs and orderBy inputs
      * @param numOutputs         <code>inputs</code> contains this much output {@link Input}s starting form index 0
      * @param comparator         ordering that is used to compare the rows
+     * @param sortKeyEncoder     encoder of the binary sort keys which are used instead of the comparator, if given
      * @param offset             the initial offset, this number of rows are skipped
+     * @param spillContext       used to spill sorted runs to disk, if given
      */
     public SortingProjector(Collection<? extends Input<?>> inputs,
+                            List<? extends DataType> inputTypes,
                             Iterable<? extends CollectExpression<Row, ?>> collectExpressions,
                             int numOutputs,
                             Comparator<Object[]> comparator,
-                            int offset) {
+                            @Nullable SortKeyEncoder sortKeyEncoder,
+                            int offset,
+                            RamAccountingContext ramAccountingContext,
+                            @Nullable SpillContext spillContext) {
         Preconditions.checkArgument(offset >= 0, "invalid offset %s", offset);
-        this.numOutputs = numOutputs;
-        this.inputs = inputs;
-        this.collectExpressions = collectExpressions;
-        this.comparator = comparator;
-        this.offset = offset;
+        collector = new SortingCollector(
+            inputs,
+            inputTypes,
+            collectExpressions,
+            numOutputs,
+            comparator,
+            sortKeyEncoder,
+            offset,
+            ramAccountingContext,
+            spillContext
+        );
     }
 
-
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
-        Collector<Row, ?, Bucket> collector = Collectors.mapping(
-            this::getCells,
-            Collectors.collectingAndThen(Collectors.toList(), this::sortAndCreateBucket));
-        return CollectingBatchIterator.newInstance(batchIterator, collector);
+        BatchIterator<Row> collectingIterator = CollectingBatchIterator.newInstance(batchIterator, collector);
+        return new ForwardingBatchIterator<Row>() {
+
+            @Override
+            protected BatchIterator<Row> delegate() {
+                return collectingIterator;
+            }
+
+            @Override
+            public void close() {
+                try {
+                    super.close();
+                } finally {
+                    collector.close();
+                }
+            }
+
+            @Override
+            public void kill(@Nonnull Throwable throwable) {
+                collector.kill(throwable);
+                super.kill(throwable);
+            }
+        };
     }
 
     @Override
     public boolean providesIndependentScroll() {
         return true;
     }
-
-    private Object[] getCells(Row row) {
-        for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
-            collectExpression.setNextRow(row);
-        }
-        Object[] newRow = new Object[inputs.size()];
-        int i = 0;
-        for (Input<?> input : inputs) {
-            newRow[i++] = input.value();
-        }
-        return newRow;
-    }
-
-    private Bucket sortAndCreateBucket(List<Object[]> rows) {
-        rows.sort(comparator.reversed());
-        if (offset == 0) {
-            return new CollectionBucket(rows, numOutputs);
-        }
-        return new CollectionBucket(rows.subList(offset, rows.size()), numOutputs);
-    }
 }
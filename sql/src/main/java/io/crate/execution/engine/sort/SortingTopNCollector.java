@@ -28,9 +28,9 @@ import io.crate.data.Bucket;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.execution.engine.collect.CollectExpression;
-import io.crate.execution.engine.sort.RowPriorityQueue;
 import org.apache.lucene.util.ArrayUtil;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -45,23 +45,28 @@ import java.util.stream.Collector;
 /**
  * Collector implementation which collects rows into a priorityQueue in order to sort the rows and apply a limit + offset.
  * The final result is a sorted bucket with limit and offset applied.
+ *
+ * If a {@link SortKeyEncoder} is given the rows are compared by their binary sort keys, otherwise by the comparator.
  */
-public class SortingTopNCollector implements Collector<Row, RowPriorityQueue<Object[]>, Bucket> {
+public class SortingTopNCollector implements Collector<Row, RowPriorityQueue<KeyedRow>, Bucket> {
 
     private final Collection<? extends Input<?>> inputs;
     private final Iterable<? extends CollectExpression<Row, ?>> expressions;
     private final int numOutputs;
-    private final Comparator<Object[]> comparator;
+    private final Comparator<KeyedRow> comparator;
+    @Nullable
+    private final SortKeyEncoder sortKeyEncoder;
     private final int offset;
     private final int maxSize;
 
-    private Object[] spare;
+    private KeyedRow spare;
 
     /**
      * @param inputs             contains output {@link Input}s and orderBy {@link Input}s
      * @param expressions        expressions linked to the inputs
      * @param numOutputs         number of output columns
      * @param comparator         used to sort the rows
+     * @param sortKeyEncoder     used to create the sort keys of the rows, takes precedence over the comparator
      * @param limit              the max number of rows the result should contain
      * @param offset             the number of rows to skip (after sort)
      */
@@ -69,6 +74,7 @@ public class SortingTopNCollector implements Collector<Row, RowPriorityQueue<Obj
                                 Iterable<? extends CollectExpression<Row, ?>> expressions,
                                 int numOutputs,
                                 Comparator<Object[]> comparator,
+                                @Nullable SortKeyEncoder sortKeyEncoder,
                                 int limit,
                                 int offset) {
         Preconditions.checkArgument(limit > 0, "Invalid LIMIT: value must be > 0; got: " + limit);
@@ -77,7 +83,10 @@ public class SortingTopNCollector implements Collector<Row, RowPriorityQueue<Obj
         this.inputs = inputs;
         this.expressions = expressions;
         this.numOutputs = numOutputs;
-        this.comparator = comparator;
+        // the queue keeps the row which has to be emitted last on top, so it can be evicted first
+        Comparator<KeyedRow> rowComparator = KeyedRow.comparator(sortKeyEncoder, comparator);
+        this.comparator = (row1, row2) -> rowComparator.compare(row2, row1);
+        this.sortKeyEncoder = sortKeyEncoder;
         this.offset = offset;
         this.maxSize = limit + offset;
 
@@ -90,24 +99,24 @@ public class SortingTopNCollector implements Collector<Row, RowPriorityQueue<Obj
     }
 
     @Override
-    public Supplier<RowPriorityQueue<Object[]>> supplier() {
+    public Supplier<RowPriorityQueue<KeyedRow>> supplier() {
         return () -> new RowPriorityQueue<>(maxSize, comparator);
     }
 
     @Override
-    public BiConsumer<RowPriorityQueue<Object[]>, Row> accumulator() {
+    public BiConsumer<RowPriorityQueue<KeyedRow>, Row> accumulator() {
         return this::onNextRow;
     }
 
     @Override
-    public BinaryOperator<RowPriorityQueue<Object[]>> combiner() {
+    public BinaryOperator<RowPriorityQueue<KeyedRow>> combiner() {
         return (pq1, pq2) -> {
             throw new UnsupportedOperationException("combine not supported");
         };
     }
 
     @Override
-    public Function<RowPriorityQueue<Object[]>, Bucket> finisher() {
+    public Function<RowPriorityQueue<KeyedRow>, Bucket> finisher() {
         return this::pqToIterable;
     }
 
@@ -116,26 +125,33 @@ public class SortingTopNCollector implements Collector<Row, RowPriorityQueue<Obj
         return Collections.emptySet();
     }
 
-    private void onNextRow(RowPriorityQueue<Object[]> pq, Row row) {
+    private void onNextRow(RowPriorityQueue<KeyedRow> pq, Row row) {
         for (CollectExpression<Row, ?> expression : expressions) {
             expression.setNextRow(row);
         }
         if (spare == null) {
-            spare = new Object[inputs.size()];
+            spare = new KeyedRow();
+        }
+        if (spare.cells == null) {
+            spare.cells = new Object[inputs.size()];
         }
+        Object[] cells = spare.cells;
         int i = 0;
         for (Input<?> input : inputs) {
-            spare[i] = input.value();
+            cells[i] = input.value();
             i++;
         }
+        if (sortKeyEncoder != null) {
+            sortKeyEncoder.encode(cells, spare.key);
+        }
         spare = pq.insertWithOverflow(spare);
     }
 
-    private Bucket pqToIterable(RowPriorityQueue<Object[]> pq) {
+    private Bucket pqToIterable(RowPriorityQueue<KeyedRow> pq) {
         int resultSize = Math.max(pq.size() - offset, 0);
         Object[][] rows = new Object[resultSize][];
         for (int i = resultSize - 1; i >= 0; i--) {
-            rows[i] = pq.pop();
+            rows[i] = pq.pop().cells;
         }
         return new ArrayBucket(rows, numOutputs);
     }
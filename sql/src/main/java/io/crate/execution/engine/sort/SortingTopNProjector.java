@@ -29,6 +29,7 @@ import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.execution.engine.collect.CollectExpression;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Comparator;
 
@@ -41,6 +42,7 @@ public class SortingTopNProjector implements Projector {
      * @param collectExpressions gathered from outputs and orderBy inputs
      * @param numOutputs         <code>inputs</code> contains this much output {@link Input}s starting form index 0
      * @param ordering           ordering that is used to compare the rows
+     * @param sortKeyEncoder     encoder of the binary sort keys which are used instead of the ordering, if given
      * @param limit              the number of rows to gather, pass to upStream
      * @param offset             the initial offset, this number of rows are skipped
      */
@@ -48,6 +50,7 @@ public class SortingTopNProjector implements Projector {
                                 Iterable<? extends CollectExpression<Row, ?>> collectExpressions,
                                 int numOutputs,
                                 Comparator<Object[]> ordering,
+                                @Nullable SortKeyEncoder sortKeyEncoder,
                                 int limit,
                                 int offset) {
         collector = new SortingTopNCollector(
@@ -55,6 +58,7 @@ public class SortingTopNProjector implements Projector {
             collectExpressions,
             numOutputs,
             ordering,
+            sortKeyEncoder,
             limit,
             offset
         );
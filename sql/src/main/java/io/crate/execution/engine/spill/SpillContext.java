@@ -0,0 +1,73 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.spill;
+
+import io.crate.breaker.RamAccountingContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Spill handle of a single operation (execution phase), created using {@link SpillService#newContext(UUID, int)}.
+ */
+public class SpillContext {
+
+    private final SpillService spillService;
+    private final UUID jobId;
+    private final int phaseId;
+
+    SpillContext(SpillService spillService, UUID jobId, int phaseId) {
+        this.spillService = spillService;
+        this.jobId = jobId;
+        this.phaseId = phaseId;
+    }
+
+    /**
+     * @return the number of bytes an operation may account in the given context before it should spill to disk;
+     *         {@link Long#MAX_VALUE} if the breaker of the context has no limit.
+     */
+    public long thresholdBytes(RamAccountingContext ramAccountingContext) {
+        long limit = ramAccountingContext.limit();
+        if (limit <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (long) (spillService.threshold() * limit);
+    }
+
+    /**
+     * Creates a new directory for the spill files of the operation.
+     * The caller is responsible for deleting it once the files are no longer needed.
+     */
+    public Path createTempDirectory(String prefix) throws IOException {
+        return spillService.createTempDirectory(jobId + "-" + phaseId + "-" + prefix);
+    }
+
+    /**
+     * Reports that the operation has written another {@code bytes} to disk and created {@code partitions} new
+     * spill files since the last report. The values are added to the spill statistics of the operation.
+     */
+    public void onSpilled(long bytes, int partitions) {
+        spillService.onSpilled(jobId, phaseId, bytes, partitions);
+    }
+}
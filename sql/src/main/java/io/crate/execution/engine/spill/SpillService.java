@@ -0,0 +1,117 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.spill;
+
+import io.crate.execution.engine.collect.stats.JobsLogs;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.NodeEnvironment;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Provides the temporary files operations can use to move state out of memory before the query circuit breaker trips.
+ *
+ * Spill files are created below the {@code spill} folder of the first data path of the node.
+ * The folder is wiped on startup, so that files of operations which were interrupted by a node failure don't pile up.
+ */
+@Singleton
+public class SpillService extends AbstractComponent {
+
+    /**
+     * Fraction of the query circuit breaker limit an operation may use before it starts to spill to disk.
+     * 0 disables spilling.
+     */
+    public static final Setting<Double> SPILL_THRESHOLD_SETTING = Setting.doubleSetting(
+        "node.sql.spill.threshold",
+        0.0d,
+        0.0d,
+        Setting.Property.NodeScope);
+
+    static final String SPILL_FOLDER = "spill";
+
+    private final JobsLogs jobsLogs;
+    private final double threshold;
+    @Nullable
+    private final Path spillPath;
+
+    @Inject
+    public SpillService(Settings settings, NodeEnvironment nodeEnvironment, JobsLogs jobsLogs) {
+        super(settings);
+        this.jobsLogs = jobsLogs;
+        threshold = SPILL_THRESHOLD_SETTING.get(settings);
+        if (threshold > 1.0d) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "Failed to parse value [%s] for setting [%s] must be <= 1.0", threshold, SPILL_THRESHOLD_SETTING.getKey()));
+        }
+        if (threshold > 0.0d && nodeEnvironment.hasNodeFile()) {
+            spillPath = nodeEnvironment.nodeDataPaths()[0].resolve(SPILL_FOLDER);
+            try {
+                IOUtils.rm(spillPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't clean up spill folder " + spillPath, e);
+            }
+        } else {
+            spillPath = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return spillPath != null;
+    }
+
+    /**
+     * @return a context for the given operation or null if spilling is disabled.
+     */
+    @Nullable
+    public SpillContext newContext(UUID jobId, int phaseId) {
+        if (spillPath == null) {
+            return null;
+        }
+        return new SpillContext(this, jobId, phaseId);
+    }
+
+    double threshold() {
+        return threshold;
+    }
+
+    Path createTempDirectory(String prefix) throws IOException {
+        assert spillPath != null : "spillPath must not be null if spilling is enabled";
+        Files.createDirectories(spillPath);
+        return Files.createTempDirectory(spillPath, prefix);
+    }
+
+    void onSpilled(UUID jobId, int phaseId, long bytes, int partitions) {
+        jobsLogs.operationSpilled(phaseId, jobId, bytes, partitions);
+    }
+}
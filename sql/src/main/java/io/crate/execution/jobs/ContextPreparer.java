@@ -61,6 +61,7 @@ import io.crate.execution.engine.collect.MapSideDataCollectOperation;
 import io.crate.execution.engine.collect.PKLookupOperation;
 import io.crate.execution.engine.collect.count.CountOperation;
 import io.crate.execution.engine.collect.sources.SystemCollectSource;
+import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.execution.engine.distribution.DistributingConsumerFactory;
 import io.crate.execution.engine.distribution.SingleBucketBuilder;
 import io.crate.execution.engine.distribution.merge.PagingIterator;
@@ -70,6 +71,7 @@ import io.crate.execution.engine.join.NestedLoopOperation;
 import io.crate.execution.engine.pipeline.ProjectingRowConsumer;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
 import io.crate.execution.engine.pipeline.ProjectorFactory;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.expression.InputFactory;
 import io.crate.expression.RowFilter;
 import io.crate.expression.eval.EvaluatingNormalizer;
@@ -116,6 +118,7 @@ public class ContextPreparer extends AbstractComponent {
     private final InputFactory inputFactory;
     private final ProjectorFactory projectorFactory;
     private final PKLookupOperation pkLookupOperation;
+    private final SpillService spillService;
 
     @Inject
     public ContextPreparer(Settings settings,
@@ -130,7 +133,9 @@ public class ContextPreparer extends AbstractComponent {
                            IndicesService indicesService,
                            Functions functions,
                            SystemCollectSource systemCollectSource,
-                           BigArrays bigArrays) {
+                           BigArrays bigArrays,
+                           SpillService spillService,
+                           JobsLogs jobsLogs) {
         super(settings);
         nlContextLogger = Loggers.getLogger(JoinContext.class, settings);
         pageDownstreamContextLogger = Loggers.getLogger(PageDownstreamContext.class, settings);
@@ -140,6 +145,7 @@ public class ContextPreparer extends AbstractComponent {
         this.pkLookupOperation = new PKLookupOperation(indicesService);
         circuitBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY);
         this.distributingConsumerFactory = distributingConsumerFactory;
+        this.spillService = spillService;
         innerPreparer = new InnerPreparer();
         inputFactory = new InputFactory(functions);
         EvaluatingNormalizer normalizer = EvaluatingNormalizer.functionOnlyNormalizer(functions);
@@ -154,7 +160,9 @@ public class ContextPreparer extends AbstractComponent {
             normalizer,
             systemCollectSource::getRowUpdater,
             systemCollectSource::tableDefinition,
-            bigArrays
+            bigArrays,
+            spillService,
+            jobsLogs
         );
     }
 
@@ -550,6 +558,7 @@ public class ContextPreparer extends AbstractComponent {
                 context.getRowConsumer(pkLookupPhase, 0),
                 pkLookupPhase.projections(),
                 pkLookupPhase.jobId(),
+                pkLookupPhase.phaseId(),
                 RamAccountingContext.forExecutionPhase(circuitBreaker, pkLookupPhase),
                 projectorFactory
             );
@@ -577,6 +586,7 @@ public class ContextPreparer extends AbstractComponent {
                 consumer,
                 phase.projections(),
                 phase.jobId(),
+                phase.phaseId(),
                 ramAccountingContext,
                 projectorFactory
             );
@@ -597,6 +607,7 @@ public class ContextPreparer extends AbstractComponent {
                     phase.numUpstreams(),
                     false,
                     phase.orderByPositions(),
+                    phase.inputTypes(),
                     () -> new RowAccounting(
                         phase.inputTypes(),
                         RamAccountingContext.forExecutionPhase(circuitBreaker, phase))),
@@ -676,7 +687,7 @@ public class ContextPreparer extends AbstractComponent {
             RowConsumer lastConsumer = context.getRowConsumer(phase, Paging.PAGE_SIZE);
 
             RowConsumer firstConsumer = ProjectingRowConsumer.create(
-                lastConsumer, phase.projections(), phase.jobId(), ramAccountingContext, projectorFactory);
+                lastConsumer, phase.projections(), phase.jobId(), phase.phaseId(), ramAccountingContext, projectorFactory);
             Predicate<Row> joinCondition = RowFilter.create(inputFactory, phase.joinCondition());
 
             NestedLoopOperation joinOperation = new NestedLoopOperation(
@@ -725,7 +736,7 @@ public class ContextPreparer extends AbstractComponent {
             RowConsumer lastConsumer = context.getRowConsumer(phase, Paging.PAGE_SIZE);
 
             RowConsumer firstConsumer = ProjectingRowConsumer.create(
-                lastConsumer, phase.projections(), phase.jobId(), ramAccountingContext, projectorFactory);
+                lastConsumer, phase.projections(), phase.jobId(), phase.phaseId(), ramAccountingContext, projectorFactory);
             Predicate<Row> joinCondition = RowFilter.create(inputFactory, phase.joinCondition());
 
             HashJoinOperation joinOperation = new HashJoinOperation(
@@ -743,7 +754,10 @@ public class ContextPreparer extends AbstractComponent {
                 inputFactory,
                 circuitBreaker,
                 phase.estimatedRowSizeForLeft(),
-                phase.numberOfRowsForLeft());
+                phase.numberOfRowsForLeft(),
+                spillService.newContext(phase.jobId(), phase.phaseId()),
+                DataTypes.getStreamers(phase.leftOutputTypes()),
+                DataTypes.getStreamers(phase.rightOutputTypes()));
             PageDownstreamContext left = pageDownstreamContextForNestedLoop(
                 phase.phaseId(),
                 context,
@@ -793,6 +807,7 @@ public class ContextPreparer extends AbstractComponent {
                     rowConsumer,
                     mergePhase.projections(),
                     mergePhase.jobId(),
+                    mergePhase.phaseId(),
                     ramAccountingContext,
                     projectorFactory
                 );
@@ -807,6 +822,7 @@ public class ContextPreparer extends AbstractComponent {
                     mergePhase.numUpstreams(),
                     true,
                     mergePhase.orderByPositions(),
+                    mergePhase.inputTypes(),
                     () -> new RowAccounting(
                         mergePhase.inputTypes(),
                         RamAccountingContext.forExecutionPhase(circuitBreaker, mergePhase))),
@@ -38,8 +38,11 @@ import io.crate.metadata.Reference;
 import io.crate.execution.engine.aggregation.AggregationFunction;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.engine.collect.InputCollectExpression;
+import io.crate.expression.compiler.CompiledExpression;
+import io.crate.expression.compiler.ExpressionCompiler;
 import io.crate.expression.reference.ReferenceResolver;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -74,9 +77,22 @@ import java.util.List;
 public class InputFactory {
 
     private final Functions functions;
+    private final ExpressionCompiler expressionCompiler;
 
     public InputFactory(Functions functions) {
         this.functions = functions;
+        this.expressionCompiler = new ExpressionCompiler(functions);
+    }
+
+    /**
+     * Compiles a symbol containing InputColumns, see {@link ExpressionCompiler}.
+     *
+     * @return the compiled expression or null if the symbol should be evaluated using the inputs created by
+     *         {@link #ctxForInputColumns()}
+     */
+    @Nullable
+    public CompiledExpression compile(Symbol symbol) {
+        return expressionCompiler.compile(symbol);
     }
 
     public <T extends Input<?>> Context<T> ctxForRefs(ReferenceResolver<? extends T> referenceResolver) {
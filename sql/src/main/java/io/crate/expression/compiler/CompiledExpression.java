@@ -0,0 +1,66 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compiler;
+
+import io.crate.data.Row;
+import io.crate.execution.engine.collect.CollectExpression;
+
+/**
+ * An expression compiled by the {@link ExpressionCompiler}.
+ *
+ * As {@link CollectExpression} the value is computed from the row passed to {@link #setNextRow(Row)}.
+ * Filters can use {@link #matches(Row)} which avoids boxing the result.
+ *
+ * Instances are not thread-safe.
+ */
+public final class CompiledExpression implements CollectExpression<Row, Object> {
+
+    private final Node root;
+    private Row row;
+
+    CompiledExpression(Node root) {
+        this.root = root;
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        this.row = row;
+    }
+
+    @Override
+    public Object value() {
+        return root.eval(row);
+    }
+
+    /**
+     * @return true if the expression evaluates to true for the given row; false if it evaluates to false or null.
+     */
+    public boolean matches(Row row) {
+        return root.evalBool(row) == Node.TRUE;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledExpression{" + root.getClass().getSimpleName() + '}';
+    }
+}
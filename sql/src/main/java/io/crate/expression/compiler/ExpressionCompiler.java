@@ -0,0 +1,271 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compiler;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
+import io.crate.expression.operator.OrOperator;
+import io.crate.expression.predicate.NotPredicate;
+import io.crate.expression.scalar.arithmetic.ArithmeticFunctions;
+import io.crate.expression.scalar.cast.CastFunctionResolver;
+import io.crate.expression.scalar.conditional.CoalesceFunction;
+import io.crate.expression.scalar.conditional.IfFunction;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitor;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.Functions;
+import io.crate.metadata.Scalar;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Compiles scalar expressions on {@link InputColumn}s into trees of specialized {@link Node}s.
+ *
+ * Compared to the {@link io.crate.data.Input} trees created by the {@link io.crate.expression.InputFactory} this
+ * avoids boxing intermediate results and the generic {@link Scalar#evaluate(io.crate.data.Input[])} calls for:
+ *
+ * <ul>
+ *     <li>arithmetic on integer, long and double values</li>
+ *     <li>comparisons of numeric and timestamp values</li>
+ *     <li>AND, OR and NOT</li>
+ *     <li>{@code if} (used for CASE), {@code coalesce}</li>
+ *     <li>casts of numeric values to long and double</li>
+ * </ul>
+ *
+ * Any other function is evaluated using its {@link Scalar} implementation, with its arguments compiled.
+ *
+ * Compiled trees are cached per expression; {@link #compile(Symbol)} returns a copy of the cached tree.
+ * Expressions which contain user defined functions aren't cached as their implementation can change.
+ */
+public final class ExpressionCompiler {
+
+    private static final int CACHE_SIZE = 1000;
+
+    /**
+     * Cached for expressions where compiling doesn't pay off
+     */
+    private static final Node NOT_COMPILED = new Nodes.Constant(null);
+
+    private final Cache<Symbol, Node> cache = CacheBuilder.newBuilder()
+        .maximumSize(CACHE_SIZE)
+        .build();
+    private final Visitor visitor;
+
+    public ExpressionCompiler(Functions functions) {
+        this.visitor = new Visitor(functions);
+    }
+
+    /**
+     * @param symbol a bound expression, containing {@link InputColumn}s but no references.
+     * @return the compiled expression or null if the symbol can't be compiled or if compiling wouldn't avoid any
+     *         overhead compared to the interpreted evaluation.
+     */
+    @Nullable
+    public CompiledExpression compile(Symbol symbol) {
+        if ((symbol instanceof Function) == false) {
+            return null;
+        }
+        Node template = cache.getIfPresent(symbol);
+        if (template == null) {
+            Context context = new Context();
+            template = visitor.process(symbol, context);
+            if (template == null || context.specialized == false) {
+                template = NOT_COMPILED;
+            }
+            if (context.cacheable) {
+                cache.put(symbol, template);
+            }
+        }
+        if (template == NOT_COMPILED) {
+            return null;
+        }
+        return new CompiledExpression(template.copy());
+    }
+
+    private static class Context {
+
+        boolean specialized = false;
+        boolean cacheable = true;
+    }
+
+    private static class Visitor extends SymbolVisitor<Context, Node> {
+
+        private final Functions functions;
+
+        Visitor(Functions functions) {
+            this.functions = functions;
+        }
+
+        @Override
+        public Node visitInputColumn(InputColumn inputColumn, Context context) {
+            return new Nodes.Column(inputColumn.index());
+        }
+
+        @Override
+        public Node visitLiteral(Literal symbol, Context context) {
+            return new Nodes.Constant(symbol.value());
+        }
+
+        @Override
+        public Node visitFunction(Function function, Context context) {
+            List<Symbol> arguments = function.arguments();
+            Node[] args = new Node[arguments.size()];
+            for (int i = 0; i < args.length; i++) {
+                Node arg = process(arguments.get(i), context);
+                if (arg == null) {
+                    return null;
+                }
+                args[i] = arg;
+            }
+            FunctionIdent ident = function.info().ident();
+            if (ident.schema() == null) {
+                Node node = specialize(function, args);
+                if (node != null) {
+                    context.specialized = true;
+                    return node;
+                }
+            } else {
+                context.cacheable = false;
+            }
+            FunctionImplementation impl = functions.getQualified(ident);
+            if (impl instanceof Scalar) {
+                return new Nodes.ScalarCall((Scalar<?, ?>) impl, arguments, args);
+            }
+            return null;
+        }
+
+        @Override
+        protected Node visitSymbol(Symbol symbol, Context context) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Node specialize(Function function, Node[] args) {
+        List<DataType> argTypes = function.info().ident().argumentTypes();
+        switch (function.info().ident().name()) {
+            case ArithmeticFunctions.Names.ADD:
+                return arithmetic(Nodes.ArithmeticOp.ADD, function.info().returnType(), args);
+            case ArithmeticFunctions.Names.SUBTRACT:
+                return arithmetic(Nodes.ArithmeticOp.SUBTRACT, function.info().returnType(), args);
+            case ArithmeticFunctions.Names.MULTIPLY:
+                return arithmetic(Nodes.ArithmeticOp.MULTIPLY, function.info().returnType(), args);
+            case ArithmeticFunctions.Names.DIVIDE:
+                return arithmetic(Nodes.ArithmeticOp.DIVIDE, function.info().returnType(), args);
+            case ArithmeticFunctions.Names.MODULUS:
+                return arithmetic(Nodes.ArithmeticOp.MODULUS, function.info().returnType(), args);
+
+            case EqOperator.NAME:
+                return comparison(Nodes.CmpOp.EQ, argTypes, args);
+            case LtOperator.NAME:
+                return comparison(Nodes.CmpOp.LT, argTypes, args);
+            case LteOperator.NAME:
+                return comparison(Nodes.CmpOp.LTE, argTypes, args);
+            case GtOperator.NAME:
+                return comparison(Nodes.CmpOp.GT, argTypes, args);
+            case GteOperator.NAME:
+                return comparison(Nodes.CmpOp.GTE, argTypes, args);
+
+            case AndOperator.NAME:
+                return args.length == 2 ? new Nodes.And(args[0], args[1]) : null;
+            case OrOperator.NAME:
+                return args.length == 2 ? new Nodes.Or(args[0], args[1]) : null;
+            case NotPredicate.NAME:
+                return args.length == 1 ? new Nodes.Not(args[0]) : null;
+
+            case IfFunction.NAME:
+                return new Nodes.If(args[0], args[1], args.length == 3 ? args[2] : new Nodes.Constant(null));
+            case CoalesceFunction.NAME:
+                return new Nodes.Coalesce(args);
+
+            case CastFunctionResolver.FunctionNames.TO_LONG:
+                return isNumeric(argTypes.get(0)) ? new Nodes.ToLong(args[0]) : null;
+            case CastFunctionResolver.FunctionNames.TO_DOUBLE:
+                return isNumeric(argTypes.get(0)) ? new Nodes.ToDouble(args[0]) : null;
+
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static Node arithmetic(Nodes.ArithmeticOp op, DataType returnType, Node[] args) {
+        if (args.length != 2) {
+            return null;
+        }
+        switch (returnType.id()) {
+            case LongType.ID:
+                return new Nodes.LongArithmetic(op, args[0], args[1]);
+            case IntegerType.ID:
+                return new Nodes.IntArithmetic(op, args[0], args[1]);
+            case DoubleType.ID:
+                return new Nodes.DoubleArithmetic(op, args[0], args[1]);
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static Node comparison(Nodes.CmpOp op, List<DataType> argTypes, Node[] args) {
+        if (args.length != 2 || argTypes.get(0).equals(argTypes.get(1)) == false) {
+            return null;
+        }
+        switch (argTypes.get(0).id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+                return new Nodes.LongComparison(op, args[0], args[1]);
+            case FloatType.ID:
+            case DoubleType.ID:
+                return new Nodes.DoubleComparison(op, args[0], args[1]);
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isNumeric(DataType type) {
+        return DataTypes.NUMERIC_PRIMITIVE_TYPES.contains(type) || type.equals(DataTypes.TIMESTAMP);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compiler;
+
+import io.crate.data.Row;
+
+import javax.annotation.Nullable;
+
+/**
+ * A node of a compiled expression tree.
+ *
+ * Every node can be evaluated to a (boxed) value using {@link #eval(Row)}. Nodes of a numeric or boolean type
+ * additionally provide primitive evaluation methods which are used by their parents to avoid boxing intermediate
+ * results. The numeric methods report a null result by setting {@link #wasNull}, {@link #evalBool(Row)} uses
+ * three-valued logic ({@link #TRUE}, {@link #FALSE}, {@link #NULL}).
+ *
+ * The default implementations of the primitive methods unbox the result of {@link #eval(Row)}; nodes which can
+ * compute the primitive value directly override them.
+ *
+ * Nodes are not thread-safe; {@link #copy()} is used to create an independent tree for each user.
+ */
+abstract class Node {
+
+    static final int FALSE = 0;
+    static final int TRUE = 1;
+    static final int NULL = -1;
+
+    /**
+     * Set by {@link #evalLong(Row)}, {@link #evalInt(Row)} and {@link #evalDouble(Row)}
+     */
+    boolean wasNull;
+
+    @Nullable
+    abstract Object eval(Row row);
+
+    long evalLong(Row row) {
+        Object value = eval(row);
+        if (value == null) {
+            wasNull = true;
+            return 0L;
+        }
+        wasNull = false;
+        return ((Number) value).longValue();
+    }
+
+    int evalInt(Row row) {
+        Object value = eval(row);
+        if (value == null) {
+            wasNull = true;
+            return 0;
+        }
+        wasNull = false;
+        return ((Number) value).intValue();
+    }
+
+    double evalDouble(Row row) {
+        Object value = eval(row);
+        if (value == null) {
+            wasNull = true;
+            return 0d;
+        }
+        wasNull = false;
+        return ((Number) value).doubleValue();
+    }
+
+    int evalBool(Row row) {
+        Object value = eval(row);
+        if (value == null) {
+            return NULL;
+        }
+        return (Boolean) value ? TRUE : FALSE;
+    }
+
+    /**
+     * @return a copy of the (sub-)tree of this node which doesn't share any state with it.
+     */
+    abstract Node copy();
+
+    @Nullable
+    static Boolean toBoolean(int bool) {
+        switch (bool) {
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,748 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compiler;
+
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.Scalar;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * The {@link Node} implementations used by the {@link ExpressionCompiler}
+ */
+final class Nodes {
+
+    private Nodes() {
+    }
+
+    enum ArithmeticOp {
+        ADD,
+        SUBTRACT,
+        MULTIPLY,
+        DIVIDE,
+        MODULUS;
+
+        long apply(long left, long right) {
+            switch (this) {
+                case ADD:
+                    return left + right;
+                case SUBTRACT:
+                    return left - right;
+                case MULTIPLY:
+                    return left * right;
+                case DIVIDE:
+                    return left / right;
+                default:
+                    return left % right;
+            }
+        }
+
+        int apply(int left, int right) {
+            switch (this) {
+                case ADD:
+                    return left + right;
+                case SUBTRACT:
+                    return left - right;
+                case MULTIPLY:
+                    return left * right;
+                case DIVIDE:
+                    return left / right;
+                default:
+                    return left % right;
+            }
+        }
+
+        double apply(double left, double right) {
+            switch (this) {
+                case ADD:
+                    return left + right;
+                case SUBTRACT:
+                    return left - right;
+                case MULTIPLY:
+                    return left * right;
+                case DIVIDE:
+                    return left / right;
+                default:
+                    return left % right;
+            }
+        }
+    }
+
+    enum CmpOp {
+        EQ,
+        LT,
+        LTE,
+        GT,
+        GTE;
+
+        boolean matches(int cmp) {
+            switch (this) {
+                case EQ:
+                    return cmp == 0;
+                case LT:
+                    return cmp < 0;
+                case LTE:
+                    return cmp <= 0;
+                case GT:
+                    return cmp > 0;
+                default:
+                    return cmp >= 0;
+            }
+        }
+    }
+
+    static final class Column extends Node {
+
+        private final int index;
+
+        Column(int index) {
+            this.index = index;
+        }
+
+        @Override
+        Object eval(Row row) {
+            return row.get(index);
+        }
+
+        @Override
+        Node copy() {
+            return new Column(index);
+        }
+    }
+
+    static final class Constant extends Node {
+
+        @Nullable
+        private final Object value;
+        private final long longValue;
+        private final int intValue;
+        private final double doubleValue;
+        private final int boolValue;
+
+        Constant(@Nullable Object value) {
+            this.value = value;
+            this.wasNull = value == null;
+            if (value instanceof Number) {
+                Number number = (Number) value;
+                longValue = number.longValue();
+                intValue = number.intValue();
+                doubleValue = number.doubleValue();
+            } else {
+                longValue = 0L;
+                intValue = 0;
+                doubleValue = 0d;
+            }
+            if (value instanceof Boolean) {
+                boolValue = (Boolean) value ? TRUE : FALSE;
+            } else {
+                boolValue = NULL;
+            }
+        }
+
+        @Override
+        Object eval(Row row) {
+            return value;
+        }
+
+        @Override
+        long evalLong(Row row) {
+            return longValue;
+        }
+
+        @Override
+        int evalInt(Row row) {
+            return intValue;
+        }
+
+        @Override
+        double evalDouble(Row row) {
+            return doubleValue;
+        }
+
+        @Override
+        int evalBool(Row row) {
+            return boolValue;
+        }
+
+        @Override
+        Node copy() {
+            // stateless, wasNull never changes
+            return this;
+        }
+    }
+
+    static final class LongArithmetic extends Node {
+
+        private final ArithmeticOp op;
+        private final Node left;
+        private final Node right;
+
+        LongArithmetic(ArithmeticOp op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(Row row) {
+            long result = evalLong(row);
+            return wasNull ? null : result;
+        }
+
+        @Override
+        long evalLong(Row row) {
+            long leftValue = left.evalLong(row);
+            long rightValue = right.evalLong(row);
+            if (left.wasNull || right.wasNull) {
+                wasNull = true;
+                return 0L;
+            }
+            wasNull = false;
+            return op.apply(leftValue, rightValue);
+        }
+
+        @Override
+        double evalDouble(Row row) {
+            return evalLong(row);
+        }
+
+        @Override
+        Node copy() {
+            return new LongArithmetic(op, left.copy(), right.copy());
+        }
+    }
+
+    static final class IntArithmetic extends Node {
+
+        private final ArithmeticOp op;
+        private final Node left;
+        private final Node right;
+
+        IntArithmetic(ArithmeticOp op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(Row row) {
+            int result = evalInt(row);
+            return wasNull ? null : result;
+        }
+
+        @Override
+        int evalInt(Row row) {
+            int leftValue = left.evalInt(row);
+            int rightValue = right.evalInt(row);
+            if (left.wasNull || right.wasNull) {
+                wasNull = true;
+                return 0;
+            }
+            wasNull = false;
+            return op.apply(leftValue, rightValue);
+        }
+
+        @Override
+        long evalLong(Row row) {
+            return evalInt(row);
+        }
+
+        @Override
+        double evalDouble(Row row) {
+            return evalInt(row);
+        }
+
+        @Override
+        Node copy() {
+            return new IntArithmetic(op, left.copy(), right.copy());
+        }
+    }
+
+    static final class DoubleArithmetic extends Node {
+
+        private final ArithmeticOp op;
+        private final Node left;
+        private final Node right;
+
+        DoubleArithmetic(ArithmeticOp op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(Row row) {
+            double result = evalDouble(row);
+            return wasNull ? null : result;
+        }
+
+        @Override
+        double evalDouble(Row row) {
+            double leftValue = left.evalDouble(row);
+            double rightValue = right.evalDouble(row);
+            if (left.wasNull || right.wasNull) {
+                wasNull = true;
+                return 0d;
+            }
+            wasNull = false;
+            return op.apply(leftValue, rightValue);
+        }
+
+        @Override
+        long evalLong(Row row) {
+            return (long) evalDouble(row);
+        }
+
+        @Override
+        Node copy() {
+            return new DoubleArithmetic(op, left.copy(), right.copy());
+        }
+    }
+
+    /**
+     * Comparison of integral values (including timestamps)
+     */
+    static final class LongComparison extends Node {
+
+        private final CmpOp op;
+        private final Node left;
+        private final Node right;
+
+        LongComparison(CmpOp op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(Row row) {
+            return toBoolean(evalBool(row));
+        }
+
+        @Override
+        int evalBool(Row row) {
+            long leftValue = left.evalLong(row);
+            long rightValue = right.evalLong(row);
+            if (left.wasNull || right.wasNull) {
+                return NULL;
+            }
+            return op.matches(Long.compare(leftValue, rightValue)) ? TRUE : FALSE;
+        }
+
+        @Override
+        Node copy() {
+            return new LongComparison(op, left.copy(), right.copy());
+        }
+    }
+
+    /**
+     * Comparison of floating point values; uses {@link Double#compare(double, double)} to match the semantics of
+     * {@link Double#compareTo(Double)} and {@link Double#equals(Object)} used by the interpreted operators.
+     */
+    static final class DoubleComparison extends Node {
+
+        private final CmpOp op;
+        private final Node left;
+        private final Node right;
+
+        DoubleComparison(CmpOp op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(Row row) {
+            return toBoolean(evalBool(row));
+        }
+
+        @Override
+        int evalBool(Row row) {
+            double leftValue = left.evalDouble(row);
+            double rightValue = right.evalDouble(row);
+            if (left.wasNull || right.wasNull) {
+                return NULL;
+            }
+            return op.matches(Double.compare(leftValue, rightValue)) ? TRUE : FALSE;
+        }
+
+        @Override
+        Node copy() {
+            return new DoubleComparison(op, left.copy(), right.copy());
+        }
+    }
+
+    static final class And extends Node {
+
+        private final Node left;
+        private final Node right;
+
+        And(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(Row row) {
+            return toBoolean(evalBool(row));
+        }
+
+        @Override
+        int evalBool(Row row) {
+            int leftValue = left.evalBool(row);
+            if (leftValue == FALSE) {
+                return FALSE;
+            }
+            int rightValue = right.evalBool(row);
+            if (rightValue == FALSE) {
+                return FALSE;
+            }
+            return leftValue == NULL || rightValue == NULL ? NULL : TRUE;
+        }
+
+        @Override
+        Node copy() {
+            return new And(left.copy(), right.copy());
+        }
+    }
+
+    static final class Or extends Node {
+
+        private final Node left;
+        private final Node right;
+
+        Or(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(Row row) {
+            return toBoolean(evalBool(row));
+        }
+
+        @Override
+        int evalBool(Row row) {
+            int leftValue = left.evalBool(row);
+            if (leftValue == TRUE) {
+                return TRUE;
+            }
+            int rightValue = right.evalBool(row);
+            if (rightValue == TRUE) {
+                return TRUE;
+            }
+            return leftValue == NULL || rightValue == NULL ? NULL : FALSE;
+        }
+
+        @Override
+        Node copy() {
+            return new Or(left.copy(), right.copy());
+        }
+    }
+
+    static final class Not extends Node {
+
+        private final Node arg;
+
+        Not(Node arg) {
+            this.arg = arg;
+        }
+
+        @Override
+        Object eval(Row row) {
+            return toBoolean(evalBool(row));
+        }
+
+        @Override
+        int evalBool(Row row) {
+            int value = arg.evalBool(row);
+            return value == NULL ? NULL : value ^ 1;
+        }
+
+        @Override
+        Node copy() {
+            return new Not(arg.copy());
+        }
+    }
+
+    /**
+     * {@code if(condition, whenTrue[, whenFalse])}, which is also used for CASE expressions.
+     * The primitive methods are passed on to the selected branch.
+     */
+    static final class If extends Node {
+
+        private final Node condition;
+        private final Node whenTrue;
+        private final Node whenFalse;
+
+        If(Node condition, Node whenTrue, Node whenFalse) {
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        private Node branch(Row row) {
+            return condition.evalBool(row) == TRUE ? whenTrue : whenFalse;
+        }
+
+        @Override
+        Object eval(Row row) {
+            return branch(row).eval(row);
+        }
+
+        @Override
+        long evalLong(Row row) {
+            Node branch = branch(row);
+            long value = branch.evalLong(row);
+            wasNull = branch.wasNull;
+            return value;
+        }
+
+        @Override
+        int evalInt(Row row) {
+            Node branch = branch(row);
+            int value = branch.evalInt(row);
+            wasNull = branch.wasNull;
+            return value;
+        }
+
+        @Override
+        double evalDouble(Row row) {
+            Node branch = branch(row);
+            double value = branch.evalDouble(row);
+            wasNull = branch.wasNull;
+            return value;
+        }
+
+        @Override
+        int evalBool(Row row) {
+            return branch(row).evalBool(row);
+        }
+
+        @Override
+        Node copy() {
+            return new If(condition.copy(), whenTrue.copy(), whenFalse.copy());
+        }
+    }
+
+    static final class Coalesce extends Node {
+
+        private final Node[] args;
+
+        Coalesce(Node[] args) {
+            this.args = args;
+        }
+
+        @Override
+        Object eval(Row row) {
+            for (Node arg : args) {
+                Object value = arg.eval(row);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        long evalLong(Row row) {
+            for (Node arg : args) {
+                long value = arg.evalLong(row);
+                if (!arg.wasNull) {
+                    wasNull = false;
+                    return value;
+                }
+            }
+            wasNull = true;
+            return 0L;
+        }
+
+        @Override
+        int evalInt(Row row) {
+            for (Node arg : args) {
+                int value = arg.evalInt(row);
+                if (!arg.wasNull) {
+                    wasNull = false;
+                    return value;
+                }
+            }
+            wasNull = true;
+            return 0;
+        }
+
+        @Override
+        double evalDouble(Row row) {
+            for (Node arg : args) {
+                double value = arg.evalDouble(row);
+                if (!arg.wasNull) {
+                    wasNull = false;
+                    return value;
+                }
+            }
+            wasNull = true;
+            return 0d;
+        }
+
+        @Override
+        int evalBool(Row row) {
+            for (Node arg : args) {
+                int value = arg.evalBool(row);
+                if (value != NULL) {
+                    return value;
+                }
+            }
+            return NULL;
+        }
+
+        @Override
+        Node copy() {
+            return new Coalesce(copyAll(args));
+        }
+    }
+
+    /**
+     * Cast of a numeric value to long
+     */
+    static final class ToLong extends Node {
+
+        private final Node arg;
+
+        ToLong(Node arg) {
+            this.arg = arg;
+        }
+
+        @Override
+        Object eval(Row row) {
+            long value = evalLong(row);
+            return wasNull ? null : value;
+        }
+
+        @Override
+        long evalLong(Row row) {
+            long value = arg.evalLong(row);
+            wasNull = arg.wasNull;
+            return value;
+        }
+
+        @Override
+        Node copy() {
+            return new ToLong(arg.copy());
+        }
+    }
+
+    /**
+     * Cast of a numeric value to double
+     */
+    static final class ToDouble extends Node {
+
+        private final Node arg;
+
+        ToDouble(Node arg) {
+            this.arg = arg;
+        }
+
+        @Override
+        Object eval(Row row) {
+            double value = evalDouble(row);
+            return wasNull ? null : value;
+        }
+
+        @Override
+        double evalDouble(Row row) {
+            double value = arg.evalDouble(row);
+            wasNull = arg.wasNull;
+            return value;
+        }
+
+        @Override
+        Node copy() {
+            return new ToDouble(arg.copy());
+        }
+    }
+
+    /**
+     * Any other scalar; evaluated using {@link Scalar#evaluate(Input[])} with the (compiled) arguments as inputs.
+     *
+     * The scalar is compiled for each copy as compiled scalars may hold state which can't be shared
+     * (e.g. regex matchers).
+     */
+    static final class ScalarCall extends Node {
+
+        private final Scalar<?, ?> scalar;
+        private final List<Symbol> arguments;
+        private final Scalar compiledScalar;
+        private final Node[] args;
+        private final NodeInput[] inputs;
+
+        ScalarCall(Scalar<?, ?> scalar, List<Symbol> arguments, Node[] args) {
+            this.scalar = scalar;
+            this.arguments = arguments;
+            this.compiledScalar = scalar.compile(arguments);
+            this.args = args;
+            this.inputs = new NodeInput[args.length];
+            for (int i = 0; i < args.length; i++) {
+                inputs[i] = new NodeInput(args[i]);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object eval(Row row) {
+            for (NodeInput input : inputs) {
+                input.row = row;
+            }
+            return compiledScalar.evaluate(inputs);
+        }
+
+        @Override
+        Node copy() {
+            return new ScalarCall(scalar, arguments, copyAll(args));
+        }
+    }
+
+    private static final class NodeInput implements Input<Object> {
+
+        private final Node node;
+        private Row row;
+
+        NodeInput(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        public Object value() {
+            return node.eval(row);
+        }
+    }
+
+    private static Node[] copyAll(Node[] nodes) {
+        Node[] copies = new Node[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            copies[i] = nodes[i].copy();
+        }
+        return copies;
+    }
+}
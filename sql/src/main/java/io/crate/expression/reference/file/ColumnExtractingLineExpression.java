@@ -23,23 +23,28 @@ package io.crate.expression.reference.file;
 
 import io.crate.metadata.ColumnIdent;
 import io.crate.execution.engine.collect.files.LineCollectorExpression;
+import io.crate.types.DataType;
 
 public class ColumnExtractingLineExpression extends LineCollectorExpression<Object> {
 
     private final ColumnIdent columnIdent;
+    private final DataType type;
     private LineContext context;
+    private int columnIdx;
 
-    public ColumnExtractingLineExpression(ColumnIdent columnIdent) {
+    public ColumnExtractingLineExpression(ColumnIdent columnIdent, DataType type) {
         this.columnIdent = columnIdent;
+        this.type = type;
     }
 
     @Override
     public Object value() {
-        return context.get(columnIdent);
+        return context.columnValue(columnIdx);
     }
 
     @Override
     public void startCollect(LineContext context) {
         this.context = context;
+        this.columnIdx = context.registerColumn(columnIdent, type);
     }
 }
@@ -0,0 +1,316 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.reference.file;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.types.DataType;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchParseException;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parser for lines of comma separated values as described in RFC 4180.
+ *
+ * The first line of each file must be a header line with the column names. Fields may be enclosed in double
+ * quotes; a double quote within a quoted field is escaped by another double quote. Quoted fields must not contain
+ * line breaks. An empty field which isn't quoted is null.
+ *
+ * The line is tokenized into the offsets of its fields; a field is only copied if it's extracted as a column value
+ * or if it contains escaped quotes. Column values are converted to the type of the column directly from the bytes.
+ * The source of the line is a JSON object with the values as strings.
+ */
+final class CsvLineParser implements LineParser {
+
+    private static final byte QUOTE = '"';
+    private static final byte DELIMITER = ',';
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private String[] names = new String[0];
+    private byte[][] jsonNames = new byte[0][];
+
+    private List<ColumnIdent> columns = Collections.emptyList();
+    private List<DataType> types = Collections.emptyList();
+    private int[] fieldIdxByColumn = new int[0];
+
+    private int numFields;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private boolean[] escapedQuotes = new boolean[16];
+
+    private byte[] out = new byte[256];
+    private int outLength;
+
+    @Override
+    public boolean requiresHeader() {
+        return true;
+    }
+
+    @Override
+    public void header(byte[] line) {
+        tokenize(line);
+        names = new String[numFields];
+        jsonNames = new byte[numFields][];
+        for (int i = 0; i < numFields; i++) {
+            BytesRef name = field(line, i);
+            if (name == null || name.length == 0) {
+                throw new ElasticsearchParseException("Column name in header at position {} must not be empty", i + 1);
+            }
+            names[i] = name.utf8ToString();
+            outLength = 0;
+            writeQuoted(name.bytes, name.offset, name.offset + name.length);
+            write((byte) ':');
+            jsonNames[i] = Arrays.copyOf(out, outLength);
+        }
+        mapColumnsToFields();
+    }
+
+    @Override
+    public void columns(List<ColumnIdent> columns, List<DataType> types) {
+        this.columns = columns;
+        this.types = types;
+        mapColumnsToFields();
+    }
+
+    private void mapColumnsToFields() {
+        fieldIdxByColumn = new int[columns.size()];
+        List<String> namesList = Arrays.asList(names);
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnIdent column = columns.get(i);
+            fieldIdxByColumn[i] = column.isTopLevel() ? namesList.indexOf(column.name()) : -1;
+        }
+    }
+
+    @Override
+    public void parseColumns(byte[] line, Object[] values) {
+        tokenize(line);
+        for (int i = 0; i < values.length; i++) {
+            int fieldIdx = fieldIdxByColumn[i];
+            BytesRef value = fieldIdx == -1 || fieldIdx >= numFields ? null : field(line, fieldIdx);
+            if (value == null) {
+                values[i] = null;
+            } else {
+                DataType type = types.get(i);
+                try {
+                    values[i] = type.value(value);
+                } catch (IllegalArgumentException | ClassCastException e) {
+                    throw new ElasticsearchParseException("Cannot cast value '{}' of column '{}' to type {}",
+                        e, value.utf8ToString(), columns.get(i).sqlFqn(), type);
+                }
+            }
+        }
+    }
+
+    @Override
+    public BytesRef source(byte[] line) {
+        tokenize(line);
+        ensureNamesForAllFields();
+        outLength = 0;
+        write((byte) '{');
+        for (int i = 0; i < numFields; i++) {
+            if (i > 0) {
+                write((byte) ',');
+            }
+            byte[] name = jsonNames[i];
+            write(name, 0, name.length);
+            if (quoted[i] == false && starts[i] == ends[i]) {
+                write(NULL, 0, NULL.length);
+            } else if (escapedQuotes[i]) {
+                BytesRef value = field(line, i);
+                writeQuoted(value.bytes, value.offset, value.offset + value.length);
+            } else {
+                writeQuoted(line, starts[i], ends[i]);
+            }
+        }
+        write((byte) '}');
+        return new BytesRef(Arrays.copyOf(out, outLength));
+    }
+
+    @Override
+    public Map<String, Object> sourceAsMap(byte[] line) {
+        tokenize(line);
+        ensureNamesForAllFields();
+        Map<String, Object> map = new HashMap<>(numFields);
+        for (int i = 0; i < numFields; i++) {
+            BytesRef value = field(line, i);
+            map.put(names[i], value == null ? null : value.utf8ToString());
+        }
+        return map;
+    }
+
+    private void ensureNamesForAllFields() {
+        if (numFields > names.length) {
+            throw new ElasticsearchParseException(
+                "Number of values ({}) exceeds the number of columns in the header ({})", numFields, names.length);
+        }
+    }
+
+    private void tokenize(byte[] line) {
+        numFields = 0;
+        int i = 0;
+        int length = line.length;
+        while (true) {
+            if (numFields == starts.length) {
+                grow();
+            }
+            if (i < length && line[i] == QUOTE) {
+                int start = i + 1;
+                int j = start;
+                boolean escaped = false;
+                while (true) {
+                    if (j >= length) {
+                        throw new ElasticsearchParseException(
+                            "Quoted field at position {} is not terminated, line breaks within quoted fields are not supported",
+                            numFields + 1);
+                    }
+                    if (line[j] == QUOTE) {
+                        if (j + 1 < length && line[j + 1] == QUOTE) {
+                            escaped = true;
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    j++;
+                }
+                starts[numFields] = start;
+                ends[numFields] = j;
+                quoted[numFields] = true;
+                escapedQuotes[numFields] = escaped;
+                i = j + 1;
+                if (i < length && line[i] != DELIMITER) {
+                    throw new ElasticsearchParseException(
+                        "Unexpected character after quoted field at position {}", numFields + 1);
+                }
+            } else {
+                int start = i;
+                while (i < length && line[i] != DELIMITER) {
+                    i++;
+                }
+                starts[numFields] = start;
+                ends[numFields] = i;
+                quoted[numFields] = false;
+                escapedQuotes[numFields] = false;
+            }
+            numFields++;
+            if (i >= length) {
+                return;
+            }
+            // skip the delimiter; a trailing delimiter is followed by an empty field
+            i++;
+        }
+    }
+
+    private void grow() {
+        int newLength = starts.length * 2;
+        starts = Arrays.copyOf(starts, newLength);
+        ends = Arrays.copyOf(ends, newLength);
+        quoted = Arrays.copyOf(quoted, newLength);
+        escapedQuotes = Arrays.copyOf(escapedQuotes, newLength);
+    }
+
+    @Nullable
+    private BytesRef field(byte[] line, int idx) {
+        int start = starts[idx];
+        int end = ends[idx];
+        if (quoted[idx] == false && start == end) {
+            return null;
+        }
+        if (escapedQuotes[idx] == false) {
+            return new BytesRef(line, start, end - start);
+        }
+        byte[] unescaped = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            unescaped[length++] = line[i];
+            if (line[i] == QUOTE) {
+                // skip the second quote of the escape sequence
+                i++;
+            }
+        }
+        return new BytesRef(unescaped, 0, length);
+    }
+
+    private void writeQuoted(byte[] bytes, int start, int end) {
+        write(QUOTE);
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b == QUOTE || b == '\\') {
+                write((byte) '\\');
+                write(b);
+            } else if (b >= 0 && b < 0x20) {
+                writeControlCharacter(b);
+            } else {
+                write(b);
+            }
+        }
+        write(QUOTE);
+    }
+
+    private void writeControlCharacter(byte b) {
+        write((byte) '\\');
+        switch (b) {
+            case '\n':
+                write((byte) 'n');
+                break;
+            case '\r':
+                write((byte) 'r');
+                break;
+            case '\t':
+                write((byte) 't');
+                break;
+            default:
+                write((byte) 'u');
+                write((byte) '0');
+                write((byte) '0');
+                write(hexDigit(b >> 4));
+                write(hexDigit(b & 0xF));
+        }
+    }
+
+    private static byte hexDigit(int value) {
+        return (byte) (value < 10 ? '0' + value : 'a' + value - 10);
+    }
+
+    private void write(byte b) {
+        if (outLength == out.length) {
+            out = Arrays.copyOf(out, out.length * 2);
+        }
+        out[outLength++] = b;
+    }
+
+    private void write(byte[] bytes, int offset, int length) {
+        if (outLength + length > out.length) {
+            out = Arrays.copyOf(out, Math.max(out.length * 2, outLength + length));
+        }
+        System.arraycopy(bytes, offset, out, outLength, length);
+        outLength += length;
+    }
+}
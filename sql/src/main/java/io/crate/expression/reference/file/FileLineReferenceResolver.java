@@ -45,7 +45,7 @@ public final class FileLineReferenceResolver {
         ColumnIdent columnIdent = refInfo.column();
         Supplier<LineCollectorExpression<?>> supplier = EXPRESSION_BUILDER.get(columnIdent.name());
         if (supplier == null) {
-            return new ColumnExtractingLineExpression(columnIdent);
+            return new ColumnExtractingLineExpression(columnIdent, refInfo.valueType());
         }
         return supplier.get();
     }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.reference.file;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.types.DataType;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parser for lines containing a JSON object.
+ *
+ * The columns are extracted in a single pass over the tokens of the line. Values of fields which aren't extracted
+ * are skipped without being materialized.
+ */
+final class JsonLineParser implements LineParser {
+
+    private Node root = new Node();
+
+    @Override
+    public boolean requiresHeader() {
+        return false;
+    }
+
+    @Override
+    public void header(byte[] line) {
+    }
+
+    @Override
+    public void columns(List<ColumnIdent> columns, List<DataType> types) {
+        root = new Node();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnIdent column = columns.get(i);
+            Node node = root.child(column.name());
+            for (String path : column.path()) {
+                node = node.child(path);
+            }
+            node.valueIdx = i;
+        }
+    }
+
+    @Override
+    public void parseColumns(byte[] line, Object[] values) {
+        Arrays.fill(values, null);
+        try (XContentParser parser = JsonXContent.jsonXContent.createParser(NamedXContentRegistry.EMPTY, line)) {
+            if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("Failed to parse content to map, expected a JSON object");
+            }
+            parseObject(parser, root, values);
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("Failed to parse content to map", e);
+        }
+    }
+
+    private static void parseObject(XContentParser parser, Node node, Object[] values) throws IOException {
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            Node child = node.children.get(parser.currentName());
+            XContentParser.Token token = parser.nextToken();
+            if (child == null) {
+                parser.skipChildren();
+            } else if (child.valueIdx == -1 && token == XContentParser.Token.START_OBJECT) {
+                parseObject(parser, child, values);
+            } else {
+                Object value = readValue(parser, token);
+                if (child.valueIdx != -1) {
+                    values[child.valueIdx] = value;
+                }
+                if (child.children.isEmpty() == false) {
+                    child.extract(value, values);
+                }
+            }
+        }
+    }
+
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.utf8Bytes();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case VALUE_NULL:
+                return null;
+            case START_OBJECT:
+                return parser.map();
+            case START_ARRAY:
+                return parser.list();
+            default:
+                return parser.objectText();
+        }
+    }
+
+    @Override
+    public BytesRef source(byte[] line) {
+        return new BytesRef(line);
+    }
+
+    @Override
+    public Map<String, Object> sourceAsMap(byte[] line) {
+        return XContentHelper.convertToMap(new BytesArray(line), false, XContentType.JSON).v2();
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private int valueIdx = -1;
+
+        Node child(String name) {
+            return children.computeIfAbsent(name, k -> new Node());
+        }
+
+        /**
+         * Extracts the values of the children from the materialized value of this node, following the semantics of
+         * {@link ColumnIdent#get(Map, ColumnIdent)}: if a value on the path isn't an object, it's the value of all
+         * columns below it.
+         */
+        void extract(Object value, Object[] values) {
+            for (Map.Entry<String, Node> entry : children.entrySet()) {
+                Node child = entry.getValue();
+                Object childValue = value instanceof Map ? ((Map) value).get(entry.getKey()) : value;
+                if (child.valueIdx != -1) {
+                    values[child.valueIdx] = childValue instanceof String ? new BytesRef((String) childValue) : childValue;
+                }
+                if (child.children.isEmpty() == false) {
+                    child.extract(childValue, values);
+                }
+            }
+        }
+    }
+}
@@ -21,35 +21,83 @@
 
 package io.crate.expression.reference.file;
 
+import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.metadata.ColumnIdent;
+import io.crate.types.DataType;
 import org.apache.lucene.util.BytesRef;
-import org.elasticsearch.common.bytes.BytesArray;
-import org.elasticsearch.common.xcontent.XContentHelper;
-import org.elasticsearch.common.xcontent.XContentType;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Holds the current line of a file and provides access to its source and the values of its columns.
+ *
+ * The columns which are read are registered upfront using {@link #registerColumn(ColumnIdent, DataType)}, so that
+ * their values can be extracted in a single pass over the line.
+ */
 public class LineContext {
 
+    private final LineParser parser;
+    private final List<ColumnIdent> columns = new ArrayList<>();
+    private final List<DataType> columnTypes = new ArrayList<>();
+    private Object[] columnValues = new Object[0];
+    private boolean columnsChanged = false;
+    private boolean columnValuesParsed = false;
+
     private byte[] rawSource;
     private Map<String, Object> parsedSource;
 
+    public LineContext() {
+        this(FileUriCollectPhase.InputFormat.JSON);
+    }
+
+    public LineContext(FileUriCollectPhase.InputFormat inputFormat) {
+        parser = inputFormat == FileUriCollectPhase.InputFormat.CSV ? new CsvLineParser() : new JsonLineParser();
+    }
+
+    /**
+     * @return the index of the column which must be passed to {@link #columnValue(int)}
+     */
+    public int registerColumn(ColumnIdent column, DataType type) {
+        int idx = columns.indexOf(column);
+        if (idx == -1) {
+            columns.add(column);
+            columnTypes.add(type);
+            columnsChanged = true;
+            idx = columns.size() - 1;
+        }
+        return idx;
+    }
+
+    /**
+     * @return true if the first line of each file is a header which must be passed to {@link #header(byte[])}
+     *         instead of {@link #rawSource(byte[])}
+     */
+    public boolean requiresHeader() {
+        return parser.requiresHeader();
+    }
+
+    public void header(byte[] line) {
+        parser.header(line);
+    }
+
     @Nullable
     public BytesRef sourceAsBytesRef() {
         if (rawSource != null) {
-            return new BytesRef(rawSource);
+            return parser.source(rawSource);
         }
         return null;
     }
 
     public Map<String, Object> sourceAsMap() {
         if (parsedSource == null) {
-            try {
-                parsedSource = XContentHelper.convertToMap(new BytesArray(rawSource), false, XContentType.JSON).v2();
-            } catch (NullPointerException e) {
+            if (rawSource == null) {
                 return null;
             }
+            parsedSource = parser.sourceAsMap(rawSource);
         }
         return parsedSource;
     }
@@ -66,8 +114,26 @@ public class LineContext {
         return val;
     }
 
+    public Object columnValue(int idx) {
+        if (columnValuesParsed == false) {
+            if (columnsChanged) {
+                parser.columns(columns, columnTypes);
+                columnValues = new Object[columns.size()];
+                columnsChanged = false;
+            }
+            if (rawSource == null) {
+                Arrays.fill(columnValues, null);
+            } else {
+                parser.parseColumns(rawSource, columnValues);
+            }
+            columnValuesParsed = true;
+        }
+        return columnValues[idx];
+    }
+
     public void rawSource(byte[] bytes) {
         this.rawSource = bytes;
         this.parsedSource = null;
+        this.columnValuesParsed = false;
     }
 }
@@ -0,0 +1,60 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.reference.file;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.types.DataType;
+import org.apache.lucene.util.BytesRef;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tokenizes the lines of a file of a certain format.
+ */
+interface LineParser {
+
+    /**
+     * @return true if the first line of each file is a header line which must be passed to {@link #header(byte[])}
+     */
+    boolean requiresHeader();
+
+    void header(byte[] line);
+
+    /**
+     * Sets the columns which are extracted by {@link #parseColumns(byte[], Object[])}.
+     */
+    void columns(List<ColumnIdent> columns, List<DataType> types);
+
+    /**
+     * Extracts the values of the columns from the line without materializing the whole line.
+     */
+    void parseColumns(byte[] line, Object[] values);
+
+    /**
+     * @return the line as JSON object
+     */
+    BytesRef source(byte[] line);
+
+    Map<String, Object> sourceAsMap(byte[] line);
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.expression.reference.sys.node;
+
+public class NodePsqlResultStatsExpression extends NestedNodeStatsExpression {
+
+    private static final String RESULTS = "results";
+    private static final String AVG_TIME_TO_FIRST_ROW = "avg_time_to_first_row";
+    private static final String PAUSES = "pauses";
+    private static final String MAX_PENDING_BYTES = "max_pending_bytes";
+
+    public NodePsqlResultStatsExpression() {
+        childImplementations.put(RESULTS, new SimpleNodeStatsExpression<Long>() {
+            @Override
+            public Long innerValue() {
+                return this.row.psqlResultStats().results();
+            }
+        });
+        childImplementations.put(AVG_TIME_TO_FIRST_ROW, new SimpleNodeStatsExpression<Double>() {
+            @Override
+            public Double innerValue() {
+                return this.row.psqlResultStats().avgTimeToFirstRow();
+            }
+        });
+        childImplementations.put(PAUSES, new SimpleNodeStatsExpression<Long>() {
+            @Override
+            public Long innerValue() {
+                return this.row.psqlResultStats().pauses();
+            }
+        });
+        childImplementations.put(MAX_PENDING_BYTES, new SimpleNodeStatsExpression<Long>() {
+            @Override
+            public Long innerValue() {
+                return this.row.psqlResultStats().maxPendingBytes();
+            }
+        });
+    }
+}
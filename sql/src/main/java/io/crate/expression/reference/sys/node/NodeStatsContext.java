@@ -24,6 +24,9 @@ package io.crate.expression.reference.sys.node;
 
 import io.crate.Build;
 import io.crate.Version;
+import io.crate.action.sql.QueryResultCache;
+import io.crate.action.sql.StatementCache;
+import io.crate.protocols.postgres.ResultSetMetrics;
 import io.crate.monitor.ExtendedNetworkStats;
 import io.crate.monitor.ExtendedOsStats;
 import io.crate.monitor.ThreadPools;
@@ -64,6 +67,9 @@ public class NodeStatsContext implements Streamable {
     private ExtendedNetworkStats networkStats;
     private FsInfo fsInfo;
     private ThreadPools threadPools;
+    private QueryResultCache.Stats queryResultCacheStats;
+    private StatementCache.Stats statementCacheStats;
+    private ResultSetMetrics.Stats psqlResultStats;
 
     private BytesRef osName;
     private BytesRef osArch;
@@ -161,6 +167,18 @@ public class NodeStatsContext implements Streamable {
         return threadPools;
     }
 
+    public QueryResultCache.Stats queryResultCacheStats() {
+        return queryResultCacheStats;
+    }
+
+    public StatementCache.Stats statementCacheStats() {
+        return statementCacheStats;
+    }
+
+    public ResultSetMetrics.Stats psqlResultStats() {
+        return psqlResultStats;
+    }
+
     public BytesRef osName() {
         return osName;
     }
@@ -253,6 +271,18 @@ public class NodeStatsContext implements Streamable {
         this.threadPools = threadPools;
     }
 
+    public void queryResultCacheStats(QueryResultCache.Stats queryResultCacheStats) {
+        this.queryResultCacheStats = queryResultCacheStats;
+    }
+
+    public void statementCacheStats(StatementCache.Stats statementCacheStats) {
+        this.statementCacheStats = statementCacheStats;
+    }
+
+    public void psqlResultStats(ResultSetMetrics.Stats psqlResultStats) {
+        this.psqlResultStats = psqlResultStats;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         id = DataTypes.STRING.readValueFrom(in);
@@ -279,6 +309,9 @@ public class NodeStatsContext implements Streamable {
         extendedOsStats = in.readBoolean() ? ExtendedOsStats.readExtendedOsStat(in) : null;
         networkStats = in.readBoolean() ? ExtendedNetworkStats.readExtendedNetworkStats(in) : null;
         threadPools = in.readBoolean() ? ThreadPools.readThreadPools(in) : null;
+        queryResultCacheStats = in.readOptionalWriteable(QueryResultCache.Stats::new);
+        statementCacheStats = in.readOptionalWriteable(StatementCache.Stats::new);
+        psqlResultStats = in.readOptionalWriteable(ResultSetMetrics.Stats::new);
 
         osName = DataTypes.STRING.readValueFrom(in);
         osArch = DataTypes.STRING.readValueFrom(in);
@@ -320,6 +353,9 @@ public class NodeStatsContext implements Streamable {
         out.writeOptionalStreamable(extendedOsStats);
         out.writeOptionalStreamable(networkStats);
         out.writeOptionalStreamable(threadPools);
+        out.writeOptionalWriteable(queryResultCacheStats);
+        out.writeOptionalWriteable(statementCacheStats);
+        out.writeOptionalWriteable(psqlResultStats);
 
         DataTypes.STRING.writeValueTo(out, osName);
         DataTypes.STRING.writeValueTo(out, osArch);
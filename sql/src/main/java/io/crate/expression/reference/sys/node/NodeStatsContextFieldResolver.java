@@ -26,6 +26,9 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import io.crate.Build;
 import io.crate.Version;
+import io.crate.action.sql.QueryResultCache;
+import io.crate.action.sql.StatementCache;
+import io.crate.protocols.postgres.ResultSetMetrics;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.sys.SysNodesTableInfo;
 import io.crate.monitor.ExtendedNodeInfo;
@@ -74,6 +77,9 @@ public class NodeStatsContextFieldResolver {
     private final OsService osService;
     private final JvmService jvmService;
     private final FsService fsService;
+    private final Supplier<QueryResultCache.Stats> queryResultCacheStats;
+    private final Supplier<StatementCache.Stats> statementCacheStats;
+    private final Supplier<ResultSetMetrics.Stats> psqlResultStats;
 
     @Inject
     @SuppressWarnings("unused")
@@ -82,7 +88,9 @@ public class NodeStatsContextFieldResolver {
                                          @Nullable HttpServerTransport httpServerTransport,
                                          ThreadPool threadPool,
                                          ExtendedNodeInfo extendedNodeInfo,
-                                         PostgresNetty postgresNetty) {
+                                         PostgresNetty postgresNetty,
+                                         QueryResultCache queryResultCache,
+                                         StatementCache statementCache) {
         this(
             clusterService::localNode,
             nodeService.getMonitorService(),
@@ -95,7 +103,10 @@ public class NodeStatsContextFieldResolver {
                     return null;
                 }
                 return boundTransportAddress.publishAddress();
-            }
+            },
+            queryResultCache::stats,
+            statementCache::stats,
+            postgresNetty::resultSetStats
         );
     }
 
@@ -105,7 +116,10 @@ public class NodeStatsContextFieldResolver {
                                   Supplier<TransportAddress> boundHttpAddress,
                                   ThreadPool threadPool,
                                   ExtendedNodeInfo extendedNodeInfo,
-                                  Supplier<TransportAddress> boundPostgresAddress) {
+                                  Supplier<TransportAddress> boundPostgresAddress,
+                                  Supplier<QueryResultCache.Stats> queryResultCacheStats,
+                                  Supplier<StatementCache.Stats> statementCacheStats,
+                                  Supplier<ResultSetMetrics.Stats> psqlResultStats) {
         this.localNode = localNode;
         processService = monitorService.processService();
         osService = monitorService.osService();
@@ -115,6 +129,9 @@ public class NodeStatsContextFieldResolver {
         this.threadPool = threadPool;
         this.extendedNodeInfo = extendedNodeInfo;
         this.boundPostgresAddress = boundPostgresAddress;
+        this.queryResultCacheStats = queryResultCacheStats;
+        this.statementCacheStats = statementCacheStats;
+        this.psqlResultStats = psqlResultStats;
     }
 
     public NodeStatsContext forTopColumnIdents(Collection<ColumnIdent> topColumnIdents) {
@@ -241,5 +258,12 @@ public class NodeStatsContextFieldResolver {
                 public void accept(NodeStatsContext context) {
                     context.fsInfo(fsService.stats());
                 }
-            }).build();
+            })
+            .put(SysNodesTableInfo.Columns.QUERY_RESULT_CACHE,
+                context -> context.queryResultCacheStats(queryResultCacheStats.get()))
+            .put(SysNodesTableInfo.Columns.STATEMENT_CACHE,
+                context -> context.statementCacheStats(statementCacheStats.get()))
+            .put(SysNodesTableInfo.Columns.PSQL_RESULTS,
+                context -> context.psqlResultStats(psqlResultStats.get()))
+            .build();
 }
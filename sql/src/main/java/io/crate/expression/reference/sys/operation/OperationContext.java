@@ -32,6 +32,10 @@ public class OperationContext {
 
     public final long started;
     public long usedBytes;
+    public volatile long spilledBytes;
+    public volatile int spilledPartitions;
+    public volatile int bulkSize;
+    public volatile int bulkRequestsInFlight;
 
     public OperationContext(int id, UUID jobId, String name, long started) {
         this.id = id;
@@ -60,6 +64,22 @@ public class OperationContext {
         return usedBytes;
     }
 
+    public long spilledBytes() {
+        return spilledBytes;
+    }
+
+    public int spilledPartitions() {
+        return spilledPartitions;
+    }
+
+    public int bulkSize() {
+        return bulkSize;
+    }
+
+    public int bulkRequestsInFlight() {
+        return bulkRequestsInFlight;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
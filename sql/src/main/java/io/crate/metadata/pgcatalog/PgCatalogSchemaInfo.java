@@ -41,6 +41,7 @@ public class PgCatalogSchemaInfo implements SchemaInfo {
     public PgCatalogSchemaInfo() {
         tableInfoMap = ImmutableSortedMap.<String, TableInfo>naturalOrder()
             .put(PgTypeTable.IDENT.name(), new PgTypeTable())
+            .put(PgStatsTable.IDENT.name(), new PgStatsTable())
             .build();
     }
 
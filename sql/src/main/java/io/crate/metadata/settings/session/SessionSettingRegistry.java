@@ -34,6 +34,7 @@ public class SessionSettingRegistry {
     public static final String SEARCH_PATH_KEY = "search_path";
     public static final String SEMI_JOIN_KEY = "enable_semijoin";
     public static final String HASH_JOIN_KEY = "enable_hashjoin";
+    public static final String QUERY_RESULT_CACHE_KEY = "enable_query_result_cache";
 
     private static final Map<String, SessionSettingApplier> SESSION_SETTINGS =
         ImmutableMap.<String, SessionSettingApplier>builder()
@@ -67,6 +68,15 @@ public class SessionSettingRegistry {
                     throw new IllegalArgumentException(HASH_JOIN_KEY + " should have only one argument.");
                 }
             })
+            .put(QUERY_RESULT_CACHE_KEY, (parameters, expressions, context) -> {
+                if (expressions.size() == 1) {
+                    Object value = ExpressionToObjectVisitor.convert(expressions.get(0), parameters);
+                    boolean booleanValue = BooleanType.INSTANCE.value(value);
+                    context.setQueryResultCacheEnabled(booleanValue);
+                } else {
+                    throw new IllegalArgumentException(QUERY_RESULT_CACHE_KEY + " should have only one argument.");
+                }
+            })
             .build();
 
 
@@ -0,0 +1,200 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.metadata.stats;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.TableIdent;
+import io.crate.planner.ColumnStats;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.cluster.AbstractNamedDiffable;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The column statistics collected by the ANALYZE statement, stored in the cluster state so that the
+ * planner on every node can use them.
+ */
+public class ColumnStatsMetaData extends AbstractNamedDiffable<MetaData.Custom> implements MetaData.Custom {
+
+    public static final String TYPE = "column_stats";
+
+    private final Map<TableIdent, Map<ColumnIdent, ColumnStats>> statsByTable;
+
+    ColumnStatsMetaData(Map<TableIdent, Map<ColumnIdent, ColumnStats>> statsByTable) {
+        this.statsByTable = statsByTable;
+    }
+
+    public ColumnStatsMetaData(StreamInput in) throws IOException {
+        int numTables = in.readVInt();
+        statsByTable = new HashMap<>(numTables);
+        for (int i = 0; i < numTables; i++) {
+            TableIdent table = new TableIdent(in);
+            int numColumns = in.readVInt();
+            Map<ColumnIdent, ColumnStats> statsByColumn = new HashMap<>(numColumns);
+            for (int c = 0; c < numColumns; c++) {
+                statsByColumn.put(new ColumnIdent(in), new ColumnStats(in));
+            }
+            statsByTable.put(table, statsByColumn);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(statsByTable.size());
+        for (Map.Entry<TableIdent, Map<ColumnIdent, ColumnStats>> table : statsByTable.entrySet()) {
+            table.getKey().writeTo(out);
+            out.writeVInt(table.getValue().size());
+            for (Map.Entry<ColumnIdent, ColumnStats> column : table.getValue().entrySet()) {
+                column.getKey().writeTo(out);
+                column.getValue().writeTo(out);
+            }
+        }
+    }
+
+    @Override
+    public EnumSet<MetaData.XContentContext> context() {
+        return EnumSet.of(MetaData.XContentContext.GATEWAY, MetaData.XContentContext.SNAPSHOT);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return TYPE;
+    }
+
+    /*
+     * ColumnStatsMetaData XContent has the following structure:
+     *
+     * <pre>
+     *     {
+     *       "column_stats": {
+     *         "doc.t1": {
+     *           "x": {
+     *             "type": 9,
+     *             "null_fraction": 0.0,
+     *             "average_size": 8.0,
+     *             "approx_distinct": 10.0,
+     *             "most_common_values": [1, 2],
+     *             "most_common_frequencies": [0.3, 0.2],
+     *             "histogram": [3, 6, 10]
+     *           }
+     *         }
+     *       }
+     *     }
+     * </pre>
+     *
+     * Where doc.t1 is the full qualified name of the table and x the full qualified name of the column.
+     */
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(TYPE);
+        for (Map.Entry<TableIdent, Map<ColumnIdent, ColumnStats>> table : statsByTable.entrySet()) {
+            builder.startObject(table.getKey().fqn());
+            for (Map.Entry<ColumnIdent, ColumnStats> column : table.getValue().entrySet()) {
+                builder.startObject(column.getKey().fqn());
+                {
+                    column.getValue().toXContent(builder);
+                }
+                builder.endObject();
+            }
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static ColumnStatsMetaData fromXContent(XContentParser parser) throws IOException {
+        Map<TableIdent, Map<ColumnIdent, ColumnStats>> statsByTable = new HashMap<>();
+
+        if (parser.nextToken() == XContentParser.Token.FIELD_NAME && parser.currentName().equals(TYPE)) {
+            if (parser.nextToken() == XContentParser.Token.START_OBJECT) {
+                for (Map.Entry<String, Object> table : parser.map().entrySet()) {
+                    String fqn = table.getKey();
+                    int dot = fqn.indexOf('.');
+                    TableIdent tableIdent = new TableIdent(fqn.substring(0, dot), fqn.substring(dot + 1));
+                    Map<ColumnIdent, ColumnStats> statsByColumn = new HashMap<>();
+                    for (Map.Entry<String, Object> column : ((Map<String, Object>) table.getValue()).entrySet()) {
+                        statsByColumn.put(
+                            ColumnIdent.fromPath(column.getKey()),
+                            ColumnStats.fromMap((Map<String, Object>) column.getValue()));
+                    }
+                    statsByTable.put(tableIdent, statsByColumn);
+                }
+            }
+            if (parser.nextToken() != XContentParser.Token.END_OBJECT) {
+                // each custom metadata is packed inside an object.
+                // each custom must move the parser to the end otherwise possible following customs won't be read
+                throw new ElasticsearchParseException("failed to parse column stats, expected an object token at the end");
+            }
+        }
+        return new ColumnStatsMetaData(statsByTable);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ColumnStatsMetaData that = (ColumnStatsMetaData) o;
+        return statsByTable.equals(that.statsByTable);
+    }
+
+    @Override
+    public int hashCode() {
+        return statsByTable.hashCode();
+    }
+
+    public Map<TableIdent, Map<ColumnIdent, ColumnStats>> statsByTable() {
+        return Collections.unmodifiableMap(statsByTable);
+    }
+
+    /**
+     * @return A copy of the ColumnStatsMetaData with the statistics of the given tables added (or replaced in
+     *         case they already existed) and the statistics of all tables not contained in
+     *         {@code existingTables} removed.
+     */
+    public static ColumnStatsMetaData update(@Nullable ColumnStatsMetaData prevStats,
+                                             Map<TableIdent, Map<ColumnIdent, ColumnStats>> newStats,
+                                             Set<TableIdent> existingTables) {
+        HashMap<TableIdent, Map<ColumnIdent, ColumnStats>> statsByTable;
+        if (prevStats == null) {
+            statsByTable = new HashMap<>();
+        } else {
+            statsByTable = new HashMap<>(prevStats.statsByTable);
+        }
+        statsByTable.putAll(newStats);
+        statsByTable.keySet().retainAll(existingTables);
+        return new ColumnStatsMetaData(statsByTable);
+    }
+}
@@ -33,6 +33,9 @@ import io.crate.expression.reference.sys.node.NodeOsInfoStatsExpression;
 import io.crate.expression.reference.sys.node.NodeOsStatsExpression;
 import io.crate.expression.reference.sys.node.NodePortStatsExpression;
 import io.crate.expression.reference.sys.node.NodeProcessStatsExpression;
+import io.crate.expression.reference.sys.node.NodeQueryResultCacheStatsExpression;
+import io.crate.expression.reference.sys.node.NodePsqlResultStatsExpression;
+import io.crate.expression.reference.sys.node.NodeStatementCacheStatsExpression;
 import io.crate.expression.reference.sys.node.NodeStatsContext;
 import io.crate.expression.reference.sys.node.NodeStatsThreadPoolExpression;
 import io.crate.expression.reference.sys.node.NodeThreadPoolsExpression;
@@ -88,6 +91,9 @@ public class SysNodesTableInfo extends StaticTableInfo {
     public static final String SYS_COL_OS_INFO = "os_info";
     public static final String SYS_COL_PROCESS = "process";
     public static final String SYS_COL_FS = "fs";
+    public static final String SYS_COL_QUERY_RESULT_CACHE = "query_result_cache";
+    public static final String SYS_COL_STATEMENT_CACHE = "statement_cache";
+    public static final String SYS_COL_PSQL_RESULTS = "psql_results";
 
     private static final DataType OBJECT_ARRAY_TYPE = new ArrayType(DataTypes.OBJECT);
 
@@ -218,6 +224,26 @@ public class SysNodesTableInfo extends StaticTableInfo {
         static final ColumnIdent FS_DATA = new ColumnIdent(SYS_COL_FS, ImmutableList.of("data"));
         static final ColumnIdent FS_DATA_DEV = new ColumnIdent(SYS_COL_FS, ImmutableList.of("data", "dev"));
         static final ColumnIdent FS_DATA_PATH = new ColumnIdent(SYS_COL_FS, ImmutableList.of("data", "path"));
+
+        public static final ColumnIdent QUERY_RESULT_CACHE = new ColumnIdent(SYS_COL_QUERY_RESULT_CACHE);
+        static final ColumnIdent QUERY_RESULT_CACHE_SIZE = new ColumnIdent(SYS_COL_QUERY_RESULT_CACHE, ImmutableList.of("size"));
+        static final ColumnIdent QUERY_RESULT_CACHE_ENTRIES = new ColumnIdent(SYS_COL_QUERY_RESULT_CACHE, ImmutableList.of("entries"));
+        static final ColumnIdent QUERY_RESULT_CACHE_HITS = new ColumnIdent(SYS_COL_QUERY_RESULT_CACHE, ImmutableList.of("hits"));
+        static final ColumnIdent QUERY_RESULT_CACHE_MISSES = new ColumnIdent(SYS_COL_QUERY_RESULT_CACHE, ImmutableList.of("misses"));
+        static final ColumnIdent QUERY_RESULT_CACHE_EVICTIONS = new ColumnIdent(SYS_COL_QUERY_RESULT_CACHE, ImmutableList.of("evictions"));
+        static final ColumnIdent QUERY_RESULT_CACHE_INVALIDATIONS = new ColumnIdent(SYS_COL_QUERY_RESULT_CACHE, ImmutableList.of("invalidations"));
+
+        public static final ColumnIdent STATEMENT_CACHE = new ColumnIdent(SYS_COL_STATEMENT_CACHE);
+        static final ColumnIdent STATEMENT_CACHE_ENTRIES = new ColumnIdent(SYS_COL_STATEMENT_CACHE, ImmutableList.of("entries"));
+        static final ColumnIdent STATEMENT_CACHE_HITS = new ColumnIdent(SYS_COL_STATEMENT_CACHE, ImmutableList.of("hits"));
+        static final ColumnIdent STATEMENT_CACHE_MISSES = new ColumnIdent(SYS_COL_STATEMENT_CACHE, ImmutableList.of("misses"));
+        static final ColumnIdent STATEMENT_CACHE_EVICTIONS = new ColumnIdent(SYS_COL_STATEMENT_CACHE, ImmutableList.of("evictions"));
+
+        public static final ColumnIdent PSQL_RESULTS = new ColumnIdent(SYS_COL_PSQL_RESULTS);
+        static final ColumnIdent PSQL_RESULTS_RESULTS = new ColumnIdent(SYS_COL_PSQL_RESULTS, ImmutableList.of("results"));
+        static final ColumnIdent PSQL_RESULTS_AVG_TIME_TO_FIRST_ROW = new ColumnIdent(SYS_COL_PSQL_RESULTS, ImmutableList.of("avg_time_to_first_row"));
+        static final ColumnIdent PSQL_RESULTS_PAUSES = new ColumnIdent(SYS_COL_PSQL_RESULTS, ImmutableList.of("pauses"));
+        static final ColumnIdent PSQL_RESULTS_MAX_PENDING_BYTES = new ColumnIdent(SYS_COL_PSQL_RESULTS, ImmutableList.of("max_pending_bytes"));
     }
 
     public static Map<ColumnIdent, RowCollectExpressionFactory<NodeStatsContext>> expressions() {
@@ -360,6 +386,9 @@ public class SysNodesTableInfo extends StaticTableInfo {
                     return BytesRefs.toBytesRef(input.getPath());
                 }
             })
+            .put(SysNodesTableInfo.Columns.QUERY_RESULT_CACHE, NodeQueryResultCacheStatsExpression::new)
+            .put(SysNodesTableInfo.Columns.STATEMENT_CACHE, NodeStatementCacheStatsExpression::new)
+            .put(SysNodesTableInfo.Columns.PSQL_RESULTS, NodePsqlResultStatsExpression::new)
             .build();
     }
 
@@ -490,7 +519,27 @@ public class SysNodesTableInfo extends StaticTableInfo {
                 .register(Columns.FS_DISKS_BYTES_WRITTEN, DataTypes.LONG)
                 .register(Columns.FS_DATA, OBJECT_ARRAY_TYPE)
                 .register(Columns.FS_DATA_DEV, DataTypes.STRING)
-                .register(Columns.FS_DATA_PATH, DataTypes.STRING),
+                .register(Columns.FS_DATA_PATH, DataTypes.STRING)
+
+                .register(Columns.QUERY_RESULT_CACHE, DataTypes.OBJECT)
+                .register(Columns.QUERY_RESULT_CACHE_SIZE, DataTypes.LONG)
+                .register(Columns.QUERY_RESULT_CACHE_ENTRIES, DataTypes.INTEGER)
+                .register(Columns.QUERY_RESULT_CACHE_HITS, DataTypes.LONG)
+                .register(Columns.QUERY_RESULT_CACHE_MISSES, DataTypes.LONG)
+                .register(Columns.QUERY_RESULT_CACHE_EVICTIONS, DataTypes.LONG)
+                .register(Columns.QUERY_RESULT_CACHE_INVALIDATIONS, DataTypes.LONG)
+
+                .register(Columns.STATEMENT_CACHE, DataTypes.OBJECT)
+                .register(Columns.STATEMENT_CACHE_ENTRIES, DataTypes.INTEGER)
+                .register(Columns.STATEMENT_CACHE_HITS, DataTypes.LONG)
+                .register(Columns.STATEMENT_CACHE_MISSES, DataTypes.LONG)
+                .register(Columns.STATEMENT_CACHE_EVICTIONS, DataTypes.LONG)
+
+                .register(Columns.PSQL_RESULTS, DataTypes.OBJECT)
+                .register(Columns.PSQL_RESULTS_RESULTS, DataTypes.LONG)
+                .register(Columns.PSQL_RESULTS_AVG_TIME_TO_FIRST_ROW, DataTypes.DOUBLE)
+                .register(Columns.PSQL_RESULTS_PAUSES, DataTypes.LONG)
+                .register(Columns.PSQL_RESULTS_MAX_PENDING_BYTES, DataTypes.LONG),
             PRIMARY_KEY);
     }
 
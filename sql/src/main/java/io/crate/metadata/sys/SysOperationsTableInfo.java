@@ -53,6 +53,10 @@ public class SysOperationsTableInfo extends StaticTableInfo {
         public static final ColumnIdent NAME = new ColumnIdent("name");
         public static final ColumnIdent STARTED = new ColumnIdent("started");
         static final ColumnIdent USED_BYTES = new ColumnIdent("used_bytes");
+        static final ColumnIdent SPILLED_BYTES = new ColumnIdent("spilled_bytes");
+        static final ColumnIdent SPILLED_PARTITIONS = new ColumnIdent("spilled_partitions");
+        static final ColumnIdent BULK_SIZE = new ColumnIdent("bulk_size");
+        static final ColumnIdent BULK_REQUESTS_IN_FLIGHT = new ColumnIdent("bulk_requests_in_flight");
         static final ColumnIdent NODE = new ColumnIdent("node");
         static final ColumnIdent NODE_ID = new ColumnIdent("node", "id");
         static final ColumnIdent NODE_NAME = new ColumnIdent("node", "name");
@@ -74,6 +78,14 @@ public class SysOperationsTableInfo extends StaticTableInfo {
                 }
                 return r.usedBytes;
             }))
+            .put(Columns.SPILLED_BYTES,
+                () -> RowContextCollectorExpression.forFunction(OperationContext::spilledBytes))
+            .put(Columns.SPILLED_PARTITIONS,
+                () -> RowContextCollectorExpression.forFunction(OperationContext::spilledPartitions))
+            .put(Columns.BULK_SIZE,
+                () -> RowContextCollectorExpression.forFunction(OperationContext::bulkSize))
+            .put(Columns.BULK_REQUESTS_IN_FLIGHT,
+                () -> RowContextCollectorExpression.forFunction(OperationContext::bulkRequestsInFlight))
             .put(Columns.NODE, () -> RowContextCollectorExpression.forFunction(ignored -> ImmutableMap.of(
                 "id", new BytesRef(localNode.get().getId()),
                 "name", new BytesRef(localNode.get().getName())
@@ -90,6 +102,10 @@ public class SysOperationsTableInfo extends StaticTableInfo {
                 .register(Columns.NAME, DataTypes.STRING)
                 .register(Columns.STARTED, DataTypes.TIMESTAMP)
                 .register(Columns.USED_BYTES, DataTypes.LONG)
+                .register(Columns.SPILLED_BYTES, DataTypes.LONG)
+                .register(Columns.SPILLED_PARTITIONS, DataTypes.INTEGER)
+                .register(Columns.BULK_SIZE, DataTypes.INTEGER)
+                .register(Columns.BULK_REQUESTS_IN_FLIGHT, DataTypes.INTEGER)
                 .register(Columns.NODE, DataTypes.OBJECT)
                 .register(Columns.NODE_ID, DataTypes.STRING)
                 .register(Columns.NODE_NAME, DataTypes.STRING),
@@ -0,0 +1,304 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner;
+
+import io.crate.Streamer;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Statistics of a single column which are used to estimate the selectivity of filters and joins.
+ *
+ * <ul>
+ *     <li>nullFraction: fraction of the rows where the column is null</li>
+ *     <li>averageSizeInBytes: average size of the non-null values</li>
+ *     <li>approxDistinct: (approximate) number of distinct non-null values</li>
+ *     <li>mostCommonValues: the most common values together with the fraction of rows they appear in</li>
+ *     <li>histogram: equi-depth histogram bounds over all non-null values, in ascending order.
+ *         The first and last bound are the minimum and maximum value.</li>
+ * </ul>
+ */
+public final class ColumnStats implements Writeable {
+
+    private final DataType type;
+    private final double nullFraction;
+    private final double averageSizeInBytes;
+    private final double approxDistinct;
+    private final List<Object> mostCommonValues;
+    private final double[] mostCommonFrequencies;
+    private final List<Object> histogram;
+
+    public ColumnStats(DataType type,
+                       double nullFraction,
+                       double averageSizeInBytes,
+                       double approxDistinct,
+                       List<Object> mostCommonValues,
+                       double[] mostCommonFrequencies,
+                       List<Object> histogram) {
+        assert mostCommonValues.size() == mostCommonFrequencies.length
+            : "There must be a frequency for each most common value";
+        this.type = type;
+        this.nullFraction = nullFraction;
+        this.averageSizeInBytes = averageSizeInBytes;
+        this.approxDistinct = approxDistinct;
+        this.mostCommonValues = mostCommonValues;
+        this.mostCommonFrequencies = mostCommonFrequencies;
+        this.histogram = histogram;
+    }
+
+    public ColumnStats(DataType type, double nullFraction, double approxDistinct) {
+        this(type, nullFraction, 0.0, approxDistinct, Collections.emptyList(), new double[0], Collections.emptyList());
+    }
+
+    public ColumnStats(StreamInput in) throws IOException {
+        type = DataTypes.fromStream(in);
+        nullFraction = in.readDouble();
+        averageSizeInBytes = in.readDouble();
+        approxDistinct = in.readDouble();
+        Streamer<?> streamer = type.streamer();
+        mostCommonValues = readValues(in, streamer);
+        mostCommonFrequencies = in.readDoubleArray();
+        histogram = readValues(in, streamer);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        DataTypes.toStream(type, out);
+        out.writeDouble(nullFraction);
+        out.writeDouble(averageSizeInBytes);
+        out.writeDouble(approxDistinct);
+        Streamer<?> streamer = type.streamer();
+        writeValues(out, streamer, mostCommonValues);
+        out.writeDoubleArray(mostCommonFrequencies);
+        writeValues(out, streamer, histogram);
+    }
+
+    private static List<Object> readValues(StreamInput in, Streamer<?> streamer) throws IOException {
+        int size = in.readVInt();
+        List<Object> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(streamer.readValueFrom(in));
+        }
+        return values;
+    }
+
+    private static void writeValues(StreamOutput out, Streamer<?> streamer, List<Object> values) throws IOException {
+        out.writeVInt(values.size());
+        for (Object value : values) {
+            streamer.writeValueTo(out, value);
+        }
+    }
+
+    public void toXContent(XContentBuilder builder) throws IOException {
+        builder.field("type", type.id());
+        builder.field("null_fraction", nullFraction);
+        builder.field("average_size", averageSizeInBytes);
+        builder.field("approx_distinct", approxDistinct);
+        builder.startArray("most_common_values");
+        for (Object value : mostCommonValues) {
+            builder.value(value instanceof BytesRef ? ((BytesRef) value).utf8ToString() : value);
+        }
+        builder.endArray();
+        builder.array("most_common_frequencies", mostCommonFrequencies);
+        builder.startArray("histogram");
+        for (Object value : histogram) {
+            builder.value(value instanceof BytesRef ? ((BytesRef) value).utf8ToString() : value);
+        }
+        builder.endArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static ColumnStats fromMap(Map<String, Object> map) {
+        DataType type = DataTypes.fromId(((Number) map.get("type")).intValue());
+        List<Object> frequencies = (List<Object>) map.get("most_common_frequencies");
+        double[] mostCommonFrequencies = new double[frequencies.size()];
+        for (int i = 0; i < mostCommonFrequencies.length; i++) {
+            mostCommonFrequencies[i] = ((Number) frequencies.get(i)).doubleValue();
+        }
+        return new ColumnStats(
+            type,
+            ((Number) map.get("null_fraction")).doubleValue(),
+            ((Number) map.get("average_size")).doubleValue(),
+            ((Number) map.get("approx_distinct")).doubleValue(),
+            valuesFromList(type, (List<Object>) map.get("most_common_values")),
+            mostCommonFrequencies,
+            valuesFromList(type, (List<Object>) map.get("histogram"))
+        );
+    }
+
+    private static List<Object> valuesFromList(DataType type, List<Object> list) {
+        List<Object> values = new ArrayList<>(list.size());
+        for (Object value : list) {
+            values.add(type.value(value));
+        }
+        return values;
+    }
+
+    public DataType type() {
+        return type;
+    }
+
+    public double nullFraction() {
+        return nullFraction;
+    }
+
+    public double averageSizeInBytes() {
+        return averageSizeInBytes;
+    }
+
+    public double approxDistinct() {
+        return approxDistinct;
+    }
+
+    public List<Object> mostCommonValues() {
+        return mostCommonValues;
+    }
+
+    public double[] mostCommonFrequencies() {
+        return mostCommonFrequencies;
+    }
+
+    public List<Object> histogram() {
+        return histogram;
+    }
+
+    /**
+     * Estimated fraction of rows where the column is equal to {@code value}.
+     * Uses the frequency of the value if it is a most common value, otherwise the remaining rows are assumed
+     * to be distributed evenly over the remaining distinct values.
+     */
+    @SuppressWarnings("unchecked")
+    public double eqSelectivity(@Nullable Object value) {
+        if (value == null) {
+            return 0.0;
+        }
+        double mcvFrequencies = 0.0;
+        for (int i = 0; i < mostCommonValues.size(); i++) {
+            if (type.compareValueTo(mostCommonValues.get(i), value) == 0) {
+                return mostCommonFrequencies[i];
+            }
+            mcvFrequencies += mostCommonFrequencies[i];
+        }
+        double remainingDistinct = approxDistinct - mostCommonValues.size();
+        if (remainingDistinct < 1.0) {
+            remainingDistinct = 1.0;
+        }
+        double remainingRows = Math.max(0.0, 1.0 - nullFraction - mcvFrequencies);
+        return remainingRows / remainingDistinct;
+    }
+
+    /**
+     * Estimated fraction of rows where the column is less than {@code value} (or greater than, if {@code lessThan}
+     * is false) using the histogram.
+     *
+     * @return the selectivity or a negative value if there is no histogram that could be used for the estimation.
+     */
+    @SuppressWarnings("unchecked")
+    public double rangeSelectivity(@Nullable Object value, boolean lessThan) {
+        if (value == null) {
+            return 0.0;
+        }
+        int numBounds = histogram.size();
+        if (numBounds < 2) {
+            return -1.0;
+        }
+        double fractionBelow;
+        if (type.compareValueTo(value, histogram.get(0)) <= 0) {
+            fractionBelow = 0.0;
+        } else if (type.compareValueTo(value, histogram.get(numBounds - 1)) >= 0) {
+            fractionBelow = 1.0;
+        } else {
+            int bucket = 0;
+            while (type.compareValueTo(histogram.get(bucket + 1), value) < 0) {
+                bucket++;
+            }
+            double positionInBucket = positionInBucket(histogram.get(bucket), histogram.get(bucket + 1), value);
+            fractionBelow = (bucket + positionInBucket) / (numBounds - 1);
+        }
+        double nonNull = 1.0 - nullFraction;
+        return nonNull * (lessThan ? fractionBelow : 1.0 - fractionBelow);
+    }
+
+    /**
+     * Interpolates the position of value between the lower and upper bound of a bucket for numeric values.
+     * Other values are assumed to be in the middle of the bucket.
+     */
+    private static double positionInBucket(Object lower, Object upper, Object value) {
+        if (lower instanceof Number && upper instanceof Number && value instanceof Number) {
+            double low = ((Number) lower).doubleValue();
+            double high = ((Number) upper).doubleValue();
+            if (high > low) {
+                return Math.min(1.0, Math.max(0.0, (((Number) value).doubleValue() - low) / (high - low)));
+            }
+        }
+        return 0.5;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ColumnStats that = (ColumnStats) o;
+        return Double.compare(that.nullFraction, nullFraction) == 0 &&
+               Double.compare(that.averageSizeInBytes, averageSizeInBytes) == 0 &&
+               Double.compare(that.approxDistinct, approxDistinct) == 0 &&
+               type.equals(that.type) &&
+               mostCommonValues.equals(that.mostCommonValues) &&
+               Arrays.equals(mostCommonFrequencies, that.mostCommonFrequencies) &&
+               histogram.equals(that.histogram);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(type, nullFraction, averageSizeInBytes, approxDistinct, mostCommonValues, histogram);
+        result = 31 * result + Arrays.hashCode(mostCommonFrequencies);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStats{" +
+               "type=" + type +
+               ", nullFraction=" + nullFraction +
+               ", averageSizeInBytes=" + averageSizeInBytes +
+               ", approxDistinct=" + approxDistinct +
+               ", mostCommonValues=" + mostCommonValues +
+               ", histogram=" + histogram +
+               '}';
+    }
+}
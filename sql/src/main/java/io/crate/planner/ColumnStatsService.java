@@ -0,0 +1,401 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner;
+
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.carrotsearch.hppc.cursors.ObjectIntCursor;
+import com.google.common.annotations.VisibleForTesting;
+import io.crate.action.FutureActionListener;
+import io.crate.action.sql.BaseResultReceiver;
+import io.crate.action.sql.SQLOperations;
+import io.crate.action.sql.Session;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.data.Row;
+import io.crate.execution.ddl.stats.PublishColumnStatsRequest;
+import io.crate.execution.ddl.stats.PublishColumnStatsResponse;
+import io.crate.execution.ddl.stats.TransportPublishColumnStatsAction;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.Reference;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.stats.ColumnStatsMetaData;
+import io.crate.settings.CrateSetting;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Computes {@link ColumnStats} for tables by sampling their rows and publishes them into the cluster state
+ * ({@link ColumnStatsMetaData}). This is done for the tables given to {@code ANALYZE} and periodically for all tables
+ * on the master node, based on {@link #STATS_ANALYZE_INTERVAL_SETTING}.
+ *
+ * All nodes update their {@link TableStats} once the published statistics arrive with the cluster state.
+ */
+@Singleton
+public class ColumnStatsService extends AbstractComponent implements Runnable, ClusterStateListener {
+
+    public static final CrateSetting<TimeValue> STATS_ANALYZE_INTERVAL_SETTING = CrateSetting.of(Setting.timeSetting(
+        "stats.analyze.interval", TimeValue.timeValueHours(24), Setting.Property.NodeScope, Setting.Property.Dynamic),
+        DataTypes.STRING);
+
+    @VisibleForTesting
+    static final int SAMPLE_SIZE = 30_000;
+    @VisibleForTesting
+    static final int MAX_MOST_COMMON_VALUES = 100;
+    @VisibleForTesting
+    static final int NUM_HISTOGRAM_BUCKETS = 100;
+
+    /**
+     * The statistics are published with the cluster state, so wide values are left out of the most common values and
+     * the histogram, and the size of the values stored per column is limited.
+     */
+    @VisibleForTesting
+    static final long MAX_VALUE_BYTES = 1024L;
+    @VisibleForTesting
+    static final long MAX_COLUMN_STATS_BYTES = 16 * 1024L;
+
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+    private final TableStats tableStats;
+    private final SQLOperations sqlOperations;
+    private final TransportPublishColumnStatsAction publishColumnStatsAction;
+    private final TableStatsService tableStatsService;
+
+    @VisibleForTesting
+    ThreadPool.Cancellable analyzeScheduledTask;
+
+    @Inject
+    public ColumnStatsService(Settings settings,
+                              ThreadPool threadPool,
+                              ClusterService clusterService,
+                              TableStats tableStats,
+                              SQLOperations sqlOperations,
+                              TransportPublishColumnStatsAction publishColumnStatsAction,
+                              TableStatsService tableStatsService) {
+        super(settings);
+        this.threadPool = threadPool;
+        this.clusterService = clusterService;
+        this.tableStats = tableStats;
+        this.sqlOperations = sqlOperations;
+        this.publishColumnStatsAction = publishColumnStatsAction;
+        this.tableStatsService = tableStatsService;
+        analyzeScheduledTask = scheduleAnalyze(STATS_ANALYZE_INTERVAL_SETTING.setting().get(settings));
+
+        clusterService.addListener(this);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(
+            STATS_ANALYZE_INTERVAL_SETTING.setting(), this::setAnalyzeInterval);
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        ColumnStatsMetaData prev = event.previousState().metaData().custom(ColumnStatsMetaData.TYPE);
+        ColumnStatsMetaData current = event.state().metaData().custom(ColumnStatsMetaData.TYPE);
+        if (current == null) {
+            if (prev != null) {
+                // stale statistics must not be used by the planner once they are removed from the cluster state
+                tableStats.updateColumnStats(Collections.emptyMap());
+            }
+        } else if (current.equals(prev) == false) {
+            tableStats.updateColumnStats(current.statsByTable());
+        }
+    }
+
+    /**
+     * Runs {@code ANALYZE} for all tables; only on the elected master node so that the tables are sampled once per
+     * interval within the cluster.
+     */
+    @Override
+    public void run() {
+        if (clusterService.localNode() == null || clusterService.state().nodes().isLocalNodeElectedMaster() == false) {
+            return;
+        }
+        try {
+            sqlOperations.newSystemSession().quickExec("ANALYZE", new BaseResultReceiver() {
+                @Override
+                public void fail(@Nonnull Throwable t) {
+                    logger.error("error analyzing tables", t);
+                    super.fail(t);
+                }
+            }, Row.EMPTY);
+        } catch (Throwable t) {
+            logger.error("error analyzing tables", t);
+        }
+    }
+
+    /**
+     * Samples the given tables one after another and publishes the statistics of all of them at once.
+     *
+     * @return future with the number of analyzed tables
+     */
+    public CompletableFuture<Long> analyze(List<DocTableInfo> tables) {
+        Session session = sqlOperations.newSystemSession();
+        Map<TableIdent, Map<ColumnIdent, ColumnStats>> statsByTable = new HashMap<>();
+        CompletableFuture<Void> analyzed = CompletableFuture.completedFuture(null);
+        for (DocTableInfo table : tables) {
+            analyzed = analyzed
+                .thenCompose(ignored -> analyzeTable(session, table))
+                .thenAccept(stats -> statsByTable.put(table.ident(), stats));
+        }
+        return analyzed.thenCompose(ignored -> {
+            FutureActionListener<PublishColumnStatsResponse, Long> listener =
+                new FutureActionListener<>(r -> (long) statsByTable.size());
+            publishColumnStatsAction.execute(new PublishColumnStatsRequest(statsByTable), listener);
+            return listener;
+        }).whenComplete((r, t) -> {
+            // the row counts in the table stats should be as recent as the column stats
+            tableStatsService.run();
+        });
+    }
+
+    private static CompletableFuture<Map<ColumnIdent, ColumnStats>> analyzeTable(Session session, DocTableInfo table) {
+        List<Reference> columns = new ArrayList<>();
+        for (Reference column : table.columns()) {
+            if (DataTypes.isPrimitive(column.valueType())) {
+                columns.add(column);
+            }
+        }
+        if (columns.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        String tableName = table.ident().sqlFqn();
+        return collect(session, "SELECT count(*) FROM " + tableName).thenCompose(countRows -> {
+            long numRows = (long) countRows.get(0)[0];
+            return collect(session, sampleStatement(tableName, columns, numRows)).thenApply(sampleRows -> {
+                Map<ColumnIdent, ColumnStats> statsByColumn = new HashMap<>(columns.size());
+                for (int i = 0; i < columns.size(); i++) {
+                    List<Object> values = new ArrayList<>(sampleRows.size());
+                    for (Object[] row : sampleRows) {
+                        values.add(row[i]);
+                    }
+                    Reference column = columns.get(i);
+                    statsByColumn.put(column.ident().columnIdent(), computeStats(column.valueType(), values, numRows));
+                }
+                return statsByColumn;
+            });
+        });
+    }
+
+    /**
+     * Bernoulli sampling with a probability which results in roughly {@link #SAMPLE_SIZE} rows.
+     * Small tables are read completely.
+     *
+     * Every row of every shard is selected with the same probability. The limit only bounds the size of the sample if
+     * the table grew since it was counted; it is set well above the expected sample size because rows beyond the limit
+     * would be cut from the shards which respond last, which would bias the sample towards the other shards.
+     */
+    @VisibleForTesting
+    static String sampleStatement(String tableName, List<Reference> columns, long numRows) {
+        StringBuilder sb = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(columns.get(i).ident().columnIdent().quotedOutputName());
+        }
+        sb.append(" FROM ").append(tableName);
+        if (numRows > SAMPLE_SIZE) {
+            double probability = (double) SAMPLE_SIZE / numRows;
+            // Double.toString keeps the full precision; a fixed number of decimals would round tiny probabilities to 0
+            sb.append(" WHERE random() < ").append(Double.toString(probability));
+        }
+        sb.append(" LIMIT ").append(2 * SAMPLE_SIZE);
+        return sb.toString();
+    }
+
+    private static CompletableFuture<List<Object[]>> collect(Session session, String statement) {
+        RowCollector rowCollector = new RowCollector();
+        session.quickExec(statement, rowCollector, Row.EMPTY);
+        return rowCollector.completionFuture().thenApply(ignored -> rowCollector.rows);
+    }
+
+    private static class RowCollector extends BaseResultReceiver {
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public void setNextRow(Row row) {
+            rows.add(row.materialize());
+        }
+    }
+
+    /**
+     * Computes the statistics of a column from a sample of its values.
+     *
+     * @param values the sampled values, including nulls
+     * @param numRows the number of rows of the table
+     */
+    @VisibleForTesting
+    @SuppressWarnings("unchecked")
+    static ColumnStats computeStats(DataType type, List<Object> values, long numRows) {
+        int sampleSize = values.size();
+        if (sampleSize == 0) {
+            return new ColumnStats(type, 0.0, 0.0);
+        }
+        SizeEstimator<Object> sizeEstimator = SizeEstimatorFactory.create(type);
+        ObjectIntHashMap<Object> counts = new ObjectIntHashMap<>();
+        List<Object> narrowValues = new ArrayList<>(sampleSize);
+        int numNonNull = 0;
+        long totalBytes = 0L;
+        for (Object value : values) {
+            if (value != null) {
+                numNonNull++;
+                long valueBytes = sizeEstimator.estimateSize(value);
+                totalBytes += valueBytes;
+                counts.addTo(value, 1);
+                if (valueBytes <= MAX_VALUE_BYTES) {
+                    narrowValues.add(value);
+                }
+            }
+        }
+        double nullFraction = (sampleSize - numNonNull) / (double) sampleSize;
+        if (numNonNull == 0) {
+            return new ColumnStats(type, nullFraction, 0.0);
+        }
+        int numDistinct = counts.size();
+        int numSingletons = 0;
+        List<ObjectIntCursor<Object>> entries = new ArrayList<>(numDistinct);
+        for (ObjectIntCursor<Object> cursor : counts) {
+            if (cursor.value == 1) {
+                numSingletons++;
+            }
+            entries.add(cursor);
+        }
+        double numNonNullRows = Math.max(numNonNull, numRows * (1.0 - nullFraction));
+        double approxDistinct = estimateDistinct(numNonNull, numDistinct, numSingletons, numNonNullRows);
+
+        // most common values: all values if every value appeared more than once, otherwise values which appeared
+        // noticeably more often than the average value
+        entries.sort((a, b) -> Integer.compare(b.value, a.value));
+        double minCount = numSingletons == 0 && numDistinct <= MAX_MOST_COMMON_VALUES
+            ? 0.0
+            : Math.max(2.0, 1.25 * numNonNull / numDistinct);
+        List<Object> mostCommonValues = new ArrayList<>();
+        List<Double> frequencies = new ArrayList<>();
+        long remainingBytes = MAX_COLUMN_STATS_BYTES;
+        for (ObjectIntCursor<Object> entry : entries) {
+            if (mostCommonValues.size() == MAX_MOST_COMMON_VALUES || entry.value < minCount) {
+                break;
+            }
+            long valueBytes = sizeEstimator.estimateSize(entry.key);
+            if (valueBytes > MAX_VALUE_BYTES) {
+                continue;
+            }
+            if (valueBytes > remainingBytes) {
+                break;
+            }
+            remainingBytes -= valueBytes;
+            mostCommonValues.add(entry.key);
+            frequencies.add(entry.value / (double) sampleSize);
+        }
+        double[] mostCommonFrequencies = new double[frequencies.size()];
+        for (int i = 0; i < mostCommonFrequencies.length; i++) {
+            mostCommonFrequencies[i] = frequencies.get(i);
+        }
+
+        return new ColumnStats(
+            type,
+            nullFraction,
+            totalBytes / (double) numNonNull,
+            approxDistinct,
+            mostCommonValues,
+            mostCommonFrequencies,
+            histogram(type, narrowValues, sizeEstimator, remainingBytes)
+        );
+    }
+
+    /**
+     * Estimates the number of distinct values using the Duj1 estimator of Haas and Stokes:
+     * <pre>
+     *     n * d / (n - f1 + f1 * n / N)
+     * </pre>
+     * where n is the sample size, d the number of distinct values in the sample, f1 the number of values which
+     * appeared exactly once in the sample and N the number of rows.
+     */
+    @VisibleForTesting
+    static double estimateDistinct(int sampleSize, int numDistinct, int numSingletons, double numRows) {
+        if (sampleSize >= numRows || numSingletons == 0) {
+            return numDistinct;
+        }
+        double n = sampleSize;
+        double estimate = n * numDistinct / (n - numSingletons + numSingletons * n / numRows);
+        return Math.min(numRows, Math.max(numDistinct, estimate));
+    }
+
+    /**
+     * Equi-depth histogram bounds: each bucket between two bounds contains (about) the same number of values.
+     * The number of buckets is reduced until the bounds fit into {@code maxBytes}.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Object> histogram(DataType type,
+                                          List<Object> values,
+                                          SizeEstimator<Object> sizeEstimator,
+                                          long maxBytes) {
+        values.sort(type::compareValueTo);
+        int numValues = values.size();
+        for (int numBuckets = Math.min(NUM_HISTOGRAM_BUCKETS, numValues - 1); numBuckets >= 1; numBuckets /= 2) {
+            List<Object> bounds = new ArrayList<>(numBuckets + 1);
+            long boundsBytes = 0L;
+            for (int i = 0; i <= numBuckets && boundsBytes <= maxBytes; i++) {
+                Object bound = values.get((int) ((long) i * (numValues - 1) / numBuckets));
+                boundsBytes += sizeEstimator.estimateSize(bound);
+                bounds.add(bound);
+            }
+            if (boundsBytes <= maxBytes) {
+                return bounds;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private ThreadPool.Cancellable scheduleAnalyze(TimeValue interval) {
+        if (interval.millis() > 0) {
+            return threadPool.scheduleWithFixedDelay(this, interval, ThreadPool.Names.GENERIC);
+        }
+        return null;
+    }
+
+    private void setAnalyzeInterval(TimeValue interval) {
+        if (analyzeScheduledTask != null) {
+            analyzeScheduledTask.cancel();
+        }
+        analyzeScheduledTask = scheduleAnalyze(interval);
+    }
+}
@@ -23,6 +23,8 @@
 package io.crate.planner;
 
 import io.crate.action.sql.DCLStatementDispatcher;
+import io.crate.action.sql.QueryResultCache;
+import io.crate.action.sql.StatementCache;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.ddl.DDLStatementDispatcher;
 import io.crate.execution.ddl.TransportDropTableAction;
@@ -57,6 +59,8 @@ public class DependencyCarrier {
     private final ProjectionBuilder projectionBuilder;
     private final TransportCreateViewAction createViewAction;
     private final TransportDropViewAction dropViewAction;
+    private final QueryResultCache queryResultCache;
+    private final StatementCache statementCache;
 
     @Inject
     public DependencyCarrier(Settings settings,
@@ -69,7 +73,9 @@ public class DependencyCarrier {
                              DCLStatementDispatcher dclStatementDispatcher,
                              TransportDropTableAction transportDropTableAction,
                              TransportCreateViewAction createViewAction,
-                             TransportDropViewAction dropViewAction) {
+                             TransportDropViewAction dropViewAction,
+                             QueryResultCache queryResultCache,
+                             StatementCache statementCache) {
         this.settings = settings;
         this.transportActionProvider = transportActionProvider;
         this.phasesTaskFactory = phasesTaskFactory;
@@ -82,6 +88,8 @@ public class DependencyCarrier {
         projectionBuilder = new ProjectionBuilder(functions);
         this.createViewAction = createViewAction;
         this.dropViewAction = dropViewAction;
+        this.queryResultCache = queryResultCache;
+        this.statementCache = statementCache;
     }
 
     public DDLStatementDispatcher ddlAction() {
@@ -139,4 +147,12 @@ public class DependencyCarrier {
     public TransportDropViewAction dropViewAction() {
         return dropViewAction;
     }
+
+    public QueryResultCache queryResultCache() {
+        return queryResultCache;
+    }
+
+    public StatementCache statementCache() {
+        return statementCache;
+    }
 }
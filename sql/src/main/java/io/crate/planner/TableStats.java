@@ -25,21 +25,32 @@ package io.crate.planner;
 import com.carrotsearch.hppc.ObjectObjectHashMap;
 import com.carrotsearch.hppc.ObjectObjectMap;
 import com.google.common.annotations.VisibleForTesting;
+import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.TableIdent;
 
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+
 /**
- * Holds table statistics that are updated periodically by {@link TableStatsService}.
+ * Holds table statistics that are updated periodically by {@link TableStatsService}
+ * and the column statistics collected by {@link ColumnStatsService} (ANALYZE).
  */
 public class TableStats {
 
     private static final Stats EMPTY_STATS = new Stats();
 
     private volatile ObjectObjectMap<TableIdent, Stats> tableStats = new ObjectObjectHashMap<>(0);
+    private volatile Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats = Collections.emptyMap();
 
     public void updateTableStats(ObjectObjectMap<TableIdent, Stats> tableStats) {
         this.tableStats = tableStats;
     }
 
+    public void updateColumnStats(Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats) {
+        this.columnStats = columnStats;
+    }
+
     /**
      * Returns the number of docs a table has.
      * <p>
@@ -80,6 +91,21 @@ public class TableStats {
         return sizeInBytes(tableIdent) / numDocs(tableIdent);
     }
 
+    /**
+     * Returns the statistics of a column or null if there are no statistics for the column.
+     */
+    @Nullable
+    public ColumnStats columnStats(TableIdent tableIdent, ColumnIdent column) {
+        return columnStats.getOrDefault(tableIdent, Collections.emptyMap()).get(column);
+    }
+
+    /**
+     * Returns the statistics of all analyzed tables, by table and column.
+     */
+    public Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats() {
+        return columnStats;
+    }
+
     @VisibleForTesting
     public static class Stats {
 
@@ -95,6 +95,7 @@ class Collect extends ZeroInputPlan {
 
     final TableInfo tableInfo;
     private final long numExpectedRows;
+    private final long maxExpectedRows;
     private final long estimatedRowSize;
 
     public static LogicalPlan.Builder create(QueriedTableRelation relation,
@@ -105,13 +106,17 @@ class Collect extends ZeroInputPlan {
             return ((tableStats, usedBeforeNextFetch) ->
                         new Get(((QueriedDocTable) relation), docKeys, toCollect, tableStats));
         }
-        return (tableStats, usedColumns) -> new Collect(
-            relation,
-            toCollect,
-            where,
-            usedColumns,
-            tableStats.numDocs(relation.tableRelation().tableInfo().ident()),
-            tableStats.estimatedSizePerRow(relation.tableRelation().tableInfo().ident()));
+        return (tableStats, usedColumns) -> {
+            long numDocs = tableStats.numDocs(relation.tableRelation().tableInfo().ident());
+            return new Collect(
+                relation,
+                toCollect,
+                where,
+                usedColumns,
+                Selectivity.applyTo(numDocs, Selectivity.ofFilter(where.query(), tableStats)),
+                numDocs,
+                tableStats.estimatedSizePerRow(relation.tableRelation().tableInfo().ident()));
+        };
     }
 
     private Collect(QueriedTableRelation relation,
@@ -119,12 +124,14 @@ class Collect extends ZeroInputPlan {
                     WhereClause where,
                     Set<Symbol> usedBeforeNextFetch,
                     long numExpectedRows,
+                    long maxExpectedRows,
                     long estimatedRowSize) {
         super(
             generateOutputs(toCollect, relation.tableRelation(), usedBeforeNextFetch, where),
             Collections.singletonList(relation.tableRelation()));
 
         this.numExpectedRows = numExpectedRows;
+        this.maxExpectedRows = maxExpectedRows;
         this.estimatedRowSize = estimatedRowSize;
         if (where.hasVersions()) {
             throw new VersionInvalidException();
@@ -138,9 +145,11 @@ class Collect extends ZeroInputPlan {
                     List<Symbol> outputs,
                     WhereClause where,
                     long numExpectedRows,
+                    long maxExpectedRows,
                     long estimatedRowSize) {
         super(outputs, Collections.singletonList(relation.tableRelation()));
         this.numExpectedRows = numExpectedRows;
+        this.maxExpectedRows = maxExpectedRows;
         this.estimatedRowSize = estimatedRowSize;
         if (where.hasVersions()) {
             throw new VersionInvalidException();
@@ -319,7 +328,7 @@ class Collect extends ZeroInputPlan {
             assert !SymbolVisitors.any(s -> s instanceof Field, ancestorQuery)
                 : "mapped ancestorQuery must not have any Field but only Reference symbols: " + ancestorQuery;
             return new Collect(
-                relation, outputs, where.add(ancestorQuery), numExpectedRows, estimatedRowSize);
+                relation, outputs, where.add(ancestorQuery), numExpectedRows, maxExpectedRows, estimatedRowSize);
         }
         return super.tryOptimize(pushDown, mapper);
     }
@@ -337,6 +346,11 @@ class Collect extends ZeroInputPlan {
         return numExpectedRows;
     }
 
+    @Override
+    public long maxExpectedRows() {
+        return maxExpectedRows;
+    }
+
     @Override
     public long estimatedRowSize() {
         return estimatedRowSize;
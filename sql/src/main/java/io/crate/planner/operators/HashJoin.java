@@ -35,6 +35,7 @@ import io.crate.execution.dsl.projection.builder.InputColumns;
 import io.crate.execution.dsl.projection.builder.ProjectionBuilder;
 import io.crate.execution.engine.join.JoinOperations;
 import io.crate.execution.engine.pipeline.TopN;
+import io.crate.expression.symbol.InputColumn;
 import io.crate.expression.symbol.SelectSymbol;
 import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.Symbols;
@@ -43,6 +44,7 @@ import io.crate.planner.PlannerContext;
 import io.crate.planner.ResultDescription;
 import io.crate.planner.TableStats;
 import io.crate.planner.distribution.DistributionInfo;
+import io.crate.planner.distribution.DistributionType;
 import io.crate.planner.node.dql.join.Join;
 import io.crate.planner.node.dql.join.JoinType;
 import org.elasticsearch.common.collect.Tuple;
@@ -127,34 +129,53 @@ class HashJoin extends TwoInputPlan {
 
         ResultDescription leftResultDesc = leftExecutionPlan.resultDescription();
         ResultDescription rightResultDesc = rightExecutionPlan.resultDescription();
-        Collection<String> nlExecutionNodes = ImmutableSet.of(plannerContext.handlerNode());
+        Tuple<List<Symbol>, List<Symbol>> hashInputs =
+            extractHashJoinInputsFromJoinSymbolsAndSplitPerSide(tablesSwitched);
 
+        Collection<String> joinExecutionNodes = ImmutableSet.of(plannerContext.handlerNode());
         MergePhase leftMerge = null;
         MergePhase rightMerge = null;
-        leftExecutionPlan.setDistributionInfo(DistributionInfo.DEFAULT_BROADCAST);
-        if (JoinOperations.isMergePhaseNeeded(nlExecutionNodes, leftResultDesc, false)) {
-            leftMerge = JoinOperations.buildMergePhaseForJoin(plannerContext, leftResultDesc, nlExecutionNodes);
-        }
-        if (nlExecutionNodes.size() == 1
-            && nlExecutionNodes.equals(rightResultDesc.nodeIds())
-            && !rightResultDesc.hasRemainingLimitOrOffset()) {
-            // if the left and the right plan are executed on the same single node the mergePhase
-            // should be omitted. This is the case if the left and right table have only one shards which
-            // are on the same node
-            rightExecutionPlan.setDistributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
+        // The number of rows is used to limit the size of the hash table blocks. An estimate which is too low would
+        // split the left side into many blocks, each requiring a scan of the right side, so the upper bound is used.
+        long numberOfRowsForLeft = leftLogicalPlan.maxExpectedRows();
+
+        Collection<String> distributedExecutionNodes = distributedExecutionNodes(leftResultDesc, rightResultDesc);
+        int[] distributeByColumns = distributeByColumns(hashInputs);
+        boolean isDistributed = distributedExecutionNodes.size() > 1 && distributeByColumns != null;
+        if (isDistributed) {
+            // Both sides are re-distributed by the hash of the first join key, so rows which match end up on the same
+            // node and each node only needs to build the hash table for its part of the left side.
+            joinExecutionNodes = distributedExecutionNodes;
+            leftExecutionPlan.setDistributionInfo(new DistributionInfo(DistributionType.MODULO, distributeByColumns[0]));
+            rightExecutionPlan.setDistributionInfo(new DistributionInfo(DistributionType.MODULO, distributeByColumns[1]));
+            leftMerge = JoinOperations.buildMergePhaseForJoin(plannerContext, leftResultDesc, joinExecutionNodes);
+            rightMerge = JoinOperations.buildMergePhaseForJoin(plannerContext, rightResultDesc, joinExecutionNodes);
+            if (numberOfRowsForLeft > 0) {
+                numberOfRowsForLeft = numberOfRowsForLeft / joinExecutionNodes.size() + 1;
+            }
         } else {
-            if (JoinOperations.isMergePhaseNeeded(nlExecutionNodes, rightResultDesc, false)) {
-                rightMerge = JoinOperations.buildMergePhaseForJoin(plannerContext, rightResultDesc, nlExecutionNodes);
+            leftExecutionPlan.setDistributionInfo(DistributionInfo.DEFAULT_BROADCAST);
+            if (JoinOperations.isMergePhaseNeeded(joinExecutionNodes, leftResultDesc, false)) {
+                leftMerge = JoinOperations.buildMergePhaseForJoin(plannerContext, leftResultDesc, joinExecutionNodes);
+            }
+            if (joinExecutionNodes.size() == 1
+                && joinExecutionNodes.equals(rightResultDesc.nodeIds())
+                && !rightResultDesc.hasRemainingLimitOrOffset()) {
+                // if the left and the right plan are executed on the same single node the mergePhase
+                // should be omitted. This is the case if the left and right table have only one shards which
+                // are on the same node
+                rightExecutionPlan.setDistributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
+            } else {
+                if (JoinOperations.isMergePhaseNeeded(joinExecutionNodes, rightResultDesc, false)) {
+                    rightMerge = JoinOperations.buildMergePhaseForJoin(plannerContext, rightResultDesc, joinExecutionNodes);
+                }
+                rightExecutionPlan.setDistributionInfo(DistributionInfo.DEFAULT_BROADCAST);
             }
-            rightExecutionPlan.setDistributionInfo(DistributionInfo.DEFAULT_BROADCAST);
         }
 
         Symbol joinConditionInput = InputColumns.create(
             joinCondition,
             Lists2.concat(leftLogicalPlan.outputs(), rightLogicalPlan.outputs()));
-        Tuple<List<Symbol>, List<Symbol>> hashInputs =
-            extractHashJoinInputsFromJoinSymbolsAndSplitPerSide(tablesSwitched);
-
 
         List<Symbol> joinOutputs = Lists2.concat(leftLogicalPlan.outputs(), rightLogicalPlan.outputs());
         // The projection operates on the the outputs of the join operation, which may be inverted due to a table switch,
@@ -167,20 +188,21 @@ class HashJoin extends TwoInputPlan {
         HashJoinPhase joinPhase = new HashJoinPhase(
             plannerContext.jobId(),
             plannerContext.nextExecutionPhaseId(),
-            "hash-join",
+            isDistributed ? "distributed-hash-join" : "hash-join",
             // JoinPhase ctor wants at least one projection
             Collections.singletonList(new EvalProjection(projectionOutputs)),
             leftMerge,
             rightMerge,
             leftLogicalPlan.outputs().size(),
             rightLogicalPlan.outputs().size(),
-            nlExecutionNodes,
+            joinExecutionNodes,
             joinConditionInput,
             hashInputs.v1(),
             hashInputs.v2(),
             Symbols.typeView(leftLogicalPlan.outputs()),
+            Symbols.typeView(rightLogicalPlan.outputs()),
             leftLogicalPlan.estimatedRowSize(),
-            leftLogicalPlan.numExpectedRows());
+            numberOfRowsForLeft);
         return new Join(
             joinPhase,
             leftExecutionPlan,
@@ -193,6 +215,43 @@ class HashJoin extends TwoInputPlan {
         );
     }
 
+    /**
+     * @return the nodes on which the sides are executed, or an empty collection if a side can't be re-distributed
+     */
+    private static Collection<String> distributedExecutionNodes(ResultDescription leftResultDesc,
+                                                                ResultDescription rightResultDesc) {
+        if (leftResultDesc.nodeIds().isEmpty() || rightResultDesc.nodeIds().isEmpty()
+            || leftResultDesc.hasRemainingLimitOrOffset() || rightResultDesc.hasRemainingLimitOrOffset()) {
+            return Collections.emptySet();
+        }
+        return ImmutableSet.<String>builder()
+            .addAll(leftResultDesc.nodeIds())
+            .addAll(rightResultDesc.nodeIds())
+            .build();
+    }
+
+    /**
+     * The {@link io.crate.execution.engine.distribution.ModuloBucketBuilder} uses the hashCode of a single column,
+     * so the first join key must be a plain output column on both sides and of the same type.
+     *
+     * @return the indices of the first join key in the outputs of the left and right side or null if the sides can't
+     *         be distributed by it.
+     */
+    @Nullable
+    private static int[] distributeByColumns(Tuple<List<Symbol>, List<Symbol>> hashInputs) {
+        if (hashInputs.v1().isEmpty() || hashInputs.v2().isEmpty()) {
+            return null;
+        }
+        Symbol leftKey = hashInputs.v1().get(0);
+        Symbol rightKey = hashInputs.v2().get(0);
+        if (leftKey instanceof InputColumn
+            && rightKey instanceof InputColumn
+            && leftKey.valueType().equals(rightKey.valueType())) {
+            return new int[] { ((InputColumn) leftKey).index(), ((InputColumn) rightKey).index() };
+        }
+        return null;
+    }
+
     private Tuple<List<Symbol>, List<Symbol>> extractHashJoinInputsFromJoinSymbolsAndSplitPerSide(boolean switchedTables) {
         Map<AnalyzedRelation, List<Symbol>> hashJoinSymbols = HashJoinConditionSymbolsExtractor.extract(joinCondition);
 
@@ -223,8 +282,14 @@ class HashJoin extends TwoInputPlan {
 
     @Override
     public long numExpectedRows() {
-        // We don't have any cardinality estimates, so just take the bigger table
-        return Math.max(lhs.numExpectedRows(), rhs.numExpectedRows());
+        long lhsRows = lhs.numExpectedRows();
+        long rhsRows = rhs.numExpectedRows();
+        if (lhsRows < 0 || rhsRows < 0) {
+            // We don't have any cardinality estimates, so just take the bigger table
+            return Math.max(lhsRows, rhsRows);
+        }
+        double selectivity = Selectivity.ofJoin(joinCondition, tableStats, lhsRows, rhsRows);
+        return (long) Math.ceil((double) lhsRows * rhsRows * selectivity);
     }
 
     @Override
@@ -23,14 +23,17 @@
 package io.crate.planner.operators;
 
 import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.carrotsearch.hppc.ObjectLongMap;
 import com.google.common.annotations.VisibleForTesting;
 import io.crate.sql.tree.QualifiedName;
+import org.elasticsearch.common.util.set.Sets;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -54,6 +57,80 @@ final class JoinOrdering {
             implicitJoinConditions);
     }
 
+    /**
+     * Returns the relations ordered by the estimated size of the intermediate results.
+     * <p>
+     * Starts with the pair of relations which has the smallest estimated join result and then greedily adds the
+     * relation which leads to the smallest next intermediate result. Relations which are connected to the already
+     * joined relations by a join condition are preferred over relations which would result in a cross join.
+     *
+     * @param relations          all relations, e.g. [t1, t2, t3]
+     * @param numRows            the estimated number of rows of each relation (after filters are applied)
+     * @param joinSelectivities  the estimated selectivities of the join conditions between relation pairs,
+     *                           e.g. {{t1, t2}: 0.001, {t2, t3}: 0.1}
+     */
+    static Collection<QualifiedName> orderByEstimatedCardinality(Collection<QualifiedName> relations,
+                                                                 ObjectLongMap<QualifiedName> numRows,
+                                                                 Map<Set<QualifiedName>, Double> joinSelectivities) {
+        Set<QualifiedName> firstPair = null;
+        double minCardinality = 0.0;
+        for (Map.Entry<Set<QualifiedName>, Double> entry : joinSelectivities.entrySet()) {
+            Set<QualifiedName> pair = entry.getKey();
+            if (pair.size() != 2) {
+                continue;
+            }
+            double cardinality = entry.getValue();
+            for (QualifiedName name : pair) {
+                cardinality *= numRows.get(name);
+            }
+            if (firstPair == null || cardinality < minCardinality) {
+                minCardinality = cardinality;
+                firstPair = pair;
+            }
+        }
+        if (firstPair == null) {
+            return relations;
+        }
+        LinkedHashSet<QualifiedName> bestOrder = new LinkedHashSet<>(relations.size());
+        for (QualifiedName relation : relations) {
+            if (firstPair.contains(relation)) {
+                bestOrder.add(relation);
+            }
+        }
+        double cardinality = minCardinality;
+        while (bestOrder.size() < relations.size()) {
+            QualifiedName next = null;
+            double nextCardinality = 0.0;
+            boolean nextIsConnected = false;
+            for (QualifiedName relation : relations) {
+                if (bestOrder.contains(relation)) {
+                    continue;
+                }
+                double selectivity = 1.0;
+                boolean connected = false;
+                for (QualifiedName joined : bestOrder) {
+                    Double pairSelectivity = joinSelectivities.get(Sets.newHashSet(joined, relation));
+                    if (pairSelectivity != null) {
+                        connected = true;
+                        selectivity *= pairSelectivity;
+                    }
+                }
+                double candidateCardinality = cardinality * numRows.get(relation) * selectivity;
+                if (next == null
+                    || (connected && !nextIsConnected)
+                    || (connected == nextIsConnected && candidateCardinality < nextCardinality)) {
+                    next = relation;
+                    nextCardinality = candidateCardinality;
+                    nextIsConnected = connected;
+                }
+            }
+            assert next != null : "There must be a remaining relation";
+            bestOrder.add(next);
+            cardinality = nextCardinality;
+        }
+        return bestOrder;
+    }
+
     /**
      * Returns a the relation re-ordered to apply join conditions further down in the tree.
      * <p>
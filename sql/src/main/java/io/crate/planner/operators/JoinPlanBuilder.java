@@ -22,9 +22,13 @@
 
 package io.crate.planner.operators;
 
+import com.carrotsearch.hppc.ObjectLongHashMap;
+import com.carrotsearch.hppc.ObjectLongMap;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.MultiSourceSelect;
+import io.crate.analyze.QueriedTableRelation;
 import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.JoinPair;
 import io.crate.analyze.relations.QueriedRelation;
 import io.crate.analyze.relations.QuerySplitter;
@@ -48,6 +52,7 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -100,11 +105,20 @@ public class JoinPlanBuilder implements LogicalPlan.Builder {
 
         Collection<QualifiedName> orderedRelationNames;
         if (mss.sources().size() > 2) {
-            orderedRelationNames = JoinOrdering.getOrderedRelationNames(
-                mss.sources().keySet(),
-                joinPairs.keySet(),
-                queryParts.keySet()
-            );
+            ObjectLongMap<QualifiedName> numRows = hasOuterJoins ? null : estimateNumRows(queryParts, tableStats);
+            if (numRows == null) {
+                orderedRelationNames = JoinOrdering.getOrderedRelationNames(
+                    mss.sources().keySet(),
+                    joinPairs.keySet(),
+                    queryParts.keySet()
+                );
+            } else {
+                orderedRelationNames = JoinOrdering.orderByEstimatedCardinality(
+                    mss.sources().keySet(),
+                    numRows,
+                    estimateJoinSelectivities(joinPairs, queryParts, numRows, tableStats)
+                );
+            }
         } else {
             orderedRelationNames = mss.sources().keySet();
         }
@@ -185,6 +199,51 @@ public class JoinPlanBuilder implements LogicalPlan.Builder {
         return joinPlan;
     }
 
+    /**
+     * Estimates the number of rows of each relation after the filters on the relation are applied.
+     *
+     * @return the estimates or null if there is no estimate for at least one relation.
+     */
+    @Nullable
+    private ObjectLongMap<QualifiedName> estimateNumRows(Map<Set<QualifiedName>, Symbol> queryParts,
+                                                        TableStats tableStats) {
+        ObjectLongMap<QualifiedName> numRows = new ObjectLongHashMap<>(mss.sources().size());
+        for (Map.Entry<QualifiedName, AnalyzedRelation> entry : mss.sources().entrySet()) {
+            AnalyzedRelation relation = entry.getValue();
+            if (!(relation instanceof QueriedTableRelation)) {
+                return null;
+            }
+            QueriedTableRelation<?> queriedTable = (QueriedTableRelation<?>) relation;
+            long numDocs = tableStats.numDocs(queriedTable.tableRelation().tableInfo().ident());
+            if (numDocs < 0) {
+                return null;
+            }
+            double selectivity = Selectivity.ofFilter(queriedTable.querySpec().where().query(), tableStats)
+                                 * Selectivity.ofFilter(queryParts.get(Collections.singleton(entry.getKey())), tableStats);
+            numRows.put(entry.getKey(), Selectivity.applyTo(numDocs, selectivity));
+        }
+        return numRows;
+    }
+
+    private static Map<Set<QualifiedName>, Double> estimateJoinSelectivities(Map<Set<QualifiedName>, JoinPair> joinPairs,
+                                                                            Map<Set<QualifiedName>, Symbol> queryParts,
+                                                                            ObjectLongMap<QualifiedName> numRows,
+                                                                            TableStats tableStats) {
+        Map<Set<QualifiedName>, Double> selectivities = new LinkedHashMap<>();
+        BiConsumer<Set<QualifiedName>, Symbol> addCondition = (names, condition) -> {
+            if (names.size() != 2) {
+                return;
+            }
+            Iterator<QualifiedName> it = names.iterator();
+            double selectivity = Selectivity.ofJoin(
+                condition, tableStats, numRows.get(it.next()), numRows.get(it.next()));
+            selectivities.merge(names, selectivity, (a, b) -> a * b);
+        };
+        joinPairs.forEach((names, pair) -> addCondition.accept(names, pair.condition()));
+        queryParts.forEach(addCondition);
+        return selectivities;
+    }
+
     private static LogicalPlan createJoinPlan(LogicalPlan lhsPlan,
                                               LogicalPlan rhsPlan,
                                               JoinType joinType,
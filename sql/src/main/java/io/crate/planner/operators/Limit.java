@@ -116,6 +116,16 @@ class Limit extends OneInputPlan {
         return source.numExpectedRows();
     }
 
+    @Override
+    public long maxExpectedRows() {
+        long sourceRows = source.maxExpectedRows();
+        if (limit instanceof Literal) {
+            long limitRows = DataTypes.LONG.value(((Literal) limit).value());
+            return sourceRows < 0 ? limitRows : Math.min(limitRows, sourceRows);
+        }
+        return sourceRows;
+    }
+
     @Override
     public String toString() {
         return "Limit{" +
@@ -217,6 +217,15 @@ public interface LogicalPlan extends Plan {
 
     long numExpectedRows();
 
+    /**
+     * Returns an upper bound of the number of rows returned by the plan, or -1 if it is unknown.
+     * Unlike {@link #numExpectedRows()}, this doesn't apply any selectivity estimates, so it can be used to size
+     * buffers which would be too small if an estimate is too low.
+     */
+    default long maxExpectedRows() {
+        return numExpectedRows();
+    }
+
     /**
      * Returns an estimation of the size (in bytes) of each row returned by the plan.
      * The estimation is based on the average size of a row of the concrete table(s) of the plan.
@@ -81,6 +81,11 @@ abstract class OneInputPlan extends LogicalPlanBase {
         return source.numExpectedRows();
     }
 
+    @Override
+    public long maxExpectedRows() {
+        return source.maxExpectedRows();
+    }
+
     @Override
     public long estimatedRowSize() {
         return source.estimatedRowSize();
@@ -0,0 +1,207 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner.operators;
+
+import io.crate.analyze.relations.AbstractTableRelation;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.QueriedRelation;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
+import io.crate.expression.operator.OrOperator;
+import io.crate.expression.predicate.IsNullPredicate;
+import io.crate.expression.predicate.NotPredicate;
+import io.crate.expression.symbol.Field;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.Reference;
+import io.crate.planner.ColumnStats;
+import io.crate.planner.TableStats;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Estimates the selectivity of filters and join conditions, which is the fraction of rows (or of the
+ * cross product of rows in case of a join) matching the condition.
+ *
+ * The estimations are based on the {@link ColumnStats} of the columns involved. If there are no column statistics
+ * default selectivities are used, similar to what other databases do.
+ */
+final class Selectivity {
+
+    static final double DEFAULT_EQ_SELECTIVITY = 0.005;
+    static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3.0;
+    static final double DEFAULT_IS_NULL_SELECTIVITY = 0.005;
+    static final double DEFAULT_SELECTIVITY = 0.25;
+
+    private Selectivity() {
+    }
+
+    /**
+     * Returns the estimated number of rows after applying a condition with the given selectivity
+     * or -1 if the number of input rows is unknown.
+     */
+    static long applyTo(long numRows, double selectivity) {
+        if (numRows < 0) {
+            return -1L;
+        }
+        return (long) Math.ceil(numRows * selectivity);
+    }
+
+    /**
+     * Estimates the selectivity of a filter on a single relation.
+     */
+    static double ofFilter(@Nullable Symbol query, TableStats tableStats) {
+        return estimate(query, tableStats, -1);
+    }
+
+    /**
+     * Estimates the selectivity of a join condition.
+     *
+     * An equi-join between two columns has a selectivity of {@code 1 / max(ndv(lhs), ndv(rhs))}.
+     * Without column statistics a join on a key of the bigger relation is assumed.
+     */
+    static double ofJoin(@Nullable Symbol joinCondition, TableStats tableStats, long lhsRows, long rhsRows) {
+        return estimate(joinCondition, tableStats, Math.max(lhsRows, rhsRows));
+    }
+
+    private static double estimate(@Nullable Symbol symbol, TableStats tableStats, double defaultDistinct) {
+        if (symbol == null) {
+            return 1.0;
+        }
+        if (symbol instanceof Literal) {
+            Object value = ((Literal) symbol).value();
+            return value instanceof Boolean && (Boolean) value ? 1.0 : 0.0;
+        }
+        if (!(symbol instanceof Function)) {
+            return DEFAULT_SELECTIVITY;
+        }
+        Function function = (Function) symbol;
+        List<Symbol> args = function.arguments();
+        switch (function.info().ident().name()) {
+            case AndOperator.NAME:
+                return estimate(args.get(0), tableStats, defaultDistinct)
+                       * estimate(args.get(1), tableStats, defaultDistinct);
+
+            case OrOperator.NAME:
+                double lhs = estimate(args.get(0), tableStats, defaultDistinct);
+                double rhs = estimate(args.get(1), tableStats, defaultDistinct);
+                return lhs + rhs - lhs * rhs;
+
+            case NotPredicate.NAME:
+                return 1.0 - estimate(args.get(0), tableStats, defaultDistinct);
+
+            case IsNullPredicate.NAME:
+                ColumnStats columnStats = columnStats(args.get(0), tableStats);
+                return columnStats == null ? DEFAULT_IS_NULL_SELECTIVITY : columnStats.nullFraction();
+
+            case EqOperator.NAME:
+                return eq(args.get(0), args.get(1), tableStats, defaultDistinct);
+
+            case LtOperator.NAME:
+            case LteOperator.NAME:
+                return range(args.get(0), args.get(1), true, tableStats);
+
+            case GtOperator.NAME:
+            case GteOperator.NAME:
+                return range(args.get(0), args.get(1), false, tableStats);
+
+            default:
+                return DEFAULT_SELECTIVITY;
+        }
+    }
+
+    private static double eq(Symbol left, Symbol right, TableStats tableStats, double defaultDistinct) {
+        if (right instanceof Literal) {
+            ColumnStats columnStats = columnStats(left, tableStats);
+            return columnStats == null
+                ? DEFAULT_EQ_SELECTIVITY
+                : columnStats.eqSelectivity(((Literal) right).value());
+        }
+        if (left instanceof Literal) {
+            return eq(right, left, tableStats, defaultDistinct);
+        }
+        ColumnStats leftStats = columnStats(left, tableStats);
+        ColumnStats rightStats = columnStats(right, tableStats);
+        double distinct = Math.max(
+            leftStats == null ? -1 : leftStats.approxDistinct(),
+            rightStats == null ? -1 : rightStats.approxDistinct());
+        if (distinct <= 0) {
+            distinct = defaultDistinct;
+        }
+        if (distinct <= 0) {
+            return DEFAULT_EQ_SELECTIVITY;
+        }
+        double nonNull = (leftStats == null ? 1.0 : 1.0 - leftStats.nullFraction())
+                         * (rightStats == null ? 1.0 : 1.0 - rightStats.nullFraction());
+        return nonNull / Math.max(distinct, 1.0);
+    }
+
+    private static double range(Symbol left, Symbol right, boolean lessThan, TableStats tableStats) {
+        if (left instanceof Literal && !(right instanceof Literal)) {
+            return range(right, left, !lessThan, tableStats);
+        }
+        if (right instanceof Literal) {
+            ColumnStats columnStats = columnStats(left, tableStats);
+            if (columnStats != null) {
+                double selectivity = columnStats.rangeSelectivity(((Literal) right).value(), lessThan);
+                if (selectivity >= 0.0) {
+                    return selectivity;
+                }
+            }
+        }
+        return DEFAULT_RANGE_SELECTIVITY;
+    }
+
+    /**
+     * Resolves the column statistics of a {@link Reference} or a {@link Field} pointing to a Reference.
+     */
+    @Nullable
+    private static ColumnStats columnStats(Symbol symbol, TableStats tableStats) {
+        while (symbol instanceof Field) {
+            Field field = (Field) symbol;
+            AnalyzedRelation relation = field.relation();
+            if (relation instanceof QueriedRelation) {
+                List<Symbol> outputs = ((QueriedRelation) relation).outputs();
+                if (field.index() >= outputs.size()) {
+                    return null;
+                }
+                symbol = outputs.get(field.index());
+            } else if (relation instanceof AbstractTableRelation) {
+                symbol = ((AbstractTableRelation) relation).resolveField(field);
+            } else {
+                return null;
+            }
+        }
+        if (symbol instanceof Reference) {
+            Reference ref = (Reference) symbol;
+            return tableStats.columnStats(ref.ident().tableIdent(), ref.column());
+        }
+        return null;
+    }
+}
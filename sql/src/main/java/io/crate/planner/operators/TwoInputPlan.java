@@ -48,6 +48,23 @@ abstract class TwoInputPlan extends LogicalPlanBase {
         this.expressionMapping.putAll(rhs.expressionMapping());
     }
 
+    /**
+     * The rows of a join are bound by the cross product of both sides, plus the unmatched rows of outer joins.
+     */
+    @Override
+    public long maxExpectedRows() {
+        long lhsRows = lhs.maxExpectedRows();
+        long rhsRows = rhs.maxExpectedRows();
+        if (lhsRows < 0 || rhsRows < 0) {
+            return -1L;
+        }
+        try {
+            return Math.addExact(Math.multiplyExact(lhsRows, rhsRows), Math.addExact(lhsRows, rhsRows));
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
     @Override
     public LogicalPlan tryOptimize(@Nullable LogicalPlan pushDown, SymbolMapper mapper) {
         if (pushDown != null) {
@@ -205,6 +205,16 @@ public class Union extends TwoInputPlan {
         return lhs.numExpectedRows() + rhs.numExpectedRows();
     }
 
+    @Override
+    public long maxExpectedRows() {
+        long lhsRows = lhs.maxExpectedRows();
+        long rhsRows = rhs.maxExpectedRows();
+        if (lhsRows < 0 || rhsRows < 0) {
+            return -1L;
+        }
+        return lhsRows + rhsRows;
+    }
+
     @Override
     public long estimatedRowSize() {
         return Math.max(lhs.estimatedRowSize(), rhs.estimatedRowSize());
@@ -22,6 +22,9 @@
 package io.crate.plugin;
 
 import io.crate.execution.ddl.DDLStatementDispatcher;
+import io.crate.action.sql.IndexWriteGenerations;
+import io.crate.action.sql.QueryResultCache;
+import io.crate.action.sql.StatementCache;
 import io.crate.action.sql.SQLOperations;
 import io.crate.execution.ddl.TransportSchemaUpdateAction;
 import io.crate.ingestion.IngestionService;
@@ -31,6 +34,7 @@ import io.crate.ingestion.TransportDropIngestRuleAction;
 import io.crate.expression.udf.TransportCreateUserDefinedFunctionAction;
 import io.crate.expression.udf.TransportDropUserDefinedFunctionAction;
 import io.crate.expression.udf.UserDefinedFunctionService;
+import io.crate.planner.ColumnStatsService;
 import io.crate.planner.Planner;
 import io.crate.planner.TableStats;
 import io.crate.planner.TableStatsService;
@@ -42,8 +46,17 @@ import org.elasticsearch.common.inject.AbstractModule;
 
 public class SQLModule extends AbstractModule {
 
+    private final IndexWriteGenerations indexWriteGenerations;
+
+    public SQLModule(IndexWriteGenerations indexWriteGenerations) {
+        this.indexWriteGenerations = indexWriteGenerations;
+    }
+
     @Override
     protected void configure() {
+        bind(IndexWriteGenerations.class).toInstance(indexWriteGenerations);
+        bind(QueryResultCache.class).asEagerSingleton();
+        bind(StatementCache.class).asEagerSingleton();
         bind(DDLStatementDispatcher.class).asEagerSingleton();
         bind(FulltextAnalyzerResolver.class).asEagerSingleton();
         bind(PostgresNetty.class).asEagerSingleton();
@@ -51,6 +64,7 @@ public class SQLModule extends AbstractModule {
         bind(Planner.class).asEagerSingleton();
         bind(TableStats.class).asEagerSingleton();
         bind(TableStatsService.class).asEagerSingleton();
+        bind(ColumnStatsService.class).asEagerSingleton();
         bind(UserDefinedFunctionService.class).asEagerSingleton();
         bind(TransportCreateUserDefinedFunctionAction.class).asEagerSingleton();
         bind(TransportDropUserDefinedFunctionAction.class).asEagerSingleton();
@@ -23,6 +23,9 @@ package io.crate.plugin;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import io.crate.action.sql.IndexWriteGenerations;
+import io.crate.action.sql.QueryResultCache;
+import io.crate.action.sql.StatementCache;
 import io.crate.action.sql.SQLOperations;
 import io.crate.analyze.repositories.RepositorySettingsModule;
 import io.crate.auth.AuthSettings;
@@ -33,6 +36,7 @@ import io.crate.execution.TransportExecutorModule;
 import io.crate.execution.engine.aggregation.impl.AggregationImplModule;
 import io.crate.execution.engine.collect.CollectOperationModule;
 import io.crate.execution.engine.collect.files.FileCollectModule;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.execution.jobs.JobContextService;
 import io.crate.execution.jobs.JobModule;
 import io.crate.execution.jobs.transport.NodeDisconnectJobMonitorService;
@@ -55,6 +59,7 @@ import io.crate.metadata.pgcatalog.PgCatalogModule;
 import io.crate.metadata.rule.ingest.IngestRulesMetaData;
 import io.crate.metadata.settings.AnalyzerSettings;
 import io.crate.metadata.settings.CrateSettings;
+import io.crate.metadata.stats.ColumnStatsMetaData;
 import io.crate.metadata.sys.MetaDataSysModule;
 import io.crate.metadata.view.ViewsMetaData;
 import io.crate.monitor.MonitorModule;
@@ -75,6 +80,7 @@ import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.mapper.ArrayMapper;
 import org.elasticsearch.index.mapper.ArrayTypeParser;
 import org.elasticsearch.index.mapper.Mapper;
@@ -99,6 +105,7 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
     private final Settings settings;
     private final UserExtension userExtension;
     private final IngestionModules ingestionModules;
+    private final IndexWriteGenerations indexWriteGenerations = new IndexWriteGenerations();
 
     @SuppressWarnings("WeakerAccess") // must be public for pluginLoader
     public SQLPlugin(Settings settings) {
@@ -133,6 +140,10 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
         List<Setting<?>> settings = new ArrayList<>();
         settings.add(AnalyzerSettings.CUSTOM_ANALYSIS_SETTING_GROUP);
         settings.add(SQLOperations.NODE_READ_ONLY_SETTING);
+        settings.add(SpillService.SPILL_THRESHOLD_SETTING);
+        settings.add(QueryResultCache.SIZE_SETTING);
+        settings.add(QueryResultCache.EXPIRE_AFTER_SETTING);
+        settings.add(StatementCache.SIZE_SETTING);
 
         // Postgres settings are node settings
         settings.add(PostgresNetty.PSQL_ENABLED_SETTING.setting());
@@ -186,7 +197,7 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
     @Override
     public Collection<Module> createGuiceModules() {
         Collection<Module> modules = newArrayList();
-        modules.add(new SQLModule());
+        modules.add(new SQLModule(indexWriteGenerations));
 
         modules.add(new CircuitBreakerModule());
         modules.add(new TransportExecutorModule());
@@ -221,6 +232,12 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
         return modules;
     }
 
+    @Override
+    public void onIndexModule(IndexModule indexModule) {
+        indexModule.addIndexOperationListener(indexWriteGenerations);
+        indexModule.addIndexEventListener(indexWriteGenerations);
+    }
+
     @Override
     public Map<String, Mapper.TypeParser> getMappers() {
         return Collections.singletonMap(ArrayMapper.CONTENT_TYPE, new ArrayTypeParser());
@@ -249,6 +266,11 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
             ViewsMetaData.TYPE,
             ViewsMetaData::new
         ));
+        entries.add(new NamedWriteableRegistry.Entry(
+            MetaData.Custom.class,
+            ColumnStatsMetaData.TYPE,
+            ColumnStatsMetaData::new
+        ));
         entries.add(new NamedWriteableRegistry.Entry(
             NamedDiff.class,
             UserDefinedFunctionsMetaData.TYPE,
@@ -264,6 +286,11 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
             ViewsMetaData.TYPE,
             in -> ViewsMetaData.readDiffFrom(MetaData.Custom.class, ViewsMetaData.TYPE, in)
         ));
+        entries.add(new NamedWriteableRegistry.Entry(
+            NamedDiff.class,
+            ColumnStatsMetaData.TYPE,
+            in -> ColumnStatsMetaData.readDiffFrom(MetaData.Custom.class, ColumnStatsMetaData.TYPE, in)
+        ));
         if (userExtension != null) {
             entries.addAll(userExtension.getNamedWriteables());
         }
@@ -288,6 +315,11 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
             new ParseField(ViewsMetaData.TYPE),
             ViewsMetaData::fromXContent
         ));
+        entries.add(new NamedXContentRegistry.Entry(
+            MetaData.Custom.class,
+            new ParseField(ColumnStatsMetaData.TYPE),
+            ColumnStatsMetaData::fromXContent
+        ));
         if (userExtension != null) {
             entries.addAll(userExtension.getNamedXContent());
         }
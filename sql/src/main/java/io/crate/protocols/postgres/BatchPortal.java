@@ -22,6 +22,7 @@
 
 package io.crate.protocols.postgres;
 
+import io.crate.action.sql.QueryResultCache;
 import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.RowConsumerToResultReceiver;
 import io.crate.action.sql.SessionContext;
@@ -46,6 +47,7 @@ import io.crate.planner.PlannerContext;
 import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 import org.elasticsearch.common.Randomness;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
@@ -176,7 +178,12 @@ class BatchPortal extends AbstractPortal {
                 .whenComplete(jobsLogsUpdateListener)
                 .whenComplete(completionCallback);
 
-            RowConsumer consumer = new RowConsumerToResultReceiver(resultReceiver, 0);
+            QueryResultCache queryResultCache = portalContext.getExecutor().queryResultCache();
+            if (queryResultCache != null) {
+                resultReceiver = queryResultCache.invalidatingReceiver(analyzedStatements.get(i), resultReceiver);
+            }
+            RowConsumer consumer = new RowConsumerToResultReceiver(
+                resultReceiver, 0, portalContext.getExecutor().threadPool().executor(ThreadPool.Names.SEARCH));
             plan.execute(
                 portalContext.getExecutor(),
                 plannerContext,
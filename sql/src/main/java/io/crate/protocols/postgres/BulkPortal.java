@@ -22,6 +22,7 @@
 
 package io.crate.protocols.postgres;
 
+import io.crate.action.sql.QueryResultCache;
 import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.Analysis;
@@ -187,7 +188,13 @@ class BulkPortal extends AbstractPortal {
         // expose a CompletionStage that completes when all the ResultReceivers are complete (not just finished)
         return allFutures
             .exceptionally(t -> null) // swallow exception - failures are set per item in emitResults
-            .thenAccept(ignored -> emitResults(jobId, jobsLogs, rowCounts))
+            .thenAccept(ignored -> {
+                QueryResultCache queryResultCache = executor.queryResultCache();
+                if (queryResultCache != null) {
+                    queryResultCache.invalidate(analyzedStatement);
+                }
+                emitResults(jobId, jobsLogs, rowCounts);
+            })
             .runAfterBoth(allResultReceivers, NO_OP_ACTION);
     }
 
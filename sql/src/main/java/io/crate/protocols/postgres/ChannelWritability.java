@@ -0,0 +1,92 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.protocols.postgres;
+
+import io.netty.channel.Channel;
+
+import javax.annotation.Nullable;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Notifies the result receivers of a connection once the channel becomes writable again,
+ * so that sending results can be paused while the client doesn't read them fast enough.
+ */
+final class ChannelWritability {
+
+    @Nullable
+    private CompletableFuture<Void> whenWritable;
+    private boolean closed = false;
+
+    /**
+     * @return a future which completes once the channel is writable or null if it's writable.
+     */
+    @Nullable
+    CompletableFuture<?> whenWritable(Channel channel) {
+        if (channel.isWritable()) {
+            return null;
+        }
+        synchronized (this) {
+            // re-check, a writability change might have happened in between
+            if (channel.isWritable()) {
+                return null;
+            }
+            if (whenWritable == null) {
+                whenWritable = new CompletableFuture<>();
+                if (closed) {
+                    whenWritable.completeExceptionally(new ClosedChannelException());
+                }
+            }
+            return whenWritable;
+        }
+    }
+
+    /**
+     * Must be called on writability changes of the channel.
+     */
+    void writabilityChanged(Channel channel) {
+        CompletableFuture<Void> future;
+        synchronized (this) {
+            if (whenWritable == null || channel.isWritable() == false) {
+                return;
+            }
+            future = whenWritable;
+            whenWritable = null;
+        }
+        future.complete(null);
+    }
+
+    /**
+     * Fails pending and future waits, must be called once the channel is closed.
+     */
+    void close() {
+        CompletableFuture<Void> future;
+        synchronized (this) {
+            closed = true;
+            future = whenWritable;
+            whenWritable = null;
+        }
+        if (future != null) {
+            future.completeExceptionally(new ClosedChannelException());
+        }
+    }
+}
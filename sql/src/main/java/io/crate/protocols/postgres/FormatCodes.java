@@ -26,6 +26,7 @@ package io.crate.protocols.postgres;
 import io.netty.buffer.ByteBuf;
 
 import javax.annotation.Nullable;
+import java.util.Locale;
 
 public class FormatCodes {
 
@@ -35,6 +36,7 @@ public class FormatCodes {
     }
 
     private static final FormatCode[] EMPTY_FORMAT_CODES = new FormatCode[0];
+    private static final FormatCode[] FORMAT_CODES = FormatCode.values();
 
     /**
      * Read format codes from a ByteBuf.
@@ -53,7 +55,12 @@ public class FormatCodes {
         }
         FormatCode[] formatCodes = new FormatCode[numFormatCodes];
         for (int i = 0; i < numFormatCodes; i++) {
-            formatCodes[i] = FormatCode.values()[buffer.readShort()];
+            short formatCode = buffer.readShort();
+            if (formatCode < 0 || formatCode >= FORMAT_CODES.length) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Unsupported format code '%d'", formatCode));
+            }
+            formatCodes[i] = FORMAT_CODES[formatCode];
         }
         return formatCodes;
     }
@@ -73,4 +80,22 @@ public class FormatCodes {
         }
         return formatCodes.length == 1 ? formatCodes[0] : formatCodes[idx];
     }
+
+    /**
+     * Resolve the formatCode of each column, so that it doesn't have to be looked up for every value of a result.
+     *
+     * @throws IllegalArgumentException if the number of formatCodes is neither 0, 1 nor the number of columns.
+     */
+    static FormatCode[] forColumns(@Nullable FormatCode[] formatCodes, int numColumns) {
+        if (formatCodes != null && formatCodes.length > 1 && formatCodes.length != numColumns) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "Number of result format codes (%d) must be 0, 1 or match the number of result columns (%d)",
+                formatCodes.length, numColumns));
+        }
+        FormatCode[] columnFormatCodes = new FormatCode[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            columnFormatCodes[i] = getFormatCode(formatCodes, i);
+        }
+        return columnFormatCodes;
+    }
 }
@@ -287,30 +287,48 @@ public class Messages {
      * The value of the column, in the format indicated by the associated format code. n is the above length.
      */
     static void sendDataRow(Channel channel, Row row, List<? extends DataType> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
-        int length = 4 + 2;
+        ByteBuf buffer = channel.alloc().buffer();
+        writeDataRow(buffer, row, columnTypes, formatCodes);
+        channel.write(buffer);
+    }
+
+    /**
+     * Appends a data row message (see {@link #sendDataRow(Channel, Row, List, FormatCodes.FormatCode[])})
+     * to the buffer, which allows to write multiple rows at once.
+     */
+    static void writeDataRow(ByteBuf buffer, Row row, List<? extends DataType> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
         assert columnTypes.size() == row.numColumns()
             : "Number of columns in the row must match number of columnTypes. Row: " + row + " types: " + columnTypes;
+        writeDataRow(buffer, row, pgTypes(columnTypes), FormatCodes.forColumns(formatCodes, columnTypes.size()));
+    }
 
-        ByteBuf buffer = channel.alloc().buffer();
+    /**
+     * Variant of {@link #writeDataRow(ByteBuf, Row, List, FormatCodes.FormatCode[])} for writing many rows of a
+     * result; the pgTypes and the formatCodes of the columns have to be resolved upfront, once per result.
+     */
+    static void writeDataRow(ByteBuf buffer, Row row, PGType[] pgTypes, FormatCodes.FormatCode[] columnFormatCodes) {
+        int length = 4 + 2;
+        assert pgTypes.length == row.numColumns()
+            : "Number of columns in the row must match number of pgTypes. Row: " + row;
+
+        int start = buffer.writerIndex();
         buffer.writeByte('D');
         buffer.writeInt(0); // will be set at the end
-        buffer.writeShort(row.numColumns());
+        buffer.writeShort(pgTypes.length);
 
-        for (int i = 0; i < row.numColumns(); i++) {
-            DataType dataType = columnTypes.get(i);
-            PGType pgType = PGTypes.get(dataType);
+        for (int i = 0; i < pgTypes.length; i++) {
             Object value = row.get(i);
             if (value == null) {
                 buffer.writeInt(-1);
                 length += 4;
             } else {
-                FormatCodes.FormatCode formatCode = FormatCodes.getFormatCode(formatCodes, i);
+                FormatCodes.FormatCode formatCode = columnFormatCodes[i];
                 switch (formatCode) {
                     case TEXT:
-                        length += pgType.writeAsText(buffer, value);
+                        length += pgTypes[i].writeAsText(buffer, value);
                         break;
                     case BINARY:
-                        length += pgType.writeAsBinary(buffer, value);
+                        length += pgTypes[i].writeAsBinary(buffer, value);
                         break;
 
                     default:
@@ -319,8 +337,15 @@ public class Messages {
             }
         }
 
-        buffer.setInt(1, length);
-        channel.write(buffer);
+        buffer.setInt(start + 1, length);
+    }
+
+    static PGType[] pgTypes(List<? extends DataType> columnTypes) {
+        PGType[] pgTypes = new PGType[columnTypes.size()];
+        for (int i = 0; i < pgTypes.length; i++) {
+            pgTypes[i] = PGTypes.get(columnTypes.get(i));
+        }
+        return pgTypes;
     }
 
     static void writeCString(ByteBuf buffer, byte[] valBytes) {
@@ -378,6 +403,7 @@ public class Messages {
      * See https://www.postgresql.org/docs/current/static/protocol-message-formats.html
      */
     static void sendRowDescription(Channel channel, Collection<Field> columns, @Nullable FormatCodes.FormatCode[] formatCodes) {
+        FormatCodes.FormatCode[] columnFormatCodes = FormatCodes.forColumns(formatCodes, columns.size());
         int length = 4 + 2;
         int columnSize = 4 + 2 + 4 + 2 + 4 + 2;
         ByteBuf buffer = channel.alloc().buffer(
@@ -401,7 +427,7 @@ public class Messages {
             buffer.writeInt(pgType.oid());
             buffer.writeShort(pgType.typeLen());
             buffer.writeInt(pgType.typeMod());
-            buffer.writeShort(FormatCodes.getFormatCode(formatCodes, idx).ordinal());
+            buffer.writeShort(columnFormatCodes[idx].ordinal());
 
             idx++;
         }
@@ -0,0 +1,180 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.action.sql.ResultReceiver;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Passes the results on to the delegate once the results of the previous execution of the same connection have been
+ * delivered. This allows to execute multiple portals concurrently while the client still receives the results in the
+ * order of the Execute messages.
+ * <p>
+ * Until the previous results are delivered the consumption of the rows is paused via {@link #backpressure()}, so no
+ * thread is blocked. Rows which are pushed regardless (e.g. if a cached result is replayed) are buffered.
+ * <p>
+ * If the previous execution failed the results are discarded, the same way postgres ignores all messages following
+ * an error until the next Sync.
+ */
+public class OrderedResultReceiver implements ResultReceiver {
+
+    private final ResultReceiver delegate;
+    private final CompletableFuture<?> previous;
+    private final CompletableFuture<Void> delivered = new CompletableFuture<>();
+    private final CompletableFuture<Object> completionFuture = new CompletableFuture<>();
+
+    @Nullable
+    private List<Object[]> bufferedRows;
+    private volatile boolean skipped = false;
+
+    public OrderedResultReceiver(ResultReceiver delegate, CompletableFuture<?> previous) {
+        this.delegate = delegate;
+        this.previous = previous;
+        previous.whenComplete((r, f) -> {
+            if (f != null) {
+                delivered.completeExceptionally(f);
+                completionFuture.completeExceptionally(f);
+            }
+        });
+        delegate.completionFuture().whenComplete((r, f) -> {
+            if (f == null) {
+                delivered.complete(null);
+                completionFuture.complete(r);
+            } else {
+                delivered.completeExceptionally(f);
+                completionFuture.completeExceptionally(f);
+            }
+        });
+    }
+
+    /**
+     * @return a future which is completed once the delegate received all results or a batch of them if the portal
+     *         got suspended. It's completed exceptionally if the execution failed or the results were discarded.
+     */
+    public CompletableFuture<?> delivered() {
+        return delivered;
+    }
+
+    /**
+     * Must be called if the receiver is replaced by another receiver before it received any results,
+     * so that the executions following it don't wait for it. A skipped receiver ignores all results.
+     */
+    public void skip() {
+        skipped = true;
+        previous.thenRun(() -> delivered.complete(null));
+    }
+
+    /**
+     * Discards the results without passing the failure on to the delegate.
+     * Used if the failure is reported to the client by other means, e.g. if the execution couldn't be started.
+     */
+    public void discard(Throwable t) {
+        skipped = true;
+        delivered.completeExceptionally(t);
+        completionFuture.completeExceptionally(t);
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        if (skipped) {
+            return;
+        }
+        if (previous.isDone() == false) {
+            if (bufferedRows == null) {
+                bufferedRows = new ArrayList<>();
+            }
+            bufferedRows.add(row.materialize());
+        } else if (previous.isCompletedExceptionally() == false) {
+            pushBufferedRows();
+            delegate.setNextRow(row);
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> backpressure() {
+        if (previous.isDone() == false || previous.isCompletedExceptionally()) {
+            return previous;
+        }
+        return delegate.backpressure();
+    }
+
+    @Override
+    public void batchFinished() {
+        afterPrevious(() -> {
+            pushBufferedRows();
+            delegate.batchFinished();
+            delivered.complete(null);
+        });
+    }
+
+    @Override
+    public void allFinished(boolean interrupted) {
+        afterPrevious(() -> {
+            pushBufferedRows();
+            delegate.allFinished(interrupted);
+        });
+    }
+
+    @Override
+    public void fail(@Nonnull Throwable t) {
+        afterPrevious(() -> {
+            pushBufferedRows();
+            delegate.fail(t);
+        });
+    }
+
+    @Override
+    public CompletableFuture<?> completionFuture() {
+        return completionFuture;
+    }
+
+    private void afterPrevious(Runnable action) {
+        if (skipped) {
+            return;
+        }
+        previous.thenRun(() -> {
+            try {
+                action.run();
+            } catch (Throwable t) {
+                delivered.completeExceptionally(t);
+                completionFuture.completeExceptionally(t);
+            }
+        });
+    }
+
+    private void pushBufferedRows() {
+        if (bufferedRows != null) {
+            for (Object[] cells : bufferedRows) {
+                delegate.setNextRow(new RowN(cells));
+            }
+            bufferedRows = null;
+        }
+    }
+}
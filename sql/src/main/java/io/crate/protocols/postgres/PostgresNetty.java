@@ -83,6 +83,7 @@ public class PostgresNetty extends AbstractLifecycleComponent {
     private final String port;
     private final Authentication authentication;
     private final SslContextProvider sslContextProvider;
+    private final ResultSetMetrics resultSetMetrics = new ResultSetMetrics();
     private final Logger namedLogger;
 
     private ServerBootstrap bootstrap;
@@ -116,6 +117,10 @@ public class PostgresNetty extends AbstractLifecycleComponent {
         return boundAddress;
     }
 
+    public ResultSetMetrics.Stats resultSetStats() {
+        return resultSetMetrics.stats();
+    }
+
     @Override
     protected void doStart() {
         if (!enabled) {
@@ -136,7 +141,7 @@ public class PostgresNetty extends AbstractLifecycleComponent {
             protected void initChannel(Channel ch) throws Exception {
                 ChannelPipeline pipeline = ch.pipeline();
                 PostgresWireProtocol postgresWireProtocol =
-                    new PostgresWireProtocol(sqlOperations, authentication, sslContext);
+                    new PostgresWireProtocol(sqlOperations, authentication, sslContext, resultSetMetrics);
                 pipeline.addLast("frame-decoder", postgresWireProtocol.decoder);
                 pipeline.addLast("handler", postgresWireProtocol.handler);
             }
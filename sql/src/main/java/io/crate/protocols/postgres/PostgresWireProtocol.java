@@ -184,6 +184,8 @@ class PostgresWireProtocol {
     private final SQLOperations sqlOperations;
     private final Authentication authService;
     private final SslReqHandler sslReqHandler;
+    private final ResultSetMetrics resultSetMetrics;
+    private final ChannelWritability writability = new ChannelWritability();
 
     private int msgLength;
     private byte msgType;
@@ -202,9 +204,18 @@ class PostgresWireProtocol {
 
     private State state = PRE_STARTUP;
 
+    @VisibleForTesting
     PostgresWireProtocol(SQLOperations sqlOperations, Authentication authService, @Nullable SslContext sslContext) {
+        this(sqlOperations, authService, sslContext, new ResultSetMetrics());
+    }
+
+    PostgresWireProtocol(SQLOperations sqlOperations,
+                         Authentication authService,
+                         @Nullable SslContext sslContext,
+                         ResultSetMetrics resultSetMetrics) {
         this.sqlOperations = sqlOperations;
         this.authService = authService;
+        this.resultSetMetrics = resultSetMetrics;
         this.sslReqHandler = new SslReqHandler(sslContext);
         this.decoder = new MessageDecoder();
         this.handler = new MessageHandler();
@@ -282,14 +293,22 @@ class PostgresWireProtocol {
                 dispatchState(buffer, channel);
             } catch (Throwable t) {
                 ignoreTillSync = true;
-                try {
-                    Messages.sendErrorResponse(channel, t);
-                } catch (Throwable ti) {
-                    LOGGER.error("Error trying to send error to client: {}", t, ti);
+                if (session == null) {
+                    sendErrorResponse(channel, t);
+                } else {
+                    session.afterPendingResults(() -> sendErrorResponse(channel, t));
                 }
             }
         }
 
+        private void sendErrorResponse(Channel channel, Throwable t) {
+            try {
+                Messages.sendErrorResponse(channel, t);
+            } catch (Throwable ti) {
+                LOGGER.error("Error trying to send error to client: {}", t, ti);
+            }
+        }
+
         private void dispatchState(ByteBuf buffer, Channel channel) {
             switch (state) {
                 case STARTUP_HEADER:
@@ -366,9 +385,16 @@ class PostgresWireProtocol {
             LOGGER.error("Uncaught exception: ", cause);
         }
 
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            writability.writabilityChanged(ctx.channel());
+            super.channelWritabilityChanged(ctx);
+        }
+
         @Override
         public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
             LOGGER.trace("channelDisconnected");
+            writability.close();
             closeSession();
             super.channelUnregistered(ctx);
         }
@@ -426,6 +452,7 @@ class PostgresWireProtocol {
         Messages.sendParameterStatus(channel, "server_encoding", "UTF8");
         Messages.sendParameterStatus(channel, "client_encoding", "UTF8");
         Messages.sendParameterStatus(channel, "datestyle", "ISO");
+        Messages.sendParameterStatus(channel, "integer_datetimes", "on");
         Messages.sendReadyForQuery(channel);
     }
 
@@ -448,7 +475,7 @@ class PostgresWireProtocol {
         try {
             session.sync();
         } catch (Throwable t) {
-            Messages.sendErrorResponse(channel, t);
+            session.afterPendingResults(() -> Messages.sendErrorResponse(channel, t));
         }
     }
 
@@ -477,7 +504,7 @@ class PostgresWireProtocol {
             paramTypes.add(dataType);
         }
         session.parse(statementName, query, paramTypes);
-        Messages.sendParseComplete(channel);
+        session.afterPendingResults(() -> Messages.sendParseComplete(channel));
     }
 
     private void handlePassword(ByteBuf buffer, final Channel channel) {
@@ -544,7 +571,7 @@ class PostgresWireProtocol {
 
         FormatCodes.FormatCode[] resultFormatCodes = FormatCodes.fromBuffer(buffer);
         session.bind(portalName, statementName, params, resultFormatCodes);
-        Messages.sendBindComplete(channel);
+        session.afterPendingResults(() -> Messages.sendBindComplete(channel));
     }
 
     private <T> List<T> createList(short size) {
@@ -567,14 +594,17 @@ class PostgresWireProtocol {
         Session.DescribeResult describeResult = session.describe((char) type, portalOrStatement);
         Collection<Field> fields = describeResult.getFields();
         DataType[] parameterTypes = describeResult.getParameters();
-        if (parameterTypes != null) {
-            Messages.sendParameterDescription(channel, parameterTypes);
-        }
-        if (fields == null) {
-            Messages.sendNoData(channel);
-        } else {
-            Messages.sendRowDescription(channel, fields, session.getResultFormatCodes(portalOrStatement));
-        }
+        FormatCodes.FormatCode[] resultFormatCodes = fields == null ? null : session.getResultFormatCodes(portalOrStatement);
+        session.afterPendingResults(() -> {
+            if (parameterTypes != null) {
+                Messages.sendParameterDescription(channel, parameterTypes);
+            }
+            if (fields == null) {
+                Messages.sendNoData(channel);
+            } else {
+                Messages.sendRowDescription(channel, fields, resultFormatCodes);
+            }
+        });
     }
 
     /**
@@ -593,7 +623,7 @@ class PostgresWireProtocol {
         if (query.isEmpty()) {
             // remove portal so that it doesn't stick around and no attempt to batch it with follow up statement is made
             session.close((byte) 'P', portalName);
-            Messages.sendEmptyQueryResponse(channel);
+            session.afterPendingResults(() -> Messages.sendEmptyQueryResponse(channel));
             return;
         }
         List<? extends DataType> outputTypes = session.getOutputTypes(portalName);
@@ -604,26 +634,27 @@ class PostgresWireProtocol {
             resultReceiver = new RowCountReceiver(query, channel, session.sessionContext());
         } else {
             // query with resultSet
-            resultReceiver = new ResultSetReceiver(query, channel, session.sessionContext(), outputTypes,
-                session.getResultFormatCodes(portalName));
+            resultReceiver = new ResultSetReceiver(query, channel, writability, resultSetMetrics,
+                session.sessionContext(), outputTypes, session.getResultFormatCodes(portalName));
         }
         session.execute(portalName, maxRows, resultReceiver);
     }
 
+    /**
+     * Triggers the pending executions. The results of the executions and the responses to the messages received
+     * since the last sync are sent in order, see {@link Session#afterPendingResults(Runnable)}, followed by ReadyForQuery.
+     */
     private void handleSync(final Channel channel) {
         if (ignoreTillSync) {
             ignoreTillSync = false;
             session.clearState();
-            Messages.sendReadyForQuery(channel);
-            return;
         }
         try {
-            ReadyForQueryCallback readyForQueryCallback = new ReadyForQueryCallback(channel);
-            session.sync().whenComplete(readyForQueryCallback);
+            session.sync();
         } catch (Throwable t) {
-            Messages.sendErrorResponse(channel, t);
-            Messages.sendReadyForQuery(channel);
+            session.afterPendingResults(() -> Messages.sendErrorResponse(channel, t));
         }
+        session.afterPendingResults(() -> Messages.sendReadyForQuery(channel));
     }
 
     /**
@@ -633,7 +664,7 @@ class PostgresWireProtocol {
         byte b = buffer.readByte();
         String portalOrStatementName = readCString(buffer);
         session.close(b, portalOrStatementName);
-        Messages.sendCloseComplete(channel);
+        session.afterPendingResults(() -> Messages.sendCloseComplete(channel));
     }
 
     @VisibleForTesting
@@ -659,6 +690,8 @@ class PostgresWireProtocol {
                 ResultSetReceiver resultSetReceiver = new ResultSetReceiver(
                     query,
                     channel,
+                    writability,
+                    resultSetMetrics,
                     session.sessionContext(),
                     Lists2.copyAndReplace(fields, Field::valueType),
                     null
@@ -0,0 +1,121 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.protocols.postgres;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics about the result sets which are sent to PostgreSQL clients by the node.
+ */
+public class ResultSetMetrics {
+
+    private final LongAdder results = new LongAdder();
+    private final LongAdder timeToFirstRowNanos = new LongAdder();
+    private final LongAdder pauses = new LongAdder();
+    private final LongAccumulator maxPendingBytes = new LongAccumulator(Math::max, 0L);
+
+    void onFirstRow(long tookNanos) {
+        results.increment();
+        timeToFirstRowNanos.add(tookNanos);
+    }
+
+    void onPause() {
+        pauses.increment();
+    }
+
+    void onPendingBytes(long bytes) {
+        maxPendingBytes.accumulate(bytes);
+    }
+
+    public Stats stats() {
+        long numResults = results.sum();
+        double avgTimeToFirstRow = numResults == 0
+            ? 0.0
+            : timeToFirstRowNanos.sum() / (double) numResults / TimeUnit.MILLISECONDS.toNanos(1);
+        return new Stats(numResults, avgTimeToFirstRow, pauses.sum(), maxPendingBytes.get());
+    }
+
+    public static class Stats implements Writeable {
+
+        private final long results;
+        private final double avgTimeToFirstRow;
+        private final long pauses;
+        private final long maxPendingBytes;
+
+        public Stats(long results, double avgTimeToFirstRow, long pauses, long maxPendingBytes) {
+            this.results = results;
+            this.avgTimeToFirstRow = avgTimeToFirstRow;
+            this.pauses = pauses;
+            this.maxPendingBytes = maxPendingBytes;
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            results = in.readVLong();
+            avgTimeToFirstRow = in.readDouble();
+            pauses = in.readVLong();
+            maxPendingBytes = in.readVLong();
+        }
+
+        /**
+         * Number of result sets with at least one row.
+         */
+        public long results() {
+            return results;
+        }
+
+        /**
+         * Average time in milliseconds from the execution request until the first row is sent.
+         */
+        public double avgTimeToFirstRow() {
+            return avgTimeToFirstRow;
+        }
+
+        /**
+         * Number of times sending results was paused because a client didn't read them fast enough.
+         */
+        public long pauses() {
+            return pauses;
+        }
+
+        /**
+         * Maximum number of bytes which were waiting to be sent to a single client.
+         */
+        public long maxPendingBytes() {
+            return maxPendingBytes;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(results);
+            out.writeDouble(avgTimeToFirstRow);
+            out.writeVLong(pauses);
+            out.writeVLong(maxPendingBytes);
+        }
+    }
+}
@@ -26,61 +26,139 @@ import io.crate.action.sql.BaseResultReceiver;
 import io.crate.data.Row;
 import io.crate.exceptions.SQLExceptions;
 import io.crate.auth.user.ExceptionAuthorizedValidator;
+import io.crate.protocols.postgres.types.PGType;
 import io.crate.types.DataType;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Sends the rows of a result set as data row messages.
+ *
+ * The rows are encoded into a shared buffer which is written and flushed once it exceeds {@link #FLUSH_THRESHOLD},
+ * instead of writing every row separately. If the channel isn't writable because the client doesn't read the results
+ * fast enough, the consumption of the rows is paused until the channel becomes writable again.
+ */
 class ResultSetReceiver extends BaseResultReceiver {
 
+    static final int FLUSH_THRESHOLD = 32 * 1024;
+
     private final String query;
     private final Channel channel;
+    private final ChannelWritability writability;
+    private final ResultSetMetrics metrics;
     private final ExceptionAuthorizedValidator exceptionAuthorizedValidator;
-    private final List<? extends DataType> columnTypes;
-
-    @Nullable
+    private final PGType[] columnTypes;
     private final FormatCodes.FormatCode[] formatCodes;
+    private final long startTime;
 
     private long rowCount = 0;
 
+    @Nullable
+    private ByteBuf buffer;
+
     ResultSetReceiver(String query,
                       Channel channel,
+                      ChannelWritability writability,
+                      ResultSetMetrics metrics,
                       ExceptionAuthorizedValidator exceptionAuthorizedValidator,
                       List<? extends DataType> columnTypes,
                       @Nullable FormatCodes.FormatCode[] formatCodes) {
         this.query = query;
         this.channel = channel;
+        this.writability = writability;
+        this.metrics = metrics;
         this.exceptionAuthorizedValidator = exceptionAuthorizedValidator;
-        this.columnTypes = columnTypes;
-        this.formatCodes = formatCodes;
+        this.columnTypes = Messages.pgTypes(columnTypes);
+        this.formatCodes = FormatCodes.forColumns(formatCodes, columnTypes.size());
+        this.startTime = System.nanoTime();
     }
 
     @Override
     public void setNextRow(Row row) {
+        if (rowCount == 0) {
+            metrics.onFirstRow(System.nanoTime() - startTime);
+        }
         rowCount++;
-        Messages.sendDataRow(channel, row, columnTypes, formatCodes);
+        if (buffer == null) {
+            buffer = channel.alloc().ioBuffer();
+        }
+        int writerIndex = buffer.writerIndex();
+        try {
+            Messages.writeDataRow(buffer, row, columnTypes, formatCodes);
+        } catch (Throwable t) {
+            // discard the incomplete message
+            buffer.writerIndex(writerIndex);
+            throw t;
+        }
+        if (buffer.readableBytes() >= FLUSH_THRESHOLD) {
+            writeBufferedRows();
+            channel.flush();
+            metrics.onPendingBytes(pendingWriteBytes(channel));
+        }
+    }
+
+    /**
+     * Derives the number of bytes waiting to be written from the writability of the channel and its water marks.
+     * Unlike the outbound buffer, these can be accessed safely from threads other than the event loop.
+     */
+    private static long pendingWriteBytes(Channel channel) {
+        ChannelConfig config = channel.config();
+        if (channel.isWritable()) {
+            return Math.max(0L, config.getWriteBufferHighWaterMark() - channel.bytesBeforeUnwritable());
+        }
+        return config.getWriteBufferLowWaterMark() + channel.bytesBeforeWritable();
+    }
+
+    @Override
+    public CompletableFuture<?> backpressure() {
+        CompletableFuture<?> whenWritable = writability.whenWritable(channel);
+        if (whenWritable != null) {
+            metrics.onPause();
+        }
+        return whenWritable;
     }
 
     @Override
     public void batchFinished() {
+        writeBufferedRows();
         Messages.sendPortalSuspended(channel);
-        Messages.sendReadyForQuery(channel);
     }
 
     @Override
     public void allFinished(boolean interrupted) {
         if (interrupted) {
+            releaseBufferedRows();
             super.allFinished(true);
         } else {
+            writeBufferedRows();
             Messages.sendCommandComplete(channel, query, rowCount).addListener(f -> super.allFinished(false));
         }
     }
 
     @Override
     public void fail(@Nonnull Throwable throwable) {
+        writeBufferedRows();
         Messages.sendErrorResponse(channel, SQLExceptions.createSQLActionException(throwable, exceptionAuthorizedValidator))
             .addListener(f -> super.fail(throwable));
     }
+
+    private void writeBufferedRows() {
+        if (buffer != null) {
+            channel.write(buffer);
+            buffer = null;
+        }
+    }
+
+    private void releaseBufferedRows() {
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+    }
 }
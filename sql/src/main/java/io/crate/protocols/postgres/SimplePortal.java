@@ -22,6 +22,7 @@
 
 package io.crate.protocols.postgres;
 
+import io.crate.action.sql.QueryResultCache;
 import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.RowConsumerToResultReceiver;
 import io.crate.action.sql.SessionContext;
@@ -49,6 +50,7 @@ import org.apache.logging.log4j.Logger;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.common.Randomness;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
 import java.util.Collections;
@@ -169,6 +171,10 @@ public class SimplePortal extends AbstractPortal {
     @Override
     public void execute(ResultReceiver resultReceiver, int maxRows) {
         validateReadOnly(analyzedStatement);
+        if (this.resultReceiver instanceof OrderedResultReceiver && synced == false) {
+            // executed again before sync, the previous receiver won't receive any results
+            ((OrderedResultReceiver) this.resultReceiver).skip();
+        }
         this.resultReceiver = resultReceiver;
         this.maxRows = maxRows;
     }
@@ -179,6 +185,22 @@ public class SimplePortal extends AbstractPortal {
         UUID jobId = UUID.randomUUID();
         RoutingProvider routingProvider = new RoutingProvider(Randomness.get().nextInt(), planner.getAwarenessAttributes());
         ClusterState clusterState = planner.currentClusterState();
+
+        DependencyCarrier dependencyCarrier = portalContext.getExecutor();
+        QueryResultCache queryResultCache = dependencyCarrier.queryResultCache();
+        if (queryResultCache != null && maxRows == 0 && consumer == null) {
+            QueryResultCache.Key cacheKey = queryResultCache.key(statement, analyzedStatement, params, sessionContext, clusterState);
+            if (cacheKey != null) {
+                List<Object[]> cachedRows = queryResultCache.get(cacheKey);
+                if (cachedRows != null) {
+                    return syncFromCache(jobId, cachedRows, jobsLogs);
+                }
+                resultReceiver = queryResultCache.cachingReceiver(cacheKey, outputTypes, resultReceiver);
+            }
+        }
+        if (queryResultCache != null) {
+            resultReceiver = queryResultCache.invalidatingReceiver(analyzedStatement, resultReceiver);
+        }
         PlannerContext plannerContext = new PlannerContext(
             clusterState,
             routingProvider,
@@ -196,7 +218,6 @@ public class SimplePortal extends AbstractPortal {
             throw t;
         }
 
-        DependencyCarrier dependencyCarrier = portalContext.getExecutor();
         if (!analyzedStatement.isWriteOperation()) {
             resultReceiver = new RetryOnFailureResultReceiver(
                 dependencyCarrier.clusterService(),
@@ -216,7 +237,8 @@ public class SimplePortal extends AbstractPortal {
         CompletableFuture completableFuture = resultReceiver.completionFuture().whenComplete(jobsLogsUpdateListener);
 
         if (!resumeIfSuspended()) {
-            consumer = new RowConsumerToResultReceiver(resultReceiver, maxRows);
+            consumer = new RowConsumerToResultReceiver(
+                resultReceiver, maxRows, dependencyCarrier.threadPool().executor(ThreadPool.Names.SEARCH));
             plan.execute(
                 dependencyCarrier,
                 plannerContext,
@@ -229,6 +251,15 @@ public class SimplePortal extends AbstractPortal {
         return completableFuture;
     }
 
+    private CompletableFuture<?> syncFromCache(UUID jobId, List<Object[]> cachedRows, JobsLogs jobsLogs) {
+        jobsLogs.logExecutionStart(jobId, query, sessionContext.user());
+        CompletableFuture completableFuture = resultReceiver.completionFuture()
+            .whenComplete(new JobsLogsUpdateListener(jobId, jobsLogs));
+        QueryResultCache.replay(cachedRows, resultReceiver);
+        synced = true;
+        return completableFuture;
+    }
+
     private void retryQuery(Planner planner, UUID jobId) {
         Analysis analysis = portalContext
             .getAnalyzer()
@@ -58,26 +58,34 @@ class PGArray extends PGType {
 
     @Override
     public int writeAsBinary(ByteBuf buffer, @Nonnull Object value) {
+        int bytesWritten = 4 + 4 + 4;
+        final int lenIndex = buffer.writerIndex();
+        buffer.writeInt(0);
+        if (((Object[]) value).length == 0) {
+            // postgres represents empty arrays as arrays without dimensions
+            buffer.writeInt(0);
+            buffer.writeInt(0);
+            buffer.writeInt(typElem());
+            buffer.setInt(lenIndex, bytesWritten);
+            return INT32_BYTE_SIZE + bytesWritten;
+        }
         int dimensions = getDimensions(value);
 
         List<Integer> dimensionsList = new ArrayList<>();
         buildDimensions((Object[]) value, dimensionsList, dimensions, 1);
 
-        int bytesWritten = 4 + 4 + 4;
-        final int lenIndex = buffer.writerIndex();
-        buffer.writeInt(0);
         buffer.writeInt(dimensions);
         buffer.writeInt(1); // flags bit 0: 0=no-nulls, 1=has-nulls
         buffer.writeInt(typElem());
 
         for (Integer dim : dimensionsList) {
-            buffer.writeInt(dim); // upper bound
-            buffer.writeInt(dim); // lower bound
+            buffer.writeInt(dim); // number of elements
+            buffer.writeInt(1); // lower bound, arrays are 1-based in postgres
             bytesWritten += 8;
         }
         int len = bytesWritten + writeArrayAsBinary(buffer, (Object[]) value, dimensionsList, 1);
         buffer.setInt(lenIndex, len);
-        return len;
+        return INT32_BYTE_SIZE + len;
     }
 
     private int getDimensions(@Nonnull Object value) {
@@ -114,6 +122,9 @@ class PGArray extends PGType {
             dims[d] = buffer.readInt();
             buffer.readInt(); // lowerBound ignored
         }
+        if (dims[0] == 0) {
+            return new Object[0];
+        }
 
         Object[] array = new Object[dims[0]];
 
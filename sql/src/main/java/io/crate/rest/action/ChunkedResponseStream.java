@@ -0,0 +1,165 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.rest.action;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import javax.annotation.Nullable;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Output stream for the body of a HTTP response which is written to the netty channel in chunks
+ * (chunked transfer encoding) once the buffered content exceeds {@link #CHUNK_SIZE}.
+ *
+ * Responses which are smaller than a chunk are never sent by this class; their content is taken using
+ * {@link #bufferedContent()} and sent as regular response, so that errors can still change the response status.
+ * Once the first chunk has been written the response status is fixed; a failure after that point closes the
+ * connection without writing the last chunk, which lets clients detect the incomplete response.
+ *
+ * Streamed responses always close the connection after the last chunk as they bypass the HTTP pipelining of the
+ * {@link org.elasticsearch.rest.RestChannel}.
+ */
+class ChunkedResponseStream extends OutputStream {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Channel channel;
+    private final String contentType;
+    private ByteBuf buffer;
+    private boolean started = false;
+    @Nullable
+    private ChannelFuture lastWrite;
+
+    ChunkedResponseStream(Channel channel, String contentType) {
+        this.channel = channel;
+        this.contentType = contentType;
+        this.buffer = channel.alloc().buffer(CHUNK_SIZE);
+    }
+
+    @Override
+    public void write(int b) {
+        buffer.writeByte(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        buffer.writeBytes(b, off, len);
+    }
+
+    boolean started() {
+        return started;
+    }
+
+    /**
+     * Writes the buffered content as chunk if it exceeds the chunk size.
+     *
+     * @return true if a chunk has been written.
+     */
+    boolean maybeWriteChunk() {
+        if (buffer.readableBytes() < CHUNK_SIZE) {
+            return false;
+        }
+        if (started == false) {
+            HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+            response.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+            channel.write(response);
+            started = true;
+        }
+        lastWrite = channel.writeAndFlush(new DefaultHttpContent(buffer));
+        buffer = channel.alloc().buffer(CHUNK_SIZE);
+        return true;
+    }
+
+    /**
+     * @return a future which completes once the last chunk has been written if the channel isn't writable,
+     *         otherwise null.
+     */
+    @Nullable
+    CompletableFuture<?> backpressure() {
+        ChannelFuture writeFuture = lastWrite;
+        if (writeFuture == null || channel.isWritable() || writeFuture.isDone()) {
+            return null;
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        writeFuture.addListener(f -> {
+            if (f.isSuccess()) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(f.cause());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Writes the remaining content as last chunk and closes the connection. Must only be used if {@link #started()}.
+     */
+    void finish() {
+        assert started : "finish must only be called if the response has been started";
+        channel.writeAndFlush(new DefaultLastHttpContent(buffer)).addListener(ChannelFutureListener.CLOSE);
+        buffer = null;
+    }
+
+    /**
+     * Returns the content of a response which hasn't been started and releases the buffer.
+     */
+    BytesReference bufferedContent() {
+        assert started == false : "bufferedContent must not be called if the response has been started";
+        BytesReference content = new BytesArray(ByteBufUtil.getBytes(buffer));
+        release();
+        return content;
+    }
+
+    /**
+     * Releases the buffer and closes the connection if the response has been started.
+     */
+    void abort() {
+        release();
+        if (started) {
+            channel.close();
+        }
+    }
+
+    private void release() {
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+    }
+}
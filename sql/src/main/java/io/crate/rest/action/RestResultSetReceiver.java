@@ -27,19 +27,29 @@ import io.crate.expression.symbol.Field;
 import io.crate.breaker.RowAccounting;
 import io.crate.data.Row;
 import io.crate.auth.user.ExceptionAuthorizedValidator;
+import io.netty.channel.Channel;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.rest.BytesRestResponse;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestStatus;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static io.crate.exceptions.SQLExceptions.createSQLActionException;
 
+/**
+ * Writes the result rows into the response.
+ *
+ * If the netty channel of the request is available, the response is streamed using a {@link ChunkedResponseStream}
+ * once it exceeds the chunk size, so that large results are not buffered as a whole.
+ */
 class RestResultSetReceiver extends BaseResultReceiver {
 
     private static final Logger LOGGER = Loggers.getLogger(RestResultSetReceiver.class);
@@ -48,11 +58,14 @@ class RestResultSetReceiver extends BaseResultReceiver {
     private final ExceptionAuthorizedValidator exceptionAuthorizedValidator;
     private final List<Field> outputFields;
     private final ResultToXContentBuilder builder;
+    @Nullable
+    private final ChunkedResponseStream responseStream;
     private long startTime;
     private final RowAccounting rowAccounting;
     private long rowCount;
 
     RestResultSetReceiver(RestChannel channel,
+                          @Nullable Channel nettyChannel,
                           ExceptionAuthorizedValidator exceptionAuthorizedValidator,
                           List<Field> outputFields,
                           long startTime,
@@ -64,8 +77,19 @@ class RestResultSetReceiver extends BaseResultReceiver {
         this.startTime = startTime;
         this.rowAccounting = rowAccounting;
         ResultToXContentBuilder tmpBuilder;
+        ChunkedResponseStream tmpStream = null;
         try {
-            tmpBuilder = ResultToXContentBuilder.builder(channel);
+            XContentBuilder xContentBuilder = channel.newBuilder();
+            if (nettyChannel != null) {
+                XContentType contentType = xContentBuilder.contentType();
+                tmpStream = new ChunkedResponseStream(nettyChannel, contentType.mediaType());
+                boolean prettyPrint = xContentBuilder.isPrettyPrint();
+                xContentBuilder = new XContentBuilder(contentType.xContent(), tmpStream);
+                if (prettyPrint) {
+                    xContentBuilder.prettyPrint();
+                }
+            }
+            tmpBuilder = ResultToXContentBuilder.builder(xContentBuilder);
             tmpBuilder.cols(outputFields);
             if (includeTypesOnResponse) {
                 tmpBuilder.colTypes(outputFields);
@@ -77,6 +101,7 @@ class RestResultSetReceiver extends BaseResultReceiver {
         }
         assert tmpBuilder != null : "tmpBuilder must not be null";
         builder = tmpBuilder;
+        responseStream = tmpStream;
     }
 
     @Override
@@ -85,16 +110,38 @@ class RestResultSetReceiver extends BaseResultReceiver {
             rowAccounting.accountForAndMaybeBreak(row);
             builder.addRow(row, outputFields.size());
             rowCount++;
+            if (responseStream != null && responseStream.maybeWriteChunk()) {
+                // the rows of the chunk are not held in memory anymore
+                rowAccounting.release();
+            }
         } catch (IOException e) {
             fail(e);
         }
     }
 
+    @Override
+    public CompletableFuture<?> backpressure() {
+        return responseStream == null ? null : responseStream.backpressure();
+    }
+
     @Override
     public void allFinished(boolean interrupted) {
         BytesRestResponse response;
         try {
-            response = new BytesRestResponse(RestStatus.OK, finishBuilder());
+            XContentBuilder finishedBuilder = finishBuilder();
+            if (responseStream == null) {
+                response = new BytesRestResponse(RestStatus.OK, finishedBuilder);
+            } else {
+                finishedBuilder.close();
+                if (responseStream.started()) {
+                    responseStream.finish();
+                    rowAccounting.close();
+                    super.allFinished(interrupted);
+                    return;
+                }
+                response = new BytesRestResponse(
+                    RestStatus.OK, finishedBuilder.contentType().mediaType(), responseStream.bufferedContent());
+            }
         } catch (Throwable t) {
             fail(t);
             return;
@@ -113,6 +160,16 @@ class RestResultSetReceiver extends BaseResultReceiver {
 
     @Override
     public void fail(@Nonnull Throwable t) {
+        if (responseStream != null) {
+            boolean started = responseStream.started();
+            responseStream.abort();
+            if (started) {
+                LOGGER.error("Failed to stream the response, closed the connection.", t);
+                rowAccounting.close();
+                super.fail(t);
+                return;
+            }
+        }
         try {
             channel.sendResponse(new CrateThrowableRestResponse(channel,
                 createSQLActionException(t, exceptionAuthorizedValidator)));
@@ -45,6 +45,7 @@ import io.crate.exceptions.SQLParseException;
 import io.crate.expression.symbol.Field;
 import io.crate.expression.symbol.Symbols;
 import io.crate.rest.CrateRestMainAction;
+import io.netty.channel.Channel;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.common.breaker.CircuitBreaker;
@@ -53,6 +54,7 @@ import org.elasticsearch.common.inject.Provider;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.http.netty4.Netty4HttpRequest;
 import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.BytesRestResponse;
 import org.elasticsearch.rest.RestChannel;
@@ -60,6 +62,7 @@ import org.elasticsearch.rest.RestController;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -167,6 +170,17 @@ public class RestSQLAction extends BaseRestHandler {
         return userManager.findUser(username);
     }
 
+    /**
+     * @return the netty channel of the request, used to stream large results, or null if it isn't available.
+     */
+    @Nullable
+    private static Channel nettyChannel(RestRequest request) {
+        if (request instanceof Netty4HttpRequest) {
+            return ((Netty4HttpRequest) request).getChannel();
+        }
+        return null;
+    }
+
     private RestChannelConsumer executeSimpleRequest(SQLXContentSourceContext context, final RestRequest request) {
         Session session = sqlOperations.createSession(
             request.header(REQUEST_HEADER_SCHEMA),
@@ -198,6 +212,7 @@ public class RestSQLAction extends BaseRestHandler {
                 try {
                     ResultReceiver resultReceiver = new RestResultSetReceiver(
                         channel,
+                        nettyChannel(request),
                         sessionContext,
                         outputFields,
                         startTime,
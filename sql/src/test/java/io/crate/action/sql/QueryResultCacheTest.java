@@ -0,0 +1,242 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.data.Row;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class QueryResultCacheTest extends CrateDummyClusterServiceUnitTest {
+
+    private SQLExecutor e;
+    private IndexWriteGenerations writeGenerations;
+    private QueryResultCache cache;
+
+    @Before
+    public void prepare() {
+        e = SQLExecutor.builder(clusterService).enableDefaultTables().build();
+        writeGenerations = new IndexWriteGenerations();
+        cache = newCache(Settings.builder()
+            .put(QueryResultCache.SIZE_SETTING.getKey(), "1kb")
+            .put(QueryResultCache.EXPIRE_AFTER_SETTING.getKey(), "1h")
+            .build());
+    }
+
+    private QueryResultCache newCache(Settings settings) {
+        return new QueryResultCache(settings, new NoopCircuitBreaker("query"), writeGenerations);
+    }
+
+    private QueryResultCache.Key key(String stmt) {
+        return key(stmt, clusterService.state());
+    }
+
+    private QueryResultCache.Key key(String stmt, ClusterState clusterState) {
+        Statement statement = SqlParser.createStatement(stmt);
+        AnalyzedStatement analyzedStatement = e.analyze(stmt);
+        return cache.key(statement, analyzedStatement, Collections.emptyList(), e.getSessionContext(), clusterState);
+    }
+
+    @Test
+    public void testCachedRowsAreReturnedForEqualStatement() {
+        QueryResultCache.Key key = key("select name from users where id = 1");
+        assertThat(key, notNullValue());
+        assertThat(cache.get(key), nullValue());
+
+        List<Object[]> rows = Collections.singletonList(new Object[] { "Arthur" });
+        cache.put(key, rows, 100L);
+        assertThat(cache.get(key("select name from users where id = 1")), sameInstance(rows));
+        assertThat(cache.get(key("select name from users where id = 2")), nullValue());
+
+        QueryResultCache.Stats stats = cache.stats();
+        assertThat(stats.entries(), is(1));
+        assertThat(stats.sizeInBytes(), is(100L));
+        assertThat(stats.hits(), is(1L));
+        assertThat(stats.misses(), is(2L));
+    }
+
+    @Test
+    public void testCacheHitIsReplayedWithAllColumns() throws Exception {
+        QueryResultCache.Key key = key("select id, name from users");
+        cache.put(key, Arrays.asList(new Object[] { 1L, "Arthur" }, new Object[] { 2L, "Trillian" }), 100L);
+
+        List<Object[]> cachedRows = cache.get(key("select id, name from users"));
+        assertThat(cachedRows, notNullValue());
+        List<Object[]> rows = new ArrayList<>();
+        BaseResultReceiver receiver = new BaseResultReceiver() {
+            @Override
+            public void setNextRow(Row row) {
+                assertThat(row.numColumns(), is(2));
+                rows.add(row.materialize());
+            }
+        };
+        QueryResultCache.replay(cachedRows, receiver);
+
+        assertThat(receiver.completionFuture().isDone(), is(true));
+        assertThat(rows.size(), is(2));
+        assertThat(rows.get(0), is(new Object[] { 1L, "Arthur" }));
+        assertThat(rows.get(1), is(new Object[] { 2L, "Trillian" }));
+    }
+
+    @Test
+    public void testWriteToInvolvedTableInvalidatesEntry() {
+        QueryResultCache.Key key = key("select name from users");
+        cache.put(key, Collections.singletonList(new Object[] { "Arthur" }), 100L);
+
+        writeGenerations.postIndex(new ShardId("users", "_na_", 0), null, null);
+
+        assertThat(cache.get(key("select name from users")), nullValue());
+        assertThat(cache.stats().entries(), is(0));
+        assertThat(cache.stats().invalidations(), is(1L));
+        assertThat(cache.stats().evictions(), is(0L));
+    }
+
+    @Test
+    public void testWriteToOtherTableDoesNotInvalidateEntry() {
+        QueryResultCache.Key key = key("select name from users");
+        cache.put(key, Collections.singletonList(new Object[] { "Arthur" }), 100L);
+
+        writeGenerations.postIndex(new ShardId("locations", "_na_", 0), null, null);
+
+        assertThat(cache.get(key("select name from users")), notNullValue());
+    }
+
+    @Test
+    public void testInsertAndRefreshHandledByThisNodeInvalidateEntry() throws Exception {
+        // the shards of users may reside on other nodes; the writes there aren't seen by writeGenerations
+        QueryResultCache.Key key = key("select name from users");
+        cache.put(key, Collections.singletonList(new Object[] { "Arthur" }), 100L);
+
+        BaseResultReceiver insertReceiver = new BaseResultReceiver();
+        ResultReceiver receiver = cache.invalidatingReceiver(
+            e.analyze("insert into users (id, name) values (2, 'Trillian')"), insertReceiver);
+        receiver.allFinished(false);
+        assertThat(insertReceiver.completionFuture().isDone(), is(true));
+        assertThat(cache.get(key("select name from users")), nullValue());
+
+        cache.put(key("select name from users"), Collections.singletonList(new Object[] { "Arthur" }), 100L);
+        cache.invalidate(e.analyze("refresh table users"));
+        assertThat(cache.get(key("select name from users")), nullValue());
+    }
+
+    @Test
+    public void testWriteHandledByThisNodeToOtherTableDoesNotInvalidateEntry() {
+        QueryResultCache.Key key = key("select name from users");
+        cache.put(key, Collections.singletonList(new Object[] { "Arthur" }), 100L);
+
+        cache.invalidate(e.analyze("insert into locations (id) values (1)"));
+        cache.invalidate(e.analyze("refresh table locations"));
+
+        assertThat(cache.get(key("select name from users")), notNullValue());
+    }
+
+    @Test
+    public void testMetaDataChangeInvalidatesEntry() {
+        QueryResultCache.Key key = key("select name from users");
+        cache.put(key, Collections.singletonList(new Object[] { "Arthur" }), 100L);
+
+        ClusterState state = clusterService.state();
+        ClusterState newState = ClusterState.builder(state)
+            .metaData(MetaData.builder(state.metaData()).version(state.metaData().version() + 1))
+            .build();
+        assertThat(cache.get(key("select name from users", newState)), nullValue());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvictedIfSizeIsExceeded() {
+        QueryResultCache.Key k1 = key("select name from users where id = 1");
+        QueryResultCache.Key k2 = key("select name from users where id = 2");
+        QueryResultCache.Key k3 = key("select name from users where id = 3");
+        cache.put(k1, Collections.emptyList(), 400L);
+        cache.put(k2, Collections.emptyList(), 400L);
+        cache.get(k1);
+        cache.put(k3, Collections.emptyList(), 400L);
+
+        assertThat(cache.get(k1), notNullValue());
+        assertThat(cache.get(k2), nullValue());
+        assertThat(cache.get(k3), notNullValue());
+        assertThat(cache.stats().sizeInBytes(), is(800L));
+        assertThat(cache.stats().evictions(), is(1L));
+        assertThat(cache.stats().invalidations(), is(0L));
+    }
+
+    @Test
+    public void testEntryLargerThanCacheIsNotCached() {
+        QueryResultCache.Key key = key("select name from users");
+        cache.put(key, Collections.emptyList(), 2048L);
+        assertThat(cache.get(key), nullValue());
+        assertThat(cache.stats().entries(), is(0));
+    }
+
+    @Test
+    public void testExpiredEntryIsNotReturned() {
+        cache = newCache(Settings.builder()
+            .put(QueryResultCache.SIZE_SETTING.getKey(), "1kb")
+            .put(QueryResultCache.EXPIRE_AFTER_SETTING.getKey(), "1nanos")
+            .build());
+        QueryResultCache.Key key = key("select name from users");
+        cache.put(key, Collections.emptyList(), 100L);
+        assertThat(cache.get(key), nullValue());
+    }
+
+    @Test
+    public void testNonCacheableStatementsHaveNoKey() {
+        assertThat(key("select name from sys.nodes"), nullValue());
+        assertThat(key("select random() from users"), nullValue());
+        assertThat(key("select name from users where date > current_timestamp"), nullValue());
+        assertThat(key("select * from users where name = (select name from sys.cluster)"), nullValue());
+        assertThat(key("insert into users (id, name) (select id, name from users)"), nullValue());
+    }
+
+    @Test
+    public void testNoKeyIfDisabled() {
+        cache = newCache(Settings.EMPTY);
+        assertThat(cache.isEnabled(), is(false));
+        assertThat(key("select name from users"), nullValue());
+    }
+
+    @Test
+    public void testNoKeyIfDisabledForSession() {
+        e.getSessionContext().setQueryResultCacheEnabled(false);
+        assertThat(key("select name from users"), nullValue());
+    }
+}
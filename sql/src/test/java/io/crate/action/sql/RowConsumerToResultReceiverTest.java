@@ -31,6 +31,9 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -78,4 +81,38 @@ public class RowConsumerToResultReceiverTest {
         consumer.accept(FailingBatchIterator.failOnAllLoaded(), null);
         assertThat(resultReceiver.completionFuture().isCompletedExceptionally(), is(true));
     }
+
+    @Test
+    public void testConsumptionIsResumedOnResumeExecutorOnceBackpressureIsReleased() throws Exception {
+        CompletableFuture<Void> whenWritable = new CompletableFuture<>();
+        List<Object[]> collectedRows = new ArrayList<>();
+        List<String> threadNames = new ArrayList<>();
+        BaseResultReceiver resultReceiver = new BaseResultReceiver() {
+            @Override
+            public void setNextRow(Row row) {
+                collectedRows.add(row.materialize());
+                threadNames.add(Thread.currentThread().getName());
+            }
+
+            @Override
+            public CompletableFuture<?> backpressure() {
+                return collectedRows.size() == 5 && whenWritable.isDone() == false ? whenWritable : null;
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "resume"));
+        try {
+            RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(resultReceiver, 0, executor);
+            consumer.accept(TestingBatchIterators.range(0, 10), null);
+            assertThat(collectedRows.size(), is(5));
+
+            // completed by the network thread in case of a channel which becomes writable again
+            whenWritable.complete(null);
+            resultReceiver.completionFuture().get(10, TimeUnit.SECONDS);
+
+            assertThat(collectedRows.size(), is(10));
+            assertThat(threadNames.get(9), is("resume"));
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -43,6 +43,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
@@ -252,6 +253,60 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
         assertThat(session.pendingExecutions.size(), is(0));
     }
 
+    @Test
+    public void testBindingPendingPortalWithQueryDetachesPortal() {
+        SQLExecutor sqlExecutor = SQLExecutor.builder(clusterService).build();
+
+        DependencyCarrier executor = mock(DependencyCarrier.class);
+        Session session = new Session(
+            sqlExecutor.analyzer,
+            sqlExecutor.planner,
+            new JobsLogs(() -> false),
+            false,
+            executor,
+            SessionContext.create());
+
+        session.parse("S_1", "select name from sys.cluster", Collections.emptyList());
+        session.bind("", "S_1", Collections.emptyList(), null);
+        session.execute("", 0, new BaseResultReceiver());
+
+        session.parse("S_2", "select id from sys.cluster", Collections.emptyList());
+        session.bind("", "S_2", Collections.emptyList(), null);
+        session.execute("", 0, new BaseResultReceiver());
+
+        // both queries are executed on sync, instead of being combined into a batch
+        assertThat(session.portals.size(), is(1));
+        assertThat(session.pendingExecutions.size(), is(2));
+    }
+
+    @Test
+    public void testResponsesAreDelayedUntilPendingResultsAreDelivered() {
+        SQLExecutor sqlExecutor = SQLExecutor.builder(clusterService).build();
+
+        DependencyCarrier executor = mock(DependencyCarrier.class);
+        Session session = new Session(
+            sqlExecutor.analyzer,
+            sqlExecutor.planner,
+            new JobsLogs(() -> false),
+            false,
+            executor,
+            SessionContext.create());
+
+        List<String> responses = new ArrayList<>();
+        session.afterPendingResults(() -> responses.add("parse"));
+        assertThat(responses, contains("parse"));
+
+        session.parse("S_1", "select name from sys.cluster", Collections.emptyList());
+        session.bind("", "S_1", Collections.emptyList(), null);
+        BaseResultReceiver resultReceiver = new BaseResultReceiver();
+        session.execute("", 0, resultReceiver);
+        session.afterPendingResults(() -> responses.add("close"));
+        assertThat(responses, contains("parse"));
+
+        resultReceiver.allFinished(false);
+        assertThat(responses, contains("parse", "close"));
+    }
+
     @Test
     public void testDeallocateAllClearsAllPortalsAndPreparedStatements() {
         SQLExecutor sqlExecutor = SQLExecutor.builder(clusterService).build();
@@ -0,0 +1,147 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.action.sql;
+
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.table.TableInfo;
+import io.crate.sql.tree.Statement;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.crate.analyze.TableDefinitions.USER_TABLE_INFO;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class StatementCacheTest extends CrateDummyClusterServiceUnitTest {
+
+    private SQLExecutor e;
+    private Schemas schemas;
+    private StatementCache cache;
+
+    @Before
+    public void prepare() {
+        e = SQLExecutor.builder(clusterService).enableDefaultTables().build();
+        schemas = mock(Schemas.class);
+        doReturn(USER_TABLE_INFO).when(schemas).getTableInfo(USER_TABLE_INFO.ident());
+        cache = new StatementCache(
+            Settings.builder().put(StatementCache.SIZE_SETTING.getKey(), 2).build(),
+            schemas,
+            clusterService);
+    }
+
+    private StatementCache.Key key(String stmt, Object... params) {
+        return cache.key(stmt, cache.parse(stmt), Arrays.asList(params), e.getSessionContext());
+    }
+
+    private StatementCache.Entry acquire(String stmt) {
+        StatementCache.Entry entry = cache.acquire(key(stmt));
+        if (entry.analyzedStatement() == null) {
+            entry.analyzedStatement(e.analyze(stmt));
+        }
+        return entry;
+    }
+
+    @Test
+    public void testParsedStatementIsCached() {
+        Statement statement = cache.parse("select name from users");
+        assertThat(cache.parse("select name from users"), sameInstance(statement));
+    }
+
+    @Test
+    public void testReleasedStatementIsReused() {
+        StatementCache.Entry entry = acquire("select name from users");
+        AnalyzedStatement analyzedStatement = entry.analyzedStatement();
+        cache.release(entry);
+
+        assertThat(acquire("select name from users").analyzedStatement(), sameInstance(analyzedStatement));
+        StatementCache.Stats stats = cache.stats();
+        assertThat(stats.entries(), is(1));
+        assertThat(stats.hits(), is(1L));
+        assertThat(stats.misses(), is(1L));
+    }
+
+    @Test
+    public void testAcquiredStatementIsNotShared() {
+        StatementCache.Entry entry = acquire("select name from users");
+        assertThat(cache.acquire(key("select name from users")).analyzedStatement(), nullValue());
+        cache.release(entry);
+    }
+
+    @Test
+    public void testChangedTableInvalidatesStatement() {
+        cache.release(acquire("select name from users"));
+
+        TableInfo changedTable = mock(TableInfo.class);
+        doReturn(changedTable).when(schemas).getTableInfo(USER_TABLE_INFO.ident());
+
+        assertThat(cache.acquire(key("select name from users")).analyzedStatement(), nullValue());
+        assertThat(cache.stats().evictions(), is(1L));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsEvicted() {
+        cache.release(acquire("select name from users"));
+        cache.release(acquire("select id from users"));
+        cache.release(acquire("select name, id from users"));
+
+        StatementCache.Stats stats = cache.stats();
+        assertThat(stats.entries(), is(2));
+        assertThat(stats.evictions(), is(1L));
+        assertThat(cache.acquire(key("select name from users")).analyzedStatement(), nullValue());
+    }
+
+    @Test
+    public void testKeyContainsParameterTypes() {
+        StatementCache.Key key = key("select name from users where id = ?", 1);
+        assertThat(key, notNullValue());
+        assertThat(key("select name from users where id = ?", 2), is(key));
+        assertThat(key("select name from users where id = ?", "1"), not(key));
+    }
+
+    @Test
+    public void testStatementsWhichCannotBeAnalyzedUnboundHaveNoKey() {
+        assertThat(key("insert into users (id) values (1)"), nullValue());
+        assertThat(key("select name from users where date > current_timestamp"), nullValue());
+    }
+
+    @Test
+    public void testDisabledCacheHasNoKeys() {
+        StatementCache disabledCache = new StatementCache(Settings.EMPTY, schemas, clusterService);
+        List<Object> params = Collections.emptyList();
+        String stmt = "select name from users";
+        assertThat(disabledCache.isEnabled(), is(false));
+        assertThat(disabledCache.key(stmt, disabledCache.parse(stmt), params, e.getSessionContext()), nullValue());
+    }
+}
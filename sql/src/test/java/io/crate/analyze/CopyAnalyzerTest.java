@@ -28,6 +28,7 @@ import io.crate.expression.symbol.Literal;
 import io.crate.exceptions.PartitionUnknownException;
 import io.crate.exceptions.SchemaUnknownException;
 import io.crate.exceptions.UnsupportedFeatureException;
+import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.table.TableInfo;
 import io.crate.execution.dsl.projection.WriterProjection;
@@ -266,6 +267,28 @@ public class CopyAnalyzerTest extends CrateDummyClusterServiceUnitTest {
         e.analyze("copy users to directory '/blah' with (format='json_array')");
     }
 
+    @Test
+    public void testCopyToFileWithParquetFormatAndMaxFileSize() throws Exception {
+        CopyToAnalyzedStatement analysis = e.analyze(
+            "copy users (id, name) to directory '/blah' with (format='parquet', max_file_size='128mb')");
+        assertThat(analysis.outputFormat(), is(WriterProjection.OutputFormat.PARQUET));
+        assertThat(analysis.maxFileSize(), is(128L * 1024 * 1024));
+    }
+
+    @Test
+    public void testCopyToParquetWithoutColumnsIsNotSupported() throws Exception {
+        expectedException.expect(UnsupportedFeatureException.class);
+        expectedException.expectMessage("Output format not supported without specifying columns.");
+        e.analyze("copy users to directory '/blah' with (format='parquet')");
+    }
+
+    @Test
+    public void testCopyToWithInvalidMaxFileSize() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Setting 'max_file_size' must be greater than 0");
+        e.analyze("copy users to directory '/blah' with (max_file_size=0)");
+    }
+
     @Test
     public void testCopyFromWithReferenceAssignedToProperty() throws Exception {
         expectedException.expect(IllegalArgumentException.class);
@@ -273,6 +296,21 @@ public class CopyAnalyzerTest extends CrateDummyClusterServiceUnitTest {
         e.analyze("copy users from '/blah.txt' with (compression = gzip)");
     }
 
+    @Test
+    public void testCopyFromWithCsvFormat() throws Exception {
+        CopyFromAnalyzedStatement copyFrom = e.analyze("copy users from '/blah.csv' with (format = 'CSV')");
+        assertThat(copyFrom.inputFormat(), is(FileUriCollectPhase.InputFormat.CSV));
+        copyFrom = e.analyze("copy users from '/blah.json'");
+        assertThat(copyFrom.inputFormat(), is(FileUriCollectPhase.InputFormat.JSON));
+    }
+
+    @Test
+    public void testCopyFromWithInvalidFormat() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("'xml' is not an allowed value.");
+        e.analyze("copy users from '/blah.xml' with (format = 'xml')");
+    }
+
     @Test
     public void testCopyFromFileUriArray() throws Exception {
         Object[] files = $("/f1.json", "/f2.json");
@@ -57,6 +57,7 @@ import java.util.Map;
 
 import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
 import static io.crate.testing.TestingHelpers.mapToSortedString;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.is;
@@ -182,6 +183,24 @@ public class CreateAlterTableStatementAnalyzerTest extends CrateDummyClusterServ
                 "with (refresh_interval='1asdf')");
     }
 
+    @Test
+    public void testCreateTableWithIndexSort() throws Exception {
+        CreateTableAnalyzedStatement analysis = e.analyze(
+            "CREATE TABLE foo (id int primary key, ts timestamp) " +
+            "with (\"sort.field\" = ['ts', 'id'], \"sort.order\" = ['desc', 'asc'], \"sort.missing\" = '_first')");
+        Settings settings = analysis.tableParameter().settings();
+        assertThat(settings.getAsList(TableParameterInfo.SORT_FIELD), contains("ts", "id"));
+        assertThat(settings.getAsList(TableParameterInfo.SORT_ORDER), contains("desc", "asc"));
+        assertThat(settings.getAsList(TableParameterInfo.SORT_MISSING), contains("_first"));
+    }
+
+    @Test
+    public void testIndexSortCannotBeChangedWithAlterTable() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Invalid property \"sort.field\" passed to [ALTER | CREATE] TABLE statement");
+        e.analyze("ALTER TABLE users SET (\"sort.field\" = 'name')");
+    }
+
     @Test
     public void testAlterTableWithRefreshInterval() throws Exception {
         // alter t set
@@ -672,6 +672,32 @@ public class InsertFromValuesAnalyzerTest extends CrateDummyClusterServiceUnitTe
         assertThat((Long) analysis.sourceMaps().get(1)[0], is(2L));
     }
 
+    @Test
+    public void testInsertWithBulkArgsMixedWithLiteralsAndFunctions() throws Exception {
+        InsertFromValuesAnalyzedStatement analysis = e.analyze(
+            "insert into users (id, name, other_id) values (?, 'Arthur', ? + 1)",
+            new Object[][]{
+                new Object[]{1, 10},
+                new Object[]{2, 20}
+            });
+        assertThat(analysis.sourceMaps().size(), is(2));
+        assertThat(analysis.sourceMaps().get(0), Matchers.<Object>arrayContaining(1L, new BytesRef("Arthur"), 11L));
+        assertThat(analysis.sourceMaps().get(1), Matchers.<Object>arrayContaining(2L, new BytesRef("Arthur"), 21L));
+    }
+
+    @Test
+    public void testInsertWithBulkArgsObjectLiteralIsNotSharedBetweenRows() throws Exception {
+        InsertFromValuesAnalyzedStatement analysis = e.analyze(
+            "insert into users (id, details) values (?, {a=1})",
+            new Object[][]{
+                new Object[]{1},
+                new Object[]{2}
+            });
+        assertThat(analysis.sourceMaps().size(), is(2));
+        assertThat(analysis.sourceMaps().get(0)[1], is(analysis.sourceMaps().get(1)[1]));
+        assertThat(analysis.sourceMaps().get(0)[1], Matchers.not(Matchers.sameInstance(analysis.sourceMaps().get(1)[1])));
+    }
+
     @Test
     public void testInsertWithBulkArgsTypeMissMatch() throws Exception {
         expectedException.expect(ColumnValidationException.class);
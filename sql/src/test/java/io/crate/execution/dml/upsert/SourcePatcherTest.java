@@ -0,0 +1,143 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.execution.dml.upsert;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+
+public class SourcePatcherTest extends CrateUnitTest {
+
+    private static BytesReference source() throws Exception {
+        return XContentFactory.jsonBuilder().startObject()
+            .field("id", 1)
+            .field("name", "Arthur")
+            .startObject("o")
+                .field("x", 10)
+                .startObject("y")
+                    .field("z", 20)
+                .endObject()
+                .array("tags", "a", "b")
+            .endObject()
+            .nullField("n")
+            .endObject()
+            .bytes();
+    }
+
+    private static Map<String, Object> expected(Map<String, Object> changes) throws Exception {
+        Map<String, Object> sourceMap = XContentHelper.convertToMap(source(), false, XContentType.JSON).v2();
+        TransportShardUpsertAction.updateSourceByPaths(sourceMap, changes);
+        return sourceMap;
+    }
+
+    private static Map<String, Object> patch(Map<String, Object> changes) throws Exception {
+        BytesReference patched = SourcePatcher.patch(source(), changes);
+        return XContentHelper.convertToMap(patched, false, XContentType.JSON).v2();
+    }
+
+    private static void assertPatchedLikeMap(Map<String, Object> changes) throws Exception {
+        Map<String, Object> expected = expected(new LinkedHashMap<>(changes));
+        assertThat(patch(changes), is(expected));
+    }
+
+    @Test
+    public void testNoChangesCopiesSource() throws Exception {
+        assertThat(SourcePatcher.patch(source(), new HashMap<>()).utf8ToString(), is(source().utf8ToString()));
+    }
+
+    @Test
+    public void testTopLevelFieldIsReplaced() throws Exception {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("name", "Ford");
+        changes.put("id", null);
+        assertPatchedLikeMap(changes);
+    }
+
+    @Test
+    public void testNestedFieldIsReplaced() throws Exception {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("o.y.z", 30);
+        changes.put("o.x", 11);
+        assertPatchedLikeMap(changes);
+    }
+
+    @Test
+    public void testMissingFieldsAndObjectsAreAdded() throws Exception {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("o.y.new", "value");
+        changes.put("p.q.r", 1);
+        changes.put("added", 2);
+        assertPatchedLikeMap(changes);
+    }
+
+    @Test
+    public void testObjectIsOverwrittenNotMerged() throws Exception {
+        Map<String, Object> newObject = new HashMap<>();
+        newObject.put("a", 1);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("o", newObject);
+        assertPatchedLikeMap(changes);
+    }
+
+    @Test
+    public void testSubPathIsWrittenOntoNewObject() throws Exception {
+        Map<String, Object> newObject = new HashMap<>();
+        newObject.put("a", 1);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("o", newObject);
+        changes.put("o.b", 2);
+
+        Map<String, Object> expectedObject = new HashMap<>();
+        expectedObject.put("a", 1);
+        expectedObject.put("b", 2);
+        assertThat(patch(changes).get("o"), is(expectedObject));
+    }
+
+    @Test
+    public void testUpdateNullObject() throws Exception {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("n.x.y", 5);
+
+        expectedException.expect(NullPointerException.class);
+        expectedException.expectMessage("Object n is null, cannot write {x.y=5} onto it");
+        SourcePatcher.patch(source(), changes);
+    }
+
+    @Test
+    public void testUpdateChildOfNonObjectField() throws Exception {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("name.x", 5);
+
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Field name is not an object, cannot write {x=5} onto it");
+        SourcePatcher.patch(source(), changes);
+    }
+}
@@ -22,6 +22,7 @@
 package io.crate.execution.dsl.projection;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.crate.expression.symbol.InputColumn;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
@@ -32,6 +33,8 @@ import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.junit.Test;
 
+import static org.hamcrest.Matchers.is;
+
 public class WriterProjectionTest extends CrateUnitTest {
 
     @Test
@@ -43,7 +46,29 @@ public class WriterProjectionTest extends CrateUnitTest {
             MapBuilder.<ColumnIdent, Symbol>newMapBuilder().put(
                 new ColumnIdent("partitionColumn"), Literal.of(1)).map(),
             ImmutableList.of("foo"),
-            WriterProjection.OutputFormat.JSON_OBJECT
+            WriterProjection.OutputFormat.JSON_OBJECT,
+            null
+        );
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        Projection.toStream(p, out);
+
+        StreamInput in = out.bytes().streamInput();
+        WriterProjection p2 = (WriterProjection) Projection.fromStream(in);
+
+        assertEquals(p, p2);
+    }
+
+    @Test
+    public void testStreamingParquetWithMaxFileSize() throws Exception {
+        WriterProjection p = new WriterProjection(
+            ImmutableList.<Symbol>of(new InputColumn(0)),
+            Literal.of("/foo"),
+            WriterProjection.CompressionType.GZIP,
+            ImmutableMap.of(),
+            ImmutableList.of("foo"),
+            WriterProjection.OutputFormat.PARQUET,
+            1024L
         );
 
         BytesStreamOutput out = new BytesStreamOutput();
@@ -53,5 +78,7 @@ public class WriterProjectionTest extends CrateUnitTest {
         WriterProjection p2 = (WriterProjection) Projection.fromStream(in);
 
         assertEquals(p, p2);
+        assertThat(p2.maxFileSize(), is(1024L));
+        assertThat(p2.outputFormat(), is(WriterProjection.OutputFormat.PARQUET));
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.data.Input;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class GroupTableTest extends CrateUnitTest {
+
+    private final RamAccountingContext ramAccountingContext =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker("dummy"));
+
+    private static class ValueInput implements Input<Object> {
+
+        private Object value;
+
+        @Override
+        public Object value() {
+            return value;
+        }
+    }
+
+    /**
+     * Adds the keys and asserts that the ids are dense, re-used for equal keys and that the keys can be restored.
+     */
+    private void assertGroups(GroupTable table, ValueInput input, Object... keys) {
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < keys.length; i++) {
+                input.value = keys[i];
+                int id = table.addCurrentKey();
+                if (round == 0) {
+                    assertThat(id, is(-1 - i));
+                    table.states(i, new Object[] { keys[i] });
+                } else {
+                    assertThat(id, is(i));
+                }
+            }
+        }
+        assertThat(table.size(), is(keys.length));
+        Object[] cells = new Object[1];
+        for (int i = 0; i < keys.length; i++) {
+            table.applyKey(i, cells);
+            assertThat(cells[0], is(keys[i]));
+            assertThat(table.states(i)[0], is(keys[i]));
+        }
+    }
+
+    @Test
+    public void testLongKeysGrowBeyondInitialCapacity() {
+        ValueInput input = new ValueInput();
+        GroupTable table = GroupTable.forKey(input, DataTypes.LONG, ramAccountingContext);
+        assertThat(table, instanceOf(LongGroupTable.class));
+
+        Object[] keys = new Object[1000];
+        for (int i = 0; i < keys.length - 1; i++) {
+            keys[i] = (long) i * 31;
+        }
+        keys[keys.length - 1] = null;
+        assertGroups(table, input, keys);
+        assertThat(ramAccountingContext.totalBytes(), greaterThan(1000L * (Long.BYTES + Integer.BYTES)));
+    }
+
+    @Test
+    public void testIntegerAndShortKeys() {
+        ValueInput input = new ValueInput();
+        GroupTable table = GroupTable.forKey(input, DataTypes.INTEGER, ramAccountingContext);
+        assertThat(table, instanceOf(IntGroupTable.class));
+        assertGroups(table, input, 1, null, -5, Integer.MAX_VALUE, Integer.MIN_VALUE, 0);
+
+        input = new ValueInput();
+        table = GroupTable.forKey(input, DataTypes.SHORT, ramAccountingContext);
+        assertGroups(table, input, (short) 1, (short) -1, null);
+    }
+
+    @Test
+    public void testStringKeys() {
+        ValueInput input = new ValueInput();
+        GroupTable table = GroupTable.forKey(input, DataTypes.STRING, ramAccountingContext);
+        assertThat(table, instanceOf(BytesRefGroupTable.class));
+
+        Object[] keys = new Object[500];
+        for (int i = 0; i < keys.length - 2; i++) {
+            keys[i] = new BytesRef("key-" + i);
+        }
+        keys[keys.length - 2] = new BytesRef("");
+        keys[keys.length - 1] = null;
+        assertGroups(table, input, keys);
+    }
+
+    @Test
+    public void testOtherKeysUseObjectTable() {
+        ValueInput input = new ValueInput();
+        GroupTable table = GroupTable.forKey(input, DataTypes.DOUBLE, ramAccountingContext);
+        assertThat(table, instanceOf(ObjectGroupTable.class));
+        assertGroups(table, input, 1.0d, 2.5d, null);
+    }
+
+    @Test
+    public void testFixedWidthKeysArePacked() {
+        ValueInput first = new ValueInput();
+        ValueInput second = new ValueInput();
+        List<Input<?>> inputs = Arrays.asList(first, second);
+        List<DataType> types = Arrays.asList(DataTypes.BOOLEAN, DataTypes.DOUBLE);
+        GroupTable table = GroupTable.forKeys(inputs, types, ramAccountingContext);
+        assertThat(table, instanceOf(PackedGroupTable.class));
+
+        Object[][] keys = new Object[][] {
+            new Object[] { true, 1.5d },
+            new Object[] { false, 1.5d },
+            new Object[] { null, 1.5d },
+            new Object[] { true, null },
+            new Object[] { null, null },
+            new Object[] { false, 0.0d },
+        };
+        for (int i = 0; i < keys.length; i++) {
+            first.value = keys[i][0];
+            second.value = keys[i][1];
+            assertThat(table.addCurrentKey(), is(-1 - i));
+            table.states(i, new Object[0]);
+        }
+        Object[] cells = new Object[2];
+        for (int i = 0; i < keys.length; i++) {
+            first.value = keys[i][0];
+            second.value = keys[i][1];
+            assertThat(table.addCurrentKey(), is(i));
+
+            table.applyKey(i, cells);
+            assertThat(cells, arrayContaining(keys[i]));
+        }
+    }
+
+    @Test
+    public void testKeysWithVariableWidthAreNotPacked() {
+        List<Input<?>> inputs = Arrays.asList(new ValueInput(), new ValueInput());
+        List<DataType> types = Arrays.asList(DataTypes.LONG, DataTypes.STRING);
+        assertThat(GroupTable.forKeys(inputs, types, ramAccountingContext), instanceOf(ObjectGroupTable.class));
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.data.BatchIterators;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.execution.engine.aggregation.impl.AggregationImplModule;
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.InputCollectExpression;
+import io.crate.execution.engine.collect.stats.JobsLogs;
+import io.crate.execution.engine.spill.SpillService;
+import io.crate.expression.reference.sys.operation.OperationContext;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.metadata.Functions;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.env.NodeEnvironment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static io.crate.data.SentinelRow.SENTINEL;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class GroupingCollectorSpillTest extends CrateUnitTest {
+
+    private NodeEnvironment nodeEnvironment;
+    private Functions functions;
+
+    private static RamAccountingContext newRamAccountingContext() {
+        return new RamAccountingContext(
+            "test",
+            new MemoryCircuitBreaker(
+                new ByteSizeValue(1, ByteSizeUnit.MB), 1.0, Loggers.getLogger(GroupingCollectorSpillTest.class)));
+    }
+
+    private GroupingCollector newCountCollector(RamAccountingContext ramAccountingContext,
+                                                SpillService spillService,
+                                                UUID jobId) {
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        AggregationFunction count =
+            (AggregationFunction) functions.getBuiltin(CountAggregation.NAME, Collections.emptyList());
+        return GroupingCollector.singleKey(
+            new CollectExpression[] { keyInput },
+            AggregateMode.ITER_FINAL,
+            new AggregationFunction[] { count },
+            new Input[][] { new Input[0] },
+            ramAccountingContext,
+            keyInput,
+            DataTypes.LONG,
+            Version.CURRENT,
+            BigArrays.NON_RECYCLING_INSTANCE,
+            spillService.newContext(jobId, 1)
+        );
+    }
+
+    @Before
+    public void prepare() throws Exception {
+        nodeEnvironment = newNodeEnvironment(Settings.EMPTY);
+        functions = new ModulesBuilder().add(new AggregationImplModule())
+            .createInjector().getInstance(Functions.class);
+    }
+
+    @After
+    public void closeNodeEnvironment() throws Exception {
+        nodeEnvironment.close();
+    }
+
+    @Test
+    public void testGroupsAreSpilledAndReAggregated() throws Exception {
+        JobsLogs jobsLogs = new JobsLogs(() -> true);
+        SpillService spillService = new SpillService(
+            Settings.builder().put(SpillService.SPILL_THRESHOLD_SETTING.getKey(), 0.1d).build(),
+            nodeEnvironment,
+            jobsLogs);
+        UUID jobId = UUID.randomUUID();
+        jobsLogs.operationStarted(1, jobId, "group-by");
+
+        RamAccountingContext ramAccountingContext = newRamAccountingContext();
+        GroupingCollector collector = newCountCollector(ramAccountingContext, spillService, jobId);
+
+        int numGroups = 20_000;
+        List<Row> rows = new ArrayList<>(numGroups * 2);
+        for (int i = 0; i < numGroups * 2; i++) {
+            rows.add(new Row1((long) (i % numGroups)));
+        }
+        Iterable<Row> result = BatchIterators.collect(InMemoryBatchIterator.of(rows, SENTINEL), collector).get();
+
+        OperationContext operationContext = jobsLogs.activeOperations().iterator().next();
+        assertThat(operationContext.spilledBytes(), greaterThan(0L));
+        assertThat(operationContext.spilledPartitions(), greaterThan(0));
+
+        long[] counts = new long[numGroups];
+        int numRows = 0;
+        for (Row row : result) {
+            counts[(int) (long) row.get(0)] += (long) row.get(1);
+            numRows++;
+        }
+        assertThat(numRows, is(numGroups));
+        for (int i = 0; i < numGroups; i++) {
+            assertThat("count of group " + i, counts[i], is(2L));
+        }
+
+        collector.close();
+        Path spillPath = nodeEnvironment.nodeDataPaths()[0].resolve("spill");
+        try (Stream<Path> files = Files.list(spillPath)) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+
+    @Test
+    public void testPartitionsExceedingTheThresholdAreSpilledAgain() throws Exception {
+        JobsLogs jobsLogs = new JobsLogs(() -> true);
+        SpillService spillService = new SpillService(
+            Settings.builder().put(SpillService.SPILL_THRESHOLD_SETTING.getKey(), 0.1d).build(),
+            nodeEnvironment,
+            jobsLogs);
+        UUID jobId = UUID.randomUUID();
+        jobsLogs.operationStarted(1, jobId, "group-by");
+
+        RamAccountingContext ramAccountingContext = newRamAccountingContext();
+        GroupingCollector collector = newCountCollector(ramAccountingContext, spillService, jobId);
+        long threshold = spillService.newContext(jobId, 1).thresholdBytes(ramAccountingContext);
+
+        // each of the partitions holds more groups than fit below the threshold
+        int numGroups = 400_000;
+        List<Row> rows = new ArrayList<>(numGroups);
+        for (int i = 0; i < numGroups; i++) {
+            rows.add(new Row1((long) i));
+        }
+        Iterable<Row> result = BatchIterators.collect(InMemoryBatchIterator.of(rows, SENTINEL), collector).get();
+
+        long maxBytes = 0L;
+        int numRows = 0;
+        for (Row row : result) {
+            assertThat((long) row.get(1), is(1L));
+            maxBytes = Math.max(maxBytes, ramAccountingContext.totalBytes());
+            numRows++;
+        }
+        assertThat(numRows, is(numGroups));
+        assertThat(maxBytes, greaterThan(0L));
+        assertThat(maxBytes, lessThan(2 * threshold));
+        collector.close();
+    }
+
+    @Test
+    public void testSpillingIsDisabledByDefault() throws Exception {
+        SpillService spillService = new SpillService(Settings.EMPTY, nodeEnvironment, new JobsLogs(() -> true));
+        assertThat(spillService.isEnabled(), is(false));
+        assertNull(spillService.newContext(UUID.randomUUID(), 1));
+    }
+}
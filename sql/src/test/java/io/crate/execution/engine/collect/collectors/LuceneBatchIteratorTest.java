@@ -23,10 +23,13 @@
 package io.crate.execution.engine.collect.collectors;
 
 import io.crate.breaker.RamAccountingContext;
+import io.crate.data.ColumnBatch;
+import io.crate.data.ColumnVector;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LongColumnReference;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.BatchIteratorTester;
+import io.crate.types.DataTypes;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.NumericDocValuesField;
@@ -44,6 +47,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
 public class LuceneBatchIteratorTest extends CrateUnitTest {
 
     private List<LongColumnReference> columnRefs;
@@ -88,4 +94,33 @@ public class LuceneBatchIteratorTest extends CrateUnitTest {
         );
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
+
+    @Test
+    public void testLuceneBatchIteratorFillsColumnBatches() throws Exception {
+        LuceneBatchIterator it = new LuceneBatchIterator(
+            indexSearcher,
+            new MatchAllDocsQuery(),
+            null,
+            false,
+            new CollectorContext(
+                mappedFieldType -> null,
+                new CollectorFieldsVisitor(0)
+            ),
+            new RamAccountingContext("dummy", new NoopCircuitBreaker("dummy")),
+            columnRefs,
+            columnRefs,
+            Collections.singletonList(DataTypes.LONG)
+        );
+        assertThat(it.moveNextBatch(), is(true));
+        ColumnBatch batch = it.currentBatch();
+        assertThat(batch.size(), is(20));
+        assertThat(batch.column(0), instanceOf(ColumnVector.Longs.class));
+        long[] values = ((ColumnVector.Longs) batch.column(0)).values;
+        for (int i = 0; i < 20; i++) {
+            assertThat(values[i], is((long) i));
+        }
+        assertThat(it.moveNextBatch(), is(false));
+        assertThat(it.allLoaded(), is(true));
+        it.close();
+    }
 }
@@ -29,6 +29,7 @@ import io.crate.analyze.OrderBy;
 import io.crate.data.Row;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.expression.reference.doc.lucene.LongColumnReference;
 import io.crate.expression.reference.doc.lucene.LuceneMissingValue;
 import io.crate.expression.reference.doc.lucene.ScoreCollectorExpression;
 import io.crate.metadata.Reference;
@@ -73,10 +74,12 @@ import org.junit.Test;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
@@ -310,6 +313,48 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
         assertThat(count, is(1));
     }
 
+    @Test
+    public void testInitialSearchOnIndexSortedBySearchSortReturnsTopDocs() throws Exception {
+        Sort sort = new Sort(new SortedNumericSortField("value", SortField.Type.LONG, true));
+        IndexWriterConfig cfg = new IndexWriterConfig(new KeywordAnalyzer());
+        cfg.setIndexSort(sort);
+        IndexWriter w = new IndexWriter(new RAMDirectory(), cfg);
+        for (long i = 0; i < 20; i++) {
+            addDocToLucene(w, i);
+            if (i % 5 == 4) {
+                // flush into several segments
+                w.commit();
+            }
+        }
+        IndexReader reader = DirectoryReader.open(w);
+        assertThat(LuceneOrderedDocCollector.canEarlyTerminate(reader, sort), is(true));
+        assertThat(LuceneOrderedDocCollector.canEarlyTerminate(
+            reader, new Sort(new SortedNumericSortField("value", SortField.Type.LONG, false))), is(false));
+
+        List<LuceneCollectorExpression<?>> columnReferences = Collections.singletonList(new LongColumnReference("value"));
+        LuceneOrderedDocCollector collector = new LuceneOrderedDocCollector(
+            new ShardId("dummy", UUIDs.base64UUID(), 0),
+            new IndexSearcher(reader),
+            new MatchAllDocsQuery(),
+            null,
+            false,
+            6,
+            new CollectorContext(mappedFieldType -> null, new CollectorFieldsVisitor(0)),
+            f -> null,
+            sort,
+            columnReferences,
+            columnReferences
+        );
+        List<Long> values = new ArrayList<>();
+        while (!collector.exhausted()) {
+            for (Row row : collector.collect()) {
+                values.add((Long) row.get(0));
+            }
+        }
+        assertThat(values, contains(19L, 18L, 17L, 16L, 15L, 14L, 13L, 12L, 11L, 10L,
+            9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L, 0L));
+    }
+
     private static void addDoc(IndexWriter w, KeywordFieldMapper.KeywordFieldType fieldType, String value) throws IOException {
         Document doc = new Document();
         Field field = new Field(fieldType.name(), value, fieldType);
@@ -24,6 +24,7 @@ package io.crate.execution.engine.collect.files;
 
 import com.google.common.collect.ImmutableMap;
 import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.metadata.FunctionIdent;
@@ -31,6 +32,7 @@ import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.FunctionResolver;
 import io.crate.metadata.Functions;
 import io.crate.metadata.Reference;
+import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.expression.InputFactory;
 import io.crate.expression.reference.file.FileLineReferenceResolver;
 import io.crate.test.integration.CrateUnitTest;
@@ -45,13 +47,17 @@ import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.contains;
 
 public class FileReadingIteratorTest extends CrateUnitTest {
 
@@ -91,6 +97,72 @@ public class FileReadingIteratorTest extends CrateUnitTest {
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
 
+    @Test
+    public void testSplitsReadEveryLineExactlyOnce() throws Exception {
+        Path file = createTempFile();
+        List<Object[]> expectedResult = new ArrayList<>();
+        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(file.toFile()), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 500; i++) {
+                String line = "{\"id\": " + i + ", \"name\": \"" + String.join("", Collections.nCopies(i % 17, "x")) + "\"}";
+                writer.write(line);
+                writer.write(i % 3 == 0 ? "\r\n" : "\n");
+                expectedResult.add(new Object[] { new BytesRef(line) });
+            }
+        }
+        String fileUri = file.toUri().toString();
+        int numSplits = 7;
+        FileSplits fileSplits = new FileSplits(numSplits, 512);
+        List<Object[]> result = new ArrayList<>();
+        for (int split = 0; split < numSplits; split++) {
+            BatchIterator<Row> iterator = createBatchIterator(
+                Collections.singletonList(fileUri), FileUriCollectPhase.InputFormat.JSON, fileSplits, split);
+            result.addAll(BatchIterators.collect(iterator, Collectors.mapping(Row::materialize, Collectors.toList())).get(5, TimeUnit.SECONDS));
+        }
+        assertThat(result, contains(expectedResult.toArray()));
+    }
+
+    @Test
+    public void testCsvLinesAreConvertedToJsonSource() throws Exception {
+        Path file = createTempFile();
+        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(file.toFile()), StandardCharsets.UTF_8)) {
+            writer.write("id,name,quote\n");
+            writer.write("1,Arthur,\"Don't panic\"\n");
+            writer.write("2,,\"He said \"\"hi\"\", then left\"\n");
+        }
+        BatchIterator<Row> iterator = createBatchIterator(
+            Collections.singletonList(file.toUri().toString()), FileUriCollectPhase.InputFormat.CSV, new FileSplits(1), 0);
+        List<Object[]> result = BatchIterators.collect(
+            iterator, Collectors.mapping(Row::materialize, Collectors.toList())).get(5, TimeUnit.SECONDS);
+        assertThat(result, contains(
+            new Object[] { new BytesRef("{\"id\":\"1\",\"name\":\"Arthur\",\"quote\":\"Don't panic\"}") },
+            new Object[] { new BytesRef("{\"id\":\"2\",\"name\":null,\"quote\":\"He said \\\"hi\\\", then left\"}") }
+        ));
+    }
+
+    private BatchIterator<Row> createBatchIterator(Collection<String> fileUris,
+                                                   FileUriCollectPhase.InputFormat inputFormat,
+                                                   FileSplits fileSplits,
+                                                   int split) {
+        Reference raw = createReference("_raw", DataTypes.STRING);
+        InputFactory.Context<LineCollectorExpression<?>> ctx =
+            inputFactory.ctxForRefs(FileLineReferenceResolver::getImplementation);
+        List<Input<?>> inputs = Collections.singletonList(ctx.add(raw));
+        return FileReadingIterator.newInstance(
+            fileUris,
+            inputs,
+            ctx.expressions(),
+            null,
+            ImmutableMap.of(
+                LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+            false,
+            1,
+            0,
+            inputFormat,
+            fileSplits,
+            split
+        );
+    }
+
     private BatchIterator<Row> createBatchIterator(Collection<String> fileUris, String compression) {
         Reference raw = createReference("_raw", DataTypes.STRING);
         InputFactory.Context<LineCollectorExpression<?>> ctx =
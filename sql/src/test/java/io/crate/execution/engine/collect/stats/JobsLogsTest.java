@@ -275,6 +275,20 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
         assertTrue(entries.contains(new OperationContextLog(ctxA, null)));
     }
 
+    @Test
+    public void testSpillStatisticsOfAnOperationAreAccumulated() {
+        JobsLogs jobsLogs = new JobsLogs(() -> true);
+        UUID jobId = UUID.randomUUID();
+        jobsLogs.operationStarted(1, jobId, "group-by");
+
+        jobsLogs.operationSpilled(1, jobId, 100L, 2);
+        jobsLogs.operationSpilled(1, jobId, 50L, 3);
+
+        OperationContext operationContext = jobsLogs.activeOperations().iterator().next();
+        assertThat(operationContext.spilledBytes(), is(150L));
+        assertThat(operationContext.spilledPartitions(), is(5));
+    }
+
     @Test
     public void testLowerBoundScheduler() throws NoSuchMethodException {
         assertThat(JobsLogService.clearInterval(TimeValue.timeValueMillis(1L)), is(1000L));
@@ -0,0 +1,116 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import io.crate.Streamer;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ColumnarStreamBucketTest extends CrateUnitTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+        DataTypes.LONG.streamer(),
+        DataTypes.INTEGER.streamer(),
+        DataTypes.DOUBLE.streamer(),
+        DataTypes.STRING.streamer(),
+        DataTypes.BOOLEAN.streamer()
+    };
+
+    private static ColumnarStreamBucket streamed(ColumnarStreamBucket bucket) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        ColumnarStreamBucket received = new ColumnarStreamBucket(null);
+        received.readFrom(out.bytes().streamInput());
+        received.streamers(STREAMERS);
+        return received;
+    }
+
+    @Test
+    public void testStreamingOfAllEncodingsWithNulls() throws Exception {
+        ColumnarStreamBucket.Builder builder = new ColumnarStreamBucket.Builder(STREAMERS);
+        builder.add(new RowN(new Object[]{1L, 10, 1.5d, new BytesRef("foo"), true}));
+        builder.add(new RowN(new Object[]{null, null, null, null, null}));
+        builder.add(new RowN(new Object[]{3L, 30, 3.5d, new BytesRef(""), false}));
+
+        ColumnarStreamBucket bucket = streamed(builder.build());
+        assertThat(bucket.size(), is(3));
+        assertThat(bucket, contains(
+            isRow(1L, 10, 1.5d, "foo", true),
+            isRow(null, null, null, null, null),
+            isRow(3L, 30, 3.5d, "", false)
+        ));
+    }
+
+    @Test
+    public void testBuilderCanBeReusedAfterReset() throws Exception {
+        ColumnarStreamBucket.Builder builder = new ColumnarStreamBucket.Builder(STREAMERS);
+        for (int i = 0; i < 20; i++) {
+            builder.add(new RowN(new Object[]{null, null, null, null, null}));
+        }
+        ColumnarStreamBucket first = builder.build();
+        builder.reset();
+        builder.add(new RowN(new Object[]{2L, 20, 2.5d, new BytesRef("bar"), true}));
+        ColumnarStreamBucket second = streamed(builder.build());
+
+        assertThat(first.size(), is(20));
+        assertThat(second, contains(isRow(2L, 20, 2.5d, "bar", true)));
+    }
+
+    @Test
+    public void testLargePagesAreCompressed() throws Exception {
+        ColumnarStreamBucket.Builder builder = new ColumnarStreamBucket.Builder(STREAMERS);
+        int numRows = 10_000;
+        for (int i = 0; i < numRows; i++) {
+            builder.add(new RowN(new Object[]{(long) i % 10, i % 10, 0.5d, new BytesRef("value"), i % 2 == 0}));
+        }
+        ColumnarStreamBucket bucket = builder.build();
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        assertThat(out.size(), lessThan(ColumnarStreamBucket.COMPRESSION_THRESHOLD));
+
+        Iterator<Row> it = streamed(bucket).iterator();
+        for (int i = 0; i < numRows; i++) {
+            assertThat(it.next(), isRow((long) i % 10, i % 10, 0.5d, "value", i % 2 == 0));
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testEmptyBucket() throws Exception {
+        ColumnarStreamBucket bucket = streamed(new ColumnarStreamBucket.Builder(STREAMERS).build());
+        assertThat(bucket.size(), is(0));
+        assertFalse(bucket.iterator().hasNext());
+    }
+}
@@ -77,6 +77,7 @@ public class RamAccountingPageIteratorTest extends CrateUnitTest {
             2,
             false,
             null,
+            Collections.emptyList(),
             () -> null);
 
         assertThat(pagingIterator1, instanceOf(PassThroughPagingIterator.class));
@@ -88,6 +89,7 @@ public class RamAccountingPageIteratorTest extends CrateUnitTest {
             2,
             true,
             null,
+            Collections.emptyList(),
             () -> null);
         assertThat(repeatableIterator, instanceOf(RamAccountingPageIterator.class));
         assertThat(((RamAccountingPageIterator) repeatableIterator).delegatePagingIterator,
@@ -104,6 +106,7 @@ public class RamAccountingPageIteratorTest extends CrateUnitTest {
             2,
             true,
             orderBy,
+            Collections.singletonList(DataTypes.INTEGER),
             () -> null);
 
         assertThat(repeatingSortedPagingIterator, instanceOf(RamAccountingPageIterator.class));
@@ -114,6 +117,7 @@ public class RamAccountingPageIteratorTest extends CrateUnitTest {
             2,
             false,
             orderBy,
+            Collections.singletonList(DataTypes.INTEGER),
             () -> null);
         assertThat(nonRepeatingSortedPagingIterator, instanceOf(RamAccountingPageIterator.class));
         assertThat(((RamAccountingPageIterator) nonRepeatingSortedPagingIterator).delegatePagingIterator,
@@ -126,6 +130,7 @@ public class RamAccountingPageIteratorTest extends CrateUnitTest {
             2,
             true,
             null,
+            Collections.emptyList(),
             () -> new RowAccounting(ImmutableList.of(DataTypes.STRING, DataTypes.STRING, DataTypes.STRING),
                                     new RamAccountingContext("test", NOOP_CIRCUIT_BREAKER)));
         assertThat(pagingIterator, instanceOf(RamAccountingPageIterator.class));
@@ -148,6 +153,7 @@ public class RamAccountingPageIteratorTest extends CrateUnitTest {
             2,
             true,
             null,
+            Collections.emptyList(),
             () -> new RowAccounting(ImmutableList.of(DataTypes.STRING, DataTypes.STRING, DataTypes.STRING),
                                     new RamAccountingContext(
                                         "test",
@@ -27,14 +27,18 @@ import com.google.common.collect.Ordering;
 import io.crate.data.ArrayBucket;
 import io.crate.data.Bucket;
 import io.crate.data.Row;
+import io.crate.data.Row1;
 import io.crate.execution.engine.sort.OrderingByPosition;
+import io.crate.execution.engine.sort.SortKeyEncoder;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.TestingHelpers;
+import io.crate.types.DataTypes;
 import org.junit.Test;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -139,6 +143,73 @@ public class SortedPagingIteratorTest extends CrateUnitTest {
         assertThat(rows, is(replayedRows));
     }
 
+    @Test
+    public void testManyPagedUpstreamsAreMergedCorrectly() throws Exception {
+        boolean useSortKeys = randomBoolean();
+        SortKeyEncoder sortKeyEncoder = SortKeyEncoder.create(
+            new int[] { 0 }, Collections.singletonList(DataTypes.LONG), new boolean[] { false }, new Boolean[] { null });
+        SortedPagingIterator<Integer, Row> pagingIterator = new SortedPagingIterator<>(
+            ORDERING, useSortKeys ? sortKeyEncoder::encode : null, true);
+
+        int numUpstreams = randomIntBetween(1, 200);
+        int numPages = randomIntBetween(1, 5);
+        List<List<List<Row>>> pages = new ArrayList<>(numUpstreams);
+        List<Long> expected = new ArrayList<>();
+        for (int upstream = 0; upstream < numUpstreams; upstream++) {
+            List<Long> values = new ArrayList<>();
+            for (int i = randomIntBetween(0, 50); i > 0; i--) {
+                // some upstreams have disjunct ranges, the others overlap
+                long value = upstream % 3 == 0 ? upstream * 1000L + randomIntBetween(0, 999) : randomIntBetween(0, 1000);
+                values.add(value);
+            }
+            Collections.sort(values);
+            expected.addAll(values);
+            List<List<Row>> upstreamPages = new ArrayList<>(numPages);
+            for (int page = 0; page < numPages; page++) {
+                upstreamPages.add(new ArrayList<>());
+            }
+            int pageSize = Math.max(1, (values.size() + numPages - 1) / numPages);
+            for (int i = 0; i < values.size(); i++) {
+                upstreamPages.get(i / pageSize).add(new Row1(values.get(i)));
+            }
+            pages.add(upstreamPages);
+        }
+        Collections.sort(expected);
+
+        int[] nextPage = new int[numUpstreams];
+        List<KeyIterable<Integer, Row>> firstPages = new ArrayList<>(numUpstreams);
+        for (int upstream = 0; upstream < numUpstreams; upstream++) {
+            firstPages.add(new KeyIterable<>(upstream, pages.get(upstream).get(nextPage[upstream]++)));
+        }
+        pagingIterator.merge(firstPages);
+        List<Object> rows = new ArrayList<>();
+        while (true) {
+            consumeSingleColumnRows(pagingIterator, rows);
+            if (rows.size() == expected.size()) {
+                break;
+            }
+            int exhausted = pagingIterator.exhaustedIterable();
+            if (nextPage[exhausted] < numPages) {
+                // only the exhausted upstream is asked for the next page, like the BatchPagingIterator does
+                List<Row> page = pages.get(exhausted).get(nextPage[exhausted]++);
+                pagingIterator.merge(Collections.singletonList(new KeyIterable<>(exhausted, page)));
+            } else {
+                for (int upstream = 0; upstream < numUpstreams; upstream++) {
+                    while (nextPage[upstream] < numPages) {
+                        List<Row> page = pages.get(upstream).get(nextPage[upstream]++);
+                        pagingIterator.merge(Collections.singletonList(new KeyIterable<>(upstream, page)));
+                    }
+                }
+                pagingIterator.finish();
+            }
+        }
+        assertThat(rows, is(new ArrayList<Object>(expected)));
+
+        List<Object> replayedRows = new ArrayList<>();
+        consumeSingleColumnRows(pagingIterator.repeat().iterator(), replayedRows);
+        assertThat(replayedRows, is(rows));
+    }
+
     private Iterable<? extends KeyIterable<Void, Row>> numberedBuckets(List<Bucket> buckets) {
         return Iterables.transform(buckets, new Function<Bucket, KeyIterable<Void, Row>>() {
 
@@ -22,25 +22,40 @@
 
 package io.crate.execution.engine.export;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import io.crate.data.BatchIterator;
 import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Input;
+import io.crate.data.Row;
 import io.crate.exceptions.UnhandledServerException;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.InputCollectExpression;
 import io.crate.execution.dsl.projection.WriterProjection;
 import io.crate.metadata.ColumnIdent;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.RowGenerator;
 import io.crate.testing.TestingHelpers;
 import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.Streams;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -48,6 +63,7 @@ import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import static io.crate.data.SentinelRow.SENTINEL;
 import static org.hamcrest.core.Is.is;
@@ -119,4 +135,82 @@ public class FileWriterProjectorTest extends CrateUnitTest {
 
         new TestingRowConsumer().accept(fileWriterProjector.apply(sourceSupplier.get()), null);
     }
+
+    @Test
+    public void testWriteParquetToFile() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("out.parquet");
+        InputCollectExpression input = new InputCollectExpression(0);
+
+        FileWriterProjector fileWriterProjector = new FileWriterProjector(executorService, file.toUri().toString(),
+            WriterProjection.CompressionType.GZIP, ImmutableList.<Input<?>>of(input), ImmutableList.of(DataTypes.STRING),
+            ImmutableList.<CollectExpression<Row, ?>>of(input), new HashMap<>(), ImmutableList.of("line"), WriterProjection.OutputFormat.PARQUET,
+            null);
+
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(fileWriterProjector.apply(sourceSupplier.get()), null);
+        assertThat(TestingHelpers.printedTable(consumer.getBucket()), is("5\n"));
+
+        byte[] bytes = Files.readAllBytes(file);
+        assertThat(new String(bytes, 0, 4, "US-ASCII"), is("PAR1"));
+        assertThat(new String(bytes, bytes.length - 4, 4, "US-ASCII"), is("PAR1"));
+    }
+
+    @Test
+    public void testRollOverToNewFileOnMaxFileSize() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("out.json");
+
+        // each line is 14 bytes, so every file will contain 2 lines
+        FileWriterProjector fileWriterProjector = new FileWriterProjector(executorService, file.toUri().toString(),
+            null, null, null, ImmutableSet.of(), new HashMap<>(), null, WriterProjection.OutputFormat.JSON_OBJECT,
+            20L);
+
+        new TestingRowConsumer().accept(fileWriterProjector.apply(sourceSupplier.get()), null);
+
+        List<String> files = new ArrayList<>();
+        try (java.util.stream.Stream<Path> paths = Files.list(folder.getRoot().toPath())) {
+            paths.map(p -> p.getFileName().toString()).sorted().forEach(files::add);
+        }
+        assertThat(files, is(Arrays.asList("out_0.json", "out_1.json", "out_2.json")));
+        assertThat(TestingHelpers.readFile(folder.getRoot().toPath().resolve("out_0.json").toString()),
+            is("input line 00\ninput line 01\n"));
+        assertThat(TestingHelpers.readFile(folder.getRoot().toPath().resolve("out_2.json").toString()),
+            is("input line 04\n"));
+    }
+
+    @Test
+    public void testMaxFileSizeAppliesToCompressedSize() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("out.json.gz");
+        Supplier<BatchIterator> rows = () -> InMemoryBatchIterator.of(RowGenerator.fromSingleColValues(
+            IntStream.range(0, 10_000)
+                .mapToObj(i -> new BytesRef(String.format(Locale.ENGLISH, "input line %05d", i)))
+                .collect(Collectors.toList())), SENTINEL);
+
+        // the uncompressed rows are 170kb, compressed they fit into a single file
+        FileWriterProjector fileWriterProjector = new FileWriterProjector(executorService, file.toUri().toString(),
+            WriterProjection.CompressionType.GZIP, null, null, ImmutableSet.of(), new HashMap<>(), null,
+            WriterProjection.OutputFormat.JSON_OBJECT, 64L * 1024);
+
+        new TestingRowConsumer().accept(fileWriterProjector.apply(rows.get()), null);
+
+        List<String> files = new ArrayList<>();
+        try (java.util.stream.Stream<Path> paths = Files.list(folder.getRoot().toPath())) {
+            paths.map(p -> p.getFileName().toString()).sorted().forEach(files::add);
+        }
+        assertThat(files, is(Collections.singletonList("out_0.json.gz")));
+        Path rolledFile = folder.getRoot().toPath().resolve("out_0.json.gz");
+        assertThat(Files.size(rolledFile) < 64L * 1024, is(true));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(rolledFile))) {
+            assertThat(Streams.copyToString(new InputStreamReader(in, StandardCharsets.UTF_8)).length(), is(10_000 * 17));
+        }
+    }
+
+    @Test
+    public void testPartUriInsertsPartNumberBeforeExtension() throws Exception {
+        assertThat(FileWriterCountCollector.partUri(new URI("file:///tmp/t_0_.json.gz"), 3).toString(),
+            is("file:///tmp/t_0__3.json.gz"));
+        assertThat(FileWriterCountCollector.partUri(new URI("s3://bucket/dir.v1/t_1_.parquet"), 0).toString(),
+            is("s3://bucket/dir.v1/t_1__0.parquet"));
+        assertThat(FileWriterCountCollector.partUri(new URI("file:///tmp/out"), 1).toString(),
+            is("file:///tmp/out_1"));
+    }
 }
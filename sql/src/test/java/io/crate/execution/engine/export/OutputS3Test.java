@@ -0,0 +1,134 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import io.crate.external.S3ClientHelper;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OutputS3Test extends CrateUnitTest {
+
+    private ExecutorService executorService;
+    private AmazonS3 client;
+    private final Map<Integer, byte[]> uploadedParts = new TreeMap<>();
+
+    @Before
+    public void setUpClient() throws Exception {
+        executorService = Executors.newFixedThreadPool(2);
+        client = mock(AmazonS3.class);
+        InitiateMultipartUploadResult initResult = new InitiateMultipartUploadResult();
+        initResult.setUploadId("upload-1");
+        when(client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initResult);
+        when(client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+            byte[] bytes = readFully(request.getInputStream());
+            synchronized (uploadedParts) {
+                uploadedParts.put(request.getPartNumber(), bytes);
+            }
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber());
+            return result;
+        });
+    }
+
+    @After
+    public void shutdownExecutor() throws Exception {
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testMultipartUploadContainsAllWrittenBytes() throws Exception {
+        S3ClientHelper s3ClientHelper = new S3ClientHelper() {
+            @Override
+            protected AmazonS3 initClient(String accessKey, String secretKey) {
+                return client;
+            }
+        };
+        OutputS3 output = new OutputS3(executorService, new URI("s3://bucket/dir/t_0_.parquet"), null, s3ClientHelper);
+
+        byte[] data = new byte[12 * 1024 * 1024];
+        new Random(42).nextBytes(data);
+        try (OutputStream out = output.acquireOutputStream()) {
+            for (int i = 0; i < data.length; i += 100_000) {
+                out.write(data, i, Math.min(100_000, data.length - i));
+            }
+        }
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> completeRequest =
+            ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(client).completeMultipartUpload(completeRequest.capture());
+        assertThat(completeRequest.getValue().getBucketName(), is("bucket"));
+        assertThat(completeRequest.getValue().getKey(), is("dir/t_0_.parquet"));
+        assertThat(completeRequest.getValue().getPartETags().size(), is(uploadedParts.size()));
+        for (PartETag partETag : completeRequest.getValue().getPartETags()) {
+            assertThat(partETag.getETag(), is("etag-" + partETag.getPartNumber()));
+        }
+
+        ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+        for (byte[] part : uploadedParts.values()) {
+            uploaded.write(part);
+        }
+        assertThat(uploadedParts.size(), is(3));
+        assertArrayEquals(data, uploaded.toByteArray());
+    }
+}
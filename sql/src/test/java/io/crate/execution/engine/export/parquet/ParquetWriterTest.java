@@ -0,0 +1,475 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export.parquet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import io.crate.data.Input;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ParquetWriterTest extends CrateUnitTest {
+
+    private static byte[] write(List<DataType> types,
+                                ParquetWriter.Codec codec,
+                                int numRows,
+                                IntFunction<Object[]> rows) throws Exception {
+        return write(types, codec, ParquetWriter.DEFAULT_ROW_GROUP_SIZE, numRows, rows);
+    }
+
+    private static byte[] write(List<DataType> types,
+                                ParquetWriter.Codec codec,
+                                long rowGroupSize,
+                                int numRows,
+                                IntFunction<Object[]> rows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < types.size(); i++) {
+            names.add("c" + i);
+        }
+        Object[][] current = new Object[1][];
+        List<Input<?>> inputs = new ArrayList<>();
+        for (int i = 0; i < types.size(); i++) {
+            int idx = i;
+            inputs.add(() -> current[0][idx]);
+        }
+        try (ParquetWriter writer = new ParquetWriter(out, names, types, codec, rowGroupSize)) {
+            for (int i = 0; i < numRows; i++) {
+                current[0] = rows.apply(i);
+                writer.write(inputs);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertValidFileStructure(byte[] bytes) {
+        assertThat(new String(bytes, 0, 4, StandardCharsets.US_ASCII), is("PAR1"));
+        assertThat(new String(bytes, bytes.length - 4, 4, StandardCharsets.US_ASCII), is("PAR1"));
+        int footerLength = ByteBuffer.wrap(bytes, bytes.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        assertThat(footerLength, greaterThan(0));
+        assertThat(footerLength, lessThanOrEqualTo(bytes.length - 12));
+    }
+
+    @Test
+    public void testWriteAllTypes() throws Exception {
+        List<DataType> types = Arrays.asList(
+            DataTypes.BOOLEAN, DataTypes.BYTE, DataTypes.SHORT, DataTypes.INTEGER, DataTypes.LONG,
+            DataTypes.TIMESTAMP, DataTypes.FLOAT, DataTypes.DOUBLE, DataTypes.STRING, DataTypes.IP, DataTypes.OBJECT);
+        byte[] bytes = write(types, ParquetWriter.Codec.UNCOMPRESSED, 100, i -> new Object[] {
+            i % 2 == 0, (byte) i, (short) i, i, (long) i, 1500000000000L + i, (float) i, (double) i,
+            new BytesRef("s" + i), new BytesRef("127.0.0.1"), i % 3 == 0 ? null : Collections.singletonMap("x", i)
+        });
+        assertValidFileStructure(bytes);
+    }
+
+    @Test
+    public void testOnlyNulls() throws Exception {
+        byte[] bytes = write(ImmutableList.of(DataTypes.STRING, DataTypes.LONG), ParquetWriter.Codec.GZIP, 10,
+            i -> new Object[] {null, null});
+        assertValidFileStructure(bytes);
+    }
+
+    @Test
+    public void testNoRows() throws Exception {
+        byte[] bytes = write(ImmutableList.of(DataTypes.STRING), ParquetWriter.Codec.UNCOMPRESSED, 0, i -> null);
+        assertValidFileStructure(bytes);
+    }
+
+    @Test
+    public void testLowCardinalityColumnIsDictionaryEncoded() throws Exception {
+        byte[] lowCardinality = write(ImmutableList.of(DataTypes.STRING), ParquetWriter.Codec.UNCOMPRESSED, 10_000,
+            i -> new Object[] {new BytesRef(String.format(Locale.ENGLISH, "some longer value %05d", i % 10))});
+        byte[] highCardinality = write(ImmutableList.of(DataTypes.STRING), ParquetWriter.Codec.UNCOMPRESSED, 10_000,
+            i -> new Object[] {new BytesRef(String.format(Locale.ENGLISH, "some longer value %05d", i))});
+        assertValidFileStructure(lowCardinality);
+        assertValidFileStructure(highCardinality);
+        // dictionary ids of 10 entries are bit packed using 4 bits per value
+        assertThat(lowCardinality.length, lessThan(10_000));
+        assertThat(highCardinality.length, greaterThan(10_000 * 23));
+    }
+
+    @Test
+    public void testGzipCompressesPages() throws Exception {
+        IntFunction<Object[]> rows = i -> new Object[] {(double) (i % 100), new BytesRef("value " + i)};
+        List<DataType> types = ImmutableList.of(DataTypes.DOUBLE, DataTypes.STRING);
+        byte[] uncompressed = write(types, ParquetWriter.Codec.UNCOMPRESSED, 10_000, rows);
+        byte[] compressed = write(types, ParquetWriter.Codec.GZIP, 10_000, rows);
+        assertValidFileStructure(compressed);
+        assertThat(compressed.length, lessThan(uncompressed.length / 2));
+    }
+
+    @Test
+    public void testRowGroupsAreFlushedOnceRowGroupSizeIsReached() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Object[] row = new Object[1];
+        List<Input<?>> inputs = Collections.singletonList(() -> row[0]);
+        try (ParquetWriter writer = new ParquetWriter(
+            out, ImmutableList.of("x"), ImmutableList.of(DataTypes.LONG), ParquetWriter.Codec.UNCOMPRESSED, 1024)) {
+            for (long i = 0; i < 10_000; i++) {
+                row[0] = i;
+                writer.write(inputs);
+            }
+            assertThat(out.size(), greaterThan(9 * 1000 * 8));
+            assertThat(writer.bufferedBytes(), lessThan(1000L * 8 + 1024));
+        }
+        assertValidFileStructure(out.toByteArray());
+    }
+
+    @Test
+    public void testRoundTripAllTypes() throws Exception {
+        for (ParquetWriter.Codec codec : ParquetWriter.Codec.values()) {
+            List<DataType> types = Arrays.asList(
+                DataTypes.BOOLEAN, DataTypes.BYTE, DataTypes.SHORT, DataTypes.INTEGER, DataTypes.LONG,
+                DataTypes.TIMESTAMP, DataTypes.FLOAT, DataTypes.DOUBLE, DataTypes.STRING, DataTypes.OBJECT);
+            int numRows = 1000;
+            byte[] bytes = write(types, codec, numRows, i -> withNulls(i, new Object[] {
+                i % 3 == 0, (byte) (i % 100), (short) (i % 10), i, (long) i * 1000, 1500000000000L + i % 20,
+                (float) i / 2, (double) i / 4, new BytesRef("s" + i % 30), Collections.singletonMap("x", i % 5)
+            }));
+            ParquetFile file = ParquetFile.read(bytes);
+
+            assertThat(field(file.metaData, 1), is(1));
+            assertThat(field(file.metaData, 3), is((long) numRows));
+            assertThat(new String((byte[]) file.metaData.get(6), StandardCharsets.UTF_8), is("crate"));
+            List<Map<Integer, Object>> schema = field(file.metaData, 2);
+            assertThat(schema.size(), is(types.size() + 1));
+            assertThat(field(schema.get(0), 5), is(types.size()));
+            assertThat(new String((byte[]) schema.get(9).get(4), StandardCharsets.UTF_8), is("c8"));
+            assertThat(field(schema.get(9), 1), is(ColumnChunkWriter.TYPE_BYTE_ARRAY));
+            assertThat(field(schema.get(9), 6), is(0));
+            assertThat(field(schema.get(6), 1), is(ColumnChunkWriter.TYPE_INT64));
+            assertThat(field(schema.get(6), 6), is(9));
+
+            Map<Integer, Object> chunkMetaData = field(file.columnChunks(0).get(8), 3);
+            assertThat(field(chunkMetaData, 4), is(codec == ParquetWriter.Codec.GZIP ? 2 : 0));
+            assertThat(field(chunkMetaData, 5), is((long) numRows));
+
+            assertThat(file.dataPageEncodings.get(0), is(Collections.singleton(ColumnChunkWriter.ENCODING_PLAIN)));
+            for (int column = 1; column < 6; column++) {
+                assertThat(file.dataPageEncodings.get(column),
+                    is(Collections.singleton(ColumnChunkWriter.ENCODING_RLE_DICTIONARY)));
+            }
+            for (int i = 0; i < numRows; i++) {
+                Object[] expected = withNulls(i, new Object[] {
+                    i % 3 == 0, i % 100, i % 10, i, (long) i * 1000, 1500000000000L + i % 20,
+                    (float) i / 2, (double) i / 4, "s" + i % 30, "{\"x\":" + i % 5 + "}"
+                });
+                for (int column = 0; column < types.size(); column++) {
+                    assertThat("row " + i + ", column " + column, file.values.get(column).get(i), is(expected[column]));
+                }
+            }
+        }
+    }
+
+    private static Object[] withNulls(int row, Object[] cells) {
+        cells[row % 7] = null;
+        return cells;
+    }
+
+    @Test
+    public void testRoundTripDictionaryFallbackToPlain() throws Exception {
+        int numRows = 100_000;
+        byte[] bytes = write(ImmutableList.of(DataTypes.STRING), ParquetWriter.Codec.GZIP, numRows,
+            i -> new Object[] {i % 11 == 0 ? null : new BytesRef(String.format(Locale.ENGLISH, "value %08d", i))});
+        ParquetFile file = ParquetFile.read(bytes);
+
+        assertThat(file.dataPageEncodings.get(0),
+            is(new HashSet<>(Arrays.asList(ColumnChunkWriter.ENCODING_RLE_DICTIONARY, ColumnChunkWriter.ENCODING_PLAIN))));
+        List<Object> values = file.values.get(0);
+        assertThat(values.size(), is(numRows));
+        for (int i = 0; i < numRows; i++) {
+            Object expected = i % 11 == 0 ? null : String.format(Locale.ENGLISH, "value %08d", i);
+            assertThat(values.get(i), is(expected));
+        }
+    }
+
+    @Test
+    public void testRoundTripMultipleRowGroups() throws Exception {
+        int numRows = 10_000;
+        byte[] bytes = write(ImmutableList.of(DataTypes.LONG), ParquetWriter.Codec.UNCOMPRESSED, 1024, numRows,
+            i -> new Object[] {i % 10 == 0 ? null : (long) i});
+        ParquetFile file = ParquetFile.read(bytes);
+
+        List<Map<Integer, Object>> rowGroups = field(file.metaData, 4);
+        assertThat(rowGroups.size(), greaterThan(1));
+        long rowGroupRows = 0L;
+        for (Map<Integer, Object> rowGroup : rowGroups) {
+            rowGroupRows += (long) field(rowGroup, 3);
+        }
+        assertThat(rowGroupRows, is((long) numRows));
+        List<Object> values = file.values.get(0);
+        assertThat(values.size(), is(numRows));
+        for (int i = 0; i < numRows; i++) {
+            Object expected = i % 10 == 0 ? null : (long) i;
+            assertThat(values.get(i), is(expected));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T field(Map<Integer, Object> struct, int id) {
+        return (T) struct.get(id);
+    }
+
+    /**
+     * Decodes a parquet file written by the {@link ParquetWriter}: the footer, the page headers and the values of
+     * all row groups, following the parquet format specification.
+     */
+    private static final class ParquetFile {
+
+        private final Map<Integer, Object> metaData;
+        private final List<List<Object>> values = new ArrayList<>();
+        private final List<Set<Integer>> dataPageEncodings = new ArrayList<>();
+
+        private ParquetFile(Map<Integer, Object> metaData) {
+            this.metaData = metaData;
+        }
+
+        static ParquetFile read(byte[] bytes) throws Exception {
+            assertValidFileStructure(bytes);
+            int footerLength = ByteBuffer.wrap(bytes, bytes.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+            ByteBuffer footer = ByteBuffer.wrap(bytes, bytes.length - 8 - footerLength, footerLength);
+            ParquetFile file = new ParquetFile(new ThriftCompactReader(footer).readStruct());
+            assertThat("the footer must be consumed completely", footer.remaining(), is(0));
+
+            List<Map<Integer, Object>> schema = field(file.metaData, 2);
+            List<Map<Integer, Object>> rowGroups = field(file.metaData, 4);
+            for (int column = 0; column < schema.size() - 1; column++) {
+                List<Object> columnValues = new ArrayList<>();
+                Set<Integer> encodings = new HashSet<>();
+                for (Map<Integer, Object> rowGroup : rowGroups) {
+                    List<Map<Integer, Object>> chunks = field(rowGroup, 1);
+                    readChunk(bytes, chunks.get(column), columnValues, encodings);
+                }
+                file.values.add(columnValues);
+                file.dataPageEncodings.add(encodings);
+            }
+            return file;
+        }
+
+        List<Map<Integer, Object>> columnChunks(int rowGroup) {
+            List<Map<Integer, Object>> rowGroups = field(metaData, 4);
+            return field(rowGroups.get(rowGroup), 1);
+        }
+
+        private static void readChunk(byte[] bytes,
+                                      Map<Integer, Object> chunk,
+                                      List<Object> columnValues,
+                                      Set<Integer> encodings) throws Exception {
+            Map<Integer, Object> chunkMetaData = field(chunk, 3);
+            int physicalType = field(chunkMetaData, 1);
+            int codec = field(chunkMetaData, 4);
+            long fileOffset = field(chunk, 2);
+            long compressedSize = field(chunkMetaData, 7);
+            ByteBuffer pages = ByteBuffer.wrap(bytes, (int) fileOffset, (int) compressedSize);
+
+            List<Object> dictionary = null;
+            long numValues = 0L;
+            while (pages.hasRemaining()) {
+                Map<Integer, Object> pageHeader = new ThriftCompactReader(pages).readStruct();
+                int pageType = field(pageHeader, 1);
+                int uncompressedPageSize = field(pageHeader, 2);
+                byte[] body = new byte[(int) field(pageHeader, 3)];
+                pages.get(body);
+                if (codec == 2) {
+                    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                        body = ByteStreams.toByteArray(in);
+                    }
+                }
+                assertThat(body.length, is(uncompressedPageSize));
+                ByteBuffer page = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+
+                if (pageType == 2) {
+                    Map<Integer, Object> dictionaryPageHeader = field(pageHeader, 7);
+                    assertThat(field(dictionaryPageHeader, 2), is(ColumnChunkWriter.ENCODING_PLAIN));
+                    int numEntries = field(dictionaryPageHeader, 1);
+                    dictionary = new ArrayList<>(numEntries);
+                    for (int i = 0; i < numEntries; i++) {
+                        dictionary.add(readPlain(page, physicalType));
+                    }
+                } else {
+                    assertThat(pageType, is(0));
+                    Map<Integer, Object> dataPageHeader = field(pageHeader, 5);
+                    int numPageValues = field(dataPageHeader, 1);
+                    int encoding = field(dataPageHeader, 2);
+                    assertThat(field(dataPageHeader, 3), is(ColumnChunkWriter.ENCODING_RLE));
+                    encodings.add(encoding);
+
+                    byte[] levels = new byte[page.getInt()];
+                    page.get(levels);
+                    int[] definitionLevels = RleBitPackedEncoderTest.decode(levels, 1, numPageValues);
+                    int numNonNull = 0;
+                    for (int level : definitionLevels) {
+                        numNonNull += level;
+                    }
+                    List<Object> pageValues = new ArrayList<>(numNonNull);
+                    if (encoding == ColumnChunkWriter.ENCODING_RLE_DICTIONARY) {
+                        assertThat("dictionary page must precede the data pages", dictionary != null, is(true));
+                        int bitWidth = page.get();
+                        byte[] encodedIds = new byte[page.remaining()];
+                        page.get(encodedIds);
+                        for (int id : RleBitPackedEncoderTest.decode(encodedIds, bitWidth, numNonNull)) {
+                            pageValues.add(dictionary.get(id));
+                        }
+                    } else if (physicalType == ColumnChunkWriter.TYPE_BOOLEAN) {
+                        for (int i = 0; i < numNonNull; i++) {
+                            pageValues.add((body[page.position() + (i >> 3)] & (1 << (i & 7))) != 0);
+                        }
+                        page.position(page.position() + ((numNonNull + 7) >> 3));
+                    } else {
+                        for (int i = 0; i < numNonNull; i++) {
+                            pageValues.add(readPlain(page, physicalType));
+                        }
+                    }
+                    assertThat("the page must be consumed completely", page.remaining(), is(0));
+
+                    Iterator<Object> it = pageValues.iterator();
+                    for (int level : definitionLevels) {
+                        columnValues.add(level == 0 ? null : it.next());
+                    }
+                    numValues += numPageValues;
+                }
+            }
+            assertThat(field(chunkMetaData, 5), is(numValues));
+        }
+
+        private static Object readPlain(ByteBuffer page, int physicalType) {
+            switch (physicalType) {
+                case ColumnChunkWriter.TYPE_INT32:
+                    return page.getInt();
+                case ColumnChunkWriter.TYPE_INT64:
+                    return page.getLong();
+                case ColumnChunkWriter.TYPE_FLOAT:
+                    return page.getFloat();
+                case ColumnChunkWriter.TYPE_DOUBLE:
+                    return page.getDouble();
+                case ColumnChunkWriter.TYPE_BYTE_ARRAY:
+                    byte[] value = new byte[page.getInt()];
+                    page.get(value);
+                    return new String(value, StandardCharsets.UTF_8);
+                default:
+                    throw new AssertionError("Unexpected physical type " + physicalType);
+            }
+        }
+    }
+
+    /**
+     * Reader for the thrift compact protocol; structs are read into maps from field id to value
+     */
+    private static final class ThriftCompactReader {
+
+        private final ByteBuffer buffer;
+
+        ThriftCompactReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        Map<Integer, Object> readStruct() {
+            Map<Integer, Object> fields = new HashMap<>();
+            int fieldId = 0;
+            while (true) {
+                int header = buffer.get() & 0xFF;
+                if (header == 0) {
+                    return fields;
+                }
+                int delta = header >>> 4;
+                fieldId = delta == 0 ? (int) unZigZag(readVarLong()) : fieldId + delta;
+                fields.put(fieldId, readValue(header & 0x0F));
+            }
+        }
+
+        private Object readValue(int type) {
+            switch (type) {
+                case ThriftCompactWriter.TYPE_BOOLEAN_TRUE:
+                    return true;
+                case ThriftCompactWriter.TYPE_BOOLEAN_FALSE:
+                    return false;
+                case ThriftCompactWriter.TYPE_I32:
+                    return (int) unZigZag(readVarLong());
+                case ThriftCompactWriter.TYPE_I64:
+                    return unZigZag(readVarLong());
+                case ThriftCompactWriter.TYPE_BINARY:
+                    byte[] bytes = new byte[(int) readVarLong()];
+                    buffer.get(bytes);
+                    return bytes;
+                case ThriftCompactWriter.TYPE_LIST:
+                    int header = buffer.get() & 0xFF;
+                    int size = header >>> 4;
+                    if (size == 15) {
+                        size = (int) readVarLong();
+                    }
+                    List<Object> elements = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        elements.add(readValue(header & 0x0F));
+                    }
+                    return elements;
+                case ThriftCompactWriter.TYPE_STRUCT:
+                    return readStruct();
+                default:
+                    throw new AssertionError("Unexpected thrift type " + type);
+            }
+        }
+
+        private long readVarLong() {
+            long value = 0L;
+            int shift = 0;
+            int b;
+            do {
+                b = buffer.get() & 0xFF;
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private static long unZigZag(long n) {
+            return (n >>> 1) ^ -(n & 1);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export.parquet;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class RleBitPackedEncoderTest extends CrateUnitTest {
+
+    private static byte[] encode(int[] values, int bitWidth) throws Exception {
+        LittleEndianOutput out = new LittleEndianOutput(16);
+        RleBitPackedEncoder.encode(values, values.length, bitWidth, out);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        out.writeTo(bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decoder as described in the parquet format specification
+     */
+    static int[] decode(byte[] bytes, int bitWidth, int count) {
+        int[] values = new int[count];
+        int numValues = 0;
+        int pos = 0;
+        while (numValues < count) {
+            int header = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = bytes[pos++] & 0xFF;
+                header |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            if ((header & 1) == 1) {
+                int numGroupValues = (header >>> 1) * 8;
+                long buffer = 0L;
+                int bufferedBits = 0;
+                for (int i = 0; i < numGroupValues; i++) {
+                    while (bufferedBits < bitWidth) {
+                        buffer |= (long) (bytes[pos++] & 0xFF) << bufferedBits;
+                        bufferedBits += 8;
+                    }
+                    int value = (int) (buffer & ((1L << bitWidth) - 1));
+                    buffer >>>= bitWidth;
+                    bufferedBits -= bitWidth;
+                    if (numValues < count) {
+                        values[numValues++] = value;
+                    }
+                }
+            } else {
+                int runLength = header >>> 1;
+                int value = 0;
+                for (int bits = 0; bits < bitWidth; bits += 8) {
+                    value |= (bytes[pos++] & 0xFF) << bits;
+                }
+                for (int i = 0; i < runLength; i++) {
+                    values[numValues++] = value;
+                }
+            }
+        }
+        assertThat("all bytes must be consumed", pos, is(bytes.length));
+        return values;
+    }
+
+    @Test
+    public void testRoundTripRandomValues() throws Exception {
+        Random random = new Random(randomLong());
+        for (int bitWidth : new int[] {1, 3, 8, 13, 20, 30}) {
+            int[] values = new int[randomIntBetween(1, 5000)];
+            for (int i = 0; i < values.length; i++) {
+                if (random.nextInt(4) == 0 && i > 0) {
+                    // mix in runs
+                    int runLength = Math.min(values.length - i, random.nextInt(40));
+                    Arrays.fill(values, i, i + runLength, values[i - 1]);
+                    i += Math.max(0, runLength - 1);
+                } else {
+                    values[i] = random.nextInt(1 << bitWidth);
+                }
+            }
+            assertThat(decode(encode(values, bitWidth), bitWidth, values.length), is(values));
+        }
+    }
+
+    @Test
+    public void testRepeatedValuesAreRunLengthEncoded() throws Exception {
+        int[] values = new int[10_000];
+        Arrays.fill(values, 0, 5_000, 1);
+        byte[] bytes = encode(values, 1);
+        assertThat(bytes.length, lessThan(10));
+        assertThat(decode(bytes, 1, values.length), is(values));
+    }
+
+    @Test
+    public void testBitWidth() throws Exception {
+        assertThat(RleBitPackedEncoder.bitWidth(0), is(1));
+        assertThat(RleBitPackedEncoder.bitWidth(1), is(1));
+        assertThat(RleBitPackedEncoder.bitWidth(2), is(2));
+        assertThat(RleBitPackedEncoder.bitWidth(255), is(8));
+        assertThat(RleBitPackedEncoder.bitWidth(256), is(9));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.execution.engine.indexing;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.crate.execution.engine.indexing.BulkSizeController.MAX_IN_FLIGHT_PER_SHARD;
+import static io.crate.execution.engine.indexing.BulkSizeController.MAX_QUEUED_PER_SHARD;
+import static io.crate.execution.engine.indexing.BulkSizeController.TARGET_LATENCY_NANOS;
+import static org.hamcrest.Matchers.is;
+
+public class BulkSizeControllerTest extends CrateUnitTest {
+
+    private final ShardId shard0 = new ShardId("t", "_na_", 0);
+    private final ShardId shard1 = new ShardId("t", "_na_", 1);
+
+    @Test
+    public void testSlowResponsesShrinkAndFastResponsesGrowBulkSize() {
+        BulkSizeController controller = new BulkSizeController(1000);
+        assertThat(controller.bulkSize(shard0), is(1000));
+
+        controller.execute(shard0, () -> {});
+        controller.onResponse(shard0, TARGET_LATENCY_NANOS + 1);
+        assertThat(controller.bulkSize(shard0), is(500));
+        assertThat(controller.bulkSize(shard1), is(1000));
+
+        controller.execute(shard0, () -> {});
+        controller.onResponse(shard0, TARGET_LATENCY_NANOS - 1);
+        assertThat(controller.bulkSize(shard0), is(600));
+
+        for (int i = 0; i < 10; i++) {
+            controller.execute(shard0, () -> {});
+            controller.onResponse(shard0, 0L);
+        }
+        assertThat(controller.bulkSize(shard0), is(1000));
+    }
+
+    @Test
+    public void testBulkSizeDoesNotShrinkBelowMinimum() {
+        BulkSizeController controller = new BulkSizeController(40);
+        controller.execute(shard0, () -> {});
+        for (int i = 0; i < 5; i++) {
+            controller.onRejection(shard0);
+        }
+        assertThat(controller.bulkSize(shard0), is(BulkSizeController.MIN_BULK_SIZE));
+    }
+
+    @Test
+    public void testRequestsAreQueuedPerShardOnceMaxInFlightIsReached() {
+        BulkSizeController controller = new BulkSizeController(100);
+        AtomicInteger executed = new AtomicInteger(0);
+        for (int i = 0; i < MAX_IN_FLIGHT_PER_SHARD + MAX_QUEUED_PER_SHARD; i++) {
+            controller.execute(shard0, executed::incrementAndGet);
+        }
+        controller.execute(shard1, executed::incrementAndGet);
+
+        assertThat(executed.get(), is(MAX_IN_FLIGHT_PER_SHARD + 1));
+        assertThat(controller.inFlightRequests(), is(MAX_IN_FLIGHT_PER_SHARD + 1));
+        assertThat(controller.isBacklogged(shard0), is(true));
+        assertThat(controller.isBacklogged(shard1), is(false));
+
+        controller.onResponse(shard0, 0L);
+        assertThat(executed.get(), is(MAX_IN_FLIGHT_PER_SHARD + 2));
+        assertThat(controller.isBacklogged(shard0), is(false));
+
+        for (int i = 0; i < MAX_QUEUED_PER_SHARD - 1; i++) {
+            controller.onFailure(shard0);
+        }
+        assertThat(executed.get(), is(MAX_IN_FLIGHT_PER_SHARD + MAX_QUEUED_PER_SHARD + 1));
+        assertThat(controller.inFlightRequests(), is(MAX_IN_FLIGHT_PER_SHARD + 1));
+
+        for (int i = 0; i < MAX_IN_FLIGHT_PER_SHARD; i++) {
+            controller.onResponse(shard0, 0L);
+        }
+        controller.onResponse(shard1, 0L);
+        assertThat(controller.inFlightRequests(), is(0));
+    }
+
+    @Test
+    public void testAverageBulkSize() {
+        BulkSizeController controller = new BulkSizeController(1000);
+        assertThat(controller.averageBulkSize(), is(1000));
+
+        controller.execute(shard0, () -> {});
+        controller.execute(shard1, () -> {});
+        controller.onRejection(shard0);
+        assertThat(controller.averageBulkSize(), is(750));
+    }
+}
@@ -101,7 +101,9 @@ public class IndexWriterProjectorTest extends SQLTransportIntegrationTest {
             null,
             false,
             false,
-            UUID.randomUUID()
+            UUID.randomUUID(),
+            null,
+            0
         );
 
         BatchIterator rowsIterator = InMemoryBatchIterator.of(IntStream.range(0, 100)
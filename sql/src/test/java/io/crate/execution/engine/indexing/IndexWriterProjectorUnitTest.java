@@ -113,7 +113,9 @@ public class IndexWriterProjectorUnitTest extends CrateDummyClusterServiceUnitTe
             null,
             false,
             false,
-            UUID.randomUUID());
+            UUID.randomUUID(),
+            null,
+            0);
 
         RowN rowN = new RowN(new Object[]{new BytesRef("{\"y\": \"x\"}"), null});
         BatchIterator<Row> batchIterator = InMemoryBatchIterator.of(Collections.singletonList(rowN), SENTINEL);
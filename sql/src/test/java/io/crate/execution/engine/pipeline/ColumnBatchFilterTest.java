@@ -0,0 +1,117 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.pipeline;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.data.ColumnBatch;
+import io.crate.data.ColumnVector;
+import io.crate.expression.InputFactory;
+import io.crate.expression.RowFilter;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.Functions;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class ColumnBatchFilterTest extends CrateUnitTest {
+
+    private Functions functions;
+    private ColumnBatch batch;
+
+    @Before
+    public void prepareBatch() {
+        functions = getFunctions();
+        // long column with 0..19 (null at position 7), string column with "a" for even and "b" for odd positions
+        batch = new ColumnBatch(new ColumnVector[] { ColumnVector.longs(32), ColumnVector.objects(32) }, 32);
+        for (int i = 0; i < 20; i++) {
+            batch.column(0).set(i, i == 7 ? null : (long) i);
+            batch.column(1).set(i, i % 2 == 0 ? "a" : "b");
+        }
+        batch.setSize(20);
+    }
+
+    private Function op(String name, DataType type, Symbol left, Symbol right) {
+        FunctionImplementation impl = functions.getBuiltin(name, ImmutableList.of(type, type));
+        return new Function(impl.info(), Arrays.asList(left, right));
+    }
+
+    private ColumnBatch filter(Symbol query) {
+        return ColumnBatchFilter.create(RowFilter.create(new InputFactory(functions), query), query).apply(batch);
+    }
+
+    private static List<Integer> selectedPositions(ColumnBatch batch) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < batch.numSelected(); i++) {
+            positions.add(batch.position(i));
+        }
+        return positions;
+    }
+
+    @Test
+    public void testRangeOnLongColumnWithLiteralOnEitherSide() {
+        Symbol query = op(AndOperator.NAME, DataTypes.BOOLEAN,
+            op(GteOperator.NAME, DataTypes.LONG, new InputColumn(0, DataTypes.LONG), Literal.of(5L)),
+            op(LtOperator.NAME, DataTypes.LONG, Literal.of(5L), new InputColumn(0, DataTypes.LONG)));
+        assertThat(selectedPositions(filter(query)), contains(6, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19));
+    }
+
+    @Test
+    public void testFilterOnObjectColumnFallsBackToRowFilter() {
+        Symbol query = op(EqOperator.NAME, DataTypes.STRING,
+            new InputColumn(1, DataTypes.STRING), Literal.of("b"));
+        ColumnBatch result = filter(query);
+        assertThat(result.numSelected(), is(10));
+        assertThat(result.position(0), is(1));
+    }
+
+    @Test
+    public void testFiltersAreAppliedOnSelection() {
+        filter(op(EqOperator.NAME, DataTypes.STRING, new InputColumn(1, DataTypes.STRING), Literal.of("a")));
+        Symbol query = op(LtOperator.NAME, DataTypes.LONG, new InputColumn(0, DataTypes.LONG), Literal.of(9L));
+        assertThat(selectedPositions(filter(query)), contains(0, 2, 4, 6, 8));
+    }
+
+    @Test
+    public void testDoubleLiteralOnLongColumn() {
+        Symbol query = op(GteOperator.NAME, DataTypes.DOUBLE, new InputColumn(0, DataTypes.LONG), Literal.of(17.5));
+        assertThat(selectedPositions(filter(query)), contains(18, 19));
+    }
+}
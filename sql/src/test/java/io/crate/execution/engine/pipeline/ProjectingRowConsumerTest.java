@@ -142,7 +142,7 @@ public class ProjectingRowConsumerTest extends CrateUnitTest {
         RowConsumer delegateConsumerRequiresScroll = new DummyRowConsumer(true);
 
         RowConsumer projectingConsumer = ProjectingRowConsumer.create(delegateConsumerRequiresScroll,
-            Collections.singletonList(filterProjection), UUID.randomUUID(), RAM_ACCOUNTING_CONTEXT, projectorFactory);
+            Collections.singletonList(filterProjection), UUID.randomUUID(), 0, RAM_ACCOUNTING_CONTEXT, projectorFactory);
 
         assertThat(projectingConsumer.requiresScroll(), is(true));
     }
@@ -155,7 +155,7 @@ public class ProjectingRowConsumerTest extends CrateUnitTest {
         RowConsumer delegateConsumerRequiresScroll = new DummyRowConsumer(true);
 
         RowConsumer projectingConsumer = ProjectingRowConsumer.create(delegateConsumerRequiresScroll,
-            Collections.singletonList(groupProjection), UUID.randomUUID(), RAM_ACCOUNTING_CONTEXT, projectorFactory);
+            Collections.singletonList(groupProjection), UUID.randomUUID(), 0, RAM_ACCOUNTING_CONTEXT, projectorFactory);
 
         assertThat(projectingConsumer.requiresScroll(), is(false));
     }
@@ -167,7 +167,7 @@ public class ProjectingRowConsumerTest extends CrateUnitTest {
         RowConsumer delegateConsumerRequiresScroll = new DummyRowConsumer(false);
 
         RowConsumer projectingConsumer = ProjectingRowConsumer.create(delegateConsumerRequiresScroll,
-            Collections.singletonList(groupProjection), UUID.randomUUID(), RAM_ACCOUNTING_CONTEXT, projectorFactory);
+            Collections.singletonList(groupProjection), UUID.randomUUID(), 0, RAM_ACCOUNTING_CONTEXT, projectorFactory);
 
         assertThat(projectingConsumer.requiresScroll(), is(false));
     }
@@ -180,13 +180,15 @@ public class ProjectingRowConsumerTest extends CrateUnitTest {
             null,
             Collections.emptyMap(),
             Collections.emptyList(),
-            WriterProjection.OutputFormat.JSON_OBJECT);
+            WriterProjection.OutputFormat.JSON_OBJECT,
+            null);
 
         TestingRowConsumer consumer = new TestingRowConsumer();
         RowConsumer rowConsumer = ProjectingRowConsumer.create(
             consumer,
             Collections.singletonList(writerProjection),
             UUID.randomUUID(),
+            0,
             RAM_ACCOUNTING_CONTEXT,
             projectorFactory
         );
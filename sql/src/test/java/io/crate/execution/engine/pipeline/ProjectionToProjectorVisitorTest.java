@@ -138,7 +138,7 @@ public class ProjectionToProjectorVisitorTest extends CrateUnitTest {
     public void testSimpleTopNProjection() throws Exception {
         TopNProjection projection = new TopNProjection(10, 2, Collections.singletonList(DataTypes.LONG));
 
-        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID());
+        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID(), 0);
         assertThat(projector, instanceOf(SimpleTopNProjector.class));
 
         TestingRowConsumer consumer = new TestingRowConsumer();
@@ -157,7 +157,7 @@ public class ProjectionToProjectorVisitorTest extends CrateUnitTest {
             new boolean[]{false, false},
             new Boolean[]{null, null}
         );
-        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID());
+        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID(), 0);
         assertThat(projector, instanceOf(SortingTopNProjector.class));
     }
 
@@ -169,7 +169,7 @@ public class ProjectionToProjectorVisitorTest extends CrateUnitTest {
             new boolean[]{false, false},
             new Boolean[]{null, null}
         );
-        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID());
+        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID(), 0);
         assertThat(projector, instanceOf(SortingProjector.class));
     }
 
@@ -185,7 +185,7 @@ public class ProjectionToProjectorVisitorTest extends CrateUnitTest {
                 countInfo.returnType(),
                 Collections.singletonList(new InputColumn(0)))
         ), RowGranularity.SHARD, AggregateMode.ITER_FINAL);
-        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID());
+        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID(), 0);
 
         assertThat(projector, instanceOf(AggregationPipe.class));
 
@@ -222,7 +222,7 @@ public class ProjectionToProjectorVisitorTest extends CrateUnitTest {
         GroupProjection projection = new GroupProjection(
             keys, aggregations, AggregateMode.ITER_FINAL, RowGranularity.CLUSTER);
 
-        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID());
+        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID(), 0);
         assertThat(projector, instanceOf(GroupingProjector.class));
 
         // use a topN projection in order to get sorted outputs
@@ -233,7 +233,7 @@ public class ProjectionToProjectorVisitorTest extends CrateUnitTest {
             ImmutableList.of(new InputColumn(2, DataTypes.DOUBLE)),
             new boolean[]{false},
             new Boolean[]{null});
-        Projector topNProjector = visitor.create(topNProjection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID());
+        Projector topNProjector = visitor.create(topNProjection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID(), 0);
 
         BytesRef human = new BytesRef("human");
         BytesRef vogon = new BytesRef("vogon");
@@ -270,7 +270,7 @@ public class ProjectionToProjectorVisitorTest extends CrateUnitTest {
         FilterProjection projection = new FilterProjection(function,
             Arrays.asList(new InputColumn(0), new InputColumn(1)));
 
-        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID());
+        Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID(), 0);
         assertThat(projector, instanceOf(FilterProjector.class));
 
         List<Object[]> rows = new ArrayList<>();
@@ -0,0 +1,134 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.sort;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SortKeyEncoderTest extends CrateUnitTest {
+
+    private static final List<DataType> TYPES = ImmutableList.of(
+        DataTypes.LONG, DataTypes.INTEGER, DataTypes.DOUBLE, DataTypes.FLOAT, DataTypes.BOOLEAN, DataTypes.STRING);
+
+    private static BytesRef encode(SortKeyEncoder encoder, Object... cells) {
+        BytesRefBuilder key = new BytesRefBuilder();
+        encoder.encode(cells, key);
+        return key.toBytesRef();
+    }
+
+    private static SortKeyEncoder singleColumn(DataType type, boolean reverse, Boolean nullsFirst) {
+        return SortKeyEncoder.create(
+            new int[] { 0 }, ImmutableList.of(type), new boolean[] { reverse }, new Boolean[] { nullsFirst });
+    }
+
+    @Test
+    public void testUnsupportedTypeReturnsNull() {
+        assertThat(singleColumn(DataTypes.GEO_POINT, false, null), nullValue());
+    }
+
+    @Test
+    public void testStringPrefixSortsFirst() {
+        SortKeyEncoder encoder = singleColumn(DataTypes.STRING, false, null);
+        BytesRef a = encode(encoder, new BytesRef("a"));
+        BytesRef aZero = encode(encoder, new BytesRef(new byte[] { 'a', 0 }));
+        BytesRef ab = encode(encoder, new BytesRef("ab"));
+
+        assertThat(a.compareTo(aZero), lessThan(0));
+        assertThat(aZero.compareTo(ab), lessThan(0));
+    }
+
+    @Test
+    public void testSpecialDoubleValues() {
+        SortKeyEncoder encoder = singleColumn(DataTypes.DOUBLE, false, null);
+        double[] values = {
+            Double.NEGATIVE_INFINITY, -1.5, -0.0, 0.0, Double.MIN_VALUE, 2.0, Double.POSITIVE_INFINITY, Double.NaN };
+        for (int i = 1; i < values.length; i++) {
+            assertThat(encode(encoder, values[i - 1]).compareTo(encode(encoder, values[i])), lessThan(0));
+        }
+    }
+
+    @Test
+    public void testDefaultNullOrderDependsOnDirection() {
+        SortKeyEncoder ascending = singleColumn(DataTypes.LONG, false, null);
+        assertThat(encode(ascending, 10L).compareTo(encode(ascending, (Object) null)), lessThan(0));
+
+        SortKeyEncoder descending = singleColumn(DataTypes.LONG, true, null);
+        assertThat(encode(descending, (Object) null).compareTo(encode(descending, 10L)), lessThan(0));
+    }
+
+    @Test
+    public void testKeysOrderRowsLikeOrderingByPosition() {
+        int numColumns = TYPES.size();
+        int[] positions = new int[numColumns];
+        boolean[] reverseFlags = new boolean[numColumns];
+        Boolean[] nullsFirst = new Boolean[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            positions[i] = numColumns - 1 - i;
+            reverseFlags[i] = randomBoolean();
+            nullsFirst[i] = randomFrom(true, false, null);
+        }
+        List<DataType> types = new ArrayList<>(numColumns);
+        for (int position : positions) {
+            types.add(TYPES.get(position));
+        }
+        SortKeyEncoder encoder = SortKeyEncoder.create(positions, types, reverseFlags, nullsFirst);
+        Comparator<Object[]> ordering = OrderingByPosition.arrayOrdering(positions, reverseFlags, nullsFirst).reverse();
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // few distinct values, so that the later columns are compared as well
+            rows.add(new Object[] {
+                randomNullable((long) randomIntBetween(-2, 2)),
+                randomNullable(randomIntBetween(-2, 2)),
+                randomNullable(randomFrom(-1.5d, -0.0d, 0.0d, 3.0d)),
+                randomNullable(randomFrom(-1.5f, 0.0f, 3.0f)),
+                randomNullable(randomBoolean()),
+                randomNullable(new BytesRef(randomFrom("", "a", "ab", "b", "\u00e4")))
+            });
+        }
+        for (Object[] row1 : rows) {
+            for (Object[] row2 : rows.subList(0, 20)) {
+                int expected = Integer.signum(ordering.compare(row1, row2));
+                int actual = Integer.signum(encode(encoder, row1).compareTo(encode(encoder, row2)));
+                assertThat(actual, is(expected));
+            }
+        }
+    }
+
+    private static Object randomNullable(Object value) {
+        return randomInt(4) == 0 ? null : value;
+    }
+}
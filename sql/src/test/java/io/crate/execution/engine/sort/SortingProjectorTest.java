@@ -23,6 +23,13 @@
 package io.crate.execution.engine.sort;
 
 import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row1;
+import io.crate.exceptions.JobKilledException;
+import io.crate.execution.engine.collect.stats.JobsLogs;
+import io.crate.execution.engine.spill.SpillService;
+import io.crate.expression.reference.sys.operation.OperationContext;
 import io.crate.expression.symbol.Literal;
 import io.crate.data.BatchIterator;
 import io.crate.data.Bucket;
@@ -32,23 +39,49 @@ import io.crate.execution.engine.collect.InputCollectExpression;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.TestingBatchIterators;
 import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.env.NodeEnvironment;
 import org.junit.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static io.crate.data.SentinelRow.SENTINEL;
 import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.core.Is.is;
 
 public class SortingProjectorTest extends CrateUnitTest {
 
     private TestingRowConsumer consumer = new TestingRowConsumer();
 
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
     private SortingProjector createProjector(int numOutputs, int offset) {
         InputCollectExpression input = new InputCollectExpression(0);
         return new SortingProjector(
             ImmutableList.of(input, Literal.of(true)),
+            ImmutableList.of(DataTypes.INTEGER, DataTypes.BOOLEAN),
             ImmutableList.<CollectExpression<Row, ?>>of(input),
             numOutputs,
             OrderingByPosition.arrayOrdering(0, false, null),
-            offset
+            null,
+            offset,
+            RAM_ACCOUNTING_CONTEXT,
+            null
         );
     }
 
@@ -86,6 +119,122 @@ public class SortingProjectorTest extends CrateUnitTest {
         expectedException.expect(IllegalArgumentException.class);
         expectedException.expectMessage("invalid offset -1");
 
-        new SortingProjector(null, null, 2, null, -1);
+        new SortingProjector(null, null, null, 2, null, null, -1, RAM_ACCOUNTING_CONTEXT, null);
+    }
+
+    @Test
+    public void testOffsetGreaterThanNumberOfRows() throws Exception {
+        SortingProjector projector = createProjector(2, 20);
+
+        consumer.accept(projector.apply(TestingBatchIterators.range(1, 11)), null);
+        assertThat(consumer.getBucket().size(), is(0));
+    }
+
+    @Test
+    public void testRowsAreSortedOnDiskIfSpillThresholdIsReached() throws Exception {
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(Settings.EMPTY)) {
+            JobsLogs jobsLogs = new JobsLogs(() -> true);
+            SpillService spillService = new SpillService(
+                Settings.builder().put(SpillService.SPILL_THRESHOLD_SETTING.getKey(), 0.01d).build(),
+                nodeEnvironment,
+                jobsLogs);
+            UUID jobId = UUID.randomUUID();
+            jobsLogs.operationStarted(1, jobId, "order-by");
+            RamAccountingContext ramAccountingContext = new RamAccountingContext(
+                "test",
+                new MemoryCircuitBreaker(
+                    new ByteSizeValue(1, ByteSizeUnit.MB), 1.0, Loggers.getLogger(SortingProjectorTest.class)));
+
+            InputCollectExpression input = new InputCollectExpression(0);
+            SortingProjector projector = new SortingProjector(
+                ImmutableList.of(input),
+                ImmutableList.of(DataTypes.LONG),
+                ImmutableList.<CollectExpression<Row, ?>>of(input),
+                1,
+                OrderingByPosition.arrayOrdering(0, true, null),
+                SortKeyEncoder.create(
+                    new int[] { 0 }, ImmutableList.of(DataTypes.LONG), new boolean[] { true }, new Boolean[] { null }),
+                5,
+                ramAccountingContext,
+                spillService.newContext(jobId, 1)
+            );
+
+            // enough rows to require more than one merge pass
+            int numRows = 20_000;
+            List<Row> rows = new ArrayList<>(numRows);
+            for (int i = 0; i < numRows; i++) {
+                rows.add(new Row1((long) ((i * 7919) % numRows)));
+            }
+            Collections.shuffle(rows, random());
+            rows.add(new Row1(null));
+            consumer.accept(projector.apply(InMemoryBatchIterator.of(rows, SENTINEL)), null);
+            List<Object[]> result = consumer.getResult();
+
+            OperationContext operationContext = jobsLogs.activeOperations().iterator().next();
+            assertThat(operationContext.spilledBytes(), greaterThan(0L));
+            assertThat(operationContext.spilledPartitions(), greaterThan(SortSpill.MAX_MERGE_WIDTH));
+
+            // nulls first, then descending, skipping the offset
+            assertThat(result.size(), is(numRows + 1 - 5));
+            for (int i = 0; i < result.size(); i++) {
+                assertThat(result.get(i)[0], is((long) (numRows - 5 - i)));
+            }
+
+            Path spillPath = nodeEnvironment.nodeDataPaths()[0].resolve("spill");
+            try (Stream<Path> files = Files.list(spillPath)) {
+                assertThat(files.count(), is(0L));
+            }
+        }
+    }
+
+    @Test
+    public void testKillKeepsSpillFilesUntilClose() throws Exception {
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(Settings.EMPTY)) {
+            SpillService spillService = new SpillService(
+                Settings.builder().put(SpillService.SPILL_THRESHOLD_SETTING.getKey(), 0.01d).build(),
+                nodeEnvironment,
+                new JobsLogs(() -> true));
+            RamAccountingContext ramAccountingContext = new RamAccountingContext(
+                "test",
+                new MemoryCircuitBreaker(
+                    new ByteSizeValue(1, ByteSizeUnit.MB), 1.0, Loggers.getLogger(SortingProjectorTest.class)));
+            InputCollectExpression input = new InputCollectExpression(0);
+            SortingCollector collector = new SortingCollector(
+                ImmutableList.of(input),
+                ImmutableList.of(DataTypes.LONG),
+                ImmutableList.<CollectExpression<Row, ?>>of(input),
+                1,
+                OrderingByPosition.arrayOrdering(0, false, null),
+                null,
+                0,
+                ramAccountingContext,
+                spillService.newContext(UUID.randomUUID(), 1)
+            );
+            SortingCollector.Rows state = collector.supplier().get();
+            for (long i = 0; i < 1_000; i++) {
+                collector.accumulator().accept(state, new Row1(i));
+            }
+            Path spillPath = nodeEnvironment.nodeDataPaths()[0].resolve("spill");
+            try (Stream<Path> files = Files.list(spillPath)) {
+                assertThat(files.count(), is(1L));
+            }
+
+            collector.kill(new JobKilledException());
+            try (Stream<Path> files = Files.list(spillPath)) {
+                assertThat(files.count(), is(1L));
+            }
+            try {
+                for (long i = 0; i < 1_000; i++) {
+                    collector.accumulator().accept(state, new Row1(i));
+                }
+                fail("collector must not write runs once it has been killed");
+            } catch (JobKilledException ignored) {
+            }
+
+            collector.close();
+            try (Stream<Path> files = Files.list(spillPath)) {
+                assertThat(files.count(), is(0L));
+            }
+        }
     }
 }
@@ -35,8 +35,10 @@ import io.crate.execution.engine.pipeline.TopN;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.TestingBatchIterators;
 import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.List;
 
 import static io.crate.testing.TestingHelpers.isRow;
@@ -53,11 +55,20 @@ public class SortingTopNProjectorTest extends CrateUnitTest {
     private TestingRowConsumer consumer = new TestingRowConsumer();
 
     private Projector getProjector(int numOutputs, int limit, int offset, Ordering<Object[]> ordering) {
+        return getProjector(numOutputs, limit, offset, ordering, null);
+    }
+
+    private Projector getProjector(int numOutputs,
+                                   int limit,
+                                   int offset,
+                                   Ordering<Object[]> ordering,
+                                   SortKeyEncoder sortKeyEncoder) {
         return new SortingTopNProjector(
             INPUT_LITERAL_LIST,
             COLLECT_EXPRESSIONS,
             numOutputs,
             ordering,
+            sortKeyEncoder,
             limit,
             offset
         );
@@ -98,6 +109,22 @@ public class SortingTopNProjectorTest extends CrateUnitTest {
         assertThat(iterateLength, is(10));
     }
 
+    @Test
+    public void testOrderByDescendingWithSortKeys() throws Exception {
+        SortKeyEncoder sortKeyEncoder = SortKeyEncoder.create(
+            new int[] { 0 }, Collections.singletonList(DataTypes.INTEGER), new boolean[] { true }, new Boolean[] { null });
+        Projector projector = getProjector(
+            1, 3, 2, OrderingByPosition.arrayOrdering(0, true, null), sortKeyEncoder);
+        consumer.accept(projector.apply(TestingBatchIterators.range(1, 11)), null);
+
+        Bucket rows = consumer.getBucket();
+        assertThat(rows.size(), is(3));
+        int expected = 8;
+        for (Row row : rows) {
+            assertThat(row, isRow(expected--));
+        }
+    }
+
     @Test
     public void testWithHighOffset() throws Exception {
         Projector projector = getProjector(2, 2, 30);
@@ -110,7 +137,7 @@ public class SortingTopNProjectorTest extends CrateUnitTest {
         expectedException.expect(IllegalArgumentException.class);
         expectedException.expectMessage("Invalid LIMIT: value must be > 0; got: -1");
 
-        new SortingTopNProjector(INPUT_LITERAL_LIST, COLLECT_EXPRESSIONS, 2, FIRST_CELL_ORDERING, -1, 0);
+        new SortingTopNProjector(INPUT_LITERAL_LIST, COLLECT_EXPRESSIONS, 2, FIRST_CELL_ORDERING, null, -1, 0);
     }
 
     @Test
@@ -118,7 +145,7 @@ public class SortingTopNProjectorTest extends CrateUnitTest {
         expectedException.expect(IllegalArgumentException.class);
         expectedException.expectMessage("Invalid LIMIT: value must be > 0; got: 0");
 
-        new SortingTopNProjector(INPUT_LITERAL_LIST, COLLECT_EXPRESSIONS, 2, FIRST_CELL_ORDERING, 0, 0);
+        new SortingTopNProjector(INPUT_LITERAL_LIST, COLLECT_EXPRESSIONS, 2, FIRST_CELL_ORDERING, null, 0, 0);
     }
 
     @Test
@@ -126,7 +153,7 @@ public class SortingTopNProjectorTest extends CrateUnitTest {
         expectedException.expect(IllegalArgumentException.class);
         expectedException.expectMessage("Invalid OFFSET: value must be >= 0; got: -1");
 
-        new SortingTopNProjector(INPUT_LITERAL_LIST, COLLECT_EXPRESSIONS, 2, FIRST_CELL_ORDERING, 1, -1);
+        new SortingTopNProjector(INPUT_LITERAL_LIST, COLLECT_EXPRESSIONS, 2, FIRST_CELL_ORDERING, null, 1, -1);
     }
 
     @Test
@@ -135,7 +162,7 @@ public class SortingTopNProjectorTest extends CrateUnitTest {
         expectedException.expectMessage("Invalid LIMIT + OFFSET: value must be <= 2147483630; got: 2147483646");
 
         int i = Integer.MAX_VALUE / 2;
-        new SortingTopNProjector(INPUT_LITERAL_LIST, COLLECT_EXPRESSIONS, 2, FIRST_CELL_ORDERING, i, i);
+        new SortingTopNProjector(INPUT_LITERAL_LIST, COLLECT_EXPRESSIONS, 2, FIRST_CELL_ORDERING, null, i, i);
     }
 
     @Test
@@ -144,6 +171,6 @@ public class SortingTopNProjectorTest extends CrateUnitTest {
         expectedException.expectMessage("Invalid LIMIT + OFFSET: value must be <= 2147483630; got: -2147483648");
 
         int i = Integer.MAX_VALUE / 2 + 1;
-        new SortingTopNProjector(INPUT_LITERAL_LIST, COLLECT_EXPRESSIONS, 2, FIRST_CELL_ORDERING, i, i);
+        new SortingTopNProjector(INPUT_LITERAL_LIST, COLLECT_EXPRESSIONS, 2, FIRST_CELL_ORDERING, null, i, i);
     }
 }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compiler;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.dsl.projection.builder.InputColumns;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.expression.InputFactory;
+import io.crate.expression.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.SqlExpressions;
+import io.crate.testing.T3;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ExpressionCompilerTest extends CrateUnitTest {
+
+    private final SqlExpressions expressions = new SqlExpressions(ImmutableMap.of(T3.T1, T3.TR_1), T3.TR_1);
+    private final InputFactory inputFactory = new InputFactory(expressions.functions());
+    private final ExpressionCompiler compiler = new ExpressionCompiler(expressions.functions());
+
+    // columns: a (string), x (integer), i (integer)
+    private final List<Row> rows = Arrays.asList(
+        new RowN(new Object[] { "foo", 1, 10 }),
+        new RowN(new Object[] { "bar", -3, null }),
+        new RowN(new Object[] { null, null, 0 }),
+        new RowN(new Object[] { "foobar", Integer.MAX_VALUE, 7 })
+    );
+
+    private Symbol symbol(String expression) {
+        Symbol symbol = expressions.normalize(expressions.asSymbol(expression));
+        List<Symbol> columns = Arrays.asList(
+            expressions.asSymbol("a"), expressions.asSymbol("x"), expressions.asSymbol("i"));
+        return InputColumns.create(symbol, columns);
+    }
+
+    private Object interpret(Symbol symbol, Row row) {
+        InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns();
+        Input<?> input = ctx.add(symbol);
+        for (CollectExpression<Row, ?> expression : ctx.expressions()) {
+            expression.setNextRow(row);
+        }
+        return input.value();
+    }
+
+    private void assertSameResultAsInterpreted(String expression) {
+        Symbol symbol = symbol(expression);
+        CompiledExpression compiled = compiler.compile(symbol);
+        assertThat(expression + " must be compiled", compiled, notNullValue());
+        for (Row row : rows) {
+            compiled.setNextRow(row);
+            assertThat(expression + " for row " + Arrays.toString(row.materialize()),
+                compiled.value(), is(interpret(symbol, row)));
+        }
+    }
+
+    @Test
+    public void testArithmeticMatchesInterpretedEvaluation() {
+        assertSameResultAsInterpreted("x + i * 2");
+        assertSameResultAsInterpreted("x - 1");
+        assertSameResultAsInterpreted("x % 3");
+        assertSameResultAsInterpreted("x * 2.5");
+        assertSameResultAsInterpreted("x / 2.0 + i");
+        assertSameResultAsInterpreted("(x + 1)::long * 10");
+    }
+
+    @Test
+    public void testIntegerOverflowWrapsLikeInterpretedEvaluation() {
+        // x is Integer.MAX_VALUE in the last row
+        assertSameResultAsInterpreted("x + 1");
+    }
+
+    @Test
+    public void testComparisonsAndLogicalOperatorsMatchInterpretedEvaluation() {
+        assertSameResultAsInterpreted("x > 0 and i < 10");
+        assertSameResultAsInterpreted("x > 0 or i >= 7");
+        assertSameResultAsInterpreted("not (x = 1)");
+        assertSameResultAsInterpreted("x * 2 <= i");
+        assertSameResultAsInterpreted("x > 0.5");
+    }
+
+    @Test
+    public void testConditionalsMatchInterpretedEvaluation() {
+        assertSameResultAsInterpreted("case when x > 0 then x * 10 else i end");
+        assertSameResultAsInterpreted("case when x > 0 then 'pos' end");
+        assertSameResultAsInterpreted("coalesce(i, x, -1) + 1");
+        assertSameResultAsInterpreted("coalesce(i, x) > 5");
+    }
+
+    @Test
+    public void testOtherFunctionsAreEvaluatedWithCompiledArguments() {
+        assertSameResultAsInterpreted("substr(a, 1, 3) = 'foo' and x > 0");
+        assertSameResultAsInterpreted("abs(x - 5) + 1");
+    }
+
+    @Test
+    public void testExpressionWithoutSpecializedFunctionIsNotCompiled() {
+        assertThat(compiler.compile(symbol("substr(a, 1, 3)")), nullValue());
+        assertThat(compiler.compile(symbol("x")), nullValue());
+    }
+
+    @Test
+    public void testMatchesTreatsNullAsFalse() {
+        CompiledExpression compiled = compiler.compile(symbol("i > 5"));
+        assertThat(compiled.matches(rows.get(0)), is(true));
+        assertThat(compiled.matches(rows.get(1)), is(false));
+        assertThat(compiled.matches(rows.get(2)), is(false));
+    }
+
+    @Test
+    public void testCompiledExpressionsDoNotShareState() {
+        Symbol symbol = symbol("coalesce(i, x) + 1");
+        CompiledExpression first = compiler.compile(symbol);
+        CompiledExpression second = compiler.compile(symbol);
+        assertThat(first == second, is(false));
+
+        first.setNextRow(rows.get(1));
+        second.setNextRow(rows.get(0));
+        assertThat(first.value(), is(-2));
+        assertThat(second.value(), is(11));
+    }
+
+    @Test
+    public void testIntegerDivisionByZeroFails() {
+        CompiledExpression compiled = compiler.compile(symbol("x / i"));
+        compiled.setNextRow(rows.get(2));
+        // x is null, so the result is null
+        assertThat(compiled.value(), nullValue());
+
+        compiled.setNextRow(new RowN(new Object[] { "foo", 1, 0 }));
+        expectedException.expect(ArithmeticException.class);
+        compiled.value();
+    }
+}
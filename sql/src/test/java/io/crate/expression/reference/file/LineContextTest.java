@@ -21,11 +21,20 @@
 
 package io.crate.expression.reference.file;
 
+import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.metadata.ColumnIdent;
 import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchParseException;
 import org.junit.Test;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 public class LineContextTest extends CrateUnitTest {
     @Test
@@ -39,4 +48,71 @@ public class LineContextTest extends CrateUnitTest {
         assertNull(context.get(new ColumnIdent("details", "invalid")));
         assertEquals(43, context.get(new ColumnIdent("details", "age")));
     }
+
+    @Test
+    public void testColumnValuesAreExtractedFromJson() throws Exception {
+        LineContext context = new LineContext();
+        int name = context.registerColumn(new ColumnIdent("name"), DataTypes.STRING);
+        int age = context.registerColumn(new ColumnIdent("details", "age"), DataTypes.INTEGER);
+        int details = context.registerColumn(new ColumnIdent("details"), DataTypes.OBJECT);
+        int invalid = context.registerColumn(new ColumnIdent("name", "invalid"), DataTypes.STRING);
+        int tags = context.registerColumn(new ColumnIdent("tags"), DataTypes.STRING_ARRAY);
+
+        String source = "{\"tags\": [\"a\", \"b\"], \"ignored\": {\"x\": [1, 2]}, \"name\": \"foo\", \"details\": {\"age\": 43}}";
+        context.rawSource(source.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(context.columnValue(name), is(new BytesRef("foo")));
+        assertThat(context.columnValue(age), is(43));
+        assertThat(context.columnValue(details), is(Collections.singletonMap("age", 43)));
+        // same as ColumnIdent.get: the value of a parent which isn't an object is the value of its children
+        assertThat(context.columnValue(invalid), is(new BytesRef("foo")));
+        assertThat(context.columnValue(tags), is(Arrays.asList("a", "b")));
+
+        context.rawSource("{\"details\": null}".getBytes(StandardCharsets.UTF_8));
+        assertThat(context.columnValue(name), nullValue());
+        assertThat(context.columnValue(age), nullValue());
+    }
+
+    @Test
+    public void testColumnValuesAreExtractedFromCsvAndConverted() throws Exception {
+        LineContext context = new LineContext(FileUriCollectPhase.InputFormat.CSV);
+        int id = context.registerColumn(new ColumnIdent("id"), DataTypes.LONG);
+        int name = context.registerColumn(new ColumnIdent("name"), DataTypes.STRING);
+        int missing = context.registerColumn(new ColumnIdent("missing"), DataTypes.STRING);
+        context.header("id,\"name\"".getBytes(StandardCharsets.UTF_8));
+
+        context.rawSource("42,\"Ford \"\"Prefect\"\"\"".getBytes(StandardCharsets.UTF_8));
+        assertThat(context.columnValue(id), is(42L));
+        assertThat(context.columnValue(name), is(new BytesRef("Ford \"Prefect\"")));
+        assertThat(context.columnValue(missing), nullValue());
+        assertThat(context.sourceAsMap().get("name"), is("Ford \"Prefect\""));
+
+        context.rawSource(",\"\"".getBytes(StandardCharsets.UTF_8));
+        assertThat(context.columnValue(id), nullValue());
+        assertThat(context.columnValue(name), is(new BytesRef("")));
+        assertThat(context.sourceAsBytesRef().utf8ToString(), is("{\"id\":null,\"name\":\"\"}"));
+    }
+
+    @Test
+    public void testCsvValueWhichCannotBeConvertedRaisesParseException() throws Exception {
+        LineContext context = new LineContext(FileUriCollectPhase.InputFormat.CSV);
+        int id = context.registerColumn(new ColumnIdent("id"), DataTypes.LONG);
+        context.header("id".getBytes(StandardCharsets.UTF_8));
+        context.rawSource("foo".getBytes(StandardCharsets.UTF_8));
+
+        expectedException.expect(ElasticsearchParseException.class);
+        expectedException.expectMessage("Cannot cast value 'foo' of column 'id' to type long");
+        context.columnValue(id);
+    }
+
+    @Test
+    public void testCsvQuotedFieldWithLineBreakIsNotSupported() throws Exception {
+        LineContext context = new LineContext(FileUriCollectPhase.InputFormat.CSV);
+        context.header("id,name".getBytes(StandardCharsets.UTF_8));
+        context.rawSource("1,\"Ford".getBytes(StandardCharsets.UTF_8));
+
+        expectedException.expect(ElasticsearchParseException.class);
+        expectedException.expectMessage("line breaks within quoted fields are not supported");
+        context.sourceAsBytesRef();
+    }
 }
@@ -23,9 +23,12 @@
 package io.crate.expression.reference.sys.node;
 
 import com.google.common.collect.ImmutableSet;
+import io.crate.action.sql.QueryResultCache;
+import io.crate.action.sql.StatementCache;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.sys.SysNodesTableInfo;
 import io.crate.monitor.ExtendedNodeInfo;
+import io.crate.protocols.postgres.ResultSetMetrics;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.monitor.MonitorService;
@@ -75,7 +78,10 @@ public class NodeStatsContextFieldResolverTest {
             () -> null,
             mock(ThreadPool.class),
             new ExtendedNodeInfo(),
-            () -> postgresAddress
+            () -> postgresAddress,
+            () -> new QueryResultCache.Stats(1024L, 2, 10L, 3L, 1L, 4L),
+            () -> new StatementCache.Stats(5, 20L, 4L, 2L),
+            () -> new ResultSetMetrics.Stats(7L, 1.5, 3L, 65536L)
         );
     }
 
@@ -112,6 +118,39 @@ public class NodeStatsContextFieldResolverTest {
         assertThat(context.port().get("psql"), is(5432));
     }
 
+    @Test
+    public void testQueryResultCacheStatsResolution() {
+        NodeStatsContext context = resolver.forTopColumnIdents(ImmutableSet.of(
+            SysNodesTableInfo.Columns.QUERY_RESULT_CACHE
+        ));
+        assertThat(context.isComplete(), is(true));
+        assertThat(context.queryResultCacheStats().sizeInBytes(), is(1024L));
+        assertThat(context.queryResultCacheStats().entries(), is(2));
+        assertThat(context.queryResultCacheStats().hits(), is(10L));
+    }
+
+    @Test
+    public void testStatementCacheStatsResolution() {
+        NodeStatsContext context = resolver.forTopColumnIdents(ImmutableSet.of(
+            SysNodesTableInfo.Columns.STATEMENT_CACHE
+        ));
+        assertThat(context.isComplete(), is(true));
+        assertThat(context.statementCacheStats().entries(), is(5));
+        assertThat(context.statementCacheStats().hits(), is(20L));
+        assertThat(context.statementCacheStats().misses(), is(4L));
+    }
+
+    @Test
+    public void testPsqlResultStatsResolution() {
+        NodeStatsContext context = resolver.forTopColumnIdents(ImmutableSet.of(
+            SysNodesTableInfo.Columns.PSQL_RESULTS
+        ));
+        assertThat(context.isComplete(), is(true));
+        assertThat(context.psqlResultStats().results(), is(7L));
+        assertThat(context.psqlResultStats().pauses(), is(3L));
+        assertThat(context.psqlResultStats().maxPendingBytes(), is(65536L));
+    }
+
     @Test
     public void testResolveForNonExistingColumnIdent() {
         thrown.expect(IllegalArgumentException.class);
@@ -134,6 +173,9 @@ public class NodeStatsContextFieldResolverTest {
         assertThat(context.extendedOsStats(), is(nullValue()));
         assertThat(context.networkStats(), is(nullValue()));
         assertThat(context.threadPools(), is(nullValue()));
+        assertThat(context.queryResultCacheStats(), is(nullValue()));
+        assertThat(context.statementCacheStats(), is(nullValue()));
+        assertThat(context.psqlResultStats(), is(nullValue()));
         assertThat(context.javaVersion(), is(notNullValue()));
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.integrationtests;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.TableIdent;
+import io.crate.planner.ColumnStats;
+import io.crate.planner.TableStats;
+import io.crate.testing.TestingHelpers;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+
+@ESIntegTestCase.ClusterScope(supportsDedicatedMasters = false, numDataNodes = 2, numClientNodes = 0)
+public class ColumnStatsIntegrationTest extends SQLTransportIntegrationTest {
+
+    @Test
+    public void testAnalyzePublishesColumnStatsToAllNodes() throws Exception {
+        execute("create table t1 (a int, b string) with (number_of_replicas = 0)");
+        execute("insert into t1 (a, b) values (1, 'foo'), (2, 'foo'), (3, null), (3, 'bar')");
+        execute("refresh table t1");
+
+        execute("analyze t1");
+        assertThat(response.rowCount(), is(1L));
+
+        TableIdent t1 = new TableIdent(sqlExecutor.getDefaultSchema(), "t1");
+        assertBusy(() -> {
+            for (TableStats tableStats : internalCluster().getInstances(TableStats.class)) {
+                ColumnStats stats = tableStats.columnStats(t1, new ColumnIdent("b"));
+                assertThat(stats, notNullValue());
+                assertThat(stats.nullFraction(), is(0.25));
+            }
+        }, 5, TimeUnit.SECONDS);
+
+        execute("select attname, null_frac, n_distinct, most_common_vals from pg_catalog.pg_stats " +
+                "where tablename = 't1' order by attname");
+        assertThat(TestingHelpers.printedTable(response.rows()),
+            is("a| 0.0| 3.0| [3]\n" +
+               "b| 0.25| 2.0| [foo]\n"));
+    }
+}
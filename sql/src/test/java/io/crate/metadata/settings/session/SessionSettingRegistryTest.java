@@ -52,6 +52,13 @@ public class SessionSettingRegistryTest {
         assertBooleanNonEmptySetting(sessionContext, sessionContext::isHashJoinEnabled, applier, true);
     }
 
+    @Test
+    public void testQueryResultCacheSessionSetting() {
+        SessionContext sessionContext = new SessionContext(null, null, x -> {}, x -> {});
+        SessionSettingApplier applier = SessionSettingRegistry.getApplier(SessionSettingRegistry.QUERY_RESULT_CACHE_KEY);
+        assertBooleanNonEmptySetting(sessionContext, sessionContext::isQueryResultCacheEnabled, applier, true);
+    }
+
     private void assertBooleanNonEmptySetting(SessionContext sessionContext,
                                               Supplier<Boolean> contextBooleanSupplier,
                                               SessionSettingApplier applier,
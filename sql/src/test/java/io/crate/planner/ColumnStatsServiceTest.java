@@ -0,0 +1,206 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.stats.ColumnStatsMetaData;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ColumnStatsServiceTest extends CrateDummyClusterServiceUnitTest {
+
+    @Override
+    protected Collection<Setting<?>> additionalClusterSettings() {
+        return Collections.singletonList(ColumnStatsService.STATS_ANALYZE_INTERVAL_SETTING.setting());
+    }
+
+    @Test
+    public void testStatsOfFewDistinctValuesContainAllValuesAsMostCommonValues() {
+        List<Object> values = Arrays.asList(1, 1, 1, 2, 2, 3, 3, 3, 3, null);
+        ColumnStats stats = ColumnStatsService.computeStats(DataTypes.INTEGER, values, 10L);
+
+        assertThat(stats.nullFraction(), is(0.1));
+        assertThat(stats.approxDistinct(), is(3.0));
+        assertThat(stats.mostCommonValues(), contains(3, 1, 2));
+        assertThat(stats.mostCommonFrequencies()[0], is(0.4));
+        assertThat(stats.eqSelectivity(3), is(0.4));
+        assertThat(stats.histogram().get(0), is(1));
+        assertThat(stats.histogram().get(stats.histogram().size() - 1), is(3));
+    }
+
+    @Test
+    public void testStatsOfUniqueValuesContainNoMostCommonValues() {
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add((long) i);
+        }
+        ColumnStats stats = ColumnStatsService.computeStats(DataTypes.LONG, values, 100_000L);
+
+        assertThat(stats.nullFraction(), is(0.0));
+        assertThat(stats.mostCommonValues().size(), is(0));
+        // all sampled values are unique, so the values are assumed to be unique within the table
+        assertThat(stats.approxDistinct(), is(100_000.0));
+        assertThat(stats.histogram().size(), is(ColumnStatsService.NUM_HISTOGRAM_BUCKETS + 1));
+        assertThat(stats.rangeSelectivity(500L, true), closeTo(0.5, 0.01));
+    }
+
+    @Test
+    public void testStatsOfOnlyNullValues() {
+        ColumnStats stats = ColumnStatsService.computeStats(DataTypes.STRING, Arrays.asList(null, null), 2L);
+        assertThat(stats.nullFraction(), is(1.0));
+        assertThat(stats.approxDistinct(), is(0.0));
+    }
+
+    @Test
+    public void testEstimateDistinctOfCompleteSampleIsExact() {
+        assertThat(ColumnStatsService.estimateDistinct(100, 40, 10, 100), is(40.0));
+    }
+
+    @Test
+    public void testEstimateDistinctIsBetweenSampleDistinctAndNumRows() {
+        double estimate = ColumnStatsService.estimateDistinct(1000, 500, 200, 1_000_000);
+        assertThat(estimate > 500, is(true));
+        assertThat(estimate < 1_000_000, is(true));
+    }
+
+    @Test
+    public void testWideValuesAreLeftOutOfMostCommonValuesAndHistogram() {
+        char[] chars = new char[2 * (int) ColumnStatsService.MAX_VALUE_BYTES];
+        Arrays.fill(chars, 'x');
+        BytesRef wide = new BytesRef(new String(chars));
+        BytesRef a = new BytesRef("a");
+        List<Object> values = Arrays.asList(wide, wide, wide, wide, a, a, a, a, new BytesRef("b"));
+        ColumnStats stats = ColumnStatsService.computeStats(DataTypes.STRING, values, 9L);
+
+        assertThat(stats.mostCommonValues(), contains(a));
+        assertThat(stats.histogram(), not(hasItem(wide)));
+        assertThat(stats.approxDistinct(), is(3.0));
+    }
+
+    @Test
+    public void testSizeOfMostCommonValuesAndHistogramIsLimited() {
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            char[] chars = new char[500];
+            Arrays.fill(chars, (char) ('a' + i % 26));
+            BytesRef value = new BytesRef(i + new String(chars));
+            int copies = i < ColumnStatsService.MAX_MOST_COMMON_VALUES ? 3 : 1;
+            for (int j = 0; j < copies; j++) {
+                values.add(value);
+            }
+        }
+        ColumnStats stats = ColumnStatsService.computeStats(DataTypes.STRING, values, values.size());
+
+        long bytes = 0L;
+        for (Object value : stats.mostCommonValues()) {
+            bytes += ((BytesRef) value).length;
+        }
+        for (Object value : stats.histogram()) {
+            bytes += ((BytesRef) value).length;
+        }
+        assertThat(stats.mostCommonValues().size(), greaterThan(0));
+        assertThat(bytes, lessThanOrEqualTo(ColumnStatsService.MAX_COLUMN_STATS_BYTES));
+    }
+
+    @Test
+    public void testSampleProbabilityOfHugeTableIsNotRoundedToZero() {
+        String stmt = ColumnStatsService.sampleStatement(
+            "doc.t", Collections.singletonList(createReference("x", DataTypes.INTEGER)), 100_000_000_000L);
+        assertThat(stmt, is("SELECT x FROM doc.t WHERE random() < 3.0E-7 LIMIT 60000"));
+    }
+
+    @Test
+    public void testColumnStatsAreResetOnceTheyAreRemovedFromTheClusterState() {
+        TableStats tableStats = new TableStats();
+        ColumnStatsService columnStatsService = new ColumnStatsService(
+            Settings.builder().put(ColumnStatsService.STATS_ANALYZE_INTERVAL_SETTING.getKey(), "0").build(),
+            THREAD_POOL,
+            clusterService,
+            tableStats,
+            null,
+            null,
+            null
+        );
+        TableIdent table = new TableIdent("doc", "t");
+        ColumnIdent column = new ColumnIdent("x");
+        Map<TableIdent, Map<ColumnIdent, ColumnStats>> statsByTable = Collections.singletonMap(
+            table, Collections.singletonMap(column, new ColumnStats(DataTypes.INTEGER, 0.0, 10.0)));
+
+        ClusterState initialState = clusterService.state();
+        ClusterState withStats = ClusterState.builder(initialState)
+            .metaData(MetaData.builder(initialState.metaData())
+                .putCustom(ColumnStatsMetaData.TYPE,
+                    ColumnStatsMetaData.update(null, statsByTable, statsByTable.keySet())))
+            .build();
+        columnStatsService.clusterChanged(new ClusterChangedEvent("stats published", withStats, initialState));
+        assertThat(tableStats.columnStats(table, column), notNullValue());
+
+        ClusterState withoutStats = ClusterState.builder(withStats)
+            .metaData(MetaData.builder(withStats.metaData()).removeCustom(ColumnStatsMetaData.TYPE))
+            .build();
+        columnStatsService.clusterChanged(new ClusterChangedEvent("stats removed", withoutStats, withStats));
+        assertThat(tableStats.columnStats(table, column), nullValue());
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        ColumnStats stats = ColumnStatsService.computeStats(
+            DataTypes.STRING,
+            Arrays.asList(new BytesRef("a"), new BytesRef("a"), new BytesRef("b"), null),
+            4L);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        stats.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+
+        assertThat(new ColumnStats(in), is(stats));
+    }
+}
@@ -23,6 +23,8 @@
 package io.crate.planner.operators;
 
 import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.carrotsearch.hppc.ObjectLongHashMap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import io.crate.sql.tree.QualifiedName;
@@ -80,4 +82,41 @@ public class JoinOrderingTest {
         );
         assertThat(qualifiedNames, contains(T3.T1, T3.T2, T3.T3));
     }
+
+    @Test
+    public void testOrderByEstimatedCardinalityStartsWithSmallestJoinResult() {
+        // SELECT * FROM t1, t2, t3 WHERE t1.id = t2.id AND t2.id = t3.id
+        // with t1 being a big fact table and t3 a small (filtered) dimension table
+        ObjectLongHashMap<QualifiedName> numRows = new ObjectLongHashMap<>();
+        numRows.put(T3.T1, 1_000_000);
+        numRows.put(T3.T2, 10_000);
+        numRows.put(T3.T3, 10);
+        Collection<QualifiedName> qualifiedNames = JoinOrdering.orderByEstimatedCardinality(
+            Arrays.asList(T3.T1, T3.T2, T3.T3),
+            numRows,
+            ImmutableMap.of(
+                ImmutableSet.of(T3.T1, T3.T2), 1.0 / 10_000,
+                ImmutableSet.of(T3.T2, T3.T3), 1.0 / 10_000)
+        );
+        assertThat(qualifiedNames, contains(T3.T2, T3.T3, T3.T1));
+    }
+
+    @Test
+    public void testOrderByEstimatedCardinalityPrefersConnectedRelations() {
+        // SELECT * FROM t1, t2, t3, t4 WHERE t1.id = t2.id AND t2.id = t3.id
+        // t4 is the smallest relation, but joining it would result in a cross join
+        ObjectLongHashMap<QualifiedName> numRows = new ObjectLongHashMap<>();
+        numRows.put(T3.T1, 100);
+        numRows.put(T3.T2, 100);
+        numRows.put(T3.T3, 1000);
+        numRows.put(T3.T4, 1);
+        Collection<QualifiedName> qualifiedNames = JoinOrdering.orderByEstimatedCardinality(
+            Arrays.asList(T3.T4, T3.T3, T3.T2, T3.T1),
+            numRows,
+            ImmutableMap.of(
+                ImmutableSet.of(T3.T1, T3.T2), 1.0 / 100,
+                ImmutableSet.of(T3.T2, T3.T3), 1.0 / 500)
+        );
+        assertThat(qualifiedNames, contains(T3.T2, T3.T1, T3.T3, T3.T4));
+    }
 }
@@ -23,6 +23,7 @@
 package io.crate.planner.operators;
 
 import com.carrotsearch.hppc.ObjectObjectHashMap;
+import com.google.common.collect.ImmutableMap;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.MultiSourceSelect;
 import io.crate.analyze.TableDefinitions;
@@ -30,11 +31,15 @@ import io.crate.data.Row;
 import io.crate.execution.dsl.phases.HashJoinPhase;
 import io.crate.execution.dsl.phases.NestedLoopPhase;
 import io.crate.execution.dsl.projection.builder.ProjectionBuilder;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.Functions;
 import io.crate.metadata.TableIdent;
+import io.crate.planner.ColumnStats;
 import io.crate.planner.PlannerContext;
 import io.crate.planner.SubqueryPlanner;
 import io.crate.planner.TableStats;
+import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.distribution.DistributionType;
 import io.crate.planner.node.dql.Collect;
 import io.crate.planner.node.dql.join.Join;
@@ -50,8 +55,10 @@ import java.util.Collections;
 
 import static io.crate.testing.TestingHelpers.getFunctions;
 import static java.util.Collections.emptyMap;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
 
 public class JoinTest extends CrateDummyClusterServiceUnitTest {
@@ -211,4 +218,96 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
         assertThat(((Join)join.left()).joinPhase(), instanceOf(HashJoinPhase.class));
     }
 
+    @Test
+    public void testHashJoinIsDistributedByJoinKeyIfSidesAreOnMultipleNodes() {
+        MultiSourceSelect mss = e.analyze("select users.name, locations.id " +
+                                          "from users " +
+                                          "join locations on users.id = locations.id");
+
+        TableStats tableStats = new TableStats();
+        PlannerContext context = e.getPlannerContext(clusterService.state());
+        LogicalPlanner logicalPlanner = new LogicalPlanner(functions, tableStats);
+        SubqueryPlanner subqueryPlanner = new SubqueryPlanner((s) -> logicalPlanner.planSubSelect(s, context));
+        SessionContext sessionContext = SessionContext.create();
+        LogicalPlan operator = JoinPlanBuilder.createNodes(mss, mss.where(), subqueryPlanner,  sessionContext)
+            .build(tableStats, Collections.emptySet());
+        assertThat(operator, instanceOf(HashJoin.class));
+
+        Join join = (Join) operator.build(context, projectionBuilder, -1, 0, null, null, Row.EMPTY, emptyMap());
+        HashJoinPhase joinPhase = (HashJoinPhase) join.joinPhase();
+        assertThat(joinPhase.name(), is("distributed-hash-join"));
+        assertThat(joinPhase.nodeIds(), containsInAnyOrder("n1", "n2"));
+        assertThat(joinPhase.leftMergePhase().numUpstreams(), is(2));
+        assertThat(joinPhase.rightMergePhase().numUpstreams(), is(2));
+
+        DistributionInfo leftDistribution = ((Collect) join.left()).collectPhase().distributionInfo();
+        DistributionInfo rightDistribution = ((Collect) join.right()).collectPhase().distributionInfo();
+        assertThat(leftDistribution.distributionType(), is(DistributionType.MODULO));
+        assertThat(rightDistribution.distributionType(), is(DistributionType.MODULO));
+        assertThat(leftDistribution.distributeByColumn(),
+            is(((InputColumn) joinPhase.leftJoinConditionInputs().get(0)).index()));
+        assertThat(rightDistribution.distributeByColumn(),
+            is(((InputColumn) joinPhase.rightJoinConditionInputs().get(0)).index()));
+    }
+
+    @Test
+    public void testHashJoinBlockSizeIsBoundByRowCountIfFilterEstimateIsTooLow() {
+        MultiSourceSelect mss = e.analyze("select users.name, locations.id " +
+                                          "from users " +
+                                          "join locations on users.id = locations.id " +
+                                          "where users.name = 'Arthur'");
+
+        TableStats tableStats = new TableStats();
+        ObjectObjectHashMap<TableIdent, TableStats.Stats> rowCountByTable = new ObjectObjectHashMap<>();
+        rowCountByTable.put(TableDefinitions.USER_TABLE_IDENT, new TableStats.Stats(10_000, 0));
+        rowCountByTable.put(TableDefinitions.TEST_DOC_LOCATIONS_TABLE_IDENT, new TableStats.Stats(10, 0));
+        tableStats.updateTableStats(rowCountByTable);
+
+        PlannerContext context = e.getPlannerContext(clusterService.state());
+        LogicalPlanner logicalPlanner = new LogicalPlanner(functions, tableStats);
+        SubqueryPlanner subqueryPlanner = new SubqueryPlanner((s) -> logicalPlanner.planSubSelect(s, context));
+        LogicalPlan operator = JoinPlanBuilder.createNodes(mss, mss.where(), subqueryPlanner, SessionContext.create())
+            .build(tableStats, Collections.emptySet());
+        assertThat(operator, instanceOf(HashJoin.class));
+        LogicalPlan users = ((HashJoin) operator).lhs;
+        // without column stats the filter selectivity is a guess, all rows of users may match
+        assertThat(users.numExpectedRows(), lessThan(10_000L));
+        assertThat(users.maxExpectedRows(), is(10_000L));
+
+        Join join = (Join) operator.build(context, projectionBuilder, -1, 0, null, null, Row.EMPTY, emptyMap());
+        HashJoinPhase joinPhase = (HashJoinPhase) join.joinPhase();
+        // the join is distributed to 2 nodes
+        assertThat(joinPhase.numberOfRowsForLeft(), is(10_000L / 2 + 1));
+    }
+
+    @Test
+    public void testJoinOrderIsBasedOnEstimatedCardinality() {
+        MultiSourceSelect mss = e.analyze("select * " +
+                                          "from t1 inner join t2 on t1.a = t2.b " +
+                                          "inner join t3 on t2.b = t3.c " +
+                                          "where t3.z = 1");
+
+        TableStats tableStats = new TableStats();
+        ObjectObjectHashMap<TableIdent, TableStats.Stats> rowCountByTable = new ObjectObjectHashMap<>();
+        rowCountByTable.put(T3.T1_INFO.ident(), new TableStats.Stats(1_000_000, 0));
+        rowCountByTable.put(T3.T2_INFO.ident(), new TableStats.Stats(10_000, 0));
+        rowCountByTable.put(T3.T3_INFO.ident(), new TableStats.Stats(1_000, 0));
+        tableStats.updateTableStats(rowCountByTable);
+        tableStats.updateColumnStats(ImmutableMap.of(
+            T3.T3_INFO.ident(), ImmutableMap.of(new ColumnIdent("z"), new ColumnStats(DataTypes.INTEGER, 0.0, 100))));
+
+        PlannerContext context = e.getPlannerContext(clusterService.state());
+        LogicalPlanner logicalPlanner = new LogicalPlanner(functions, tableStats);
+        SubqueryPlanner subqueryPlanner = new SubqueryPlanner((s) -> logicalPlanner.planSubSelect(s, context));
+        SessionContext sessionContext = SessionContext.create();
+        LogicalPlan operator = JoinPlanBuilder.createNodes(mss, mss.where(), subqueryPlanner,  sessionContext)
+            .build(tableStats, Collections.emptySet());
+
+        // t2 ⋈ t3 has the smallest estimated result (10 rows), the fact table t1 is joined last
+        assertThat(operator, instanceOf(HashJoin.class));
+        assertThat(((HashJoin) operator).concreteRelation.toString(), is("QueriedTable{DocTableRelation{doc.t1}}"));
+        HashJoin firstJoin = (HashJoin) ((HashJoin) operator).lhs;
+        assertThat(firstJoin.concreteRelation.toString(), is("QueriedTable{DocTableRelation{doc.t3}}"));
+        assertThat(firstJoin.numExpectedRows(), is(10L));
+    }
 }
@@ -23,10 +23,15 @@
 package io.crate.protocols.postgres;
 
 import io.crate.data.RowN;
+import io.crate.protocols.postgres.types.PGTypes;
+import io.crate.types.ArrayType;
 import io.crate.types.DataTypes;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -37,6 +42,9 @@ import static org.hamcrest.core.Is.is;
 
 public class MessagesTest {
 
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
     @Test
     public void testNullValuesAddToLength() throws Exception {
         EmbeddedChannel channel = new EmbeddedChannel();
@@ -56,6 +64,58 @@ public class MessagesTest {
         assertThat(buffer.readableBytes(), is(12)); // 16 - INT4 because the size was already read
     }
 
+    @Test
+    public void testDataRowWithPerColumnFormatCodes() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        Messages.sendDataRow(
+            channel,
+            new RowN($(10, 20L, new Object[]{1, null, 2})),
+            Arrays.asList(DataTypes.INTEGER, DataTypes.LONG, new ArrayType(DataTypes.INTEGER)),
+            new FormatCodes.FormatCode[]{FormatCodes.FormatCode.TEXT, FormatCodes.FormatCode.BINARY, FormatCodes.FormatCode.BINARY}
+        );
+        channel.flush();
+        ByteBuf buffer = channel.readOutbound();
+
+        assertThat((char) buffer.readByte(), is('D'));
+        assertThat(buffer.readInt(), is(buffer.readableBytes() + 4));
+        assertThat(buffer.readShort(), is((short) 3));
+
+        // text
+        assertThat(buffer.readInt(), is(2));
+        assertThat(buffer.readCharSequence(2, StandardCharsets.UTF_8).toString(), is("10"));
+
+        // binary
+        assertThat(buffer.readInt(), is(8));
+        assertThat(buffer.readLong(), is(20L));
+
+        // binary array: dimensions, flags, element oid, dimension size and lower bound followed by the elements
+        assertThat(buffer.readInt(), is(12 + 8 + 20));
+        assertThat(buffer.readInt(), is(1));
+        buffer.readInt();
+        assertThat(buffer.readInt(), is(PGTypes.get(DataTypes.INTEGER).oid()));
+        assertThat(buffer.readInt(), is(3));
+        assertThat(buffer.readInt(), is(1));
+        assertThat(buffer.readInt(), is(4));
+        assertThat(buffer.readInt(), is(1));
+        assertThat(buffer.readInt(), is(-1));
+        assertThat(buffer.readInt(), is(4));
+        assertThat(buffer.readInt(), is(2));
+        assertThat(buffer.readableBytes(), is(0));
+    }
+
+    @Test
+    public void testDataRowWithInvalidNumberOfFormatCodes() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(
+            "Number of result format codes (2) must be 0, 1 or match the number of result columns (3)");
+        Messages.writeDataRow(
+            Unpooled.buffer(),
+            new RowN($(1, 2, 3)),
+            Arrays.asList(DataTypes.INTEGER, DataTypes.INTEGER, DataTypes.INTEGER),
+            new FormatCodes.FormatCode[]{FormatCodes.FormatCode.TEXT, FormatCodes.FormatCode.BINARY}
+        );
+    }
+
     @Test
     public void testCommandCompleteWithWhitespace() throws Exception {
         final EmbeddedChannel channel = new EmbeddedChannel();
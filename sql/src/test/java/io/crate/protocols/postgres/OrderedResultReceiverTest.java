@@ -0,0 +1,144 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.action.sql.BaseResultReceiver;
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class OrderedResultReceiverTest extends CrateUnitTest {
+
+    private static class CollectingResultReceiver extends BaseResultReceiver {
+
+        private final List<Object> rows = new ArrayList<>();
+
+        @Override
+        public void setNextRow(Row row) {
+            rows.add(row.get(0));
+        }
+    }
+
+    @Test
+    public void testRowsArePassedOnImmediatelyIfPreviousResultsAreDelivered() {
+        CollectingResultReceiver delegate = new CollectingResultReceiver();
+        OrderedResultReceiver receiver = new OrderedResultReceiver(delegate, CompletableFuture.completedFuture(null));
+
+        assertThat(receiver.backpressure(), nullValue());
+        receiver.setNextRow(new Row1(1));
+        assertThat(delegate.rows, contains(1));
+
+        receiver.allFinished(false);
+        assertThat(receiver.delivered().isDone(), is(true));
+        assertThat(receiver.completionFuture().isDone(), is(true));
+    }
+
+    @Test
+    public void testResultsAreDelayedUntilPreviousResultsAreDelivered() {
+        CompletableFuture<Object> previous = new CompletableFuture<>();
+        CollectingResultReceiver delegate = new CollectingResultReceiver();
+        OrderedResultReceiver receiver = new OrderedResultReceiver(delegate, previous);
+
+        assertThat(receiver.backpressure(), sameInstance(previous));
+        receiver.setNextRow(new Row1(1));
+        receiver.setNextRow(new Row1(2));
+        receiver.allFinished(false);
+        assertThat(delegate.rows, empty());
+        assertThat(delegate.completionFuture().isDone(), is(false));
+        assertThat(receiver.delivered().isDone(), is(false));
+
+        previous.complete(null);
+        assertThat(delegate.rows, contains(1, 2));
+        assertThat(delegate.completionFuture().isDone(), is(true));
+        assertThat(receiver.delivered().isDone(), is(true));
+    }
+
+    @Test
+    public void testBatchFinishedCompletesDelivered() {
+        CollectingResultReceiver delegate = new CollectingResultReceiver();
+        OrderedResultReceiver receiver = new OrderedResultReceiver(delegate, CompletableFuture.completedFuture(null));
+
+        receiver.setNextRow(new Row1(1));
+        receiver.batchFinished();
+        assertThat(receiver.delivered().isDone(), is(true));
+        assertThat(receiver.completionFuture().isDone(), is(false));
+    }
+
+    @Test
+    public void testResultsAreDiscardedIfPreviousExecutionFailed() {
+        CompletableFuture<Object> previous = new CompletableFuture<>();
+        CollectingResultReceiver delegate = new CollectingResultReceiver();
+        OrderedResultReceiver receiver = new OrderedResultReceiver(delegate, previous);
+
+        receiver.setNextRow(new Row1(1));
+        previous.completeExceptionally(new IllegalStateException("dummy"));
+        receiver.allFinished(false);
+
+        assertThat(delegate.rows, empty());
+        assertThat(delegate.completionFuture().isDone(), is(false));
+        assertThat(receiver.delivered().isCompletedExceptionally(), is(true));
+        assertThat(receiver.completionFuture().isCompletedExceptionally(), is(true));
+    }
+
+    @Test
+    public void testFailureIsPassedOnAfterPreviousResults() {
+        CompletableFuture<Object> previous = new CompletableFuture<>();
+        CollectingResultReceiver delegate = new CollectingResultReceiver();
+        OrderedResultReceiver receiver = new OrderedResultReceiver(delegate, previous);
+
+        receiver.fail(new IllegalStateException("dummy"));
+        assertThat(delegate.completionFuture().isDone(), is(false));
+
+        previous.complete(null);
+        assertThat(delegate.completionFuture().isCompletedExceptionally(), is(true));
+        assertThat(receiver.delivered().isCompletedExceptionally(), is(true));
+    }
+
+    @Test
+    public void testSkippedReceiverIgnoresResults() {
+        CompletableFuture<Object> previous = new CompletableFuture<>();
+        CollectingResultReceiver delegate = new CollectingResultReceiver();
+        OrderedResultReceiver receiver = new OrderedResultReceiver(delegate, previous);
+
+        receiver.skip();
+        receiver.setNextRow(new Row1(1));
+        receiver.allFinished(false);
+        assertThat(receiver.delivered().isDone(), is(false));
+
+        previous.complete(null);
+        assertThat(receiver.delivered().isDone(), is(true));
+        assertThat(delegate.rows, empty());
+        assertThat(delegate.completionFuture().isDone(), is(false));
+    }
+}
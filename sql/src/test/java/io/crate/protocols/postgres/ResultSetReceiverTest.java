@@ -0,0 +1,106 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.protocols.postgres;
+
+import io.crate.data.Row1;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ResultSetReceiverTest extends CrateUnitTest {
+
+    private final ResultSetMetrics metrics = new ResultSetMetrics();
+
+    private ResultSetReceiver newReceiver(EmbeddedChannel channel, ChannelWritability writability) {
+        return new ResultSetReceiver(
+            "select x from t", channel, writability, metrics, t -> {}, Collections.singletonList(DataTypes.INTEGER), null);
+    }
+
+    @Test
+    public void testRowsAreWrittenTogetherWithCommandComplete() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ResultSetReceiver receiver = newReceiver(channel, new ChannelWritability());
+        for (int i = 0; i < 3; i++) {
+            receiver.setNextRow(new Row1(i));
+        }
+        assertThat(channel.readOutbound(), nullValue());
+
+        receiver.allFinished(false);
+        ByteBuf rows = channel.readOutbound();
+        for (int i = 0; i < 3; i++) {
+            assertThat((char) rows.readByte(), is('D'));
+            rows.skipBytes(rows.readInt() - 4);
+        }
+        assertThat(rows.readableBytes(), is(0));
+        rows.release();
+        ByteBuf commandComplete = channel.readOutbound();
+        assertThat((char) commandComplete.readByte(), is('C'));
+        commandComplete.release();
+
+        assertThat(metrics.stats().results(), is(1L));
+    }
+
+    @Test
+    public void testBackpressureIsReleasedOnceChannelIsWritable() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+        ChannelWritability writability = new ChannelWritability();
+        ResultSetReceiver receiver = newReceiver(channel, writability);
+        assertThat(receiver.backpressure(), nullValue());
+
+        channel.write(channel.alloc().buffer().writeZero(32));
+        CompletableFuture<?> backpressure = receiver.backpressure();
+        assertThat(backpressure, notNullValue());
+        assertThat(backpressure.isDone(), is(false));
+
+        channel.flush();
+        writability.writabilityChanged(channel);
+        assertThat(backpressure.isDone(), is(true));
+        assertThat(metrics.stats().pauses(), is(1L));
+        ReferenceCountUtil.release(channel.readOutbound());
+    }
+
+    @Test
+    public void testBackpressureFailsIfChannelIsClosed() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+        ChannelWritability writability = new ChannelWritability();
+        ResultSetReceiver receiver = newReceiver(channel, writability);
+
+        channel.write(channel.alloc().buffer().writeZero(32));
+        CompletableFuture<?> backpressure = receiver.backpressure();
+        writability.close();
+        assertThat(backpressure.isCompletedExceptionally(), is(true));
+        channel.finishAndReleaseAll();
+    }
+}
@@ -22,6 +22,8 @@
 
 package io.crate.protocols.postgres.types;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.hamcrest.Matchers;
 import org.hamcrest.core.Is;
 import org.junit.Test;
@@ -133,6 +135,36 @@ public class PGArrayTest {
                          "\"{\\\"names\\\":[\\\"Ford\\\",\\\"Slarti\\\"]}\"}"));
     }
 
+    @Test
+    public void testWriteAsBinaryReturnsNumberOfBytesWritten() throws Exception {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            int bytesWritten = pgArray.writeAsBinary(buffer, new Object[][] {{1, 2}, {3, null}});
+            assertThat(bytesWritten, is(buffer.writerIndex()));
+            assertThat(buffer.readInt(), is(bytesWritten - 4));
+
+            assertThat(pgArray.readBinaryValue(buffer, bytesWritten - 4),
+                Is.<Object>is(new Object[][] {{1, 2}, {3, null}}));
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void testEmptyArrayIsWrittenWithoutDimensions() throws Exception {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            int bytesWritten = pgArray.writeAsBinary(buffer, new Object[0]);
+            assertThat(bytesWritten, is(16));
+            assertThat(buffer.readInt(), is(12));
+            assertThat(buffer.readInt(), is(0)); // dimensions
+            buffer.readInt(); // flags
+            assertThat(buffer.readInt(), is(IntegerType.OID));
+        } finally {
+            buffer.release();
+        }
+    }
+
     @Test
     public void testDecodeUTF8Text() throws Exception {
         // 1-dimension array
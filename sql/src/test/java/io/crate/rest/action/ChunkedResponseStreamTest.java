@@ -0,0 +1,91 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.rest.action;
+
+import io.crate.test.integration.CrateUnitTest;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ChunkedResponseStreamTest extends CrateUnitTest {
+
+    @Test
+    public void testSmallResponseIsBufferedAndNotWritten() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChunkedResponseStream stream = new ChunkedResponseStream(channel, "application/json");
+        stream.write("{\"rows\":[]}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(stream.maybeWriteChunk(), is(false));
+        assertThat(stream.started(), is(false));
+        assertThat(stream.bufferedContent().utf8ToString(), is("{\"rows\":[]}"));
+        assertThat(channel.readOutbound(), nullValue());
+    }
+
+    @Test
+    public void testLargeResponseIsWrittenInChunks() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChunkedResponseStream stream = new ChunkedResponseStream(channel, "application/json");
+        stream.write(new byte[ChunkedResponseStream.CHUNK_SIZE]);
+
+        assertThat(stream.maybeWriteChunk(), is(true));
+        assertThat(stream.started(), is(true));
+        assertThat(stream.backpressure(), nullValue());
+
+        HttpResponse response = channel.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.TRANSFER_ENCODING), is(HttpHeaderValues.CHUNKED.toString()));
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_TYPE), is("application/json"));
+        HttpContent chunk = channel.readOutbound();
+        assertThat(chunk.content().readableBytes(), is(ChunkedResponseStream.CHUNK_SIZE));
+        ReferenceCountUtil.release(chunk);
+
+        stream.write(new byte[10]);
+        stream.finish();
+        Object lastChunk = channel.readOutbound();
+        assertThat(lastChunk, instanceOf(LastHttpContent.class));
+        assertThat(((LastHttpContent) lastChunk).content().readableBytes(), is(10));
+        ReferenceCountUtil.release(lastChunk);
+        assertThat(channel.isOpen(), is(false));
+    }
+
+    @Test
+    public void testAbortClosesStartedResponse() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChunkedResponseStream stream = new ChunkedResponseStream(channel, "application/json");
+        stream.write(new byte[ChunkedResponseStream.CHUNK_SIZE]);
+        stream.maybeWriteChunk();
+
+        stream.abort();
+        assertThat(channel.isOpen(), is(false));
+        channel.finishAndReleaseAll();
+    }
+}
@@ -101,6 +101,7 @@ public class RestActionReceiversTest extends CrateUnitTest {
     public void testRestResultSetReceiver() throws Exception {
         RestResultSetReceiver receiver = new RestResultSetReceiver(
             newChannel(),
+            null,
             t -> {},
             fields,
             0L,
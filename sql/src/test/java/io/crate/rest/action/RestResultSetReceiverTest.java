@@ -43,6 +43,7 @@ public class RestResultSetReceiverTest {
         RestChannel restChannel = new ErroneousChannel();
         RestResultSetReceiver restResultSetReceiver = new RestResultSetReceiver(
             restChannel,
+            null,
             t -> {},
             Collections.emptyList(),
             0,